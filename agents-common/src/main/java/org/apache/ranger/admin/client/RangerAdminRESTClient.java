@@ -58,6 +58,8 @@ public class RangerAdminRESTClient extends AbstractRangerAdminClient {
 	private RangerRESTUtils  restUtils   = new RangerRESTUtils();
 	private boolean 		 supportsPolicyDeltas;
 	private boolean 		 supportsTagDeltas;
+	private boolean 		 supportsRoleDeltas;
+	private boolean 		 supportsUserStoreDeltas;
 	private boolean			 isRangerCookieEnabled;
 	private String           rangerAdminCookieName;
 	private Cookie           sessionId            = null;
@@ -89,6 +91,8 @@ public void init(String serviceName, String appId, String propertyPrefix, Config
 
 		supportsPolicyDeltas            = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA_DEFAULT);
 		supportsTagDeltas               = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA_DEFAULT);
+		supportsRoleDeltas              = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_ROLE_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_ROLE_DELTA_DEFAULT);
+		supportsUserStoreDeltas         = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_USERSTORE_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_USERSTORE_DELTA_DEFAULT);
 		isRangerCookieEnabled			= config.getBoolean(propertyPrefix + ".policy.rest.client.cookie.enabled", RangerCommonConstants.POLICY_REST_CLIENT_SESSION_COOKIE_ENABLED);
 		rangerAdminCookieName			= config.get(propertyPrefix + ".policy.rest.client.session.cookie.name", RangerCommonConstants.DEFAULT_COOKIE_NAME);
 
@@ -213,6 +217,7 @@ public RangerRoles getRolesIfUpdated(final long lastKnownRoleVersion, final long
 		queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
 		queryParams.put(RangerRESTUtils.REST_PARAM_CLUSTER_NAME, clusterName);
 		queryParams.put(RangerRESTUtils.REST_PARAM_CAPABILITIES, pluginCapabilities);
+		queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_ROLE_DELTAS, Boolean.toString(supportsRoleDeltas));
 
 		if (isSecureMode) {
 			if (LOG.isDebugEnabled()) {
@@ -938,6 +943,7 @@ public RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, lon
 		queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
 		queryParams.put(RangerRESTUtils.REST_PARAM_CLUSTER_NAME, clusterName);
 		queryParams.put(RangerRESTUtils.REST_PARAM_CAPABILITIES, pluginCapabilities);
+		queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_USERSTORE_DELTAS, Boolean.toString(supportsUserStoreDeltas));
 
 		if (isSecureMode) {
 			if (LOG.isDebugEnabled()) {
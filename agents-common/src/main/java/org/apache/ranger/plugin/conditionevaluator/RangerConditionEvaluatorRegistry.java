@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerPolicyConditionDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestWrapper;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+ * Condition evaluators of a policy repository, shared by conditions having the same type, evaluator and values - in
+ * policies and in policy items. Result of a shared evaluator is computed once per request and saved in the request
+ * context, for evaluation of the same condition in subsequent policies. Saved results are cleared at the start of each
+ * evaluation and when the request is updated.
+ *
+ * Evaluators are held weakly, as the registry is shared by policy repositories created by applying deltas: an evaluator
+ * is dropped once no policy of any repository refers to it.
+ *
+ * A request is evaluated in a single thread; hence results saved in the context are accessed without synchronization.
+ * Results are saved separately for each request object sharing the context - like tag requests, which set the current
+ * tag in the context - and for each access-type of a request, so that conditions referring to the access-type or tag
+ * get their own result.
+ */
+public class RangerConditionEvaluatorRegistry {
+    private final Map<EvaluatorKey, EvaluatorRef>             evaluators         = new HashMap<>();
+    private final ReferenceQueue<RangerConditionEvaluator>    releasedEvaluators = new ReferenceQueue<>();
+    private final LongAdder                                   conditions         = new LongAdder();
+    private final LongAdder                                   evaluations        = new LongAdder();
+    private final LongAdder                                   savedEvaluations   = new LongAdder();
+
+    /*
+     * returns the evaluator registered for the given condition, after creating and registering one with the supplier
+     * if none is registered yet; the supplier may return null
+     */
+    public synchronized RangerConditionEvaluator getEvaluator(RangerPolicyItemCondition condition, RangerPolicyConditionDef conditionDef, Supplier<RangerConditionEvaluator> supplier) {
+        expungeReleasedEvaluators();
+
+        EvaluatorKey             key = new EvaluatorKey(condition, conditionDef);
+        EvaluatorRef             ref = evaluators.get(key);
+        RangerConditionEvaluator ret = ref != null ? ref.get() : null;
+
+        if (ret == null) {
+            ret = supplier.get();
+
+            if (ret != null) {
+                evaluators.put(key, new EvaluatorRef(key, ret, releasedEvaluators));
+            }
+        }
+
+        if (ret != null) {
+            conditions.increment();
+        }
+
+        return ret;
+    }
+
+    public boolean isMatched(RangerConditionEvaluator evaluator, RangerAccessRequest request) {
+        Map<RangerConditionEvaluator, Boolean> results = getResults(request);
+        Boolean                                ret     = results != null ? results.get(evaluator) : null;
+
+        evaluations.increment();
+
+        if (ret == null) {
+            ret = evaluator.isMatched(request);
+
+            if (results != null) {
+                results.put(evaluator, ret);
+            }
+        } else {
+            savedEvaluations.increment();
+        }
+
+        return ret;
+    }
+
+    public synchronized int getEvaluatorCount() {
+        expungeReleasedEvaluators();
+
+        return evaluators.size();
+    }
+
+    public long getConditionCount() { return conditions.sum(); }
+
+    public long getEvaluationCount() { return evaluations.sum(); }
+
+    public long getSavedEvaluationCount() { return savedEvaluations.sum(); }
+
+    public StringBuilder toString(StringBuilder sb) {
+        sb.append("RangerConditionEvaluatorRegistry={");
+        sb.append("conditions=").append(getConditionCount());
+        sb.append(", evaluators=").append(getEvaluatorCount());
+        sb.append(", evaluations=").append(getEvaluationCount());
+        sb.append(", savedEvaluations=").append(getSavedEvaluationCount());
+        sb.append("}");
+
+        return sb;
+    }
+
+    @Override
+    public String toString() {
+        return toString(new StringBuilder()).toString();
+    }
+
+    private void expungeReleasedEvaluators() {
+        for (Object ref = releasedEvaluators.poll(); ref != null; ref = releasedEvaluators.poll()) {
+            EvaluatorRef evaluatorRef = (EvaluatorRef) ref;
+
+            evaluators.remove(evaluatorRef.key, evaluatorRef); // unless replaced by a new evaluator for the key
+        }
+    }
+
+    private static Map<RangerConditionEvaluator, Boolean> getResults(RangerAccessRequest request) {
+        Map<String, Object> context = request.getContext();
+
+        if (context == null) {
+            return null;
+        }
+
+        Object val = context.get(RangerAccessRequestUtil.KEY_CONTEXT_CONDITION_RESULTS);
+
+        final RequestResults requestResults;
+
+        if (val instanceof RequestResults) {
+            requestResults = (RequestResults) val;
+        } else {
+            requestResults = new RequestResults();
+
+            context.put(RangerAccessRequestUtil.KEY_CONTEXT_CONDITION_RESULTS, requestResults);
+        }
+
+        return requestResults.getResults(request);
+    }
+
+    private static class EvaluatorKey {
+        private final String       type;
+        private final String       evaluator;
+        private final List<String> values;
+        private final int          hashCode;
+
+        EvaluatorKey(RangerPolicyItemCondition condition, RangerPolicyConditionDef conditionDef) {
+            this.type      = condition.getType();
+            this.evaluator = conditionDef.getEvaluator();
+            this.values    = condition.getValues() != null ? new ArrayList<>(condition.getValues()) : Collections.emptyList();
+            this.hashCode  = Objects.hash(type, evaluator, values);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof EvaluatorKey)) {
+                return false;
+            }
+
+            EvaluatorKey other = (EvaluatorKey) obj;
+
+            return hashCode == other.hashCode && Objects.equals(type, other.type) && Objects.equals(evaluator, other.evaluator) && Objects.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class EvaluatorRef extends WeakReference<RangerConditionEvaluator> {
+        final EvaluatorKey key;
+
+        EvaluatorRef(EvaluatorKey key, RangerConditionEvaluator evaluator, ReferenceQueue<RangerConditionEvaluator> queue) {
+            super(evaluator, queue);
+
+            this.key = key;
+        }
+    }
+
+    // results of evaluators for the requests sharing a context, by request and access-type
+    private static class RequestResults {
+        private final Map<RangerAccessRequest, Map<String, Map<RangerConditionEvaluator, Boolean>>> results        = new IdentityHashMap<>(2);
+        private       RangerAccessRequest                                                         lastRequest    = null;
+        private       String                                                                      lastAccessType = null;
+        private       Map<RangerConditionEvaluator, Boolean>                                      lastResults    = null;
+
+        Map<RangerConditionEvaluator, Boolean> getResults(RangerAccessRequest request) {
+            RangerAccessRequest baseRequest = request instanceof RangerAccessRequestWrapper ? ((RangerAccessRequestWrapper) request).getRequest() : request;
+            String              accessType  = request.getAccessType();
+
+            if (lastResults == null || lastRequest != baseRequest || !Objects.equals(lastAccessType, accessType)) {
+                lastRequest    = baseRequest;
+                lastAccessType = accessType;
+                lastResults    = results.computeIfAbsent(baseRequest, k -> new HashMap<>()).computeIfAbsent(accessType, k -> new IdentityHashMap<>());
+            }
+
+            return lastResults;
+        }
+    }
+}
@@ -160,7 +160,9 @@ boolean isWildcardMatched(final List<String> ips, final String requestIp) {
 					}
 					matchFound = true;
 			} else {
-				LOG.debug("Wildcard policy IP[" + ip + "] did not match request IP[" + requestIp + "].");
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Wildcard policy IP[" + ip + "] did not match request IP[" + requestIp + "].");
+				}
 			}
 		}
 		
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.util.RangerIpPrefixTrie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * IP address condition evaluator, an alternative to RangerIpMatcher that supports CIDR ranges in addition to addresses
+ * and trailing wildcards - for IPv4 and IPv6: 10.0.0.0/8, 10.1.*, 10.1.2.3, 2001:db8::/32, 2001:db8:*, 2001:db8::1.
+ * Addresses are compared by value, after parsing, instead of as strings - hence 2001:db8:0:0::1 matches 2001:db8::1.
+ *
+ * Condition values are added to a binary prefix trie, which matches a request address in at most 32 (IPv4) or 128 (IPv6)
+ * steps, irrespective of the number of values. Values that are not valid addresses or ranges are compared with the
+ * request address as strings, like in RangerIpMatcher.
+ */
+public class RangerIpPrefixMatcher extends RangerAbstractConditionEvaluator {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerIpPrefixMatcher.class);
+
+    private final RangerIpPrefixTrie trie       = new RangerIpPrefixTrie();
+    private final Set<String>        invalidIps = new HashSet<>();
+    private       boolean            allowAny   = false;
+
+    @Override
+    public void init() {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerIpPrefixMatcher.init({})", condition);
+        }
+
+        super.init();
+
+        if (condition == null || CollectionUtils.isEmpty(condition.getValues())) {
+            LOG.debug("init: no values in policy condition! Will match always!");
+
+            allowAny = true;
+        } else {
+            for (String ip : condition.getValues()) {
+                if (ip == null || RangerIpMatcher.allWildcards.matcher(ip.trim()).matches()) {
+                    allowAny = true;
+                } else if (!trie.addPrefix(ip)) {
+                    LOG.warn("init: value '{}' is not a valid IP address or range; it will be compared with request IP as a string", ip);
+
+                    invalidIps.add(ip.trim().toLowerCase());
+                }
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerIpPrefixMatcher.init({}): allowAny={}, trie={}, invalidIps={}", condition, allowAny, trie, invalidIps);
+        }
+    }
+
+    @Override
+    public boolean isMatched(RangerAccessRequest request) {
+        final boolean ret;
+        final String  requestIp = request != null ? request.getClientIPAddress() : null;
+
+        if (allowAny || requestIp == null) { // like RangerIpMatcher, match when request doesn't have client IP
+            ret = true;
+        } else {
+            ret = trie.isMatched(requestIp) || (!invalidIps.isEmpty() && invalidIps.contains(requestIp.toLowerCase()));
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("RangerIpPrefixMatcher.isMatched({}): ret={}", requestIp, ret);
+        }
+
+        return ret;
+    }
+}
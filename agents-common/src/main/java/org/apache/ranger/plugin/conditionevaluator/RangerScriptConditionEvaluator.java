@@ -23,6 +23,7 @@
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerNativeScript;
 import org.apache.ranger.plugin.policyengine.RangerRequestScriptEvaluator;
 import org.apache.ranger.plugin.util.ScriptEngineUtil;
 import org.slf4j.Logger;
@@ -33,13 +34,16 @@
 import java.util.Map;
 
 import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_OPTION_ENABLE_JSON_CTX;
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_OPTION_ENABLE_NATIVE_EVAL;
 
 
 public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvaluator {
 	private static final Logger LOG = LoggerFactory.getLogger(RangerScriptConditionEvaluator.class);
 
-	private ScriptEngine scriptEngine;
-	private Boolean      enableJsonCtx = null;
+	private String             serviceType;
+	private boolean            isScriptEngineAvailable = false;
+	private Boolean            enableJsonCtx           = null;
+	private RangerNativeScript nativeScript            = null;
 
 	@Override
 	public void init() {
@@ -49,8 +53,9 @@ public void init() {
 
 		super.init();
 
-		String              engineName  = "JavaScript";
-		Map<String, String> evalOptions = conditionDef. getEvaluatorOptions();
+		String              engineName       = "JavaScript";
+		boolean             enableNativeEval = true;
+		Map<String, String> evalOptions      = conditionDef. getEvaluatorOptions();
 
 		if (MapUtils.isNotEmpty(evalOptions)) {
 			engineName = evalOptions.get("engineName");
@@ -60,6 +65,12 @@ public void init() {
 			if (StringUtils.isNotEmpty(strEnableJsonCtx)) {
 				enableJsonCtx = Boolean.parseBoolean(strEnableJsonCtx);
 			}
+
+			String strEnableNativeEval = evalOptions.get(SCRIPT_OPTION_ENABLE_NATIVE_EVAL);
+
+			if (StringUtils.isNotEmpty(strEnableNativeEval)) {
+				enableNativeEval = Boolean.parseBoolean(strEnableNativeEval);
+			}
 		}
 
 		if (StringUtils.isBlank(engineName)) {
@@ -70,14 +81,29 @@ public void init() {
 			LOG.debug("RangerScriptConditionEvaluator.init() - engineName=" + engineName);
 		}
 
-		scriptEngine = ScriptEngineUtil.createScriptEngine(serviceDef.getName());
+		String conditionType = condition != null ? condition.getType() : null;
 
-		if (scriptEngine == null) {
-			String conditionType = condition != null ? condition.getType() : null;
+		serviceType = serviceDef.getName();
 
-			LOG.error("failed to initialize condition '" + conditionType + "': script engine '" + engineName + "' was not created");
+		if (enableNativeEval) {
+			nativeScript = RangerNativeScript.compileCondition(getScript());
+		}
+
+		if (nativeScript != null) {
+			LOG.info("condition '" + conditionType + "' will be evaluated natively, without script engine: script={" + nativeScript.getScript() + "}");
 		} else {
-			LOG.info("ScriptEngine for engineName=[" + engineName + "] is successfully created");
+			if (enableNativeEval) {
+				LOG.info("condition '" + conditionType + "' will be evaluated with script engine, as the script uses features not supported in native evaluation: script={" + getScript() + "}");
+			}
+
+			// script engines are not thread-safe: each thread evaluating the condition uses its own engine, which compiles a script once
+			isScriptEngineAvailable = ScriptEngineUtil.getThreadScriptEngine(serviceType) != null;
+
+			if (!isScriptEngineAvailable) {
+				LOG.error("failed to initialize condition '" + conditionType + "': script engine '" + engineName + "' was not created");
+			} else {
+				LOG.info("ScriptEngine for engineName=[" + engineName + "] is successfully created");
+			}
 		}
 
 		if (LOG.isDebugEnabled()) {
@@ -91,9 +117,16 @@ public boolean isMatched(RangerAccessRequest request) {
 			LOG.debug("==> RangerScriptConditionEvaluator.isMatched()");
 		}
 
-		boolean result = true;
+		boolean      result       = true;
+		ScriptEngine scriptEngine = isScriptEngineAvailable ? ScriptEngineUtil.getThreadScriptEngine(serviceType) : null;
+
+		if (nativeScript != null) {
+			RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(request);
 
-		if (scriptEngine != null) {
+			evaluator.evaluateConditionScript(nativeScript);
+
+			result = evaluator.getResult();
+		} else if (scriptEngine != null) {
 			String script = getScript();
 
 			if (StringUtils.isNotBlank(script)) {
@@ -129,6 +162,10 @@ public boolean isMatched(RangerAccessRequest request) {
 
 	}
 
+	public boolean isNativeScript() {
+		return nativeScript != null;
+	}
+
 	protected String getScript() {
 		String       ret    = null;
 		List<String> values = condition.getValues();
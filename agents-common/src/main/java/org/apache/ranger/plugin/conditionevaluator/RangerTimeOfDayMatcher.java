@@ -22,7 +22,6 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -38,6 +37,7 @@ public class RangerTimeOfDayMatcher extends RangerAbstractConditionEvaluator {
 	private static final Logger LOG = LoggerFactory.getLogger(RangerTimeOfDayMatcher.class);
 	boolean _allowAny;
 	List<int[]> _durations = new ArrayList<>();
+	private volatile MatchWindow _matchWindow; // result for the last access time, and the times till which it holds
 	
 	@Override
 	public void init() {
@@ -76,6 +76,8 @@ public void init() {
 		}
 	}
 
+	static final int MINUTES_IN_DAY = 24 * 60;
+
 	// match "9am-5pm", "9 Am - 5 PM", "9 am.- 5 P.M", "9:30 AM - 4:00p.m." etc. spaces around - and after digits are allowed and dots in am/pm string in mixed cases is allowed
 	static final Pattern _Pattern = Pattern.compile(" *(\\d{1,2})(:(\\d{1,2}))? *([aApP])\\.?[mM]\\.? *- *(\\d{1,2})(:(\\d{1,2}))? *([aApP])\\.?[mM]\\.? *");
 
@@ -146,17 +148,19 @@ public boolean isMatched(RangerAccessRequest request) {
 		} else if (request.getAccessTime() == null) {
 			LOG.warn("isMatched: Unexpected: Accesstime on the request is null!  Implicitly matched!");
 		} else {
-			Date date = request.getAccessTime();
-			Calendar calendar = GregorianCalendar.getInstance();
-			calendar.setTime(date);
-			int hourOfDay = calendar.get(Calendar.HOUR_OF_DAY);
-			int minutes = calendar.get(Calendar.MINUTE);
-			if (! durationMatched(_durations, hourOfDay, minutes)) {
-				matched = false;
-
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("isMatched: None of the durations contains this hour of day[" + hourOfDay + "] and minutes[" + minutes + "]");
-				}
+			long        accessTime  = request.getAccessTime().getTime();
+			MatchWindow matchWindow = _matchWindow;
+
+			if (matchWindow == null || !matchWindow.contains(accessTime)) {
+				matchWindow = computeMatchWindow(accessTime);
+
+				_matchWindow = matchWindow;
+			}
+
+			matched = matchWindow.matched;
+
+			if (!matched && LOG.isDebugEnabled()) {
+				LOG.debug("isMatched: None of the durations contains access time[" + request.getAccessTime() + "]");
 			}
 		}
 		
@@ -167,6 +171,49 @@ public boolean isMatched(RangerAccessRequest request) {
 		return matched;
 	}
 
+	/*
+	 * The result changes only at the start or the end of a duration; hence, instead of computing hour and minute of each
+	 * access time, the next minute at which the result changes is found once and the result is reused till then.
+	 */
+	MatchWindow computeMatchWindow(long accessTime) {
+		Calendar calendar = GregorianCalendar.getInstance();
+		calendar.setTimeInMillis(accessTime);
+		calendar.set(Calendar.SECOND, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+
+		int     minutesOfDay = calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+		boolean matched      = durationMatched(_durations, minutesOfDay / 60, minutesOfDay % 60);
+		long    from         = calendar.getTimeInMillis();
+		long    until        = Long.MAX_VALUE;
+
+		for (int i = 1; i <= MINUTES_IN_DAY; i++) {
+			int nextMinutesOfDay = (minutesOfDay + i) % MINUTES_IN_DAY;
+
+			if (durationMatched(_durations, nextMinutesOfDay / 60, nextMinutesOfDay % 60) != matched) {
+				Calendar next = (Calendar) calendar.clone();
+				next.add(Calendar.MINUTE, i);
+
+				until = next.getTimeInMillis();
+
+				// the time of day might not advance with elapsed time, like on change to/from daylight saving time; limit to the current minute
+				if (next.get(Calendar.HOUR_OF_DAY) * 60 + next.get(Calendar.MINUTE) != nextMinutesOfDay) {
+					next = (Calendar) calendar.clone();
+					next.add(Calendar.MINUTE, 1);
+
+					until = next.getTimeInMillis();
+				}
+
+				break;
+			}
+		}
+
+		if (until == Long.MAX_VALUE) { // same result at all times of day
+			from = Long.MIN_VALUE;
+		}
+
+		return new MatchWindow(from, until, matched);
+	}
+
 	boolean durationMatched(List<int[]> durations, int hourOfDay, int minutes) {
 		for (int[] aDuration : durations) {
 			int start = aDuration[0];
@@ -200,4 +247,20 @@ public String toString() {
 
 		return sb.toString();
 	}
+
+	static final class MatchWindow {
+		final long    from;  // inclusive
+		final long    until; // exclusive
+		final boolean matched;
+
+		MatchWindow(long from, long until, boolean matched) {
+			this.from    = from;
+			this.until   = until;
+			this.matched = matched;
+		}
+
+		boolean contains(long time) {
+			return time >= from && time < until;
+		}
+	}
 }
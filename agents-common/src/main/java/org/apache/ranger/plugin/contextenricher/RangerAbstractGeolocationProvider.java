@@ -99,6 +99,25 @@ public void init() {
 		}
 	}
 
+	@Override
+	public boolean preCleanup() {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerAbstractGeolocationProvider.preCleanup()");
+		}
+
+		super.preCleanup();
+
+		if (store != null) {
+			store.cleanup();
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerAbstractGeolocationProvider.preCleanup()");
+		}
+
+		return true;
+	}
+
 	@Override
 	public void enrich(RangerAccessRequest request) {
 		if (LOG.isDebugEnabled()) {
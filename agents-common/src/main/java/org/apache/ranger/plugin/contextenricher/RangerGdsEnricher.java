@@ -29,6 +29,7 @@
 import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.util.JsonUtilsV2;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerCacheFileUtil;
 import org.apache.ranger.plugin.util.ServiceGdsInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -163,6 +164,13 @@ public void setGdsInfo(ServiceGdsInfo gdsInfo) {
 
     public GdsPolicyEngine getGdsPolicyEngine() { return gdsPolicyEngine; }
 
+    public Long getGdsVersion() {
+        GdsPolicyEngine gdsPolicyEngine = this.gdsPolicyEngine;
+        ServiceGdsInfo  gdsInfo         = gdsPolicyEngine != null ? gdsPolicyEngine.getGdsInfo() : null;
+
+        return gdsInfo != null ? gdsInfo.getGdsVersion() : -1L;
+    }
+
     private void setGdsInfoInPlugin() {
         LOG.debug("==> setGdsInfoInPlugin()");
 
@@ -181,6 +189,7 @@ private class RangerGdsInfoRefresher extends Thread {
         private final RangerGdsInfoRetriever         retriever;
         private final long                           pollingIntervalMs;
         private final String                         cacheFile;
+        private final boolean                        isCacheCompressed;
         private       Long                           lastKnownVersion;
         private       long                           lastActivationTimeInMillis;
         private       Timer                          downloadTimer;
@@ -193,6 +202,7 @@ public RangerGdsInfoRefresher(RangerGdsInfoRetriever retriever, long pollingInte
             this.retriever         = retriever;
             this.pollingIntervalMs = pollingIntervalMs;
             this.cacheFile         = cacheFile;
+            this.isCacheCompressed = RangerCacheFileUtil.isCompressionEnabled(getPluginConfig());
             this.lastKnownVersion  = lastKnownVersion;
         }
 
@@ -316,8 +326,8 @@ ServiceGdsInfo loadFromCache() {
             File           cacheFile = org.apache.commons.lang.StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
             if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
-                try (Reader reader = new FileReader(cacheFile)){
-                    ret = JsonUtilsV2.readValue(reader, ServiceGdsInfo.class);
+                try {
+                    ret = RangerCacheFileUtil.read(cacheFile, ServiceGdsInfo.class, JsonUtilsV2.getMapper());
                 } catch (Exception excp) {
                     LOG.error("failed to load gdsInfo from cache file {}", cacheFile.getAbsolutePath(), excp);
                 }
@@ -337,8 +347,8 @@ void saveToCache(ServiceGdsInfo gdsInfo) {
                 File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
                 if (cacheFile != null) {
-                    try (Writer writer = new FileWriter(cacheFile)) {
-                        JsonUtilsV2.writeValue(writer, gdsInfo);
+                    try {
+                        RangerCacheFileUtil.write(cacheFile, gdsInfo, isCacheCompressed, JsonUtilsV2.getMapper());
                     } catch (Exception excp) {
                         LOG.error("failed to save gdsInfo to cache file '{}'", cacheFile.getAbsolutePath(), excp);
                     }
@@ -0,0 +1,952 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.contextenricher;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.model.RangerTagDef;
+import org.apache.ranger.plugin.model.validation.RangerServiceDefHelper;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.util.RangerBoundedCache;
+import org.apache.ranger.plugin.util.ServiceDefUtil;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Store of tagged service-resources, their tag-ids and tags, kept outside the Java heap - in direct buffers, or in
+ * buffers memory-mapped to (unlinked) files in a given directory. It is used by RangerTagEnricher when the number of
+ * tagged resources is too large to keep RangerServiceResource, RangerTag and resource-matcher objects on the heap.
+ *
+ * Resource-tries hold a StoredResourceMatcher for each resource, which has only the resource-id, the address of the
+ * resource in the store and its leaf resource-def. Policy-resource-matchers and tags are created from the store only
+ * when a resource is looked up; recently used ones are kept in bounded caches. The only per-entry heap use is the
+ * index of each kind of record - about 28 bytes per entry - and the matcher in the tries.
+ *
+ * Records are appended to the store and never modified, hence matchers continue to refer to the resource they were
+ * created for after the resource is updated by deltas. Space used by updated or deleted records is reclaimed only
+ * when a new store is created, on the next download of all tags.
+ *
+ * The store is updated in place when deltas are applied; the caller must ensure that lookups don't run concurrently
+ * with updates - RangerTagEnricher uses its read-write lock for this.
+ */
+public class RangerOffHeapTagStore {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerOffHeapTagStore.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE_MB = 64;
+    public static final int DEFAULT_CACHE_SIZE      = 10000;
+
+    static final long NO_ADDRESS = -1L;
+
+    private final RangerServiceDefHelper                                serviceDefHelper;
+    private final RangerPluginContext                                   pluginContext;
+    private final File                                                  storeDir;
+    private final int                                                   segmentSize;
+    private final RecordIndex                                           resources    = new RecordIndex();
+    private final RecordIndex                                           resourceTags = new RecordIndex();
+    private final RecordIndex                                           tags         = new RecordIndex();
+    private final RangerBoundedCache<Long, RangerPolicyResourceMatcher> matcherCache;
+    private final RangerBoundedCache<Long, RangerTag>                   tagCache;
+    private final ByteArrayOutputStream                                 bytes        = new ByteArrayOutputStream(1024);
+    private final DataOutputStream                                      out          = new DataOutputStream(bytes);
+
+    private volatile ByteBuffer[] segments = new ByteBuffer[0];
+    private ByteBuffer            currentSegment;
+    private long                  usedBytes;
+    private long                  garbageBytes;
+
+    public RangerOffHeapTagStore(RangerServiceDefHelper serviceDefHelper, RangerPluginContext pluginContext, File storeDir, int segmentSizeMB, int cacheSize) {
+        this.serviceDefHelper = serviceDefHelper;
+        this.pluginContext    = pluginContext;
+        this.storeDir         = storeDir;
+        this.segmentSize      = (segmentSizeMB > 0 ? segmentSizeMB : DEFAULT_SEGMENT_SIZE_MB) * 1024 * 1024;
+        this.matcherCache     = new RangerBoundedCache<>(cacheSize > 0 ? cacheSize : DEFAULT_CACHE_SIZE);
+        this.tagCache         = new RangerBoundedCache<>(cacheSize > 0 ? cacheSize : DEFAULT_CACHE_SIZE);
+    }
+
+    public StoredResourceMatcher putResource(RangerServiceResource serviceResource, int policyType) {
+        Map<String, RangerPolicyResource> resourceElements = serviceResource.getResourceElements();
+        RangerResourceDef                 leafResourceDef  = ServiceDefUtil.getLeafResourceDef(getServiceDef(), resourceElements, true);
+        long                              address;
+
+        try {
+            address = writeResource(serviceResource);
+        } catch (IOException excp) {
+            throw new IllegalStateException("failed to store service-resource id=" + serviceResource.getId(), excp);
+        }
+
+        release(resources.put(serviceResource.getId(), address));
+
+        return new StoredResourceMatcher(this, serviceResource.getId(), address, policyType, leafResourceDef);
+    }
+
+    public void removeResource(Long resourceId) {
+        release(resources.remove(resourceId));
+    }
+
+    public RangerServiceResource getResource(Long resourceId) {
+        long address = resources.get(resourceId);
+
+        return address != NO_ADDRESS ? readResource(address) : null;
+    }
+
+    public void putResourceTagIds(Long resourceId, List<Long> tagIds) {
+        long address;
+
+        try {
+            bytes.reset();
+
+            writeCount(tagIds != null ? tagIds.size() : 0);
+
+            if (tagIds != null) {
+                for (Long tagId : tagIds) {
+                    out.writeLong(tagId);
+                }
+            }
+
+            address = append();
+        } catch (IOException excp) {
+            throw new IllegalStateException("failed to store tag-ids of service-resource id=" + resourceId, excp);
+        }
+
+        release(resourceTags.put(resourceId, address));
+    }
+
+    public void removeResourceTagIds(Long resourceId) {
+        release(resourceTags.remove(resourceId));
+    }
+
+    public List<Long> getResourceTagIds(Long resourceId) {
+        long address = resourceTags.get(resourceId);
+
+        return address != NO_ADDRESS ? readTagIds(address) : null;
+    }
+
+    public void putTag(Long tagId, RangerTag tag) {
+        long address;
+
+        try {
+            bytes.reset();
+
+            out.write(JsonUtils.objectToJson(tag).getBytes(StandardCharsets.UTF_8));
+
+            address = append();
+        } catch (IOException excp) {
+            throw new IllegalStateException("failed to store tag id=" + tagId, excp);
+        }
+
+        release(tags.put(tagId, address));
+    }
+
+    public void removeTag(Long tagId) {
+        release(tags.remove(tagId));
+    }
+
+    public RangerTag getTag(Long tagId) {
+        long address = tags.get(tagId);
+
+        return address != NO_ADDRESS ? readTag(address) : null;
+    }
+
+    // all tags in the store; tags not in the cache are not added to it, to retain tags of recently matched resources
+    public List<RangerTag> getTags() {
+        List<RangerTag> ret = new ArrayList<>(tags.size());
+
+        for (int i = 0; i < tags.size(); i++) {
+            ret.add(readTag(tags.getAddress(i), false));
+        }
+
+        return ret;
+    }
+
+    public int getResourceCount() {
+        return resources.size();
+    }
+
+    public int getTagCount() {
+        return tags.size();
+    }
+
+    /*
+     * Returns ServiceTags having the given header - i.e. service-name, version and tag-defs - and the resources, tags and
+     * resource-to-tag-ids mapping in this store. Collections of the returned ServiceTags are read-only views of the
+     * store, which create objects from the store as they are accessed - for example, when saved to the cache file.
+     */
+    public ServiceTags getServiceTags(ServiceTags header) {
+        ServiceTags ret = new ServiceTags();
+
+        ret.setOp(header.getOp());
+        ret.setServiceName(header.getServiceName());
+        ret.setTagVersion(header.getTagVersion());
+        ret.setTagUpdateTime(header.getTagUpdateTime());
+        ret.setTagDefinitions(header.getTagDefinitions() != null ? new HashMap<>(header.getTagDefinitions()) : new HashMap<>());
+        ret.setIsDelta(false);
+        ret.setIsTagsDeduped(header.getIsTagsDeduped());
+        ret.setTagsChangeExtent(header.getTagsChangeExtent());
+        ret.setServiceResources(new ResourcesView());
+        ret.setTags(new RecordMapView<>(tags, this::readTag));
+        ret.setResourceToTagIds(new RecordMapView<>(resourceTags, this::readTagIds));
+
+        return ret;
+    }
+
+    /*
+     * Applies tag-deltas to this store, like RangerServiceTagsDeltaUtil.applyDelta() does to ServiceTags on the heap:
+     * tags and resource-to-tag-ids mappings are updated here; deleted resources are removed from the store. The
+     * service-resources in delta are replaced with the resources to be removed from the tries - with empty signature -
+     * followed by the resources to be added; the latter are added to the store by putResource() when their matchers
+     * are created.
+     */
+    public ServiceTags applyDelta(ServiceTags serviceTags, ServiceTags delta) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerOffHeapTagStore.applyDelta(tagVersion=" + delta.getTagVersion() + ")");
+        }
+
+        ServiceTags ret = serviceTags;
+
+        if (serviceTags != null && !serviceTags.getIsDelta() && delta.getIsDelta()) {
+            ServiceTags header = new ServiceTags();
+
+            header.setOp(serviceTags.getOp());
+            header.setServiceName(delta.getServiceName());
+            header.setTagVersion(delta.getTagVersion());
+            header.setTagUpdateTime(delta.getTagUpdateTime());
+            header.setTagDefinitions(serviceTags.getTagDefinitions() != null ? new HashMap<>(serviceTags.getTagDefinitions()) : new HashMap<>());
+            header.setIsTagsDeduped(delta.getIsTagsDeduped());
+            header.setTagsChangeExtent(serviceTags.getTagsChangeExtent());
+
+            if (delta.getTagDefinitions() != null) {
+                for (Map.Entry<Long, RangerTagDef> entry : delta.getTagDefinitions().entrySet()) {
+                    if (StringUtils.isEmpty(entry.getValue().getName())) { // tagdef has been removed
+                        header.getTagDefinitions().remove(entry.getKey());
+                    } else {
+                        header.getTagDefinitions().put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+
+            if (delta.getTags() != null) {
+                for (Map.Entry<Long, RangerTag> entry : delta.getTags().entrySet()) {
+                    if (StringUtils.isEmpty(entry.getValue().getType())) { // tag has been removed
+                        removeTag(entry.getKey());
+                    } else {
+                        putTag(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+
+            Map<Long, RangerServiceResource> resourcesToRemove = new LinkedHashMap<>();
+            Map<Long, RangerServiceResource> resourcesToAdd    = new LinkedHashMap<>();
+
+            if (delta.getServiceResources() != null) {
+                for (RangerServiceResource resource : delta.getServiceResources()) {
+                    RangerServiceResource existingResource = getResource(resource.getId());
+
+                    if (existingResource != null) {
+                        if (StringUtils.isNotEmpty(resource.getResourceSignature())) {
+                            if (!StringUtils.equals(resource.getResourceSignature(), existingResource.getResourceSignature())) { // replace existing resource
+                                resourcesToRemove.put(resource.getId(), existingResource);
+                                resourcesToAdd.put(resource.getId(), resource);
+                            }
+                        } else { // resource deleted
+                            resourcesToRemove.put(resource.getId(), existingResource);
+
+                            removeResource(resource.getId());
+                            removeResourceTagIds(resource.getId());
+                        }
+                    } else if (StringUtils.isNotEmpty(resource.getResourceSignature())) { // resource added
+                        resourcesToAdd.put(resource.getId(), resource);
+                    }
+                }
+            }
+
+            if (delta.getResourceToTagIds() != null) {
+                for (Map.Entry<Long, List<Long>> entry : delta.getResourceToTagIds().entrySet()) {
+                    putResourceTagIds(entry.getKey(), entry.getValue());
+                }
+            }
+
+            if (resourceTags.size() == 0 && tags.size() > 0) {
+                LOG.warn("There are no resource->tag mappings, but there are tags in the ServiceTags!! Cleaning up");
+
+                for (int i = tags.size() - 1; i >= 0; i--) {
+                    removeTag(tags.getId(i));
+                }
+            }
+
+            List<RangerServiceResource> deltaServiceResources = new ArrayList<>(resourcesToRemove.size() + resourcesToAdd.size());
+
+            for (RangerServiceResource resourceToRemove : resourcesToRemove.values()) {
+                resourceToRemove.setResourceSignature(null);
+                deltaServiceResources.add(resourceToRemove);
+            }
+
+            deltaServiceResources.addAll(resourcesToAdd.values());
+
+            delta.setServiceResources(deltaServiceResources);
+
+            ret = getServiceTags(header);
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("RangerOffHeapTagStore.applyDelta(): resources(added={}, removed={}), {}", resourcesToAdd.size(), resourcesToRemove.size(), this);
+            }
+        } else {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Cannot apply deltas to service-tags as one of preconditions is violated. Returning received serviceTags without applying delta!!");
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerOffHeapTagStore.applyDelta(tagVersion=" + delta.getTagVersion() + ")");
+        }
+
+        return ret;
+    }
+
+    public RangerBoundedCache.Stats getMatcherCacheStats() {
+        return matcherCache.getStats();
+    }
+
+    public RangerBoundedCache.Stats getTagCacheStats() {
+        return tagCache.getStats();
+    }
+
+    @Override
+    public String toString() {
+        return "RangerOffHeapTagStore={" +
+                "storeDir=" + (storeDir != null ? storeDir.getAbsolutePath() : "<direct-buffers>") +
+                ", resourceCount=" + resources.size() +
+                ", resourceTagIdsCount=" + resourceTags.size() +
+                ", tagCount=" + tags.size() +
+                ", segmentCount=" + segments.length +
+                ", usedBytes=" + usedBytes +
+                ", garbageBytes=" + garbageBytes +
+                "}";
+    }
+
+    RangerServiceDef getServiceDef() {
+        return serviceDefHelper.getServiceDef();
+    }
+
+    RangerPolicyResourceMatcher getPolicyResourceMatcher(StoredResourceMatcher resourceMatcher) {
+        RangerPolicyResourceMatcher ret = matcherCache.get(resourceMatcher.address);
+
+        if (ret == null) {
+            ret = RangerTagEnricher.createPolicyResourceMatcher(readResourceElements(resourceMatcher.address), resourceMatcher.policyType, serviceDefHelper, pluginContext);
+
+            matcherCache.put(resourceMatcher.address, ret);
+        }
+
+        return ret;
+    }
+
+    Map<String, RangerPolicyResource> readResourceElements(long address) {
+        RecordReader reader = new RecordReader(address);
+
+        reader.readLong(); // id
+
+        return reader.readResourceElements();
+    }
+
+    private RangerServiceResource readResource(long address) {
+        RecordReader          reader = new RecordReader(address);
+        RangerServiceResource ret    = new RangerServiceResource();
+
+        ret.setId(reader.readLong());
+        ret.setResourceElements(reader.readResourceElements());
+        ret.setGuid(reader.readString());
+        ret.setIsEnabled(reader.readBoolean());
+        ret.setVersion(reader.readNullableLong());
+        ret.setCreatedBy(reader.readString());
+        ret.setUpdatedBy(reader.readString());
+        ret.setCreateTime(reader.readDate());
+        ret.setUpdateTime(reader.readDate());
+        ret.setServiceName(reader.readString());
+        ret.setOwnerUser(reader.readString());
+        ret.setResourceSignature(reader.readString());
+        ret.setAdditionalInfo(reader.readStringMap());
+
+        return ret;
+    }
+
+    private List<Long> readTagIds(long address) {
+        RecordReader reader = new RecordReader(address);
+        int          count  = reader.readCount();
+        List<Long>   ret    = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            ret.add(reader.readLong());
+        }
+
+        return ret;
+    }
+
+    private RangerTag readTag(long address) {
+        return readTag(address, true);
+    }
+
+    private RangerTag readTag(long address, boolean addToCache) {
+        RangerTag ret = tagCache.get(address);
+
+        if (ret == null) {
+            ret = JsonUtils.jsonToObject(new RecordReader(address).readRemaining(), RangerTag.class);
+
+            if (addToCache) {
+                tagCache.put(address, ret);
+            }
+        }
+
+        return ret;
+    }
+
+    private long writeResource(RangerServiceResource resource) throws IOException {
+        bytes.reset();
+
+        out.writeLong(resource.getId());
+        writeResourceElements(resource.getResourceElements());
+        writeString(resource.getGuid());
+        writeBoolean(resource.getIsEnabled());
+        writeNullableLong(resource.getVersion());
+        writeString(resource.getCreatedBy());
+        writeString(resource.getUpdatedBy());
+        writeNullableLong(resource.getCreateTime() != null ? resource.getCreateTime().getTime() : null);
+        writeNullableLong(resource.getUpdateTime() != null ? resource.getUpdateTime().getTime() : null);
+        writeString(resource.getServiceName());
+        writeString(resource.getOwnerUser());
+        writeString(resource.getResourceSignature());
+        writeStringMap(resource.getAdditionalInfo());
+
+        return append();
+    }
+
+    private void writeResourceElements(Map<String, RangerPolicyResource> resourceElements) throws IOException {
+        writeCount(resourceElements != null ? resourceElements.size() : 0);
+
+        if (resourceElements != null) {
+            for (Map.Entry<String, RangerPolicyResource> entry : resourceElements.entrySet()) {
+                RangerPolicyResource policyResource = entry.getValue();
+                List<String>         values         = policyResource.getValues();
+
+                writeString(entry.getKey());
+                writeBoolean(policyResource.getIsExcludes());
+                writeBoolean(policyResource.getIsRecursive());
+                writeCount(values != null ? values.size() : 0);
+
+                if (values != null) {
+                    for (String value : values) {
+                        writeString(value);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeStringMap(Map<String, String> map) throws IOException {
+        writeCount(map != null ? map.size() : -1);
+
+        if (map != null) {
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                writeString(entry.getKey());
+                writeString(entry.getValue());
+            }
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeCount(-1);
+        } else {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+
+            writeCount(utf8.length);
+            out.write(utf8);
+        }
+    }
+
+    private void writeBoolean(Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : (value ? 1 : 0));
+    }
+
+    private void writeNullableLong(Long value) throws IOException {
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private void writeCount(int count) throws IOException {
+        out.writeInt(count);
+    }
+
+    // appends the bytes written to 'out' as a new record, and returns its address
+    private long append() throws IOException {
+        out.flush();
+
+        int length = bytes.size();
+
+        if (currentSegment == null || currentSegment.remaining() < length + 4) {
+            currentSegment = allocateSegment(Math.max(segmentSize, length + 4));
+
+            ByteBuffer[] newSegments = Arrays.copyOf(segments, segments.length + 1);
+
+            newSegments[newSegments.length - 1] = currentSegment;
+
+            segments = newSegments;
+        }
+
+        long ret = ((long) (segments.length - 1) << 32) | currentSegment.position();
+
+        currentSegment.putInt(length);
+        currentSegment.put(bytes.toByteArray(), 0, length);
+
+        usedBytes += length + 4;
+
+        return ret;
+    }
+
+    private void release(long address) {
+        if (address != NO_ADDRESS) {
+            garbageBytes += getRecordLength(address) + 4;
+        }
+    }
+
+    private int getRecordLength(long address) {
+        return segments[(int) (address >>> 32)].getInt((int) address);
+    }
+
+    private ByteBuffer allocateSegment(int size) throws IOException {
+        final ByteBuffer ret;
+
+        if (storeDir == null) {
+            ret = ByteBuffer.allocateDirect(size);
+        } else {
+            File file = File.createTempFile("ranger_tags_", ".store", storeDir);
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+                ret = channel.map(FileChannel.MapMode.READ_WRITE, 0, size); // mapping remains valid after the file is closed and deleted
+            } finally {
+                if (!file.delete()) {
+                    file.deleteOnExit();
+                }
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("RangerOffHeapTagStore: allocated segment #" + segments.length + " of " + size + " bytes");
+        }
+
+        return ret;
+    }
+
+    public static class StoredResourceMatcher extends RangerServiceResourceMatcher {
+        private final RangerOffHeapTagStore store;
+        private final Long                  id;
+        private final long                  address;
+        private final int                   policyType;
+
+        StoredResourceMatcher(RangerOffHeapTagStore store, Long id, long address, int policyType, RangerResourceDef leafResourceDef) {
+            super(leafResourceDef);
+
+            this.store      = store;
+            this.id         = id;
+            this.address    = address;
+            this.policyType = policyType;
+        }
+
+        @Override
+        public long getId() {
+            return id != null ? id : -1;
+        }
+
+        @Override
+        public Long getServiceResourceId() {
+            return id;
+        }
+
+        @Override
+        public RangerServiceResource getServiceResource() {
+            return store.readResource(address);
+        }
+
+        @Override
+        public RangerPolicyResourceMatcher getPolicyResourceMatcher() {
+            return store.getPolicyResourceMatcher(this);
+        }
+
+        @Override
+        public Map<String, RangerPolicyResource> getPolicyResource() {
+            return store.readResourceElements(address);
+        }
+
+        @Override
+        public boolean isAncestorOf(RangerResourceDef resourceDef) {
+            return ServiceDefUtil.isAncestorOf(store.getServiceDef(), getLeafResourceDef(), resourceDef);
+        }
+    }
+
+    private class RecordReader {
+        private final ByteBuffer buffer;
+
+        RecordReader(long address) {
+            ByteBuffer segment = segments[(int) (address >>> 32)].duplicate();
+            int        offset  = (int) address;
+            int        length  = segment.getInt(offset);
+
+            segment.limit(offset + 4 + length);
+            segment.position(offset + 4);
+
+            this.buffer = segment;
+        }
+
+        long readLong() {
+            return buffer.getLong();
+        }
+
+        Long readNullableLong() {
+            return buffer.get() != 0 ? buffer.getLong() : null;
+        }
+
+        Date readDate() {
+            Long time = readNullableLong();
+
+            return time != null ? new Date(time) : null;
+        }
+
+        Boolean readBoolean() {
+            byte value = buffer.get();
+
+            return value == -1 ? null : value == 1;
+        }
+
+        int readCount() {
+            return buffer.getInt();
+        }
+
+        String readString() {
+            int length = buffer.getInt();
+
+            if (length < 0) {
+                return null;
+            }
+
+            byte[] utf8 = new byte[length];
+
+            buffer.get(utf8);
+
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        String readRemaining() {
+            byte[] utf8 = new byte[buffer.remaining()];
+
+            buffer.get(utf8);
+
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        Map<String, String> readStringMap() {
+            int count = readCount();
+
+            if (count < 0) {
+                return null;
+            }
+
+            Map<String, String> ret = new HashMap<>();
+
+            for (int i = 0; i < count; i++) {
+                ret.put(readString(), readString());
+            }
+
+            return ret;
+        }
+
+        Map<String, RangerPolicyResource> readResourceElements() {
+            int                               count = readCount();
+            Map<String, RangerPolicyResource> ret   = new HashMap<>();
+
+            for (int i = 0; i < count; i++) {
+                String       name        = readString();
+                Boolean      isExcludes  = readBoolean();
+                Boolean      isRecursive = readBoolean();
+                int          valueCount  = readCount();
+                List<String> values      = new ArrayList<>(valueCount);
+
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(readString());
+                }
+
+                ret.put(name, new RangerPolicyResource(values, isExcludes, isRecursive));
+            }
+
+            return ret;
+        }
+    }
+
+    private interface RecordDecoder<V> {
+        V decode(long address);
+    }
+
+    private class ResourcesView extends AbstractList<RangerServiceResource> implements RandomAccess {
+        @Override
+        public RangerServiceResource get(int index) {
+            if (index < 0 || index >= resources.size()) {
+                throw new IndexOutOfBoundsException("index=" + index + ", size=" + resources.size());
+            }
+
+            return readResource(resources.getAddress(index));
+        }
+
+        @Override
+        public int size() {
+            return resources.size();
+        }
+    }
+
+    private static class RecordMapView<V> extends AbstractMap<Long, V> {
+        private final RecordIndex      index;
+        private final RecordDecoder<V> decoder;
+
+        RecordMapView(RecordIndex index, RecordDecoder<V> decoder) {
+            this.index   = index;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public V get(Object key) {
+            long address = key instanceof Long ? index.get((Long) key) : NO_ADDRESS;
+
+            return address != NO_ADDRESS ? decoder.decode(address) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Long && index.get((Long) key) != NO_ADDRESS;
+        }
+
+        @Override
+        public int size() {
+            return index.size();
+        }
+
+        @Override
+        public Set<Entry<Long, V>> entrySet() {
+            return new AbstractSet<Entry<Long, V>>() {
+                @Override
+                public Iterator<Entry<Long, V>> iterator() {
+                    return new Iterator<Entry<Long, V>>() {
+                        private int pos = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return pos < index.size();
+                        }
+
+                        @Override
+                        public Entry<Long, V> next() {
+                            if (pos >= index.size()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            Entry<Long, V> ret = new SimpleImmutableEntry<>(index.getId(pos), decoder.decode(index.getAddress(pos)));
+
+                            pos++;
+
+                            return ret;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return index.size();
+                }
+            };
+        }
+    }
+
+    /*
+     * Map of record-id to address, in primitive arrays: entries are kept densely in ids/addresses - a removed entry is
+     * replaced by the last entry - and are located by an open-addressing table of positions, with linear probing.
+     */
+    static final class RecordIndex {
+        private long[] ids       = new long[16];
+        private long[] addresses = new long[16];
+        private int[]  slots     = new int[32]; // position + 1; 0 for empty slot
+        private int    count;
+
+        int size() {
+            return count;
+        }
+
+        long getId(int pos) {
+            return ids[pos];
+        }
+
+        long getAddress(int pos) {
+            return addresses[pos];
+        }
+
+        long get(Long id) {
+            int slot = id != null ? findSlot(id) : -1;
+
+            return slot != -1 ? addresses[slots[slot] - 1] : NO_ADDRESS;
+        }
+
+        // returns the earlier address for the id, if any
+        long put(Long id, long address) {
+            int slot = findSlot(id);
+
+            if (slot != -1) {
+                int  pos = slots[slot] - 1;
+                long ret = addresses[pos];
+
+                addresses[pos] = address;
+
+                return ret;
+            }
+
+            if (count == ids.length) {
+                ids       = Arrays.copyOf(ids, count * 2);
+                addresses = Arrays.copyOf(addresses, count * 2);
+            }
+
+            ids[count]       = id;
+            addresses[count] = address;
+            count++;
+
+            if (count * 2 > slots.length) {
+                rehash(slots.length * 2);
+            } else {
+                insertSlot(count - 1);
+            }
+
+            return NO_ADDRESS;
+        }
+
+        // returns the removed address, if any
+        long remove(Long id) {
+            int slot = id != null ? findSlot(id) : -1;
+
+            if (slot == -1) {
+                return NO_ADDRESS;
+            }
+
+            int  pos  = slots[slot] - 1;
+            long ret  = addresses[pos];
+            int  last = count - 1;
+
+            deleteSlot(slot);
+
+            if (pos != last) { // move the last entry to pos
+                slots[findSlot(ids[last])] = pos + 1;
+                ids[pos]                   = ids[last];
+                addresses[pos]             = addresses[last];
+            }
+
+            count--;
+
+            return ret;
+        }
+
+        private int findSlot(long id) {
+            int mask = slots.length - 1;
+
+            for (int slot = hash(id) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                if (ids[slots[slot] - 1] == id) {
+                    return slot;
+                }
+            }
+
+            return -1;
+        }
+
+        private void insertSlot(int pos) {
+            int mask = slots.length - 1;
+            int slot = hash(ids[pos]) & mask;
+
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+
+            slots[slot] = pos + 1;
+        }
+
+        // backward-shift deletion, so that lookups don't need tombstones
+        private void deleteSlot(int slot) {
+            int mask = slots.length - 1;
+            int hole = slot;
+
+            for (int next = (hole + 1) & mask; slots[next] != 0; next = (next + 1) & mask) {
+                int home = hash(ids[slots[next] - 1]) & mask;
+
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    slots[hole] = slots[next];
+                    hole        = next;
+                }
+            }
+
+            slots[hole] = 0;
+        }
+
+        private void rehash(int slotCount) {
+            slots = new int[slotCount];
+
+            for (int pos = 0; pos < count; pos++) {
+                insertSlot(pos);
+            }
+        }
+
+        private static int hash(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
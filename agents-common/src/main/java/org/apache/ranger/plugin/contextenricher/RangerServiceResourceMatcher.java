@@ -47,8 +47,21 @@ public RangerServiceResourceMatcher(final RangerServiceResource serviceResource,
 		this.leafResourceDef       = ServiceDefUtil.getLeafResourceDef(policyResourceMatcher.getServiceDef(), getPolicyResource(), true);
 	}
 
+	// for subclasses that create the service-resource and policy-resource-matcher on demand
+	protected RangerServiceResourceMatcher(RangerResourceDef leafResourceDef) {
+		this.serviceResource       = null;
+		this.policyResourceMatcher = null;
+		this.leafResourceDef       = leafResourceDef;
+	}
+
 	public RangerServiceResource getServiceResource() { return serviceResource; }
 
+	public Long getServiceResourceId() {
+		return serviceResource != null ? serviceResource.getId() : null;
+	}
+
+	protected RangerResourceDef getLeafResourceDef() { return leafResourceDef; }
+
 	@Override
 	public long getId() {
 		return serviceResource != null ? serviceResource.getId() :-1;
@@ -64,6 +77,8 @@ public Map<String, RangerPolicy.RangerPolicyResource> getPolicyResource() {
 
 	@Override
 	public RangerResourceMatcher getResourceMatcher(String resourceName) {
+		RangerPolicyResourceMatcher policyResourceMatcher = getPolicyResourceMatcher();
+
 		return policyResourceMatcher != null ? policyResourceMatcher.getResourceMatcher(resourceName) : null;
 	}
 
@@ -73,6 +88,8 @@ public boolean isAncestorOf(RangerResourceDef resourceDef) {
 	}
 
 	public RangerPolicyResourceMatcher.MatchType getMatchType(RangerAccessResource requestedResource, Map<String, ResourceElementMatchingScope> scopes, Map<String, Object> evalContext) {
+		RangerPolicyResourceMatcher policyResourceMatcher = getPolicyResourceMatcher();
+
 		return policyResourceMatcher != null ? policyResourceMatcher.getMatchType(requestedResource, scopes, evalContext) : RangerPolicyResourceMatcher.MatchType.NONE;
 	}
 
@@ -24,7 +24,6 @@
 import org.apache.commons.collections.Predicate;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
-import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
 import org.apache.ranger.plugin.model.RangerServiceDef;
@@ -47,6 +46,8 @@
 import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerBoundedCache;
+import org.apache.ranger.plugin.util.RangerCacheFileUtil;
 import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerReadWriteLock;
@@ -59,10 +60,6 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.Reader;
-import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -72,10 +69,12 @@
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.Timer;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	private static final Logger LOG = LoggerFactory.getLogger(RangerTagEnricher.class);
@@ -89,6 +88,8 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	public static final String TAG_RETRIEVER_CLASSNAME_OPTION        = "tagRetrieverClassName";
 	private static final String TAG_DISABLE_TRIE_PREFILTER_OPTION    = "disableTrieLookupPrefilter";
 
+	private static final int DEFAULT_RESOURCE_EVALUATORS_CACHE_SIZE = 10000;
+
 	private RangerTagRefresher                 tagRefresher;
 	private RangerTagRetriever                 tagRetriever;
 	private boolean                            disableTrieLookupPrefilter;
@@ -97,10 +98,14 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	private boolean                            dedupStrings                  = true;
 	private Timer                              tagDownloadTimer;
 	private RangerServiceDefHelper             serviceDefHelper;
+	private boolean                            useOffHeapTagStore;
+	private File                               offHeapTagStoreDir;
+	private int                                offHeapTagStoreSegmentSizeMB;
+	private int                                offHeapTagStoreCacheSize;
 
 	private final BlockingQueue<DownloadTrigger> tagDownloadQueue = new LinkedBlockingQueue<>();
-	private final RangerReadWriteLock            lock             = new RangerReadWriteLock(false);
-	private final CachedResourceEvaluators       cache            = new CachedResourceEvaluators();
+	private RangerReadWriteLock                  lock             = new RangerReadWriteLock(false);
+	private CachedResourceEvaluators             cache            = new CachedResourceEvaluators(DEFAULT_RESOURCE_EVALUATORS_CACHE_SIZE);
 
 
 	@Override
@@ -118,6 +123,19 @@ public void init() {
 		dedupStrings               = getBooleanConfig(propertyPrefix + ".dedup.strings", true);
 		disableTrieLookupPrefilter = getBooleanOption(TAG_DISABLE_TRIE_PREFILTER_OPTION, false);
 		serviceDefHelper           = new RangerServiceDefHelper(serviceDef, false);
+		cache                      = new CachedResourceEvaluators(getIntConfig(propertyPrefix + ".tag.enricher.resource.evaluators.cache.size", DEFAULT_RESOURCE_EVALUATORS_CACHE_SIZE));
+		useOffHeapTagStore         = getBooleanConfig(propertyPrefix + ".tag.enricher.offheap.store", false);
+
+		if (useOffHeapTagStore) {
+			String storeDir = getConfig(propertyPrefix + ".tag.enricher.offheap.store.dir", null);
+
+			offHeapTagStoreDir           = StringUtils.isNotBlank(storeDir) ? new File(storeDir) : null;
+			offHeapTagStoreSegmentSizeMB = getIntConfig(propertyPrefix + ".tag.enricher.offheap.store.segment.size.mb", RangerOffHeapTagStore.DEFAULT_SEGMENT_SIZE_MB);
+			offHeapTagStoreCacheSize     = getIntConfig(propertyPrefix + ".tag.enricher.offheap.store.cache.size", RangerOffHeapTagStore.DEFAULT_CACHE_SIZE);
+			lock                         = new RangerReadWriteLock(true); // off-heap store is updated in place
+
+			LOG.info("RangerTagEnricher: tagged resources and tags will be kept in off-heap store" + (offHeapTagStoreDir != null ? (" memory-mapped in directory " + offHeapTagStoreDir.getAbsolutePath()) : ""));
+		}
 
 		if (StringUtils.isNotBlank(tagRetrieverClassName)) {
 
@@ -328,8 +346,17 @@ protected void setServiceTags(final ServiceTags serviceTags, final boolean rebui
 					if (LOG.isDebugEnabled()) {
 						LOG.debug("Received service-tag deltas:" + serviceTags);
 					}
-					ServiceTags oldServiceTags = enrichedServiceTags != null ? enrichedServiceTags.getServiceTags() : new ServiceTags();
-					ServiceTags allServiceTags = rebuildOnlyIndex ? oldServiceTags : RangerServiceTagsDeltaUtil.applyDelta(oldServiceTags, serviceTags, serviceTags.getIsTagsDeduped());
+					RangerOffHeapTagStore tagStore       = enrichedServiceTags != null ? enrichedServiceTags.getTagStore() : createOffHeapTagStore();
+					ServiceTags           oldServiceTags = enrichedServiceTags != null ? enrichedServiceTags.getServiceTags() : new ServiceTags();
+					ServiceTags           allServiceTags;
+
+					if (rebuildOnlyIndex) {
+						allServiceTags = oldServiceTags;
+					} else if (tagStore != null) {
+						allServiceTags = tagStore.applyDelta(oldServiceTags, serviceTags);
+					} else {
+						allServiceTags = RangerServiceTagsDeltaUtil.applyDelta(oldServiceTags, serviceTags, serviceTags.getIsTagsDeduped());
+					}
 
 					if (serviceTags.getTagsChangeExtent() == ServiceTags.TagsChangeExtent.NONE) {
 						if (LOG.isDebugEnabled()) {
@@ -345,14 +372,14 @@ protected void setServiceTags(final ServiceTags serviceTags, final boolean rebui
 								trieMap = writeLock.isLockingEnabled() ? enrichedServiceTags.getServiceResourceTrie() : copyServiceResourceTrie();
 							}
 
-							processServiceTagDeltas(serviceTags, allServiceTags, trieMap);
+							processServiceTagDeltas(serviceTags, allServiceTags, trieMap, tagStore);
 						} else {
 							if (LOG.isDebugEnabled()) {
 								LOG.debug("Delta contains only tag attribute changes");
 							}
 							List<RangerServiceResourceMatcher> resourceMatchers = enrichedServiceTags != null ? enrichedServiceTags.getServiceResourceMatchers() : new ArrayList<>();
 							Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie = enrichedServiceTags != null ? enrichedServiceTags.getServiceResourceTrie() : new HashMap<>();
-							enrichedServiceTags = new EnrichedServiceTags(allServiceTags, resourceMatchers, serviceResourceTrie);
+							enrichedServiceTags = new EnrichedServiceTags(allServiceTags, resourceMatchers, serviceResourceTrie, tagStore);
 						}
 					}
 				}
@@ -360,6 +387,10 @@ protected void setServiceTags(final ServiceTags serviceTags, final boolean rebui
 			}
 			setEnrichedServiceTagsInPlugin();
 
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("resource-evaluators cache: " + cache.getStats() + ", staleCount=" + cache.getStaleCount());
+			}
+
 			cache.clearCache();
 
 			RangerPerfTracer.logAlways(perf);
@@ -376,6 +407,10 @@ public Long getServiceTagsVersion() {
 		return localEnrichedServiceTags != null ? localEnrichedServiceTags.getServiceTags().getTagVersion() : -1L;
 	}
 
+	public RangerBoundedCache.Stats getResourceEvaluatorsCacheStats() {
+		return cache.getStats();
+	}
+
 	protected Long getResourceTrieVersion() {
 		EnrichedServiceTags localEnrichedServiceTags = enrichedServiceTags;
 		return localEnrichedServiceTags != null ? localEnrichedServiceTags.getResourceTrieVersion() : -1L;
@@ -433,6 +468,24 @@ protected RangerReadWriteLock createLock() {
 		return new RangerReadWriteLock(useReadWriteLock);
 
 	}
+	private RangerOffHeapTagStore createOffHeapTagStore() {
+		return useOffHeapTagStore ? new RangerOffHeapTagStore(serviceDefHelper, getPluginContext(), offHeapTagStoreDir, offHeapTagStoreSegmentSizeMB, offHeapTagStoreCacheSize) : null;
+	}
+
+	private RangerServiceResourceMatcher createServiceResourceMatcher(RangerServiceResource serviceResource, ResourceHierarchies hierarchies, RangerOffHeapTagStore tagStore) {
+		final RangerServiceResourceMatcher ret;
+
+		if (tagStore == null) {
+			ret = createRangerServiceResourceMatcher(serviceResource, serviceDefHelper, hierarchies, getPluginContext());
+		} else {
+			Integer policyType = getPolicyTypeOfValidHierarchy(serviceResource.getResourceElements().keySet(), serviceDefHelper, hierarchies);
+
+			ret = policyType != null ? tagStore.putResource(serviceResource, policyType) : null;
+		}
+
+		return ret;
+	}
+
 	private void processServiceTags(ServiceTags serviceTags) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("Processing all service-tags");
@@ -445,10 +498,11 @@ private void processServiceTags(ServiceTags serviceTags) {
 			ResourceHierarchies                hierarchies      = new ResourceHierarchies();
 			List<RangerServiceResourceMatcher> resourceMatchers = new ArrayList<>();
 			List<RangerServiceResource>        serviceResources = serviceTags.getServiceResources();
+			RangerOffHeapTagStore              tagStore         = createOffHeapTagStore();
 
 			for (ListIterator<RangerServiceResource> iter = serviceResources.listIterator(); iter.hasNext(); ) {
 				RangerServiceResource        serviceResource        = iter.next();
-				RangerServiceResourceMatcher serviceResourceMatcher = createRangerServiceResourceMatcher(serviceResource, serviceDefHelper, hierarchies, getPluginContext());
+				RangerServiceResourceMatcher serviceResourceMatcher = createServiceResourceMatcher(serviceResource, hierarchies, tagStore);
 
 				if (serviceResourceMatcher != null) {
 					resourceMatchers.add(serviceResourceMatcher);
@@ -461,20 +515,34 @@ private void processServiceTags(ServiceTags serviceTags) {
 				}
 			}
 
+			if (tagStore != null) {
+				for (Map.Entry<Long, List<Long>> entry : serviceTags.getResourceToTagIds().entrySet()) {
+					tagStore.putResourceTagIds(entry.getKey(), entry.getValue());
+				}
+
+				for (Map.Entry<Long, RangerTag> entry : serviceTags.getTags().entrySet()) {
+					tagStore.putTag(entry.getKey(), entry.getValue());
+				}
+
+				LOG.info("Loaded service-tags(version=" + serviceTags.getTagVersion() + ") into " + tagStore);
+
+				serviceTags = tagStore.getServiceTags(serviceTags);
+			}
+
 			Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie = null;
 
 			if (!disableTrieLookupPrefilter) {
 				serviceResourceTrie = new HashMap<>();
 
 				for (RangerResourceDef resourceDef : serviceDef.getResources()) {
-					serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, resourceMatchers, getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, null));
+					serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, resourceMatchers, getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, getPolicyEngineOptions().compactTagTrie, null));
 				}
 			}
-			enrichedServiceTags = new EnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie);
+			enrichedServiceTags = new EnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie, tagStore);
 		}
 	}
 
-	private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceTags, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie) {
+	private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceTags, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, RangerOffHeapTagStore tagStore) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("Delta contains changes other than tag attribute changes, [" + deltas.getTagsChangeExtent() + "]");
 		}
@@ -495,7 +563,7 @@ private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceT
 
 			if (removedOldServiceResource) {
 				if (!StringUtils.isEmpty(serviceResource.getResourceSignature())) {
-					RangerServiceResourceMatcher resourceMatcher = createRangerServiceResourceMatcher(serviceResource, serviceDefHelper, hierarchies, getPluginContext());
+					RangerServiceResourceMatcher resourceMatcher = createServiceResourceMatcher(serviceResource, hierarchies, tagStore);
 
 					if (resourceMatcher != null) {
 						for (RangerResourceDef resourceDef : serviceDef.getResources()) {
@@ -514,7 +582,7 @@ private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceT
 									LOG.debug("Added resource-matcher for policy-resource:[" + policyResource + "]");
 								}
 							} else {
-								trie = new RangerResourceTrie<>(resourceDef, Collections.singletonList(resourceMatcher), getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, null);
+								trie = new RangerResourceTrie<>(resourceDef, Collections.singletonList(resourceMatcher), getPolicyEngineOptions().optimizeTagTrieForRetrieval, getPolicyEngineOptions().optimizeTagTrieForSpace, getPolicyEngineOptions().compactTagTrie, null);
 								serviceResourceTrie.put(resourceDef.getName(), trie);
 							}
 						}
@@ -543,8 +611,9 @@ private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceT
 		} else {
 			for (Map.Entry<String, RangerResourceTrie<RangerServiceResourceMatcher>> entry : serviceResourceTrie.entrySet()) {
 				entry.getValue().wrapUpUpdate();
+				entry.getValue().compact();
 			}
-			enrichedServiceTags = new EnrichedServiceTags(allServiceTags, resourceMatchers, serviceResourceTrie);
+			enrichedServiceTags = new EnrichedServiceTags(allServiceTags, resourceMatchers, serviceResourceTrie, tagStore);
 		}
 	}
 
@@ -630,10 +699,39 @@ static public RangerServiceResourceMatcher createRangerServiceResourceMatcher(Ra
 			LOG.debug("==> createRangerServiceResourceMatcher(serviceResource=" + serviceResource + ")");
 		}
 
-		RangerServiceResourceMatcher ret = null;
+		RangerServiceResourceMatcher ret        = null;
+		Integer                      policyType = getPolicyTypeOfValidHierarchy(serviceResource.getResourceElements().keySet(), serviceDefHelper, hierarchies);
+
+		if (policyType != null) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerTagEnricher.setServiceTags() - Initializing matcher with (resource=" + serviceResource
+						+ ", serviceDef=" + serviceDefHelper.getServiceDef() + ")");
+
+			}
+
+			ret = new RangerServiceResourceMatcher(serviceResource, createPolicyResourceMatcher(serviceResource.getResourceElements(), policyType, serviceDefHelper, pluginContext));
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== createRangerServiceResourceMatcher(serviceResource=" + serviceResource + ") : [" + ret + "]");
+		}
+		return ret;
+
+	}
 
-		final Collection<String> resourceKeys = serviceResource.getResourceElements().keySet();
+	static RangerPolicyResourceMatcher createPolicyResourceMatcher(Map<String, RangerPolicyResource> resourceElements, int policyType, RangerServiceDefHelper serviceDefHelper, RangerPluginContext pluginContext) {
+		RangerDefaultPolicyResourceMatcher ret = new RangerDefaultPolicyResourceMatcher();
 
+		ret.setServiceDef(serviceDefHelper.getServiceDef());
+		ret.setPolicyResources(resourceElements, policyType);
+		ret.setPluginContext(pluginContext);
+		ret.setServiceDefHelper(serviceDefHelper);
+		ret.init();
+
+		return ret;
+	}
+
+	// returns the first policy-type having a hierarchy with all the given resource-keys; null if there is none
+	private static Integer getPolicyTypeOfValidHierarchy(Collection<String> resourceKeys, RangerServiceDefHelper serviceDefHelper, ResourceHierarchies hierarchies) {
 		for (int policyType : RangerPolicy.POLICY_TYPES) {
 			Boolean isValidHierarchy = hierarchies.isValidHierarchy(policyType, resourceKeys);
 			if (isValidHierarchy == null) { // hierarchy not yet validated
@@ -651,29 +749,11 @@ static public RangerServiceResourceMatcher createRangerServiceResourceMatcher(Ra
 			}
 
 			if (isValidHierarchy) {
-				RangerDefaultPolicyResourceMatcher matcher = new RangerDefaultPolicyResourceMatcher();
-
-				matcher.setServiceDef(serviceDefHelper.getServiceDef());
-				matcher.setPolicyResources(serviceResource.getResourceElements(), policyType);
-				matcher.setPluginContext(pluginContext);
-
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("RangerTagEnricher.setServiceTags() - Initializing matcher with (resource=" + serviceResource
-							+ ", serviceDef=" + serviceDefHelper.getServiceDef() + ")");
-
-				}
-				matcher.setServiceDefHelper(serviceDefHelper);
-				matcher.init();
-
-				ret = new RangerServiceResourceMatcher(serviceResource, matcher);
-				break;
+				return policyType;
 			}
 		}
-		if (LOG.isDebugEnabled()) {
-			LOG.debug("<== createRangerServiceResourceMatcher(serviceResource=" + serviceResource + ") : [" + ret + "]");
-		}
-		return ret;
 
+		return null;
 	}
 
 	private void setEnrichedServiceTagsInPlugin() {
@@ -741,7 +821,7 @@ private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request
 						if (ret == null) {
 							ret = new HashSet<>();
 						}
-						ret.addAll(getTagsForServiceResource(request.getAccessTime(), enrichedServiceTags.getServiceTags(), resourceMatcher.getServiceResource(), matchType));
+						ret.addAll(getTagsForServiceResource(request.getAccessTime(), enrichedServiceTags.getServiceTags(), resourceMatcher.getServiceResourceId(), matchType));
 					}
 
 				}
@@ -767,33 +847,100 @@ private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request
 		return ret;
 	}
 
+	/*
+	 * Bounded cache of service-resource-matchers found in the trie for a resource, with W-TinyLFU eviction; lookups don't
+	 * block each other. Each entry records the version of the resource-trie it was computed from, and is ignored (and
+	 * removed) when looked up with a different version - for example, one added by a lookup that raced with an update of
+	 * service-tags.
+	 */
 	private static class CachedResourceEvaluators {
-		private final Map<String, Map<Map<String, ResourceElementMatchingScope>, Collection<RangerServiceResourceMatcher>>> cache     = new HashMap<>();
-		private final RangerReadWriteLock                                                                                   cacheLock = new RangerReadWriteLock(true);
+		private final RangerBoundedCache<CacheKey, CachedEntry> cache;
+		private final LongAdder                                staleCount = new LongAdder();
+
+		CachedResourceEvaluators(int cacheSize) {
+			this.cache = cacheSize > 0 ? new RangerBoundedCache<>(cacheSize) : null;
+		}
+
+		Collection<RangerServiceResourceMatcher> getEvaluators(String resourceKey, Map<String, ResourceElementMatchingScope> scopes, Long resourceTrieVersion) {
+			Collection<RangerServiceResourceMatcher> ret = null;
 
-		CachedResourceEvaluators() {}
+			if (cache != null) {
+				CacheKey    key   = new CacheKey(resourceKey, scopes);
+				CachedEntry entry = cache.get(key);
 
-		Collection<RangerServiceResourceMatcher> getEvaluators(String resourceKey, Map<String, ResourceElementMatchingScope> scopes) {
-			Collection<RangerServiceResourceMatcher> ret;
+				if (entry != null) {
+					if (Objects.equals(entry.resourceTrieVersion, resourceTrieVersion)) {
+						ret = entry.evaluators;
+					} else {
+						staleCount.increment();
 
-			try (RangerReadWriteLock.RangerLock ignored = cacheLock.getReadLock()) {
-				ret = cache.getOrDefault(resourceKey, Collections.emptyMap()).get(scopes);
+						cache.remove(key);
+					}
+				}
 			}
 
 			return ret;
 		}
 
-		void cacheEvaluators(String resource, Map<String, ResourceElementMatchingScope> scopes, Collection<RangerServiceResourceMatcher> evaluators) {
-			try (RangerReadWriteLock.RangerLock ignored = cacheLock.getWriteLock()) {
-				cache.computeIfAbsent(resource, k -> new HashMap<>()).put(scopes, evaluators);
+		void cacheEvaluators(String resourceKey, Map<String, ResourceElementMatchingScope> scopes, Long resourceTrieVersion, Collection<RangerServiceResourceMatcher> evaluators) {
+			if (cache != null) {
+				cache.put(new CacheKey(resourceKey, scopes), new CachedEntry(resourceTrieVersion, evaluators));
 			}
 		}
 
 		void clearCache() {
-			try (RangerReadWriteLock.RangerLock ignored = cacheLock.getWriteLock()) {
+			if (cache != null) {
 				cache.clear();
 			}
 		}
+
+		RangerBoundedCache.Stats getStats() {
+			return cache != null ? cache.getStats() : null;
+		}
+
+		long getStaleCount() {
+			return staleCount.sum();
+		}
+	}
+
+	private static final class CacheKey {
+		private final String                                    resourceKey;
+		private final Map<String, ResourceElementMatchingScope> scopes;
+		private final int                                       hashCode;
+
+		CacheKey(String resourceKey, Map<String, ResourceElementMatchingScope> scopes) {
+			this.resourceKey = resourceKey;
+			this.scopes      = MapUtils.isNotEmpty(scopes) ? new HashMap<>(scopes) : Collections.emptyMap();
+			this.hashCode    = Objects.hash(resourceKey, this.scopes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+
+			CacheKey other = (CacheKey) obj;
+
+			return hashCode == other.hashCode && Objects.equals(resourceKey, other.resourceKey) && Objects.equals(scopes, other.scopes);
+		}
+	}
+
+	private static final class CachedEntry {
+		final Long                                     resourceTrieVersion;
+		final Collection<RangerServiceResourceMatcher> evaluators;
+
+		CachedEntry(Long resourceTrieVersion, Collection<RangerServiceResourceMatcher> evaluators) {
+			this.resourceTrieVersion = resourceTrieVersion;
+			this.evaluators          = evaluators;
+		}
 	}
 
 	private Collection<RangerServiceResourceMatcher> getEvaluators(RangerAccessRequest request, EnrichedServiceTags enrichedServiceTags) {
@@ -817,7 +964,7 @@ private Collection<RangerServiceResourceMatcher> getEvaluators(RangerAccessReque
 			final Predicate predicate = excludeDescendantMatches(request) ? new SelfOrAncestorPredicate(serviceDefHelper.getResourceDef(resource.getLeafName())) : null;
 
 			if (predicate != null) {
-				ret = cache.getEvaluators(resource.getCacheKey(), request.getResourceElementMatchingScopes());
+				ret = cache.getEvaluators(resource.getCacheKey(), request.getResourceElementMatchingScopes(), enrichedServiceTags.getResourceTrieVersion());
 			}
 
 			if (ret == null) {
@@ -828,7 +975,7 @@ private Collection<RangerServiceResourceMatcher> getEvaluators(RangerAccessReque
 				}
 
 				if (predicate != null) {
-					cache.cacheEvaluators(resource.getCacheKey(), request.getResourceElementMatchingScopes(), ret);
+					cache.cacheEvaluators(resource.getCacheKey(), request.getResourceElementMatchingScopes(), enrichedServiceTags.getResourceTrieVersion(), ret);
 				}
 			} else {
 				if (LOG.isDebugEnabled()) {
@@ -882,10 +1029,9 @@ private boolean excludeDescendantMatches(RangerAccessRequest request) {
 		return ret;
 	}
 
-	private static Set<RangerTagForEval> getTagsForServiceResource(Date accessTime, final ServiceTags serviceTags, final RangerServiceResource serviceResource, final RangerPolicyResourceMatcher.MatchType matchType) {
+	private static Set<RangerTagForEval> getTagsForServiceResource(Date accessTime, final ServiceTags serviceTags, final Long resourceId, final RangerPolicyResourceMatcher.MatchType matchType) {
 		Set<RangerTagForEval> ret = new HashSet<>();
 
-		final Long resourceId                        = serviceResource.getId();
 		final Map<Long, List<Long>> resourceToTagIds = serviceTags.getResourceToTagIds();
 		final Map<Long, RangerTag> tags              = serviceTags.getTags();
 
@@ -931,7 +1077,7 @@ private Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> copyServic
 
 		if (enrichedServiceTags != null) {
 			for (Map.Entry<String, RangerResourceTrie<RangerServiceResourceMatcher>> entry : enrichedServiceTags.getServiceResourceTrie().entrySet()) {
-				RangerResourceTrie<RangerServiceResourceMatcher> resourceTrie = new RangerResourceTrie<>(entry.getValue());
+				RangerResourceTrie<RangerServiceResourceMatcher> resourceTrie = new RangerResourceTrie<>(entry.getValue(), getPolicyEngineOptions().enableTriePathCopying);
 				ret.put(entry.getKey(), resourceTrie);
 			}
 		}
@@ -942,26 +1088,52 @@ static public final class EnrichedServiceTags {
 		final private ServiceTags                                                      serviceTags;
 		final private List<RangerServiceResourceMatcher>                               serviceResourceMatchers;
 		final private Map<String, RangerResourceTrie<RangerServiceResourceMatcher>>    serviceResourceTrie;
-		final private Set<RangerTagForEval>                                            tagsForEmptyResourceAndAnyAccess; // Used only when accessed resource is empty and access type is 'any'
+		volatile private Set<RangerTagForEval>                                         tagsForEmptyResourceAndAnyAccess; // Used only when accessed resource is empty and access type is 'any'
 		final private Long                                                             resourceTrieVersion;
+		final private RangerOffHeapTagStore                                            tagStore;
 
 		EnrichedServiceTags(ServiceTags serviceTags, List<RangerServiceResourceMatcher> serviceResourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie) {
+			this(serviceTags, serviceResourceMatchers, serviceResourceTrie, null);
+		}
+
+		EnrichedServiceTags(ServiceTags serviceTags, List<RangerServiceResourceMatcher> serviceResourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, RangerOffHeapTagStore tagStore) {
 			this.serviceTags                      = serviceTags;
 			this.serviceResourceMatchers          = serviceResourceMatchers;
 			this.serviceResourceTrie              = serviceResourceTrie;
-			this.tagsForEmptyResourceAndAnyAccess = createTagsForEmptyResourceAndAnyAccess();
 			this.resourceTrieVersion              = serviceTags.getTagVersion();
+			this.tagStore                         = tagStore;
+			this.tagsForEmptyResourceAndAnyAccess = tagStore == null ? createTagsForEmptyResourceAndAnyAccess() : null; // with off-heap store, created on first use
 		}
 		public ServiceTags                                                   getServiceTags() {return serviceTags;}
 		public List<RangerServiceResourceMatcher>                            getServiceResourceMatchers() { return serviceResourceMatchers;}
 		public Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> getServiceResourceTrie() { return serviceResourceTrie;}
 		public Long                                                          getResourceTrieVersion() { return resourceTrieVersion;}
-		public Set<RangerTagForEval>                                         getTagsForEmptyResourceAndAnyAccess() { return tagsForEmptyResourceAndAnyAccess;}
+		public RangerOffHeapTagStore                                         getTagStore() { return tagStore;}
+
+		// called with the read-lock of the enricher held, hence the off-heap store is not updated while the tags are read
+		public Set<RangerTagForEval> getTagsForEmptyResourceAndAnyAccess() {
+			Set<RangerTagForEval> ret = tagsForEmptyResourceAndAnyAccess;
+
+			if (ret == null) {
+				synchronized (this) {
+					ret = tagsForEmptyResourceAndAnyAccess;
+
+					if (ret == null) {
+						ret = createTagsForEmptyResourceAndAnyAccess();
+
+						tagsForEmptyResourceAndAnyAccess = ret;
+					}
+				}
+			}
+
+			return ret;
+		}
 
 		private Set<RangerTagForEval> createTagsForEmptyResourceAndAnyAccess() {
 			Set<RangerTagForEval> tagsForEmptyResourceAndAnyAccess = new HashSet<>();
-			for (Map.Entry<Long, RangerTag> entry : serviceTags.getTags().entrySet()) {
-				tagsForEmptyResourceAndAnyAccess.add(new RangerTagForEval(entry.getValue(), RangerPolicyResourceMatcher.MatchType.DESCENDANT));
+			Collection<RangerTag> tags                             = tagStore != null ? tagStore.getTags() : serviceTags.getTags().values();
+			for (RangerTag tag : tags) {
+				tagsForEmptyResourceAndAnyAccess.add(new RangerTagForEval(tag, RangerPolicyResourceMatcher.MatchType.DESCENDANT));
 			}
 			return tagsForEmptyResourceAndAnyAccess;
 		}
@@ -976,8 +1148,9 @@ static class RangerTagRefresher extends Thread {
 		private final BlockingQueue<DownloadTrigger> tagDownloadQueue;
 		private long lastActivationTimeInMillis;
 
-		private final String cacheFile;
-		private boolean      hasProvidedTagsToReceiver;
+		private final String  cacheFile;
+		private final boolean isCacheCompressed;
+		private boolean       hasProvidedTagsToReceiver;
 
 		RangerTagRefresher(RangerTagRetriever tagRetriever, RangerTagEnricher tagEnricher, long lastKnownVersion, BlockingQueue<DownloadTrigger> tagDownloadQueue, String cacheFile) {
 			this.tagRetriever = tagRetriever;
@@ -985,6 +1158,7 @@ static class RangerTagRefresher extends Thread {
 			this.lastKnownVersion = lastKnownVersion;
 			this.tagDownloadQueue = tagDownloadQueue;
 			this.cacheFile = cacheFile;
+			this.isCacheCompressed = RangerCacheFileUtil.isCompressionEnabled(tagEnricher.getPluginConfig());
 			setName("RangerTagRefresher(serviceName=" + tagRetriever.getServiceName() + ")-" + getId());
 		}
 
@@ -1142,12 +1316,8 @@ final ServiceTags loadFromCache() {
 			File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
 			if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
-				Reader reader = null;
-
 				try {
-					reader = new FileReader(cacheFile);
-
-						serviceTags = JsonUtils.jsonToObject(reader, ServiceTags.class);
+					serviceTags = RangerCacheFileUtil.read(cacheFile, ServiceTags.class);
 
 					if (serviceTags != null && !StringUtils.equals(tagEnricher.getServiceName(), serviceTags.getServiceName())) {
 						LOG.warn("ignoring unexpected serviceName '" + serviceTags.getServiceName() + "' in cache file '" + cacheFile.getAbsolutePath() + "'");
@@ -1156,14 +1326,6 @@ final ServiceTags loadFromCache() {
 					}
 				} catch (Exception excp) {
 					LOG.error("failed to load service-tags from cache file " + cacheFile.getAbsolutePath(), excp);
-				} finally {
-					if (reader != null) {
-						try {
-							reader.close();
-						} catch (Exception excp) {
-							LOG.error("error while closing opened cache file " + cacheFile.getAbsolutePath(), excp);
-						}
-					}
 				}
 			} else {
 				LOG.warn("cache file does not exist or not readable '" + (cacheFile == null ? null : cacheFile.getAbsolutePath()) + "'");
@@ -1185,22 +1347,10 @@ final void saveToCache(ServiceTags serviceTags) {
 				File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
 				if (cacheFile != null) {
-					Writer writer = null;
-
 					try {
-						writer = new FileWriter(cacheFile);
-
-						JsonUtils.objectToWriter(writer, serviceTags);
+						RangerCacheFileUtil.write(cacheFile, serviceTags, isCacheCompressed);
 					} catch (Exception excp) {
 						LOG.error("failed to save service-tags to cache file '" + cacheFile.getAbsolutePath() + "'", excp);
-					} finally {
-						if (writer != null) {
-							try {
-								writer.close();
-							} catch (Exception excp) {
-								LOG.error("error while closing opened cache file '" + cacheFile.getAbsolutePath() + "'", excp);
-							}
-						}
 					}
 				}
 			} else {
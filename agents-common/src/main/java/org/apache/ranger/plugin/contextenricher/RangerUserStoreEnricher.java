@@ -25,6 +25,8 @@
 import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.RangerUserStoreDictionary;
+import org.apache.ranger.plugin.util.RangerUserStoreUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.slf4j.Logger;
@@ -48,6 +50,8 @@ public class RangerUserStoreEnricher extends RangerAbstractContextEnricher {
     private       boolean                        dedupStrings                  = true;
     private final BlockingQueue<DownloadTrigger> userStoreDownloadQueue = new LinkedBlockingQueue<>();
     private       Timer                          userStoreDownloadTimer;
+    private       RangerUserStoreDictionary      dictionary;
+    private       int                            dictionarySizeAtRebuild;
 
     @Override
     public void init() {
@@ -186,6 +190,8 @@ public void setRangerUserStore(final RangerUserStore rangerUserStore) {
         if (rangerUserStore == null) {
             LOG.info("UserStore information is null for service " + serviceName);
             this.rangerUserStore = null;
+        } else if (rangerUserStore.getIsDelta() && this.rangerUserStore == null) {
+            LOG.error("No userstore to apply deltas to, for service " + serviceName + ": userStoreVersion=" + rangerUserStore.getUserStoreVersion() + ". Ignoring the deltas");
         } else  {
             RangerPerfTracer perf = null;
 
@@ -193,11 +199,28 @@ public void setRangerUserStore(final RangerUserStore rangerUserStore) {
                 perf = RangerPerfTracer.getPerfTracer(PERF_SET_USERSTORE_LOG, "RangerUserStoreEnricher.setRangerUserStore(newUserStoreVersion=" + rangerUserStore.getUserStoreVersion() + ")");
             }
 
-            if (dedupStrings) {
-                rangerUserStore.dedupStrings();
+            final RangerUserStore userStore;
+
+            if (rangerUserStore.getIsDelta()) {
+                if (dedupStrings && dictionary != null) {
+                    dictionary.compact(rangerUserStore);
+                }
+
+                userStore = RangerUserStoreUtil.applyDeltas(this.rangerUserStore, rangerUserStore);
+            } else {
+                userStore = rangerUserStore;
+            }
+
+            // dictionary is rebuilt for each full userstore, and after deltas add many entries - to drop entries no longer used
+            if (dedupStrings && (dictionary == null || !rangerUserStore.getIsDelta() || dictionary.size() > 2 * dictionarySizeAtRebuild)) {
+                dictionary = new RangerUserStoreDictionary();
+
+                dictionary.compact(userStore);
+
+                dictionarySizeAtRebuild = dictionary.size();
             }
 
-            this.rangerUserStore = rangerUserStore;
+            this.rangerUserStore = userStore;
 
             RangerPerfTracer.logAlways(perf);
         }
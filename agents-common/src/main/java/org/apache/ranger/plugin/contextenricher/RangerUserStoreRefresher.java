@@ -23,10 +23,10 @@
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.ranger.admin.client.datatype.RESTResponse;
 import org.apache.ranger.audit.provider.MiscUtil;
-import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.apache.ranger.plugin.util.RangerCacheFileUtil;
 import org.apache.ranger.plugin.util.RangerRESTClient;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
@@ -36,10 +36,6 @@
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
-import java.io.Reader;
-import java.io.Writer;
-import java.io.FileWriter;
-import java.io.FileReader;
 import java.nio.channels.ClosedByInterruptException;
 import java.security.PrivilegedExceptionAction;
 import java.util.HashMap;
@@ -57,6 +53,7 @@ public class RangerUserStoreRefresher extends Thread {
     private long lastActivationTimeInMillis;
 
     private final String cacheFile;
+    private final boolean    isCacheCompressed;
     private boolean          hasProvidedUserStoreToReceiver;
     private RangerRESTClient rangerRESTClient;
 
@@ -69,6 +66,7 @@ public RangerUserStoreRefresher(RangerUserStoreRetriever userStoreRetriever, Ran
         this.lastKnownVersion = lastKnownVersion;
         this.userStoreDownloadQueue = userStoreDownloadQueue;
         this.cacheFile = cacheFile;
+        this.isCacheCompressed = RangerCacheFileUtil.isCompressionEnabled(userStoreEnricher.getPluginConfig());
         setName("RangerUserStoreRefresher(serviceName=" + userStoreRetriever.getServiceName() + ")-" + getId());
     }
 
@@ -124,6 +122,13 @@ public RangerUserStore populateUserStoreInfo() throws InterruptedException {
             try {
                 rangerUserStore = userStoreRetriever.retrieveUserStoreInfo(lastKnownVersion, lastActivationTimeInMillis);
 
+                if (rangerUserStore != null && rangerUserStore.getIsDelta() && userStoreEnricher.getRangerUserStore() == null) { // deltas can't be applied without the userstore they were computed from
+                    LOG.warn("RangerUserStoreRefresher.populateUserStoreInfo() - received userstore deltas, but there is no userstore to apply them to. Downloading full userstore");
+
+                    lastKnownVersion = -1L;
+                    rangerUserStore  = userStoreRetriever.retrieveUserStoreInfo(lastKnownVersion, lastActivationTimeInMillis);
+                }
+
                 if (rangerUserStore == null) {
                     if (!hasProvidedUserStoreToReceiver) {
                         rangerUserStore = loadFromCache();
@@ -133,10 +138,11 @@ public RangerUserStore populateUserStoreInfo() throws InterruptedException {
                 if (rangerUserStore != null) {
                     userStoreEnricher.setRangerUserStore(rangerUserStore);
                     if (rangerUserStore.getUserStoreVersion() != -1L) {
-                        saveToCache(rangerUserStore);
+                        // cache has the userstore after applying deltas
+                        saveToCache(rangerUserStore.getIsDelta() ? userStoreEnricher.getRangerUserStore() : rangerUserStore);
                     }
                     LOG.info("RangerUserStoreRefresher.populateUserStoreInfo() - Updated userstore-cache to new version, lastKnownVersion=" + lastKnownVersion + "; newVersion="
-                            + (rangerUserStore.getUserStoreVersion() == null ? -1L : rangerUserStore.getUserStoreVersion()));
+                            + (rangerUserStore.getUserStoreVersion() == null ? -1L : rangerUserStore.getUserStoreVersion()) + "; isDelta=" + rangerUserStore.getIsDelta());
                     hasProvidedUserStoreToReceiver = true;
                     lastKnownVersion = rangerUserStore.getUserStoreVersion() == null ? -1L : rangerUserStore.getUserStoreVersion();
                     setLastActivationTimeInMillis(System.currentTimeMillis());
@@ -254,23 +260,10 @@ private RangerUserStore loadFromCache() {
         File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
         if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
-            Reader reader = null;
-
             try {
-                reader = new FileReader(cacheFile);
-
-                rangerUserStore = JsonUtils.jsonToObject(reader, RangerUserStore.class);
-
+                rangerUserStore = RangerCacheFileUtil.read(cacheFile, RangerUserStore.class);
             } catch (Exception excp) {
                 LOG.error("failed to load userstore information from cache file " + cacheFile.getAbsolutePath(), excp);
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (Exception excp) {
-                        LOG.error("error while closing opened cache file " + cacheFile.getAbsolutePath(), excp);
-                    }
-                }
             }
         } else {
             LOG.warn("cache file does not exist or not readable '" + (cacheFile == null ? null : cacheFile.getAbsolutePath()) + "'");
@@ -292,22 +285,10 @@ public void saveToCache(RangerUserStore rangerUserStore) {
             File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
             if (cacheFile != null) {
-                Writer writer = null;
-
                 try {
-                    writer = new FileWriter(cacheFile);
-
-                    JsonUtils.objectToWriter(writer, rangerUserStore);
+                    RangerCacheFileUtil.write(cacheFile, rangerUserStore, isCacheCompressed);
                 } catch (Exception excp) {
                     LOG.error("failed to save userstore information to cache file '" + cacheFile.getAbsolutePath() + "'", excp);
-                } finally {
-                    if (writer != null) {
-                        try {
-                            writer.close();
-                        } catch (Exception excp) {
-                            LOG.error("error while closing opened cache file '" + cacheFile.getAbsolutePath() + "'", excp);
-                        }
-                    }
                 }
             }
         } else {
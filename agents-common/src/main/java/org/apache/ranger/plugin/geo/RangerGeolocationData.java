@@ -71,7 +71,7 @@ public static RangerGeolocationData create(String fields[], int index, boolean u
 		return data;
 	}
 
-	private RangerGeolocationData(final long fromIPAddress, final long toIPAddress, final String[] locationData) {
+	RangerGeolocationData(final long fromIPAddress, final long toIPAddress, final String[] locationData) {
 		this.fromIPAddress = fromIPAddress;
 		this.toIPAddress = toIPAddress;
 		this.locationData = locationData;
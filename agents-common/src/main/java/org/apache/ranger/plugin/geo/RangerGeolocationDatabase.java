@@ -30,6 +30,8 @@ public class RangerGeolocationDatabase {
 
 	private GeolocationMetadata metadata = new GeolocationMetadata();
 
+	private RangerGeolocationRanges ranges; // when set, used instead of data
+
 	public String getValue(final RangerGeolocationData geolocationData, final String attributeName) {
 		String value = null;
 		int index = -1;
@@ -55,7 +57,9 @@ public String getValue(final RangerGeolocationData geolocationData, final String
 	public RangerGeolocationData find(final String ipAddressStr) {
 		RangerGeolocationData ret = null;
 
-		if (StringUtils.isNotBlank(ipAddressStr) && RangerGeolocationData.validateAsIP(ipAddressStr, true)) {
+		if (ranges != null) {
+			ret = ranges.find(ipAddressStr);
+		} else if (StringUtils.isNotBlank(ipAddressStr) && RangerGeolocationData.validateAsIP(ipAddressStr, true)) {
 			ret = data.find(RangerGeolocationData.ipAddressToLong(ipAddressStr));
 		}
 		return ret;
@@ -81,6 +85,16 @@ public void optimize() {
 
 	public BinarySearchTree<RangerGeolocationData, Long> getData() { return data; }
 
+	public void setRanges(final RangerGeolocationRanges rangesArg) {
+		ranges = rangesArg;
+
+		if (rangesArg != null) {
+			metadata = new GeolocationMetadata(rangesArg.getAttributeNames());
+		}
+	}
+
+	public RangerGeolocationRanges getRanges() { return ranges; }
+
 	public void dump(ValuePrinter<RangerGeolocationData> processor) {
 
 		BinarySearchTree<RangerGeolocationData, Long> geoDatabase = getData();
@@ -91,7 +105,11 @@ public void dump(ValuePrinter<RangerGeolocationData> processor) {
 		processor.print(metadata.toString());
 
 		processor.print("#================== Dump of geoDatabase - START ==================");
-		geoDatabase.preOrderTraverseTree(processor);
+		if (ranges != null) {
+			ranges.traverse(processor);
+		} else {
+			geoDatabase.preOrderTraverseTree(processor);
+		}
 		processor.print("#================== Dump of geoDatabase - END   ==================");
 
 		processor.close();
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.geo;
+
+import org.apache.ranger.plugin.store.file.GeolocationFileStore;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Converts a geolocation CSV file, in the format read by GeolocationFileStore, to the binary file loaded by
+ * GeolocationFileStore with option FileFormat=binary. Files having overlapping ranges are rejected, as lookups in the
+ * binary file might not find the expected range for addresses in the overlap.
+ *
+ * The binary file is written to a temporary file and then renamed, so that plugins that memory-mapped the earlier file
+ * continue to read it until they reload.
+ *
+ * Usage: java -cp "<plugin-lib-dir>/*" org.apache.ranger.plugin.geo.RangerGeolocationFileConverter <csv-file> <binary-file> [<ip-in-dot-format>]
+ */
+public class RangerGeolocationFileConverter {
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: RangerGeolocationFileConverter <csv-file> <binary-file> [<ip-in-dot-format>, default: true]");
+
+            System.exit(1);
+        }
+
+        try {
+            RangerGeolocationRanges ranges = convert(args[0], new File(args[1]), args.length < 3 || Boolean.parseBoolean(args[2]));
+
+            System.out.println("Wrote " + args[1] + ": " + ranges);
+        } catch (IOException excp) {
+            System.err.println("Failed to convert " + args[0] + ": " + excp.getMessage());
+
+            System.exit(1);
+        }
+    }
+
+    public static RangerGeolocationRanges convert(String csvFilePath, File binaryFile, boolean ipInDotFormat) throws IOException {
+        Map<String, String> context = new HashMap<>();
+
+        context.put(GeolocationFileStore.PROP_GEOLOCATION_FILE_LOCATION, csvFilePath);
+        context.put(GeolocationFileStore.PROP_GEOLOCATION_IP_IN_DOT_FORMAT, Boolean.toString(ipInDotFormat));
+        context.put(GeolocationFileStore.PROP_GEOLOCATION_USE_COMPACT_STORE, Boolean.TRUE.toString());
+
+        GeolocationFileStore store = new GeolocationFileStore();
+
+        store.init(context);
+
+        RangerGeolocationDatabase database = store.getGeoDatabase();
+        RangerGeolocationRanges   ret      = database != null ? database.getRanges() : null;
+
+        if (ret == null) {
+            throw new IOException("failed to read geolocation data from " + csvFilePath);
+        }
+
+        int overlapCount = ret.getOverlappingRangeCount();
+
+        if (overlapCount > 0) {
+            throw new IOException(overlapCount + " ranges overlap with the preceding range");
+        }
+
+        File tmpFile = new File(binaryFile.getAbsoluteFile().getParentFile(), binaryFile.getName() + ".tmp");
+
+        try {
+            try (OutputStream out = new FileOutputStream(tmpFile)) {
+                ret.writeTo(out);
+            }
+
+            Files.move(tmpFile.toPath(), binaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,641 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.geo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.IPV4_BITS;
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.getAddressLength;
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.getIpv6Bits;
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.getIpv6GroupCount;
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.isIpv4Mapped;
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.parseIpv4;
+
+/*
+ * Compact, immutable geolocation database of IPv4 and IPv6 ranges - an alternative to BinarySearchTree of
+ * RangerGeolocationData, which takes a few objects per range.
+ *
+ * Ranges are stored in sorted arrays of primitives - one array per field: from, to, location - and are found by
+ * binary search on 'from'. Ranges are expected to not overlap, as in GeoIP datasets. Locations - i.e. the attribute
+ * values of ranges - are dictionary encoded: each distinct value is stored once, and each distinct combination of values
+ * is stored once, as indexes into the dictionary. As many ranges share a location, this takes a fraction of the memory.
+ *
+ * The database can be saved to a binary file, and loaded from it with the arrays either read into heap or memory-mapped.
+ * Memory-mapped arrays are paged in by the OS on access, and don't count towards the heap. Only the dictionary is read
+ * into the heap, so that lookups don't allocate strings.
+ */
+public class RangerGeolocationRanges {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerGeolocationRanges.class);
+
+    private static final int  FILE_MAGIC   = 0x5247454f; // RGEO
+    private static final int  FILE_VERSION = 1;
+    private static final int  NO_VALUE     = -1;
+    private static final long IPV4_MASK    = 0xffffffffL;
+
+    private final String[]   attributeNames;
+    private final String[]   dictionary;
+    private final IntBuffer  locations;    // attributeNames.length dictionary indexes per location; NO_VALUE for missing value
+    private final IntBuffer  ipv4From;     // unsigned, sorted
+    private final IntBuffer  ipv4To;
+    private final IntBuffer  ipv4Location;
+    private final LongBuffer ipv6FromHi;   // unsigned, sorted by (ipv6FromHi, ipv6FromLo)
+    private final LongBuffer ipv6FromLo;
+    private final LongBuffer ipv6ToHi;
+    private final LongBuffer ipv6ToLo;
+    private final IntBuffer  ipv6Location;
+    private final boolean    isMemoryMapped;
+
+    private RangerGeolocationRanges(String[] attributeNames, String[] dictionary, IntBuffer locations,
+                                    IntBuffer ipv4From, IntBuffer ipv4To, IntBuffer ipv4Location,
+                                    LongBuffer ipv6FromHi, LongBuffer ipv6FromLo, LongBuffer ipv6ToHi, LongBuffer ipv6ToLo, IntBuffer ipv6Location,
+                                    boolean isMemoryMapped) {
+        this.attributeNames = attributeNames;
+        this.dictionary     = dictionary;
+        this.locations      = locations;
+        this.ipv4From       = ipv4From;
+        this.ipv4To         = ipv4To;
+        this.ipv4Location   = ipv4Location;
+        this.ipv6FromHi     = ipv6FromHi;
+        this.ipv6FromLo     = ipv6FromLo;
+        this.ipv6ToHi       = ipv6ToHi;
+        this.ipv6ToLo       = ipv6ToLo;
+        this.ipv6Location   = ipv6Location;
+        this.isMemoryMapped = isMemoryMapped;
+    }
+
+    public String[] getAttributeNames() { return attributeNames; }
+
+    public int getIpv4RangeCount() { return ipv4From.limit(); }
+
+    public int getIpv6RangeCount() { return ipv6FromHi.limit(); }
+
+    public int getLocationCount() { return attributeNames.length == 0 ? 0 : locations.limit() / attributeNames.length; }
+
+    public int getDictionarySize() { return dictionary.length; }
+
+    public boolean isMemoryMapped() { return isMemoryMapped; }
+
+    // returns the number of ranges that overlap with the preceding range; lookup of addresses in the overlap might not find the expected range
+    public int getOverlappingRangeCount() {
+        int ret = 0;
+
+        for (int i = 1; i < getIpv4RangeCount(); i++) {
+            if ((ipv4From.get(i) & IPV4_MASK) <= (ipv4To.get(i - 1) & IPV4_MASK)) {
+                ret++;
+            }
+        }
+
+        for (int i = 1; i < getIpv6RangeCount(); i++) {
+            if (compareIpv6(ipv6FromHi.get(i), ipv6FromLo.get(i), ipv6ToHi.get(i - 1), ipv6ToLo.get(i - 1)) <= 0) {
+                ret++;
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * returns the location of the range that contains the given address; -1 if the address is not in any range, or is
+     * not a valid IPv4/IPv6 address. IPv4-mapped IPv6 addresses, like ::ffff:10.1.2.3, are looked up in IPv4 ranges.
+     * Doesn't allocate any object.
+     */
+    public int findLocation(String address) {
+        int ret = NO_VALUE;
+
+        if (address != null) {
+            int len = getAddressLength(address);
+
+            if (address.indexOf(':') == -1) {
+                long ip = parseIpv4(address, 0, len);
+
+                if (ip != -1) {
+                    ret = findIpv4Location(ip);
+                }
+            } else {
+                int groupCount = getIpv6GroupCount(address, 0, len);
+
+                if (groupCount != -1) {
+                    long hi = getIpv6Bits(address, 0, len, groupCount, true);
+                    long lo = getIpv6Bits(address, 0, len, groupCount, false);
+
+                    ret = findIpv6Location(hi, lo);
+
+                    if (ret == NO_VALUE && isIpv4Mapped(hi, lo)) {
+                        ret = findIpv4Location(lo & IPV4_MASK);
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // returns value of the attribute at the given index for the location returned by findLocation(); null if not present
+    public String getValue(int location, int attributeIndex) {
+        String ret = null;
+
+        if (location >= 0 && attributeIndex >= 0 && attributeIndex < attributeNames.length) {
+            int valueIdx = locations.get(location * attributeNames.length + attributeIndex);
+
+            ret = valueIdx == NO_VALUE ? null : dictionary[valueIdx];
+        }
+
+        return ret;
+    }
+
+    // returns values of the location, excluding trailing missing values - like RangerGeolocationData.getLocationData()
+    public String[] getLocationData(int location) {
+        int valueCount = attributeNames.length;
+
+        while (valueCount > 0 && getValue(location, valueCount - 1) == null) {
+            valueCount--;
+        }
+
+        String[] ret = new String[valueCount];
+
+        for (int i = 0; i < valueCount; i++) {
+            ret[i] = getValue(location, i);
+        }
+
+        return ret;
+    }
+
+    public RangerGeolocationData find(String address) {
+        int location = findLocation(address);
+
+        return location == NO_VALUE ? null : new RangerGeolocationData(0, 0, getLocationData(location));
+    }
+
+    /*
+     * visits every range, in the order of IPv4 and IPv6 addresses. RangerGeolocationData has from/to only for IPv4 ranges
+     */
+    public void traverse(ValueProcessor<RangerGeolocationData> processor) {
+        for (int i = 0; i < getIpv4RangeCount(); i++) {
+            processor.process(new RangerGeolocationData(ipv4From.get(i) & IPV4_MASK, ipv4To.get(i) & IPV4_MASK, getLocationData(ipv4Location.get(i))));
+        }
+
+        for (int i = 0; i < getIpv6RangeCount(); i++) {
+            processor.process(new RangerGeolocationData(0, 0, getLocationData(ipv6Location.get(i))));
+        }
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+
+        dataOut.writeInt(FILE_MAGIC);
+        dataOut.writeInt(FILE_VERSION);
+
+        writeStrings(dataOut, attributeNames);
+        writeStrings(dataOut, dictionary);
+        writeInts(dataOut, locations);
+        writeInts(dataOut, ipv4From);
+        writeInts(dataOut, ipv4To);
+        writeInts(dataOut, ipv4Location);
+        writeLongs(dataOut, ipv6FromHi);
+        writeLongs(dataOut, ipv6FromLo);
+        writeLongs(dataOut, ipv6ToHi);
+        writeLongs(dataOut, ipv6ToLo);
+        writeInts(dataOut, ipv6Location);
+
+        dataOut.flush();
+    }
+
+    /*
+     * loads the database from a file written by writeTo(). When useMemoryMap is true, ranges and locations are accessed
+     * directly from the memory-mapped file; the file must not be modified in place afterwards - replace it instead, by
+     * writing to a new file and renaming it.
+     */
+    public static RangerGeolocationRanges load(File file, boolean useMemoryMap) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            final ByteBuffer buffer;
+
+            if (useMemoryMap) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // mapping remains valid after the channel is closed
+            } else {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException(file + ": file too large");
+                }
+
+                buffer = ByteBuffer.allocate((int) channel.size());
+
+                while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                    // continue reading until the buffer is full
+                }
+
+                buffer.flip();
+            }
+
+            return read(buffer, useMemoryMap);
+        }
+    }
+
+    public static RangerGeolocationRanges load(InputStream in) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        int    len    = 0;
+
+        for (int count; (count = in.read(buffer, len, buffer.length - len)) != -1; ) {
+            len += count;
+
+            if (len == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+
+        return read(ByteBuffer.wrap(buffer, 0, len), false);
+    }
+
+    @Override
+    public String toString() {
+        return "RangerGeolocationRanges={attributeNames=" + Arrays.toString(attributeNames) +
+                ", ipv4RangeCount=" + getIpv4RangeCount() +
+                ", ipv6RangeCount=" + getIpv6RangeCount() +
+                ", locationCount=" + getLocationCount() +
+                ", dictionarySize=" + getDictionarySize() +
+                ", isMemoryMapped=" + isMemoryMapped +
+                "}";
+    }
+
+    private int findIpv4Location(long ip) {
+        int idx = -1;
+
+        for (int low = 0, high = getIpv4RangeCount() - 1; low <= high; ) { // last range with from <= ip
+            int mid = (low + high) >>> 1;
+
+            if ((ipv4From.get(mid) & IPV4_MASK) <= ip) {
+                idx = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return idx != -1 && ip <= (ipv4To.get(idx) & IPV4_MASK) ? ipv4Location.get(idx) : NO_VALUE;
+    }
+
+    private int findIpv6Location(long hi, long lo) {
+        int idx = -1;
+
+        for (int low = 0, high = getIpv6RangeCount() - 1; low <= high; ) { // last range with from <= ip
+            int mid = (low + high) >>> 1;
+
+            if (compareIpv6(ipv6FromHi.get(mid), ipv6FromLo.get(mid), hi, lo) <= 0) {
+                idx = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return idx != -1 && compareIpv6(hi, lo, ipv6ToHi.get(idx), ipv6ToLo.get(idx)) <= 0 ? ipv6Location.get(idx) : NO_VALUE;
+    }
+
+    private static int compareIpv6(long hi1, long lo1, long hi2, long lo2) {
+        int ret = Long.compareUnsigned(hi1, hi2);
+
+        return ret != 0 ? ret : Long.compareUnsigned(lo1, lo2);
+    }
+
+    private static RangerGeolocationRanges read(ByteBuffer buffer, boolean isMemoryMapped) throws IOException {
+        try {
+            if (buffer.getInt() != FILE_MAGIC) {
+                throw new IOException("not a geolocation database file");
+            }
+
+            int version = buffer.getInt();
+
+            if (version != FILE_VERSION) {
+                throw new IOException("unsupported geolocation database version " + version);
+            }
+
+            String[]   attributeNames = readStrings(buffer);
+            String[]   dictionary     = readStrings(buffer);
+            IntBuffer  locations      = readInts(buffer);
+            IntBuffer  ipv4From       = readInts(buffer);
+            IntBuffer  ipv4To         = readInts(buffer);
+            IntBuffer  ipv4Location   = readInts(buffer);
+            LongBuffer ipv6FromHi     = readLongs(buffer);
+            LongBuffer ipv6FromLo     = readLongs(buffer);
+            LongBuffer ipv6ToHi       = readLongs(buffer);
+            LongBuffer ipv6ToLo       = readLongs(buffer);
+            IntBuffer  ipv6Location   = readInts(buffer);
+
+            if (ipv4To.limit() != ipv4From.limit() || ipv4Location.limit() != ipv4From.limit() ||
+                ipv6FromLo.limit() != ipv6FromHi.limit() || ipv6ToHi.limit() != ipv6FromHi.limit() || ipv6ToLo.limit() != ipv6FromHi.limit() || ipv6Location.limit() != ipv6FromHi.limit() ||
+                (attributeNames.length == 0 ? locations.limit() != 0 : locations.limit() % attributeNames.length != 0)) {
+                throw new IOException("inconsistent geolocation database");
+            }
+
+            return new RangerGeolocationRanges(attributeNames, dictionary, locations, ipv4From, ipv4To, ipv4Location, ipv6FromHi, ipv6FromLo, ipv6ToHi, ipv6ToLo, ipv6Location, isMemoryMapped);
+        } catch (RuntimeException excp) { // BufferUnderflowException, IllegalArgumentException
+            throw new IOException("corrupt geolocation database", excp);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings.length);
+
+        for (String str : strings) {
+            byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        String[] ret = new String[buffer.getInt()];
+
+        for (int i = 0; i < ret.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+
+            buffer.get(bytes);
+
+            ret[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return ret;
+    }
+
+    private static void writeInts(DataOutputStream out, IntBuffer values) throws IOException {
+        out.writeInt(values.limit());
+
+        for (int i = 0; i < values.limit(); i++) {
+            out.writeInt(values.get(i));
+        }
+    }
+
+    private static void writeLongs(DataOutputStream out, LongBuffer values) throws IOException {
+        out.writeInt(values.limit());
+
+        for (int i = 0; i < values.limit(); i++) {
+            out.writeLong(values.get(i));
+        }
+    }
+
+    // returns a view of the ints at the current position, and moves the position past them
+    private static IntBuffer readInts(ByteBuffer buffer) {
+        int       count = buffer.getInt();
+        IntBuffer ret   = buffer.slice().asIntBuffer();
+
+        ret.limit(count);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+
+        return ret;
+    }
+
+    private static LongBuffer readLongs(ByteBuffer buffer) {
+        int        count = buffer.getInt();
+        LongBuffer ret   = buffer.slice().asLongBuffer();
+
+        ret.limit(count);
+        buffer.position(buffer.position() + count * Long.BYTES);
+
+        return ret;
+    }
+
+    /*
+     * Builds the database from ranges added in any order. Not thread-safe.
+     */
+    public static class Builder {
+        private final String[]               attributeNames;
+        private final Map<String, Integer>   dictionaryIndex = new HashMap<>();
+        private final List<String>           dictionary      = new ArrayList<>();
+        private final Map<Location, Integer> locationIndex   = new HashMap<>();
+        private       int[]                  locations       = new int[1024];
+        private       int                    locationsSize   = 0;
+        private       long[]                 ipv4Ranges      = new long[1024]; // from << 32 | to
+        private       int[]                  ipv4Locations   = new int[1024];
+        private       int                    ipv4Count       = 0;
+        private       long[]                 ipv6Ranges      = new long[1024]; // fromHi, fromLo, toHi, toLo
+        private       int[]                  ipv6Locations   = new int[256];
+        private       int                    ipv6Count       = 0;
+
+        public Builder(String[] attributeNames) {
+            this.attributeNames = attributeNames != null ? attributeNames : new String[0];
+        }
+
+        public String[] getAttributeNames() { return attributeNames; }
+
+        /*
+         * adds range of IPv4 addresses given as unsigned 32-bit values; returns false if the range is not valid
+         */
+        public boolean addIpv4Range(long from, long to, String[] values) {
+            boolean ret = from >= 0 && to <= IPV4_MASK && from <= to;
+
+            if (ret) {
+                if (ipv4Count == ipv4Locations.length) {
+                    ipv4Ranges    = Arrays.copyOf(ipv4Ranges, ipv4Count * 2);
+                    ipv4Locations = Arrays.copyOf(ipv4Locations, ipv4Count * 2);
+                }
+
+                ipv4Ranges[ipv4Count]    = (from << IPV4_BITS) | to;
+                ipv4Locations[ipv4Count] = getLocation(values);
+
+                ipv4Count++;
+            }
+
+            return ret;
+        }
+
+        /*
+         * adds range of addresses given in IPv4 dot notation or in IPv6 notation; returns false if the range is not valid
+         */
+        public boolean addRange(String from, String to, String[] values) {
+            boolean ret = false;
+
+            if (from != null && to != null) {
+                if (from.indexOf(':') == -1 && to.indexOf(':') == -1) {
+                    ret = addIpv4Range(parseIpv4(from, 0, from.length()), parseIpv4(to, 0, to.length()), values);
+                } else {
+                    int fromGroupCount = getIpv6GroupCount(from, 0, from.length());
+                    int toGroupCount   = getIpv6GroupCount(to, 0, to.length());
+
+                    if (fromGroupCount != -1 && toGroupCount != -1) {
+                        long fromHi = getIpv6Bits(from, 0, from.length(), fromGroupCount, true);
+                        long fromLo = getIpv6Bits(from, 0, from.length(), fromGroupCount, false);
+                        long toHi   = getIpv6Bits(to, 0, to.length(), toGroupCount, true);
+                        long toLo   = getIpv6Bits(to, 0, to.length(), toGroupCount, false);
+
+                        ret = compareIpv6(fromHi, fromLo, toHi, toLo) <= 0;
+
+                        if (ret) {
+                            if (ipv6Count == ipv6Locations.length) {
+                                ipv6Ranges    = Arrays.copyOf(ipv6Ranges, ipv6Count * 8);
+                                ipv6Locations = Arrays.copyOf(ipv6Locations, ipv6Count * 2);
+                            }
+
+                            ipv6Ranges[ipv6Count * 4]     = fromHi;
+                            ipv6Ranges[ipv6Count * 4 + 1] = fromLo;
+                            ipv6Ranges[ipv6Count * 4 + 2] = toHi;
+                            ipv6Ranges[ipv6Count * 4 + 3] = toLo;
+                            ipv6Locations[ipv6Count]      = getLocation(values);
+
+                            ipv6Count++;
+                        }
+                    }
+                }
+            }
+
+            return ret;
+        }
+
+        public RangerGeolocationRanges build() {
+            // sort IPv4 ranges by from, kept in upper bits - with sign bit flipped for unsigned order; lower bits carry the index
+            long[] ipv4Order = new long[ipv4Count];
+
+            for (int i = 0; i < ipv4Count; i++) {
+                ipv4Order[i] = ((ipv4Ranges[i] & ~IPV4_MASK) ^ Long.MIN_VALUE) | i;
+            }
+
+            Arrays.sort(ipv4Order);
+
+            int[] ipv4From     = new int[ipv4Count];
+            int[] ipv4To       = new int[ipv4Count];
+            int[] ipv4Location = new int[ipv4Count];
+
+            for (int i = 0; i < ipv4Count; i++) {
+                int idx = (int) (ipv4Order[i] & IPV4_MASK);
+
+                ipv4From[i]     = (int) (ipv4Ranges[idx] >>> IPV4_BITS);
+                ipv4To[i]       = (int) ipv4Ranges[idx];
+                ipv4Location[i] = ipv4Locations[idx];
+            }
+
+            Integer[] ipv6Order = new Integer[ipv6Count];
+
+            for (int i = 0; i < ipv6Count; i++) {
+                ipv6Order[i] = i;
+            }
+
+            Arrays.sort(ipv6Order, (idx1, idx2) -> compareIpv6(ipv6Ranges[idx1 * 4], ipv6Ranges[idx1 * 4 + 1], ipv6Ranges[idx2 * 4], ipv6Ranges[idx2 * 4 + 1]));
+
+            long[] ipv6FromHi   = new long[ipv6Count];
+            long[] ipv6FromLo   = new long[ipv6Count];
+            long[] ipv6ToHi     = new long[ipv6Count];
+            long[] ipv6ToLo     = new long[ipv6Count];
+            int[]  ipv6Location = new int[ipv6Count];
+
+            for (int i = 0; i < ipv6Count; i++) {
+                int idx = ipv6Order[i];
+
+                ipv6FromHi[i]   = ipv6Ranges[idx * 4];
+                ipv6FromLo[i]   = ipv6Ranges[idx * 4 + 1];
+                ipv6ToHi[i]     = ipv6Ranges[idx * 4 + 2];
+                ipv6ToLo[i]     = ipv6Ranges[idx * 4 + 3];
+                ipv6Location[i] = ipv6Locations[idx];
+            }
+
+            RangerGeolocationRanges ret = new RangerGeolocationRanges(attributeNames, dictionary.toArray(new String[0]), IntBuffer.wrap(Arrays.copyOf(locations, locationsSize)),
+                                                                      IntBuffer.wrap(ipv4From), IntBuffer.wrap(ipv4To), IntBuffer.wrap(ipv4Location),
+                                                                      LongBuffer.wrap(ipv6FromHi), LongBuffer.wrap(ipv6FromLo), LongBuffer.wrap(ipv6ToHi), LongBuffer.wrap(ipv6ToLo), IntBuffer.wrap(ipv6Location),
+                                                                      false);
+
+            int overlapCount = ret.getOverlappingRangeCount();
+
+            if (overlapCount > 0) {
+                LOG.warn("RangerGeolocationRanges.Builder.build(): {} ranges overlap with the preceding range; lookup of addresses in the overlap might not find the expected range", overlapCount);
+            }
+
+            return ret;
+        }
+
+        // values beyond the number of attributes are ignored
+        private int getLocation(String[] values) {
+            int[] valueIdxs = new int[attributeNames.length];
+
+            for (int i = 0; i < valueIdxs.length; i++) {
+                String value = values != null && i < values.length ? values[i] : null;
+
+                if (value == null) {
+                    valueIdxs[i] = NO_VALUE;
+                } else {
+                    Integer valueIdx = dictionaryIndex.get(value);
+
+                    if (valueIdx == null) {
+                        valueIdx = dictionary.size();
+
+                        dictionary.add(value);
+                        dictionaryIndex.put(value, valueIdx);
+                    }
+
+                    valueIdxs[i] = valueIdx;
+                }
+            }
+
+            Location location = new Location(valueIdxs);
+            Integer  ret      = locationIndex.get(location);
+
+            if (ret == null) {
+                ret = attributeNames.length == 0 ? 0 : locationsSize / attributeNames.length;
+
+                if (locationsSize + valueIdxs.length > locations.length) {
+                    locations = Arrays.copyOf(locations, Math.max(locations.length * 2, locationsSize + valueIdxs.length));
+                }
+
+                System.arraycopy(valueIdxs, 0, locations, locationsSize, valueIdxs.length);
+
+                locationsSize += valueIdxs.length;
+
+                locationIndex.put(location, ret);
+            }
+
+            return ret;
+        }
+    }
+
+    private static class Location {
+        private final int[] valueIdxs;
+        private final int   hashCode;
+
+        Location(int[] valueIdxs) {
+            this.valueIdxs = valueIdxs;
+            this.hashCode  = Arrays.hashCode(valueIdxs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Location && Arrays.equals(valueIdxs, ((Location) obj).valueIdxs);
+        }
+    }
+}
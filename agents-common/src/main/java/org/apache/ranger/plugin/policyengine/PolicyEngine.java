@@ -42,6 +42,7 @@
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
 import org.apache.ranger.plugin.util.RangerReadWriteLock;
 import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerRolesUtil;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.apache.ranger.plugin.util.StringTokenReplacer;
@@ -215,7 +216,14 @@ public PolicyEngine(ServicePolicies servicePolicies, RangerPluginContext pluginC
 
         RangerAuthContext currAuthContext = pluginContext.getAuthContext();
         RangerUserStore   userStore       = currAuthContext != null ? currAuthContext.getUserStoreUtil().getUserStore() : null;
-        RangerAuthContext authContext     = new RangerAuthContext(null, zoneMatcher, roles, userStore);
+        RangerRolesUtil   currRolesUtil   = currAuthContext != null ? currAuthContext.getRangerRolesUtil() : null;
+        RangerAuthContext authContext;
+
+        if (roles != null && currRolesUtil != null && currRolesUtil.getRoles() == roles) { // roles unchanged since the previous engine
+            authContext = new RangerAuthContext(null, zoneMatcher, currRolesUtil, userStore);
+        } else {
+            authContext = new RangerAuthContext(null, zoneMatcher, roles, userStore);
+        }
 
         this.pluginContext.setAuthContext(authContext);
 
@@ -285,6 +293,8 @@ public PolicyEngine(ServicePolicies servicePolicies, RangerPluginContext pluginC
             }
         }
 
+        startBackgroundTasks();
+
         RangerPerfTracer.log(perf);
 
         if (PERF_POLICYENGINE_INIT_LOG.isDebugEnabled()) {
@@ -495,7 +505,8 @@ private PolicyEngine(final PolicyEngine other, ServicePolicies servicePolicies)
         this.serviceDefHelper      = other.serviceDefHelper;
         this.pluginContext         = other.pluginContext;
         this.lock                  = other.lock;
-        this.zoneMatcher           = new RangerSecurityZoneMatcher(servicePolicies.getSecurityZones(), servicePolicies.getServiceDef(), pluginContext);
+        this.zoneMatcher           = other.zoneMatcher.hasSameZones(servicePolicies.getSecurityZones()) ? other.zoneMatcher // retains zones cached for resources
+                                                                                                        : new RangerSecurityZoneMatcher(servicePolicies.getSecurityZones(), servicePolicies.getServiceDef(), pluginContext);
 
         long                    policyVersion                   = servicePolicies.getPolicyVersion() != null ? servicePolicies.getPolicyVersion() : -1L;
         List<RangerPolicyDelta> defaultZoneDeltas               = new ArrayList<>();
@@ -578,6 +589,7 @@ private PolicyEngine(final PolicyEngine other, ServicePolicies servicePolicies)
         this.allContextEnrichers = tmpList;
 
         reorderPolicyEvaluators();
+        startBackgroundTasks();
     }
 
     private RangerPolicyRepository shareWith(RangerPolicyRepository other) {
@@ -612,6 +624,23 @@ private void reorderPolicyEvaluators() {
         }
     }
 
+    private void startBackgroundTasks() {
+        if (policyRepository != null) {
+            policyRepository.startAdaptiveEvalOrder();
+            policyRepository.startInactivePoliciesUpdate();
+        }
+
+        if (tagPolicyRepository != null) {
+            tagPolicyRepository.startAdaptiveEvalOrder();
+            tagPolicyRepository.startInactivePoliciesUpdate();
+        }
+
+        for (RangerPolicyRepository zonePolicyRepository : zonePolicyRepositories.values()) {
+            zonePolicyRepository.startAdaptiveEvalOrder();
+            zonePolicyRepository.startInactivePoliciesUpdate();
+        }
+    }
+
     private void cleanup() {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> PolicyEngine.cleanup()");
@@ -664,6 +693,11 @@ void updatePolicyEngine(ServicePolicies servicePolicies) {
             }
         }
 
+        // policies are now of the version of deltas; results cached for earlier version are discarded on change in version
+        if (this.policyRepository != null && servicePolicies.getPolicyVersion() != null) {
+            this.policyRepository.setPolicyVersion(servicePolicies.getPolicyVersion());
+        }
+
         reorderPolicyEvaluators();
     }
 
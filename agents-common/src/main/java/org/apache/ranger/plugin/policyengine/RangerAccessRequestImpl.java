@@ -166,6 +166,12 @@ public String getSessionId() {
 
 	@Override
 	public Map<String, Object> getContext() {
+		if (context == null) {
+			context = new HashMap<>();
+
+			RangerAccessRequestUtil.setRequestInContext(this);
+		}
+
 		return context;
 	}
 
@@ -206,6 +212,9 @@ public void setAccessType(String accessType) {
 
 	public void setUser(String user) {
 		this.user = user;
+		if (context != null) {
+			RangerAccessRequestUtil.setIsRequestPreprocessed(context, Boolean.FALSE);
+		}
 	}
 
 	public void setUserGroups(Set<String> userGroups) {
@@ -276,16 +285,14 @@ public void setResourceElementMatchingScopes(Map<String, ResourceElementMatching
 	}
 
 	public void setContext(Map<String, Object> context) {
-		if (context == null) {
-			this.context = new HashMap<>();
-		} else {
-			this.context = context;
-		}
+		this.context = context; // when null, the context is created on first getContext()
 
-		RangerAccessRequest current = RangerAccessRequestUtil.getRequestFromContext(this.context);
+		if (context != null) {
+			RangerAccessRequest current = RangerAccessRequestUtil.getRequestFromContext(context);
 
-		if (current == null) {
-			RangerAccessRequestUtil.setRequestInContext(this);
+			if (current == null) {
+				RangerAccessRequestUtil.setRequestInContext(this);
+			}
 		}
 	}
 
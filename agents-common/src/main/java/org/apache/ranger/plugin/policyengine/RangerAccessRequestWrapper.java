@@ -41,6 +41,8 @@ public RangerAccessRequestWrapper(RangerAccessRequest request, String accessType
         this.isAccessTypeDelegatedAdmin = StringUtils.equals(accessType, RangerPolicyEngine.ADMIN_ACCESS);
     }
 
+    public RangerAccessRequest getRequest() { return request; }
+
     @Override
     public RangerAccessResource getResource() { return request.getResource(); }
 
@@ -32,6 +32,7 @@
 public class RangerAccessResourceImpl implements RangerMutableResource {
 	private String              ownerUser;
 	private Map<String, Object> elements;
+	private Map<String, Object> elementsView; // read-only view of elements, returned by getAsMap()
 	private String              stringifiedValue;
 	private String              stringifiedCacheKeyValue;
 	private String              leafName;
@@ -106,6 +107,7 @@ public void setValue(String name, Object value) {
 
 		// reset, so that these will be computed again with updated elements
 		stringifiedValue = stringifiedCacheKeyValue = leafName = null;
+		elementsView     = null;
 	}
 
 	@Override
@@ -201,7 +203,15 @@ public String getCacheKey() {
 
 	@Override
 	public Map<String, Object> getAsMap() {
-		return elements == null ? Collections.EMPTY_MAP : Collections.unmodifiableMap(elements);
+		Map<String, Object> ret = elementsView;
+
+		if (ret == null) {
+			ret = elements == null ? Collections.EMPTY_MAP : Collections.unmodifiableMap(elements);
+
+			elementsView = ret;
+		}
+
+		return ret;
 	}
 
 	@Override
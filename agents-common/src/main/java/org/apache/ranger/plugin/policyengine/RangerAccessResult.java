@@ -80,9 +80,8 @@ public void setAccessResultFrom(final RangerAccessResult other) {
 		this.policyPriority = other.getPolicyPriority();
 		this.zoneName       = other.zoneName;
 		this.policyVersion  = other.policyVersion;
-		this.evaluatedPoliciesCount = other.evaluatedPoliciesCount;
 		this.reason      = other.getReason();
-		this.additionalInfo = other.additionalInfo == null ? new HashMap<String, Object>() : new HashMap<>(other.additionalInfo);
+		this.additionalInfo = MapUtils.isEmpty(other.additionalInfo) ? null : new HashMap<>(other.additionalInfo); // created on first addAdditionalInfo()
 	}
 
 	public void setAuditResultFrom(final RangerAccessResult other) {
@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerGdsEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent cache of access decisions made by RangerPolicyEngineImpl.
+ *
+ * Cached results are valid only for the versions of policies, tags, roles, user-store and GDS info
+ * that were in effect when they were computed; a change in any of these replaces the whole cache
+ * atomically. Requests whose result can depend on the request context - like access-time, client IP,
+ * or other policy conditions - are not cached.
+ */
+public class RangerAccessResultCache {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerAccessResultCache.class);
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private final PolicyEngine                policyEngine;
+    private final int                         maxSize;
+    private final AtomicReference<Generation> generation;
+    private final LongAdder                   hitCount          = new LongAdder();
+    private final LongAdder                   missCount         = new LongAdder();
+    private final LongAdder                   bypassCount       = new LongAdder();
+    private final LongAdder                   evictionCount     = new LongAdder();
+    private final LongAdder                   invalidationCount = new LongAdder();
+
+    public RangerAccessResultCache(PolicyEngine policyEngine, int maxSize) {
+        this.policyEngine = policyEngine;
+        this.maxSize      = maxSize > 0 ? maxSize : DEFAULT_MAX_SIZE;
+        this.generation   = new AtomicReference<>(new Generation(getCurrentVersions()));
+
+        LOG.info("RangerAccessResultCache(serviceName={}): maxSize={}", policyEngine.getServiceName(), this.maxSize);
+    }
+
+    /*
+     * returns null if the result for the given request can't be cached
+     */
+    public CacheKey getCacheKey(RangerAccessRequest request, int policyType) {
+        return getCacheKey(getCurrentGeneration(), request, policyType);
+    }
+
+    /*
+     * generation should be obtained, with getCurrentGeneration(), before the request is enriched with tags, user-store, etc.
+     * Otherwise a result computed with older tags could be cached in the generation of newer tags.
+     */
+    CacheKey getCacheKey(Generation generation, RangerAccessRequest request, int policyType) {
+        final CacheKey ret;
+
+        if (isCacheable(request)) {
+            RangerAccessResource resource = request.getResource();
+
+            ret = new CacheKey(generation, request.getUser(), request.getUserGroups(), RangerAccessRequestUtil.getUserRoles(request),
+                               resource.getCacheKey(), resource.getOwnerUser(), request.getAccessType(), policyType,
+                               request.getResourceMatchingScope(), request.getResourceElementMatchingScopes());
+        } else {
+            ret = null;
+
+            bypassCount.increment();
+        }
+
+        return ret;
+    }
+
+    public RangerAccessResult get(CacheKey key, RangerAccessRequest request) {
+        CachedResult       cached = key.generation.results.get(key);
+        RangerAccessResult ret    = null;
+
+        if (cached != null) {
+            cached.isRecentlyUsed = true;
+
+            ret = cached.toResult(request);
+
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("RangerAccessResultCache.get({}): {}", key, ret);
+        }
+
+        return ret;
+    }
+
+    public void put(CacheKey key, RangerAccessResult result) {
+        if (result == null || RangerAccessRequestUtil.getIsContextSensitiveEvaluation(result.getAccessRequest().getContext())) {
+            bypassCount.increment();
+        } else if (key.generation != getCurrentGeneration()) { // versions changed while the request was evaluated; result might be of earlier versions
+            bypassCount.increment();
+        } else {
+            Generation generation = key.generation;
+
+            generation.results.put(key, new CachedResult(result));
+
+            if (generation.results.size() > maxSize) {
+                evict(generation);
+            }
+        }
+    }
+
+    public void clear() {
+        generation.set(new Generation(getCurrentVersions()));
+
+        invalidationCount.increment();
+    }
+
+    public int getMaxSize() { return maxSize; }
+
+    public int getSize() { return generation.get().results.size(); }
+
+    public long getHitCount() { return hitCount.sum(); }
+
+    public long getMissCount() { return missCount.sum(); }
+
+    public long getBypassCount() { return bypassCount.sum(); }
+
+    public long getEvictionCount() { return evictionCount.sum(); }
+
+    public long getInvalidationCount() { return invalidationCount.sum(); }
+
+    @Override
+    public String toString() {
+        return "RangerAccessResultCache={maxSize=" + maxSize + ", size=" + getSize() + ", hitCount=" + getHitCount() + ", missCount=" + getMissCount()
+                + ", bypassCount=" + getBypassCount() + ", evictionCount=" + getEvictionCount() + ", invalidationCount=" + getInvalidationCount() + "}";
+    }
+
+    Generation getCurrentGeneration() {
+        Generation ret      = generation.get();
+        Versions   versions = getCurrentVersions();
+
+        if (!ret.versions.equals(versions)) {
+            Generation newGeneration = new Generation(versions);
+
+            if (generation.compareAndSet(ret, newGeneration)) {
+                invalidationCount.increment();
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("RangerAccessResultCache: versions changed from {} to {}. Discarded {} cached results", ret.versions, versions, ret.results.size());
+                }
+
+                ret = newGeneration;
+            } else {
+                ret = generation.get();
+            }
+        }
+
+        return ret;
+    }
+
+    private boolean isCacheable(RangerAccessRequest request) {
+        boolean ret = request.getResource() != null && !request.isAccessTypeAny();
+
+        if (ret) {
+            Map<String, Object> context = request.getContext();
+
+            // results for multiple access-types are collected in the request context; these are not cached
+            ret = context.get(RangerAccessRequestUtil.KEY_CONTEXT_ALL_ACCESSTYPES) == null &&
+                  CollectionUtils.isEmpty(RangerAccessRequestUtil.getAllRequestedAccessTypeGroups(request)) &&
+                  CollectionUtils.isEmpty(RangerAccessRequestUtil.getIgnoreIfNotDeniedAccessTypes(request));
+
+            if (ret) {
+                Set<RangerTagForEval> tags = RangerAccessRequestUtil.getRequestTagsFromContext(context);
+
+                if (tags != null) {
+                    for (RangerTagForEval tag : tags) {
+                        if (CollectionUtils.isNotEmpty(tag.getValidityPeriods())) { // applicability of the tag depends on access-time
+                            ret = false;
+
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private void evict(Generation generation) {
+        // second-chance eviction: entries used since the previous sweep are spared in the first pass, but not in the second
+        for (int pass = 0; pass < 2 && generation.results.size() > maxSize; pass++) {
+            Iterator<CachedResult> iter = generation.results.values().iterator();
+
+            while (iter.hasNext() && generation.results.size() > maxSize) {
+                CachedResult cached = iter.next();
+
+                if (pass == 0 && cached.isRecentlyUsed) {
+                    cached.isRecentlyUsed = false;
+                } else {
+                    iter.remove();
+
+                    evictionCount.increment();
+                }
+            }
+        }
+    }
+
+    private Versions getCurrentVersions() {
+        RangerPluginContext pluginContext = policyEngine.getPluginContext();
+        RangerAuthContext   authContext   = pluginContext != null ? pluginContext.getAuthContext() : null;
+        long                tagVersion    = -1;
+        long                gdsVersion    = -1;
+
+        List<RangerContextEnricher> enrichers = policyEngine.getAllContextEnrichers();
+
+        if (enrichers != null) {
+            for (RangerContextEnricher enricher : enrichers) {
+                if (enricher instanceof RangerTagEnricher) {
+                    Long version = ((RangerTagEnricher) enricher).getServiceTagsVersion();
+
+                    tagVersion = version != null ? version : -1;
+                } else if (enricher instanceof RangerGdsEnricher) {
+                    Long version = ((RangerGdsEnricher) enricher).getGdsVersion();
+
+                    gdsVersion = version != null ? version : -1;
+                }
+            }
+        }
+
+        return new Versions(policyEngine.getPolicyVersion(), tagVersion, gdsVersion,
+                            authContext != null ? authContext.getRangerRolesUtil() : null,
+                            authContext != null ? authContext.getUserStoreUtil() : null);
+    }
+
+    public static class CacheKey {
+        private final Generation                                                      generation;
+        private final String                                                          user;
+        private final Set<String>                                                     userGroups;
+        private final Set<String>                                                     userRoles;
+        private final String                                                          resource;
+        private final String                                                          owner;
+        private final String                                                          accessType;
+        private final int                                                             policyType;
+        private final RangerAccessRequest.ResourceMatchingScope                       matchingScope;
+        private final Map<String, RangerAccessRequest.ResourceElementMatchingScope> elementMatchingScopes;
+        private final int                                                             hashCode;
+
+        CacheKey(Generation generation, String user, Set<String> userGroups, Set<String> userRoles, String resource, String owner, String accessType, int policyType,
+                 RangerAccessRequest.ResourceMatchingScope matchingScope, Map<String, RangerAccessRequest.ResourceElementMatchingScope> elementMatchingScopes) {
+            this.generation            = generation;
+            this.user                  = user;
+            this.userGroups            = userGroups != null ? userGroups : Collections.emptySet();
+            this.userRoles             = userRoles != null ? userRoles : Collections.emptySet();
+            this.resource              = resource;
+            this.owner                 = owner;
+            this.accessType            = accessType;
+            this.policyType            = policyType;
+            this.matchingScope         = matchingScope;
+            this.elementMatchingScopes = MapUtils.isNotEmpty(elementMatchingScopes) ? elementMatchingScopes : Collections.emptyMap();
+            this.hashCode              = Objects.hash(user, this.userGroups, this.userRoles, resource, owner, accessType, policyType, matchingScope, this.elementMatchingScopes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+
+            CacheKey other = (CacheKey) obj;
+
+            return hashCode == other.hashCode &&
+                   policyType == other.policyType &&
+                   Objects.equals(user, other.user) &&
+                   Objects.equals(resource, other.resource) &&
+                   Objects.equals(accessType, other.accessType) &&
+                   Objects.equals(owner, other.owner) &&
+                   Objects.equals(matchingScope, other.matchingScope) &&
+                   Objects.equals(userGroups, other.userGroups) &&
+                   Objects.equals(userRoles, other.userRoles) &&
+                   Objects.equals(elementMatchingScopes, other.elementMatchingScopes);
+        }
+
+        @Override
+        public String toString() {
+            return "CacheKey={user=" + user + ", userGroups=" + userGroups + ", userRoles=" + userRoles + ", resource=" + resource + ", owner=" + owner
+                    + ", accessType=" + accessType + ", policyType=" + policyType + ", matchingScope=" + matchingScope + ", elementMatchingScopes=" + elementMatchingScopes + "}";
+        }
+    }
+
+    static class Generation {
+        final Versions                    versions;
+        final Map<CacheKey, CachedResult> results = new ConcurrentHashMap<>();
+
+        Generation(Versions versions) {
+            this.versions = versions;
+        }
+    }
+
+    private static class Versions {
+        final long   policyVersion;
+        final long   tagVersion;
+        final long   gdsVersion;
+        final Object roles;     // RangerRolesUtil is replaced on every change to roles
+        final Object userStore; // RangerUserStoreUtil is replaced on every change to user-store
+
+        Versions(long policyVersion, long tagVersion, long gdsVersion, Object roles, Object userStore) {
+            this.policyVersion = policyVersion;
+            this.tagVersion    = tagVersion;
+            this.gdsVersion    = gdsVersion;
+            this.roles         = roles;
+            this.userStore     = userStore;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(policyVersion, tagVersion, gdsVersion);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof Versions)) {
+                return false;
+            }
+
+            Versions other = (Versions) obj;
+
+            return policyVersion == other.policyVersion &&
+                   tagVersion == other.tagVersion &&
+                   gdsVersion == other.gdsVersion &&
+                   roles == other.roles &&
+                   userStore == other.userStore;
+        }
+
+        @Override
+        public String toString() {
+            return "{policyVersion=" + policyVersion + ", tagVersion=" + tagVersion + ", gdsVersion=" + gdsVersion + "}";
+        }
+    }
+
+    private static class CachedResult {
+        final RangerAccessResult result;
+        volatile boolean         isRecentlyUsed;
+
+        CachedResult(RangerAccessResult source) {
+            result = new RangerAccessResult(source.getPolicyType(), source.getServiceName(), source.getServiceDef(), null);
+
+            result.setAccessResultFrom(source);
+            result.setAuditResultFrom(source);
+        }
+
+        RangerAccessResult toResult(RangerAccessRequest request) {
+            RangerAccessResult ret = new RangerAccessResult(result.getPolicyType(), result.getServiceName(), result.getServiceDef(), request);
+
+            ret.setAccessResultFrom(result);
+            ret.setAuditResultFrom(result);
+
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluatorStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Order of evaluation of access policies, adapted to statistics of their evaluations: among evaluators having the same
+ * priority and same hasDeny(), those that decide access more often, at a lower evalOrder, are evaluated first. Order of
+ * evaluators having different priority or hasDeny() is same as in EVAL_ORDER_COMPARATOR - which already leaves the
+ * order within such a group to evalOrder, a heuristic; hence only the number of evaluators evaluated before the access
+ * is determined changes, not the semantics of deny and priority.
+ *
+ * An instance is immutable: a repository replaces its order periodically, while requests are being evaluated with the
+ * earlier one. Statistics are folded, and orders computed, in a single background thread shared by all repositories.
+ */
+final class RangerAdaptiveEvalOrder implements Comparator<RangerPolicyEvaluator> {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerAdaptiveEvalOrder.class);
+
+    static final double DECAY_FACTOR = 0.5;
+
+    private static final Integer UNRANKED = Integer.MAX_VALUE;
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ranger-adaptive-eval-order");
+
+        t.setDaemon(true);
+
+        return t;
+    });
+
+    private final List<RangerPolicyEvaluator>         evaluators;
+    private final Map<RangerPolicyEvaluator, Integer> ranks;
+    private final Comparator<PolicyEvaluatorForTag>   tagEvaluatorComparator;
+
+    RangerAdaptiveEvalOrder(List<RangerPolicyEvaluator> evaluators) {
+        final Map<RangerPolicyEvaluator, Double> scores = new IdentityHashMap<>(evaluators.size());
+
+        for (RangerPolicyEvaluator evaluator : evaluators) {
+            scores.put(evaluator, getScore(evaluator));
+        }
+
+        List<RangerPolicyEvaluator> ordered = new ArrayList<>(evaluators);
+
+        ordered.sort((me, other) -> {
+            int ret = compareGroups(me, other);
+
+            if (ret == 0) {
+                ret = Double.compare(scores.get(other), scores.get(me));
+
+                if (ret == 0) {
+                    ret = RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR.compare(me, other);
+                }
+            }
+
+            return ret;
+        });
+
+        this.evaluators             = Collections.unmodifiableList(ordered);
+        this.ranks                  = new IdentityHashMap<>(ordered.size());
+        this.tagEvaluatorComparator = (me, other) -> compare(me.getEvaluator(), other.getEvaluator());
+
+        for (RangerPolicyEvaluator evaluator : ordered) {
+            ranks.put(evaluator, ranks.size());
+        }
+    }
+
+    /*
+     * folds statistics of the given evaluators into decayed totals and returns the order computed from them
+     */
+    static RangerAdaptiveEvalOrder compute(List<RangerPolicyEvaluator> evaluators) {
+        for (RangerPolicyEvaluator evaluator : evaluators) {
+            RangerPolicyEvaluatorStats stats = evaluator.getEvalStats();
+
+            if (stats != null) {
+                stats.decay(DECAY_FACTOR);
+            }
+        }
+
+        return new RangerAdaptiveEvalOrder(evaluators);
+    }
+
+    /*
+     * periodically updates evaluation order of the repository, until the returned task is cancelled or the repository
+     * is garbage collected
+     */
+    static ScheduledFuture<?> schedule(RangerPolicyRepository repository, long intervalMs) {
+        ReorderTask task = new ReorderTask(repository);
+
+        task.future = EXECUTOR.scheduleWithFixedDelay(task, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+
+        return task.future;
+    }
+
+    List<RangerPolicyEvaluator> getEvaluators() { return evaluators; }
+
+    Comparator<PolicyEvaluatorForTag> getTagEvaluatorComparator() { return tagEvaluatorComparator; }
+
+    @Override
+    public int compare(RangerPolicyEvaluator me, RangerPolicyEvaluator other) {
+        int ret = compareGroups(me, other);
+
+        if (ret == 0) {
+            // evaluators added after this order was computed are evaluated after others in their group
+            ret = Integer.compare(ranks.getOrDefault(me, UNRANKED), ranks.getOrDefault(other, UNRANKED));
+
+            if (ret == 0) {
+                ret = RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR.compare(me, other);
+            }
+        }
+
+        return ret;
+    }
+
+    public StringBuilder toString(StringBuilder sb) {
+        sb.append("RangerAdaptiveEvalOrder={");
+
+        int order = 0;
+
+        for (RangerPolicyEvaluator evaluator : evaluators) {
+            sb.append("#").append(++order)
+              .append(" {policyId=").append(evaluator.getPolicyId())
+              .append(", priority=").append(evaluator.getPolicyPriority())
+              .append(", hasDeny=").append(evaluator.hasDeny())
+              .append(", evalOrder=").append(evaluator.getEvalOrder())
+              .append(", stats=").append(evaluator.getEvalStats())
+              .append("} ");
+        }
+
+        sb.append("}");
+
+        return sb;
+    }
+
+    @Override
+    public String toString() {
+        return toString(new StringBuilder()).toString();
+    }
+
+    // same as the order of groups in EVAL_ORDER_COMPARATOR: higher priority first, then evaluators having deny items
+    private static int compareGroups(RangerPolicyEvaluator me, RangerPolicyEvaluator other) {
+        int ret = Integer.compare(other.getPolicyPriority(), me.getPolicyPriority());
+
+        return ret == 0 ? Boolean.compare(other.hasDeny(), me.hasDeny()) : ret;
+    }
+
+    // likelihood of deciding the access per unit of cost estimated by evalOrder
+    private static double getScore(RangerPolicyEvaluator evaluator) {
+        RangerPolicyEvaluatorStats stats        = evaluator.getEvalStats();
+        double                     decisionRate = stats != null ? stats.getDecisionRate() : 0.5;
+
+        return decisionRate / Math.max(evaluator.getEvalOrder(), 1);
+    }
+
+    private static class ReorderTask implements Runnable {
+        private final    WeakReference<RangerPolicyRepository> repository;
+        private volatile ScheduledFuture<?>                    future;
+
+        ReorderTask(RangerPolicyRepository repository) {
+            this.repository = new WeakReference<>(repository);
+        }
+
+        @Override
+        public void run() {
+            RangerPolicyRepository repository = this.repository.get();
+
+            if (repository == null) {
+                ScheduledFuture<?> future = this.future;
+
+                if (future != null) {
+                    future.cancel(false);
+                }
+            } else {
+                try {
+                    repository.updateAdaptiveEvalOrder();
+                } catch (Throwable excp) { // an exception would suppress subsequent executions
+                    LOG.error("failed to update evaluation order of policies in repository(serviceName=" + repository.getServiceName() + ")", excp);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Policies that are not applicable, as per their validity schedules, during a time period: from the time this instance
+ * was computed until the earliest time at which one of these policies might become applicable. Requests having access
+ * time in this period skip these policies, without evaluating their validity schedules; requests having other access
+ * times, like those evaluated with an earlier access time, see all policies - as without this instance.
+ *
+ * An instance is immutable: a repository replaces its instance when the applicability of one of its policies changes,
+ * from a single background thread shared by all repositories - similar to RangerAdaptiveEvalOrder.
+ */
+final class RangerInactivePolicies {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerInactivePolicies.class);
+
+    static final long MIN_UPDATE_DELAY_MS = 1000;
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ranger-inactive-policies");
+
+        t.setDaemon(true);
+
+        return t;
+    });
+
+    private final Set<RangerPolicyEvaluator> evaluators;
+    private final long                       validFrom;      // inclusive
+    private final long                       validUntil;     // exclusive
+    private final long                       nextChangeTime; // earliest time at which applicability of any of the policies might change
+
+    private RangerInactivePolicies(Set<RangerPolicyEvaluator> evaluators, long validFrom, long validUntil, long nextChangeTime) {
+        this.evaluators     = evaluators;
+        this.validFrom      = validFrom;
+        this.validUntil     = validUntil;
+        this.nextChangeTime = nextChangeTime;
+    }
+
+    /*
+     * finds policies that are not applicable at the given time
+     */
+    static RangerInactivePolicies compute(Collection<RangerPolicyEvaluator> evaluators, long now) {
+        Set<RangerPolicyEvaluator> inactiveEvaluators = Collections.newSetFromMap(new IdentityHashMap<>());
+        long                       validUntil         = Long.MAX_VALUE;
+        long                       nextChangeTime     = Long.MAX_VALUE;
+        Date                       accessTime         = new Date(now);
+
+        for (RangerPolicyEvaluator evaluator : evaluators) {
+            if (evaluator.getValidityScheduleEvaluatorsCount() == 0) { // always applicable
+                continue;
+            }
+
+            long changeTime = evaluator.getNextApplicabilityChangeTime(now);
+
+            if (!evaluator.isApplicable(accessTime)) {
+                inactiveEvaluators.add(evaluator);
+
+                validUntil = Math.min(validUntil, changeTime);
+            }
+
+            nextChangeTime = Math.min(nextChangeTime, changeTime);
+        }
+
+        return new RangerInactivePolicies(inactiveEvaluators, now, validUntil, nextChangeTime);
+    }
+
+    /*
+     * keeps inactive policies of the repository updated, until the returned task is cancelled or the repository is
+     * garbage collected
+     */
+    static UpdateTask schedule(RangerPolicyRepository repository) {
+        UpdateTask task = new UpdateTask(repository);
+
+        task.scheduleAt(System.currentTimeMillis());
+
+        return task;
+    }
+
+    boolean isInactive(RangerPolicyEvaluator evaluator, long accessTime) {
+        return accessTime >= validFrom && accessTime < validUntil && evaluators.contains(evaluator);
+    }
+
+    boolean isEmpty() { return evaluators.isEmpty(); }
+
+    Set<RangerPolicyEvaluator> getEvaluators() { return evaluators; }
+
+    long getValidUntil() { return validUntil; }
+
+    long getNextChangeTime() { return nextChangeTime; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("RangerInactivePolicies={policyIds=[");
+
+        for (RangerPolicyEvaluator evaluator : evaluators) {
+            sb.append(evaluator.getPolicyId()).append(" ");
+        }
+
+        sb.append("], validFrom=").append(validFrom).append(", validUntil=").append(validUntil).append(", nextChangeTime=").append(nextChangeTime).append("}");
+
+        return sb.toString();
+    }
+
+    static class UpdateTask implements Runnable {
+        private final WeakReference<RangerPolicyRepository> repository;
+        private       ScheduledFuture<?>                    future;
+        private       boolean                               isCancelled;
+
+        UpdateTask(RangerPolicyRepository repository) {
+            this.repository = new WeakReference<>(repository);
+        }
+
+        @Override
+        public void run() {
+            RangerPolicyRepository repository = this.repository.get();
+
+            if (repository != null) {
+                long nextChangeTime;
+
+                try {
+                    nextChangeTime = repository.updateInactivePolicies(System.currentTimeMillis());
+                } catch (Throwable excp) { // retry later, as the update is scheduled only after a successful one
+                    LOG.error("failed to update inactive policies in repository(serviceName=" + repository.getServiceName() + ")", excp);
+
+                    nextChangeTime = System.currentTimeMillis() + MIN_UPDATE_DELAY_MS;
+                }
+
+                if (nextChangeTime != Long.MAX_VALUE) {
+                    scheduleAt(nextChangeTime);
+                }
+            }
+        }
+
+        /*
+         * updates inactive policies at the given time, replacing the earlier scheduled update if any; used when policies
+         * of the repository are updated
+         */
+        synchronized void scheduleAt(long time) {
+            if (!isCancelled) {
+                if (future != null) {
+                    future.cancel(false);
+                }
+
+                long delayMs = Math.max(time - System.currentTimeMillis(), future == null ? 0 : MIN_UPDATE_DELAY_MS);
+
+                future = EXECUTOR.schedule(this, delayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        synchronized void cancel() {
+            isCancelled = true;
+
+            if (future != null) {
+                future.cancel(false);
+
+                future = null;
+            }
+        }
+    }
+}
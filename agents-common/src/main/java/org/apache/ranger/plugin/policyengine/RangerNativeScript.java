@@ -0,0 +1,493 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.plugin.util.RangerTimeRangeChecker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_VAR_TAG;
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_VAR_USER;
+import static org.apache.ranger.plugin.util.RangerCommonConstants.SCRIPT_VAR_ctx;
+
+/*
+ * Script of a policy condition or request expression, compiled into Java - to be evaluated without a script engine.
+ * Only the following subset of the script language is supported, after expansion of macros like HAS_TAG and IS_IN_GROUP:
+ *   - literals: 'string', "string", true, false
+ *   - attributes of the user and of the current tag: USER.dept, USER['dept'], TAG.level, TAG['level']
+ *   - calls to ctx methods listed in FUNCTIONS, with literal string arguments: ctx.isInGroup('finance')
+ *   - operators: ==, !=, ===, !==, !, &&, || and parentheses
+ *
+ * compile() returns null for scripts that use anything else; such scripts must be evaluated with a script engine.
+ */
+public final class RangerNativeScript {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerNativeScript.class);
+
+    private static final Map<String, Function<String[], Expr>> FUNCTIONS = new HashMap<>();
+
+    private final String script;
+    private final Expr   expr;
+
+    static {
+        addFunction("hasAnyTag", 0, args -> bool(ev -> ev.hasAnyTag()));
+        addFunction("hasTag", 1, args -> bool(ev -> ev.hasTag(args[0])));
+        addFunction("hasTagAttr", 1, args -> bool(ev -> ev.hasTagAttr(args[0])));
+        addFunction("hasUserAttr", 1, args -> bool(ev -> ev.hasUserAttr(args[0])));
+        addFunction("hasUgAttr", 1, args -> bool(ev -> ev.hasUgAttr(args[0])));
+        addFunction("isInAnyGroup", 0, args -> bool(ev -> ev.isInAnyGroup()));
+        addFunction("isInAnyRole", 0, args -> bool(ev -> ev.isInAnyRole()));
+        addFunction("isInGroup", 1, args -> bool(ev -> ev.isInGroup(args[0])));
+        addFunction("isInRole", 1, args -> bool(ev -> ev.isInRole(args[0])));
+        addFunction("isAccessTypeAny", 0, args -> bool(ev -> ev.isAccessTypeAny()));
+        addFunction("isAccessTypeDelegatedAdmin", 0, args -> bool(ev -> ev.isAccessTypeDelegatedAdmin()));
+        addFunction("isAccessedAfter", 1, args -> bool(ev -> ev.isAccessedAfter(args[0])));
+        addFunction("isAccessedAfter", 2, args -> bool(ev -> ev.isAccessedAfter(args[0], args[1])));
+        addFunction("isAccessedBefore", 1, args -> bool(ev -> ev.isAccessedBefore(args[0])));
+        addFunction("isAccessedBefore", 2, args -> bool(ev -> ev.isAccessedBefore(args[0], args[1])));
+        addFunction("isAccessTimeAfter", 1, args -> accessTimeBetween(args[0], null, null));
+        addFunction("isAccessTimeAfter", 2, args -> accessTimeBetween(args[0], null, args[1]));
+        addFunction("isAccessTimeBefore", 1, args -> accessTimeBetween(null, args[0], null));
+        addFunction("isAccessTimeBefore", 2, args -> accessTimeBetween(null, args[0], args[1]));
+        addFunction("isAccessTimeBetween", 2, args -> accessTimeBetween(args[0], args[1], null));
+        addFunction("isAccessTimeBetween", 3, args -> accessTimeBetween(args[0], args[1], args[2]));
+        addFunction("getAction", 0, args -> value(ev -> ev.getAction()));
+        addFunction("getClientIPAddress", 0, args -> value(ev -> ev.getClientIPAddress()));
+        addFunction("getClientType", 0, args -> value(ev -> ev.getClientType()));
+        addFunction("getCurrentTagType", 0, args -> value(ev -> ev.getCurrentTagType()));
+        addFunction("getUser", 0, args -> value(ev -> ev.getUser()));
+    }
+
+    private RangerNativeScript(String script, Expr expr) {
+        this.script = script;
+        this.expr   = expr;
+    }
+
+    /*
+     * returns the compiled script, or null if the script uses anything other than the supported subset
+     */
+    public static RangerNativeScript compile(String script) {
+        RangerNativeScript ret = null;
+
+        if (script != null) {
+            try {
+                Expr expr = new Parser(RangerRequestScriptEvaluator.expandMacros(script)).parse();
+
+                ret = new RangerNativeScript(script, expr);
+            } catch (UnsupportedScriptException excp) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("RangerNativeScript.compile({}): not supported - {}", script, excp.getMessage());
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * returns the compiled script, or null if the script uses anything other than the supported subset or doesn't
+     * evaluate to a boolean
+     */
+    public static RangerNativeScript compileCondition(String script) {
+        RangerNativeScript ret = compile(script);
+
+        return ret != null && ret.expr.isBoolean ? ret : null;
+    }
+
+    public String getScript() { return script; }
+
+    public Object evaluate(RangerRequestScriptEvaluator evaluator) {
+        return expr.eval(evaluator);
+    }
+
+    @Override
+    public String toString() {
+        return "RangerNativeScript={script=" + script + "}";
+    }
+
+    private static void addFunction(String name, int argCount, Function<String[], Expr> factory) {
+        FUNCTIONS.put(name + "/" + argCount, factory);
+    }
+
+    private static Expr bool(Function<RangerRequestScriptEvaluator, Boolean> fn) {
+        return new Expr(true, fn::apply);
+    }
+
+    private static Expr value(Function<RangerRequestScriptEvaluator, Object> fn) {
+        return new Expr(false, fn);
+    }
+
+    private static Expr userAttribute(String attrName) {
+        return value(ev -> ev.getUserAttribute(attrName));
+    }
+
+    private static Expr tagAttribute(String attrName) {
+        return value(ev -> ev.getCurrentTagAttribute(attrName));
+    }
+
+    // time range is parsed once, instead of in every call to RangerRequestScriptEvaluator.isAccessTimeBetween()
+    private static Expr accessTimeBetween(String fromTime, String toTime, String timeZone) {
+        RangerTimeRangeChecker checker = new RangerTimeRangeChecker(fromTime, toTime, timeZone);
+
+        return bool(ev -> checker.isInRange(ev.getAccessTime().getTime()));
+    }
+
+    private static class Expr {
+        final boolean                                        isBoolean;
+        final Function<RangerRequestScriptEvaluator, Object> fn;
+
+        Expr(boolean isBoolean, Function<RangerRequestScriptEvaluator, Object> fn) {
+            this.isBoolean = isBoolean;
+            this.fn        = fn;
+        }
+
+        Object eval(RangerRequestScriptEvaluator evaluator) {
+            return fn.apply(evaluator);
+        }
+    }
+
+    private enum TokenType { IDENTIFIER, STRING, OPERATOR, END }
+
+    private static class Token {
+        final TokenType type;
+        final String    text;
+
+        Token(TokenType type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+
+        boolean is(String operator) {
+            return type == TokenType.OPERATOR && text.equals(operator);
+        }
+    }
+
+    /*
+     * recursive-descent parser for the supported subset:
+     *   script     := or [';']
+     *   or         := and ('||' and)*
+     *   and        := unary ('&&' unary)*
+     *   unary      := '!' unary | comparison
+     *   comparison := primary [('==' | '!=' | '===' | '!==') primary]
+     *   primary    := '(' or ')' | STRING | 'true' | 'false' | attribute | call
+     *   attribute  := ('USER' | 'TAG') ('.' IDENTIFIER | '[' STRING ']')
+     *   call       := 'ctx' '.' IDENTIFIER '(' [STRING (',' STRING)*] ')'
+     */
+    private static class Parser {
+        private final List<Token> tokens;
+        private       int         pos = 0;
+
+        Parser(String script) throws UnsupportedScriptException {
+            this.tokens = tokenize(script);
+        }
+
+        Expr parse() throws UnsupportedScriptException {
+            Expr ret = parseOr();
+
+            accept(";");
+
+            if (peek().type != TokenType.END) {
+                throw new UnsupportedScriptException("unexpected token '" + peek().text + "'");
+            }
+
+            return ret;
+        }
+
+        private Expr parseOr() throws UnsupportedScriptException {
+            Expr ret = parseAnd();
+
+            while (accept("||")) {
+                Expr left  = requireBoolean(ret);
+                Expr right = requireBoolean(parseAnd());
+
+                ret = bool(ev -> (Boolean) left.eval(ev) || (Boolean) right.eval(ev));
+            }
+
+            return ret;
+        }
+
+        private Expr parseAnd() throws UnsupportedScriptException {
+            Expr ret = parseUnary();
+
+            while (accept("&&")) {
+                Expr left  = requireBoolean(ret);
+                Expr right = requireBoolean(parseUnary());
+
+                ret = bool(ev -> (Boolean) left.eval(ev) && (Boolean) right.eval(ev));
+            }
+
+            return ret;
+        }
+
+        private Expr parseUnary() throws UnsupportedScriptException {
+            final Expr ret;
+
+            if (accept("!")) {
+                Expr operand = requireBoolean(parseUnary());
+
+                ret = bool(ev -> !(Boolean) operand.eval(ev));
+            } else {
+                ret = parseComparison();
+            }
+
+            return ret;
+        }
+
+        private Expr parseComparison() throws UnsupportedScriptException {
+            Expr  ret   = parsePrimary();
+            Token token = peek();
+
+            if (token.is("==") || token.is("!=") || token.is("===") || token.is("!==")) {
+                pos++;
+
+                Expr    left   = ret;
+                Expr    right  = parsePrimary();
+                boolean negate = token.text.startsWith("!");
+
+                // loose and strict equality are the same for strings, booleans and undefined; mixing these is not supported
+                if (left.isBoolean != right.isBoolean) {
+                    throw new UnsupportedScriptException("comparison of boolean with non-boolean");
+                }
+
+                ret = bool(ev -> Objects.equals(left.eval(ev), right.eval(ev)) != negate);
+            }
+
+            return ret;
+        }
+
+        private Expr parsePrimary() throws UnsupportedScriptException {
+            final Expr  ret;
+            final Token token = next();
+
+            if (token.is("(")) {
+                ret = parseOr();
+
+                expect(")");
+            } else if (token.type == TokenType.STRING) {
+                ret = value(ev -> token.text);
+            } else if (token.type == TokenType.IDENTIFIER) {
+                switch (token.text) {
+                    case "true":
+                        ret = bool(ev -> Boolean.TRUE);
+                        break;
+
+                    case "false":
+                        ret = bool(ev -> Boolean.FALSE);
+                        break;
+
+                    case SCRIPT_VAR_USER:
+                        ret = userAttribute(parseAttributeName());
+                        break;
+
+                    case SCRIPT_VAR_TAG:
+                        ret = tagAttribute(parseAttributeName());
+                        break;
+
+                    case SCRIPT_VAR_ctx:
+                        ret = parseCall();
+                        break;
+
+                    default:
+                        throw new UnsupportedScriptException("unsupported identifier '" + token.text + "'");
+                }
+            } else {
+                throw new UnsupportedScriptException("unexpected token '" + token.text + "'");
+            }
+
+            return ret;
+        }
+
+        private String parseAttributeName() throws UnsupportedScriptException {
+            final Token ret;
+
+            if (accept(".")) {
+                ret = next();
+
+                if (ret.type != TokenType.IDENTIFIER) {
+                    throw new UnsupportedScriptException("expected attribute name, found '" + ret.text + "'");
+                }
+            } else {
+                expect("[");
+
+                ret = next();
+
+                if (ret.type != TokenType.STRING) {
+                    throw new UnsupportedScriptException("expected attribute name, found '" + ret.text + "'");
+                }
+
+                expect("]");
+            }
+
+            return ret.text;
+        }
+
+        private Expr parseCall() throws UnsupportedScriptException {
+            expect(".");
+
+            Token        name = next();
+            List<String> args = new ArrayList<>();
+
+            expect("(");
+
+            if (!accept(")")) {
+                do {
+                    Token arg = next();
+
+                    if (arg.type != TokenType.STRING) {
+                        throw new UnsupportedScriptException("unsupported argument '" + arg.text + "' to ctx." + name.text + "()");
+                    }
+
+                    args.add(arg.text);
+                } while (accept(","));
+
+                expect(")");
+            }
+
+            Function<String[], Expr> factory = FUNCTIONS.get(name.text + "/" + args.size());
+
+            if (factory == null) {
+                throw new UnsupportedScriptException("unsupported function ctx." + name.text + "() with " + args.size() + " arguments");
+            }
+
+            return factory.apply(args.toArray(new String[0]));
+        }
+
+        private Expr requireBoolean(Expr expr) throws UnsupportedScriptException {
+            if (!expr.isBoolean) {
+                throw new UnsupportedScriptException("logical operator on non-boolean operand");
+            }
+
+            return expr;
+        }
+
+        private Token peek() {
+            return tokens.get(pos);
+        }
+
+        private Token next() {
+            Token ret = tokens.get(pos);
+
+            if (ret.type != TokenType.END) {
+                pos++;
+            }
+
+            return ret;
+        }
+
+        private boolean accept(String operator) {
+            boolean ret = peek().is(operator);
+
+            if (ret) {
+                pos++;
+            }
+
+            return ret;
+        }
+
+        private void expect(String operator) throws UnsupportedScriptException {
+            if (!accept(operator)) {
+                throw new UnsupportedScriptException("expected '" + operator + "', found '" + peek().text + "'");
+            }
+        }
+
+        private static List<Token> tokenize(String script) throws UnsupportedScriptException {
+            List<Token> ret = new ArrayList<>();
+            int         len = script.length();
+
+            for (int i = 0; i < len; ) {
+                char c = script.charAt(i);
+
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    int start = i;
+
+                    while (i < len && Character.isJavaIdentifierPart(script.charAt(i))) {
+                        i++;
+                    }
+
+                    ret.add(new Token(TokenType.IDENTIFIER, script.substring(start, i)));
+                } else if (c == '\'' || c == '"') {
+                    StringBuilder sb = new StringBuilder();
+
+                    for (i++; i < len && script.charAt(i) != c; i++) {
+                        char ch = script.charAt(i);
+
+                        if (ch == '\\') { // only escapes of quotes and backslash are supported
+                            char escaped = ++i < len ? script.charAt(i) : 0;
+
+                            if (escaped != '\'' && escaped != '"' && escaped != '\\') {
+                                throw new UnsupportedScriptException("unsupported escape sequence in string literal");
+                            }
+
+                            ch = escaped;
+                        }
+
+                        sb.append(ch);
+                    }
+
+                    if (i >= len) {
+                        throw new UnsupportedScriptException("unterminated string literal");
+                    }
+
+                    i++;
+
+                    ret.add(new Token(TokenType.STRING, sb.toString()));
+                } else {
+                    String operator = getOperator(script, i);
+
+                    if (operator == null) {
+                        throw new UnsupportedScriptException("unsupported character '" + c + "'");
+                    }
+
+                    i += operator.length();
+
+                    ret.add(new Token(TokenType.OPERATOR, operator));
+                }
+            }
+
+            ret.add(new Token(TokenType.END, "<end>"));
+
+            return ret;
+        }
+
+        private static String getOperator(String script, int pos) {
+            for (String operator : new String[] { "===", "!==", "==", "!=", "&&", "||", "!", "(", ")", "[", "]", ".", ",", ";" }) {
+                if (script.startsWith(operator, pos)) {
+                    return operator;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private static class UnsupportedScriptException extends Exception {
+        UnsupportedScriptException(String message) {
+            super(message);
+        }
+    }
+}
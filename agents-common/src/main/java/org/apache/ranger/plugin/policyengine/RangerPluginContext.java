@@ -32,6 +32,8 @@
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class RangerPluginContext {
@@ -43,6 +45,7 @@ public class RangerPluginContext {
 	private          RangerAdminClient                                                          adminClient;
 	private	final 	 Map<String, Map<RangerPolicy.RangerPolicyResource, RangerResourceMatcher>> resourceMatchers = new HashMap<>();
 	private final    ReentrantReadWriteLock                                                     lock = new ReentrantReadWriteLock(true); // fair lock
+	private volatile ForkJoinPool                                                               batchEvalPool;
 
 
 	public RangerPluginContext(RangerPluginConfig config) {
@@ -120,6 +123,57 @@ void cleanResourceMatchers() {
 		}
 	}
 
+	/*
+	 * Returns the pool to evaluate a batch of access requests in parallel; null if parallel evaluation is not enabled, i.e.
+	 * policyengine.option.batch.eval.parallelism is not configured. The pool is shared by all policy-engine instances of
+	 * the plugin, as a new policy-engine is created on every policy update.
+	 */
+	public ForkJoinPool getBatchEvalPool() {
+		ForkJoinPool ret = batchEvalPool;
+
+		if (ret == null) {
+			int parallelism = config != null ? config.getPolicyEngineOptions().batchEvalParallelism : 0;
+
+			if (parallelism > 0) {
+				synchronized (this) {
+					ret = batchEvalPool;
+
+					if (ret == null) {
+						String threadNamePrefix = "ranger-batch-eval-" + config.getServiceName() + "-";
+
+						ret = new ForkJoinPool(parallelism, pool -> {
+							ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+
+							thread.setName(threadNamePrefix + thread.getPoolIndex());
+							thread.setDaemon(true);
+
+							return thread;
+						}, null, false);
+
+						LOG.info("Created pool for parallel evaluation of batch access requests: parallelism=" + parallelism);
+
+						batchEvalPool = ret;
+					}
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	public void cleanup() {
+		ForkJoinPool batchEvalPool;
+
+		synchronized (this) {
+			batchEvalPool      = this.batchEvalPool;
+			this.batchEvalPool = null;
+		}
+
+		if (batchEvalPool != null) {
+			batchEvalPool.shutdown();
+		}
+	}
+
 	public void setAuthContext(RangerAuthContext authContext) { this.authContext = authContext; }
 
 	public void setAuthContextListener(RangerAuthContextListener authContextListener) { this.authContextListener = authContextListener; }
@@ -49,9 +49,13 @@
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.ranger.plugin.policyengine.PolicyEvaluatorForTag.MATCH_TYPE_COMPARATOR;
 
@@ -62,9 +66,15 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 	private static final Logger PERF_POLICYENGINE_AUDIT_LOG    = RangerPerfTracer.getPerfLogger("policyengine.audit");
 	private static final Logger PERF_POLICYENGINE_GET_ACLS_LOG = RangerPerfTracer.getPerfLogger("policyengine.getResourceACLs");
 
+	private static final int BATCH_EVAL_CHUNKS_PER_THREAD = 4; // split a batch into more chunks than threads, to balance the load between threads
+
 	private final PolicyEngine                 policyEngine;
 	private final RangerAccessRequestProcessor requestProcessor;
 	private final ServiceConfig                serviceConfig;
+	private final RangerAccessResultCache      accessResultCache;
+	private final RangerResourceACLIndex       resourceACLIndex;
+	private final AtomicInteger                refCount = new AtomicInteger(1); // 1 for the reference held by the plugin, till this engine is retired
+	private volatile boolean                   isReleaseForced;
 
 
 	static public RangerPolicyEngine getPolicyEngine(final RangerPolicyEngineImpl other, final ServicePolicies servicePolicies) {
@@ -77,7 +87,7 @@ static public RangerPolicyEngine getPolicyEngine(final RangerPolicyEngineImpl ot
 				if (policyEngine == other.policyEngine) {
 					ret = other;
 				} else {
-					ret = new RangerPolicyEngineImpl(policyEngine, other);
+					ret = new RangerPolicyEngineImpl(policyEngine, other, servicePolicies);
 				}
 			}
 		}
@@ -90,16 +100,20 @@ public RangerPolicyEngineImpl(ServicePolicies servicePolicies, RangerPluginConte
 
 		Configuration config = pluginContext != null ? pluginContext.getConfig() : null;
 
-		if (config != null) {
+		if (config != null && pluginContext.getConfig().getPolicyEngineOptions().enableEngineSnapshots) {
+			isUseReadWriteLock = false; // deltas are applied to a copy of the engine, which is then published as a new snapshot
+		} else if (config != null) {
 			boolean isDeltasSupported = config.getBoolean(pluginContext.getConfig().getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA_DEFAULT);
 			isUseReadWriteLock = isDeltasSupported && config.getBoolean(pluginContext.getConfig().getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT);
 		} else {
 			isUseReadWriteLock = false;
 		}
 
-		policyEngine     = new PolicyEngine(servicePolicies, pluginContext, roles, isUseReadWriteLock);
-		serviceConfig    = new ServiceConfig(servicePolicies.getServiceConfig());
-		requestProcessor = new RangerDefaultRequestProcessor(policyEngine);
+		policyEngine      = new PolicyEngine(servicePolicies, pluginContext, roles, isUseReadWriteLock);
+		serviceConfig     = new ServiceConfig(servicePolicies.getServiceConfig());
+		requestProcessor  = new RangerDefaultRequestProcessor(policyEngine);
+		accessResultCache = createAccessResultCache(policyEngine);
+		resourceACLIndex  = createResourceACLIndex(policyEngine, null, null);
 	}
 
 	@Override
@@ -132,9 +146,11 @@ public RangerAccessResult evaluatePolicies(RangerAccessRequest request, int poli
 				}
 			}
 
+			RangerAccessResultCache.Generation cacheGeneration = getAccessResultCacheGeneration(); // before the request is enriched
+
 			requestProcessor.preProcess(request);
 
-			ret = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+			ret = zoneAwareAccessEvaluationWithResultCache(request, policyType, cacheGeneration);
 
 			if (resultProcessor != null) {
 				RangerPerfTracer perfAuditTracer = null;
@@ -175,12 +191,20 @@ public Collection<RangerAccessResult> evaluatePolicies(Collection<RangerAccessRe
 				}
 			}
 			if (requests != null) {
-				for (RangerAccessRequest request : requests) {
-					requestProcessor.preProcess(request);
+				ForkJoinPool batchEvalPool = getBatchEvalPool(requests);
 
-					RangerAccessResult result = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+				if (batchEvalPool != null) {
+					evaluatePoliciesInParallel(requests, policyType, batchEvalPool, ret);
+				} else {
+					for (RangerAccessRequest request : requests) {
+						RangerAccessResultCache.Generation cacheGeneration = getAccessResultCacheGeneration(); // before the request is enriched
 
-					ret.add(result);
+						requestProcessor.preProcess(request);
+
+						RangerAccessResult result = zoneAwareAccessEvaluationWithResultCache(request, policyType, cacheGeneration);
+
+						ret.add(result);
+					}
 				}
 			}
 
@@ -272,60 +296,76 @@ public RangerResourceACLs getResourceACLs(RangerAccessRequest request, Integer r
 				LOG.debug("zoneName:[" + zoneName + "]");
 			}
 
-			int[] policyTypes = requestedPolicyType == null ? RangerPolicy.POLICY_TYPES : new int[] { requestedPolicyType };
-
+			final RangerResourceACLIndex          aclIndex       = this.resourceACLIndex;
+			final RangerResourceACLIndex.IndexKey indexKey       = aclIndex != null ? aclIndex.getKey(request, zoneName, requestedPolicyType) : null;
+			final RangerResourceACLs              indexedACLs    = indexKey != null ? aclIndex.get(indexKey) : null;
+			final List<RangerPolicyEvaluator>     usedEvaluators = indexKey != null ? new ArrayList<>() : null;
 
-			for (int policyType : policyTypes) {
-				// if resource isn't applicable for the policyType, skip evaluating policies and gathering ACLs
-				// for example, following resources are not applicable for listed policy-types
-				//   - database: masking/row-filter policies
-				//   - table:    masking policies
-				//   - column:   row-filter policies
-				boolean requireExactMatch = (policyType == RangerPolicy.POLICY_TYPE_DATAMASK) || (policyType == RangerPolicy.POLICY_TYPE_ROWFILTER);
+			if (indexedACLs != null) {
+				ret = indexedACLs;
+			} else {
+				int[] policyTypes = requestedPolicyType == null ? RangerPolicy.POLICY_TYPES : new int[] { requestedPolicyType };
 
-				if (!policyEngine.getServiceDefHelper().isValidHierarchy(policyType, request.getResource().getKeys(), requireExactMatch)) {
-					continue;
-				}
+				for (int policyType : policyTypes) {
+					// if resource isn't applicable for the policyType, skip evaluating policies and gathering ACLs
+					// for example, following resources are not applicable for listed policy-types
+					//   - database: masking/row-filter policies
+					//   - table:    masking policies
+					//   - column:   row-filter policies
+					boolean requireExactMatch = (policyType == RangerPolicy.POLICY_TYPE_DATAMASK) || (policyType == RangerPolicy.POLICY_TYPE_ROWFILTER);
 
-				List<RangerPolicyEvaluator> allEvaluators           = new ArrayList<>();
-				Map<Long, MatchType>        tagMatchTypeMap         = new HashMap<>();
-				Set<Long>                   policyIdForTemporalTags = new HashSet<>();
+					if (!policyEngine.getServiceDefHelper().isValidHierarchy(policyType, request.getResource().getKeys(), requireExactMatch)) {
+						continue;
+					}
 
-				getResourceACLEvaluatorsForZone(request, zoneName, policyType, allEvaluators, tagMatchTypeMap, policyIdForTemporalTags);
+					List<RangerPolicyEvaluator> allEvaluators           = new ArrayList<>();
+					Map<Long, MatchType>        tagMatchTypeMap         = new HashMap<>();
+					Set<Long>                   policyIdForTemporalTags = new HashSet<>();
 
-				allEvaluators.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+					getResourceACLEvaluatorsForZone(request, zoneName, policyType, allEvaluators, tagMatchTypeMap, policyIdForTemporalTags);
 
-				if (CollectionUtils.isEmpty(allEvaluators)) {
-					continue;
-				}
+					allEvaluators.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
 
-				Integer policyPriority = null;
+					if (CollectionUtils.isEmpty(allEvaluators)) {
+						continue;
+					}
 
-				for (RangerPolicyEvaluator evaluator : allEvaluators) {
-					if (policyPriority == null) {
-						policyPriority = evaluator.getPolicyPriority();
+					if (usedEvaluators != null) {
+						usedEvaluators.addAll(allEvaluators);
 					}
 
-					if (policyPriority != evaluator.getPolicyPriority()) {
-						if (policyType == RangerPolicy.POLICY_TYPE_ACCESS) {
-							ret.finalizeAcls();
+					Integer policyPriority = null;
+
+					for (RangerPolicyEvaluator evaluator : allEvaluators) {
+						if (policyPriority == null) {
+							policyPriority = evaluator.getPolicyPriority();
 						}
 
-						policyPriority = evaluator.getPolicyPriority();
-					}
+						if (policyPriority != evaluator.getPolicyPriority()) {
+							if (policyType == RangerPolicy.POLICY_TYPE_ACCESS) {
+								ret.finalizeAcls();
+							}
 
-					boolean   isTemporalTagPolicy = policyIdForTemporalTags.contains(evaluator.getPolicyId());
-					MatchType tagMatchType        = tagMatchTypeMap.get(evaluator.getPolicyId());
+							policyPriority = evaluator.getPolicyPriority();
+						}
+
+						boolean   isTemporalTagPolicy = policyIdForTemporalTags.contains(evaluator.getPolicyId());
+						MatchType tagMatchType        = tagMatchTypeMap.get(evaluator.getPolicyId());
+
+						// tag assigned to ANCESTORS must apply to SELF as well, to be consistent with policy evaluation in RangerDefaultPolicyEvaluator.evaluate()
+						if (tagMatchType == MatchType.ANCESTOR) {
+							tagMatchType = MatchType.SELF;
+						}
 
-					// tag assigned to ANCESTORS must apply to SELF as well, to be consistent with policy evaluation in RangerDefaultPolicyEvaluator.evaluate()
-					if (tagMatchType == MatchType.ANCESTOR) {
-						tagMatchType = MatchType.SELF;
+						evaluator.getResourceACLs(request, ret, isTemporalTagPolicy, null, tagMatchType, policyEngine);
 					}
 
-					evaluator.getResourceACLs(request, ret, isTemporalTagPolicy, null, tagMatchType, policyEngine);
+					ret.finalizeAcls();
 				}
 
-				ret.finalizeAcls();
+				if (indexKey != null) {
+					aclIndex.put(indexKey, request, ret, usedEvaluators);
+				}
 			}
 		}
 
@@ -546,6 +586,14 @@ public void releaseResources(boolean isForced) {
 
 		PolicyEngine policyEngine = this.policyEngine;
 
+		if (accessResultCache != null) {
+			LOG.info("RangerPolicyEngineImpl.releaseResources(): " + accessResultCache);
+		}
+
+		if (resourceACLIndex != null) {
+			LOG.info("RangerPolicyEngineImpl.releaseResources(): " + resourceACLIndex);
+		}
+
 		if (policyEngine != null) {
 			policyEngine.preCleanup(isForced);
 		} else {
@@ -559,6 +607,42 @@ public void releaseResources(boolean isForced) {
 		}
 	}
 
+	/*
+	 * Reference counting, for use by a plugin that publishes engine snapshots (RangerPolicyEngineOptions.enableEngineSnapshots):
+	 * each request takes a reference with acquire() and gives it up with release(); when the plugin replaces the engine with
+	 * a newer one, it calls retire(). Resources are released once the last in-flight request gives up its reference.
+	 * acquire() returns false for a retired engine which has no in-flight requests; the caller should then use the new engine.
+	 */
+	public boolean acquire() {
+		while (true) {
+			int count = refCount.get();
+
+			if (count == 0) {
+				return false;
+			}
+
+			if (refCount.compareAndSet(count, count + 1)) {
+				return true;
+			}
+		}
+	}
+
+	public void release() {
+		if (refCount.decrementAndGet() == 0) {
+			releaseResources(isReleaseForced);
+		}
+	}
+
+	public void retire(boolean isForced) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerPolicyEngineImpl.retire(isForced=" + isForced + "): policyVersion=" + getPolicyVersion() + ", inFlightRequests=" + (refCount.get() - 1));
+		}
+
+		this.isReleaseForced = isForced;
+
+		release();
+	}
+
 	public boolean isServiceAdmin(String userName) {
 		boolean ret = serviceConfig.isServiceAdmin(userName);
 
@@ -580,10 +664,133 @@ public RangerAccessRequestProcessor getRequestProcessor() {
 		return requestProcessor;
 	}
 
-	private RangerPolicyEngineImpl(final PolicyEngine policyEngine, RangerPolicyEngineImpl other) {
-		this.policyEngine     = policyEngine;
-		this.requestProcessor = new RangerDefaultRequestProcessor(policyEngine);
-		this.serviceConfig    = new ServiceConfig(other.serviceConfig);
+	public RangerAccessResultCache getAccessResultCache() {
+		return accessResultCache;
+	}
+
+	public RangerResourceACLIndex getResourceACLIndex() {
+		return resourceACLIndex;
+	}
+
+	private RangerPolicyEngineImpl(final PolicyEngine policyEngine, RangerPolicyEngineImpl other, ServicePolicies servicePolicies) {
+		this.policyEngine      = policyEngine;
+		this.requestProcessor  = new RangerDefaultRequestProcessor(policyEngine);
+		this.serviceConfig     = new ServiceConfig(other.serviceConfig);
+		this.accessResultCache = createAccessResultCache(policyEngine);
+		this.resourceACLIndex  = createResourceACLIndex(policyEngine, other.resourceACLIndex, servicePolicies);
+	}
+
+	private static RangerAccessResultCache createAccessResultCache(PolicyEngine policyEngine) {
+		RangerPluginContext       pluginContext = policyEngine.getPluginContext();
+		RangerPolicyEngineOptions options       = pluginContext != null && pluginContext.getConfig() != null ? pluginContext.getConfig().getPolicyEngineOptions() : null;
+
+		return options != null && options.enableAccessResultCache ? new RangerAccessResultCache(policyEngine, options.accessResultCacheSize) : null;
+	}
+
+	// entries in ACL index of the engine to which policy deltas are applied, other, are retained if not affected by the deltas
+	private static RangerResourceACLIndex createResourceACLIndex(PolicyEngine policyEngine, RangerResourceACLIndex other, ServicePolicies servicePolicies) {
+		RangerPluginContext          pluginContext = policyEngine.getPluginContext();
+		RangerPolicyEngineOptions    options       = pluginContext != null && pluginContext.getConfig() != null ? pluginContext.getConfig().getPolicyEngineOptions() : null;
+		final RangerResourceACLIndex ret;
+
+		if (options == null || !options.enableResourceACLIndex) {
+			ret = null;
+		} else if (other != null) {
+			ret = new RangerResourceACLIndex(policyEngine, other, servicePolicies);
+		} else {
+			ret = new RangerResourceACLIndex(policyEngine, options.resourceACLIndexMaxMemoryMB);
+		}
+
+		return ret;
+	}
+
+	private ForkJoinPool getBatchEvalPool(Collection<RangerAccessRequest> requests) {
+		RangerPluginContext       pluginContext = policyEngine.getPluginContext();
+		RangerPolicyEngineOptions options       = pluginContext != null && pluginContext.getConfig() != null ? pluginContext.getConfig().getPolicyEngineOptions() : null;
+		ForkJoinPool              ret           = options != null && options.batchEvalParallelism > 0 && requests.size() >= options.batchEvalMinSize ? pluginContext.getBatchEvalPool() : null;
+
+		if (ret != null && !isolateRequestContexts(requests)) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerPolicyEngineImpl.getBatchEvalPool(): requests in the batch share context that can't be copied. Evaluating the batch serially");
+			}
+
+			ret = null;
+		}
+
+		return ret;
+	}
+
+	/*
+	 * The context of a request is updated during its evaluation, like by context-enrichers; hence requests evaluated in
+	 * parallel must not share the context. Requests sharing the context with an earlier request in the batch are given a
+	 * copy of the context. Returns false if that is not possible: when the batch has the same request more than once, or
+	 * when the request doesn't support replacing the context.
+	 */
+	private static boolean isolateRequestContexts(Collection<RangerAccessRequest> requests) {
+		Set<RangerAccessRequest> batchRequests = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<Map<String, Object>> batchContexts = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		for (RangerAccessRequest request : requests) {
+			if (!batchRequests.add(request)) {
+				return false;
+			}
+		}
+
+		for (RangerAccessRequest request : requests) {
+			Map<String, Object> context = request.getContext();
+
+			if (context != null && !batchContexts.add(context)) {
+				if (!(request instanceof RangerAccessRequestImpl)) {
+					return false;
+				}
+
+				((RangerAccessRequestImpl) request).setContext(RangerAccessRequestUtil.copyContextForEvaluation(context)); // sets the request in the copy
+			}
+		}
+
+		return true;
+	}
+
+	// called with the read-lock held; the lock is held until all requests in the batch are evaluated by the pool threads
+	private void evaluatePoliciesInParallel(Collection<RangerAccessRequest> requests, int policyType, ForkJoinPool batchEvalPool, Collection<RangerAccessResult> results) {
+		RangerPerfTracer perf = null;
+
+		if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_REQUEST_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.evaluatePoliciesInParallel(requestCount=" + requests.size() + ", parallelism=" + batchEvalPool.getParallelism() + ")");
+		}
+
+		RangerAccessRequest[] batchRequests = requests.toArray(new RangerAccessRequest[0]);
+		RangerAccessResult[]  batchResults  = new RangerAccessResult[batchRequests.length];
+		int                   chunkSize     = Math.max(1, batchRequests.length / (batchEvalPool.getParallelism() * BATCH_EVAL_CHUNKS_PER_THREAD));
+
+		batchEvalPool.invoke(new BatchEvalTask(batchRequests, batchResults, policyType, 0, batchRequests.length, chunkSize));
+
+		Collections.addAll(results, batchResults);
+
+		RangerPerfTracer.log(perf);
+	}
+
+	private RangerAccessResultCache.Generation getAccessResultCacheGeneration() {
+		final RangerAccessResultCache resultCache = this.accessResultCache;
+
+		return resultCache != null ? resultCache.getCurrentGeneration() : null;
+	}
+
+	// cacheGeneration must be obtained before the request is preprocessed, so that results computed with older tags, user-store, etc. are not cached with newer versions
+	private RangerAccessResult zoneAwareAccessEvaluationWithResultCache(RangerAccessRequest request, int policyType, RangerAccessResultCache.Generation cacheGeneration) {
+		final RangerAccessResultCache          resultCache = this.accessResultCache;
+		final RangerAccessResultCache.CacheKey cacheKey    = resultCache != null && cacheGeneration != null ? resultCache.getCacheKey(cacheGeneration, request, policyType) : null;
+		RangerAccessResult                     ret         = cacheKey != null ? resultCache.get(cacheKey, request) : null;
+
+		if (ret == null) {
+			ret = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+
+			if (cacheKey != null) {
+				resultCache.put(cacheKey, ret);
+			}
+		}
+
+		return ret;
 	}
 
 	private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequest request, int policyType) {
@@ -730,9 +937,14 @@ private RangerAccessResult evaluatePoliciesForOneAccessTypeNoAudit(RangerAccessR
 
 			ret.setIsAccessDetermined(false); // discard result by tag-policies, to evaluate resource policies for possible override
 
-			List<RangerPolicyEvaluator> evaluators = policyRepository.getLikelyMatchPolicyEvaluators(request, policyType);
+			List<RangerPolicyEvaluator>                evaluators      = policyRepository.getPolicyEvaluatorsToEvaluate(request, policyType);
+			RangerPolicyPrincipalIndex.PrincipalFilter principalFilter = policyRepository.getPrincipalFilter(request);
 
 			for (RangerPolicyEvaluator evaluator : evaluators) {
+				if (accessResultCache != null && isContextSensitive(evaluator)) {
+					RangerAccessRequestUtil.setIsContextSensitiveEvaluation(request.getContext(), Boolean.TRUE);
+				}
+
 				if (!evaluator.isApplicable(accessTime)) {
 					continue;
 				}
@@ -755,8 +967,11 @@ private RangerAccessResult evaluatePoliciesForOneAccessTypeNoAudit(RangerAccessR
 					}
 				}
 
-				ret.incrementEvaluatedPoliciesCount();
-				evaluator.evaluate(request, ret);
+				// once audit is determined, a policy that doesn't apply to the user can't change the result; skip its evaluation
+				if (principalFilter == null || !ret.getIsAuditedDetermined() || principalFilter.isApplicable(evaluator)) {
+					ret.incrementEvaluatedPoliciesCount();
+					evaluator.evaluate(request, ret);
+				}
 
 				if (ret.getIsAllowed()) {
 					if (!evaluator.hasDeny()) { // No more deny policies left
@@ -812,7 +1027,8 @@ private void evaluateTagPolicies(final RangerAccessRequest request, int policyTy
 		List<PolicyEvaluatorForTag> policyEvaluators = tagPolicyRepository == null ? null : tagPolicyRepository.getLikelyMatchPolicyEvaluators(request, tags, policyType, accessTime);
 
 		if (CollectionUtils.isNotEmpty(policyEvaluators)) {
-			final boolean useTagPoliciesFromDefaultZone = !policyEngine.isResourceZoneAssociatedWithTagService(zoneName);
+			final boolean                                    useTagPoliciesFromDefaultZone = !policyEngine.isResourceZoneAssociatedWithTagService(zoneName);
+			final RangerPolicyPrincipalIndex.PrincipalFilter principalFilter               = tagPolicyRepository.getPrincipalFilter(request);
 
 			for (PolicyEvaluatorForTag policyEvaluator : policyEvaluators) {
 				RangerPolicyEvaluator evaluator      = policyEvaluator.getEvaluator();
@@ -836,6 +1052,23 @@ private void evaluateTagPolicies(final RangerAccessRequest request, int policyTy
 					}
 				}
 
+				if (accessResultCache != null && isContextSensitive(evaluator)) {
+					RangerAccessRequestUtil.setIsContextSensitiveEvaluation(request.getContext(), Boolean.TRUE);
+				}
+
+				if (principalFilter != null && result.getIsAuditedDetermined() && !principalFilter.isApplicable(evaluator)) {
+					// policy doesn't apply to the user: skip its evaluation, with the same effect on the result as evaluating it
+					if (!result.getIsAccessDetermined() && result.getIsAllowed() && !evaluator.hasDeny()) {
+						result.setIsAccessDetermined(true);
+					}
+
+					if (result.getIsAccessDetermined()) {
+						break;
+					}
+
+					continue;
+				}
+
 				RangerTagForEval    tag            = policyEvaluator.getTag();
 				RangerAccessRequest tagEvalRequest = new RangerTagAccessRequest(tag, tagPolicyRepository.getServiceDef(), request);
 				RangerAccessResult  tagEvalResult  = createAccessResult(tagEvalRequest, policyType);
@@ -1111,7 +1344,7 @@ private boolean evaluateResourceAuditPolicies(RangerAccessRequest request, Range
 		}
 
 		boolean                     ret        = false;
-		List<RangerPolicyEvaluator> evaluators = policyRepository.getLikelyMatchAuditPolicyEvaluators(request);
+		List<RangerPolicyEvaluator> evaluators = policyRepository.getPolicyEvaluatorsToEvaluate(request, RangerPolicy.POLICY_TYPE_AUDIT);
 
 		if (CollectionUtils.isNotEmpty(evaluators)) {
 			for (RangerPolicyEvaluator evaluator : evaluators) {
@@ -1138,6 +1371,10 @@ private boolean evaluateResourceAuditPolicies(RangerAccessRequest request, Range
 		return ret;
 	}
 
+	private boolean isContextSensitive(RangerPolicyEvaluator evaluator) {
+		return evaluator.getCustomConditionsCount() > 0 || evaluator.getValidityScheduleEvaluatorsCount() > 0;
+	}
+
 	private boolean getIsFallbackSupported() {
 		return policyEngine.getPluginContext().getConfig().getIsFallbackSupported();
 	}
@@ -1178,6 +1415,44 @@ private void updateFromGdsResult(RangerAccessResult result) {
 		}
 	}
 
+	private class BatchEvalTask extends RecursiveAction {
+		private final RangerAccessRequest[] requests;
+		private final RangerAccessResult[]  results;
+		private final int                   policyType;
+		private final int                   fromIndex;
+		private final int                   toIndex;
+		private final int                   chunkSize;
+
+		BatchEvalTask(RangerAccessRequest[] requests, RangerAccessResult[] results, int policyType, int fromIndex, int toIndex, int chunkSize) {
+			this.requests   = requests;
+			this.results    = results;
+			this.policyType = policyType;
+			this.fromIndex  = fromIndex;
+			this.toIndex    = toIndex;
+			this.chunkSize  = chunkSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (toIndex - fromIndex <= chunkSize) {
+				for (int i = fromIndex; i < toIndex; i++) {
+					RangerAccessRequest request = requests[i];
+
+					RangerAccessResultCache.Generation cacheGeneration = getAccessResultCacheGeneration(); // before the request is enriched
+
+					requestProcessor.preProcess(request);
+
+					results[i] = zoneAwareAccessEvaluationWithResultCache(request, policyType, cacheGeneration);
+				}
+			} else {
+				int midIndex = (fromIndex + toIndex) >>> 1;
+
+				invokeAll(new BatchEvalTask(requests, results, policyType, fromIndex, midIndex, chunkSize),
+				          new BatchEvalTask(requests, results, policyType, midIndex, toIndex, chunkSize));
+			}
+		}
+	}
+
 	private static class ServiceConfig {
 		private final Set<String> auditExcludedUsers;
 		private final Set<String> auditExcludedGroups;
@@ -19,10 +19,13 @@
 package org.apache.ranger.plugin.policyengine;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.ranger.plugin.conditionevaluator.RangerConditionEvaluatorRegistry;
 import org.apache.ranger.plugin.model.validation.RangerServiceDefHelper;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 
 public class RangerPolicyEngineOptions {
+	public static final int DEFAULT_BATCH_EVAL_MIN_SIZE = 256;
+
 	public String evaluatorType = RangerPolicyEvaluator.EVALUATOR_TYPE_AUTO;
 
 	public boolean disableContextEnrichers = false;
@@ -45,9 +48,24 @@ public class RangerPolicyEngineOptions {
 	public boolean optimizeTrieForSpace = false;
 	public boolean optimizeTagTrieForRetrieval = false;
 	public boolean optimizeTagTrieForSpace = false;
-
+	public boolean compactTrie = false;
+	public boolean compactTagTrie = false;
+	public boolean enableAccessResultCache = false;
+	public int     accessResultCacheSize = RangerAccessResultCache.DEFAULT_MAX_SIZE;
+	public int     batchEvalParallelism = 0; // 0: evaluate requests in a batch serially, in the calling thread
+	public int     batchEvalMinSize = DEFAULT_BATCH_EVAL_MIN_SIZE;
+	public boolean enablePrincipalIndex = false;
+	public boolean enableEngineSnapshots = false;
+	public boolean enableTriePathCopying = false;
+	public boolean enableResourceACLIndex = false;
+	public int     resourceACLIndexMaxMemoryMB = RangerResourceACLIndex.DEFAULT_MAX_MEMORY_MB;
+	public int     zoneMatcherCacheSize = RangerSecurityZoneMatcher.DEFAULT_CACHE_SIZE; // 0: don't cache zones of resources
+	public int     adaptiveEvalOrderIntervalMs = 0; // 0: don't reorder policy evaluators based on statistics of their evaluations
+	public boolean enableConditionMemoization = false;
+	public boolean excludeInactivePolicies = false; // true: exclude policies not applicable at current time, based on validity schedules, from policies to evaluate
 
 	private RangerServiceDefHelper serviceDefHelper;
+	private RangerConditionEvaluatorRegistry conditionEvaluatorRegistry;
 
 	public RangerPolicyEngineOptions() {}
 
@@ -71,6 +89,22 @@ public RangerPolicyEngineOptions(final RangerPolicyEngineOptions other) {
 		this.optimizeTrieForSpace = other.optimizeTrieForSpace;
 		this.optimizeTagTrieForRetrieval = other.optimizeTagTrieForRetrieval;
 		this.optimizeTagTrieForSpace = other.optimizeTagTrieForSpace;
+		this.compactTrie = other.compactTrie;
+		this.compactTagTrie = other.compactTagTrie;
+		this.enableAccessResultCache = other.enableAccessResultCache;
+		this.accessResultCacheSize = other.accessResultCacheSize;
+		this.batchEvalParallelism = other.batchEvalParallelism;
+		this.batchEvalMinSize = other.batchEvalMinSize;
+		this.enablePrincipalIndex = other.enablePrincipalIndex;
+		this.enableEngineSnapshots = other.enableEngineSnapshots;
+		this.enableTriePathCopying = other.enableTriePathCopying;
+		this.enableResourceACLIndex = other.enableResourceACLIndex;
+		this.resourceACLIndexMaxMemoryMB = other.resourceACLIndexMaxMemoryMB;
+		this.zoneMatcherCacheSize = other.zoneMatcherCacheSize;
+		this.adaptiveEvalOrderIntervalMs = other.adaptiveEvalOrderIntervalMs;
+		this.enableConditionMemoization = other.enableConditionMemoization;
+		this.excludeInactivePolicies = other.excludeInactivePolicies;
+		this.conditionEvaluatorRegistry = null;
 	}
 
 	public RangerPolicyEngineOptions(final RangerPolicyEngineOptions other, RangerServiceDefHelper serviceDefHelper) {
@@ -103,7 +137,21 @@ public void configureForPlugin(Configuration conf, String propertyPrefix) {
 		optimizeTrieForSpace = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.trie.for.space", false);
 		optimizeTagTrieForRetrieval = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.retrieval", false);
 		optimizeTagTrieForSpace = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.space", false);
-
+		compactTrie = conf.getBoolean(propertyPrefix + ".policyengine.option.compact.trie", false);
+		compactTagTrie = conf.getBoolean(propertyPrefix + ".policyengine.option.compact.tag.trie", false);
+		enableAccessResultCache = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.access.result.cache", false);
+		accessResultCacheSize = conf.getInt(propertyPrefix + ".policyengine.option.access.result.cache.size", RangerAccessResultCache.DEFAULT_MAX_SIZE);
+		batchEvalParallelism = conf.getInt(propertyPrefix + ".policyengine.option.batch.eval.parallelism", 0);
+		batchEvalMinSize = conf.getInt(propertyPrefix + ".policyengine.option.batch.eval.min.size", DEFAULT_BATCH_EVAL_MIN_SIZE);
+		enablePrincipalIndex = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.principal.index", false);
+		enableEngineSnapshots = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.engine.snapshots", false);
+		enableTriePathCopying = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.trie.path.copying", false);
+		enableResourceACLIndex = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.resource.acl.index", false);
+		resourceACLIndexMaxMemoryMB = conf.getInt(propertyPrefix + ".policyengine.option.resource.acl.index.max.memory.mb", RangerResourceACLIndex.DEFAULT_MAX_MEMORY_MB);
+		zoneMatcherCacheSize = conf.getInt(propertyPrefix + ".policyengine.option.zone.matcher.cache.size", RangerSecurityZoneMatcher.DEFAULT_CACHE_SIZE);
+		adaptiveEvalOrderIntervalMs = conf.getInt(propertyPrefix + ".policyengine.option.adaptive.eval.order.interval.ms", 0);
+		enableConditionMemoization = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.condition.memoization", false);
+		excludeInactivePolicies = conf.getBoolean(propertyPrefix + ".policyengine.option.exclude.inactive.policies", false);
 	}
 
 	public void configureDefaultRangerAdmin(Configuration conf, String propertyPrefix) {
@@ -173,6 +221,14 @@ void setServiceDefHelper(RangerServiceDefHelper serviceDefHelper) {
 		this.serviceDefHelper = serviceDefHelper;
 	}
 
+	public RangerConditionEvaluatorRegistry getConditionEvaluatorRegistry() {
+		return conditionEvaluatorRegistry;
+	}
+
+	void setConditionEvaluatorRegistry(RangerConditionEvaluatorRegistry conditionEvaluatorRegistry) {
+		this.conditionEvaluatorRegistry = conditionEvaluatorRegistry;
+	}
+
 	/*
 	* There is no need to implement these, as the options are predefined in a component ServiceREST and hence
 	* guaranteed to be unique objects. That implies that the default equals and hashCode should suffice.
@@ -200,7 +256,22 @@ public boolean equals(Object other) {
 					&& this.optimizeTrieForSpace == that.optimizeTrieForSpace
 					&& this.optimizeTagTrieForRetrieval == that.optimizeTagTrieForRetrieval
 					&& this.optimizeTagTrieForSpace == that.optimizeTagTrieForSpace
+					&& this.compactTrie == that.compactTrie
+					&& this.compactTagTrie == that.compactTagTrie
 					&& this.enableResourceMatcherReuse == that.enableResourceMatcherReuse
+					&& this.enableAccessResultCache == that.enableAccessResultCache
+					&& this.accessResultCacheSize == that.accessResultCacheSize
+					&& this.batchEvalParallelism == that.batchEvalParallelism
+					&& this.batchEvalMinSize == that.batchEvalMinSize
+					&& this.enablePrincipalIndex == that.enablePrincipalIndex
+					&& this.enableEngineSnapshots == that.enableEngineSnapshots
+					&& this.enableTriePathCopying == that.enableTriePathCopying
+					&& this.enableResourceACLIndex == that.enableResourceACLIndex
+					&& this.resourceACLIndexMaxMemoryMB == that.resourceACLIndexMaxMemoryMB
+					&& this.zoneMatcherCacheSize == that.zoneMatcherCacheSize
+					&& this.adaptiveEvalOrderIntervalMs == that.adaptiveEvalOrderIntervalMs
+					&& this.enableConditionMemoization == that.enableConditionMemoization
+					&& this.excludeInactivePolicies == that.excludeInactivePolicies
 			;
 		}
 		return ret;
@@ -243,8 +314,32 @@ public int hashCode() {
 		ret *= 2;
 		ret += optimizeTagTrieForSpace ? 1 : 0;
 		ret *= 2;
+		ret += compactTrie ? 1 : 0;
+		ret *= 2;
+		ret += compactTagTrie ? 1 : 0;
+		ret *= 2;
 		ret += enableResourceMatcherReuse ? 1 : 0;
 		ret *= 2;
+		ret += enableAccessResultCache ? 1 : 0;
+		ret *= 2;
+		ret += enablePrincipalIndex ? 1 : 0;
+		ret *= 2;
+		ret += enableEngineSnapshots ? 1 : 0;
+		ret *= 2;
+		ret += enableTriePathCopying ? 1 : 0;
+		ret *= 2;
+		ret += enableResourceACLIndex ? 1 : 0;
+		ret *= 2;
+		ret += enableConditionMemoization ? 1 : 0;
+		ret *= 2;
+		ret += excludeInactivePolicies ? 1 : 0;
+		ret *= 2;
+		ret = 31 * ret + accessResultCacheSize;
+		ret = 31 * ret + batchEvalParallelism;
+		ret = 31 * ret + batchEvalMinSize;
+		ret = 31 * ret + resourceACLIndexMaxMemoryMB;
+		ret = 31 * ret + zoneMatcherCacheSize;
+		ret = 31 * ret + adaptiveEvalOrderIntervalMs;
 		return ret;
 	}
 
@@ -269,7 +364,22 @@ public String toString() {
 				", optimizeTrieForSpace: " + optimizeTrieForSpace +
 				", optimizeTagTrieForRetrieval: " + optimizeTagTrieForRetrieval +
 				", optimizeTagTrieForSpace: " + optimizeTagTrieForSpace +
+				", compactTrie: " + compactTrie +
+				", compactTagTrie: " + compactTagTrie +
 				", enableResourceMatcherReuse: " + enableResourceMatcherReuse +
+				", enableAccessResultCache: " + enableAccessResultCache +
+				", accessResultCacheSize: " + accessResultCacheSize +
+				", batchEvalParallelism: " + batchEvalParallelism +
+				", batchEvalMinSize: " + batchEvalMinSize +
+				", enablePrincipalIndex: " + enablePrincipalIndex +
+				", enableEngineSnapshots: " + enableEngineSnapshots +
+				", enableTriePathCopying: " + enableTriePathCopying +
+				", enableResourceACLIndex: " + enableResourceACLIndex +
+				", resourceACLIndexMaxMemoryMB: " + resourceACLIndexMaxMemoryMB +
+				", zoneMatcherCacheSize: " + zoneMatcherCacheSize +
+				", adaptiveEvalOrderIntervalMs: " + adaptiveEvalOrderIntervalMs +
+				", enableConditionMemoization: " + enableConditionMemoization +
+				", excludeInactivePolicies: " + excludeInactivePolicies +
 				" }";
 
 	}
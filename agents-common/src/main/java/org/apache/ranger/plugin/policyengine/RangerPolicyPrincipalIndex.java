@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.policyevaluator.RangerOptimizedPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Index of policy-evaluators by the users, groups and roles referenced in their policy-items. Used to skip evaluation of
+ * policies that can't apply to the user of a request, without matching the requested resource against their resources.
+ *
+ * The check made by the index is the same as the one RangerOptimizedPolicyEvaluator.hasMatchablePolicyItem() makes after
+ * a resource match: evaluators of policies having {PUBLIC} group, {USER} user or deny-all-else apply to all users,
+ * evaluators of policies having {OWNER} user apply when the user is the owner of the resource. Evaluators of other types
+ * are not indexed and are treated as applicable to all users.
+ */
+public class RangerPolicyPrincipalIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerPolicyPrincipalIndex.class);
+
+    private final Map<String, Set<RangerPolicyEvaluator>> userEvaluators    = new HashMap<>();
+    private final Map<String, Set<RangerPolicyEvaluator>> groupEvaluators   = new HashMap<>();
+    private final Map<String, Set<RangerPolicyEvaluator>> roleEvaluators    = new HashMap<>();
+    private final Set<RangerPolicyEvaluator>              ownerEvaluators   = newEvaluatorSet();
+    private final Set<RangerPolicyEvaluator>              anyUserEvaluators = newEvaluatorSet();
+
+    public RangerPolicyPrincipalIndex() {
+    }
+
+    public void add(RangerPolicyEvaluator evaluator) {
+        final RangerPolicy policy = evaluator.getPolicy();
+
+        if (!(evaluator instanceof RangerOptimizedPolicyEvaluator) || policy == null || policy.getIsDenyAllElse()) {
+            anyUserEvaluators.add(evaluator);
+        } else {
+            add(evaluator, policy.getPolicyItems());
+            add(evaluator, policy.getDenyPolicyItems());
+            add(evaluator, policy.getAllowExceptions());
+            add(evaluator, policy.getDenyExceptions());
+            add(evaluator, policy.getDataMaskPolicyItems());
+            add(evaluator, policy.getRowFilterPolicyItems());
+        }
+    }
+
+    public void addAll(Collection<? extends RangerPolicyEvaluator> evaluators) {
+        if (evaluators != null) {
+            for (RangerPolicyEvaluator evaluator : evaluators) {
+                add(evaluator);
+            }
+        }
+    }
+
+    public PrincipalFilter getFilter(RangerAccessRequest request) {
+        final String                     user          = request.getUser();
+        final String                     resourceOwner = request.getResource() != null ? request.getResource().getOwnerUser() : null;
+        final Set<RangerPolicyEvaluator> evaluators    = newEvaluatorSet();
+
+        if (user != null) {
+            addAll(evaluators, userEvaluators.get(user));
+
+            if (user.equals(resourceOwner)) {
+                evaluators.addAll(ownerEvaluators);
+            }
+        }
+
+        if (request.getUserGroups() != null) {
+            for (String group : request.getUserGroups()) {
+                addAll(evaluators, groupEvaluators.get(group));
+            }
+        }
+
+        if (!roleEvaluators.isEmpty()) {
+            for (String role : RangerAccessRequestUtil.getCurrentUserRolesFromContext(request.getContext())) {
+                addAll(evaluators, roleEvaluators.get(role));
+            }
+
+            if (request.getUserRoles() != null) {
+                for (String role : request.getUserRoles()) {
+                    addAll(evaluators, roleEvaluators.get(role));
+                }
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("RangerPolicyPrincipalIndex.getFilter(user={}, groups={}): userEvaluatorCount={}, anyUserEvaluatorCount={}", user, request.getUserGroups(), evaluators.size(), anyUserEvaluators.size());
+        }
+
+        return new PrincipalFilter(evaluators);
+    }
+
+    @Override
+    public String toString() {
+        return "RangerPolicyPrincipalIndex={users=" + userEvaluators.size() + ", groups=" + groupEvaluators.size() + ", roles=" + roleEvaluators.size() +
+               ", ownerEvaluators=" + ownerEvaluators.size() + ", anyUserEvaluators=" + anyUserEvaluators.size() + "}";
+    }
+
+    private void add(RangerPolicyEvaluator evaluator, List<? extends RangerPolicyItem> policyItems) {
+        if (CollectionUtils.isNotEmpty(policyItems)) {
+            for (RangerPolicyItem policyItem : policyItems) {
+                if (policyItem.getUsers() != null) {
+                    for (String user : policyItem.getUsers()) {
+                        if (RangerPolicyEngine.USER_CURRENT.equalsIgnoreCase(user)) {
+                            anyUserEvaluators.add(evaluator);
+                        } else if (RangerPolicyEngine.RESOURCE_OWNER.equalsIgnoreCase(user)) {
+                            ownerEvaluators.add(evaluator);
+                        } else {
+                            userEvaluators.computeIfAbsent(user, k -> newEvaluatorSet()).add(evaluator);
+                        }
+                    }
+                }
+
+                if (policyItem.getGroups() != null) {
+                    for (String group : policyItem.getGroups()) {
+                        if (RangerPolicyEngine.GROUP_PUBLIC.equalsIgnoreCase(group)) {
+                            anyUserEvaluators.add(evaluator);
+                        } else {
+                            groupEvaluators.computeIfAbsent(group, k -> newEvaluatorSet()).add(evaluator);
+                        }
+                    }
+                }
+
+                if (policyItem.getRoles() != null) {
+                    for (String role : policyItem.getRoles()) {
+                        roleEvaluators.computeIfAbsent(role, k -> newEvaluatorSet()).add(evaluator);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addAll(Set<RangerPolicyEvaluator> to, Set<RangerPolicyEvaluator> from) {
+        if (from != null) {
+            to.addAll(from);
+        }
+    }
+
+    private static Set<RangerPolicyEvaluator> newEvaluatorSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /*
+     * Evaluators that apply to the user of a request: evaluators found for the user, groups and roles of the request,
+     * and evaluators that apply to all users.
+     */
+    public final class PrincipalFilter {
+        private final Set<RangerPolicyEvaluator> evaluators;
+
+        PrincipalFilter(Set<RangerPolicyEvaluator> evaluators) {
+            this.evaluators = evaluators;
+        }
+
+        public boolean isApplicable(RangerPolicyEvaluator evaluator) {
+            return evaluators.contains(evaluator) || anyUserEvaluators.contains(evaluator);
+        }
+    }
+}
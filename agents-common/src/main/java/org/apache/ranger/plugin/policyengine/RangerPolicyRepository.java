@@ -23,6 +23,7 @@
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.conditionevaluator.RangerConditionEvaluatorRegistry;
 import org.apache.ranger.plugin.contextenricher.RangerAbstractContextEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerGdsEnricher;
@@ -42,6 +43,8 @@
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
 import org.apache.ranger.plugin.store.AbstractServiceStore;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerBoundedCache;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
@@ -50,8 +53,10 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -59,6 +64,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
 
 import static org.apache.ranger.plugin.contextenricher.RangerGdsEnricher.RETRIEVER_CLASSNAME_OPTION;
 import static org.apache.ranger.plugin.contextenricher.RangerTagEnricher.TAG_RETRIEVER_CLASSNAME_OPTION;
@@ -82,10 +88,10 @@ enum AuditModeEnum {
     private final RangerPluginContext                                            pluginContext;
     private final RangerServiceDef                                               serviceDef;
     private /*final*/ List<RangerPolicy>                                         policies;
-    private final long                                                           policyVersion;
+    private /*final*/ volatile long                                              policyVersion;
     private /*final*/ List<RangerContextEnricher>                                contextEnrichers;
     private final AuditModeEnum                                                  auditModeEnum;
-    private final Map<String, AuditInfo>                                         accessAuditCache;
+    private final RangerBoundedCache<String, AuditInfo>                          accessAuditCache;
     private final String                                                         componentServiceName;
     private final RangerServiceDef                                               componentServiceDef;
     private final Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> policyResourceTrie;
@@ -97,8 +103,15 @@ enum AuditModeEnum {
     private       List<RangerPolicyEvaluator>                                    rowFilterPolicyEvaluators;
     private final List<RangerPolicyEvaluator>                                    auditPolicyEvaluators;
     private       Map<Long, RangerPolicyEvaluator>                               policyEvaluatorsMap;
+    private       RangerPolicyPrincipalIndex                                     principalIndex;
     private       boolean                                                        isContextEnrichersShared = false;
     private       boolean                                                        isPreCleaned             = false;
+    private       int                                                            nextEvaluatorOrdinal     = 0;
+    private       BitSet                                                         freeEvaluatorOrdinals    = new BitSet(); // ordinals of evaluators removed by deltas, for reuse
+    private volatile RangerAdaptiveEvalOrder                                     adaptiveEvalOrder        = null;
+    private       ScheduledFuture<?>                                             adaptiveEvalOrderTask    = null;
+    private volatile RangerInactivePolicies                                      inactivePolicies         = null;
+    private       RangerInactivePolicies.UpdateTask                              inactivePoliciesTask     = null;
 
     RangerPolicyRepository(final RangerPolicyRepository other, final List<RangerPolicyDelta> deltas, long policyVersion) {
         this.serviceName               = other.serviceName;
@@ -116,12 +129,14 @@ enum AuditModeEnum {
         this.componentServiceName      = other.componentServiceName;
         this.componentServiceDef       = other.componentServiceDef;
         this.policyEvaluatorsMap       = new HashMap<>(other.policyEvaluatorsMap);
+        this.nextEvaluatorOrdinal      = other.nextEvaluatorOrdinal;
+        this.freeEvaluatorOrdinals     = (BitSet) other.freeEvaluatorOrdinals.clone();
 
         if (other.policyResourceTrie != null) {
             this.policyResourceTrie = new HashMap<>();
 
             for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.policyResourceTrie.entrySet()) {
-                policyResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
+                policyResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue(), options.enableTriePathCopying));
             }
         } else {
             this.policyResourceTrie = null;
@@ -131,7 +146,7 @@ enum AuditModeEnum {
             this.dataMaskResourceTrie = new HashMap<>();
 
             for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.dataMaskResourceTrie.entrySet()) {
-                dataMaskResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
+                dataMaskResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue(), options.enableTriePathCopying));
             }
         } else {
             this.dataMaskResourceTrie = null;
@@ -141,7 +156,7 @@ enum AuditModeEnum {
             this.rowFilterResourceTrie = new HashMap<>();
 
             for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.rowFilterResourceTrie.entrySet()) {
-                rowFilterResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
+                rowFilterResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue(), options.enableTriePathCopying));
             }
         } else {
             this.rowFilterResourceTrie = null;
@@ -151,16 +166,16 @@ enum AuditModeEnum {
             this.auditFilterResourceTrie = new HashMap<>();
 
             for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.auditFilterResourceTrie.entrySet()) {
-                auditFilterResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
+                auditFilterResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue(), options.enableTriePathCopying));
             }
         } else {
             this.auditFilterResourceTrie = null;
         }
 
         if (other.accessAuditCache != null) {
-            int auditResultCacheSize = other.accessAuditCache.size();
+            int auditResultCacheSize = other.accessAuditCache.getMaximumSize();
 
-            this.accessAuditCache = Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
+            this.accessAuditCache = new RangerBoundedCache<>(auditResultCacheSize);
         } else {
             this.accessAuditCache = null;
         }
@@ -169,6 +184,8 @@ enum AuditModeEnum {
 
         updateResourceTrie(deltas);
 
+        this.principalIndex = options.enablePrincipalIndex ? buildPrincipalIndex() : null;
+
         if (CollectionUtils.isNotEmpty(this.policies)) {
             this.contextEnrichers = isExistingPolicies ? shareWith(other) : buildContextEnrichers(options);
         } else {
@@ -220,7 +237,7 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
                 final int RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE = 64 * 1024;
 
                 int auditResultCacheSize = pluginContext.getConfig().getInt(propertyName, RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE);
-                accessAuditCache = Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
+                accessAuditCache = new RangerBoundedCache<>(auditResultCacheSize);
             } else {
                 accessAuditCache = null;
             }
@@ -253,6 +270,8 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
             rowFilterResourceTrie   = createResourceTrieMap(rowFilterPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
             auditFilterResourceTrie = createResourceTrieMap(auditPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
         }
+
+        this.principalIndex = options.enablePrincipalIndex ? buildPrincipalIndex() : null;
     }
 
     RangerPolicyRepository(ServicePolicies.TagPolicies tagPolicies, RangerPluginContext pluginContext,
@@ -307,6 +326,8 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
             rowFilterResourceTrie   = createResourceTrieMap(rowFilterPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
             auditFilterResourceTrie = createResourceTrieMap(auditPolicyEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace);
         }
+
+        this.principalIndex = options.enablePrincipalIndex ? buildPrincipalIndex() : null;
     }
 
     private List<RangerPolicyEvaluator> buildAuditPolicyEvaluators(Map<String, String> svcConfigs) {
@@ -387,6 +408,22 @@ public StringBuilder toString(StringBuilder sb) {
         }
         sb.append("} ");
 
+        RangerAdaptiveEvalOrder adaptiveEvalOrder = this.adaptiveEvalOrder;
+
+        if (adaptiveEvalOrder != null) {
+            sb.append("adaptiveEvalOrder={");
+            adaptiveEvalOrder.toString(sb);
+            sb.append("} ");
+        }
+
+        RangerConditionEvaluatorRegistry conditionEvaluatorRegistry = options.getConditionEvaluatorRegistry();
+
+        if (conditionEvaluatorRegistry != null) {
+            sb.append("conditionEvaluatorRegistry={");
+            conditionEvaluatorRegistry.toString(sb);
+            sb.append("} ");
+        }
+
         sb.append("auditPolicyEvaluators={");
         if (this.auditPolicyEvaluators != null) {
             for (RangerPolicyEvaluator policyEvaluator : auditPolicyEvaluators) {
@@ -455,9 +492,25 @@ void preCleanup(boolean isForced) {
     void cleanup() {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> cleanup()");
+
+            if (accessAuditCache != null) {
+                LOG.debug("accessAuditCache(serviceName=" + serviceName + ", zoneName=" + zoneName + "): " + accessAuditCache.getStats());
+            }
         }
         preCleanup(false);
 
+        if (adaptiveEvalOrderTask != null && !isContextEnrichersShared) {
+            adaptiveEvalOrderTask.cancel(false);
+
+            adaptiveEvalOrderTask = null;
+        }
+
+        if (inactivePoliciesTask != null && !isContextEnrichersShared) {
+            inactivePoliciesTask.cancel();
+
+            inactivePoliciesTask = null;
+        }
+
         if (CollectionUtils.isNotEmpty(this.contextEnrichers) && !isContextEnrichersShared) {
             for (RangerContextEnricher enricher : this.contextEnrichers) {
                 enricher.cleanup();
@@ -477,7 +530,7 @@ protected void finalize() throws Throwable {
         }
     }
 
-    void reorderPolicyEvaluators() {
+    synchronized void reorderPolicyEvaluators() {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> reorderEvaluators()");
         }
@@ -499,6 +552,77 @@ void reorderPolicyEvaluators() {
         }
     }
 
+    /*
+     * Starts periodic updates of the adaptive order of access policy evaluators, if enabled by
+     * policyengine.option.adaptive.eval.order.interval.ms; no-op if already started, as for a repository shared by
+     * policy engines.
+     */
+    synchronized void startAdaptiveEvalOrder() {
+        if (options.adaptiveEvalOrderIntervalMs > 0 && adaptiveEvalOrderTask == null) {
+            adaptiveEvalOrderTask = RangerAdaptiveEvalOrder.schedule(this, options.adaptiveEvalOrderIntervalMs);
+        }
+    }
+
+    /*
+     * Reorders access policy evaluators, based on statistics of their evaluations since the previous call; called
+     * periodically from a background thread when policyengine.option.adaptive.eval.order.interval.ms is set.
+     */
+    synchronized void updateAdaptiveEvalOrder() {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> updateAdaptiveEvalOrder(serviceName=" + serviceName + ", zoneName=" + zoneName + ")");
+        }
+
+        RangerAdaptiveEvalOrder adaptiveEvalOrder = RangerAdaptiveEvalOrder.compute(policyEvaluators);
+
+        this.adaptiveEvalOrder = adaptiveEvalOrder;
+
+        if (LOG.isDebugEnabled()) {
+            int order = 0;
+
+            for (RangerPolicyEvaluator policyEvaluator : adaptiveEvalOrder.getEvaluators()) {
+                LOG.debug("adaptive policy evaluation order: #" + (++order) + " - policy id=" + policyEvaluator.getPolicyId() + "; evalOrder=" + policyEvaluator.getEvalOrder() + "; stats=" + policyEvaluator.getEvalStats());
+            }
+
+            LOG.debug("<== updateAdaptiveEvalOrder(serviceName=" + serviceName + ", zoneName=" + zoneName + ")");
+        }
+    }
+
+    RangerAdaptiveEvalOrder getAdaptiveEvalOrder() { return adaptiveEvalOrder; }
+
+    /*
+     * Starts updates of policies that are not applicable at current time, as per their validity schedules, if enabled by
+     * policyengine.option.exclude.inactive.policies; no-op if already started, as for a repository shared by policy
+     * engines.
+     */
+    synchronized void startInactivePoliciesUpdate() {
+        if (options.excludeInactivePolicies && inactivePoliciesTask == null) {
+            inactivePoliciesTask = RangerInactivePolicies.schedule(this);
+        }
+    }
+
+    /*
+     * Finds policies that are not applicable at the given time, to exclude them from evaluation of requests till one of
+     * them might become applicable; called from a background thread when policyengine.option.exclude.inactive.policies
+     * is set. Returns the time at which applicability of a policy might change next, to call again then.
+     */
+    synchronized long updateInactivePolicies(long now) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> updateInactivePolicies(serviceName=" + serviceName + ", zoneName=" + zoneName + ", now=" + now + ")");
+        }
+
+        RangerInactivePolicies inactivePolicies = RangerInactivePolicies.compute(policyEvaluatorsMap.values(), now);
+
+        this.inactivePolicies = inactivePolicies.isEmpty() ? null : inactivePolicies;
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== updateInactivePolicies(serviceName=" + serviceName + ", zoneName=" + zoneName + ", now=" + now + "): " + inactivePolicies);
+        }
+
+        return inactivePolicies.getNextChangeTime();
+    }
+
+    RangerInactivePolicies getInactivePolicies() { return inactivePolicies; }
+
     public String getServiceName() { return serviceName; }
 
     String getZoneName() { return zoneName; }
@@ -515,6 +639,10 @@ long getPolicyVersion() {
         return policyVersion;
     }
 
+    void setPolicyVersion(long policyVersion) { // for updates in place
+        this.policyVersion = policyVersion;
+    }
+
     AuditModeEnum getAuditModeEnum() { return auditModeEnum; }
 
     boolean setAuditEnabledFromCache(RangerAccessRequest request, RangerAccessResult result) {
@@ -601,6 +729,8 @@ List<RangerPolicyEvaluator> getAuditPolicyEvaluators() {
 
     RangerPolicyEngineOptions getOptions() { return options; }
 
+    public RangerConditionEvaluatorRegistry getConditionEvaluatorRegistry() { return options.getConditionEvaluatorRegistry(); }
+
     List<PolicyEvaluatorForTag> getLikelyMatchPolicyEvaluators(RangerAccessRequest request, Set<RangerTagForEval> tags, int policyType, Date accessTime) {
         List<PolicyEvaluatorForTag> ret = Collections.EMPTY_LIST;
 
@@ -611,10 +741,14 @@ List<PolicyEvaluatorForTag> getLikelyMatchPolicyEvaluators(RangerAccessRequest r
             for (RangerTagForEval tag : tags) {
             	if (tag.isApplicable(accessTime)) {
 		            RangerAccessRequest  tagRequest  = new RangerTagAccessRequest(tag, getServiceDef(), request);
-		            List<RangerPolicyEvaluator> evaluators = getLikelyMatchPolicyEvaluators(tagRequest, policyType);
+		            List<RangerPolicyEvaluator> evaluators = accessTime != null ? getPolicyEvaluatorsToEvaluate(tagRequest, policyType) : getLikelyMatchPolicyEvaluators(tagRequest, policyType);
 
 		            if (CollectionUtils.isNotEmpty(evaluators)) {
 			            for (RangerPolicyEvaluator evaluator : evaluators) {
+			                if (evaluator.getValidityScheduleEvaluatorsCount() > 0) { // applicability depends on access-time
+			                    RangerAccessRequestUtil.setIsContextSensitiveEvaluation(request.getContext(), Boolean.TRUE);
+			                }
+
 			                if (evaluator.isApplicable(accessTime)) {
                                 ret.add(new PolicyEvaluatorForTag(evaluator, tag));
                             }
@@ -630,6 +764,10 @@ List<PolicyEvaluatorForTag> getLikelyMatchPolicyEvaluators(RangerAccessRequest r
             if (CollectionUtils.isNotEmpty(ret)) {
                 switch (policyType) {
                     case RangerPolicy.POLICY_TYPE_ACCESS:
+                        RangerAdaptiveEvalOrder adaptiveEvalOrder = this.adaptiveEvalOrder;
+
+                        Collections.sort(ret, adaptiveEvalOrder != null ? adaptiveEvalOrder.getTagEvaluatorComparator() : PolicyEvaluatorForTag.EVAL_ORDER_COMPARATOR);
+                        break;
                     case RangerPolicy.POLICY_TYPE_AUDIT:
                         Collections.sort(ret, PolicyEvaluatorForTag.EVAL_ORDER_COMPARATOR);
                         break;
@@ -675,6 +813,49 @@ public List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(RangerAccessRe
         }
     }
 
+    /*
+     * Returns evaluators to evaluate the given request, i.e. getLikelyMatchPolicyEvaluators() excluding policies that are
+     * not applicable at the access-time of the request. Not to be used to find resource ACLs, which include policies with
+     * validity schedules as conditional ACLs.
+     */
+    List<RangerPolicyEvaluator> getPolicyEvaluatorsToEvaluate(RangerAccessRequest request, int policyType) {
+        List<RangerPolicyEvaluator> ret              = getLikelyMatchPolicyEvaluators(request, policyType);
+        RangerInactivePolicies      inactivePolicies = this.inactivePolicies;
+        Date                        accessTime       = inactivePolicies != null && !ret.isEmpty() ? request.getAccessTime() : null;
+
+        if (accessTime != null) {
+            List<RangerPolicyEvaluator> activeEvaluators = null; // returned list might be shared, like getPolicyEvaluators(); hence filtered to a new list
+
+            for (int i = 0; i < ret.size(); i++) {
+                RangerPolicyEvaluator evaluator = ret.get(i);
+
+                if (inactivePolicies.isInactive(evaluator, accessTime.getTime())) {
+                    if (activeEvaluators == null) {
+                        activeEvaluators = new ArrayList<>(ret.subList(0, i));
+                    }
+                } else if (activeEvaluators != null) {
+                    activeEvaluators.add(evaluator);
+                }
+            }
+
+            // as the result then depends on the access-time, mark the evaluation as context-sensitive - like the caller does for policies having validity schedules
+            if (activeEvaluators != null) {
+                RangerAccessRequestUtil.setIsContextSensitiveEvaluation(request.getContext(), Boolean.TRUE);
+
+                ret = activeEvaluators;
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * Returns the filter to find evaluators that apply to the user of the given request; null if the principal index is
+     * not enabled, i.e. policyengine.option.enable.principal.index is not set.
+     */
+    RangerPolicyPrincipalIndex.PrincipalFilter getPrincipalFilter(RangerAccessRequest request) {
+        return principalIndex != null ? principalIndex.getFilter(request) : null;
+    }
 
     Map<Long, RangerPolicyEvaluator> getPolicyEvaluatorsMap() { return policyEvaluatorsMap; }
 
@@ -683,10 +864,15 @@ RangerPolicyEvaluator getPolicyEvaluator(Long id) {
     }
 
     private List<RangerPolicyEvaluator> getLikelyMatchAccessPolicyEvaluators(RangerAccessRequest request) {
-        RangerAccessResource resource = request.getResource();
-        String resourceStr = resource == null ? null : resource.getAsString();
+        RangerAccessResource    resource          = request.getResource();
+        String                  resourceStr       = resource == null ? null : resource.getAsString();
+        RangerAdaptiveEvalOrder adaptiveEvalOrder = this.adaptiveEvalOrder;
 
-        return policyResourceTrie == null || StringUtils.isEmpty(resourceStr) ? getPolicyEvaluators() : getLikelyMatchPolicyEvaluators(policyResourceTrie, request);
+        if (adaptiveEvalOrder == null) {
+            return policyResourceTrie == null || StringUtils.isEmpty(resourceStr) ? getPolicyEvaluators() : getLikelyMatchPolicyEvaluators(policyResourceTrie, request);
+        } else {
+            return policyResourceTrie == null || StringUtils.isEmpty(resourceStr) ? adaptiveEvalOrder.getEvaluators() : getLikelyMatchPolicyEvaluators(policyResourceTrie, request, adaptiveEvalOrder);
+        }
     }
 
     private List<RangerPolicyEvaluator> getLikelyMatchDataMaskPolicyEvaluators(RangerAccessRequest request) {
@@ -711,6 +897,10 @@ List<RangerPolicyEvaluator> getLikelyMatchAuditPolicyEvaluators(RangerAccessRequ
     }
 
     private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> resourceTrie, RangerAccessRequest request) {
+        return getLikelyMatchPolicyEvaluators(resourceTrie, request, RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+    }
+
+    private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> resourceTrie, RangerAccessRequest request, Comparator<RangerPolicyEvaluator> evalOrderComparator) {
         List<RangerPolicyEvaluator> ret          = Collections.EMPTY_LIST;
 
         RangerAccessResource              resource = request.getResource();
@@ -747,7 +937,7 @@ private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, R
                     }
                 }
 
-                ret.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+                ret.sort(evalOrderComparator);
             }
         }
 
@@ -908,6 +1098,7 @@ private static boolean skipBuildingPolicyEvaluator(RangerPolicy policy, RangerPo
     private void init(RangerPolicyEngineOptions options) {
         RangerServiceDefHelper serviceDefHelper = new RangerServiceDefHelper(serviceDef, false);
         options.setServiceDefHelper(serviceDefHelper);
+        options.setConditionEvaluatorRegistry(options.enableConditionMemoization ? new RangerConditionEvaluatorRegistry() : null);
 
         List<RangerPolicyEvaluator> policyEvaluators = new ArrayList<>();
         List<RangerPolicyEvaluator> dataMaskPolicyEvaluators  = new ArrayList<>();
@@ -1192,14 +1383,32 @@ private List<RangerPolicyEvaluator> getReorderedPolicyEvaluators(List<RangerPoli
         return ret;
     }
 
+    private RangerPolicyPrincipalIndex buildPrincipalIndex() {
+        RangerPolicyPrincipalIndex ret = new RangerPolicyPrincipalIndex();
+
+        ret.addAll(policyEvaluators);
+        ret.addAll(dataMaskPolicyEvaluators);
+        ret.addAll(rowFilterPolicyEvaluators);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("RangerPolicyRepository.buildPrincipalIndex(serviceName=" + serviceName + ", zoneName=" + zoneName + "): " + ret);
+        }
+
+        return ret;
+    }
+
     private Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> createResourceTrieMap(List<? extends RangerPolicyEvaluator> evaluators, boolean optimizeTrieForRetrieval, boolean optimizeTrieForSpace) {
         final Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> ret;
 
         if (serviceDef != null && CollectionUtils.isNotEmpty(serviceDef.getResources())) {
             ret = new HashMap<>();
 
+            for (RangerPolicyEvaluator evaluator : evaluators) {
+                assignOrdinals(evaluator);
+            }
+
             for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
-                ret.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, evaluators, optimizeTrieForRetrieval, optimizeTrieForSpace, pluginContext));
+                ret.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, evaluators, optimizeTrieForRetrieval, optimizeTrieForSpace, options.compactTrie, pluginContext));
             }
         } else {
             ret = null;
@@ -1222,7 +1431,7 @@ private void updateTrie(Map<String, RangerResourceTrie<RangerPolicyResourceEvalu
                 if (RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE == policyDeltaType || RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE == policyDeltaType) {
                     LOG.warn("policyDeltaType is not for POLICY_CREATE and trie for resourceDef:[" + resourceDefName + "] was null! Should not have happened!!");
                 }
-                trie = new RangerResourceTrie<>(resourceDef, new ArrayList<>(), options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, pluginContext);
+                trie = new RangerResourceTrie<>(resourceDef, new ArrayList<>(), options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, options.compactTrie, pluginContext);
                 trieMap.put(resourceDefName, trie);
             }
 
@@ -1245,6 +1454,8 @@ private void updateTrie(Map<String, RangerResourceTrie<RangerPolicyResourceEvalu
 
     private void addEvaluatorToTrie(RangerPolicyEvaluator newEvaluator, RangerResourceTrie<RangerPolicyResourceEvaluator> trie, String resourceDefName) {
         if (newEvaluator != null) {
+            assignOrdinals(newEvaluator);
+
             for (RangerPolicyResourceEvaluator resourceEvaluator : newEvaluator.getResourceEvaluators()) {
                 RangerPolicy.RangerPolicyResource resource = resourceEvaluator.getPolicyResource().get(resourceDefName);
 
@@ -1255,6 +1466,36 @@ private void addEvaluatorToTrie(RangerPolicyEvaluator newEvaluator, RangerResour
         }
     }
 
+    // ordinals are used by the tries to represent large evaluator-sets as bitsets; an evaluator retains its ordinal in repositories created with deltas
+    private void assignOrdinals(RangerPolicyEvaluator evaluator) {
+        for (RangerPolicyResourceEvaluator resourceEvaluator : evaluator.getResourceEvaluators()) {
+            if (resourceEvaluator.getOrdinal() < 0) {
+                int ordinal = freeEvaluatorOrdinals.nextSetBit(0); // reuse the lowest free ordinal, to keep bitsets small
+
+                if (ordinal >= 0) {
+                    freeEvaluatorOrdinals.clear(ordinal);
+                } else {
+                    ordinal = nextEvaluatorOrdinal++;
+                }
+
+                resourceEvaluator.setOrdinal(ordinal);
+            }
+        }
+    }
+
+    /*
+     * ordinals of evaluators removed from the tries are reused for evaluators added by later deltas; otherwise ordinals,
+     * and the size of bitsets, would keep growing with every policy update. The removed evaluators keep their ordinals,
+     * as these are still used by the repository the deltas are applied to.
+     */
+    private static void releaseOrdinals(RangerPolicyEvaluator evaluator, BitSet releasedOrdinals) {
+        for (RangerPolicyResourceEvaluator resourceEvaluator : evaluator.getResourceEvaluators()) {
+            if (resourceEvaluator.getOrdinal() >= 0) {
+                releasedOrdinals.set(resourceEvaluator.getOrdinal());
+            }
+        }
+    }
+
     private void removeEvaluatorFromTrie(RangerPolicyEvaluator oldEvaluator, RangerResourceTrie<RangerPolicyResourceEvaluator> trie, String resourceDefName) {
         if (oldEvaluator != null) {
             for (RangerPolicyResourceEvaluator resourceEvaluator : oldEvaluator.getResourceEvaluators()) {
@@ -1365,7 +1606,7 @@ private void deletePolicyEvaluator(RangerPolicyEvaluator evaluator) {
         }
     }
 
-    private RangerPolicyEvaluator update(final RangerPolicyDelta delta, final RangerPolicyEvaluator currentEvaluator) {
+    private RangerPolicyEvaluator update(final RangerPolicyDelta delta, final RangerPolicyEvaluator currentEvaluator, final BitSet releasedOrdinals) {
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RangerPolicyRepository.update(delta=" + delta + ", currentEvaluator=" + (currentEvaluator == null ? null : currentEvaluator.getPolicy()) + ")");
@@ -1408,6 +1649,10 @@ private RangerPolicyEvaluator update(final RangerPolicyDelta delta, final Ranger
 
         if (trieMap != null) {
             updateTrie(trieMap, changeType, currentEvaluator, newEvaluator);
+
+            if (currentEvaluator != null) {
+                releaseOrdinals(currentEvaluator, releasedOrdinals);
+            }
         }
 
         if (changeType == RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE || changeType == RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE) {
@@ -1462,11 +1707,20 @@ boolean getIsAudited() {
         }
     }
 
-    void reinit(List<RangerPolicyDelta> deltas) {
+    synchronized void reinit(List<RangerPolicyDelta> deltas) {
         final boolean isExistingPolicies = CollectionUtils.isNotEmpty(this.policies);
 
         updateResourceTrie(deltas);
 
+        this.adaptiveEvalOrder = null; // evaluators are updated in place; evaluate in the static order, until the next update of adaptive order
+        this.inactivePolicies  = null; // evaluators are updated in place; don't exclude any, until the next update of inactive policies
+
+        if (inactivePoliciesTask != null) {
+            inactivePoliciesTask.scheduleAt(System.currentTimeMillis());
+        }
+
+        this.principalIndex = options.enablePrincipalIndex ? buildPrincipalIndex() : null;
+
         if (StringUtils.isEmpty(zoneName) && CollectionUtils.isNotEmpty(this.policies)) {
             if (!isExistingPolicies) {
                 this.contextEnrichers = buildContextEnrichers(options);
@@ -1478,7 +1732,8 @@ void reinit(List<RangerPolicyDelta> deltas) {
 
     private void updateResourceTrie(List<RangerPolicyDelta> deltas) {
 
-        boolean[] flags = new boolean[RangerPolicy.POLICY_TYPES.length];
+        boolean[] flags            = new boolean[RangerPolicy.POLICY_TYPES.length];
+        BitSet    releasedOrdinals = new BitSet();
 
         for (RangerPolicyDelta delta : deltas) {
             final Integer changeType  = delta.getChangeType();
@@ -1525,7 +1780,7 @@ private void updateResourceTrie(List<RangerPolicyDelta> deltas) {
                     break;
             }
 
-            evaluator = update(delta, evaluator);
+            evaluator = update(delta, evaluator, releasedOrdinals);
 
             if (evaluator != null) {
                 switch (changeType) {
@@ -1556,6 +1811,7 @@ private void updateResourceTrie(List<RangerPolicyDelta> deltas) {
                 if (trie != null) {
                     for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : trie.entrySet()) {
                         entry.getValue().wrapUpUpdate();
+                        entry.getValue().compact();
                     }
                 }
             }
@@ -1564,7 +1820,10 @@ private void updateResourceTrie(List<RangerPolicyDelta> deltas) {
         if (auditFilterResourceTrie != null) {
             for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : auditFilterResourceTrie.entrySet()) {
                 entry.getValue().wrapUpUpdate();
+                entry.getValue().compact();
             }
         }
+
+        freeEvaluatorOrdinals.or(releasedOrdinals);
     }
 }
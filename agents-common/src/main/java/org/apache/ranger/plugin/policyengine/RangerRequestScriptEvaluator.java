@@ -26,10 +26,12 @@
 import org.apache.ranger.authorization.utils.StringUtil;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
 import org.apache.ranger.plugin.util.MacroProcessor;
+import org.apache.ranger.plugin.util.RangerBoundedCache;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerTimeRangeChecker;
 import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.ScriptEngineUtil;
 import org.apache.ranger.plugin.util.JavaScriptEdits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,7 +77,10 @@ public final class RangerRequestScriptEvaluator {
 	private static final String  STR_QUOTE  = "'";
 	private static final String  STR_COMMA  = ",";
 
-	private static final MacroProcessor MACRO_PROCESSOR = new MacroProcessor(getMacrosMap());
+	private static final MacroProcessor MACRO_PROCESSOR        = new MacroProcessor(getMacrosMap());
+	private static final int            MAX_EXECUTABLE_SCRIPTS = 1024;
+
+	private static final RangerBoundedCache<String, String> EXECUTABLE_SCRIPTS = new RangerBoundedCache<>(MAX_EXECUTABLE_SCRIPTS);
 
 	private static String[] dateFormatStrings = null;
 
@@ -181,6 +186,13 @@ public static String expandMacros(String script) {
 		return MACRO_PROCESSOR.expandMacros(script);
 	}
 
+	// for evaluation of native scripts only: scripts can't be evaluated with evaluateScript() without a script engine
+	public RangerRequestScriptEvaluator(RangerAccessRequest accessRequest) {
+		this.accessRequest = accessRequest.getReadOnlyCopy();
+		this.scriptEngine  = null;
+		this.bindings      = null;
+	}
+
 	public RangerRequestScriptEvaluator(RangerAccessRequest accessRequest, ScriptEngine scriptEngine) {
 		this(accessRequest, scriptEngine, true);
 	}
@@ -207,7 +219,7 @@ public RangerRequestScriptEvaluator(RangerAccessRequest accessRequest, ScriptEng
 
 		if (StringUtils.isNotBlank(preExecScript)) {
 			try {
-				scriptEngine.eval(preExecScript, bindings);
+				ScriptEngineUtil.eval(scriptEngine, preExecScript, bindings);
 			} catch (ScriptException excp) {
 				LOG.error("RangerRequestScriptEvaluator(): initialization failed", excp);
 			}
@@ -215,13 +227,23 @@ public RangerRequestScriptEvaluator(RangerAccessRequest accessRequest, ScriptEng
 	}
 
 	public Object evaluateScript(String script) {
-		script = expandMacros(script);
+		return evaluateScriptImpl(getExecutableScript(script));
+	}
 
-		return evaluateScriptImpl(script);
+	public Object evaluateScript(RangerNativeScript script) {
+		return script.evaluate(this);
 	}
 
 	public Object evaluateConditionScript(String script) {
-		Object ret = evaluateScript(script);
+		return evaluateConditionScriptResult(evaluateScript(script));
+	}
+
+	public Object evaluateConditionScript(RangerNativeScript script) {
+		return evaluateConditionScriptResult(evaluateScript(script));
+	}
+
+	private Object evaluateConditionScriptResult(Object scriptResult) {
+		Object ret = scriptResult;
 
 		if (ret == null) {
 			ret = getResult();
@@ -243,29 +265,43 @@ private Object evaluateScriptImpl(String script) {
 				perf = RangerPerfTracer.getPerfTracer(PERF_POLICY_CONDITION_SCRIPT_EVAL, "RangerRequestScriptEvaluator.evaluateScript(requestHash=" + accessRequest.hashCode() + ")");
 			}
 
-			String preExec = SCRIPT_SAFE_PREEXEC;
+			ret = ScriptEngineUtil.eval(scriptEngine, script, bindings);
+		} catch (NullPointerException nullp) {
+			LOG.error("RangerRequestScriptEvaluator.evaluateScript(): eval called with NULL argument(s)", nullp);
+		} catch (ScriptException excp) {
+			LOG.error("RangerRequestScriptEvaluator.evaluateScript(): failed to evaluate script", excp);
+		} catch (Throwable t) {
+			LOG.error("RangerRequestScriptEvaluator.evaluateScript(): failed to evaluate script", t);
+		} finally {
+			RangerPerfTracer.log(perf);
+		}
+
+		return ret;
+	}
+
+	// script to evaluate for the given condition script: with macros expanded, and preceded by pre-exec and polyfills
+	private static String getExecutableScript(String script) {
+		String ret = EXECUTABLE_SCRIPTS.get(script);
 
-			if (script.contains(".includes(")) {
+		if (ret == null) {
+			String executableScript = expandMacros(script);
+			String preExec          = SCRIPT_SAFE_PREEXEC;
+
+			if (executableScript.contains(".includes(")) {
 				preExec += SCRIPT_POLYFILL_INCLUDES;
 			}
 
-			if (script.contains(".intersects(")) {
+			if (executableScript.contains(".intersects(")) {
 				preExec += SCRIPT_POLYFILL_INTERSECTS;
 			}
 
-			if (JavaScriptEdits.hasDoubleBrackets(script)) {
-				script = JavaScriptEdits.replaceDoubleBrackets(script);
+			if (JavaScriptEdits.hasDoubleBrackets(executableScript)) {
+				executableScript = JavaScriptEdits.replaceDoubleBrackets(executableScript);
 			}
 
-			ret = scriptEngine.eval(preExec + script, bindings);
-		} catch (NullPointerException nullp) {
-			LOG.error("RangerRequestScriptEvaluator.evaluateScript(): eval called with NULL argument(s)", nullp);
-		} catch (ScriptException excp) {
-			LOG.error("RangerRequestScriptEvaluator.evaluateScript(): failed to evaluate script", excp);
-		} catch (Throwable t) {
-			LOG.error("RangerRequestScriptEvaluator.evaluateScript(): failed to evaluate script", t);
-		} finally {
-			RangerPerfTracer.log(perf);
+			ret = preExec + executableScript;
+
+			EXECUTABLE_SCRIPTS.put(script, ret);
 		}
 
 		return ret;
@@ -766,6 +802,22 @@ public String userAttrQ(String attrName, Object... args) {
 		return toCsvQ(Collections.singletonList(attrVal), args);
 	}
 
+	// USER.attrName in scripts
+	String getUserAttribute(String attrName) {
+		init();
+
+		return userAttrs.get(attrName);
+	}
+
+	// TAG.attrName in scripts
+	String getCurrentTagAttribute(String attrName) {
+		init();
+
+		Object ret = tag.get(attrName);
+
+		return ret != null ? ret.toString() : null;
+	}
+
 	public boolean hasTag(String tagName) {
 		init();
 
@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher.MatchType;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerBoundedCache;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Index of resource ACLs computed by RangerPolicyEngineImpl.getResourceACLs(), keyed by the resource, its zone and the
+ * tags associated with it.
+ *
+ * ACLs of a resource are materialized in the index when first computed, and are served from the index until they are
+ * affected by a policy change. When policy deltas are applied, the index of the new policy engine retains entries of
+ * the previous engine which are not affected by the deltas: i.e. entries computed without the updated/deleted policies,
+ * and whose resource isn't matched by the created/updated policies. As tags of the resource are part of the key, a
+ * change in tags of a resource leads to a lookup of a different entry; the stale entry is eventually evicted.
+ *
+ * ACLs that depend on the request - like those from policies having macros, such as {USER} or {OWNER}, in resources -
+ * are not indexed. The index is bounded by the estimated memory used by entries, with W-TinyLFU eviction policy.
+ */
+public class RangerResourceACLIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerResourceACLIndex.class);
+
+    public static final int DEFAULT_MAX_MEMORY_MB = 64;
+
+    private final PolicyEngine                              policyEngine;
+    private final RangerBoundedCache<IndexKey, IndexedACLs> entries;
+
+    public RangerResourceACLIndex(PolicyEngine policyEngine, int maxMemoryMB) {
+        this.policyEngine = policyEngine;
+        this.entries      = new RangerBoundedCache<>((maxMemoryMB > 0 ? maxMemoryMB : DEFAULT_MAX_MEMORY_MB) * 1024L * 1024L, RangerResourceACLIndex::estimateSize);
+
+        LOG.info("RangerResourceACLIndex(serviceName={}): maxMemory={} bytes", policyEngine.getServiceName(), entries.getMaximumWeight());
+    }
+
+    /*
+     * creates index for policyEngine, which is created from other.policyEngine by applying deltas in servicePolicies.
+     * Entries in other that are not affected by the deltas are retained in the new index.
+     */
+    public RangerResourceACLIndex(PolicyEngine policyEngine, RangerResourceACLIndex other, ServicePolicies servicePolicies) {
+        this.policyEngine = policyEngine;
+        this.entries      = new RangerBoundedCache<>(other.entries.getMaximumWeight(), other.entries.getWeigher());
+
+        DeltaFilter filter = DeltaFilter.create(policyEngine, other.policyEngine, servicePolicies);
+
+        if (filter != null) {
+            other.entries.forEach((key, value) -> {
+                if (!filter.isAffected(key, value)) {
+                    entries.put(key, value);
+                }
+            });
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("RangerResourceACLIndex(serviceName={}, policyVersion={}): retained {} of {} entries", policyEngine.getServiceName(), policyEngine.getPolicyVersion(), entries.size(), other.entries.size());
+        }
+    }
+
+    /*
+     * returns null if ACLs for the given request can't be indexed. To be called after the request is pre-processed, i.e.
+     * after zone and tags for the resource are set in the request context
+     */
+    public IndexKey getKey(RangerAccessRequest request, String zoneName, Integer policyType) {
+        RangerAccessResource resource    = request.getResource();
+        String               resourceKey = resource != null ? resource.getCacheKey() : null;
+        final IndexKey       ret;
+
+        if (resourceKey != null) {
+            Set<RangerTagForEval> tags = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+
+            ret = new IndexKey(zoneName, policyType, resourceKey, request.getResourceMatchingScope(), request.getResourceElementMatchingScopes(), tags);
+        } else {
+            ret = null;
+        }
+
+        return ret;
+    }
+
+    /*
+     * returns a copy of the indexed ACLs, which the caller can update
+     */
+    public RangerResourceACLs get(IndexKey key) {
+        IndexedACLs indexed = entries.get(key);
+
+        return indexed != null ? new RangerResourceACLs(indexed.acls) : null;
+    }
+
+    /*
+     * evaluators: all evaluators considered while computing acls. Only IDs of resource policies that match the resource
+     * are recorded in the entry, as other candidates don't contribute to the ACLs; entries having tags are dropped on
+     * any change to tag policies
+     */
+    public void put(IndexKey key, RangerAccessRequest request, RangerResourceACLs acls, Collection<RangerPolicyEvaluator> evaluators) {
+        RangerAccessResource resource  = copyOf(request.getResource());
+        Set<Long>            policyIds = new HashSet<>();
+
+        for (RangerPolicyEvaluator evaluator : evaluators) {
+            if (isDynamic(evaluator)) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("RangerResourceACLIndex.put({}): not indexed, as ACLs from policy id={} depend on the request", key, evaluator.getPolicyId());
+                }
+
+                return;
+            }
+
+            if (isMatch(evaluator, resource, key.elementMatchingScopes, request.getContext())) {
+                policyIds.add(evaluator.getPolicyId());
+            }
+        }
+
+        entries.put(key, new IndexedACLs(new RangerResourceACLs(acls), resource, policyIds));
+    }
+
+    public int size() { return entries.size(); }
+
+    public long getMemoryUsage() { return entries.getWeight(); }
+
+    public RangerBoundedCache.Stats getStats() { return entries.getStats(); }
+
+    @Override
+    public String toString() {
+        return "RangerResourceACLIndex={maxMemory=" + entries.getMaximumWeight() + ", memory=" + entries.getWeight() + ", " + entries.getStats() + "}";
+    }
+
+    private static boolean isDynamic(RangerPolicyEvaluator evaluator) {
+        List<RangerPolicyResourceEvaluator> resourceEvaluators = evaluator.getResourceEvaluators();
+
+        if (resourceEvaluators != null) {
+            for (RangerPolicyResourceEvaluator resourceEvaluator : resourceEvaluators) {
+                RangerPolicyResourceMatcher matcher = resourceEvaluator.getPolicyResourceMatcher();
+
+                if (matcher != null && matcher.getNeedsDynamicEval()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isMatch(RangerPolicyEvaluator evaluator, RangerAccessResource resource, Map<String, RangerAccessRequest.ResourceElementMatchingScope> elementMatchingScopes, Map<String, Object> evalContext) {
+        for (RangerPolicyResourceEvaluator resourceEvaluator : evaluator.getResourceEvaluators()) {
+            if (resourceEvaluator.getPolicyResourceMatcher().getMatchType(resource, elementMatchingScopes, evalContext) != MatchType.NONE) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static RangerAccessResource copyOf(RangerAccessResource resource) {
+        RangerAccessResourceImpl ret = new RangerAccessResourceImpl(new HashMap<>(resource.getAsMap()), resource.getOwnerUser());
+
+        ret.setServiceDef(resource.getServiceDef());
+
+        return ret;
+    }
+
+    // rough estimate of the heap used by an entry, in bytes
+    private static int estimateSize(IndexKey key, IndexedACLs value) {
+        RangerResourceACLs acls = value.acls;
+        long               ret  = 256 + 2L * key.resource.length() + 64L * (key.tags.size() + value.policyIds.size());
+
+        ret += estimateSize(acls.getUserACLs()) + estimateSize(acls.getGroupACLs()) + estimateSize(acls.getRoleACLs());
+        ret += 256L * (acls.getRowFilters().size() + acls.getDataMasks().size());
+
+        return (int) Math.min(ret, Integer.MAX_VALUE);
+    }
+
+    private static long estimateSize(Map<String, Map<String, RangerResourceACLs.AccessResult>> acls) {
+        long ret = 0;
+
+        for (Map.Entry<String, Map<String, RangerResourceACLs.AccessResult>> entry : acls.entrySet()) {
+            ret += 96 + 2L * entry.getKey().length() + 64L * entry.getValue().size();
+        }
+
+        return ret;
+    }
+
+    public static class IndexKey {
+        private final String                                                        zoneName;
+        private final Integer                                                       policyType;
+        private final String                                                        resource;
+        private final RangerAccessRequest.ResourceMatchingScope                     matchingScope;
+        private final Map<String, RangerAccessRequest.ResourceElementMatchingScope> elementMatchingScopes;
+        private final Set<RangerTagForEval>                                         tags;
+        private final int                                                           hashCode;
+
+        IndexKey(String zoneName, Integer policyType, String resource, RangerAccessRequest.ResourceMatchingScope matchingScope,
+                 Map<String, RangerAccessRequest.ResourceElementMatchingScope> elementMatchingScopes, Set<RangerTagForEval> tags) {
+            this.zoneName              = StringUtils.isEmpty(zoneName) ? null : zoneName;
+            this.policyType            = policyType;
+            this.resource              = resource;
+            this.matchingScope         = matchingScope;
+            this.elementMatchingScopes = MapUtils.isNotEmpty(elementMatchingScopes) ? new HashMap<>(elementMatchingScopes) : Collections.emptyMap();
+            this.tags                  = CollectionUtils.isNotEmpty(tags) ? new HashSet<>(tags) : Collections.emptySet();
+            this.hashCode              = Objects.hash(this.zoneName, policyType, resource, matchingScope, this.elementMatchingScopes, this.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof IndexKey)) {
+                return false;
+            }
+
+            IndexKey other = (IndexKey) obj;
+
+            return hashCode == other.hashCode &&
+                   Objects.equals(resource, other.resource) &&
+                   Objects.equals(policyType, other.policyType) &&
+                   Objects.equals(zoneName, other.zoneName) &&
+                   Objects.equals(matchingScope, other.matchingScope) &&
+                   Objects.equals(elementMatchingScopes, other.elementMatchingScopes) &&
+                   Objects.equals(tags, other.tags);
+        }
+
+        @Override
+        public String toString() {
+            return "IndexKey={zoneName=" + zoneName + ", policyType=" + policyType + ", resource=" + resource + ", matchingScope=" + matchingScope
+                    + ", elementMatchingScopes=" + elementMatchingScopes + ", tagCount=" + tags.size() + "}";
+        }
+    }
+
+    private static class IndexedACLs {
+        final RangerResourceACLs   acls;
+        final RangerAccessResource resource;
+        final Set<Long>            policyIds;
+
+        IndexedACLs(RangerResourceACLs acls, RangerAccessResource resource, Set<Long> policyIds) {
+            this.acls      = acls;
+            this.resource  = resource;
+            this.policyIds = policyIds;
+        }
+    }
+
+    /*
+     * Finds index entries affected by policy deltas
+     */
+    private static class DeltaFilter {
+        final PolicyEngine                             policyEngine;
+        final PolicyEngine                             oldPolicyEngine;
+        final Set<Long>                                changedPolicyIds    = new HashSet<>();
+        final Map<String, List<RangerPolicyEvaluator>> newEvaluatorsByZone = new HashMap<>(); // created/updated resource policies
+        boolean                                        hasTagPolicyChanges = false;
+
+        private DeltaFilter(PolicyEngine policyEngine, PolicyEngine oldPolicyEngine) {
+            this.policyEngine    = policyEngine;
+            this.oldPolicyEngine = oldPolicyEngine;
+        }
+
+        /*
+         * returns null if the deltas can't be applied to individual entries - for example, when the service-def is changed
+         */
+        static DeltaFilter create(PolicyEngine policyEngine, PolicyEngine oldPolicyEngine, ServicePolicies servicePolicies) {
+            if (servicePolicies == null || servicePolicies.getServiceDef() == null || servicePolicies.getPolicyDeltas() == null) {
+                return null;
+            }
+
+            List<RangerPolicyDelta> deltas = new ArrayList<>(servicePolicies.getPolicyDeltas());
+
+            if (MapUtils.isNotEmpty(servicePolicies.getSecurityZones())) {
+                for (ServicePolicies.SecurityZoneInfo zoneInfo : servicePolicies.getSecurityZones().values()) {
+                    if (zoneInfo.getPolicyDeltas() != null) {
+                        deltas.addAll(zoneInfo.getPolicyDeltas());
+                    }
+                }
+            }
+
+            DeltaFilter ret         = new DeltaFilter(policyEngine, oldPolicyEngine);
+            String      serviceType = servicePolicies.getServiceDef().getName();
+
+            for (RangerPolicyDelta delta : deltas) {
+                Integer changeType = delta.getChangeType();
+                Long    policyId   = delta.getPolicyId();
+
+                if (changeType == null || policyId == null) {
+                    return null;
+                }
+
+                switch (changeType) {
+                    case RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE:
+                    case RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE:
+                        ret.changedPolicyIds.add(policyId);
+
+                        if (!StringUtils.equals(serviceType, delta.getServiceType())) {
+                            ret.hasTagPolicyChanges = true;
+                        } else {
+                            String                 zoneName   = StringUtils.isEmpty(delta.getZoneName()) ? null : delta.getZoneName();
+                            RangerPolicyRepository repository = zoneName == null ? policyEngine.getPolicyRepository() : policyEngine.getZonePolicyRepositories().get(zoneName);
+                            RangerPolicyEvaluator  evaluator  = repository != null ? repository.getPolicyEvaluator(policyId) : null;
+
+                            if (evaluator != null) {
+                                ret.newEvaluatorsByZone.computeIfAbsent(zoneName, k -> new ArrayList<>()).add(evaluator);
+                            }
+                        }
+                    break;
+
+                    case RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE:
+                        ret.changedPolicyIds.add(policyId);
+
+                        if (!StringUtils.equals(serviceType, delta.getServiceType())) {
+                            ret.hasTagPolicyChanges = true;
+                        }
+                    break;
+
+                    default:
+                        return null;
+                }
+            }
+
+            return ret;
+        }
+
+        boolean isAffected(IndexKey key, IndexedACLs value) {
+            if (hasTagPolicyChanges && !key.tags.isEmpty()) {
+                return true;
+            }
+
+            if (key.zoneName != null) {
+                if (!policyEngine.getZonePolicyRepositories().containsKey(key.zoneName) ||
+                    policyEngine.isResourceZoneAssociatedWithTagService(key.zoneName) != oldPolicyEngine.isResourceZoneAssociatedWithTagService(key.zoneName)) {
+                    return true;
+                }
+            }
+
+            for (Long policyId : value.policyIds) {
+                if (changedPolicyIds.contains(policyId)) {
+                    return true;
+                }
+            }
+
+            List<RangerPolicyEvaluator> newEvaluators = newEvaluatorsByZone.get(key.zoneName);
+
+            if (newEvaluators != null) {
+                for (RangerPolicyEvaluator evaluator : newEvaluators) {
+                    Integer policyType = evaluator.getPolicy().getPolicyType();
+
+                    if (key.policyType != null && !key.policyType.equals(policyType != null ? policyType : RangerPolicy.POLICY_TYPE_ACCESS)) {
+                        continue;
+                    }
+
+                    if (isDynamic(evaluator) || isMatch(evaluator, value.resource, key.elementMatchingScopes, Collections.emptyMap())) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+    }
+}
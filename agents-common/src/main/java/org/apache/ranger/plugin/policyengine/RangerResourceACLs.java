@@ -53,6 +53,23 @@ public class RangerResourceACLs {
 	public RangerResourceACLs() {
 	}
 
+	public RangerResourceACLs(RangerResourceACLs other) {
+		copyACLs(other.userACLs, userACLs);
+		copyACLs(other.groupACLs, groupACLs);
+		copyACLs(other.roleACLs, roleACLs);
+
+		for (RowFilterResult rowFilter : other.rowFilters) {
+			rowFilters.add(new RowFilterResult(rowFilter));
+		}
+
+		for (DataMaskResult dataMask : other.dataMasks) {
+			dataMasks.add(new DataMaskResult(dataMask));
+		}
+
+		datasets.addAll(other.datasets);
+		projects.addAll(other.projects);
+	}
+
 	public Map<String, Map<String, AccessResult>> getUserACLs() {
 		return userACLs;
 	}
@@ -169,6 +186,23 @@ public void setRoleAccessInfo(String roleName, String accessType, Integer access
 		}
 	}
 
+	private static void copyACLs(Map<String, Map<String, AccessResult>> source, Map<String, Map<String, AccessResult>> target) {
+		for (Map.Entry<String, Map<String, AccessResult>> entry : source.entrySet()) {
+			Map<String, AccessResult> accessResults = new HashMap<>();
+
+			for (Map.Entry<String, AccessResult> accessEntry : entry.getValue().entrySet()) {
+				AccessResult accessResult = accessEntry.getValue();
+				AccessResult copy         = new AccessResult(accessResult.getResult(), accessResult.getPolicy());
+
+				copy.setIsFinal(accessResult.getIsFinal()); // set after the result, as setResult() ignores updates to a final result
+
+				accessResults.put(accessEntry.getKey(), copy);
+			}
+
+			target.put(entry.getKey(), accessResults);
+		}
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(userACLs, groupACLs, roleACLs, rowFilters, dataMasks);
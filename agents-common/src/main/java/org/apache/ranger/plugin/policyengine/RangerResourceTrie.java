@@ -31,6 +31,7 @@
 import org.apache.ranger.plugin.policyresourcematcher.RangerResourceEvaluator;
 import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
 import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+import org.apache.ranger.plugin.util.RangerBitSet;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerRequestExprResolver;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
@@ -52,6 +53,7 @@
 
     private static final String DEFAULT_WILDCARD_CHARS    = "*?";
     private static final String TRIE_BUILDER_THREAD_COUNT = "ranger.policyengine.trie.builder.thread.count";
+    private static final int    MIN_EVALUATORS_FOR_BITSET = 16;
 
     private final RangerResourceDef resourceDef;
     private final boolean           optIgnoreCase;
@@ -59,38 +61,62 @@
     private final String            wildcardChars;
     private final boolean           isOptimizedForRetrieval;
     private final boolean           isOptimizedForSpace;
+    private final boolean           isOptimizedForCompaction;
     private final Character         separatorChar;
+    private final TrieNodeOwner     nodeOwner;
+    private final boolean           isPathCopy;
     private       Set<T>            inheritedEvaluators;
     private final TrieNode<T>       root;
+    private       boolean           isCompacted = false;
 
     public RangerResourceTrie(RangerResourceDef resourceDef, List<T> evaluators) {
         this(resourceDef, evaluators, true, null);
     }
 
     public RangerResourceTrie(RangerResourceTrie<T> other) {
+        this(other, false);
+    }
+
+    /*
+     * isPathCopy: when true, the copy shares nodes with the other trie instead of copying all of them; add() and delete()
+     * copy only the nodes they update, along with the nodes on the path from root to them. This makes the cost of applying
+     * a delta proportional to the size of the delta, instead of the size of the trie. Path-copying is not done for tries
+     * optimized for retrieval, as each node in such tries holds wildcard-evaluators of all its ancestors.
+     */
+    public RangerResourceTrie(RangerResourceTrie<T> other, boolean isPathCopy) {
         RangerPerfTracer perf = null;
 
         if(RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_INIT_LOG)) {
-            perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.copyTrie(name=" + other.resourceDef.getName() + ")");
-        }
+            perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.copyTrie(name=" + other.resourceDef.getName() + ", isPathCopy=" + isPathCopy + ")");
+        }
+
+        this.resourceDef              = other.resourceDef;
+        this.optIgnoreCase            = other.optIgnoreCase;
+        this.optWildcard              = other.optWildcard;
+        this.wildcardChars            = other.wildcardChars;
+        this.isOptimizedForSpace      = other.isOptimizedForSpace;
+        this.isOptimizedForRetrieval  = other.isOptimizedForRetrieval;
+        this.isOptimizedForCompaction = other.isOptimizedForCompaction;
+        this.separatorChar            = other.separatorChar;
+        this.nodeOwner                = new TrieNodeOwner(optIgnoreCase, isOptimizedForSpace);
+        this.isPathCopy               = isPathCopy && !isOptimizedForRetrieval;
+        this.inheritedEvaluators      = other.inheritedEvaluators != null ? new HashSet<>(other.inheritedEvaluators) : null;
+
+        if (this.isPathCopy) {
+            this.root = copyNodeForUpdate(other.root, null, Collections.emptyList());
+        } else {
+            this.root = copyTrieSubtree(other.root, null);
 
-        this.resourceDef             = other.resourceDef;
-        this.optIgnoreCase           = other.optIgnoreCase;
-        this.optWildcard             = other.optWildcard;
-        this.wildcardChars           = other.wildcardChars;
-        this.isOptimizedForSpace     = other.isOptimizedForSpace;
-        this.isOptimizedForRetrieval = other.isOptimizedForRetrieval;
-        this.separatorChar           = other.separatorChar;
-        this.inheritedEvaluators     = other.inheritedEvaluators != null ? new HashSet<>(other.inheritedEvaluators) : null;
-        this.root                    = copyTrieSubtree(other.root, null);
+            wrapUpUpdate();
 
-        wrapUpUpdate();
-
-        if (!isOptimizedForRetrieval) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Trie for " + this.resourceDef.getName() + " is not optimized for retrieval. Resetting isSetup flag by calling undoSetup() on the root");
+            if (!isOptimizedForRetrieval) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Trie for " + this.resourceDef.getName() + " is not optimized for retrieval. Resetting isSetup flag by calling undoSetup() on the root");
+                }
+                root.undoSetup();
             }
-            root.undoSetup();
+
+            compact();
         }
 
         RangerPerfTracer.logAlways(perf);
@@ -109,8 +135,12 @@ public RangerResourceTrie(RangerResourceDef resourceDef, List<T> evaluators, boo
     }
 
     public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators, boolean isOptimizedForRetrieval, boolean isOptimizedForSpace, RangerPluginContext pluginContext) {
+        this(resourceDef, evaluators, isOptimizedForRetrieval, isOptimizedForSpace, false, pluginContext);
+    }
+
+    public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators, boolean isOptimizedForRetrieval, boolean isOptimizedForSpace, boolean isOptimizedForCompaction, RangerPluginContext pluginContext) {
         if(LOG.isDebugEnabled()) {
-            LOG.debug("==> RangerResourceTrie(" + resourceDef.getName() + ", evaluatorCount=" + evaluators.size() + ", isOptimizedForRetrieval=" + isOptimizedForRetrieval + ", isOptimizedForSpace=" + isOptimizedForSpace + ")");
+            LOG.debug("==> RangerResourceTrie(" + resourceDef.getName() + ", evaluatorCount=" + evaluators.size() + ", isOptimizedForRetrieval=" + isOptimizedForRetrieval + ", isOptimizedForSpace=" + isOptimizedForSpace + ", isOptimizedForCompaction=" + isOptimizedForCompaction + ")");
         }
 
         RangerPerfTracer perf = null;
@@ -149,13 +179,16 @@ public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators,
             tokenReplaceSpecialChars += RangerRequestExprResolver.EXPRESSION_START.charAt(0);
         }
 
-        this.resourceDef             = resourceDef;
-        this.optIgnoreCase           = RangerAbstractResourceMatcher.getOptionIgnoreCase(matcherOptions);
-        this.optWildcard             = RangerAbstractResourceMatcher.getOptionWildCard(matcherOptions);
-        this.wildcardChars           = optWildcard ? DEFAULT_WILDCARD_CHARS + tokenReplaceSpecialChars : "" + tokenReplaceSpecialChars;
-        this.isOptimizedForSpace     = isOptimizedForSpace;
-        this.isOptimizedForRetrieval = !isOptimizedForSpace && isOptimizedForRetrieval;  // isOptimizedForSpace takes precedence
-        this.separatorChar           = ServiceDefUtil.getCharOption(matcherOptions, OPTION_PATH_SEPARATOR, DEFAULT_PATH_SEPARATOR_CHAR);
+        this.resourceDef              = resourceDef;
+        this.optIgnoreCase            = RangerAbstractResourceMatcher.getOptionIgnoreCase(matcherOptions);
+        this.optWildcard              = RangerAbstractResourceMatcher.getOptionWildCard(matcherOptions);
+        this.wildcardChars            = optWildcard ? DEFAULT_WILDCARD_CHARS + tokenReplaceSpecialChars : "" + tokenReplaceSpecialChars;
+        this.isOptimizedForSpace      = isOptimizedForSpace;
+        this.isOptimizedForRetrieval  = !isOptimizedForSpace && isOptimizedForRetrieval;  // isOptimizedForSpace takes precedence
+        this.isOptimizedForCompaction = this.isOptimizedForRetrieval && isOptimizedForCompaction; // compaction requires all nodes to be setup upfront
+        this.separatorChar            = ServiceDefUtil.getCharOption(matcherOptions, OPTION_PATH_SEPARATOR, DEFAULT_PATH_SEPARATOR_CHAR);
+        this.nodeOwner                = new TrieNodeOwner(optIgnoreCase, isOptimizedForSpace);
+        this.isPathCopy               = false;
 
         final TrieNode<T> tmpRoot = buildTrie(resourceDef, evaluators, builderThreadCount);
 
@@ -166,6 +199,7 @@ public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators,
         }
 
         wrapUpUpdate();
+        compact();
 
         RangerPerfTracer.logAlways(perf);
 
@@ -178,7 +212,7 @@ public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators,
         }
 
         if(LOG.isDebugEnabled()) {
-            LOG.debug("<== RangerResourceTrie(" + resourceDef.getName() + ", evaluatorCount=" + evaluators.size() + ", isOptimizedForRetrieval=" + this.isOptimizedForRetrieval + ", isOptimizedForSpace=" + this.isOptimizedForSpace + "): " + this);
+            LOG.debug("<== RangerResourceTrie(" + resourceDef.getName() + ", evaluatorCount=" + evaluators.size() + ", isOptimizedForRetrieval=" + this.isOptimizedForRetrieval + ", isOptimizedForSpace=" + this.isOptimizedForSpace + ", isOptimizedForCompaction=" + this.isOptimizedForCompaction + "): " + this);
         }
     }
 
@@ -205,9 +239,13 @@ public Set<T> getEvaluatorsForResource(Object resource, ResourceElementMatchingS
     public Set<T> getEvaluatorsForResource(Object resource, ResourceElementMatchingScope scope, Set<T> filter, Predicate predicate) {
         EvalSubsetCollector<T> ret = new EvalSubsetCollector<>(filter, predicate);
 
-        traverse(resource, scope, ret);
+        try {
+            traverse(resource, scope, ret);
 
-        return ret.getResult();
+            return ret.getResult();
+        } finally {
+            ret.release();
+        }
     }
 
     public int getEvaluatorsCountForResource(Object resource, ResourceElementMatchingScope scope) {
@@ -229,6 +267,8 @@ public void add(RangerPolicyResource resource, T evaluator) {
             perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.add(name=" + resource + ")");
         }
 
+        expandIfCompacted();
+
         if (resource == null) {
             if (evaluator.isAncestorOf(resourceDef)) {
                 addInheritedEvaluator(evaluator);
@@ -259,6 +299,8 @@ public void delete(RangerPolicyResource resource, T evaluator) {
             perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.delete(name=" + resource + ")");
         }
 
+        expandIfCompacted();
+
         if (resource == null) {
             if (evaluator.isAncestorOf(resourceDef)) {
                 removeInheritedEvaluator(evaluator);
@@ -267,8 +309,16 @@ public void delete(RangerPolicyResource resource, T evaluator) {
             removeInheritedEvaluator(evaluator);
         } else {
             for (String value : resource.getValues()) {
+                if (isPathCopy) {
+                    copyPathForUpdate(getNonWildcardPrefix(value));
+                }
+
                 TrieNode<T> node = getNodeForResource(value);
                 if (node != null) {
+                    if (isPathCopy && CollectionUtils.isNotEmpty(node.getWildcardEvaluators()) && node.getWildcardEvaluators().contains(evaluator)) {
+                        copySubtreeForUpdate(node);
+                    }
+
                     node.removeEvaluatorFromSubtree(evaluator);
                 }
             }
@@ -283,13 +333,58 @@ public void delete(RangerPolicyResource resource, T evaluator) {
 
     public void wrapUpUpdate() {
         if (root != null) {
-            root.wrapUpUpdate();
+            if (isOptimizedForRetrieval) {
+                RangerPerfTracer postSetupPerf = null;
+
+                if (RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_INIT_LOG)) {
+                    postSetupPerf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.init(name=" + resourceDef.getName() + "-postSetup)");
+                }
+
+                root.postSetup(null);
+
+                RangerPerfTracer.logAlways(postSetupPerf);
+            }
+
             if (TRACE_LOG.isTraceEnabled()) {
                 TRACE_LOG.trace("Trie Dump from RangerResourceTrie.wrapUpUpdate(name=" + resourceDef.getName() + "):\n[" + dumpTrie() + "]");
             }
         }
     }
 
+    /*
+     * Converts the trie to a read-optimized layout: children of each node are held in a sorted char[] and a parallel
+     * array of nodes (looked up with binary search), single-child chains left behind by deletes are merged into one
+     * node, and evaluator-sets with identical contents are replaced with a single shared immutable instance. Large
+     * evaluator-sets are also given a bitset of evaluator ordinals, which EvalSubsetCollector uses for intersections.
+     *
+     * Compaction is done only for tries optimized for retrieval, as lookups in other tries update nodes lazily. The
+     * trie is expanded back to the updatable layout by add()/delete(); callers should call compact() after wrapUpUpdate()
+     * once all updates in a batch are applied. This method must not be called concurrently with lookups.
+     */
+    public void compact() {
+        if (isOptimizedForCompaction && root != null && !isCompacted) {
+            RangerPerfTracer perf = null;
+
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_INIT_LOG)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.compact(name=" + resourceDef.getName() + ")");
+            }
+
+            root.compact(new HashMap<>(), new HashMap<>(), new IdentityHashMap<>());
+
+            isCompacted = true;
+
+            RangerPerfTracer.logAlways(perf);
+
+            if (TRACE_LOG.isTraceEnabled()) {
+                TRACE_LOG.trace("Trie Dump from RangerResourceTrie.compact(name=" + resourceDef.getName() + "):\n[" + dumpTrie() + "]");
+            }
+        }
+    }
+
+    public boolean isCompacted() {
+        return isCompacted;
+    }
+
     public StringBuilder dumpTrie() {
         StringBuilder sb = new StringBuilder();
         if (root != null) {
@@ -302,6 +397,22 @@ TrieNode<T> getRoot() {
         return root;
     }
 
+    private void expandIfCompacted() {
+        if (isCompacted) {
+            RangerPerfTracer perf = null;
+
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_INIT_LOG)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.expand(name=" + resourceDef.getName() + ")");
+            }
+
+            root.expand();
+
+            isCompacted = false;
+
+            RangerPerfTracer.logAlways(perf);
+        }
+    }
+
     private void addInheritedEvaluator(T evaluator) {
         if (inheritedEvaluators == null) {
             inheritedEvaluators = new HashSet<>();
@@ -326,13 +437,13 @@ private TrieNode<T> copyTrieSubtree(final TrieNode<T> source, final TrieNode<T>
             TRACE_LOG.trace("==> copyTrieSubtree(" + sb + ")");
         }
 
-        TrieNode<T> dest = new TrieNode<>(source.str);
+        TrieNode<T> dest = new TrieNode<>(source.str, nodeOwner);
 
         if (parent != null) {
             parent.addChild(dest);
         }
 
-        synchronized (source.children) {
+        synchronized (source) {
             dest.isSetup                           = source.isSetup;
             dest.isSharingParentWildcardEvaluators = source.isSharingParentWildcardEvaluators;
 
@@ -361,10 +472,8 @@ private TrieNode<T> copyTrieSubtree(final TrieNode<T> source, final TrieNode<T>
             }
         }
 
-        Map<Character, TrieNode<T>> children = source.getChildren();
-
-        for (Map.Entry<Character, TrieNode<T>> entry : children.entrySet()) {
-            copyTrieSubtree(entry.getValue(), dest);
+        for (TrieNode<T> child : source.getChildNodes()) {
+            copyTrieSubtree(child, dest);
         }
 
         if (TRACE_LOG.isTraceEnabled()) {
@@ -378,6 +487,134 @@ private TrieNode<T> copyTrieSubtree(final TrieNode<T> source, final TrieNode<T>
         return dest;
     }
 
+    /*
+     * Path-copying: replaces the nodes on the path from root to the node for the given resource with copies owned by this
+     * trie. The child that would be split to insert the resource is replaced as well. Nodes not on the path continue to be
+     * shared with the trie this trie was copied from.
+     */
+    private void copyPathForUpdate(String resource) {
+        final List<Set<T>> ancestorWildcardEvaluators = new ArrayList<>();
+        final int          len                        = resource.length();
+        TrieNode<T>        curr                       = root;
+        int                i                          = 0;
+
+        while (i < len) {
+            TrieNode<T> child = curr.getChild(getLookupChar(resource, i));
+
+            if (child == null) {
+                break;
+            }
+
+            ancestorWildcardEvaluators.add(curr.getWildcardEvaluators());
+
+            if (!child.isOwnedBy(nodeOwner)) {
+                child = copyNodeForUpdate(child, curr, ancestorWildcardEvaluators);
+            }
+
+            final String childStr = child.getStr();
+
+            if (!isPrefixAt(resource, i, childStr)) {
+                break;
+            }
+
+            curr = child;
+            i   += childStr.length();
+        }
+    }
+
+    /*
+     * Path-copying: replaces all nodes under the given node with copies owned by this trie. This is needed before updating
+     * wildcard-evaluators of a node, as lookups merge them into evaluators of the nodes under it (see TrieNode.setup()).
+     */
+    private void copySubtreeForUpdate(TrieNode<T> node) {
+        final List<Set<T>> ancestorWildcardEvaluators = new ArrayList<>();
+
+        for (TrieNode<T> curr = node; curr != null; curr = curr.getParent()) {
+            ancestorWildcardEvaluators.add(0, curr.getWildcardEvaluators());
+        }
+
+        copySubtreeForUpdate(node, ancestorWildcardEvaluators);
+    }
+
+    private void copySubtreeForUpdate(TrieNode<T> node, List<Set<T>> ancestorWildcardEvaluators) {
+        for (TrieNode<T> child : new ArrayList<>(node.getChildNodes())) {
+            final TrieNode<T> ownedChild = child.isOwnedBy(nodeOwner) ? child : copyNodeForUpdate(child, node, ancestorWildcardEvaluators);
+
+            ancestorWildcardEvaluators.add(ownedChild.getWildcardEvaluators());
+
+            copySubtreeForUpdate(ownedChild, ancestorWildcardEvaluators);
+
+            ancestorWildcardEvaluators.remove(ancestorWildcardEvaluators.size() - 1);
+        }
+    }
+
+    /*
+     * Path-copying: returns a copy of the given node, owned by this trie, in the state undoSetup() leaves a node in; the copy
+     * replaces the source node in the given parent, and shares children with the source node. The source node could be in
+     * setup state, with wildcard-evaluators of its ancestors merged by a lookup; these are removed from the copy.
+     *
+     * ancestorWildcardEvaluators: wildcard-evaluators of nodes from root to the parent, which were merged into the source node
+     */
+    private TrieNode<T> copyNodeForUpdate(TrieNode<T> source, TrieNode<T> parent, List<Set<T>> ancestorWildcardEvaluators) {
+        final TrieNode<T> ret = new TrieNode<>(source.getStr(), nodeOwner);
+
+        synchronized (source) { // a lookup in the trie that owns the source could be setting it up
+            final Set<T> evaluators         = source.getEvaluators();
+            final Set<T> wildcardEvaluators = source.getWildcardEvaluators();
+
+            if (source.isSetup) {
+                if (evaluators != null && evaluators != wildcardEvaluators) {
+                    ret.evaluators = copyWithout(evaluators, Collections.singletonList(wildcardEvaluators));
+                }
+
+                if (wildcardEvaluators != null && !source.isSharingParentWildcardEvaluators) {
+                    ret.wildcardEvaluators = copyWithout(wildcardEvaluators, ancestorWildcardEvaluators);
+                }
+            } else {
+                ret.evaluators         = evaluators != null ? new HashSet<>(evaluators) : null;
+                ret.wildcardEvaluators = wildcardEvaluators != null ? new HashSet<>(wildcardEvaluators) : null;
+            }
+        }
+
+        ret.getChildren().putAll(source.getChildren()); // tries that are not optimized for retrieval are never compacted
+
+        if (parent != null) {
+            parent.addChild(ret);
+        }
+
+        return ret;
+    }
+
+    private boolean isPrefixAt(String resource, int startIdx, String str) {
+        if (str.length() > resource.length() - startIdx) {
+            return false;
+        }
+
+        if (resource.regionMatches(optIgnoreCase, startIdx, str, 0, str.length())) {
+            return true;
+        }
+
+        for (int i = 0; i < str.length(); i++) {
+            if (!getLookupChar(str, i).equals(getLookupChar(resource, startIdx + i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static <U> Set<U> copyWithout(Set<U> evaluators, Collection<Set<U>> toRemove) {
+        final Set<U> ret = new HashSet<>(evaluators);
+
+        for (Set<U> evaluatorsToRemove : toRemove) {
+            if (evaluatorsToRemove != null) {
+                ret.removeAll(evaluatorsToRemove);
+            }
+        }
+
+        return ret.isEmpty() ? null : ret;
+    }
+
     private <E> TrieNode<T> buildTrie(RangerResourceDef resourceDef, List<E> evaluators, int builderThreadCount) {
         if(LOG.isDebugEnabled()) {
             LOG.debug("==> buildTrie(" + resourceDef.getName() + ", evaluatorCount=" + evaluators.size() + ", isMultiThreaded=" + (builderThreadCount > 1) + ")");
@@ -389,7 +626,7 @@ private <E> TrieNode<T> buildTrie(RangerResourceDef resourceDef, List<E> evaluat
             perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.init(resourceDef=" + resourceDef.getName() + ")");
         }
 
-        TrieNode<T>                           ret             = new TrieNode<>(null);
+        TrieNode<T>                           ret             = new TrieNode<>(null, nodeOwner);
         final boolean                         isMultiThreaded = builderThreadCount > 1;
         final List<ResourceTrieBuilderThread> builderThreads;
         final Map<Character, Integer>         builderThreadMap;
@@ -572,10 +809,18 @@ private void insert(TrieNode<T> currentRoot, String resource, boolean isRecursiv
         final boolean isWildcard = prefix.length() != resource.length();
 
         if (StringUtils.isNotEmpty(prefix)) {
+            if (isPathCopy) {
+                copyPathForUpdate(prefix);
+            }
+
             curr = curr.getOrCreateChild(prefix);
         }
 
         if(isWildcard || isRecursive) {
+            if (isPathCopy) {
+                copySubtreeForUpdate(curr);
+            }
+
             curr.addWildcardEvaluator(evaluator);
         } else {
             curr.addEvaluator(evaluator);
@@ -647,7 +892,7 @@ public void traverse(String resource, ResourceElementMatchingScope scope, Traver
             if (!isOptimizedForSpace) {
                 curr.setupIfNeeded(parent);
             } else {
-                if (handler.process(curr.getWildcardEvaluators())) {
+                if (curr.processWildcardEvaluators(handler)) {
                     break;
                 }
             }
@@ -672,16 +917,20 @@ public void traverse(String resource, ResourceElementMatchingScope scope, Traver
         if (!isOptimizedForSpace) {
             curr.setupIfNeeded(parent);
         } else {
-            handler.process(curr.getWildcardEvaluators());
+            curr.processWildcardEvaluators(handler);
         }
 
         boolean isSelfMatch = (i == len);
 
         if (!isOptimizedForSpace) {
-            handler.process(isSelfMatch ? curr.getEvaluators() : curr.getWildcardEvaluators());
+            if (isSelfMatch) {
+                curr.processEvaluators(handler);
+            } else {
+                curr.processWildcardEvaluators(handler);
+            }
         } else {
             if (isSelfMatch) {
-                handler.process(curr.getEvaluators());
+                curr.processEvaluators(handler);
             }
         }
 
@@ -689,13 +938,15 @@ public void traverse(String resource, ResourceElementMatchingScope scope, Traver
             final boolean resourceEndsWithSep = resource.charAt(resource.length() - 1) == separatorChar;
 
             if (isSelfMatch) { // resource == path(curr)
+                final TrieNode<T> self = curr;
+
                 if (resourceEndsWithSep) { // ex: resource=/tmp/
-                    curr.getChildren().values().forEach(c -> c.collectChildEvaluators(separatorChar, 0, handler));
+                    self.getChildNodes().forEach(c -> c.collectChildEvaluators(self, separatorChar, 0, handler));
                 } else { // ex: resource=/tmp
-                    curr = curr.getChild(separatorChar);
+                    curr = self.getChild(separatorChar);
 
                     if (curr != null) {
-                        curr.collectChildEvaluators(separatorChar, 1, handler);
+                        curr.collectChildEvaluators(self, separatorChar, 1, handler);
                     }
                 }
             } else if (child != null) { // resource != path(child) ex: (resource=/tmp, path(child)=/tmp/test.txt or path(child)=/tmpdir)
@@ -704,9 +955,9 @@ public void traverse(String resource, ResourceElementMatchingScope scope, Traver
 
                 if (isPrefixMatch) {
                     if (resourceEndsWithSep) { // ex: resource=/tmp/
-                        child.collectChildEvaluators(separatorChar, remainingLen, handler);
+                        child.collectChildEvaluators(curr, separatorChar, remainingLen, handler);
                     } else if (child.getStr().charAt(remainingLen) == separatorChar) { //  ex: resource=/tmp
-                        child.collectChildEvaluators(separatorChar, remainingLen + 1, handler);
+                        child.collectChildEvaluators(curr, separatorChar, remainingLen + 1, handler);
                     }
                 }
             }
@@ -774,6 +1025,7 @@ public String toString() {
         sb.append("; optIgnoreCase=").append(optIgnoreCase);
         sb.append("; optWildcard=").append(optWildcard);
         sb.append("; wildcardChars=").append(wildcardChars);
+        sb.append("; isCompacted=").append(isCompacted);
         sb.append("; nodeCount=").append(trieData.nodeCount);
         sb.append("; leafNodeCount=").append(trieData.leafNodeCount);
         sb.append("; singleChildNodeCount=").append(trieData.singleChildNodeCount);
@@ -808,7 +1060,7 @@ public String toString() {
             }
         }
 
-        private final TrieNode<T>             thisRoot  = new TrieNode<>(null);
+        private final TrieNode<T>             thisRoot  = new TrieNode<>(null, nodeOwner);
         private final BlockingQueue<WorkItem> workQueue = new LinkedBlockingQueue<>();
 
         ResourceTrieBuilderThread() {
@@ -854,6 +1106,42 @@ public void run() {
         }
     }
 
+    // return: bitset of ordinals of the given evaluators; null if any evaluator doesn't have an ordinal, or ordinals are not unique
+    static <U extends RangerResourceEvaluator> RangerBitSet toBitSet(Collection<U> evaluators) {
+        return toBitSet(evaluators, null);
+    }
+
+    // same as toBitSet(evaluators), but populates the given bitset when not null - instead of allocating one
+    static <U extends RangerResourceEvaluator> RangerBitSet toBitSet(Collection<U> evaluators, RangerBitSet target) {
+        int minOrdinal = Integer.MAX_VALUE;
+        int maxOrdinal = -1;
+
+        for (U evaluator : evaluators) {
+            int ordinal = evaluator.getOrdinal();
+
+            if (ordinal < 0) {
+                return null;
+            }
+
+            minOrdinal = Math.min(minOrdinal, ordinal);
+            maxOrdinal = Math.max(maxOrdinal, ordinal);
+        }
+
+        if (maxOrdinal < 0) {
+            return null;
+        }
+
+        RangerBitSet ret = target != null ? target.reset(minOrdinal, maxOrdinal) : new RangerBitSet(minOrdinal, maxOrdinal);
+
+        for (U evaluator : evaluators) {
+            if (!ret.add(evaluator.getOrdinal())) {
+                return null;
+            }
+        }
+
+        return ret;
+    }
+
     static class TrieData {
         int nodeCount;
         int leafNodeCount;
@@ -865,17 +1153,46 @@ static class TrieData {
         int wildcardEvaluatorListRefCount;
     }
 
-    class TrieNode<U extends T> {
+    /*
+     * Options of a trie used by its nodes. Each trie has its own instance, which identifies the nodes owned by the trie:
+     * a trie created by path-copying updates only the nodes it owns. Nodes refer to this instance instead of to the trie,
+     * so that nodes shared with newer copies of a trie don't keep the older copies reachable.
+     */
+    static final class TrieNodeOwner {
+        final boolean optIgnoreCase;
+        final boolean isOptimizedForSpace;
+
+        TrieNodeOwner(boolean optIgnoreCase, boolean isOptimizedForSpace) {
+            this.optIgnoreCase       = optIgnoreCase;
+            this.isOptimizedForSpace = isOptimizedForSpace;
+        }
+
+        Character getLookupChar(char ch) {
+            return optIgnoreCase ? Character.toLowerCase(ch) : ch;
+        }
+
+        Character getLookupChar(String str, int index) {
+            return getLookupChar(str.charAt(index));
+        }
+    }
+
+    static class TrieNode<U extends RangerResourceEvaluator> {
+        private final    TrieNodeOwner               owner;
         private          String                      str;
         private          TrieNode<U>                 parent;
-        private final    Map<Character, TrieNode<U>> children = new HashMap<>();
+        private          Map<Character, TrieNode<U>> children = new HashMap<>(); // null after compact()
+        private          char[]                      childChars;                 // sorted lookup-chars of children, after compact()
+        private          TrieNode<U>[]               childNodes;                 // children in the order of childChars, after compact()
         private volatile Set<U>                      evaluators;
         private volatile Set<U>                      wildcardEvaluators;
+        private          RangerBitSet                evaluatorsBitSet;           // ordinals of evaluators, for large sets after compact()
+        private          RangerBitSet                wildcardEvaluatorsBitSet;   // ordinals of wildcardEvaluators, for large sets after compact()
         private          boolean                     isSharingParentWildcardEvaluators;
         private volatile boolean                     isSetup = false;
 
-        TrieNode(String str) {
-            this.str = str;
+        TrieNode(String str, TrieNodeOwner owner) {
+            this.str   = str;
+            this.owner = owner;
         }
 
         String getStr() {
@@ -894,10 +1211,22 @@ void setParent(TrieNode<U> parent) {
             this.parent = parent;
         }
 
+        boolean isOwnedBy(TrieNodeOwner owner) {
+            return this.owner == owner;
+        }
+
         Map<Character, TrieNode<U>> getChildren() {
             return children;
         }
 
+        Collection<TrieNode<U>> getChildNodes() {
+            return children != null ? children.values() : Arrays.asList(childNodes);
+        }
+
+        int getChildCount() {
+            return children != null ? children.size() : childNodes.length;
+        }
+
         Set<U> getEvaluators() {
             return evaluators;
         }
@@ -906,8 +1235,22 @@ Set<U> getWildcardEvaluators() {
             return wildcardEvaluators;
         }
 
+        boolean processEvaluators(TraverseMatchHandler<U> handler) {
+            return handler.process(evaluators, evaluatorsBitSet);
+        }
+
+        boolean processWildcardEvaluators(TraverseMatchHandler<U> handler) {
+            return handler.process(wildcardEvaluators, wildcardEvaluatorsBitSet);
+        }
+
         TrieNode<U> getChild(Character ch) {
-            return children.get(ch);
+            if (children != null) {
+                return children.get(ch);
+            } else {
+                int idx = Arrays.binarySearch(childChars, ch);
+
+                return idx >= 0 ? childNodes[idx] : null;
+            }
         }
 
         void populateTrieData(RangerResourceTrie.TrieData trieData) {
@@ -929,14 +1272,14 @@ void populateTrieData(RangerResourceTrie.TrieData trieData) {
                 }
             }
 
-            if (!children.isEmpty()) {
-                if (children.size() == 1) {
+            int childCount = getChildCount();
+
+            if (childCount > 0) {
+                if (childCount == 1) {
                     trieData.singleChildNodeCount++;
                 }
 
-                for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                    TrieNode<U> child = entry.getValue();
-
+                for (TrieNode<U> child : getChildNodes()) {
                     child.populateTrieData(trieData);
                 }
             } else {
@@ -947,9 +1290,7 @@ void populateTrieData(RangerResourceTrie.TrieData trieData) {
         int getMaxDepth() {
             int ret = 0;
 
-            for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                TrieNode<U> child = entry.getValue();
-
+            for (TrieNode<U> child : getChildNodes()) {
                 int maxChildDepth = child.getMaxDepth();
 
                 if (maxChildDepth > ret) {
@@ -962,23 +1303,23 @@ int getMaxDepth() {
 
         TrieNode<U> getOrCreateChild(String str) {
             int         len   = str.length();
-            TrieNode<U> child = children.get(getLookupChar(str, 0));
+            TrieNode<U> child = children.get(owner.getLookupChar(str, 0));
 
             if (child == null) {
-                child = new TrieNode<>(str);
+                child = new TrieNode<>(str, owner);
 
                 addChild(child);
             } else {
                 final String  childStr     = child.getStr();
                 final int     childStrLen  = childStr.length();
-                final boolean isExactMatch = optIgnoreCase ? StringUtils.equalsIgnoreCase(childStr, str) : StringUtils.equals(childStr, str);
+                final boolean isExactMatch = owner.optIgnoreCase ? StringUtils.equalsIgnoreCase(childStr, str) : StringUtils.equals(childStr, str);
 
                 if (!isExactMatch) {
                     final int numOfCharactersToMatch = Math.min(childStrLen, len);
                     int       index                  = 1;
 
                     for (; index < numOfCharactersToMatch; index++) {
-                        if (getLookupChar(childStr, index) != getLookupChar(str, index)) {
+                        if (owner.getLookupChar(childStr, index) != owner.getLookupChar(str, index)) {
                             break;
                         }
                     }
@@ -987,7 +1328,7 @@ TrieNode<U> getOrCreateChild(String str) {
                         // Matched all
                         if (childStrLen > len) {
                             // Existing node has longer string, need to break up this node
-                            TrieNode<U> newChild = new TrieNode<>(str);
+                            TrieNode<U> newChild = new TrieNode<>(str, owner);
 
                             this.addChild(newChild);
                             child.setStr(childStr.substring(index));
@@ -1001,7 +1342,7 @@ TrieNode<U> getOrCreateChild(String str) {
                     } else {
                         // Partial match for both; both have leftovers
                         String      matchedPart = str.substring(0, index);
-                        TrieNode<U> newChild    = new TrieNode<>(matchedPart);
+                        TrieNode<U> newChild    = new TrieNode<>(matchedPart, owner);
 
                         this.addChild(newChild);
                         child.setStr(childStr.substring(index));
@@ -1016,7 +1357,7 @@ TrieNode<U> getOrCreateChild(String str) {
         }
 
         private void addChild(TrieNode<U> child) {
-            children.put(getLookupChar(child.getStr(), 0), child);
+            children.put(owner.getLookupChar(child.getStr(), 0), child);
             child.setParent(this);
         }
 
@@ -1057,7 +1398,7 @@ void removeWildcardEvaluator(U evaluator) {
         }
 
         void undoSetup() {
-            for (TrieNode<U> child : children.values()) {
+            for (TrieNode<U> child : getChildNodes()) {
                 child.undoSetup();
             }
 
@@ -1116,35 +1457,137 @@ void removeSelfFromTrie() {
             }
         }
 
-        void wrapUpUpdate() {
-            if (isOptimizedForRetrieval) {
-                RangerPerfTracer postSetupPerf = null;
+        void postSetup(Set<U> parentWildcardEvaluators) {
+            setup(parentWildcardEvaluators);
 
-                if (RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_INIT_LOG)) {
-                    postSetupPerf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.init(name=" + resourceDef.getName() + "-postSetup)");
+            for (TrieNode<U> child : getChildNodes()) {
+                child.postSetup(wildcardEvaluators);
+            }
+        }
+
+        void compact(Map<Set<U>, Set<U>> sharedEvaluators, Map<Set<U>, Set<U>> sharedWildcardEvaluators, Map<Set<U>, RangerBitSet> sharedBitSets) {
+            // merge chains of nodes that have a single child and no evaluators of their own
+            for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
+                TrieNode<U> child = entry.getValue();
+
+                while (child.getChildCount() == 1 && !child.hasOwnEvaluators()) {
+                    TrieNode<U> grandChild = child.getChildNodes().iterator().next();
+
+                    grandChild.setStr(child.getStr() + grandChild.getStr());
+                    grandChild.setParent(this);
+
+                    child = grandChild;
                 }
 
-                postSetup(null);
+                entry.setValue(child);
+            }
 
-                RangerPerfTracer.logAlways(postSetupPerf);
+            // separate pools, so that evaluators and wildcardEvaluators share an instance only if they did before compaction
+            final Set<U> origWildcardEvaluators = wildcardEvaluators;
+
+            wildcardEvaluators = getSharedSet(origWildcardEvaluators, sharedWildcardEvaluators);
+            evaluators         = (evaluators != null && evaluators == origWildcardEvaluators) ? wildcardEvaluators : getSharedSet(evaluators, sharedEvaluators);
+
+            wildcardEvaluatorsBitSet = getSharedBitSet(wildcardEvaluators, sharedBitSets);
+            evaluatorsBitSet         = getSharedBitSet(evaluators, sharedBitSets);
+
+            for (TrieNode<U> child : children.values()) {
+                child.compact(sharedEvaluators, sharedWildcardEvaluators, sharedBitSets);
             }
+
+            Character[]   chars = children.keySet().toArray(new Character[0]);
+            TrieNode<U>[] nodes = new RangerResourceTrie.TrieNode[chars.length];
+
+            Arrays.sort(chars);
+
+            childChars = new char[chars.length];
+
+            for (int i = 0; i < chars.length; i++) {
+                childChars[i] = chars[i];
+                nodes[i]      = children.get(chars[i]);
+            }
+
+            childNodes = nodes;
+            children   = null;
         }
 
-        void postSetup(Set<U> parentWildcardEvaluators) {
-            setup(parentWildcardEvaluators);
+        void expand() {
+            if (children == null) {
+                children = new HashMap<>();
 
-            for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                TrieNode<U> child = entry.getValue();
+                for (int i = 0; i < childChars.length; i++) {
+                    children.put(childChars[i], childNodes[i]);
+                }
 
-                child.postSetup(wildcardEvaluators);
+                childChars = null;
+                childNodes = null;
+            }
+
+            // replace shared immutable evaluator-sets with copies owned by this node, retaining the references between them
+            Set<U> compactedWildcardEvaluators = wildcardEvaluators;
+
+            evaluatorsBitSet         = null;
+            wildcardEvaluatorsBitSet = null;
+
+            if (isSharingParentWildcardEvaluators) {
+                wildcardEvaluators = parent != null ? parent.wildcardEvaluators : null;
+            } else if (wildcardEvaluators != null) {
+                wildcardEvaluators = new HashSet<>(wildcardEvaluators);
+            }
+
+            if (evaluators != null) {
+                evaluators = evaluators == compactedWildcardEvaluators ? wildcardEvaluators : new HashSet<>(evaluators);
+            }
+
+            for (TrieNode<U> child : children.values()) {
+                child.expand();
             }
         }
 
+        private boolean hasOwnEvaluators() {
+            final boolean hasNoEvaluators                 = evaluators == null && wildcardEvaluators == null;
+            final boolean hasOnlyParentWildcardEvaluators = isSharingParentWildcardEvaluators && evaluators == wildcardEvaluators;
+
+            return !hasNoEvaluators && !hasOnlyParentWildcardEvaluators;
+        }
+
+        private Set<U> getSharedSet(Set<U> evaluators, Map<Set<U>, Set<U>> sharedSets) {
+            Set<U> ret = null;
+
+            if (evaluators != null) {
+                ret = sharedSets.get(evaluators);
+
+                if (ret == null) {
+                    ret = Collections.unmodifiableSet(new HashSet<>(evaluators));
+
+                    sharedSets.put(ret, ret);
+                }
+            }
+
+            return ret;
+        }
+
+        private RangerBitSet getSharedBitSet(Set<U> evaluators, Map<Set<U>, RangerBitSet> sharedBitSets) {
+            final RangerBitSet ret;
+
+            if (evaluators == null || evaluators.size() < MIN_EVALUATORS_FOR_BITSET) {
+                ret = null;
+            } else if (sharedBitSets.containsKey(evaluators)) {
+                ret = sharedBitSets.get(evaluators);
+            } else {
+                ret = toBitSet(evaluators);
+
+                sharedBitSets.put(evaluators, ret);
+            }
+
+            return ret;
+        }
+
         void setupIfNeeded(TrieNode<U> parent) {
             boolean setupNeeded = !isSetup;
 
             if (setupNeeded) {
-                synchronized (this.children) {
+                synchronized (this) {
                     setupNeeded = !isSetup;
 
                     if (setupNeeded) {
@@ -1189,27 +1632,28 @@ void setup(Set<U> parentWildcardEvaluators) {
             }
         }
 
-        void collectChildEvaluators(Character sep, int startIdx, TraverseMatchHandler<U> handler) {
-            if (!isOptimizedForSpace) {
-                setupIfNeeded(getParent());
+        // parent: node this node was reached from; parent of a node shared by path-copied tries is not the same in all of them
+        void collectChildEvaluators(TrieNode<U> parent, Character sep, int startIdx, TraverseMatchHandler<U> handler) {
+            if (!owner.isOptimizedForSpace) {
+                setupIfNeeded(parent);
             }
 
             final int sepPos = startIdx < str.length() ? str.indexOf(sep, startIdx) : -1;
 
             if (sepPos == -1) { // ex: startIdx=5, path(str)=/tmp/test, path(a child) could be: /tmp/test.txt, /tmp/test/, /tmp/test/a, /tmp/test/a/b
-                if (isOptimizedForSpace) {
-                    handler.process(this.wildcardEvaluators);
+                if (owner.isOptimizedForSpace) {
+                    processWildcardEvaluators(handler);
                 }
 
-                handler.process(this.evaluators);
+                processEvaluators(handler);
 
-                children.values().forEach(c -> c.collectChildEvaluators(sep, 0, handler));
+                getChildNodes().forEach(c -> c.collectChildEvaluators(this, sep, 0, handler));
             } else if (sepPos == (str.length() - 1)) { // ex: str=/tmp/test/, startIdx=5
-                if (isOptimizedForSpace) {
-                    handler.process(this.wildcardEvaluators);
+                if (owner.isOptimizedForSpace) {
+                    processWildcardEvaluators(handler);
                 }
 
-                handler.process(this.evaluators);
+                processEvaluators(handler);
             }
         }
 
@@ -1217,25 +1661,25 @@ void collectChildEvaluators(String resource, int startIndex, TraverseMatchHandle
             if (startIndex == resource.length()) {
                 collectChildEvaluators(handler);
             } else if (startIndex < resource.length()) {
-                Character   startChar = getLookupChar(resource, startIndex);
-                TrieNode<U> childNode = children.get(startChar);
+                Character   startChar = owner.getLookupChar(resource, startIndex);
+                TrieNode<U> childNode = getChild(startChar);
 
                 if (childNode != null) {
-                    if (!isOptimizedForSpace) {
-                        childNode.setupIfNeeded(childNode.getParent());
+                    if (!owner.isOptimizedForSpace) {
+                        childNode.setupIfNeeded(this);
                     }
 
                     String childStr = childNode.getStr();
                     int lenToMatch = Math.min(resource.length() - startIndex, childStr.length());
 
-                    if (resource.regionMatches(optIgnoreCase, startIndex, childStr, 0, lenToMatch)) {
-                        handler.process(childNode.wildcardEvaluators);
-                        handler.process(childNode.evaluators);
+                    if (resource.regionMatches(owner.optIgnoreCase, startIndex, childStr, 0, lenToMatch)) {
+                        childNode.processWildcardEvaluators(handler);
+                        childNode.processEvaluators(handler);
 
                         if (resource.length() == (startIndex + lenToMatch)) {
                             childNode.collectChildEvaluators(handler);
                         } else {
-                            childNode.children.values().forEach(c -> c.collectChildEvaluators(resource, startIndex + childStr.length(), handler));
+                            childNode.getChildNodes().forEach(c -> c.collectChildEvaluators(resource, startIndex + childStr.length(), handler));
                         }
                     }
                 }
@@ -1243,21 +1687,29 @@ void collectChildEvaluators(String resource, int startIndex, TraverseMatchHandle
         }
 
         private void collectChildEvaluators(TraverseMatchHandler<U> childEvaluators) {
-            Stack<TrieNode<U>> nodes = new Stack<>();
+            Stack<TrieNode<U>> nodes   = new Stack<>();
+            Stack<TrieNode<U>> parents = new Stack<>();
 
-            nodes.addAll(children.values());
+            for (TrieNode<U> childNode : getChildNodes()) {
+                nodes.push(childNode);
+                parents.push(this);
+            }
 
             while (!nodes.isEmpty()) {
                 TrieNode<U> childNode = nodes.pop();
+                TrieNode<U> parent    = parents.pop();
 
-                if (!isOptimizedForSpace) {
-                    childNode.setupIfNeeded(childNode.getParent());
+                if (!owner.isOptimizedForSpace) {
+                    childNode.setupIfNeeded(parent);
                 }
 
-                childEvaluators.process(childNode.wildcardEvaluators);
-                childEvaluators.process(childNode.evaluators);
+                childNode.processWildcardEvaluators(childEvaluators);
+                childNode.processEvaluators(childEvaluators);
 
-                nodes.addAll(childNode.children.values());
+                for (TrieNode<U> grandChild : childNode.getChildNodes()) {
+                    nodes.push(grandChild);
+                    parents.push(childNode);
+                }
             }
         }
 
@@ -1289,7 +1741,7 @@ void toString(StringBuilder sb) {
             sb.append("nodeValue=").append(nodeValue == null ? "ROOT" : nodeValue);
             sb.append("; isSetup=").append(isSetup);
             sb.append("; isSharingParentWildcardEvaluators=").append(isSharingParentWildcardEvaluators);
-            sb.append("; childCount=").append(children.size());
+            sb.append("; childCount=").append(getChildCount());
             sb.append("; evaluators=[");
             if (evaluators != null) {
                 for (U evaluator : evaluators) {
@@ -1318,9 +1770,7 @@ void toString(String prefix, StringBuilder sb) {
             toString(sb);
             sb.append("]\n");
 
-            for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                TrieNode<U> child = entry.getValue();
-
+            for (TrieNode<U> child : getChildNodes()) {
                 child.toString(nodeValue, sb);
             }
         }
@@ -1330,6 +1780,11 @@ void toString(String prefix, StringBuilder sb) {
         // return: true  - stop traverse, processing is complete
         //         false - continue traverse, processing is not complete yet
         boolean process(Set<T> evaluators);
+
+        // evaluatorsBitSet: ordinals of the evaluators, when available; handlers that intersect sets can use this to avoid per-evaluator lookups
+        default boolean process(Set<T> evaluators, RangerBitSet evaluatorsBitSet) {
+            return process(evaluators);
+        }
     }
 
     public static class EvalCollector<T extends RangerResourceEvaluator> implements TraverseMatchHandler<T> {
@@ -1386,35 +1841,101 @@ public boolean process(Set<T> evaluators) {
     }
 
     public static class EvalSubsetCollector<T extends RangerResourceEvaluator> implements TraverseMatchHandler<T> {
-        private final Predicate predicate;
-        private final Set<T>    filter;
-        private       Set<T>    result;
+        // bitsets reused by collectors in a thread, instead of allocating them for each lookup
+        private static final ThreadLocal<ScratchBitSets> SCRATCH_BITSETS = ThreadLocal.withInitial(ScratchBitSets::new);
+
+        private final Predicate      predicate;
+        private final Set<T>         filter;
+        private       ScratchBitSets scratch;      // null when bitsets are not used, or scratch bitsets are in use by another collector
+        private final RangerBitSet   filterBitSet; // null when the filter is small, or its evaluators don't have unique ordinals
+        private final RangerBitSet   resultBitSet;
+        private       int            resultCount = 0;
+        private       boolean        isProcessed = false;
+        private       Set<T>         result;
 
         public EvalSubsetCollector(Set<T> filter, Predicate predicate) {
-            this.predicate = predicate;
-            this.filter    = filter == null ? Collections.emptySet() : filter;
-            this.result    = null;
+            this.predicate    = predicate;
+            this.filter       = filter == null ? Collections.emptySet() : filter;
+            this.scratch      = this.filter.size() < MIN_EVALUATORS_FOR_BITSET ? null : ScratchBitSets.acquire();
+            this.filterBitSet = this.filter.size() < MIN_EVALUATORS_FOR_BITSET ? null : toBitSet(this.filter, scratch != null ? scratch.filter : null);
+
+            if (filterBitSet == null) {
+                this.resultBitSet = null;
+
+                release();
+            } else {
+                this.resultBitSet = scratch != null ? scratch.result.reset(filterBitSet) : new RangerBitSet(filterBitSet);
+            }
+
+            this.result = null;
         }
 
         public Set<T> getResult() {
+            if (resultBitSet != null && result == null && isProcessed) {
+                result = new HashSet<>(getHashSetCapacity(resultCount));
+
+                if (resultCount > 0) {
+                    for (T evaluator : filter) {
+                        if (resultBitSet.get(evaluator.getOrdinal()) && (predicate == null || predicate.evaluate(evaluator))) {
+                            result.add(evaluator);
+                        }
+                    }
+                }
+            }
+
             return result;
         }
 
+        // returns scratch bitsets for use by other collectors in this thread; must be called only after getResult()
+        public void release() {
+            if (scratch != null) {
+                scratch.isInUse = false;
+                scratch         = null;
+            }
+        }
+
         @Override
         public boolean process(Set<T> evaluators) {
+            return process(evaluators, null);
+        }
+
+        @Override
+        public boolean process(Set<T> evaluators, RangerBitSet evaluatorsBitSet) {
             if (evaluators != null && !evaluators.isEmpty()) {
-                if (result == null) {
-                    result = new HashSet<>();
-                }
+                isProcessed = true;
+
+                if (resultBitSet != null) { // result is populated from resultBitSet in getResult()
+                    if (evaluatorsBitSet != null) {
+                        resultCount += resultBitSet.orAnd(evaluatorsBitSet, filterBitSet);
+                    } else if (evaluators.size() > filter.size()) {
+                        for (T evaluator : filter) {
+                            if (evaluators.contains(evaluator) && resultBitSet.add(evaluator.getOrdinal())) {
+                                resultCount++;
+                            }
+                        }
+                    } else {
+                        for (T evaluator : evaluators) {
+                            int ordinal = evaluator.getOrdinal();
 
-                intersect(filter, evaluators, result);
+                            if (filterBitSet.get(ordinal) && resultBitSet.add(ordinal)) {
+                                resultCount++;
+                            }
+                        }
+                    }
+                } else {
+                    if (result == null) { // presized for the largest possible intersection with these evaluators, to avoid rehashing
+                        result = new HashSet<>(getHashSetCapacity(Math.min(filter.size(), evaluators.size())));
+                    }
 
-                if (predicate != null) {
-                    result.removeIf(evaluator -> !predicate.evaluate(evaluator));
+                    intersect(filter, evaluators, result);
+
+                    if (predicate != null) {
+                        result.removeIf(evaluator -> !predicate.evaluate(evaluator));
+                    }
                 }
             }
 
-            return result != null && (filter.size() == result.size()); // stop traverse once the result includes all entries in the filter
+            return isProcessed && (filter.size() == (resultBitSet != null ? resultCount : result.size())); // stop traverse once the result includes all entries in the filter
         }
 
         private static <T> void intersect(Set<T> a, Set<T> b, Set<T> result) {
@@ -1425,6 +1946,28 @@ private static <T> void intersect(Set<T> a, Set<T> b, Set<T> result) {
         }
     }
 
+    private static final class ScratchBitSets {
+        final RangerBitSet filter  = new RangerBitSet();
+        final RangerBitSet result  = new RangerBitSet();
+        boolean            isInUse = false;
+
+        static ScratchBitSets acquire() {
+            ScratchBitSets ret = EvalSubsetCollector.SCRATCH_BITSETS.get();
+
+            if (ret.isInUse) { // in use by another collector in this thread
+                ret = null;
+            } else {
+                ret.isInUse = true;
+            }
+
+            return ret;
+        }
+    }
+
+    private static int getHashSetCapacity(int expectedSize) {
+        return expectedSize < 3 ? expectedSize + 1 : (int) (expectedSize / 0.75f + 1.0f);
+    }
+
     public static class EvalCountCollector<T extends RangerResourceEvaluator> implements TraverseMatchHandler<T> {
         private final Predicate predicate;
         private       int       result = 0;
@@ -28,6 +28,7 @@
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher.MatchType;
 import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.RangerBoundedCache;
 import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever;
 import org.apache.ranger.plugin.util.ServicePolicies.SecurityZoneInfo;
 import org.slf4j.Logger;
@@ -35,19 +36,50 @@
 
 import java.util.*;
 
+/*
+ * Zones matched by a resource are cached, keyed by the resource, as the same resources are accessed repeatedly. Cached
+ * zone sets are bitsets over the names of zones known to this matcher; a new matcher, with a new cache, is created
+ * when zones change.
+ */
 public class RangerSecurityZoneMatcher {
     private static final Logger LOG = LoggerFactory.getLogger(RangerSecurityZoneMatcher.class);
 
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+
+    private static final ZoneSet NO_MATCHERS = new ZoneSet(new String[0], Collections.emptyMap(), new long[0]); // cached for resources that match no zone matcher; returned as null
+
     private final Map<String, RangerResourceTrie<RangerZoneResourceMatcher>> resourceZoneTrie;
     private final Set<String>                                                zonesWithTagService;
     private final RangerServiceDef                                           serviceDef;
+    private final Map<String, List<HashMap<String, List<String>>>>           zoneResources;
+    private final String[]                                                   zoneNames;   // zone index => name; index 0 is for unzoned, i.e. ""
+    private final Map<String, Integer>                                       zoneIndexes; // zone name => index
+    private final String[]                                                   resourceNames;
+    private final RangerBoundedCache<String, ZoneSet>                        zonesCache;
+    private boolean                                                          hasZoneResourcesWithMacros = false;
 
     public RangerSecurityZoneMatcher(Map<String, SecurityZoneInfo> securityZones, RangerServiceDef serviceDef, RangerPluginContext pluginContext) {
         this.resourceZoneTrie    = new HashMap<>();
         this.zonesWithTagService = new HashSet<>();
         this.serviceDef          = serviceDef;
+        this.zoneResources       = new HashMap<>();
+        this.zoneIndexes         = new HashMap<>();
 
         buildZoneTrie(securityZones, serviceDef, pluginContext);
+
+        List<String> names = new ArrayList<>(zoneResources.keySet());
+
+        Collections.sort(names);
+        names.add(0, "");
+
+        this.zoneNames = names.toArray(new String[0]);
+
+        for (int i = 0; i < zoneNames.length; i++) {
+            zoneIndexes.put(zoneNames[i], i);
+        }
+
+        this.resourceNames = getResourceNames(serviceDef);
+        this.zonesCache    = createZonesCache(pluginContext);
     }
 
     public boolean hasTagService(String zoneName) {
@@ -55,13 +87,43 @@ public boolean hasTagService(String zoneName) {
     }
 
     public Set<String> getZonesForResourceAndChildren(Map<String, ?> resource) {
-        return getZonesForResourceAndChildren(resource, convertToAccessResource(resource));
+        return getZonesForResourceAndChildren(resource, null);
     }
 
     public Set<String> getZonesForResourceAndChildren(RangerAccessResource resource) {
         return getZonesForResourceAndChildren(resource.getAsMap(), resource);
     }
 
+    /*
+     * returns true if the given zones are same as the zones this matcher was created with; this matcher, along with
+     * its cache, can then be used in place of a matcher for the given zones
+     */
+    public boolean hasSameZones(Map<String, SecurityZoneInfo> securityZones) {
+        int zoneCount = securityZones != null ? securityZones.size() : 0;
+
+        if (zoneCount != zoneResources.size()) {
+            return false;
+        }
+
+        if (zoneCount > 0) {
+            for (Map.Entry<String, SecurityZoneInfo> entry : securityZones.entrySet()) {
+                String           zoneName = entry.getKey();
+                SecurityZoneInfo zoneInfo = entry.getValue();
+
+                if (!zoneResources.containsKey(zoneName) || !Objects.equals(zoneResources.get(zoneName), zoneInfo.getResources()) ||
+                    zonesWithTagService.contains(zoneName) != Boolean.TRUE.equals(zoneInfo.getContainsAssociatedTagService())) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    public RangerBoundedCache.Stats getCacheStats() {
+        return zonesCache != null ? zonesCache.getStats() : null;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -82,11 +144,29 @@ public int hashCode() {
     }
 
     private Set<String> getZonesForResourceAndChildren(Map<String, ?> resource, RangerAccessResource accessResource) {
+        final String  cacheKey = zonesCache != null ? getCacheKey(resource) : null;
+        final ZoneSet cached   = cacheKey != null ? zonesCache.get(cacheKey) : null;
+        final ZoneSet ret;
+
+        if (cached != null) {
+            ret = cached;
+        } else {
+            ret = getZonesForResourceAndChildren(resource, accessResource != null ? accessResource : convertToAccessResource(resource), cacheKey);
+
+            if (cacheKey != null) {
+                zonesCache.put(cacheKey, ret != null ? ret : NO_MATCHERS);
+            }
+        }
+
+        return ret != NO_MATCHERS ? ret : null;
+    }
+
+    private ZoneSet getZonesForResourceAndChildren(Map<String, ?> resource, RangerAccessResource accessResource, String cacheKey) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RangerSecurityZoneMatcher.getZonesForResourceAndChildren({})", accessResource);
         }
 
-        Set<String> ret = null;
+        ZoneSet ret = null;
 
         if (MapUtils.isNotEmpty(this.resourceZoneTrie)) {
             Collection<RangerZoneResourceMatcher> matchers = RangerResourceEvaluatorsRetriever.getEvaluators(resourceZoneTrie, resource);
@@ -96,7 +176,7 @@ private Set<String> getZonesForResourceAndChildren(Map<String, ?> resource, Rang
                     LOG.debug("Resource:[{}], matchers:[{}]", resource, matchers);
                 }
 
-                ret = new HashSet<>(matchers.size());
+                long[] zoneBits = new long[(zoneNames.length + 63) >>> 6];
 
                 // These are potential matches. Try to really match them
                 for (RangerZoneResourceMatcher matcher : matchers) {
@@ -108,7 +188,7 @@ private Set<String> getZonesForResourceAndChildren(Map<String, ?> resource, Rang
                     MatchType                   matchType             = policyResourceMatcher.getMatchType(accessResource, null);
 
                     if (matchType == MatchType.DESCENDANT) { // add unzoned name
-                        ret.add("");
+                        zoneBits[0] |= 1L;
                     }
 
                     if (matchType != MatchType.NONE) {
@@ -117,7 +197,9 @@ private Set<String> getZonesForResourceAndChildren(Map<String, ?> resource, Rang
                         }
 
                         // Actual match happened
-                        ret.add(matcher.getSecurityZoneName());
+                        int zoneIndex = zoneIndexes.get(matcher.getSecurityZoneName());
+
+                        zoneBits[zoneIndex >>> 6] |= 1L << zoneIndex;
                     } else {
                         if (LOG.isDebugEnabled()) {
                             LOG.debug("Did not match resource:[{}] using matcher:[{}]", accessResource, matcher);
@@ -125,6 +207,8 @@ private Set<String> getZonesForResourceAndChildren(Map<String, ?> resource, Rang
                     }
                 }
 
+                ret = new ZoneSet(zoneNames, zoneIndexes, zoneBits);
+
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("zone-names matched resource:[{}]: {}", accessResource, ret);
                 }
@@ -156,6 +240,8 @@ private void buildZoneTrie(Map<String, SecurityZoneInfo> securityZones, RangerSe
                     LOG.debug("Building matchers for zone:[{}]", zoneName);
                 }
 
+                zoneResources.put(zoneName, zoneDetails.getResources());
+
                 for (Map<String, List<String>> resource : zoneDetails.getResources()) {
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Building matcher for resource:[{}] in zone:[{}]", resource, zoneName);
@@ -171,7 +257,13 @@ private void buildZoneTrie(Map<String, SecurityZoneInfo> securityZones, RangerSe
                         policyResources.put(resourceDefName, new RangerPolicyResource(resourceValues, false, isRecursive));
                     }
 
-                    matchers.add(new RangerZoneResourceMatcher(zoneName, policyResources, serviceDef, pluginContext));
+                    RangerZoneResourceMatcher matcher = new RangerZoneResourceMatcher(zoneName, policyResources, serviceDef, pluginContext);
+
+                    if (matcher.getPolicyResourceMatcher().getNeedsDynamicEval()) {
+                        hasZoneResourcesWithMacros = true;
+                    }
+
+                    matchers.add(matcher);
 
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Built matcher for resource:[{}] in zone:[{}]", resource, zoneName);
@@ -203,6 +295,66 @@ private void buildZoneTrie(Map<String, SecurityZoneInfo> securityZones, RangerSe
         }
     }
 
+    /*
+     * returns null if zones for the resource should not be cached: i.e. when the resource has values that are not
+     * strings, or names that are not in the service-def
+     */
+    private String getCacheKey(Map<String, ?> resource) {
+        StringBuilder sb         = new StringBuilder();
+        int           valueCount = 0;
+
+        for (String resourceName : resourceNames) {
+            Object value = resource.get(resourceName);
+
+            if (value == null) {
+                continue;
+            } else if (!(value instanceof String)) {
+                return null;
+            }
+
+            String strValue = (String) value;
+
+            // length prefix keeps keys unique, irrespective of the characters in values
+            sb.append(resourceName).append('=').append(strValue.length()).append(':').append(strValue).append(';');
+
+            valueCount++;
+        }
+
+        return valueCount == resource.size() ? sb.toString() : null;
+    }
+
+    private RangerBoundedCache<String, ZoneSet> createZonesCache(RangerPluginContext pluginContext) {
+        RangerPolicyEngineOptions options   = pluginContext != null && pluginContext.getConfig() != null ? pluginContext.getConfig().getPolicyEngineOptions() : null;
+        int                       cacheSize = options != null ? options.zoneMatcherCacheSize : DEFAULT_CACHE_SIZE;
+
+        if (cacheSize <= 0 || MapUtils.isEmpty(resourceZoneTrie)) {
+            return null;
+        }
+
+        // zones of a resource depend only on the resource, unless a zone resource has macros
+        if (hasZoneResourcesWithMacros) {
+            LOG.info("RangerSecurityZoneMatcher: zones of resources will not be cached, as zone resources have macros");
+
+            return null;
+        }
+
+        return new RangerBoundedCache<>(cacheSize);
+    }
+
+    private static String[] getResourceNames(RangerServiceDef serviceDef) {
+        List<String> ret = new ArrayList<>();
+
+        if (serviceDef != null && serviceDef.getResources() != null) {
+            for (RangerResourceDef resourceDef : serviceDef.getResources()) {
+                if (resourceDef != null && resourceDef.getName() != null && !ret.contains(resourceDef.getName())) {
+                    ret.add(resourceDef.getName());
+                }
+            }
+        }
+
+        return ret.toArray(new String[0]);
+    }
+
     private RangerAccessResource convertToAccessResource(Map<String, ?> resource) {
         RangerAccessResourceImpl ret = new RangerAccessResourceImpl();
 
@@ -214,4 +366,86 @@ private RangerAccessResource convertToAccessResource(Map<String, ?> resource) {
 
         return ret;
     }
+
+    /*
+     * Immutable set of zone names, as bits over the zone names known to the matcher
+     */
+    static final class ZoneSet extends AbstractSet<String> {
+        private final String[]             zoneNames;
+        private final Map<String, Integer> zoneIndexes;
+        private final long[]               bits;
+        private final int                  size;
+
+        ZoneSet(String[] zoneNames, Map<String, Integer> zoneIndexes, long[] bits) {
+            int size = 0;
+
+            for (long word : bits) {
+                size += Long.bitCount(word);
+            }
+
+            this.zoneNames   = zoneNames;
+            this.zoneIndexes = zoneIndexes;
+            this.bits        = bits;
+            this.size        = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer index = zoneIndexes.get(o);
+
+            return index != null && (bits[index >>> 6] & (1L << index)) != 0;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int next = nextIndex(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next != -1;
+                }
+
+                @Override
+                public String next() {
+                    if (next == -1) {
+                        throw new NoSuchElementException();
+                    }
+
+                    String ret = zoneNames[next];
+
+                    next = nextIndex(next + 1);
+
+                    return ret;
+                }
+            };
+        }
+
+        private int nextIndex(int fromIndex) {
+            int wordIndex = fromIndex >>> 6;
+
+            if (wordIndex >= bits.length) {
+                return -1;
+            }
+
+            long word = bits[wordIndex] & (-1L << fromIndex);
+
+            while (true) {
+                if (word != 0) {
+                    return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                }
+
+                if (++wordIndex == bits.length) {
+                    return -1;
+                }
+
+                word = bits[wordIndex];
+            }
+        }
+    }
 }
@@ -80,6 +80,7 @@ public abstract class RangerAbstractPolicyEvaluator implements RangerPolicyEvalu
 	private   boolean                             needsDynamicEval = false;
 	private   int                                 evalOrder;
 	private   List<RangerPolicyResourceEvaluator> resourceEvaluators = Collections.emptyList();
+	private   RangerPolicyEvaluatorStats          evalStats          = null;
 	protected RangerPluginContext                 pluginContext      = null;
 
 
@@ -96,6 +97,7 @@ public void init(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyE
 		this.policy           = getPrunedPolicy(policy);
 		this.serviceDef       = serviceDef;
 		this.needsDynamicEval = false;
+		this.evalStats        = options.adaptiveEvalOrderIntervalMs > 0 ? new RangerPolicyEvaluatorStats() : null;
 
 		List<RangerPolicyResourceEvaluator>  resourceEvaluators = new ArrayList<>();
 		RangerDefaultPolicyResourceEvaluator resourceEvaluator  = new RangerDefaultPolicyResourceEvaluator(NEXT_RESOURCE_EVALUATOR_ID.getAndIncrement(), policy.getResources(), getPolicyType(), serviceDef, options.getServiceDefHelper());
@@ -270,6 +272,11 @@ private RangerPolicy getPrunedPolicy(final RangerPolicy policy) {
 	public int getEvalOrder() {
 		return evalOrder;
 	}
+	@Override
+	public RangerPolicyEvaluatorStats getEvalStats() {
+		return evalStats;
+	}
+
 	@Override
 	public boolean isAuditEnabled() {
 		return policy != null && policy.getIsAuditEnabled();
@@ -533,6 +540,7 @@ public class RangerDefaultPolicyResourceEvaluator implements RangerPolicyResourc
 		private final    RangerDefaultPolicyResourceMatcher resourceMatcher;
 		private final    RangerResourceDef                  leafResourceDef;
 		private volatile RangerDefaultPolicyResourceMatcher macrosReplacedWithWildcardMatcher;
+		private          int                                ordinal = -1;
 
 		public RangerDefaultPolicyResourceEvaluator(long id, Map<String, RangerPolicyResource> resource, int policyType, RangerServiceDef serviceDef, RangerServiceDefHelper serviceDefHelper) {
 			this.id              = id;
@@ -557,6 +565,16 @@ public long getId() {
 			return id;
 		}
 
+		@Override
+		public int getOrdinal() {
+			return ordinal;
+		}
+
+		@Override
+		public void setOrdinal(int ordinal) {
+			this.ordinal = ordinal;
+		}
+
 		@Override
 		public RangerPolicyResourceMatcher getPolicyResourceMatcher() {
 			return resourceMatcher;
@@ -22,6 +22,7 @@
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.conditionevaluator.RangerConditionEvaluator;
+import org.apache.ranger.plugin.conditionevaluator.RangerConditionEvaluatorRegistry;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
@@ -119,24 +120,12 @@ public RangerConditionEvaluator getConditionEvaluator(String parentId, RangerPol
         final RangerConditionEvaluator ret;
 
         if (condition != null && conditionDef != null && !getConditionsDisabledOption(options)) {
-            ret = newConditionEvaluator(conditionDef.getEvaluator());
+            RangerConditionEvaluatorRegistry registry = options != null ? options.getConditionEvaluatorRegistry() : null;
 
-            if (ret != null) {
-                ret.setServiceDef(serviceDef);
-                ret.setConditionDef(conditionDef);
-                ret.setPolicyItemCondition(condition);
-
-                RangerPerfTracer perf = null;
-
-                if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYCONDITION_INIT_LOG)) {
-                    perf = RangerPerfTracer.getPerfTracer(PERF_POLICYCONDITION_INIT_LOG, "RangerConditionEvaluator.init(" + parentId + ", policyConditionType=" + condition.getType() + ")");
-                }
-
-                ret.init();
-
-                RangerPerfTracer.log(perf);
+            if (registry != null) {
+                ret = registry.getEvaluator(condition, conditionDef, () -> newConditionEvaluator(parentId, condition, conditionDef, serviceDef));
             } else {
-                LOG.error("RangerCustomConditionEvaluator.getConditionEvaluator(" + parentId + "): failed to init ConditionEvaluator '" + condition.getType() + "'; evaluatorClassName='" + conditionDef.getEvaluator() + "'");
+                ret = newConditionEvaluator(parentId, condition, conditionDef, serviceDef);
             }
         } else {
             ret = null;
@@ -169,6 +158,30 @@ public RangerConditionEvaluator getExpressionEvaluator(String expression, Ranger
         return ret;
     }
 
+    private RangerConditionEvaluator newConditionEvaluator(String parentId, RangerPolicyItemCondition condition, RangerPolicyConditionDef conditionDef, RangerServiceDef serviceDef) {
+        RangerConditionEvaluator ret = newConditionEvaluator(conditionDef.getEvaluator());
+
+        if (ret != null) {
+            ret.setServiceDef(serviceDef);
+            ret.setConditionDef(conditionDef);
+            ret.setPolicyItemCondition(condition);
+
+            RangerPerfTracer perf = null;
+
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYCONDITION_INIT_LOG)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_POLICYCONDITION_INIT_LOG, "RangerConditionEvaluator.init(" + parentId + ", policyConditionType=" + condition.getType() + ")");
+            }
+
+            ret.init();
+
+            RangerPerfTracer.log(perf);
+        } else {
+            LOG.error("RangerCustomConditionEvaluator.getConditionEvaluator(" + parentId + "): failed to init ConditionEvaluator '" + condition.getType() + "'; evaluatorClassName='" + conditionDef.getEvaluator() + "'");
+        }
+
+        return ret;
+    }
+
     private RangerConditionEvaluator newConditionEvaluator(String className) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RangerCustomConditionEvaluator.newConditionEvaluator(" + className + ")");
@@ -33,6 +33,7 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.conditionevaluator.RangerAbstractConditionEvaluator;
 import org.apache.ranger.plugin.conditionevaluator.RangerConditionEvaluator;
+import org.apache.ranger.plugin.conditionevaluator.RangerConditionEvaluatorRegistry;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
@@ -79,6 +80,7 @@ public class RangerDefaultPolicyEvaluator extends RangerAbstractPolicyEvaluator
 	private String perfTag;
 	private PolicyACLSummary aclSummary                 = null;
 	private boolean          disableRoleResolution      = true;
+	private RangerConditionEvaluatorRegistry conditionEvaluatorRegistry = null;
 
 	List<RangerPolicyItemEvaluator> getAllowEvaluators() { return allowEvaluators; }
 	List<RangerPolicyItemEvaluator> getAllowExceptionEvaluators() { return allowExceptionEvaluators; }
@@ -130,7 +132,8 @@ public void init(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyE
 		if(policy != null) {
 			validityScheduleEvaluators = createValidityScheduleEvaluators(policy);
 
-			this.disableRoleResolution = options.disableRoleResolution;
+			this.disableRoleResolution      = options.disableRoleResolution;
+			this.conditionEvaluatorRegistry = options.getConditionEvaluatorRegistry();
 
 			allowEvaluators = createPolicyItemEvaluators(policy, serviceDef, options, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW);
 
@@ -202,6 +205,18 @@ public boolean isApplicable(Date accessTime) {
         return ret;
     }
 
+	@Override
+	public long getNextApplicabilityChangeTime(long accessTime) {
+		long ret = Long.MAX_VALUE;
+
+		// applicability, being true if any of the schedules is applicable, can change only when that of a schedule does
+		for (RangerValidityScheduleEvaluator evaluator : validityScheduleEvaluators) {
+			ret = Math.min(ret, evaluator.getNextTransitionTime(accessTime));
+		}
+
+		return ret;
+	}
+
     @Override
     public void evaluate(RangerAccessRequest request, RangerAccessResult result) {
         if (LOG.isDebugEnabled()) {
@@ -216,6 +231,10 @@ public void evaluate(RangerAccessRequest request, RangerAccessResult result) {
 		}
 
         if (request != null && result != null) {
+			final RangerPolicyEvaluatorStats evalStats      = getEvalStats();
+			final long                       resultPolicyId = result.getPolicyId();
+			boolean                          isAnyMatched   = false;
+
 			for (RangerPolicyResourceEvaluator resourceEvaluator : getResourceEvaluators()) {
 				RangerPolicyResourceMatcher resourceMatcher = resourceEvaluator.getPolicyResourceMatcher();
 
@@ -244,6 +263,8 @@ public void evaluate(RangerAccessRequest request, RangerAccessResult result) {
 					if (isMatched) {
 						//Evaluate Policy Level Custom Conditions, if any and allowed then go ahead for policyItem level evaluation
 						if (matchPolicyCustomConditions(request)) {
+							isAnyMatched = true;
+
 							if (!result.getIsAuditedDetermined()) {
 								if (isAuditEnabled()) {
 									result.setIsAudited(true);
@@ -259,6 +280,10 @@ public void evaluate(RangerAccessRequest request, RangerAccessResult result) {
 					}
 				}
 			}
+
+			if (evalStats != null) {
+				evalStats.recordEvaluation(isAnyMatched, resultPolicyId != getPolicyId() && result.getPolicyId() == getPolicyId());
+			}
 		}
 
 		RangerPerfTracer.log(perf);
@@ -381,8 +406,9 @@ public Set<String> getAllowedAccesses(RangerAccessResource resource, String user
 				}
 			}
 		} else {
-			LOG.debug("RangerDefaultPolicyEvaluator.getAllowedAccesses - Not Matched -- (policy-id=" + getPolicyId() + ", " + resource + ", " + user + ", " + userGroups + ", " + roles + ", " + accessTypes + ")");
-
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerDefaultPolicyEvaluator.getAllowedAccesses - Not Matched -- (policy-id=" + getPolicyId() + ", " + resource + ", " + user + ", " + userGroups + ", " + roles + ", " + accessTypes + ")");
+			}
 		}
 
 		if(LOG.isDebugEnabled()) {
@@ -812,7 +838,7 @@ protected void evaluatePolicyItems(RangerAccessRequest request, RangerPolicyReso
 		Set<String> allRequestedAccesses = RangerAccessRequestUtil.getAllRequestedAccessTypes(request);
 
 		if (CollectionUtils.isNotEmpty(allRequestedAccesses)) {
-			Map<String, RangerAccessResult> accessTypeResults = RangerAccessRequestUtil.getAccessTypeResults(request);
+			Map<String, RangerAccessResult> accessTypeResults = RangerAccessRequestUtil.getAccessTypeResults(request.getContext()); // created in the context only when a result is to be saved
 
 			for (String accessType : allRequestedAccesses) {
 
@@ -823,7 +849,8 @@ protected void evaluatePolicyItems(RangerAccessRequest request, RangerPolicyReso
 				RangerAccessResult allowResult = null;
 				boolean            noResult    = false;
 
-				RangerAccessRequestWrapper oneRequest = new RangerAccessRequestWrapper(request, accessType);
+				// wrapper is not needed when evaluating the access-type of the request itself, the common case
+				RangerAccessRequest        oneRequest = StringUtils.equals(accessType, request.getAccessType()) ? request : new RangerAccessRequestWrapper(request, accessType);
 				RangerAccessResult         oneResult  = new RangerAccessResult(result.getPolicyType(), result.getServiceName(), result.getServiceDef(), oneRequest);
 
 				oneResult.setAuditResultFrom(result);
@@ -845,6 +872,10 @@ protected void evaluatePolicyItems(RangerAccessRequest request, RangerPolicyReso
 				}
 
 				if (!noResult) {
+					if (accessTypeResults == null) {
+						accessTypeResults = RangerAccessRequestUtil.getAccessTypeResults(request);
+					}
+
 					RangerAccessResult oldResult = accessTypeResults.get(accessType);
 					if (oldResult == null) {
 						accessTypeResults.put(accessType, allowResult != null ? allowResult : denyResult);
@@ -907,14 +938,14 @@ protected void evaluatePolicyItems(RangerAccessRequest request, RangerPolicyReso
 
 	private RangerAccessResult deriveAccessResultFromGroup(RangerAccessRequest request, Set<String> accessesInGroup) {
 		RangerAccessResult 					ret 				= null;
-		Map<String, RangerAccessResult> 	accessTypeResults 	= RangerAccessRequestUtil.getAccessTypeResults(request);
+		Map<String, RangerAccessResult> 	accessTypeResults 	= RangerAccessRequestUtil.getAccessTypeResults(request.getContext());
 
 		boolean 							isAccessDetermined 	= true;
 		boolean 							isAccessDenied 		= false;
 		RangerAccessResult					deniedAccessResult 	= null;
 
 		for (String accessType : accessesInGroup) {
-			RangerAccessResult accessResult = accessTypeResults.get(accessType);
+			RangerAccessResult accessResult = accessTypeResults != null ? accessTypeResults.get(accessType) : null;
 			if (accessResult != null) {
 				if (accessResult.getIsAllowed()) {
 					// Allow
@@ -1483,7 +1514,7 @@ private boolean matchPolicyCustomConditions(RangerAccessRequest request) {
 					perf = RangerPerfTracer.getPerfTracer(PERF_POLICYCONDITION_REQUEST_LOG, "RangerConditionEvaluator.matchPolicyCustomConditions(policyId=" + getPolicyId() +  ",policyConditionType=" + conditionType + ")");
 				}
 
-				boolean conditionEvalResult = conditionEvaluator.isMatched(request);
+				boolean conditionEvalResult = conditionEvaluatorRegistry != null ? conditionEvaluatorRegistry.isMatched(conditionEvaluator, request) : conditionEvaluator.isMatched(request);
 
 				RangerPerfTracer.log(perf);
 
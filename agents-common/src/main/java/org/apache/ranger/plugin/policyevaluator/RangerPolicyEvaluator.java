@@ -93,8 +93,16 @@ public interface RangerPolicyEvaluator {
 
 	boolean isApplicable(Date accessTime);
 
+	/*
+	 * Returns the earliest time after accessTime at which isApplicable() might return a value different from that for
+	 * accessTime; Long.MAX_VALUE if applicability of the policy doesn't depend on access-time.
+	 */
+	default long getNextApplicabilityChangeTime(long accessTime) { return Long.MAX_VALUE; }
+
 	int getEvalOrder();
 
+	default RangerPolicyEvaluatorStats getEvalStats() { return null; }
+
 	int getPolicyConditionsCount();
 
 	int getCustomConditionsCount();
@@ -719,6 +727,8 @@ default long getPolicyId() {
 
 		RangerPolicyEvaluator getPolicyEvaluator();
 
+		void setOrdinal(int ordinal);
+
 		RangerPolicyResourceMatcher getMacrosReplaceWithWildcardMatcher(PolicyEngine policyEngine);
 	}
 }
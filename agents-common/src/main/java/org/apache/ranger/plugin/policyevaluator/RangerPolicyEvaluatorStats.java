@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyevaluator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Counts of evaluations of a policy evaluator - updated by threads evaluating requests, without contention. Counts are
+ * periodically folded into decayed totals by a single thread, so that recent evaluations weigh more than older ones.
+ */
+public class RangerPolicyEvaluatorStats {
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder matches     = new LongAdder();
+    private final LongAdder decisions   = new LongAdder();
+
+    private volatile double decayedEvaluations = 0;
+    private volatile double decayedMatches     = 0;
+    private volatile double decayedDecisions   = 0;
+
+    public void recordEvaluation(boolean isMatched, boolean isDecided) {
+        evaluations.increment();
+
+        if (isMatched) {
+            matches.increment();
+        }
+
+        if (isDecided) {
+            decisions.increment();
+        }
+    }
+
+    /*
+     * folds counts recorded since the previous call into decayed totals; must be called from a single thread
+     */
+    public void decay(double decayFactor) {
+        decayedEvaluations = decayedEvaluations * decayFactor + evaluations.sumThenReset();
+        decayedMatches     = decayedMatches * decayFactor + matches.sumThenReset();
+        decayedDecisions   = decayedDecisions * decayFactor + decisions.sumThenReset();
+    }
+
+    public double getEvaluations() { return decayedEvaluations; }
+
+    public double getMatches() { return decayedMatches; }
+
+    public double getDecisions() { return decayedDecisions; }
+
+    /*
+     * fraction of evaluations that decided the access - with Laplace smoothing, so that an evaluator without
+     * evaluations yet isn't placed after evaluators that were seen to rarely decide
+     */
+    public double getDecisionRate() {
+        return (decayedDecisions + 1) / (decayedEvaluations + 2);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{evaluations=%.1f, matches=%.1f, decisions=%.1f}", decayedEvaluations, decayedMatches, decayedDecisions);
+    }
+}
@@ -60,6 +60,9 @@ protected DateFormat initialValue() {
     private final Date                            endTime;
     private final String                          timeZone;
     private final List<RangerRecurrenceEvaluator> recurrenceEvaluators = new ArrayList<>();
+    private final long                            adjustedStartTime;
+    private final long                            adjustedEndTime;
+    private volatile ApplicabilityWindow          window;
 
     public RangerValidityScheduleEvaluator(@Nonnull RangerValiditySchedule validitySchedule) {
         this(validitySchedule.getStartTime(), validitySchedule.getEndTime(), validitySchedule.getTimeZone(), validitySchedule.getRecurrences());
@@ -94,19 +97,6 @@ public RangerValidityScheduleEvaluator(String startTimeStr, String endTimeStr, S
                 recurrenceEvaluators.add(new RangerRecurrenceEvaluator(recurrence));
             }
         }
-    }
-
-    public boolean isApplicable(long accessTime) {
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("===> isApplicable(accessTime=" + accessTime + ")");
-        }
-
-        boolean          ret  = false;
-        RangerPerfTracer perf = null;
-
-        if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-            perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerValidityScheduleEvaluator.isApplicable(accessTime=" + accessTime + ")");
-        }
 
         long startTimeInMSs = startTime == null ? 0 : startTime.getTime();
         long endTimeInMSs   = endTime == null ? 0 : endTime.getTime();
@@ -123,28 +113,101 @@ public boolean isApplicable(long accessTime) {
             }
         }
 
-        if ((startTimeInMSs == 0 || accessTime >= startTimeInMSs) && (endTimeInMSs == 0 || accessTime <= endTimeInMSs)) {
+        this.adjustedStartTime = startTimeInMSs;
+        this.adjustedEndTime   = endTimeInMSs;
+    }
+
+    public boolean isApplicable(long accessTime) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("===> isApplicable(accessTime=" + accessTime + ")");
+        }
+
+        boolean ret = getApplicabilityWindow(accessTime).isApplicable;
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<=== isApplicable(accessTime=" + accessTime + ") :" + ret);
+        }
+
+        return ret;
+    }
+
+    /*
+     * Returns the earliest time after accessTime at which isApplicable() might return a value different from that for
+     * accessTime; Long.MAX_VALUE if the value never changes after accessTime.
+     */
+    public long getNextTransitionTime(long accessTime) {
+        return getApplicabilityWindow(accessTime).until;
+    }
+
+    /*
+     * Applicability at a given time doesn't change until the next start/end of the schedule - or, for schedules having
+     * recurrences, until the end of the current minute or recurrence interval. Hence the window computed for the last
+     * access-time is retained, and is used for subsequent access-times that fall in it; calendar computations are needed
+     * only once per window.
+     */
+    private ApplicabilityWindow getApplicabilityWindow(long accessTime) {
+        ApplicabilityWindow ret = this.window;
+
+        if (ret == null || !ret.contains(accessTime)) {
+            ret = computeApplicabilityWindow(accessTime);
+
+            this.window = ret;
+        }
+
+        return ret;
+    }
+
+    private ApplicabilityWindow computeApplicabilityWindow(long accessTime) {
+        final ApplicabilityWindow ret;
+        RangerPerfTracer          perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerValidityScheduleEvaluator.isApplicable(accessTime=" + accessTime + ")");
+        }
+
+        if (adjustedStartTime != 0 && accessTime < adjustedStartTime) {
+            ret = new ApplicabilityWindow(Long.MIN_VALUE, adjustedStartTime, false);
+        } else if (adjustedEndTime != 0 && accessTime > adjustedEndTime) {
+            ret = new ApplicabilityWindow(adjustedEndTime + 1, Long.MAX_VALUE, false);
+        } else {
+            long from  = adjustedStartTime == 0 ? Long.MIN_VALUE : adjustedStartTime;
+            long until = adjustedEndTime == 0 ? Long.MAX_VALUE : adjustedEndTime + 1;
+
             if (CollectionUtils.isEmpty(recurrenceEvaluators)) {
-                ret = true;
+                ret = new ApplicabilityWindow(from, until, true);
             } else {
-                Calendar now = new GregorianCalendar();
-                now.setTime(new Date(accessTime));
+                Calendar now                = new GregorianCalendar();
+                long     endOfIntervalInMSs = -1;
+
+                now.setTimeInMillis(accessTime);
 
                 for (RangerRecurrenceEvaluator recurrenceEvaluator : recurrenceEvaluators) {
-                    ret = recurrenceEvaluator.isApplicable(now);
+                    endOfIntervalInMSs = Math.max(endOfIntervalInMSs, recurrenceEvaluator.getEndOfApplicableInterval(now));
+                }
 
-                    if (ret) {
-                        break;
-                    }
+                // recurrence intervals are found for the minute of access-time; hence the result holds till the end of this minute, or the interval
+                Calendar nextMinute = (Calendar) now.clone();
+
+                nextMinute.set(Calendar.SECOND, 0);
+                nextMinute.set(Calendar.MILLISECOND, 0);
+                nextMinute.add(Calendar.MINUTE, 1);
+
+                until = Math.min(until, nextMinute.getTimeInMillis());
+
+                if (endOfIntervalInMSs != -1) {
+                    ret = new ApplicabilityWindow(accessTime, endOfIntervalInMSs == Long.MAX_VALUE ? until : Math.min(until, endOfIntervalInMSs + 1), true);
+                } else {
+                    ret = new ApplicabilityWindow(accessTime, until, false);
                 }
             }
         }
 
         RangerPerfTracer.log(perf);
 
-	    if (LOG.isDebugEnabled()) {
-		    LOG.debug("<=== isApplicable(accessTime=" + accessTime + ") :" + ret);
-	    }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("computeApplicabilityWindow(accessTime=" + accessTime + "): " + ret);
+        }
+
         return ret;
     }
 
@@ -205,7 +268,15 @@ public RangerRecurrenceEvaluator(RangerValidityRecurrence recurrence) {
         }
 
         public boolean isApplicable(Calendar now) {
-            boolean ret = false;
+            return getEndOfApplicableInterval(now) != -1;
+        }
+
+        /*
+         * Returns the end of the recurrence interval that includes the given time; Long.MAX_VALUE if the recurrence is
+         * always applicable, -1 if the time is not in any interval of the recurrence.
+         */
+        long getEndOfApplicableInterval(Calendar now) {
+            long ret = -1;
 
             RangerPerfTracer perf = null;
 
@@ -238,11 +309,13 @@ public boolean isApplicable(Calendar now) {
                         LOG.debug("End-of-Interval:[" + endOfInterval.getTime() + "]");
                     }
 
-                    ret = startOfInterval.compareTo(now) <= 0 && endOfInterval.compareTo(now) >= 0;
+                    if (startOfInterval.compareTo(now) <= 0 && endOfInterval.compareTo(now) >= 0) {
+                        ret = endOfInterval.getTimeInMillis();
+                    }
                 }
 
             } else {
-                ret = true;
+                ret = Long.MAX_VALUE;
             }
 
             RangerPerfTracer.log(perf);
@@ -585,4 +658,25 @@ private ValueWithBorrow getPastFieldValueWithBorrow(RangerValidityRecurrence.Rec
             return ret;
         }
     }
+
+    private static final class ApplicabilityWindow {
+        final long    from;  // inclusive
+        final long    until; // exclusive
+        final boolean isApplicable;
+
+        ApplicabilityWindow(long from, long until, boolean isApplicable) {
+            this.from         = from;
+            this.until        = until;
+            this.isApplicable = isApplicable;
+        }
+
+        boolean contains(long time) {
+            return time >= from && time < until;
+        }
+
+        @Override
+        public String toString() {
+            return "ApplicabilityWindow={from=" + from + ", until=" + until + ", isApplicable=" + isApplicable + "}";
+        }
+    }
 }
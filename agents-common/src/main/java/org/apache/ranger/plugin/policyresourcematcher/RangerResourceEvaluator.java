@@ -38,4 +38,9 @@ public interface RangerResourceEvaluator {
     boolean isAncestorOf(RangerServiceDef.RangerResourceDef resourceDef);
 
     boolean isLeaf(String resourceName);
+
+    // dense ordinal of this evaluator within its policy repository; -1 if not assigned
+    default int getOrdinal() {
+        return -1;
+    }
 }
@@ -25,7 +25,6 @@
 import java.util.Map;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOCase;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
@@ -601,13 +600,17 @@ public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalConte
 }
 
 final class CaseSensitiveWildcardMatcher extends AbstractStringResourceMatcher {
+	private final RangerWildcardMatcher wildcardMatcher;
+
 	CaseSensitiveWildcardMatcher(String value, Map<String, String> options) {
 		super(value, options);
+
+		this.wildcardMatcher = new RangerWildcardMatcher(value);
 	}
 
 	@Override
 	boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-		return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.SENSITIVE);
+		return wildcardMatch(wildcardMatcher, resourceValue, evalContext, false);
 	}
 
 	@Override
@@ -620,13 +623,17 @@ public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalConte
 
 
 final class CaseInsensitiveWildcardMatcher extends AbstractStringResourceMatcher {
+	private final RangerWildcardMatcher wildcardMatcher;
+
 	CaseInsensitiveWildcardMatcher(String value, Map<String, String> options) {
 		super(value, options);
+
+		this.wildcardMatcher = new RangerWildcardMatcher(value);
 	}
 
 	@Override
 	boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-		return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.INSENSITIVE);
+		return wildcardMatch(wildcardMatcher, resourceValue, evalContext, true);
 	}
 
 	@Override
@@ -638,19 +645,21 @@ public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalConte
 }
 
 final class QuotedCaseSensitiveWildcardMatcher extends AbstractStringResourceMatcher {
-	private final String quoteChars;
+	private final String                quoteChars;
+	private final RangerWildcardMatcher wildcardMatcher;
 
 	QuotedCaseSensitiveWildcardMatcher(String value, Map<String, String> options, String quoteChars) {
 		super(value, options);
 
-		this.quoteChars = quoteChars;
+		this.quoteChars      = quoteChars;
+		this.wildcardMatcher = new RangerWildcardMatcher(value);
 	}
 
 	@Override
 	boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-		IOCase caseSensitivity = startsWithAnyChar(resourceValue, quoteChars) ? IOCase.SENSITIVE : IOCase.INSENSITIVE;
+		boolean ignoreCase = !startsWithAnyChar(resourceValue, quoteChars);
 
-		return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), caseSensitivity);
+		return wildcardMatch(wildcardMatcher, resourceValue, evalContext, ignoreCase);
 	}
 
 	@Override
@@ -20,7 +20,6 @@
 package org.apache.ranger.plugin.resourcematcher;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOCase;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
@@ -140,9 +139,10 @@ ResourceMatcher getMatcher(String policyValue) {
 		return ret;
 	}
 
-	static boolean isRecursiveWildCardMatch(String pathToCheck, String wildcardPath, Character pathSeparatorChar, IOCase caseSensitivity, String[] wildcardPathElements) {
+	static boolean isRecursiveWildCardMatch(String pathToCheck, RangerWildcardMatcher wildcardMatcher, Character pathSeparatorChar, IOCase caseSensitivity, String[] wildcardPathElements) {
 
-		boolean ret = false;
+		boolean ret        = false;
+		boolean ignoreCase = !caseSensitivity.isCaseSensitive();
 
 		if (! StringUtils.isEmpty(pathToCheck)) {
 			String[] pathElements = StringUtils.split(pathToCheck, pathSeparatorChar);
@@ -179,7 +179,7 @@ static boolean isRecursiveWildCardMatch(String pathToCheck, String wildcardPath,
 					}
 
 					if (!useStringMatching) {
-						ret = FilenameUtils.wildcardMatch(sb.toString(), wildcardPath, caseSensitivity);
+						ret = wildcardMatcher.isMatch(sb, ignoreCase);
 						if (ret) {
 							break;
 						}
@@ -198,7 +198,7 @@ static boolean isRecursiveWildCardMatch(String pathToCheck, String wildcardPath,
 
 				sb = null;
 			} else { // pathToCheck consists of only pathSeparatorChar
-				ret = FilenameUtils.wildcardMatch(pathToCheck, wildcardPath, caseSensitivity);
+				ret = wildcardMatcher.isMatch(pathToCheck, ignoreCase);
 			}
 		}
 		return ret;
@@ -261,14 +261,14 @@ private ResourceMatcher getPathMatcher(String policyValue) {
 		}
 
 		if (needWildcardMatch) { // test?, test*a*, test*a*b, *test*a
-			ret = new WildcardResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase, FilenameUtils::wildcardMatch, 6);
+			ret = new WildcardResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase, 6);
 		} else if (wildcardStartIdx == -1) { // test, testa, testab
 			ret = new PathResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase ? StringUtils::equalsIgnoreCase : StringUtils::equals, !optIgnoreCase, optIgnoreCase ? 2 : 1);
 		} else if (wildcardStartIdx == 0) { // *test, **test, *testa, *testab
 			String matchStr = policyValue.substring(wildcardEndIdx + 1);
 			ret = new PathEndsWithResourceMatcher(matchStr, getOptions(), pathSeparatorChar, !optIgnoreCase, optIgnoreCase ? 4 : 3);
 		} else if (wildcardEndIdx != (len - 1)) { // test*a, test*ab
-			ret = new WildcardResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase, FilenameUtils::wildcardMatch, 6);
+			ret = new WildcardResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase, 6);
 		} else { // test*, test**, testa*, testab*
 			String matchStr = policyValue.substring(0, wildcardStartIdx);
 			ret = new PathStartsWithResourceMatcher(matchStr, getOptions(), pathSeparatorChar, !optIgnoreCase, optIgnoreCase ? 4 : 3);
@@ -512,14 +512,20 @@ public boolean isChildMatch(String resourceValue, Map<String, Object> evalContex
 	}
 
 	static class WildcardResourceMatcher extends AbstractPathResourceMatcher {
-		final TriFunction<String, String, IOCase, Boolean> function;
-		final IOCase                                       ioCase;
+		final IOCase                ioCase;
+		final boolean               ignoreCase;
+		final RangerWildcardMatcher wildcardMatcher;
+		final RangerWildcardMatcher parentWildcardMatcher;
 
-		WildcardResourceMatcher(String value, Map<String, String> options, char pathSeparatorChar, boolean optIgnoreCase, TriFunction<String, String, IOCase, Boolean> function, int priority) {
+		WildcardResourceMatcher(String value, Map<String, String> options, char pathSeparatorChar, boolean optIgnoreCase, int priority) {
 			super(value, options, pathSeparatorChar, !optIgnoreCase, priority);
 
-			this.function = function;
-			this.ioCase   = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
+			int lastLevelSeparatorIndex = value.lastIndexOf(pathSeparatorChar);
+
+			this.ioCase                = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
+			this.ignoreCase            = optIgnoreCase;
+			this.wildcardMatcher       = new RangerWildcardMatcher(value);
+			this.parentWildcardMatcher = lastLevelSeparatorIndex != -1 ? new RangerWildcardMatcher(value.substring(0, lastLevelSeparatorIndex)) : null;
 		}
 
 		@Override
@@ -529,7 +535,7 @@ public boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
 			}
 
 			String  expandedValue = getExpandedValue(evalContext);
-			boolean ret           = function.apply(resourceValue, expandedValue, ioCase);
+			boolean ret           = getNeedsDynamicEval() ? RangerWildcardMatcher.wildcardMatch(resourceValue, expandedValue, ignoreCase) : wildcardMatcher.isMatch(resourceValue, ignoreCase);
 
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("<== WildcardResourceMatcher.isMatch(resourceValue=" + resourceValue + ", expandedValue=" + expandedValue + ") : result:[" + ret + "]");
@@ -553,18 +559,24 @@ public boolean isPrefixMatch(String resourceValue, Map<String, Object> evalConte
 
 		@Override
 		public boolean isChildMatch(String resourceValue, Map<String, Object> evalContext) {
-			boolean ret                     = false;
-			String  expandedValue           = getExpandedValue(evalContext);
-			int     lastLevelSeparatorIndex = expandedValue.lastIndexOf(pathSeparatorChar);
+			boolean               ret = false;
+			RangerWildcardMatcher shorterWildcardMatcher;
 
-			if (lastLevelSeparatorIndex != -1) {
-				String shorterExpandedValue = expandedValue.substring(0, lastLevelSeparatorIndex);
+			if (getNeedsDynamicEval()) {
+				String expandedValue           = getExpandedValue(evalContext);
+				int    lastLevelSeparatorIndex = expandedValue.lastIndexOf(pathSeparatorChar);
 
+				shorterWildcardMatcher = lastLevelSeparatorIndex != -1 ? new RangerWildcardMatcher(expandedValue.substring(0, lastLevelSeparatorIndex)) : null;
+			} else {
+				shorterWildcardMatcher = parentWildcardMatcher;
+			}
+
+			if (shorterWildcardMatcher != null) {
 				if (resourceValue.charAt(resourceValue.length()-1) == pathSeparatorChar) {
 					resourceValue = resourceValue.substring(0, resourceValue.length()-1);
 				}
 
-				ret = function.apply(resourceValue, shorterExpandedValue, ioCase);
+				ret = shorterWildcardMatcher.isMatch(resourceValue, ignoreCase);
 			}
 
 			return ret;
@@ -572,15 +584,17 @@ public boolean isChildMatch(String resourceValue, Map<String, Object> evalContex
 	}
 
 	static class RecursiveWildcardResourceMatcher extends AbstractPathResourceMatcher {
-		final QuintFunction<String, String, Character, IOCase, Boolean, String[]> function;
+		final QuintFunction<String, RangerWildcardMatcher, Character, IOCase, Boolean, String[]> function;
 		final IOCase ioCase;
+		final RangerWildcardMatcher wildcardMatcher;
 		String[] wildcardPathElements;
 
-		RecursiveWildcardResourceMatcher(String value, Map<String, String> options, char pathSeparatorChar, boolean optIgnoreCase, QuintFunction<String, String, Character, IOCase, Boolean, String[]> function, int priority) {
+		RecursiveWildcardResourceMatcher(String value, Map<String, String> options, char pathSeparatorChar, boolean optIgnoreCase, QuintFunction<String, RangerWildcardMatcher, Character, IOCase, Boolean, String[]> function, int priority) {
 			super(value, options, pathSeparatorChar, !optIgnoreCase, priority);
 
-			this.function = function;
-			this.ioCase   = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
+			this.function        = function;
+			this.ioCase          = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
+			this.wildcardMatcher = new RangerWildcardMatcher(value);
 
 			if (!getNeedsDynamicEval()) {
 				wildcardPathElements = StringUtils.split(value, pathSeparatorChar);
@@ -592,14 +606,16 @@ boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
 				LOG.debug("==> RecursiveWildcardResourceMatcher.isMatch(resourceValue=" + resourceValue + ", evalContext=" + evalContext + ")");
 			}
 			String expandedValue;
+			boolean ret;
 			if (getNeedsDynamicEval()) {
 				expandedValue = getExpandedValue(evalContext);
-				wildcardPathElements = StringUtils.split(expandedValue, pathSeparatorChar);
+
+				ret = function.apply(resourceValue, new RangerWildcardMatcher(expandedValue), pathSeparatorChar, ioCase, StringUtils.split(expandedValue, pathSeparatorChar));
 			} else {
 				expandedValue = value;
-			}
 
-			boolean ret = function.apply(resourceValue, expandedValue, pathSeparatorChar, ioCase, wildcardPathElements);
+				ret = function.apply(resourceValue, wildcardMatcher, pathSeparatorChar, ioCase, wildcardPathElements);
+			}
 
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("<== RecursiveWildcardResourceMatcher.isMatch(resourceValue=" + resourceValue + ", expandedValue=" + expandedValue + ") : result:[" + ret + "]");
@@ -636,7 +652,7 @@ public boolean isChildMatch(String resourceValue, Map<String, Object> evalContex
 
 				String[] shorterWildCardPathElements = StringUtils.split(shorterExpandedValue, pathSeparatorChar);
 
-				ret = function.apply(resourceValue, shorterExpandedValue, pathSeparatorChar, ioCase, shorterWildCardPathElements);
+				ret = function.apply(resourceValue, new RangerWildcardMatcher(shorterExpandedValue), pathSeparatorChar, ioCase, shorterWildCardPathElements);
 			}
 
 			return ret;
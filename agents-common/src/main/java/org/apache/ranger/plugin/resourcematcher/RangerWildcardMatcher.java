@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.resourcematcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Wildcard pattern compiled once, for repeated matching with the same results as FilenameUtils.wildcardMatch(): the
+ * pattern is split into literal, '?' and '*' tokens when the matcher is created, instead of on every match. Matching
+ * doesn't allocate, except for the backtracking stack when a literal token after '*' occurs more than once in the value.
+ * Case-insensitive matching folds case one character at a time, like String.regionMatches(true, ...) does, instead of
+ * converting the strings to lower-case.
+ *
+ * The matching steps are the same as the ones in FilenameUtils.wildcardMatch(), including its handling of '?' right
+ * after '*', so that a policy matches exactly the same resources with either.
+ */
+public final class RangerWildcardMatcher {
+    private static final char   WILDCARD_ASTERISK = '*';
+    private static final char   WILDCARD_QUESTION = '?';
+    private static final char   LITERAL           = 0;
+    private static final String ASTERISK_TOKEN    = "*";
+    private static final String QUESTION_TOKEN    = "?";
+
+    private final String   pattern;
+    private final char[]   tokenTypes;    // WILDCARD_ASTERISK, WILDCARD_QUESTION or LITERAL
+    private final char[][] literals;      // literal tokens; null for wildcard tokens
+    private final char[][] upperLiterals; // literal tokens folded to upper-case
+    private final char[][] lowerLiterals; // upperLiterals folded to lower-case
+    private final int      minLength;     // minimum length of a matching value
+    private final boolean  hasAsterisk;
+
+    public RangerWildcardMatcher(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern is null");
+        }
+
+        List<String> tokens = splitOnTokens(pattern);
+        int          count  = tokens.size();
+        int          minLen = 0;
+        boolean      hasAst = false;
+
+        this.pattern       = pattern;
+        this.tokenTypes    = new char[count];
+        this.literals      = new char[count][];
+        this.upperLiterals = new char[count][];
+        this.lowerLiterals = new char[count][];
+
+        for (int i = 0; i < count; i++) {
+            String token = tokens.get(i);
+
+            if (token.equals(ASTERISK_TOKEN)) { // literal tokens don't include '*' or '?'
+                tokenTypes[i] = WILDCARD_ASTERISK;
+                hasAst        = true;
+            } else if (token.equals(QUESTION_TOKEN)) {
+                tokenTypes[i] = WILDCARD_QUESTION;
+                minLen++;
+            } else {
+                char[] literal = token.toCharArray();
+                char[] upper   = new char[literal.length];
+                char[] lower   = new char[literal.length];
+
+                for (int j = 0; j < literal.length; j++) {
+                    upper[j] = Character.toUpperCase(literal[j]);
+                    lower[j] = Character.toLowerCase(upper[j]);
+                }
+
+                tokenTypes[i]    = LITERAL;
+                literals[i]      = literal;
+                upperLiterals[i] = upper;
+                lowerLiterals[i] = lower;
+                minLen          += literal.length;
+            }
+        }
+
+        this.minLength   = minLen;
+        this.hasAsterisk = hasAst;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public boolean isMatch(CharSequence value, boolean ignoreCase) {
+        if (value == null) {
+            return false;
+        }
+
+        final int valueLength = value.length();
+
+        if (valueLength < minLength || (!hasAsterisk && valueLength != minLength)) {
+            return false;
+        }
+
+        final int lastTokenIdx = tokenTypes.length - 1;
+        int       tokenIdx     = 0;
+        int       valueIdx     = 0;
+
+        // a literal first token must be at the start of value, and a literal last token at the end
+        if (tokenTypes[0] == LITERAL) {
+            if (!regionMatches(value, 0, 0, ignoreCase)) {
+                return false;
+            }
+
+            if (lastTokenIdx == 0) {
+                return true;
+            }
+
+            tokenIdx = 1;
+            valueIdx = literals[0].length;
+        }
+
+        if (tokenTypes[lastTokenIdx] == LITERAL && !regionMatches(value, valueLength - literals[lastTokenIdx].length, lastTokenIdx, ignoreCase)) {
+            return false;
+        }
+
+        int[]   backtrack    = null; // pairs of (tokenIdx, valueIdx) to retry from
+        int     backtrackLen = 0;
+        boolean anyChars     = false;
+
+        while (true) {
+            while (tokenIdx <= lastTokenIdx) {
+                final char tokenType = tokenTypes[tokenIdx];
+
+                if (tokenType == WILDCARD_QUESTION) {
+                    valueIdx++;
+
+                    if (valueIdx > valueLength) {
+                        break;
+                    }
+
+                    anyChars = false;
+                } else if (tokenType == WILDCARD_ASTERISK) {
+                    anyChars = true;
+
+                    if (tokenIdx == lastTokenIdx) {
+                        valueIdx = valueLength;
+                    }
+                } else {
+                    if (anyChars) {
+                        valueIdx = indexOf(value, valueIdx, tokenIdx, ignoreCase);
+
+                        if (valueIdx == -1) {
+                            break;
+                        }
+
+                        int repeat = indexOf(value, valueIdx + 1, tokenIdx, ignoreCase);
+
+                        if (repeat >= 0) {
+                            if (backtrack == null) {
+                                backtrack = new int[8];
+                            } else if (backtrackLen == backtrack.length) {
+                                backtrack = Arrays.copyOf(backtrack, backtrackLen * 2);
+                            }
+
+                            backtrack[backtrackLen++] = tokenIdx;
+                            backtrack[backtrackLen++] = repeat;
+                        }
+                    } else if (!regionMatches(value, valueIdx, tokenIdx, ignoreCase)) {
+                        break;
+                    }
+
+                    valueIdx += literals[tokenIdx].length;
+                    anyChars  = false;
+                }
+
+                tokenIdx++;
+            }
+
+            if (tokenIdx > lastTokenIdx && valueIdx == valueLength) {
+                return true;
+            }
+
+            if (backtrackLen == 0) {
+                return false;
+            }
+
+            valueIdx = backtrack[--backtrackLen];
+            tokenIdx = backtrack[--backtrackLen];
+            anyChars = true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RangerWildcardMatcher={pattern=" + pattern + "}";
+    }
+
+    // same result as FilenameUtils.wildcardMatch(value, pattern, ignoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE)
+    public static boolean wildcardMatch(String value, String pattern, boolean ignoreCase) {
+        if (value == null || pattern == null) {
+            return value == null && pattern == null;
+        }
+
+        return new RangerWildcardMatcher(pattern).isMatch(value, ignoreCase);
+    }
+
+    private int indexOf(CharSequence value, int fromIdx, int tokenIdx, boolean ignoreCase) {
+        for (int endIdx = value.length() - literals[tokenIdx].length; fromIdx <= endIdx; fromIdx++) {
+            if (regionMatches(value, fromIdx, tokenIdx, ignoreCase)) {
+                return fromIdx;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean regionMatches(CharSequence value, int valueIdx, int tokenIdx, boolean ignoreCase) {
+        final char[] literal = literals[tokenIdx];
+
+        if (valueIdx < 0 || valueIdx > value.length() - literal.length) {
+            return false;
+        }
+
+        for (int i = 0; i < literal.length; i++, valueIdx++) {
+            final char c = value.charAt(valueIdx);
+
+            if (c != literal[i]) {
+                if (!ignoreCase) {
+                    return false;
+                }
+
+                final char upper = Character.toUpperCase(c);
+
+                if (upper != upperLiterals[tokenIdx][i] && Character.toLowerCase(upper) != lowerLiterals[tokenIdx][i]) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    // same tokens as FilenameUtils.splitOnTokens(): literals, "?" and "*" - with runs of '*' collapsed into one
+    private static List<String> splitOnTokens(String pattern) {
+        List<String>  ret      = new ArrayList<>();
+        StringBuilder sb       = new StringBuilder();
+        char          prevChar = 0;
+
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+
+            if (c == WILDCARD_QUESTION || c == WILDCARD_ASTERISK) {
+                if (sb.length() > 0) {
+                    ret.add(sb.toString());
+                    sb.setLength(0);
+                }
+
+                if (c == WILDCARD_QUESTION) {
+                    ret.add(QUESTION_TOKEN);
+                } else if (prevChar != WILDCARD_ASTERISK) {
+                    ret.add(ASTERISK_TOKEN);
+                }
+            } else {
+                sb.append(c);
+            }
+
+            prevChar = c;
+        }
+
+        if (sb.length() > 0 || ret.isEmpty()) {
+            ret.add(sb.toString());
+        }
+
+        return ret;
+    }
+}
@@ -175,6 +175,15 @@ public static boolean isMatch(ResourceElementMatchType matchType, ResourceElemen
         return ret;
     }
 
+    // match with the pattern compiled from value, unless value needs to be expanded for this request
+    boolean wildcardMatch(RangerWildcardMatcher wildcardMatcher, String resourceValue, Map<String, Object> evalContext, boolean ignoreCase) {
+        if (getNeedsDynamicEval()) {
+            return RangerWildcardMatcher.wildcardMatch(resourceValue, getExpandedValue(evalContext), ignoreCase);
+        }
+
+        return wildcardMatcher.isMatch(resourceValue, ignoreCase);
+    }
+
     // modified version of FilenameUtils.wildcardMatch(), to check if value is a prefix match for wildcardMatcher
     public static boolean wildcardPrefixMatch(String value, String wildcardMatcher, IOCase caseSensitivity) {
         if (value == null && wildcardMatcher == null) {
@@ -49,6 +49,14 @@ public RangerAuthContext(Map<RangerContextEnricher, Object> requestContextEnrich
         setUserStore(userStore);
     }
 
+    public RangerAuthContext(Map<RangerContextEnricher, Object> requestContextEnrichers, RangerSecurityZoneMatcher zoneMatcher, RangerRolesUtil rolesUtil, RangerUserStore userStore) {
+        this.requestContextEnrichers = requestContextEnrichers != null ? requestContextEnrichers : new ConcurrentHashMap<>();
+        this.zoneMatcher             = zoneMatcher;
+        this.rolesUtil               = rolesUtil;
+
+        setUserStore(userStore);
+    }
+
     public Map<RangerContextEnricher, Object> getRequestContextEnrichers() {
         return requestContextEnrichers;
     }
@@ -72,7 +80,13 @@ public void cleanupRequestContextEnricher(RangerContextEnricher enricher) {
     }
 
     public void setRoles(RangerRoles roles) {
-        this.rolesUtil = new RangerRolesUtil(roles);
+        RangerRolesUtil rolesUtil = this.rolesUtil;
+
+        if (roles != null && roles.getIsDelta() && rolesUtil != null) {
+            this.rolesUtil = new RangerRolesUtil(rolesUtil, roles);
+        } else {
+            this.rolesUtil = new RangerRolesUtil(roles);
+        }
     }
 
     public Set<String> getRolesForUserAndGroups(String user, Set<String> groups) {
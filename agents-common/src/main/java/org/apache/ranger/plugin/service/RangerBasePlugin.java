@@ -69,7 +69,7 @@ public class RangerBasePlugin {
 	private final int                         logInterval    = 30000; // 30 seconds
 	private final DownloadTrigger             accessTrigger  = new DownloadTrigger();
 	private       PolicyRefresher             refresher;
-	private       RangerPolicyEngine          policyEngine;
+	private volatile RangerPolicyEngine       policyEngine;
 	private       RangerAuthContext           currentAuthContext;
 	private       RangerAccessResultProcessor resultProcessor;
 	private       RangerRoles                 roles;
@@ -205,14 +205,30 @@ public RangerRoles getRoles() {
 	}
 
 	public void setRoles(RangerRoles roles) {
-		this.roles = roles;
+		if (roles != null && roles.getIsDelta() && this.roles == null) { // deltas can't be applied without the roles they were computed from
+			LOG.error("setRoles(roleVersion=" + roles.getRoleVersion() + "): ignoring role deltas, as there are no roles to apply them to");
 
-		RangerPolicyEngine policyEngine = this.policyEngine;
+			return;
+		}
 
-		if (policyEngine != null) {
-			policyEngine.setRoles(roles);
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
+
+		try {
+			if (policyEngine != null) {
+				policyEngine.setRoles(roles);
+
+				if (roles != null && roles.getIsDelta()) { // policy-engine applied the deltas to its roles
+					roles = policyEngine.getRangerRoles();
+				}
+			} else if (roles != null && roles.getIsDelta()) {
+				roles = RangerRolesUtil.applyDeltas(this.roles, roles);
+			}
+		} finally {
+			releasePolicyEngine(policyEngine);
 		}
 
+		this.roles = roles;
+
 		pluginContext.notifyAuthContextChanged();
 	}
 
@@ -233,9 +249,13 @@ public void setServiceAdmins(Set<String> users) {
 	}
 
 	public RangerServiceDef getServiceDef() {
-		RangerPolicyEngine policyEngine = this.policyEngine;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
 
-		return policyEngine != null ? policyEngine.getServiceDef() : null;
+		try {
+			return policyEngine != null ? policyEngine.getServiceDef() : null;
+		} finally {
+			releasePolicyEngine(policyEngine);
+		}
 	}
 
 	public int getServiceDefId() {
@@ -277,10 +297,15 @@ public void init() {
 	}
 
 	public long getPoliciesVersion() {
-		RangerPolicyEngine policyEngine = this.policyEngine;
-		Long               ret          = policyEngine != null ? policyEngine.getPolicyVersion() : null;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
 
-		return ret != null ? ret : -1L;
+		try {
+			Long ret = policyEngine != null ? policyEngine.getPolicyVersion() : null;
+
+			return ret != null ? ret : -1L;
+		} finally {
+			releasePolicyEngine(policyEngine);
+		}
 	}
 
 	public long getTagsVersion() {
@@ -291,10 +316,15 @@ public long getTagsVersion() {
 	}
 
 	public long getRolesVersion() {
-		RangerPolicyEngine policyEngine = this.policyEngine;
-		Long               ret          = policyEngine != null ? policyEngine.getRoleVersion() : null;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
 
-		return ret != null ? ret : -1L;
+		try {
+			Long ret = policyEngine != null ? policyEngine.getRoleVersion() : null;
+
+			return ret != null ? ret : -1L;
+		} finally {
+			releasePolicyEngine(policyEngine);
+		}
 	}
 
 	public long getUserStoreVersion() {
@@ -461,7 +491,11 @@ public void setPolicies(ServicePolicies policies) {
 					pluginContext.notifyAuthContextChanged();
 
 					if (oldPolicyEngine != null && oldPolicyEngine != newPolicyEngine) {
-						((RangerPolicyEngineImpl) oldPolicyEngine).releaseResources(!isPolicyEngineShared);
+						if (isEngineSnapshotsEnabled()) { // resources will be released after in-flight requests complete
+							((RangerPolicyEngineImpl) oldPolicyEngine).retire(!isPolicyEngineShared);
+						} else {
+							((RangerPolicyEngineImpl) oldPolicyEngine).releaseResources(!isPolicyEngineShared);
+						}
 					}
 
 					if (this.refresher != null) {
@@ -505,8 +539,14 @@ public void cleanup() {
 		}
 
 		if (policyEngine != null) {
-			((RangerPolicyEngineImpl) policyEngine).releaseResources(true);
+			if (isEngineSnapshotsEnabled()) {
+				((RangerPolicyEngineImpl) policyEngine).retire(true);
+			} else {
+				((RangerPolicyEngineImpl) policyEngine).releaseResources(true);
+			}
 		}
+
+		pluginContext.cleanup();
 	}
 
 	public void setResultProcessor(RangerAccessResultProcessor resultProcessor) {
@@ -526,8 +566,17 @@ public Collection<RangerAccessResult> isAccessAllowed(Collection<RangerAccessReq
 	}
 
 	public RangerAccessResult isAccessAllowed(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
-		RangerAccessResult ret          = null;
-		RangerPolicyEngine policyEngine = this.policyEngine;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
+
+		try {
+			return isAccessAllowed(request, resultProcessor, policyEngine);
+		} finally {
+			releasePolicyEngine(policyEngine);
+		}
+	}
+
+	private RangerAccessResult isAccessAllowed(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor, RangerPolicyEngine policyEngine) {
+		RangerAccessResult ret = null;
 
 		if (policyEngine != null) {
 			ret = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
@@ -571,8 +620,17 @@ public RangerAccessResult isAccessAllowed(RangerAccessRequest request, RangerAcc
 	}
 
 	public Collection<RangerAccessResult> isAccessAllowed(Collection<RangerAccessRequest> requests, RangerAccessResultProcessor resultProcessor) {
-		Collection<RangerAccessResult> ret          = null;
-		RangerPolicyEngine             policyEngine = this.policyEngine;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
+
+		try {
+			return isAccessAllowed(requests, resultProcessor, policyEngine);
+		} finally {
+			releasePolicyEngine(policyEngine);
+		}
+	}
+
+	private Collection<RangerAccessResult> isAccessAllowed(Collection<RangerAccessRequest> requests, RangerAccessResultProcessor resultProcessor, RangerPolicyEngine policyEngine) {
+		Collection<RangerAccessResult> ret = null;
 
 		if (policyEngine != null) {
 			ret = policyEngine.evaluatePolicies(requests, RangerPolicy.POLICY_TYPE_ACCESS, null);
@@ -612,8 +670,17 @@ public Collection<RangerAccessResult> isAccessAllowed(Collection<RangerAccessReq
 	}
 
 	public RangerAccessResult evalDataMaskPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
-		RangerPolicyEngine policyEngine = this.policyEngine;
-		RangerAccessResult ret          = null;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
+
+		try {
+			return evalDataMaskPolicies(request, resultProcessor, policyEngine);
+		} finally {
+			releasePolicyEngine(policyEngine);
+		}
+	}
+
+	private RangerAccessResult evalDataMaskPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor, RangerPolicyEngine policyEngine) {
+		RangerAccessResult ret = null;
 
 		if(policyEngine != null) {
 			ret = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_DATAMASK, resultProcessor);
@@ -648,8 +715,17 @@ public RangerAccessResult evalDataMaskPolicies(RangerAccessRequest request, Rang
 	}
 
 	public RangerAccessResult evalRowFilterPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
-		RangerPolicyEngine policyEngine = this.policyEngine;
-		RangerAccessResult ret          = null;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
+
+		try {
+			return evalRowFilterPolicies(request, resultProcessor, policyEngine);
+		} finally {
+			releasePolicyEngine(policyEngine);
+		}
+	}
+
+	private RangerAccessResult evalRowFilterPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor, RangerPolicyEngine policyEngine) {
+		RangerAccessResult ret = null;
 
 		if(policyEngine != null) {
 			ret = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ROWFILTER, resultProcessor);
@@ -684,18 +760,26 @@ public RangerAccessResult evalRowFilterPolicies(RangerAccessRequest request, Ran
 	}
 
 	public void evalAuditPolicies(RangerAccessResult result) {
-		RangerPolicyEngine policyEngine = this.policyEngine;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
 
-		if (policyEngine != null) {
-			policyEngine.evaluateAuditPolicies(result);
+		try {
+			if (policyEngine != null) {
+				policyEngine.evaluateAuditPolicies(result);
+			}
+		} finally {
+			releasePolicyEngine(policyEngine);
 		}
 	}
 
 	public RangerResourceAccessInfo getResourceAccessInfo(RangerAccessRequest request) {
-		RangerPolicyEngine policyEngine = this.policyEngine;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
 
-		if(policyEngine != null) {
-			return policyEngine.getResourceAccessInfo(request);
+		try {
+			if(policyEngine != null) {
+				return policyEngine.getResourceAccessInfo(request);
+			}
+		} finally {
+			releasePolicyEngine(policyEngine);
 		}
 
 		return null;
@@ -706,8 +790,17 @@ public RangerResourceACLs getResourceACLs(RangerAccessRequest request) {
 	}
 
 	public RangerResourceACLs getResourceACLs(RangerAccessRequest request, Integer policyType) {
-		RangerResourceACLs ret          = null;
-		RangerPolicyEngine policyEngine = this.policyEngine;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
+
+		try {
+			return getResourceACLs(request, policyType, policyEngine);
+		} finally {
+			releasePolicyEngine(policyEngine);
+		}
+	}
+
+	private RangerResourceACLs getResourceACLs(RangerAccessRequest request, Integer policyType, RangerPolicyEngine policyEngine) {
+		RangerResourceACLs ret = null;
 
 		if(policyEngine != null) {
 			ret = policyEngine.getResourceACLs(request, policyType);
@@ -756,20 +849,28 @@ public RangerResourceACLs getResourceACLs(RangerAccessRequest request, Integer p
 	}
 
 	public Set<String> getRolesFromUserAndGroups(String user, Set<String> groups) {
-		RangerPolicyEngine policyEngine = this.policyEngine;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
 
-		if(policyEngine != null) {
-			return policyEngine.getRolesFromUserAndGroups(user, groups);
+		try {
+			if(policyEngine != null) {
+				return policyEngine.getRolesFromUserAndGroups(user, groups);
+			}
+		} finally {
+			releasePolicyEngine(policyEngine);
 		}
 
 		return null;
 	}
 
 	public RangerRoles getRangerRoles() {
-		RangerPolicyEngine policyEngine = this.policyEngine;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
 
-		if(policyEngine != null) {
-			return policyEngine.getRangerRoles();
+		try {
+			if(policyEngine != null) {
+				return policyEngine.getRangerRoles();
+			}
+		} finally {
+			releasePolicyEngine(policyEngine);
 		}
 
 		return null;
@@ -785,7 +886,7 @@ public Set<RangerRole> getRangerRoleForPrincipal(String principal, String type)
 		}
 
 		if (rangerRoles != null) {
-			RangerPluginContext rangerPluginContext = policyEngine.getPluginContext();
+			RangerPluginContext rangerPluginContext = this.pluginContext; // same as the plugin-context of the policy-engine
 			if (rangerPluginContext != null) {
 				RangerAuthContext rangerAuthContext = rangerPluginContext.getAuthContext();
 				if (rangerAuthContext != null) {
@@ -824,11 +925,15 @@ public Set<RangerRole> getRangerRoleForPrincipal(String principal, String type)
 	public boolean isServiceAdmin(String userName) {
 		boolean ret = false;
 
-		RangerPolicyEngine policyEngine = this.policyEngine;
+		RangerPolicyEngine policyEngine = acquirePolicyEngine();
 
-		if(policyEngine != null) {
-			RangerPolicyEngineImpl rangerPolicyEngine = (RangerPolicyEngineImpl) policyEngine;
-			ret = rangerPolicyEngine.isServiceAdmin(userName);
+		try {
+			if(policyEngine != null) {
+				RangerPolicyEngineImpl rangerPolicyEngine = (RangerPolicyEngineImpl) policyEngine;
+				ret = rangerPolicyEngine.isServiceAdmin(userName);
+			}
+		} finally {
+			releasePolicyEngine(policyEngine);
 		}
 
 		return ret;
@@ -930,10 +1035,14 @@ public void grantAccess(GrantRevokeRequest request, RangerAccessResultProcessor
 		boolean isSuccess = false;
 
 		try {
-			RangerPolicyEngine policyEngine = this.policyEngine;
+			RangerPolicyEngine policyEngine = acquirePolicyEngine();
 
-			if (policyEngine != null) {
-				request.setZoneName(policyEngine.getUniquelyMatchedZoneName(request));
+			try {
+				if (policyEngine != null) {
+					request.setZoneName(policyEngine.getUniquelyMatchedZoneName(request));
+				}
+			} finally {
+				releasePolicyEngine(policyEngine);
 			}
 
 			getAdminClient().grantAccess(request);
@@ -956,10 +1065,14 @@ public void revokeAccess(GrantRevokeRequest request, RangerAccessResultProcessor
 		boolean isSuccess = false;
 
 		try {
-			RangerPolicyEngine policyEngine = this.policyEngine;
+			RangerPolicyEngine policyEngine = acquirePolicyEngine();
 
-			if (policyEngine != null) {
-				request.setZoneName(policyEngine.getUniquelyMatchedZoneName(request));
+			try {
+				if (policyEngine != null) {
+					request.setZoneName(policyEngine.getUniquelyMatchedZoneName(request));
+				}
+			} finally {
+				releasePolicyEngine(policyEngine);
 			}
 
 			getAdminClient().revokeAccess(request);
@@ -1024,18 +1137,14 @@ public void refreshPoliciesAndTags() {
 		}
 
 		try {
-			RangerPolicyEngine policyEngine = this.policyEngine;
-
 			// Synch-up policies
-			long oldPolicyVersion = policyEngine.getPolicyVersion();
+			long oldPolicyVersion = getPoliciesVersion();
 
 			if (refresher != null) {
 				refresher.syncPoliciesWithAdmin(accessTrigger);
 			}
 
-			policyEngine = this.policyEngine; // might be updated in syncPoliciesWithAdmin()
-
-			long newPolicyVersion = policyEngine.getPolicyVersion();
+			long newPolicyVersion = getPoliciesVersion(); // policy-engine might be updated in syncPoliciesWithAdmin()
 
 			if (oldPolicyVersion == newPolicyVersion) {
 				// Synch-up tags
@@ -1286,6 +1395,29 @@ private List<RangerChainedPlugin> initChainedPlugins() {
 		return ret;
 	}
 
+	private boolean isEngineSnapshotsEnabled() {
+		return pluginConfig.getPolicyEngineOptions().enableEngineSnapshots;
+	}
+
+	// with engine snapshots enabled, the returned engine is not released until releasePolicyEngine() is called
+	private RangerPolicyEngine acquirePolicyEngine() {
+		while (true) {
+			RangerPolicyEngine ret = this.policyEngine;
+
+			if (ret == null || !isEngineSnapshotsEnabled() || ((RangerPolicyEngineImpl) ret).acquire()) {
+				return ret;
+			}
+
+			// ret was retired after this.policyEngine was updated; retry with the current engine
+		}
+	}
+
+	private void releasePolicyEngine(RangerPolicyEngine policyEngine) {
+		if (policyEngine != null && isEngineSnapshotsEnabled()) {
+			((RangerPolicyEngineImpl) policyEngine).release();
+		}
+	}
+
 	private void updateResultFromChainedResult(RangerAccessResult result, RangerAccessResult chainedResult) {
 		boolean overrideResult = false;
 		int     policyType     = result.getPolicyType();
@@ -1424,6 +1556,6 @@ private static AuditProviderFactory getAuditProviderFactory(String serviceName)
 	}
 
 	public Long getPolicyVersion() {
-		return this.policyEngine == null ? -1L : this.policyEngine.getPolicyVersion();
+		return getPoliciesVersion();
 	}
 }
@@ -75,6 +75,9 @@ public void preProcess(RangerAccessRequest request) {
             LOG.debug("==> preProcess(" + request + ")");
         }
 
+        // results of conditions saved by an earlier evaluation might not be valid for this one; the request could have been updated since
+        RangerAccessRequestUtil.clearConditionResults(request.getContext());
+
         if (RangerAccessRequestUtil.getIsRequestPreprocessed(request.getContext())) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("<== preProcess(" + request + ")");
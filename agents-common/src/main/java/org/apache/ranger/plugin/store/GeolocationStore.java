@@ -29,4 +29,6 @@ public interface GeolocationStore {
 
 	RangerGeolocationData getGeoLocation(String ipAddress);
 	RangerGeolocationDatabase getGeoDatabase();
+
+	default void cleanup() { }
 }
@@ -47,6 +47,8 @@ public interface RoleStore {
 
     RangerRoles getRoles(String serviceName, Long lastKnownRoleVersion) throws Exception;
 
+    RangerRoles getRoles(String serviceName, Long lastKnownRoleVersion, boolean isDeltaRequested) throws Exception;
+
     Long getRoleVersion(String serviceName);
 
     boolean roleExists(Long id) throws  Exception;
@@ -24,6 +24,7 @@
 import org.apache.ranger.plugin.store.GeolocationStore;
 import org.apache.ranger.plugin.geo.RangerGeolocationDatabase;
 import org.apache.ranger.plugin.geo.RangerGeolocationData;
+import org.apache.ranger.plugin.geo.RangerGeolocationRanges;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,8 +36,11 @@
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GeolocationFileStore implements GeolocationStore {
 	private static final Logger LOG = LoggerFactory.getLogger(GeolocationFileStore.class);
@@ -47,13 +51,25 @@ public class GeolocationFileStore implements GeolocationStore {
 	public static final String PROP_GEOLOCATION_FILE_LOCATION = "FilePath";
 	public static final String PROP_GEOLOCATION_FILE_REINIT = "ForceRead";
 	public static final String PROP_GEOLOCATION_IP_IN_DOT_FORMAT = "IPInDotFormat";
+	public static final String PROP_GEOLOCATION_USE_COMPACT_STORE = "UseCompactStore";
+	public static final String PROP_GEOLOCATION_FILE_FORMAT = "FileFormat";
+	public static final String PROP_GEOLOCATION_USE_MEMORY_MAP = "UseMemoryMap";
+	public static final String PROP_GEOLOCATION_RELOAD_INTERVAL_SECONDS = "ReloadIntervalSeconds";
 
-	private static Map<String, RangerGeolocationDatabase> geolocationDBMap = new HashMap<>();
+	public static final String FILE_FORMAT_CSV = "csv";
+	public static final String FILE_FORMAT_BINARY = "binary"; // written by RangerGeolocationFileConverter
 
-	private RangerGeolocationDatabase geolocationDatabase;
+	private static Map<String, RangerGeolocationDatabase> geolocationDBMap = new ConcurrentHashMap<>();
+
+	private volatile RangerGeolocationDatabase geolocationDatabase;
 
 	private boolean isMetalineProcessed;
 	private boolean useDotFormat;
+	private boolean useCompactStore;
+	private boolean isBinaryFormat;
+	private boolean useMemoryMap;
+	private RangerGeolocationRanges.Builder rangesBuilder;
+	private Timer reloadTimer;
 
 	@Override
 	public void init(final Map<String, String> context) {
@@ -70,13 +86,38 @@ public void init(final Map<String, String> context) {
 		String ipInDotFormat = context.get(PROP_GEOLOCATION_IP_IN_DOT_FORMAT);
 		useDotFormat = ipInDotFormat == null || Boolean.parseBoolean(ipInDotFormat);
 
+		String compactStore = context.get(PROP_GEOLOCATION_USE_COMPACT_STORE);
+		useCompactStore = Boolean.parseBoolean(compactStore); // compact store expects ranges to not overlap, hence is used only when enabled
+
+		isBinaryFormat = FILE_FORMAT_BINARY.equalsIgnoreCase(context.get(PROP_GEOLOCATION_FILE_FORMAT));
+
+		String memoryMap = context.get(PROP_GEOLOCATION_USE_MEMORY_MAP);
+		useMemoryMap = memoryMap == null || Boolean.parseBoolean(memoryMap);
+
+		String reloadInterval = context.get(PROP_GEOLOCATION_RELOAD_INTERVAL_SECONDS);
+		long reloadIntervalSeconds = 0;
+
+		if (StringUtils.isNotBlank(reloadInterval)) {
+			try {
+				reloadIntervalSeconds = Long.parseLong(reloadInterval.trim());
+			} catch (NumberFormatException excp) {
+				LOG.error("GeolocationFileStore.init() - Invalid value for " + PROP_GEOLOCATION_RELOAD_INTERVAL_SECONDS + ": " + reloadInterval + ". Periodic reload is disabled");
+			}
+		}
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("GeolocationFileStore.init() - Geolocation file location=" + filePathToGeolocationFile);
 			LOG.debug("GeolocationFileStore.init() - Reinitialize flag =" + reinitialize);
 			LOG.debug("GeolocationFileStore.init() - UseDotFormat flag =" + useDotFormat);
+			LOG.debug("GeolocationFileStore.init() - UseCompactStore flag =" + useCompactStore);
+			LOG.debug("GeolocationFileStore.init() - IsBinaryFormat flag =" + isBinaryFormat);
+			LOG.debug("GeolocationFileStore.init() - UseMemoryMap flag =" + useMemoryMap);
+			LOG.debug("GeolocationFileStore.init() - ReloadIntervalSeconds =" + reloadIntervalSeconds);
 		}
 
+		File file = new File(filePathToGeolocationFile);
+		long lastModified = file.lastModified();
+
 		RangerGeolocationDatabase database = geolocationDBMap.get(filePathToGeolocationFile);
 
 		if (database == null || reinitialize) {
@@ -94,6 +135,17 @@ public void init(final Map<String, String> context) {
 			LOG.error("GeolocationFileStore.init() - Cannot build Geolocation database from file " + filePathToGeolocationFile);
 		}
 
+		if (reloadIntervalSeconds > 0 && file.exists()) {
+			startReloadTimer(filePathToGeolocationFile, lastModified, reloadIntervalSeconds);
+		}
+	}
+
+	@Override
+	public void cleanup() {
+		if (reloadTimer != null) {
+			reloadTimer.cancel();
+			reloadTimer = null;
+		}
 	}
 
 	@Override
@@ -161,6 +213,85 @@ private Reader getReader(String dataFileName) throws IOException {
 	}
 
 	RangerGeolocationDatabase build(String dataFileName) {
+		return isBinaryFormat ? buildFromBinary(dataFileName) : buildFromCsv(dataFileName);
+	}
+
+	// lookups continue to use the current database while the file is read; the new database replaces it only after it is fully built
+	private void startReloadTimer(final String dataFileName, final long lastModified, long reloadIntervalSeconds) {
+		reloadTimer = new Timer("geolocationReloadTimer", true);
+
+		reloadTimer.schedule(new TimerTask() {
+			private long fileLastModified = lastModified;
+
+			@Override
+			public void run() {
+				long lastModified = new File(dataFileName).lastModified();
+
+				if (lastModified != 0 && lastModified != fileLastModified) {
+					LOG.info("GeolocationFileStore: file '" + dataFileName + "' has been modified; reloading");
+
+					RangerGeolocationDatabase newDatabase = build(dataFileName);
+
+					if (newDatabase != null) {
+						geolocationDBMap.put(dataFileName, newDatabase);
+						geolocationDatabase = newDatabase;
+						fileLastModified = lastModified;
+					} else {
+						LOG.error("GeolocationFileStore: failed to reload file '" + dataFileName + "'. Continuing to use old database");
+					}
+				}
+			}
+		}, reloadIntervalSeconds * 1000, reloadIntervalSeconds * 1000);
+	}
+
+	private RangerGeolocationDatabase buildFromBinary(String dataFileName) {
+		RangerGeolocationDatabase database = null;
+		long start = System.currentTimeMillis();
+
+		try {
+			File f = new File(dataFileName);
+			RangerGeolocationRanges ranges;
+
+			if (f.exists() && f.canRead()) {
+				LOG.info("GeolocationFileStore: reading location data from file '" + dataFileName + "', useMemoryMap=" + useMemoryMap);
+
+				ranges = RangerGeolocationRanges.load(f, useMemoryMap);
+			} else {
+				InputStream inStr = this.getClass().getResourceAsStream(dataFileName);
+
+				if (inStr == null) {
+					throw new FileNotFoundException(dataFileName);
+				}
+
+				LOG.info("GeolocationFileStore: reading location data from resource '" + dataFileName + "'");
+
+				try {
+					ranges = RangerGeolocationRanges.load(inStr);
+				} finally {
+					inStr.close();
+				}
+			}
+
+			database = new RangerGeolocationDatabase();
+			database.setRanges(ranges);
+
+			LOG.info("GeolocationFileStore: loaded " + ranges);
+		}
+		catch(FileNotFoundException ex) {
+			LOG.error("RangerGeolocationDatabaseBuilder.build() - Unable to open file '" + dataFileName + "'");
+		}
+		catch(IOException ex) {
+			LOG.error("RangerGeolocationDatabaseBuilder.build() - Error reading file '" + dataFileName + "', " + ex);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerGeolocationDatabaseBuilder.build() - Time taken for reading file = " + (System.currentTimeMillis() - start) + " milliseconds");
+		}
+
+		return database;
+	}
+
+	private RangerGeolocationDatabase buildFromCsv(String dataFileName) {
 
 		RangerGeolocationDatabase database = null;
 
@@ -189,6 +320,12 @@ RangerGeolocationDatabase build(String dataFileName) {
 
 			bufferedReader.close();
 			bufferedReader = null;
+
+			if (database != null && rangesBuilder != null) {
+				database.setRanges(rangesBuilder.build());
+
+				LOG.info("GeolocationFileStore: loaded " + database.getRanges());
+			}
 		}
 		catch(FileNotFoundException ex) {
 			LOG.error("RangerGeolocationDatabaseBuilder.build() - Unable to open file '" + dataFileName + "'");
@@ -197,6 +334,8 @@ RangerGeolocationDatabase build(String dataFileName) {
 			LOG.error("RangerGeolocationDatabaseBuilder.build() - Error reading file '" + dataFileName + "', " + ex);
 		}
 		finally {
+			rangesBuilder = null;
+
 			if (bufferedReader != null) {
 				try {
 					bufferedReader.close();
@@ -234,10 +373,18 @@ private boolean processLine(int lineNumber, String line, RangerGeolocationDataba
 					if (metadata != null) {
 						database.setMetadata(metadata);
 						isMetalineProcessed = true;
+
+						if (useCompactStore) {
+							rangesBuilder = new RangerGeolocationRanges.Builder(metadata.getLocationDataItemNames());
+						}
 					} else {
 						LOG.error("GeolocationFileStore.processLine() - Invalid metadata specification " + lineNumber + ":" + line);
 						ret = false;
 					}
+				} else if (rangesBuilder != null) {
+					if (!addRange(fields)) {
+						LOG.error("GeolocationFileStore.processLine() - Invalid data specification " + lineNumber + ":" + line);
+					}
 				} else {
 					RangerGeolocationData data = RangerGeolocationData.create(fields, lineNumber, useDotFormat);
 					if (data != null) {
@@ -253,4 +400,23 @@ private boolean processLine(int lineNumber, String line, RangerGeolocationDataba
 		return ret;
 	}
 
+	private boolean addRange(String[] fields) {
+		boolean ret = false;
+
+		if (fields.length > 2) {
+			String[] locationData = Arrays.copyOfRange(fields, 2, fields.length);
+
+			if (useDotFormat) {
+				ret = rangesBuilder.addRange(fields[0], fields[1], locationData);
+			} else if (StringUtils.isNumeric(fields[0]) && StringUtils.isNumeric(fields[1])) {
+				try {
+					ret = rangesBuilder.addIpv4Range(Long.parseLong(fields[0]), Long.parseLong(fields[1]), locationData);
+				} catch (NumberFormatException excp) {
+					// ret remains false
+				}
+			}
+		}
+
+		return ret;
+	}
 }
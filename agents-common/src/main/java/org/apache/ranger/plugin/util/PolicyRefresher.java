@@ -21,10 +21,6 @@
 
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.Reader;
-import java.io.Writer;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -37,7 +33,6 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.admin.client.RangerAdminClient;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
-import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.slf4j.Logger;
@@ -56,6 +51,8 @@ public class PolicyRefresher extends Thread {
 	private final long                           pollingIntervalMs;
 	private final String                         cacheFileName;
 	private final String                         cacheDir;
+	private final boolean                        isCacheSnapshotEnabled;
+	private final boolean                        isCacheCompressed;
 	private final BlockingQueue<DownloadTrigger> policyDownloadQueue = new LinkedBlockingQueue<>();
 	private       Timer                          policyDownloadTimer;
 	private       long                           lastKnownVersion    = -1L;
@@ -77,6 +74,9 @@ public PolicyRefresher(RangerBasePlugin plugIn) {
 		this.serviceName = plugIn.getServiceName();
 		this.cacheDir    = pluginConfig.get(propertyPrefix + ".policy.cache.dir");
 
+		this.isCacheSnapshotEnabled = pluginConfig.getBoolean(propertyPrefix + ".policy.cache.snapshot.enabled", false);
+		this.isCacheCompressed      = RangerCacheFileUtil.isCompressionEnabled(pluginConfig);
+
 		String appId         = StringUtils.isEmpty(plugIn.getAppId()) ? serviceType : plugIn.getAppId();
 		String cacheFilename = String.format("%s_%s.json", appId, serviceName);
 
@@ -348,8 +348,6 @@ private ServicePolicies loadFromCache() {
 		File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
 
     	if(cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
-    		Reader reader = null;
-
     		RangerPerfTracer perf = null;
 
     		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
@@ -357,9 +355,13 @@ private ServicePolicies loadFromCache() {
     		}
 
     		try {
-	        	reader = new FileReader(cacheFile);
+				if (isCacheSnapshotEnabled) {
+					policies = ServicePoliciesSnapshot.load(cacheFile);
+				}
 
-				policies = JsonUtils.jsonToObject(reader, ServicePolicies.class);
+				if (policies == null) {
+					policies = RangerCacheFileUtil.read(cacheFile, ServicePolicies.class);
+				}
 
 		        if(policies != null) {
 		        	if(!StringUtils.equals(serviceName, policies.getServiceName())) {
@@ -374,14 +376,6 @@ private ServicePolicies loadFromCache() {
 	        	LOG.error("failed to load policies from cache file " + cacheFile.getAbsolutePath(), excp);
 	        } finally {
 	        	RangerPerfTracer.log(perf);
-
-	        	if(reader != null) {
-	        		try {
-	        			reader.close();
-	        		} catch(Exception excp) {
-	        			LOG.error("error while closing opened cache file " + cacheFile.getAbsolutePath(), excp);
-	        		}
-	        	}
 	        }
 		} else {
 			LOG.warn("cache file does not exist or not readable '" + (cacheFile == null ? null : cacheFile.getAbsolutePath()) + "'");
@@ -433,26 +427,31 @@ public void saveToCache(ServicePolicies policies) {
 					perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "PolicyRefresher.saveToCache(serviceName=" + serviceName + ")");
 				}
 
-				Writer writer = null;
+				boolean isSaved = false;
 	
 				try {
-					writer = new FileWriter(cacheFile);
-					JsonUtils.objectToWriter(writer, policies);
+					RangerCacheFileUtil.write(cacheFile, policies, isCacheCompressed);
+					isSaved = true;
 		        } catch (Exception excp) {
 		        	LOG.error("failed to save policies to cache file '" + cacheFile.getAbsolutePath() + "'", excp);
-		        } finally {
-					if (writer != null) {
-						try {
-							writer.close();
-							deleteOldestVersionCacheFileInCacheDirectory(cacheFile.getParentFile());
-						} catch (Exception excp) {
-							LOG.error("error while closing opened cache file '" + cacheFile.getAbsolutePath() + "'", excp);
-						}
-					}
+		        }
+
+				try {
+					deleteOldestVersionCacheFileInCacheDirectory(cacheFile.getParentFile());
+				} catch (Exception excp) {
+					LOG.error("failed to delete older versions of cache file '" + cacheFile.getAbsolutePath() + "'", excp);
 				}
 
 				RangerPerfTracer.log(perf);
 
+				if (isCacheSnapshotEnabled && CollectionUtils.isEmpty(policies.getPolicyDeltas())) {
+					if (isSaved) {
+						ServicePoliciesSnapshot.save(policies, cacheFile);
+					} else {
+						ServicePoliciesSnapshot.delete(cacheFile);
+					}
+				}
+
 	    	}
 
 			if (doPreserveDeltas) {
@@ -464,8 +463,8 @@ public void saveToCache(ServicePolicies policies) {
 						perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "PolicyRefresher.saveToCache(serviceName=" + serviceName + ")");
 					}
 
-					try (Writer writer = new FileWriter(backupCacheFile)) {
-						JsonUtils.objectToWriter(writer, policies);
+					try {
+						RangerCacheFileUtil.write(backupCacheFile, policies, isCacheCompressed);
 					} catch (Exception excp) {
 						LOG.error("failed to save policies to cache file '" + backupCacheFile.getAbsolutePath() + "'", excp);
 					}
@@ -535,6 +534,10 @@ private void disableCache() {
 
 		File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
 
+		if(cacheFile != null) {
+			ServicePoliciesSnapshot.delete(cacheFile);
+		}
+
 		if(cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
 			LOG.warn("Cleaning up local cache");
 			String renamedCacheFile = cacheFile.getAbsolutePath() + "_" + System.currentTimeMillis();
@@ -55,6 +55,13 @@ public class RangerAccessRequestUtil {
 	public static final String KEY_CONTEXT_IS_REQUEST_PREPROCESSED = "ISREQUESTPREPROCESSED";
 	public static final String KEY_CONTEXT_RESOURCE_ZONE_NAMES     = "RESOURCE_ZONE_NAMES";
 	public static final String KEY_CONTEXT_IS_SKIP_CHAINED_PLUGINS = "_IS_SKIP_CHAINED_PLUGINS";
+	public static final String KEY_CONTEXT_IS_CONTEXT_SENSITIVE    = "_IS_CONTEXT_SENSITIVE_EVALUATION";
+	public static final String KEY_CONTEXT_CONDITION_RESULTS       = "_CONDITION_RESULTS";
+
+	// context keys of the tokens set for every request; built once, instead of in each set/get of the token
+	private static final String KEY_TOKEN_USER  = KEY_TOKEN_NAMESPACE + KEY_USER;
+	private static final String KEY_TOKEN_OWNER = KEY_TOKEN_NAMESPACE + KEY_OWNER;
+	private static final String KEY_TOKEN_ROLES = KEY_TOKEN_NAMESPACE + KEY_ROLES;
 
 	public static void setRequestTagsInContext(Map<String, Object> context, Set<RangerTagForEval> tags) {
 		if (CollectionUtils.isEmpty(tags)) {
@@ -134,17 +141,10 @@ public static Map<String, Object> copyContext(Map<String, Object> context) {
 		} else {
 			ret = new HashMap<>(context);
 
-			ret.remove(KEY_CONTEXT_TAGS);
-			ret.remove(KEY_CONTEXT_TAG_OBJECT);
-			ret.remove(KEY_CONTEXT_RESOURCE);
-			ret.remove(KEY_CONTEXT_REQUEST);
-			ret.remove(KEY_CONTEXT_GDS_RESULT);
-			ret.remove(KEY_CONTEXT_IS_ANY_ACCESS);
+			removeEvaluationState(ret);
+
 			ret.remove(KEY_CONTEXT_ALL_ACCESSTYPES);
 			ret.remove(KEY_CONTEXT_ALL_ACCESSTYPE_GROUPS);
-			ret.remove(KEY_CONTEXT_ALL_ACCESS_TYPE_RESULTS);
-			ret.remove(KEY_CONTEXT_ALL_ACCESS_TYPE_ACL_RESULTS);
-			ret.remove(KEY_CONTEXT_IS_REQUEST_PREPROCESSED);
 			ret.remove(KEY_CONTEXT_IGNORE_IF_NOT_DENIED_ACCESSTYPES);
 			// don't remove REQUESTED_RESOURCES
 		}
@@ -152,6 +152,18 @@ public static Map<String, Object> copyContext(Map<String, Object> context) {
 		return ret;
 	}
 
+	/*
+	 * copy of the context for the same request, to be evaluated independently of other requests sharing the context:
+	 * state saved in the context during evaluation is excluded, while entries set by the caller are retained
+	 */
+	public static Map<String, Object> copyContextForEvaluation(Map<String, Object> context) {
+		final Map<String, Object> ret = MapUtils.isEmpty(context) ? new HashMap<>() : new HashMap<>(context);
+
+		removeEvaluationState(ret);
+
+		return ret;
+	}
+
 	public static void setCurrentUserInContext(Map<String, Object> context, String user) {
 		setTokenInContext(context, KEY_USER, user);
 	}
@@ -166,13 +178,11 @@ public static String getCurrentUserFromContext(Map<String, Object> context) {
 	}
 
 	public static void setTokenInContext(Map<String, Object> context, String tokenName, Object tokenValue) {
-		String tokenNameWithNamespace = KEY_TOKEN_NAMESPACE + tokenName;
-		context.put(tokenNameWithNamespace, tokenValue);
+		context.put(getTokenKey(tokenName), tokenValue);
 	}
 
 	public static Object getTokenFromContext(Map<String, Object> context, String tokenName) {
-		String tokenNameWithNamespace = KEY_TOKEN_NAMESPACE + tokenName;
-		return MapUtils.isNotEmpty(context) ? context.get(tokenNameWithNamespace) : null;
+		return MapUtils.isNotEmpty(context) ? context.get(getTokenKey(tokenName)) : null;
 	}
 
 	public static void setCurrentUserRolesInContext(Map<String, Object> context, Set<String> roles) {
@@ -224,6 +234,16 @@ public static boolean getIsAnyAccessInContext(Map<String, Object> context) {
 
 	public static void setIsRequestPreprocessed(Map<String, Object> context, Boolean value) {
 		context.put(KEY_CONTEXT_IS_REQUEST_PREPROCESSED, value);
+
+		if (!Boolean.TRUE.equals(value)) { // results of conditions might change with the request
+			clearConditionResults(context);
+		}
+	}
+
+	public static void clearConditionResults(Map<String, Object> context) {
+		if (context != null) {
+			context.remove(KEY_CONTEXT_CONDITION_RESULTS);
+		}
 	}
 
 	public static boolean getIsRequestPreprocessed(Map<String, Object> context) {
@@ -249,6 +269,8 @@ public static Set<String> getIgnoreIfNotDeniedAccessTypes(RangerAccessRequest re
 				ret = (Set<String>) val;
 			} else if (val instanceof List<?>) {
 				ret = new TreeSet<>((List<String>) val);
+
+				request.getContext().put(KEY_CONTEXT_IGNORE_IF_NOT_DENIED_ACCESSTYPES, ret); // to avoid converting again for every policy
 			} else {
 				LOG.error("getNotDeniedRequestedAccessTypes(): failed to get NOTDENIEDACCESSTYPES from context");
 			}
@@ -268,6 +290,8 @@ public static Set<String> getAllRequestedAccessTypes(RangerAccessRequest request
 				ret = (Set<String>) val;
 			} else if (val instanceof List<?>) {
 				ret = new TreeSet<>((List<String>) val);
+
+				request.getContext().put(KEY_CONTEXT_ALL_ACCESSTYPES, ret); // to avoid converting again for every policy
 			} else {
 				LOG.error("getAllRequestedAccessTypes(): failed to get ALLACCESSTYPES from context");
 			}
@@ -283,7 +307,7 @@ public static Set<Set<String>> getAllRequestedAccessTypeGroups(RangerAccessReque
 
 	public static void setAllRequestedAccessTypeGroups(RangerAccessRequest request, Set<Set<String>> accessTypeGroups) {
 		if (accessTypeGroups == null || accessTypeGroups.isEmpty()) {
-			request.getContext().put(KEY_CONTEXT_ALL_ACCESSTYPE_GROUPS, new TreeSet<>());
+			request.getContext().put(KEY_CONTEXT_ALL_ACCESSTYPE_GROUPS, Collections.emptySet());
 		} else {
 			request.getContext().put(KEY_CONTEXT_ALL_ACCESSTYPE_GROUPS, accessTypeGroups);
 		}
@@ -369,7 +393,11 @@ public static void setResourceZoneNamesInContext(RangerAccessRequest request, Se
 		Map<String, Object> context = request.getContext();
 
 		if (context != null) {
-			context.put(KEY_CONTEXT_RESOURCE_ZONE_NAMES, zoneNames);
+			if (zoneNames != null) {
+				context.put(KEY_CONTEXT_RESOURCE_ZONE_NAMES, zoneNames);
+			} else {
+				context.remove(KEY_CONTEXT_RESOURCE_ZONE_NAMES);
+			}
 		} else {
 			LOG.error("setResourceZoneNamesInContext({}): context is null", request);
 		}
@@ -455,4 +483,43 @@ public static boolean getIsSkipChainedPlugins(Map<String, Object> context) {
 		Boolean value = (Boolean) context.get(KEY_CONTEXT_IS_SKIP_CHAINED_PLUGINS);
 		return value != null && value;
 	}
+
+	public static void setIsContextSensitiveEvaluation(Map<String, Object> context, Boolean value) {
+		context.put(KEY_CONTEXT_IS_CONTEXT_SENSITIVE, value);
+	}
+
+	public static boolean getIsContextSensitiveEvaluation(Map<String, Object> context) {
+		Boolean value = (Boolean) context.get(KEY_CONTEXT_IS_CONTEXT_SENSITIVE);
+		return value != null && value;
+	}
+
+	private static String getTokenKey(String tokenName) {
+		if (tokenName == null) {
+			return KEY_TOKEN_NAMESPACE + tokenName;
+		}
+
+		switch (tokenName) {
+			case KEY_USER:
+				return KEY_TOKEN_USER;
+			case KEY_OWNER:
+				return KEY_TOKEN_OWNER;
+			case KEY_ROLES:
+				return KEY_TOKEN_ROLES;
+			default:
+				return KEY_TOKEN_NAMESPACE + tokenName;
+		}
+	}
+
+	private static void removeEvaluationState(Map<String, Object> context) {
+		context.remove(KEY_CONTEXT_TAGS);
+		context.remove(KEY_CONTEXT_TAG_OBJECT);
+		context.remove(KEY_CONTEXT_RESOURCE);
+		context.remove(KEY_CONTEXT_REQUEST);
+		context.remove(KEY_CONTEXT_GDS_RESULT);
+		context.remove(KEY_CONTEXT_IS_ANY_ACCESS);
+		context.remove(KEY_CONTEXT_ALL_ACCESS_TYPE_RESULTS);
+		context.remove(KEY_CONTEXT_ALL_ACCESS_TYPE_ACL_RESULTS);
+		context.remove(KEY_CONTEXT_IS_REQUEST_PREPROCESSED);
+		context.remove(KEY_CONTEXT_CONDITION_RESULTS);
+	}
 }
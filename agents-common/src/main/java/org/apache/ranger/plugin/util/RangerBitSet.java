@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.Arrays;
+
+/*
+ * Word-aligned bitset over a range of non-negative ordinals. Unlike java.util.BitSet, words are allocated only for the
+ * range [minIndex, maxIndex] given at creation; this keeps the bitset small for sets whose ordinals are clustered, and
+ * allows intersections of bitsets covering different ranges without allocating a result. A bitset can be reset to a
+ * new range, reusing its words when large enough - for scratch bitsets reused across lookups.
+ */
+public class RangerBitSet {
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private int    wordOffset; // index of the word for words[0]
+    private int    wordCount;  // number of words in use; words.length can be larger, after reset() to a smaller range
+    private long[] words;
+
+    // creates an empty bitset with an empty range, to be reset() to the range needed
+    public RangerBitSet() {
+        this.wordOffset = 0;
+        this.wordCount  = 0;
+        this.words      = new long[0];
+    }
+
+    public RangerBitSet(int minIndex, int maxIndex) {
+        this();
+
+        reset(minIndex, maxIndex);
+    }
+
+    // creates an empty bitset that covers the same range as the given bitset
+    public RangerBitSet(RangerBitSet other) {
+        this.wordOffset = other.wordOffset;
+        this.wordCount  = other.wordCount;
+        this.words      = new long[other.wordCount];
+    }
+
+    // clears all bits and sets the range to [minIndex, maxIndex]; words are allocated only if the range is larger than earlier
+    public RangerBitSet reset(int minIndex, int maxIndex) {
+        if (minIndex < 0 || maxIndex < minIndex) {
+            throw new IllegalArgumentException("invalid range: [" + minIndex + ", " + maxIndex + "]");
+        }
+
+        return resetWords(wordIndex(minIndex), wordIndex(maxIndex) - wordIndex(minIndex) + 1);
+    }
+
+    // clears all bits and sets the range to that of the given bitset
+    public RangerBitSet reset(RangerBitSet other) {
+        return resetWords(other.wordOffset, other.wordCount);
+    }
+
+    public boolean get(int index) {
+        final int idx = wordIndex(index) - wordOffset;
+
+        return index >= 0 && idx >= 0 && idx < wordCount && (words[idx] & (1L << index)) != 0;
+    }
+
+    // return: true if the bit was not set earlier
+    public boolean add(int index) {
+        final int  idx  = wordIndex(index) - wordOffset;
+        final long mask = 1L << index;
+
+        if (index < 0 || idx < 0 || idx >= wordCount) {
+            throw new IndexOutOfBoundsException("index=" + index + " is outside the range of this bitset");
+        }
+
+        final boolean ret = (words[idx] & mask) == 0;
+
+        words[idx] |= mask;
+
+        return ret;
+    }
+
+    /*
+     * this |= (a & b), for the bits within the range of this bitset
+     *
+     * return: number of bits set by this call, i.e. the bits that were not set earlier
+     */
+    public int orAnd(RangerBitSet a, RangerBitSet b) {
+        final int from = Math.max(wordOffset, Math.max(a.wordOffset, b.wordOffset));
+        final int to   = Math.min(wordOffset + wordCount, Math.min(a.wordOffset + a.wordCount, b.wordOffset + b.wordCount));
+        int       ret  = 0;
+
+        for (int i = from; i < to; i++) {
+            final long bits = a.words[i - a.wordOffset] & b.words[i - b.wordOffset] & ~words[i - wordOffset];
+
+            if (bits != 0) {
+                words[i - wordOffset] |= bits;
+
+                ret += Long.bitCount(bits);
+            }
+        }
+
+        return ret;
+    }
+
+    public int cardinality() {
+        int ret = 0;
+
+        for (int i = 0; i < wordCount; i++) {
+            ret += Long.bitCount(words[i]);
+        }
+
+        return ret;
+    }
+
+    public boolean isEmpty() {
+        for (int i = 0; i < wordCount; i++) {
+            if (words[i] != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+
+        for (int i = 0; i < wordCount; i++) {
+            long word = words[i];
+
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+
+                sb.append(((i + wordOffset) << ADDRESS_BITS_PER_WORD) + bit);
+
+                word &= word - 1;
+            }
+        }
+
+        return sb.append("}").toString();
+    }
+
+    private RangerBitSet resetWords(int wordOffset, int wordCount) {
+        if (words.length < wordCount) {
+            words = new long[wordCount];
+        } else {
+            Arrays.fill(words, 0, wordCount, 0L);
+        }
+
+        this.wordOffset = wordOffset;
+        this.wordCount  = wordCount;
+
+        return this;
+    }
+
+    private static int wordIndex(int index) {
+        return index >> ADDRESS_BITS_PER_WORD;
+    }
+}
@@ -0,0 +1,685 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.Queue;
+import java.util.function.BiConsumer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache for concurrent access, with W-TinyLFU eviction policy.
+ *
+ * Entries are held in a ConcurrentHashMap, hence get() and put() don't block each other. Accesses are recorded in
+ * per-thread-striped, lossy ring buffers and applied to the eviction policy in batches, by whichever thread acquires the
+ * eviction lock with tryLock(); hence no thread waits for the eviction lock.
+ *
+ * The eviction policy keeps new entries in a small LRU window (1% of the size). Entries evicted from the window are
+ * admitted to the main space, a segmented LRU, only if they are accessed more frequently than the entry they would
+ * replace - as estimated by a count-min sketch of recent accesses. This keeps frequently accessed entries in the cache
+ * when a burst of one-time accesses (like a scan of many resources) goes through the cache, unlike a LRU cache.
+ *
+ * The cache can be bounded by the number of entries, or by the total weight of entries computed with a Weigher - for
+ * example, the estimated memory used by each entry.
+ */
+public class RangerBoundedCache<K, V> {
+    private static final int    READ_BUFFER_SIZE     = 16;
+    private static final int    READ_BUFFER_MASK     = READ_BUFFER_SIZE - 1;
+    private static final int    MAX_READ_BUFFERS     = 128;
+    private static final int    MAX_PENDING_WRITES   = 1024;
+    private static final double WINDOW_PERCENTAGE    = 0.01;
+    private static final double PROTECTED_PERCENTAGE = 0.80;
+    private static final int    MAX_SKETCH_SIZE      = 1 << 24;
+
+    private static final int QUEUE_NONE      = 0;
+    private static final int QUEUE_WINDOW    = 1;
+    private static final int QUEUE_PROBATION = 2;
+    private static final int QUEUE_PROTECTED = 3;
+
+    private final long                             maximumWeight;
+    private final long                             windowMaximum;
+    private final long                             protectedMaximum;
+    private final Weigher<? super K, ? super V>    weigher;
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final ReadBuffer<K, V>[]               readBuffers;
+    private final Queue<Node<K, V>>                writeBuffer         = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger                    pendingWriteCount   = new AtomicInteger();
+    private final ReentrantLock                    evictionLock        = new ReentrantLock();
+    private final FrequencySketch                  sketch;                                         // guarded by evictionLock
+    private final AccessOrderDeque<K, V>           windowQueue         = new AccessOrderDeque<>(); // guarded by evictionLock
+    private final AccessOrderDeque<K, V>           probationQueue      = new AccessOrderDeque<>(); // guarded by evictionLock
+    private final AccessOrderDeque<K, V>           protectedQueue      = new AccessOrderDeque<>(); // guarded by evictionLock
+    private final LongAdder                        hitCount            = new LongAdder();
+    private final LongAdder                        missCount           = new LongAdder();
+    private final LongAdder                        evictionCount       = new LongAdder();
+    private final LongAdder                        readBufferDropCount = new LongAdder();
+    private final LongAdder                        lockContentionCount = new LongAdder();
+
+    public RangerBoundedCache(int maximumSize) {
+        this(maximumSize, null);
+    }
+
+    /**
+     * @param maximumWeight maximum total weight of entries in the cache
+     * @param weigher       computes the weight of an entry when it is added; when null, each entry has weight 1
+     */
+    @SuppressWarnings("unchecked")
+    public RangerBoundedCache(long maximumWeight, Weigher<? super K, ? super V> weigher) {
+        this.maximumWeight    = Math.max(maximumWeight, 0);
+        this.windowMaximum    = this.maximumWeight > 0 ? Math.max(1, (long) (this.maximumWeight * WINDOW_PERCENTAGE)) : 0;
+        this.protectedMaximum = (long) ((this.maximumWeight - windowMaximum) * PROTECTED_PERCENTAGE);
+        this.weigher          = weigher;
+        this.data             = new ConcurrentHashMap<>(weigher == null ? (int) Math.min(this.maximumWeight, 1024 * 1024) : 16);
+        this.sketch           = new FrequencySketch(weigher == null ? (int) Math.min(this.maximumWeight, MAX_SKETCH_SIZE) : 16); // for a weighted cache, the sketch grows with the number of entries
+        this.readBuffers      = (ReadBuffer<K, V>[]) new ReadBuffer<?, ?>[Math.min(ceilingPowerOfTwo(4 * Runtime.getRuntime().availableProcessors()), MAX_READ_BUFFERS)];
+
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    public int getMaximumSize() {
+        return (int) Math.min(maximumWeight, Integer.MAX_VALUE);
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public Weigher<? super K, ? super V> getWeigher() {
+        return weigher;
+    }
+
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+
+        if (node == null) {
+            missCount.increment();
+
+            return null;
+        }
+
+        hitCount.increment();
+
+        afterRead(node);
+
+        return node.value;
+    }
+
+    public void put(K key, V value) {
+        if (maximumWeight == 0) {
+            return;
+        }
+
+        Node<K, V> node = new Node<>(key, value, weigher == null ? 1 : Math.max(weigher.weigh(key, value), 0));
+
+        if (weigher == null) {
+            Node<K, V> prior = data.putIfAbsent(key, node);
+
+            if (prior == null) {
+                afterWrite(node);
+            } else {
+                prior.value = value;
+
+                afterRead(prior);
+            }
+        } else { // weight of the new value can be different: replace the node
+            Node<K, V> prior = data.put(key, node);
+
+            if (prior != null) {
+                prior.isRemoved = true;
+
+                afterWrite(prior);
+            }
+
+            afterWrite(node);
+        }
+    }
+
+    public V remove(K key) {
+        Node<K, V> node = data.remove(key);
+
+        if (node == null) {
+            return null;
+        }
+
+        node.isRemoved = true;
+
+        afterWrite(node);
+
+        return node.value;
+    }
+
+    public void clear() {
+        evictionLock.lock();
+
+        try {
+            drainBuffers();
+
+            for (Node<K, V> node : data.values()) {
+                if (data.remove(node.key, node)) {
+                    node.isRemoved = true;
+
+                    unlink(node);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Calls the given action for each entry in the cache. Entries added or removed while this is in progress may or may
+     * not be seen by the action.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Node<K, V> node : data.values()) {
+            if (!node.isRemoved) {
+                action.accept(node.key, node.value);
+            }
+        }
+    }
+
+    /**
+     * Number of entries in the cache; this can temporarily exceed maximumSize, until pending writes are applied to the eviction policy.
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Applies pending reads and writes to the eviction policy, and evicts entries beyond maximumSize/maximumWeight.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+
+        try {
+            drainBuffers();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Total weight of entries applied to the eviction policy; for a cache with no weigher, this is the number of entries.
+     */
+    public long getWeight() {
+        evictionLock.lock();
+
+        try {
+            return windowQueue.weight + probationQueue.weight + protectedQueue.weight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(hitCount.sum(), missCount.sum(), evictionCount.sum(), readBufferDropCount.sum(), lockContentionCount.sum(), data.size());
+    }
+
+    private void afterRead(Node<K, V> node) {
+        ReadBuffer<K, V> buffer = readBuffers[getReadBufferIndex()];
+        int              result = buffer.offer(node);
+
+        if (result != ReadBuffer.SUCCESS) {
+            readBufferDropCount.increment();
+
+            if (result == ReadBuffer.FULL) {
+                tryToDrainBuffers();
+            }
+        }
+    }
+
+    private void afterWrite(Node<K, V> node) {
+        writeBuffer.add(node);
+
+        if (pendingWriteCount.incrementAndGet() > MAX_PENDING_WRITES) { // writes are faster than eviction: wait, to keep the cache bounded
+            lockContentionCount.increment();
+
+            cleanUp();
+        } else {
+            tryToDrainBuffers();
+        }
+    }
+
+    private void tryToDrainBuffers() {
+        // a thread that fails to acquire the lock leaves its writes to the current lock holder, which drains them before returning
+        do {
+            if (evictionLock.isLocked() || !evictionLock.tryLock()) {
+                lockContentionCount.increment();
+
+                return;
+            }
+
+            try {
+                drainBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    private void drainBuffers() {
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drain(this);
+        }
+
+        for (Node<K, V> node = writeBuffer.poll(); node != null; node = writeBuffer.poll()) {
+            pendingWriteCount.decrementAndGet();
+
+            onWrite(node);
+        }
+    }
+
+    private void onRead(Node<K, V> node) {
+        if (node.isRemoved || node.queue == QUEUE_NONE) { // evicted, or its addition is yet to be applied
+            return;
+        }
+
+        sketch.increment(node.hash);
+
+        switch (node.queue) {
+            case QUEUE_WINDOW:
+                windowQueue.moveToBack(node);
+            break;
+
+            case QUEUE_PROBATION:
+                probationQueue.remove(node);
+                protectedQueue.addLast(node);
+
+                node.queue = QUEUE_PROTECTED;
+
+                while (protectedQueue.weight > protectedMaximum) {
+                    Node<K, V> demoted = protectedQueue.removeFirst();
+
+                    probationQueue.addLast(demoted);
+
+                    demoted.queue = QUEUE_PROBATION;
+                }
+            break;
+
+            case QUEUE_PROTECTED:
+                protectedQueue.moveToBack(node);
+            break;
+        }
+    }
+
+    private void onWrite(Node<K, V> node) {
+        if (node.isRemoved) {
+            unlink(node);
+        } else if (node.queue == QUEUE_NONE) {
+            if (weigher != null) {
+                sketch.ensureCapacity(data.size());
+            }
+
+            sketch.increment(node.hash);
+
+            windowQueue.addLast(node);
+
+            node.queue = QUEUE_WINDOW;
+
+            evictEntries();
+        }
+    }
+
+    private void evictEntries() {
+        int candidates = 0; // entries moved from the window in this call; these are at the tail of probationQueue
+
+        while (windowQueue.weight > windowMaximum) {
+            Node<K, V> node = windowQueue.removeFirst();
+
+            probationQueue.addLast(node);
+
+            node.queue = QUEUE_PROBATION;
+
+            candidates++;
+        }
+
+        while (windowQueue.weight + probationQueue.weight + protectedQueue.weight > maximumWeight) {
+            Node<K, V> victim    = probationQueue.first;
+            Node<K, V> candidate = candidates > 0 ? probationQueue.last : null;
+
+            if (victim == null) {
+                evict(protectedQueue.first != null ? protectedQueue.first : windowQueue.first);
+            } else if (candidate == null || candidate == victim || sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                evict(victim);
+            } else {
+                evict(candidate);
+
+                candidates--;
+            }
+
+            candidates = Math.min(candidates, probationQueue.size);
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        if (data.remove(node.key, node)) {
+            evictionCount.increment();
+        }
+
+        node.isRemoved = true;
+
+        unlink(node);
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case QUEUE_WINDOW:
+                windowQueue.remove(node);
+            break;
+
+            case QUEUE_PROBATION:
+                probationQueue.remove(node);
+            break;
+
+            case QUEUE_PROTECTED:
+                protectedQueue.remove(node);
+            break;
+        }
+
+        node.queue = QUEUE_NONE;
+    }
+
+    private int getReadBufferIndex() {
+        int probe = (int) Thread.currentThread().getId() * 0x9E3779B9;
+
+        return (probe >>> 16) & (readBuffers.length - 1);
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+
+        return hash;
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long readBufferDropCount;
+        private final long lockContentionCount;
+        private final int  size;
+
+        Stats(long hitCount, long missCount, long evictionCount, long readBufferDropCount, long lockContentionCount, int size) {
+            this.hitCount            = hitCount;
+            this.missCount           = missCount;
+            this.evictionCount       = evictionCount;
+            this.readBufferDropCount = readBufferDropCount;
+            this.lockContentionCount = lockContentionCount;
+            this.size                = size;
+        }
+
+        public long getHitCount() { return hitCount; }
+
+        public long getMissCount() { return missCount; }
+
+        public double getHitRate() {
+            long requestCount = hitCount + missCount;
+
+            return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+        }
+
+        public long getEvictionCount() { return evictionCount; }
+
+        // reads not applied to the eviction policy, due to a full or contended read buffer
+        public long getReadBufferDropCount() { return readBufferDropCount; }
+
+        // attempts to apply reads/writes to the eviction policy that found the eviction lock held by another thread
+        public long getLockContentionCount() { return lockContentionCount; }
+
+        public int getSize() { return size; }
+
+        @Override
+        public String toString() {
+            return "Stats={size=" + size + ", hitCount=" + hitCount + ", missCount=" + missCount + ", hitRate=" + String.format("%.4f", getHitRate())
+                    + ", evictionCount=" + evictionCount + ", readBufferDropCount=" + readBufferDropCount + ", lockContentionCount=" + lockContentionCount + "}";
+        }
+    }
+
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    private static final class Node<K, V> {
+        final    K          key;
+        final    int        hash;
+        final    int        weight;
+        volatile V          value;
+        volatile boolean    isRemoved;
+        int                 queue = QUEUE_NONE; // guarded by evictionLock
+        Node<K, V>          prev;               // guarded by evictionLock
+        Node<K, V>          next;               // guarded by evictionLock
+
+        Node(K key, V value, int weight) {
+            this.key    = key;
+            this.hash   = spread(key.hashCode());
+            this.weight = weight;
+            this.value  = value;
+        }
+    }
+
+    private static final class AccessOrderDeque<K, V> {
+        Node<K, V> first;
+        Node<K, V> last;
+        int        size;
+        long       weight;
+
+        void addLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+
+            last = node;
+
+            size++;
+            weight += node.weight;
+        }
+
+        Node<K, V> removeFirst() {
+            Node<K, V> ret = first;
+
+            if (ret != null) {
+                remove(ret);
+            }
+
+            return ret;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+
+            node.prev = null;
+            node.next = null;
+
+            size--;
+            weight -= node.weight;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /*
+     * Lossy ring buffer of reads: offers are dropped when the buffer is full, or when another thread is offering at the
+     * same time. The buffer is drained only by the holder of the eviction lock.
+     */
+    private static final class ReadBuffer<K, V> {
+        static final int SUCCESS = 0;
+        static final int FULL    = 1;
+        static final int FAILED  = 2;
+
+        final    AtomicLong                       writeCounter = new AtomicLong();
+        final    AtomicReferenceArray<Node<K, V>> buffer       = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        volatile long                             readCounter;
+
+        int offer(Node<K, V> node) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+
+            if (tail - head >= READ_BUFFER_SIZE) {
+                return FULL;
+            }
+
+            if (!writeCounter.compareAndSet(tail, tail + 1)) {
+                return FAILED;
+            }
+
+            buffer.lazySet((int) (tail & READ_BUFFER_MASK), node);
+
+            return SUCCESS;
+        }
+
+        void drain(RangerBoundedCache<K, V> cache) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+
+            for (; head < tail; head++) {
+                int        index = (int) (head & READ_BUFFER_MASK);
+                Node<K, V> node  = buffer.get(index);
+
+                if (node == null) { // slot claimed by a thread that is yet to store the node in it
+                    break;
+                }
+
+                buffer.lazySet(index, null);
+
+                cache.onRead(node);
+            }
+
+            readCounter = head;
+        }
+    }
+
+    /*
+     * Count-min sketch of 4-bit counters, to estimate the frequency of accesses to keys. Counters are halved periodically,
+     * so that the estimates reflect recent accesses. Accessed only by the holder of the eviction lock.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS      = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long   RESET_MASK = 0x7777777777777777L;
+
+        private long[] table;
+        private int    tableMask;
+        private int    sampleSize;
+        private int    additions;
+
+        FrequencySketch(int maximumSize) {
+            ensureCapacity(maximumSize);
+        }
+
+        void ensureCapacity(int maximumSize) {
+            int size = ceilingPowerOfTwo(Math.min(Math.max(maximumSize, 16), MAX_SKETCH_SIZE));
+
+            if (table == null || table.length < size) { // counts collected so far are discarded
+                table      = new long[size];
+                tableMask  = size - 1;
+                sampleSize = 10 * size;
+                additions  = 0;
+            }
+        }
+
+        int frequency(int hash) {
+            int start = (hash & 3) << 2;
+            int ret   = Integer.MAX_VALUE;
+
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+
+                ret = Math.min(ret, count);
+            }
+
+            return ret;
+        }
+
+        void increment(int hash) {
+            int     start   = (hash & 3) << 2;
+            boolean isAdded = false;
+
+            for (int i = 0; i < 4; i++) {
+                isAdded |= incrementAt(indexOf(hash, i), start + i);
+            }
+
+            if (isAdded && ++additions == sampleSize) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(int index, int counter) {
+            int  offset = counter << 2;
+            long mask   = 0xfL << offset;
+
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+
+                return true;
+            }
+
+            return false;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+
+            additions >>>= 1;
+        }
+
+        private int indexOf(int hash, int i) {
+            long ret = (hash + SEEDS[i]) * SEEDS[i];
+
+            ret += ret >>> 32;
+
+            return ((int) ret) & tableMask;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads and writes plugin cache files - of policies, tags, roles, user-store and GDS info.
+ *
+ * A cache file is written to a temporary file in the same directory, which is then renamed to the cache file; hence
+ * readers never see a partially written cache file. A cache file that is replaced retains its permissions; a new cache
+ * file is created with the default permissions, as determined by the umask. With <plugin-prefix>.policy.cache.compress=true, cache files are
+ * written in gzip format. The format of a cache file is detected from its header when read, hence cache files written
+ * with or without compression can be read irrespective of the current configuration. Contents are streamed to and
+ * from the JSON parser, without reading the entire file in memory.
+ */
+public final class RangerCacheFileUtil {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerCacheFileUtil.class);
+
+    public static final String CONFIG_SUFFIX_CACHE_COMPRESS = ".policy.cache.compress";
+
+    private static final int    BUFFER_SIZE     = 64 * 1024;
+    private static final String TMP_FILE_PREFIX = ".ranger-cache-"; // not derived from cache file name, which might match patterns used to find versioned cache files
+
+    private RangerCacheFileUtil() { }
+
+    public static boolean isCompressionEnabled(RangerPluginConfig config) {
+        return config != null && config.getBoolean(config.getPropertyPrefix() + CONFIG_SUFFIX_CACHE_COMPRESS, false);
+    }
+
+    public static <T> T read(File cacheFile, Class<T> clz) throws IOException {
+        return read(cacheFile, clz, JsonUtils.getMapper());
+    }
+
+    public static <T> T read(File cacheFile, Class<T> clz, ObjectMapper mapper) throws IOException {
+        try (InputStream in = openInputStream(cacheFile)) {
+            return mapper.readValue(in, clz);
+        }
+    }
+
+    public static void write(File cacheFile, Object obj, boolean compress) throws IOException {
+        write(cacheFile, obj, compress, JsonUtils.getMapper());
+    }
+
+    public static void write(File cacheFile, Object obj, boolean compress, ObjectMapper mapper) throws IOException {
+        Path tmpFile = createTmpFile(cacheFile);
+
+        try {
+            try (OutputStream out = openOutputStream(tmpFile.toFile(), compress)) {
+                mapper.writeValue(out, obj);
+            }
+
+            copyPermissions(cacheFile.toPath(), tmpFile);
+
+            try {
+                Files.move(tmpFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException excp) {
+                Files.move(tmpFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (Files.deleteIfExists(tmpFile)) {
+                LOG.warn("deleted temporary file '" + tmpFile + "' after failure to save cache file '" + cacheFile.getAbsolutePath() + "'");
+            }
+        }
+    }
+
+    public static boolean isCompressed(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return isGzipHeader(in.read(), in.read());
+        }
+    }
+
+    // unlike Files.createTempFile(), which restricts access to the owner, creates the file with default permissions
+    private static Path createTmpFile(File cacheFile) throws IOException {
+        Path dir = cacheFile.getAbsoluteFile().getParentFile().toPath();
+
+        while (true) {
+            try {
+                return Files.createFile(dir.resolve(TMP_FILE_PREFIX + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp"));
+            } catch (FileAlreadyExistsException excp) {
+                // retry with another name
+            }
+        }
+    }
+
+    private static void copyPermissions(Path fromFile, Path toFile) throws IOException {
+        if (Files.getFileStore(toFile).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            try {
+                Files.setPosixFilePermissions(toFile, Files.getPosixFilePermissions(fromFile));
+            } catch (NoSuchFileException excp) {
+                // no earlier cache file: retain default permissions
+            }
+        }
+    }
+
+    private static InputStream openInputStream(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+
+        try {
+            in.mark(2);
+
+            boolean isCompressed = isGzipHeader(in.read(), in.read());
+
+            in.reset();
+
+            return isCompressed ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+        } catch (IOException excp) {
+            in.close();
+
+            throw excp;
+        }
+    }
+
+    private static OutputStream openOutputStream(File file, boolean compress) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+
+        try {
+            return compress ? new GZIPOutputStream(new BufferedOutputStream(out, BUFFER_SIZE), BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+        } catch (IOException excp) {
+            out.close();
+
+            throw excp;
+        }
+    }
+
+    private static boolean isGzipHeader(int byte1, int byte2) {
+        return byte1 == (GZIPInputStream.GZIP_MAGIC & 0xFF) && byte2 == ((GZIPInputStream.GZIP_MAGIC >> 8) & 0xFF);
+    }
+}
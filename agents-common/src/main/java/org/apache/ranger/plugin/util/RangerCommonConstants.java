@@ -34,6 +34,12 @@ private RangerCommonConstants() {
 	public static final String RANGER_ADMIN_SUFFIX_TAG_DELTA                = ".supports.tag.deltas";
 	public static final String PLUGIN_CONFIG_SUFFIX_TAG_DELTA               = ".supports.tag.deltas";
 
+	public static final String RANGER_ADMIN_SUFFIX_ROLE_DELTA               = ".supports.role.deltas";
+	public static final String PLUGIN_CONFIG_SUFFIX_ROLE_DELTA              = ".supports.role.deltas";
+
+	public static final String RANGER_ADMIN_SUFFIX_USERSTORE_DELTA          = ".supports.userstore.deltas";
+	public static final String PLUGIN_CONFIG_SUFFIX_USERSTORE_DELTA         = ".supports.userstore.deltas";
+
 	public static final String RANGER_ADMIN_SUFFIX_IN_PLACE_POLICY_UPDATES  = ".supports.in.place.policy.updates";
 	public static final String PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES = ".supports.in.place.policy.updates";
 
@@ -48,6 +54,12 @@ private RangerCommonConstants() {
 	public static final boolean RANGER_ADMIN_SUFFIX_TAG_DELTA_DEFAULT                = false;
 	public static final boolean PLUGIN_CONFIG_SUFFIX_TAG_DELTA_DEFAULT               = false;
 
+	public static final boolean RANGER_ADMIN_SUFFIX_ROLE_DELTA_DEFAULT               = false;
+	public static final boolean PLUGIN_CONFIG_SUFFIX_ROLE_DELTA_DEFAULT              = false;
+
+	public static final boolean RANGER_ADMIN_SUFFIX_USERSTORE_DELTA_DEFAULT          = false;
+	public static final boolean PLUGIN_CONFIG_SUFFIX_USERSTORE_DELTA_DEFAULT         = false;
+
 	public static final boolean RANGER_ADMIN_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT  = false;
 	public static final boolean PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT = false;
 
@@ -59,6 +71,7 @@ private RangerCommonConstants() {
 	public static final boolean POLICY_REST_CLIENT_SESSION_COOKIE_ENABLED            = true;
 
 	public static final String SCRIPT_OPTION_ENABLE_JSON_CTX        = "enableJsonCtx";
+	public static final String SCRIPT_OPTION_ENABLE_NATIVE_EVAL     = "enableNativeEval";
 
 	public static final String SCRIPT_VAR_ctx                       = "ctx";
 	public static final String SCRIPT_VAR_tag                       = "tag";
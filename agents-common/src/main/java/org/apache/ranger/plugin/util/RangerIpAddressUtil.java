@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+/*
+ * Parses IPv4 and IPv6 addresses in place, without allocating any object - for use in lookups done for every request.
+ * An address is represented as an unsigned 32-bit value for IPv4, and as upper and lower 64 bits for IPv6.
+ */
+public class RangerIpAddressUtil {
+    public static final int IPV4_BITS        = 32;
+    public static final int IPV6_BITS        = 128;
+    public static final int IPV6_GROUP_COUNT = 8;
+
+    private RangerIpAddressUtil() {
+    }
+
+    // length of the address, excluding IPv6 zone-id like %eth0
+    public static int getAddressLength(String address) {
+        int zonePos = address.indexOf('%');
+
+        return zonePos != -1 ? zonePos : address.length();
+    }
+
+    public static boolean isIpv4Mapped(long hi, long lo) {
+        return hi == 0 && (lo >>> IPV4_BITS) == 0xffffL;
+    }
+
+    // returns the IPv4 address in str[from, to) as an unsigned 32-bit value; -1 if it is not a valid IPv4 address
+    public static long parseIpv4(String str, int from, int to) {
+        long ret    = 0;
+        int  octets = 0;
+        int  octet  = -1;
+
+        for (int i = from; i < to; i++) {
+            char c = str.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                octet = (octet == -1 ? 0 : octet * 10) + (c - '0');
+
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet != -1 && octets < 3) {
+                ret   = (ret << 8) | octet;
+                octet = -1;
+
+                octets++;
+            } else {
+                return -1;
+            }
+        }
+
+        if (octet == -1 || octets != 3) {
+            return -1;
+        }
+
+        return (ret << 8) | octet;
+    }
+
+    /*
+     * returns the number of 16-bit groups in the IPv6 address in str[from, to), with an embedded IPv4 address counted as
+     * 2 groups and excluding groups compressed by '::'; -1 if it is not a valid IPv6 address
+     */
+    public static int getIpv6GroupCount(String str, int from, int to) {
+        int     ret            = 0;
+        boolean hasDoubleColon = false;
+        int     pos            = from;
+
+        if (str.startsWith("::", from)) {
+            hasDoubleColon = true;
+            pos            = from + 2;
+        } else if (str.startsWith(":", from)) {
+            return -1;
+        }
+
+        while (pos < to) {
+            int groupEnd = indexOf(str, ':', pos, to);
+
+            if (groupEnd == pos) { // '::' after a group
+                if (hasDoubleColon) {
+                    return -1;
+                }
+
+                hasDoubleColon = true;
+            } else if (groupEnd == to && indexOf(str, '.', pos, to) != to) { // embedded IPv4 address, at the end
+                if (parseIpv4(str, pos, to) == -1) {
+                    return -1;
+                }
+
+                ret += 2;
+            } else if (parseHex16(str, pos, groupEnd) == -1) {
+                return -1;
+            } else {
+                ret++;
+
+                if (groupEnd == to - 1) { // ':' at the end, not part of '::'
+                    return -1;
+                }
+            }
+
+            pos = groupEnd + 1;
+        }
+
+        if (hasDoubleColon ? ret >= IPV6_GROUP_COUNT : ret != IPV6_GROUP_COUNT) {
+            return -1;
+        }
+
+        return ret;
+    }
+
+    // returns the upper or lower 64 bits of the valid IPv6 address in str[from, to), having groupCount groups
+    public static long getIpv6Bits(String str, int from, int to, int groupCount, boolean upper) {
+        long ret      = 0;
+        int  groupIdx = 0;
+        int  pos      = from;
+
+        if (str.startsWith("::", from)) {
+            groupIdx = IPV6_GROUP_COUNT - groupCount;
+            pos      = from + 2;
+        }
+
+        while (pos < to) {
+            int groupEnd = indexOf(str, ':', pos, to);
+
+            if (groupEnd == pos) { // '::' after a group
+                groupIdx += IPV6_GROUP_COUNT - groupCount;
+            } else if (groupEnd == to && indexOf(str, '.', pos, to) != to) {
+                long ip = parseIpv4(str, pos, to);
+
+                ret = addIpv6Group(ret, groupIdx++, (int) (ip >>> 16), upper);
+                ret = addIpv6Group(ret, groupIdx++, (int) (ip & 0xffff), upper);
+            } else {
+                ret = addIpv6Group(ret, groupIdx++, parseHex16(str, pos, groupEnd), upper);
+            }
+
+            pos = groupEnd + 1;
+        }
+
+        return ret;
+    }
+
+    // index of ch in str[from, to); to if not found
+    private static int indexOf(String str, char ch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (str.charAt(i) == ch) {
+                return i;
+            }
+        }
+
+        return to;
+    }
+
+    private static long addIpv6Group(long bits, int groupIdx, int group, boolean upper) {
+        if (upper ? groupIdx < 4 : groupIdx >= 4) {
+            bits |= ((long) group) << (16 * (3 - (groupIdx % 4)));
+        }
+
+        return bits;
+    }
+
+    // returns value of the hex number of 1 to 4 digits in str[from, to); -1 if not valid
+    private static int parseHex16(String str, int from, int to) {
+        if (to <= from || to - from > 4) {
+            return -1;
+        }
+
+        int ret = 0;
+
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(str.charAt(i), 16);
+
+            if (digit == -1) {
+                return -1;
+            }
+
+            ret = (ret << 4) | digit;
+        }
+
+        return ret;
+    }
+
+}
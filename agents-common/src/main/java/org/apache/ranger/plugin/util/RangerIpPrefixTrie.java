@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.Arrays;
+
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.IPV4_BITS;
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.IPV6_BITS;
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.getAddressLength;
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.getIpv6Bits;
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.getIpv6GroupCount;
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.isIpv4Mapped;
+import static org.apache.ranger.plugin.util.RangerIpAddressUtil.parseIpv4;
+
+/*
+ * Binary trie of IPv4 and IPv6 address prefixes. Prefixes can be specified as:
+ *   - CIDR:     10.0.0.0/8, 2001:db8::/32
+ *   - wildcard: 10.*, 10.1.*.*, 2001:db8:*
+ *   - address:  10.1.2.3, 2001:db8::1
+ *
+ * An address is matched by walking its bits from the most significant bit, until a node that ends a prefix is reached -
+ * i.e. in at most 32 steps for IPv4 and 128 steps for IPv6, irrespective of the number of prefixes. Nodes are stored in
+ * arrays of int, and addresses are parsed in place; isMatched() doesn't allocate any object. IPv4-mapped IPv6 addresses,
+ * like ::ffff:10.1.2.3, match IPv4 prefixes as well.
+ *
+ * Prefixes must be added before the trie is shared with other threads; isMatched() can be called concurrently.
+ */
+public class RangerIpPrefixTrie {
+    private final Trie ipv4        = new Trie();
+    private final Trie ipv6        = new Trie();
+    private       int  prefixCount = 0;
+
+    /*
+     * adds the given prefix; returns false if the prefix is not in one of the supported formats
+     */
+    public boolean addPrefix(String prefix) {
+        boolean ret = false;
+
+        if (prefix != null) {
+            String str      = prefix.trim().toLowerCase();
+            int    slashPos = str.indexOf('/');
+
+            if (slashPos != -1) {
+                ret = addCidr(str.substring(0, slashPos), str.substring(slashPos + 1));
+            } else if (str.endsWith("*")) {
+                ret = addWildcard(str);
+            } else {
+                ret = addCidr(str, null);
+            }
+
+            if (ret) {
+                prefixCount++;
+            }
+        }
+
+        return ret;
+    }
+
+    public int getPrefixCount() { return prefixCount; }
+
+    public int getNodeCount() { return ipv4.size + ipv6.size; }
+
+    /*
+     * returns true if the given address is in one of the prefixes; false if the address is not a valid IPv4 or IPv6 address
+     */
+    public boolean isMatched(String address) {
+        boolean ret = false;
+
+        if (address != null) {
+            int len = getAddressLength(address);
+
+            if (address.indexOf(':') == -1) {
+                long ip = parseIpv4(address, 0, len);
+
+                ret = ip != -1 && ipv4.isMatched(ip << IPV4_BITS, 0, IPV4_BITS);
+            } else {
+                int groupCount = getIpv6GroupCount(address, 0, len);
+
+                if (groupCount != -1) {
+                    long hi = getIpv6Bits(address, 0, len, groupCount, true);
+                    long lo = getIpv6Bits(address, 0, len, groupCount, false);
+
+                    ret = ipv6.isMatched(hi, lo, IPV6_BITS) || (isIpv4Mapped(hi, lo) && ipv4.isMatched(lo << IPV4_BITS, 0, IPV4_BITS));
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "RangerIpPrefixTrie={prefixCount=" + prefixCount + ", nodeCount=" + getNodeCount() + "}";
+    }
+
+    private boolean addCidr(String address, String strPrefixLen) {
+        boolean ret       = false;
+        int     prefixLen = -1;
+
+        if (strPrefixLen != null) {
+            try {
+                prefixLen = Integer.parseInt(strPrefixLen);
+            } catch (NumberFormatException excp) {
+                return false;
+            }
+
+            if (prefixLen < 0) {
+                return false;
+            }
+        }
+
+        if (address.indexOf(':') == -1) {
+            long ip = parseIpv4(address, 0, address.length());
+
+            if (ip != -1 && prefixLen <= IPV4_BITS) {
+                ipv4.add(ip << IPV4_BITS, 0, prefixLen == -1 ? IPV4_BITS : prefixLen);
+
+                ret = true;
+            }
+        } else {
+            int groupCount = getIpv6GroupCount(address, 0, address.length());
+
+            if (groupCount != -1 && prefixLen <= IPV6_BITS) {
+                long hi = getIpv6Bits(address, 0, address.length(), groupCount, true);
+                long lo = getIpv6Bits(address, 0, address.length(), groupCount, false);
+
+                ipv6.add(hi, lo, prefixLen == -1 ? IPV6_BITS : prefixLen);
+
+                ret = true;
+            }
+        }
+
+        return ret;
+    }
+
+    // 10.*, 10.1.*.*, 2001:db8:*, 2001:db8:*:*; wildcards are supported only at the end, for whole octets or groups
+    private boolean addWildcard(String str) {
+        boolean ret      = false;
+        boolean isIpv4   = str.indexOf(':') == -1;
+        String  wildcard = isIpv4 ? ".*" : ":*";
+        String  address  = str;
+
+        while (address.endsWith(wildcard)) {
+            address = address.substring(0, address.length() - wildcard.length());
+        }
+
+        if (address.length() < str.length() && address.indexOf('*') == -1) {
+            if (isIpv4) {
+                int octets = address.split("\\.", -1).length;
+
+                if (octets < 4) {
+                    StringBuilder sb = new StringBuilder(address);
+
+                    for (int i = octets; i < 4; i++) {
+                        sb.append(".0");
+                    }
+
+                    long ip = parseIpv4(sb.toString(), 0, sb.length());
+
+                    if (ip != -1) {
+                        ipv4.add(ip << IPV4_BITS, 0, octets * 8);
+
+                        ret = true;
+                    }
+                }
+            } else if (!address.contains("::")) {
+                String prefix     = address + "::";
+                int    groupCount = getIpv6GroupCount(prefix, 0, prefix.length());
+
+                if (groupCount != -1) {
+                    long hi = getIpv6Bits(prefix, 0, prefix.length(), groupCount, true);
+                    long lo = getIpv6Bits(prefix, 0, prefix.length(), groupCount, false);
+
+                    ipv6.add(hi, lo, groupCount * 16);
+
+                    ret = true;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * nodes of the trie are identified by their index in the arrays; node 0 is the root. A child index of 0 indicates no
+     * child, since the root is not a child of any node.
+     */
+    private static class Trie {
+        private int[]     zero     = new int[16];
+        private int[]     one      = new int[16];
+        private boolean[] isPrefix = new boolean[16];
+        private int       size     = 1;
+
+        void add(long hi, long lo, int prefixLen) {
+            int node = 0;
+
+            for (int i = 0; i < prefixLen && !isPrefix[node]; i++) { // no need to go beyond a shorter prefix
+                boolean isZero = getBit(hi, lo, i) == 0;
+                int     child  = isZero ? zero[node] : one[node];
+
+                if (child == 0) {
+                    child = newNode(); // might reallocate the arrays
+
+                    if (isZero) {
+                        zero[node] = child;
+                    } else {
+                        one[node] = child;
+                    }
+                }
+
+                node = child;
+            }
+
+            isPrefix[node] = true;
+        }
+
+        boolean isMatched(long hi, long lo, int bitCount) {
+            int node = 0;
+
+            for (int i = 0; i < bitCount; i++) {
+                if (isPrefix[node]) {
+                    return true;
+                }
+
+                node = getBit(hi, lo, i) == 0 ? zero[node] : one[node];
+
+                if (node == 0) {
+                    return false;
+                }
+            }
+
+            return isPrefix[node];
+        }
+
+        private int newNode() {
+            if (size == isPrefix.length) {
+                int newLength = size * 2;
+
+                zero     = Arrays.copyOf(zero, newLength);
+                one      = Arrays.copyOf(one, newLength);
+                isPrefix = Arrays.copyOf(isPrefix, newLength);
+            }
+
+            return size++;
+        }
+
+        private static int getBit(long hi, long lo, int idx) {
+            return (int) (idx < 64 ? (hi >>> (63 - idx)) & 1 : (lo >>> (127 - idx)) & 1);
+        }
+    }
+}
@@ -20,12 +20,14 @@
 package org.apache.ranger.plugin.util;
 
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerNativeScript;
 import org.apache.ranger.plugin.policyengine.RangerRequestScriptEvaluator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.script.ScriptEngine;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.regex.Matcher;
@@ -39,18 +41,22 @@ public class RangerRequestExprResolver {
     private static final Pattern PATTERN            = Pattern.compile("\\$\\{\\{(?<" + REGEX_GROUP_EXPR + ">.*?)\\}\\}");
     public  static final String  EXPRESSION_START   = "${{";
 
-    private final String  str;
-    private final String  serviceType;
-    private final boolean hasTokens;
+    private final String                          str;
+    private final String                          serviceType;
+    private final boolean                         hasTokens;
+    private final Map<String, RangerNativeScript> nativeExprs;
+    private final boolean                         isAllNative;
 
 
     public RangerRequestExprResolver(String str, String serviceType) {
         this.str         = str;
         this.serviceType = serviceType;
         this.hasTokens   = hasExpressions(str);
+        this.nativeExprs = hasTokens ? compileExpressions(str) : null;
+        this.isAllNative = nativeExprs != null && !nativeExprs.containsValue(null);
 
         if (LOG.isDebugEnabled()) {
-            LOG.debug("RangerRequestExprResolver(" + str + "): hasTokens=" + hasTokens);
+            LOG.debug("RangerRequestExprResolver(" + str + "): hasTokens=" + hasTokens + ", isAllNative=" + isAllNative);
         }
     }
 
@@ -99,14 +105,16 @@ public String resolveExpressions(RangerAccessRequest request) {
         String ret = str;
 
         if (hasTokens) {
-            ScriptEngine                 scriptEngine    = ScriptEngineUtil.createScriptEngine(serviceType);
-            RangerRequestScriptEvaluator scriptEvaluator = new RangerRequestScriptEvaluator(request, scriptEngine, RangerRequestScriptEvaluator.needsJsonCtxEnabled(str));
+            // script engine is not needed when all expressions are evaluated natively
+            ScriptEngine                 scriptEngine    = isAllNative ? null : ScriptEngineUtil.getThreadScriptEngine(serviceType);
+            RangerRequestScriptEvaluator scriptEvaluator = isAllNative ? new RangerRequestScriptEvaluator(request) : new RangerRequestScriptEvaluator(request, scriptEngine, RangerRequestScriptEvaluator.needsJsonCtxEnabled(str));
             StringBuffer                 sb              = new StringBuffer();
             Matcher                      matcher         = PATTERN.matcher(str);
 
             while (matcher.find()) {
-                String expr = matcher.group(REGEX_GROUP_EXPR);
-                Object oVal = scriptEvaluator.evaluateScript(expr);
+                String             expr       = matcher.group(REGEX_GROUP_EXPR);
+                RangerNativeScript nativeExpr = nativeExprs.get(expr);
+                Object             oVal       = nativeExpr != null ? scriptEvaluator.evaluateScript(nativeExpr) : scriptEvaluator.evaluateScript(expr);
                 String val  = oVal == null ? "" : Objects.toString(oVal);
 
                 matcher.appendReplacement(sb, val);
@@ -124,6 +132,20 @@ public String resolveExpressions(RangerAccessRequest request) {
         return ret;
     }
 
+    // compiled form of each expression in str; null value for expressions that can't be evaluated natively
+    private static Map<String, RangerNativeScript> compileExpressions(String str) {
+        Map<String, RangerNativeScript> ret     = new HashMap<>();
+        Matcher                         matcher = PATTERN.matcher(str);
+
+        while (matcher.find()) {
+            String expr = matcher.group(REGEX_GROUP_EXPR);
+
+            ret.put(expr, RangerNativeScript.compile(expr));
+        }
+
+        return ret;
+    }
+
     public static boolean hasExpressions(String str) {
         boolean ret = false;
 
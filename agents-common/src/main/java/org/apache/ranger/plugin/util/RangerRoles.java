@@ -38,6 +38,8 @@ public class RangerRoles implements Serializable {
     private Long             roleVersion;
     private Date             roleUpdateTime;
     private Set<RangerRole>  rangerRoles;
+    private Boolean          isDelta;
+    private Set<String>      deletedRoles;
 
     public String getServiceName() {
         return serviceName;
@@ -70,4 +72,24 @@ public Set<RangerRole> getRangerRoles(){
     public void setRangerRoles(Set<RangerRole> rangerRoles){
         this.rangerRoles = rangerRoles;
     }
+
+    /*
+     * when true, rangerRoles has only the roles created or updated since the version known to the plugin, and
+     * deletedRoles has names of the roles deleted since then
+     */
+    public Boolean getIsDelta() {
+        return isDelta == null ? Boolean.FALSE : isDelta;
+    }
+
+    public void setIsDelta(Boolean isDelta) {
+        this.isDelta = isDelta;
+    }
+
+    public Set<String> getDeletedRoles() {
+        return deletedRoles;
+    }
+
+    public void setDeletedRoles(Set<String> deletedRoles) {
+        this.deletedRoles = deletedRoles;
+    }
 }
@@ -22,16 +22,11 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.admin.client.RangerAdminClient;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
-import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.Reader;
-import java.io.Writer;
 import java.util.Date;
 import java.util.HashSet;
 
@@ -49,6 +44,7 @@ public class RangerRolesProvider {
 	private final String			cacheFileNamePrefix;
 	private final String            cacheDir;
 	private final boolean           disableCacheIfServiceNotFound;
+	private final boolean           isCacheCompressed;
 
 	private long	lastActivationTimeInMillis;
 	private long    lastKnownRoleVersion = -1L;
@@ -78,6 +74,7 @@ public RangerRolesProvider(String serviceType, String appId, String serviceName,
 		this.cacheDir = cacheDir;
 		String propertyPrefix = config.getPropertyPrefix();
 		disableCacheIfServiceNotFound = config.getBoolean(propertyPrefix + ".disable.cache.if.servicenotfound", true);
+		isCacheCompressed             = RangerCacheFileUtil.isCompressionEnabled(config);
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerRolesProvider(serviceName=" + serviceName + ").RangerRolesProvider()");
@@ -111,6 +108,14 @@ public void loadUserGroupRoles(RangerBasePlugin plugIn) {
 			//load userGroupRoles from ranger admin
 			RangerRoles roles = loadUserGroupRolesFromAdmin();
 
+			if (roles != null && roles.getIsDelta() && plugIn.getRoles() == null) { // deltas can't be applied without the roles they were computed from
+				LOG.warn("RangerRolesProvider(serviceName=" + serviceName + "): received role deltas, but plugin has no roles to apply them to. Downloading all roles");
+
+				lastKnownRoleVersion = -1L;
+
+				roles = loadUserGroupRolesFromAdmin();
+			}
+
 			if (roles == null) {
 				//if userGroupRoles fetch from ranger Admin Fails, load from cache
 				if (!rangerUserGroupRolesSetInPlugin) {
@@ -126,6 +131,11 @@ public void loadUserGroupRoles(RangerBasePlugin plugIn) {
 
 			if (roles != null) {
 				plugIn.setRoles(roles);
+
+				if (roles.getIsDelta()) { // save roles after applying the deltas
+					saveToCache(plugIn.getRoles());
+				}
+
 				rangerUserGroupRolesSetInPlugin = true;
 				setLastActivationTimeInMillis(System.currentTimeMillis());
 				lastKnownRoleVersion = roles.getRoleVersion() != null ? roles.getRoleVersion() : -1;
@@ -175,8 +185,12 @@ private RangerRoles loadUserGroupRolesFromAdmin() throws RangerServiceNotFoundEx
 
 			if(isUpdated) {
 				long newVersion = roles.getRoleVersion() == null ? -1 : roles.getRoleVersion().longValue();
-				saveToCache(roles);
-				LOG.info("RangerRolesProvider(serviceName=" + serviceName + "): found updated version. lastKnownRoleVersion=" + lastKnownRoleVersion + "; newVersion=" + newVersion );
+
+				if (!roles.getIsDelta()) { // deltas are saved after being applied to roles in the plugin
+					saveToCache(roles);
+				}
+
+				LOG.info("RangerRolesProvider(serviceName=" + serviceName + "): found updated version. lastKnownRoleVersion=" + lastKnownRoleVersion + "; newVersion=" + newVersion + "; isDelta=" + roles.getIsDelta());
 			} else {
 				if(LOG.isDebugEnabled()) {
 					LOG.debug("RangerRolesProvider(serviceName=" + serviceName + ").run(): no update found. lastKnownRoleVersion=" + lastKnownRoleVersion );
@@ -210,8 +224,6 @@ private RangerRoles loadUserGroupRolesFromCache() {
 		File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
 
 		if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
-			Reader reader = null;
-
 			RangerPerfTracer perf = null;
 
 			if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
@@ -219,9 +231,7 @@ private RangerRoles loadUserGroupRolesFromCache() {
 			}
 
 			try {
-				reader = new FileReader(cacheFile);
-
-				roles = JsonUtils.jsonToObject(reader, RangerRoles.class);
+				roles = RangerCacheFileUtil.read(cacheFile, RangerRoles.class);
 
 				if (roles != null) {
 					if (!StringUtils.equals(serviceName, roles.getServiceName())) {
@@ -236,14 +246,6 @@ private RangerRoles loadUserGroupRolesFromCache() {
 				LOG.error("failed to load userGroupRoles from cache file " + cacheFile.getAbsolutePath(), excp);
 			} finally {
 				RangerPerfTracer.log(perf);
-
-				if (reader != null) {
-					try {
-						reader.close();
-					} catch (Exception excp) {
-						LOG.error("error while closing opened cache file " + cacheFile.getAbsolutePath(), excp);
-					}
-				}
 			}
 		} else {
 			roles = new RangerRoles();
@@ -291,22 +293,11 @@ public void saveToCache(RangerRoles roles) {
 					perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "RangerRolesProvider.saveToCache(serviceName=" + serviceName + ")");
 				}
 
-				Writer writer = null;
-
 				try {
-					writer = new FileWriter(cacheFile);
-					JsonUtils.objectToWriter(writer, roles);
+					RangerCacheFileUtil.write(cacheFile, roles, isCacheCompressed);
 		        } catch (Exception excp) {
 					LOG.error("failed to save roles to cache file '" + cacheFile.getAbsolutePath() + "'", excp);
-		        } finally {
-					if(writer != null) {
-						try {
-							writer.close();
-						} catch(Exception excp) {
-							LOG.error("error while closing opened cache file '" + cacheFile.getAbsolutePath() + "'", excp);
-						}
-					}
-				}
+		        }
 
 				RangerPerfTracer.log(perf);
 			}
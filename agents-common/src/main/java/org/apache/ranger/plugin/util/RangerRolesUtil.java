@@ -23,6 +23,8 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.model.RangerRole;
 
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -31,48 +33,154 @@
 
 public class RangerRolesUtil {
     private final long                     roleVersion;
-    private final Map<String, Set<String>> userRoleMapping = new HashMap<>();
-    private final Map<String, Set<String>> groupRoleMapping = new HashMap<>();
-    private final Map<String, Set<String>> roleRoleMapping  = new HashMap<>();
+    private final Map<String, Set<String>> userRoleMapping;
+    private final Map<String, Set<String>> groupRoleMapping;
+    private final Map<String, Set<String>> roleRoleMapping;
 
-    private final Map<String, Set<String>> roleToUserMapping = new HashMap<>();
-    private final Map<String, Set<String>> roleToGroupMapping = new HashMap<>();
+    private final Map<String, Set<String>> roleToUserMapping;
+    private final Map<String, Set<String>> roleToGroupMapping;
 
+    private final Map<String, RangerRole>  rolesByName      = new HashMap<>();
     private RangerRoles                    roles            = null;
     public  enum  ROLES_FOR {USER, GROUP, ROLE}
 
     public RangerRolesUtil(RangerRoles roles) {
+        userRoleMapping    = new HashMap<>();
+        groupRoleMapping   = new HashMap<>();
+        roleRoleMapping    = new HashMap<>();
+        roleToUserMapping  = new HashMap<>();
+        roleToGroupMapping = new HashMap<>();
+
         if (roles != null) {
             this.roles  = roles;
             roleVersion = roles.getRoleVersion() != null ? roles.getRoleVersion() : -1;
 
             if (CollectionUtils.isNotEmpty(roles.getRangerRoles())) {
                 for (RangerRole role : roles.getRangerRoles()) {
-                    Set<RangerRole> containedRoles = getAllContainedRoles(roles.getRangerRoles(), role);
+                    rolesByName.put(role.getName(), role);
+                }
+
+                for (RangerRole role : roles.getRangerRoles()) {
+                    Set<RangerRole> containedRoles = getAllContainedRoles(rolesByName, role);
 
                     buildMap(userRoleMapping, role, containedRoles, ROLES_FOR.USER);
                     buildMap(groupRoleMapping, role, containedRoles, ROLES_FOR.GROUP);
                     buildMap(roleRoleMapping, role, containedRoles, ROLES_FOR.ROLE);
 
-                    Set<String> roleUsers  = new HashSet<>();
-                    Set<String> roleGroups = new HashSet<>();
+                    roleToUserMapping.put(role.getName(), getMemberNames(containedRoles, ROLES_FOR.USER));
+                    roleToGroupMapping.put(role.getName(), getMemberNames(containedRoles, ROLES_FOR.GROUP));
+                }
+
+            }
+        } else {
+            roleVersion = -1L;
+        }
+    }
+
+    /*
+     * applies role deltas to the given instance, which is left unchanged. Only entries of roles that contain (directly
+     * or through nested roles) one of the updated/deleted roles are recomputed; other entries are shared with the given
+     * instance, hence must not be modified.
+     */
+    public RangerRolesUtil(RangerRolesUtil other, RangerRoles deltas) {
+        this.roles         = applyDeltas(other.getRoles(), deltas);
+        this.roleVersion   = roles.getRoleVersion() != null ? roles.getRoleVersion() : -1;
+
+        userRoleMapping    = new HashMap<>(other.userRoleMapping);
+        groupRoleMapping   = new HashMap<>(other.groupRoleMapping);
+        roleRoleMapping    = new HashMap<>(other.roleRoleMapping);
+        roleToUserMapping  = new HashMap<>(other.roleToUserMapping);
+        roleToGroupMapping = new HashMap<>(other.roleToGroupMapping);
+
+        for (RangerRole role : roles.getRangerRoles()) {
+            rolesByName.put(role.getName(), role);
+        }
+
+        // roleRoleMapping has all roles that contain a given role, directly or through nested roles. Any role that
+        // contains a changed role after the change either is a changed role, or contained it before the change too
+        Set<String> changedRoles  = getChangedRoles(deltas);
+        Set<String> affectedRoles = new HashSet<>(changedRoles);
+
+        for (String changedRole : changedRoles) {
+            Set<String> containingRoles = other.roleRoleMapping.get(changedRole);
+
+            if (containingRoles != null) {
+                affectedRoles.addAll(containingRoles);
+            }
+        }
+
+        Map<ROLES_FOR, Map<String, Set<String>>> removals  = new EnumMap<>(ROLES_FOR.class);
+        Map<ROLES_FOR, Map<String, Set<String>>> additions = new EnumMap<>(ROLES_FOR.class);
+
+        for (ROLES_FOR rolesFor : ROLES_FOR.values()) {
+            removals.put(rolesFor, new HashMap<>());
+            additions.put(rolesFor, new HashMap<>());
+        }
 
-                    addMemberNames(role.getUsers(), roleUsers);
-                    addMemberNames(role.getGroups(), roleGroups);
+        for (String roleName : affectedRoles) {
+            RangerRole oldRole = other.rolesByName.get(roleName);
+            RangerRole newRole = rolesByName.get(roleName);
 
-                    for (RangerRole containedRole : containedRoles) {
-                        addMemberNames(containedRole.getUsers(), roleUsers);
-                        addMemberNames(containedRole.getGroups(), roleGroups);
-                    }
+            if (oldRole != null) {
+                Set<RangerRole> containedRoles = getAllContainedRoles(other.rolesByName, oldRole);
 
-                    roleToUserMapping.put(role.getName(), roleUsers);
-                    roleToGroupMapping.put(role.getName(), roleGroups);
+                for (ROLES_FOR rolesFor : ROLES_FOR.values()) {
+                    buildMap(removals.get(rolesFor), oldRole, containedRoles, rolesFor);
                 }
+            }
+
+            if (newRole != null) {
+                Set<RangerRole> containedRoles = getAllContainedRoles(rolesByName, newRole);
 
+                for (ROLES_FOR rolesFor : ROLES_FOR.values()) {
+                    buildMap(additions.get(rolesFor), newRole, containedRoles, rolesFor);
+                }
+
+                roleToUserMapping.put(roleName, getMemberNames(containedRoles, ROLES_FOR.USER));
+                roleToGroupMapping.put(roleName, getMemberNames(containedRoles, ROLES_FOR.GROUP));
+            } else {
+                roleToUserMapping.remove(roleName);
+                roleToGroupMapping.remove(roleName);
             }
-        } else {
-            roleVersion = -1L;
         }
+
+        updateMap(userRoleMapping, removals.get(ROLES_FOR.USER), additions.get(ROLES_FOR.USER));
+        updateMap(groupRoleMapping, removals.get(ROLES_FOR.GROUP), additions.get(ROLES_FOR.GROUP));
+        updateMap(roleRoleMapping, removals.get(ROLES_FOR.ROLE), additions.get(ROLES_FOR.ROLE));
+    }
+
+    /*
+     * returns roles after applying the deltas; the given roles are left unchanged
+     */
+    public static RangerRoles applyDeltas(RangerRoles roles, RangerRoles deltas) {
+        Map<String, RangerRole> rolesByName = new HashMap<>();
+
+        if (roles != null && roles.getRangerRoles() != null) {
+            for (RangerRole role : roles.getRangerRoles()) {
+                rolesByName.put(role.getName(), role);
+            }
+        }
+
+        if (deltas.getDeletedRoles() != null) {
+            for (String roleName : deltas.getDeletedRoles()) {
+                rolesByName.remove(roleName);
+            }
+        }
+
+        if (deltas.getRangerRoles() != null) {
+            for (RangerRole role : deltas.getRangerRoles()) {
+                rolesByName.put(role.getName(), role);
+            }
+        }
+
+        RangerRoles ret = new RangerRoles();
+
+        ret.setServiceName(deltas.getServiceName() != null ? deltas.getServiceName() : (roles != null ? roles.getServiceName() : null));
+        ret.setRoleVersion(deltas.getRoleVersion());
+        ret.setRoleUpdateTime(deltas.getRoleUpdateTime());
+        ret.setRangerRoles(new HashSet<>(rolesByName.values()));
+
+        return ret;
     }
 
     public long getRoleVersion() { return roleVersion; }
@@ -101,24 +209,24 @@ public Map<String, Set<String>> getRoleToGroupMapping() {
         return this.roleToGroupMapping;
     }
 
-    private Set<RangerRole> getAllContainedRoles(Set<RangerRole> roles, RangerRole role) {
+    private Set<RangerRole> getAllContainedRoles(Map<String, RangerRole> rolesByName, RangerRole role) {
         Set<RangerRole> allRoles = new HashSet<>();
 
         allRoles.add(role);
-        addContainedRoles(allRoles, roles, role);
+        addContainedRoles(allRoles, rolesByName, role);
 
         return allRoles;
     }
 
-    private void addContainedRoles(Set<RangerRole> allRoles, Set<RangerRole> roles, RangerRole role) {
+    private void addContainedRoles(Set<RangerRole> allRoles, Map<String, RangerRole> rolesByName, RangerRole role) {
         List<RangerRole.RoleMember> roleMembers = role.getRoles();
 
         for (RangerRole.RoleMember roleMember : roleMembers) {
-            RangerRole containedRole = getContainedRole(roles, roleMember.getName());
+            RangerRole containedRole = rolesByName.get(roleMember.getName());
 
             if (containedRole!= null && !allRoles.contains(containedRole)) {
                 allRoles.add(containedRole);
-                addContainedRoles(allRoles, roles, containedRole);
+                addContainedRoles(allRoles, rolesByName, containedRole);
             }
         }
     }
@@ -132,18 +240,8 @@ private void buildMap(Map<String, Set<String>> map, RangerRole role, Set<RangerR
     }
 
     private void buildMap(Map<String, Set<String>> map, RangerRole role, String roleName, ROLES_FOR roles_for) {
-        List<RangerRole.RoleMember> userOrGroupOrRole = null;
-        switch(roles_for) {
-            case USER:
-                userOrGroupOrRole = role.getUsers();
-                break;
-            case GROUP:
-                userOrGroupOrRole = role.getGroups();
-                break;
-            case ROLE:
-                userOrGroupOrRole = role.getRoles();
-                break;
-        }
+        List<RangerRole.RoleMember> userOrGroupOrRole = getMembers(role, roles_for);
+
         if (CollectionUtils.isNotEmpty(userOrGroupOrRole)) {
             getRoleMap(map, roleName, userOrGroupOrRole);
         }
@@ -158,15 +256,64 @@ private void getRoleMap(Map<String, Set<String>> map, String roleName, List<Rang
         }
     }
 
-    private RangerRole getContainedRole(Set<RangerRole> roles, String role) {
-        return (roles.stream().filter(containedRole -> role.equals(containedRole.getName())).findAny().orElse(null));
+    private static void updateMap(Map<String, Set<String>> map, Map<String, Set<String>> removals, Map<String, Set<String>> additions) {
+        Set<String> keys = new HashSet<>(removals.keySet());
+
+        keys.addAll(additions.keySet());
+
+        for (String key : keys) {
+            Set<String> existing = map.get(key);
+            Set<String> updated  = existing != null ? new HashSet<>(existing) : new HashSet<>();
+
+            updated.removeAll(removals.getOrDefault(key, Collections.emptySet()));
+            updated.addAll(additions.getOrDefault(key, Collections.emptySet()));
+
+            if (updated.isEmpty()) {
+                map.remove(key);
+            } else {
+                map.put(key, updated);
+            }
+        }
     }
 
-    private void addMemberNames(List<RangerRole.RoleMember> members, Set<String> names) {
-        for (RangerRole.RoleMember member : members) {
-            names.add(member.getName());
+    private static Set<String> getChangedRoles(RangerRoles deltas) {
+        Set<String> ret = new HashSet<>();
+
+        if (deltas.getDeletedRoles() != null) {
+            ret.addAll(deltas.getDeletedRoles());
         }
+
+        if (deltas.getRangerRoles() != null) {
+            for (RangerRole role : deltas.getRangerRoles()) {
+                ret.add(role.getName());
+            }
+        }
+
+        return ret;
     }
-}
 
+    private static List<RangerRole.RoleMember> getMembers(RangerRole role, ROLES_FOR rolesFor) {
+        switch (rolesFor) {
+            case USER:
+                return role.getUsers();
+            case GROUP:
+                return role.getGroups();
+            case ROLE:
+                return role.getRoles();
+        }
 
+        return null;
+    }
+
+    private static Set<String> getMemberNames(Set<RangerRole> roles, ROLES_FOR rolesFor) {
+        Set<String> ret = new HashSet<>();
+
+        for (RangerRole role : roles) {
+            for (RangerRole.RoleMember member : getMembers(role, rolesFor)) {
+                ret.add(member.getName());
+            }
+        }
+
+        return ret;
+    }
+}
@@ -49,6 +49,9 @@ public class RangerUserStore implements Serializable {
     private Map<String, Set<String>>         userGroupMapping;
     private Map<String, String>              userCloudIdMapping;
     private Map<String, String>              groupCloudIdMapping;
+    private Boolean                          isDelta;
+    private Set<String>                      deletedUsers;
+    private Set<String>                      deletedGroups;
 
     public RangerUserStore() {this(-1L, null, null, null);}
 
@@ -114,6 +117,35 @@ public void setGroupCloudIdMapping(Map<String, String> groupCloudIdMapping) {
         this.groupCloudIdMapping = groupCloudIdMapping;
     }
 
+    /*
+     * when true, the mappings have only the users and groups updated since the version known to the plugin: each such
+     * user or group replaces its earlier entries in all mappings. deletedUsers and deletedGroups have names of users and
+     * groups removed from all mappings since then
+     */
+    public Boolean getIsDelta() {
+        return isDelta == null ? Boolean.FALSE : isDelta;
+    }
+
+    public void setIsDelta(Boolean isDelta) {
+        this.isDelta = isDelta;
+    }
+
+    public Set<String> getDeletedUsers() {
+        return deletedUsers;
+    }
+
+    public void setDeletedUsers(Set<String> deletedUsers) {
+        this.deletedUsers = deletedUsers;
+    }
+
+    public Set<String> getDeletedGroups() {
+        return deletedGroups;
+    }
+
+    public void setDeletedGroups(Set<String> deletedGroups) {
+        this.deletedGroups = deletedGroups;
+    }
+
     public void dedupStrings() {
         Map<String, String> strTbl = new HashMap<>();
 
@@ -136,7 +168,8 @@ public String toString( ) {
     public StringBuilder toString(StringBuilder sb) {
         sb.append("RangerUserStore={")
                 .append("userStoreVersion=").append(userStoreVersion).append(", ")
-                .append("userStoreUpdateTime=").append(userStoreUpdateTime).append(", ");
+                .append("userStoreUpdateTime=").append(userStoreUpdateTime).append(", ")
+                .append("isDelta=").append(isDelta).append(", ");
 
         sb.append("users={");
         if(MapUtils.isNotEmpty(userAttrMapping)) {
@@ -171,6 +204,11 @@ public StringBuilder toString(StringBuilder sb) {
         }
         sb.append("}");
 
+        if (getIsDelta()) {
+            sb.append(", deletedUsers=").append(deletedUsers);
+            sb.append(", deletedGroups=").append(deletedGroups);
+        }
+
         sb.append("}");
 
         return sb;
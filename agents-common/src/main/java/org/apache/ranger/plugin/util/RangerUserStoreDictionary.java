@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.authorization.utils.StringUtil;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ * Dictionary to store mappings of a user-store compactly, in plugins:
+ *  - strings are interned
+ *  - an attribute map is stored as an array of values, which refers to a sorted array of attribute names shared by all
+ *    maps having the same attribute names. Maps having the same attributes and values are shared, as are identical sets
+ *    of user-groups.
+ * Hence the memory used by the mappings grows with the number of distinct values, rather than with users x attributes.
+ *
+ * A dictionary is not thread-safe - it is used by the thread that updates the user-store. Maps and sets returned by
+ * the dictionary are immutable, and can be read concurrently.
+ */
+public class RangerUserStoreDictionary {
+    private final Map<String, String>                           strings    = new HashMap<>();
+    private final Map<List<String>, String[]>                   attrNames  = new HashMap<>();
+    private final Map<Map<String, String>, Map<String, String>> attrMaps   = new HashMap<>();
+    private final Map<Set<String>, Set<String>>                 stringSets = new HashMap<>();
+
+    // replaces mappings in the given user-store with their compact versions
+    public void compact(RangerUserStore userStore) {
+        if (userStore != null) {
+            userStore.setUserAttrMapping(internAttrMapping(userStore.getUserAttrMapping()));
+            userStore.setGroupAttrMapping(internAttrMapping(userStore.getGroupAttrMapping()));
+            userStore.setUserGroupMapping(internSetMapping(userStore.getUserGroupMapping()));
+            userStore.setUserCloudIdMapping(StringUtil.dedupStringsMap(userStore.getUserCloudIdMapping(), strings));
+            userStore.setGroupCloudIdMapping(StringUtil.dedupStringsMap(userStore.getGroupCloudIdMapping(), strings));
+        }
+    }
+
+    public String intern(String str) {
+        return StringUtil.dedupString(str, strings);
+    }
+
+    public Map<String, String> intern(Map<String, String> attrs) {
+        if (attrs == null) {
+            return null;
+        }
+
+        Map<String, String> ret = attrMaps.get(attrs);
+
+        if (ret == null) {
+            String[] names = attrs.keySet().toArray(new String[0]);
+
+            if (Arrays.asList(names).contains(null)) { // can't be sorted; not expected
+                return StringUtil.dedupStringsMap(attrs, strings);
+            }
+
+            Arrays.sort(names);
+
+            for (int i = 0; i < names.length; i++) {
+                names[i] = intern(names[i]);
+            }
+
+            String[] sharedNames = attrNames.computeIfAbsent(Arrays.asList(names), k -> names);
+            String[] values      = new String[sharedNames.length];
+
+            for (int i = 0; i < sharedNames.length; i++) {
+                values[i] = intern(attrs.get(sharedNames[i]));
+            }
+
+            ret = new CompactAttributes(sharedNames, values);
+
+            attrMaps.put(ret, ret);
+        }
+
+        return ret;
+    }
+
+    public Set<String> intern(Set<String> strs) {
+        if (strs == null) {
+            return null;
+        }
+
+        Set<String> ret = stringSets.get(strs);
+
+        if (ret == null) {
+            Set<String> set = new HashSet<>(strs.size());
+
+            for (String str : strs) {
+                set.add(intern(str));
+            }
+
+            ret = Collections.unmodifiableSet(set);
+
+            stringSets.put(ret, ret);
+        }
+
+        return ret;
+    }
+
+    // number of distinct strings, attribute maps and sets in the dictionary
+    public int size() {
+        return strings.size() + attrMaps.size() + stringSets.size();
+    }
+
+    private Map<String, Map<String, String>> internAttrMapping(Map<String, Map<String, String>> mapping) {
+        Map<String, Map<String, String>> ret = mapping;
+
+        if (mapping != null) {
+            ret = new HashMap<>(mapping.size());
+
+            for (Map.Entry<String, Map<String, String>> entry : mapping.entrySet()) {
+                ret.put(intern(entry.getKey()), intern(entry.getValue()));
+            }
+        }
+
+        return ret;
+    }
+
+    private Map<String, Set<String>> internSetMapping(Map<String, Set<String>> mapping) {
+        Map<String, Set<String>> ret = mapping;
+
+        if (mapping != null) {
+            ret = new HashMap<>(mapping.size());
+
+            for (Map.Entry<String, Set<String>> entry : mapping.entrySet()) {
+                ret.put(intern(entry.getKey()), intern(entry.getValue()));
+            }
+        }
+
+        return ret;
+    }
+
+    static final class CompactAttributes extends AbstractMap<String, String> implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] names;  // sorted; shared with other maps having same attribute names
+        private final String[] values;
+        private final int      hashCode;
+
+        CompactAttributes(String[] names, String[] values) {
+            int hashCode = 0;
+
+            for (int i = 0; i < names.length; i++) {
+                hashCode += Objects.hashCode(names[i]) ^ Objects.hashCode(values[i]); // as in AbstractMap.hashCode()
+            }
+
+            this.names    = names;
+            this.values   = values;
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public String get(Object key) {
+            int idx = indexOf(key);
+
+            return idx >= 0 ? values[idx] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return names.length;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<Entry<String, String>>() {
+                        private int idx = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return idx < names.length;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (idx >= names.length) {
+                                throw new NoSuchElementException();
+                            }
+
+                            Entry<String, String> ret = new SimpleImmutableEntry<>(names[idx], values[idx]);
+
+                            idx++;
+
+                            return ret;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        private int indexOf(Object key) {
+            return key instanceof String ? Arrays.binarySearch(names, key) : -1;
+        }
+    }
+}
@@ -24,6 +24,7 @@
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -105,6 +106,47 @@ private Map<String, String> buildUserEmailToNameMap() {
         return ret;
     }
 
+    /*
+     * returns a new user-store with the deltas applied to the given user-store, which is not modified. Each user or
+     * group in the deltas replaces its entries in all mappings
+     */
+    public static RangerUserStore applyDeltas(RangerUserStore userStore, RangerUserStore deltas) {
+        RangerUserStore                  ret           = new RangerUserStore();
+        Map<String, Map<String, String>> userAttrs     = copyOf(userStore != null ? userStore.getUserAttrMapping() : null);
+        Map<String, Map<String, String>> groupAttrs    = copyOf(userStore != null ? userStore.getGroupAttrMapping() : null);
+        Map<String, Set<String>>         userGroups    = copyOf(userStore != null ? userStore.getUserGroupMapping() : null);
+        Map<String, String>              userCloudIds  = copyOf(userStore != null ? userStore.getUserCloudIdMapping() : null);
+        Map<String, String>              groupCloudIds = copyOf(userStore != null ? userStore.getGroupCloudIdMapping() : null);
+        Set<String>                      changedUsers  = getNames(deltas.getUserAttrMapping(), deltas.getUserGroupMapping(), deltas.getDeletedUsers());
+        Set<String>                      changedGroups = getNames(deltas.getGroupAttrMapping(), null, deltas.getDeletedGroups());
+
+        for (String userName : changedUsers) {
+            replaceEntry(userAttrs, userCloudIds, userName, deltas.getUserAttrMapping());
+
+            Set<String> groups = deltas.getUserGroupMapping() != null ? deltas.getUserGroupMapping().get(userName) : null;
+
+            if (groups != null) {
+                userGroups.put(userName, groups);
+            } else {
+                userGroups.remove(userName);
+            }
+        }
+
+        for (String groupName : changedGroups) {
+            replaceEntry(groupAttrs, groupCloudIds, groupName, deltas.getGroupAttrMapping());
+        }
+
+        ret.setUserStoreVersion(deltas.getUserStoreVersion());
+        ret.setUserStoreUpdateTime(deltas.getUserStoreUpdateTime());
+        ret.setUserAttrMapping(userAttrs);
+        ret.setGroupAttrMapping(groupAttrs);
+        ret.setUserGroupMapping(userGroups);
+        ret.setUserCloudIdMapping(userCloudIds);
+        ret.setGroupCloudIdMapping(groupCloudIds);
+
+        return ret;
+    }
+
     public static String getPrintableOptions(Map<String, String> otherAttributes) {
         if (MapUtils.isEmpty(otherAttributes)) return "{}";
         StringBuilder ret = new StringBuilder();
@@ -131,6 +173,48 @@ public static String getAttrVal(Map<String, Map<String, String>> attrMap, String
     public String getCloudId(Map<String, Map<String, String>> attrMap, String name) {
         return getAttrVal(attrMap, name, CLOUD_IDENTITY_NAME);
     }
+
+    private static void replaceEntry(Map<String, Map<String, String>> attrMapping, Map<String, String> cloudIdMapping, String name, Map<String, Map<String, String>> deltaAttrMapping) {
+        Map<String, String> oldAttrs = attrMapping.remove(name);
+        Map<String, String> newAttrs = deltaAttrMapping != null ? deltaAttrMapping.get(name) : null;
+        String              cloudId  = oldAttrs != null ? oldAttrs.get(CLOUD_IDENTITY_NAME) : null;
+
+        if (StringUtils.isNotEmpty(cloudId) && name.equals(cloudIdMapping.get(cloudId))) {
+            cloudIdMapping.remove(cloudId);
+        }
+
+        if (newAttrs != null) {
+            attrMapping.put(name, newAttrs);
+
+            cloudId = newAttrs.get(CLOUD_IDENTITY_NAME);
+
+            if (StringUtils.isNotEmpty(cloudId)) {
+                cloudIdMapping.put(cloudId, name);
+            }
+        }
+    }
+
+    private static Set<String> getNames(Map<String, ?> mapping1, Map<String, ?> mapping2, Set<String> names) {
+        Set<String> ret = new HashSet<>();
+
+        if (mapping1 != null) {
+            ret.addAll(mapping1.keySet());
+        }
+
+        if (mapping2 != null) {
+            ret.addAll(mapping2.keySet());
+        }
+
+        if (names != null) {
+            ret.addAll(names);
+        }
+
+        return ret;
+    }
+
+    private static <T> Map<String, T> copyOf(Map<String, T> mapping) {
+        return mapping != null ? new HashMap<>(mapping) : new HashMap<>();
+    }
 }
 
 
@@ -25,15 +25,27 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 
 public class ScriptEngineUtil {
     private static final Logger LOG = LoggerFactory.getLogger(RangerScriptConditionEvaluator.class);
 
+    private static final int MAX_COMPILED_SCRIPTS_PER_ENGINE = 1024;
+
     private static volatile ScriptEngineCreator SCRIPT_ENGINE_CREATOR             = null;
     private static volatile boolean             SCRIPT_ENGINE_CREATOR_INITIALIZED = false;
 
+    // script engines are not guaranteed to be thread-safe: each thread uses its own engine for a service-type
+    private static final ThreadLocal<Map<String, ThreadScriptEngine>> THREAD_SCRIPT_ENGINES = ThreadLocal.withInitial(HashMap::new);
+
     // for backward compatibility with any plugin that might use this API
     public static ScriptEngine createScriptEngine(String engineName, String serviceType) {
         if (LOG.isDebugEnabled()) {
@@ -76,6 +88,43 @@ public static ScriptEngine createScriptEngine(String serviceType) {
         return ret;
     }
 
+    /*
+     * returns the script engine of the current thread for the given service-type, after creating one on first call.
+     * Scripts evaluated with this engine through eval() are compiled once, and reused in subsequent evaluations.
+     */
+    public static ScriptEngine getThreadScriptEngine(String serviceType) {
+        Map<String, ThreadScriptEngine> engines = THREAD_SCRIPT_ENGINES.get();
+        ThreadScriptEngine              ret     = engines.get(serviceType);
+
+        if (ret == null) {
+            ret = new ThreadScriptEngine(createScriptEngine(serviceType)); // engine can be null, when creation fails; don't retry in every call
+
+            engines.put(serviceType, ret);
+        }
+
+        return ret.scriptEngine;
+    }
+
+    /*
+     * evaluates the script with the given bindings; for engines returned by getThreadScriptEngine(), the script is
+     * compiled on first evaluation and the compiled script is used in subsequent evaluations
+     */
+    public static Object eval(ScriptEngine scriptEngine, String script, Bindings bindings) throws ScriptException {
+        CompiledScript compiledScript = getCompiledScript(scriptEngine, script);
+
+        return compiledScript != null ? compiledScript.eval(bindings) : scriptEngine.eval(script, bindings);
+    }
+
+    private static CompiledScript getCompiledScript(ScriptEngine scriptEngine, String script) throws ScriptException {
+        for (ThreadScriptEngine engine : THREAD_SCRIPT_ENGINES.get().values()) {
+            if (engine.scriptEngine == scriptEngine) {
+                return engine.getCompiledScript(script);
+            }
+        }
+
+        return null; // not an engine of this thread; it might be used by other threads as well
+    }
+
     private static ScriptEngineCreator getScriptEngineCreator(String serviceType) {
         boolean isInitialized = SCRIPT_ENGINE_CREATOR_INITIALIZED;
 
@@ -156,4 +205,35 @@ private static ClassLoader getPrevActiveClassLoader(String serviceType) {
 
         return ret;
     }
+
+    private static class ThreadScriptEngine {
+        final ScriptEngine                scriptEngine;
+        final Map<String, CompiledScript> compiledScripts;
+
+        ThreadScriptEngine(ScriptEngine scriptEngine) {
+            this.scriptEngine    = scriptEngine;
+            this.compiledScripts = scriptEngine instanceof Compilable ? new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                    return size() > MAX_COMPILED_SCRIPTS_PER_ENGINE; // scripts of policies deleted or updated since compilation
+                }
+            } : null;
+        }
+
+        CompiledScript getCompiledScript(String script) throws ScriptException {
+            CompiledScript ret = null;
+
+            if (compiledScripts != null) {
+                ret = compiledScripts.get(script);
+
+                if (ret == null) {
+                    ret = ((Compilable) scriptEngine).compile(script);
+
+                    compiledScripts.put(script, ret);
+                }
+            }
+
+            return ret;
+        }
+    }
 }
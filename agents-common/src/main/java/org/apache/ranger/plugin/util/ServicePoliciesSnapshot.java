@@ -0,0 +1,828 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemRowFilterInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerRowFilterPolicyItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of ServicePolicies, saved next to the JSON policy cache file to reduce plugin start time.
+ *
+ * Policies are written in a compact binary encoding in which each distinct string is written once and is referenced
+ * by its index afterwards; the policies read from a snapshot share these strings. The rest of ServicePolicies, like
+ * service-def and zone details, is written as JSON. A snapshot is used only when its format version matches this
+ * class, its checksum is valid and it was written for the current contents of the JSON cache file - i.e. the cache
+ * file's length and modified-time recorded in the snapshot are unchanged. Otherwise the caller should load the JSON
+ * cache file.
+ *
+ * FORMAT_VERSION must be incremented on any change to the encoding, including addition of fields to RangerPolicy.
+ */
+public class ServicePoliciesSnapshot {
+    private static final Logger LOG = LoggerFactory.getLogger(ServicePoliciesSnapshot.class);
+
+    private static final Logger PERF_POLICYENGINE_INIT_LOG = RangerPerfTracer.getPerfLogger("policyengine.init");
+
+    public static final String SNAPSHOT_FILE_SUFFIX = ".snapshot";
+
+    static final int MAGIC          = 0x52505331; // "RPS1"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_LENGTH  = 4 + 4 + 8 + 8 + 8 + 4 + 4; // magic, formatVersion, cacheFileLength, cacheFileLastModified, policyVersion, payloadLength, payloadCrc
+
+    private static final int POLICY_ITEM_TYPE_DEFAULT   = 0;
+    private static final int POLICY_ITEM_TYPE_DATAMASK  = 1;
+    private static final int POLICY_ITEM_TYPE_ROWFILTER = 2;
+
+    private ServicePoliciesSnapshot() { }
+
+    public static File getSnapshotFile(File cacheFile) {
+        return new File(cacheFile.getPath() + SNAPSHOT_FILE_SUFFIX);
+    }
+
+    /**
+     * Saves a snapshot of the given policies, which must have just been written to cacheFile. On failure, any existing
+     * snapshot for cacheFile is deleted.
+     *
+     * @return true if the snapshot was saved
+     */
+    public static boolean save(ServicePolicies policies, File cacheFile) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> ServicePoliciesSnapshot.save(" + cacheFile.getAbsolutePath() + ")");
+        }
+
+        boolean          ret          = false;
+        File             snapshotFile = getSnapshotFile(cacheFile);
+        File             tmpFile      = new File(snapshotFile.getPath() + ".tmp");
+        RangerPerfTracer perf         = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "ServicePoliciesSnapshot.save(serviceName=" + policies.getServiceName() + ")");
+        }
+
+        try {
+            Encoder encoder = new Encoder();
+
+            encoder.writeServicePolicies(policies);
+
+            byte[] payload = encoder.toByteArray();
+            CRC32  crc     = new CRC32();
+
+            crc.update(payload, 0, payload.length);
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(cacheFile.length());
+                out.writeLong(cacheFile.lastModified());
+                out.writeLong(policies.getPolicyVersion() != null ? policies.getPolicyVersion() : -1L);
+                out.writeInt(payload.length);
+                out.writeInt((int) crc.getValue());
+                out.write(payload);
+            }
+
+            try {
+                Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException excp) {
+                Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            ret = true;
+        } catch (Exception excp) {
+            LOG.error("failed to save policies to snapshot file '" + snapshotFile.getAbsolutePath() + "'", excp);
+
+            if (tmpFile.exists() && !tmpFile.delete()) {
+                LOG.warn("failed to delete file '" + tmpFile.getAbsolutePath() + "'");
+            }
+
+            if (snapshotFile.exists() && !snapshotFile.delete()) {
+                LOG.warn("failed to delete stale snapshot file '" + snapshotFile.getAbsolutePath() + "'");
+            }
+        } finally {
+            RangerPerfTracer.log(perf);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== ServicePoliciesSnapshot.save(" + cacheFile.getAbsolutePath() + "): ret=" + ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Loads policies from the snapshot of cacheFile.
+     *
+     * @return policies read from the snapshot; null if the snapshot doesn't exist or can't be used for current contents of cacheFile
+     */
+    public static ServicePolicies load(File cacheFile) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> ServicePoliciesSnapshot.load(" + cacheFile.getAbsolutePath() + ")");
+        }
+
+        ServicePolicies ret          = null;
+        File            snapshotFile = getSnapshotFile(cacheFile);
+
+        if (snapshotFile.isFile() && cacheFile.isFile()) {
+            RangerPerfTracer perf = null;
+
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "ServicePoliciesSnapshot.load(snapshotFile=" + snapshotFile.getName() + ")");
+            }
+
+            try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+
+                if (size >= HEADER_LENGTH && size <= Integer.MAX_VALUE) {
+                    MappedByteBuffer buffer                = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    int              magic                 = buffer.getInt();
+                    int              formatVersion         = buffer.getInt();
+                    long             cacheFileLength       = buffer.getLong();
+                    long             cacheFileLastModified = buffer.getLong();
+                    long             policyVersion         = buffer.getLong();
+                    int              payloadLength         = buffer.getInt();
+                    int              payloadCrc            = buffer.getInt();
+
+                    if (magic != MAGIC || formatVersion != FORMAT_VERSION) {
+                        LOG.info("ignoring snapshot file '" + snapshotFile.getAbsolutePath() + "': unsupported format (magic=" + Integer.toHexString(magic) + ", formatVersion=" + formatVersion + ")");
+                    } else if (cacheFileLength != cacheFile.length() || cacheFileLastModified != cacheFile.lastModified()) {
+                        LOG.info("ignoring snapshot file '" + snapshotFile.getAbsolutePath() + "' of policyVersion=" + policyVersion + ": cache file '" + cacheFile.getAbsolutePath() + "' was updated after the snapshot was saved");
+                    } else if (payloadLength != size - HEADER_LENGTH) {
+                        LOG.warn("ignoring snapshot file '" + snapshotFile.getAbsolutePath() + "': truncated file (payloadLength=" + payloadLength + ", fileSize=" + size + ")");
+                    } else {
+                        // decoding from a heap array is much faster than from the mapped buffer, especially before JIT compilation
+                        byte[] payload = new byte[payloadLength];
+                        CRC32  crc     = new CRC32();
+
+                        buffer.get(payload);
+                        crc.update(payload, 0, payload.length);
+
+                        if ((int) crc.getValue() != payloadCrc) {
+                            LOG.warn("ignoring snapshot file '" + snapshotFile.getAbsolutePath() + "': checksum mismatch");
+                        } else {
+                            ServicePolicies policies = new Decoder(payload).readServicePolicies();
+
+                            if (policyVersion == (policies.getPolicyVersion() != null ? policies.getPolicyVersion() : -1L)) {
+                                ret = policies;
+                            } else {
+                                LOG.warn("ignoring snapshot file '" + snapshotFile.getAbsolutePath() + "': policyVersion mismatch (header=" + policyVersion + ", policies=" + policies.getPolicyVersion() + ")");
+                            }
+                        }
+                    }
+                } else {
+                    LOG.warn("ignoring snapshot file '" + snapshotFile.getAbsolutePath() + "': invalid file size " + size);
+                }
+            } catch (Exception excp) {
+                LOG.warn("failed to load policies from snapshot file '" + snapshotFile.getAbsolutePath() + "'", excp);
+
+                ret = null;
+            } finally {
+                RangerPerfTracer.log(perf);
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== ServicePoliciesSnapshot.load(" + cacheFile.getAbsolutePath() + "): policyVersion=" + (ret != null ? ret.getPolicyVersion() : null));
+        }
+
+        return ret;
+    }
+
+    public static void delete(File cacheFile) {
+        File snapshotFile = getSnapshotFile(cacheFile);
+
+        if (snapshotFile.exists() && !snapshotFile.delete()) {
+            LOG.warn("failed to delete snapshot file '" + snapshotFile.getAbsolutePath() + "'");
+        }
+    }
+
+    // ServicePolicies without policies; these are encoded separately
+    private static ServicePolicies copyHeader(ServicePolicies source) {
+        ServicePolicies ret = new ServicePolicies();
+
+        ret.setServiceName(source.getServiceName());
+        ret.setServiceId(source.getServiceId());
+        ret.setPolicyVersion(source.getPolicyVersion());
+        ret.setPolicyUpdateTime(source.getPolicyUpdateTime());
+        ret.setServiceDef(source.getServiceDef());
+        ret.setAuditMode(source.getAuditMode());
+        ret.setServiceConfig(source.getServiceConfig());
+        ret.setPolicyDeltas(source.getPolicyDeltas());
+        ret.setPolicies(null);
+
+        if (source.getTagPolicies() != null) {
+            ServicePolicies.TagPolicies tagPolicies = new ServicePolicies.TagPolicies();
+
+            tagPolicies.setServiceName(source.getTagPolicies().getServiceName());
+            tagPolicies.setServiceId(source.getTagPolicies().getServiceId());
+            tagPolicies.setPolicyVersion(source.getTagPolicies().getPolicyVersion());
+            tagPolicies.setPolicyUpdateTime(source.getTagPolicies().getPolicyUpdateTime());
+            tagPolicies.setServiceDef(source.getTagPolicies().getServiceDef());
+            tagPolicies.setAuditMode(source.getTagPolicies().getAuditMode());
+            tagPolicies.setServiceConfig(source.getTagPolicies().getServiceConfig());
+            tagPolicies.setPolicies(null);
+
+            ret.setTagPolicies(tagPolicies);
+        }
+
+        if (source.getSecurityZones() != null) {
+            Map<String, ServicePolicies.SecurityZoneInfo> securityZones = new LinkedHashMap<>();
+
+            for (Map.Entry<String, ServicePolicies.SecurityZoneInfo> entry : source.getSecurityZones().entrySet()) {
+                ServicePolicies.SecurityZoneInfo zoneInfo = entry.getValue();
+                ServicePolicies.SecurityZoneInfo copy     = new ServicePolicies.SecurityZoneInfo();
+
+                copy.setZoneName(zoneInfo.getZoneName());
+                copy.setResources(zoneInfo.getResources());
+                copy.setPolicyDeltas(zoneInfo.getPolicyDeltas());
+                copy.setContainsAssociatedTagService(zoneInfo.getContainsAssociatedTagService());
+                copy.setPolicies(null);
+
+                securityZones.put(entry.getKey(), copy);
+            }
+
+            ret.setSecurityZones(securityZones);
+        }
+
+        return ret;
+    }
+
+    private static final class Encoder {
+        private final ByteArrayOutputStream bytes   = new ByteArrayOutputStream(64 * 1024);
+        private final DataOutputStream      out     = new DataOutputStream(bytes);
+        private final Map<String, Integer>  strings = new HashMap<>();
+
+        byte[] toByteArray() throws IOException {
+            out.flush();
+
+            return bytes.toByteArray();
+        }
+
+        void writeServicePolicies(ServicePolicies policies) throws IOException {
+            writeBytes(JsonUtils.getMapper().writeValueAsString(copyHeader(policies)).getBytes(StandardCharsets.UTF_8));
+
+            writePolicies(policies.getPolicies());
+            writePolicies(policies.getTagPolicies() != null ? policies.getTagPolicies().getPolicies() : null);
+
+            Map<String, ServicePolicies.SecurityZoneInfo> securityZones = policies.getSecurityZones();
+
+            writeCount(securityZones != null ? securityZones.size() : -1);
+
+            if (securityZones != null) {
+                for (Map.Entry<String, ServicePolicies.SecurityZoneInfo> entry : securityZones.entrySet()) {
+                    writeString(entry.getKey());
+                    writePolicies(entry.getValue().getPolicies());
+                }
+            }
+        }
+
+        private void writePolicies(List<RangerPolicy> policies) throws IOException {
+            writeCount(policies != null ? policies.size() : -1);
+
+            if (policies != null) {
+                for (RangerPolicy policy : policies) {
+                    writePolicy(policy);
+                }
+            }
+        }
+
+        private void writePolicy(RangerPolicy policy) throws IOException {
+            writeLong(policy.getId());
+            writeString(policy.getGuid());
+            writeBoolean(policy.getIsEnabled());
+            writeString(policy.getCreatedBy());
+            writeString(policy.getUpdatedBy());
+            writeDate(policy.getCreateTime());
+            writeDate(policy.getUpdateTime());
+            writeLong(policy.getVersion());
+            writeString(policy.getService());
+            writeString(policy.getName());
+            writeInteger(policy.getPolicyType());
+            writeInteger(policy.getPolicyPriority());
+            writeString(policy.getDescription());
+            writeString(policy.getResourceSignature());
+            writeBoolean(policy.getIsAuditEnabled());
+            writeResources(policy.getResources());
+
+            List<Map<String, RangerPolicyResource>> additionalResources = policy.getAdditionalResources();
+
+            writeCount(additionalResources != null ? additionalResources.size() : -1);
+
+            if (additionalResources != null) {
+                for (Map<String, RangerPolicyResource> resources : additionalResources) {
+                    writeResources(resources);
+                }
+            }
+
+            writeConditions(policy.getConditions());
+            writePolicyItems(policy.getPolicyItems(), POLICY_ITEM_TYPE_DEFAULT);
+            writePolicyItems(policy.getDenyPolicyItems(), POLICY_ITEM_TYPE_DEFAULT);
+            writePolicyItems(policy.getAllowExceptions(), POLICY_ITEM_TYPE_DEFAULT);
+            writePolicyItems(policy.getDenyExceptions(), POLICY_ITEM_TYPE_DEFAULT);
+            writePolicyItems(policy.getDataMaskPolicyItems(), POLICY_ITEM_TYPE_DATAMASK);
+            writePolicyItems(policy.getRowFilterPolicyItems(), POLICY_ITEM_TYPE_ROWFILTER);
+            writeString(policy.getServiceType());
+            // setters treat null and empty collections alike
+            writeString(MapUtils.isNotEmpty(policy.getOptions()) ? JsonUtils.getMapper().writeValueAsString(policy.getOptions()) : null);
+            writeString(CollectionUtils.isNotEmpty(policy.getValiditySchedules()) ? JsonUtils.getMapper().writeValueAsString(policy.getValiditySchedules()) : null);
+            writeStrings(policy.getPolicyLabels());
+            writeString(policy.getZoneName());
+            writeBoolean(policy.getIsDenyAllElse());
+        }
+
+        private void writeResources(Map<String, RangerPolicyResource> resources) throws IOException {
+            writeCount(resources != null ? resources.size() : -1);
+
+            if (resources != null) {
+                for (Map.Entry<String, RangerPolicyResource> entry : resources.entrySet()) {
+                    RangerPolicyResource resource = entry.getValue();
+
+                    writeString(entry.getKey());
+                    writeStrings(resource.getValues());
+                    writeBoolean(resource.getIsExcludes());
+                    writeBoolean(resource.getIsRecursive());
+                }
+            }
+        }
+
+        private void writePolicyItems(List<? extends RangerPolicyItem> policyItems, int policyItemType) throws IOException {
+            writeCount(policyItems != null ? policyItems.size() : -1);
+
+            if (policyItems != null) {
+                for (RangerPolicyItem policyItem : policyItems) {
+                    List<RangerPolicyItemAccess> accesses = policyItem.getAccesses();
+
+                    writeCount(accesses != null ? accesses.size() : -1);
+
+                    if (accesses != null) {
+                        for (RangerPolicyItemAccess access : accesses) {
+                            writeString(access.getType());
+                            writeBoolean(access.getIsAllowed());
+                        }
+                    }
+
+                    writeStrings(policyItem.getUsers());
+                    writeStrings(policyItem.getGroups());
+                    writeStrings(policyItem.getRoles());
+                    writeConditions(policyItem.getConditions());
+                    writeBoolean(policyItem.getDelegateAdmin());
+
+                    if (policyItemType == POLICY_ITEM_TYPE_DATAMASK) {
+                        RangerPolicyItemDataMaskInfo dataMaskInfo = ((RangerDataMaskPolicyItem) policyItem).getDataMaskInfo();
+
+                        out.writeBoolean(dataMaskInfo != null);
+
+                        if (dataMaskInfo != null) {
+                            writeString(dataMaskInfo.getDataMaskType());
+                            writeString(dataMaskInfo.getConditionExpr());
+                            writeString(dataMaskInfo.getValueExpr());
+                        }
+                    } else if (policyItemType == POLICY_ITEM_TYPE_ROWFILTER) {
+                        RangerPolicyItemRowFilterInfo rowFilterInfo = ((RangerRowFilterPolicyItem) policyItem).getRowFilterInfo();
+
+                        out.writeBoolean(rowFilterInfo != null);
+
+                        if (rowFilterInfo != null) {
+                            writeString(rowFilterInfo.getFilterExpr());
+                        }
+                    }
+                }
+            }
+        }
+
+        private void writeConditions(List<RangerPolicyItemCondition> conditions) throws IOException {
+            writeCount(conditions != null ? conditions.size() : -1);
+
+            if (conditions != null) {
+                for (RangerPolicyItemCondition condition : conditions) {
+                    writeString(condition.getType());
+                    writeStrings(condition.getValues());
+                }
+            }
+        }
+
+        private void writeStrings(List<String> values) throws IOException {
+            writeCount(values != null ? values.size() : -1);
+
+            if (values != null) {
+                for (String value : values) {
+                    writeString(value);
+                }
+            }
+        }
+
+        // 0: null, 1: new string followed by its bytes, n + 2: reference to n-th string
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+            } else {
+                Integer idx = strings.get(value);
+
+                if (idx != null) {
+                    writeVarInt(idx + 2);
+                } else {
+                    strings.put(value, strings.size());
+
+                    writeVarInt(1);
+                    writeBytes(value.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        private void writeBytes(byte[] value) throws IOException {
+            writeVarInt(value.length);
+            out.write(value);
+        }
+
+        private void writeBoolean(Boolean value) throws IOException {
+            out.writeByte(value == null ? 0 : (value ? 2 : 1));
+        }
+
+        private void writeInteger(Integer value) throws IOException {
+            out.writeBoolean(value != null);
+
+            if (value != null) {
+                out.writeInt(value);
+            }
+        }
+
+        private void writeLong(Long value) throws IOException {
+            out.writeBoolean(value != null);
+
+            if (value != null) {
+                out.writeLong(value);
+            }
+        }
+
+        private void writeDate(Date value) throws IOException {
+            writeLong(value != null ? value.getTime() : null);
+        }
+
+        // -1 for null collection
+        private void writeCount(int count) throws IOException {
+            writeVarInt(count + 1);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+
+                value >>>= 7;
+            }
+
+            out.writeByte(value);
+        }
+    }
+
+    private static final class Decoder {
+        private final byte[]       bytes;
+        private final List<String> strings = new ArrayList<>();
+        private       int          pos;
+
+        Decoder(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        ServicePolicies readServicePolicies() throws IOException {
+            ServicePolicies ret = JsonUtils.getMapper().readValue(readUtf8(), ServicePolicies.class);
+
+            ret.setPolicies(readPolicies());
+
+            List<RangerPolicy> tagPolicies = readPolicies();
+
+            if (ret.getTagPolicies() != null) {
+                ret.getTagPolicies().setPolicies(tagPolicies);
+            }
+
+            for (int zoneCount = readCount(), i = 0; i < zoneCount; i++) {
+                String                           zoneName = readString();
+                ServicePolicies.SecurityZoneInfo zoneInfo = ret.getSecurityZones() != null ? ret.getSecurityZones().get(zoneName) : null;
+
+                if (zoneInfo == null) {
+                    throw new IOException("policies found for unknown zone " + zoneName);
+                }
+
+                zoneInfo.setPolicies(readPolicies());
+            }
+
+            if (pos != bytes.length) {
+                throw new IOException((bytes.length - pos) + " unexpected bytes at the end of snapshot");
+            }
+
+            return ret;
+        }
+
+        private List<RangerPolicy> readPolicies() throws IOException {
+            int                count = readCount();
+            List<RangerPolicy> ret   = count == -1 ? null : new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                ret.add(readPolicy());
+            }
+
+            return ret;
+        }
+
+        private RangerPolicy readPolicy() throws IOException {
+            RangerPolicy ret = new RangerPolicy();
+
+            ret.setId(readLong());
+            ret.setGuid(readString());
+            ret.setIsEnabled(readBoolean());
+            ret.setCreatedBy(readString());
+            ret.setUpdatedBy(readString());
+            ret.setCreateTime(readDate());
+            ret.setUpdateTime(readDate());
+            ret.setVersion(readLong());
+            ret.setService(readString());
+            ret.setName(readString());
+            ret.setPolicyType(readInteger());
+            ret.setPolicyPriority(readInteger());
+            ret.setDescription(readString());
+            ret.setResourceSignature(readString());
+            ret.setIsAuditEnabled(readBoolean());
+            ret.setResources(readResources());
+
+            int additionalResourcesCount = readCount();
+
+            if (additionalResourcesCount != -1) {
+                List<Map<String, RangerPolicyResource>> additionalResources = new ArrayList<>(additionalResourcesCount);
+
+                for (int i = 0; i < additionalResourcesCount; i++) {
+                    additionalResources.add(readResources());
+                }
+
+                ret.setAdditionalResources(additionalResources);
+            } else {
+                ret.setAdditionalResources(null);
+            }
+
+            ret.setConditions(readConditions());
+            ret.setPolicyItems(readPolicyItems(POLICY_ITEM_TYPE_DEFAULT));
+            ret.setDenyPolicyItems(readPolicyItems(POLICY_ITEM_TYPE_DEFAULT));
+            ret.setAllowExceptions(readPolicyItems(POLICY_ITEM_TYPE_DEFAULT));
+            ret.setDenyExceptions(readPolicyItems(POLICY_ITEM_TYPE_DEFAULT));
+            ret.setDataMaskPolicyItems(readPolicyItems(POLICY_ITEM_TYPE_DATAMASK));
+            ret.setRowFilterPolicyItems(readPolicyItems(POLICY_ITEM_TYPE_ROWFILTER));
+            ret.setServiceType(readString());
+
+            String options           = readString();
+            String validitySchedules = readString();
+
+            ret.setOptions(options != null ? JsonUtils.getMapper().readValue(options, Map.class) : null);
+            ret.setValiditySchedules(validitySchedules != null ? JsonUtils.jsonToRangerValiditySchedule(validitySchedules) : null);
+            ret.setPolicyLabels(readStrings());
+            ret.setZoneName(readString());
+            ret.setIsDenyAllElse(readBoolean());
+
+            return ret;
+        }
+
+        private Map<String, RangerPolicyResource> readResources() throws IOException {
+            int                               count = readCount();
+            Map<String, RangerPolicyResource> ret   = count == -1 ? null : new LinkedHashMap<>();
+
+            for (int i = 0; i < count; i++) {
+                String       resourceName = readString();
+                List<String> values       = readStrings();
+                Boolean      isExcludes   = readBoolean();
+                Boolean      isRecursive  = readBoolean();
+
+                ret.put(resourceName, new RangerPolicyResource(values, isExcludes, isRecursive));
+            }
+
+            return ret;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends RangerPolicyItem> List<T> readPolicyItems(int policyItemType) throws IOException {
+            int count = readCount();
+
+            if (count == -1) {
+                return null;
+            }
+
+            List<RangerPolicyItem> ret = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                List<RangerPolicyItemAccess> accesses    = null;
+                int                          accessCount = readCount();
+
+                if (accessCount != -1) {
+                    accesses = new ArrayList<>(accessCount);
+
+                    for (int j = 0; j < accessCount; j++) {
+                        String  type      = readString();
+                        Boolean isAllowed = readBoolean();
+
+                        accesses.add(new RangerPolicyItemAccess(type, isAllowed));
+                    }
+                }
+
+                List<String>                    users         = readStrings();
+                List<String>                    groups        = readStrings();
+                List<String>                    roles         = readStrings();
+                List<RangerPolicyItemCondition> conditions    = readConditions();
+                Boolean                         delegateAdmin = readBoolean();
+
+                if (policyItemType == POLICY_ITEM_TYPE_DATAMASK) {
+                    RangerPolicyItemDataMaskInfo dataMaskInfo = null;
+
+                    if (readByte() != 0) {
+                        String dataMaskType  = readString();
+                        String conditionExpr = readString();
+                        String valueExpr     = readString();
+
+                        dataMaskInfo = new RangerPolicyItemDataMaskInfo(dataMaskType, conditionExpr, valueExpr);
+                    }
+
+                    ret.add(new RangerDataMaskPolicyItem(accesses, dataMaskInfo, users, groups, roles, conditions, delegateAdmin));
+                } else if (policyItemType == POLICY_ITEM_TYPE_ROWFILTER) {
+                    RangerPolicyItemRowFilterInfo rowFilterInfo = readByte() != 0 ? new RangerPolicyItemRowFilterInfo(readString()) : null;
+
+                    ret.add(new RangerRowFilterPolicyItem(rowFilterInfo, accesses, users, groups, roles, conditions, delegateAdmin));
+                } else {
+                    ret.add(new RangerPolicyItem(accesses, users, groups, roles, conditions, delegateAdmin));
+                }
+            }
+
+            return (List<T>) ret;
+        }
+
+        private List<RangerPolicyItemCondition> readConditions() throws IOException {
+            int                             count = readCount();
+            List<RangerPolicyItemCondition> ret   = count == -1 ? null : new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                String       type   = readString();
+                List<String> values = readStrings();
+
+                ret.add(new RangerPolicyItemCondition(type, values));
+            }
+
+            return ret;
+        }
+
+        private List<String> readStrings() throws IOException {
+            int          count = readCount();
+            List<String> ret   = count == -1 ? null : new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                ret.add(readString());
+            }
+
+            return ret;
+        }
+
+        private String readString() throws IOException {
+            final String ret;
+            final int    ref = readVarInt();
+
+            if (ref == 0) {
+                ret = null;
+            } else if (ref == 1) {
+                ret = readUtf8();
+
+                strings.add(ret);
+            } else {
+                ret = strings.get(ref - 2);
+            }
+
+            return ret;
+        }
+
+        private String readUtf8() throws IOException {
+            int length = readVarInt();
+
+            checkAvailable(length);
+
+            String ret = new String(bytes, pos, length, StandardCharsets.UTF_8);
+
+            pos += length;
+
+            return ret;
+        }
+
+        private Boolean readBoolean() throws IOException {
+            byte value = readByte();
+
+            return value == 0 ? null : (value == 2);
+        }
+
+        private Integer readInteger() throws IOException {
+            if (readByte() == 0) {
+                return null;
+            }
+
+            checkAvailable(4);
+
+            int ret = ((bytes[pos] & 0xFF) << 24) | ((bytes[pos + 1] & 0xFF) << 16) | ((bytes[pos + 2] & 0xFF) << 8) | (bytes[pos + 3] & 0xFF);
+
+            pos += 4;
+
+            return ret;
+        }
+
+        private Long readLong() throws IOException {
+            if (readByte() == 0) {
+                return null;
+            }
+
+            checkAvailable(8);
+
+            long ret = 0;
+
+            for (int i = 0; i < 8; i++) {
+                ret = (ret << 8) | (bytes[pos++] & 0xFF);
+            }
+
+            return ret;
+        }
+
+        private Date readDate() throws IOException {
+            Long value = readLong();
+
+            return value != null ? new Date(value) : null;
+        }
+
+        private int readCount() throws IOException {
+            return readVarInt() - 1;
+        }
+
+        private int readVarInt() throws IOException {
+            int  ret   = 0;
+            int  shift = 0;
+            byte b;
+
+            do {
+                b = readByte();
+
+                ret   |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            return ret;
+        }
+
+        private byte readByte() throws IOException {
+            if (pos >= bytes.length) {
+                throw new IOException("unexpected end of snapshot");
+            }
+
+            return bytes[pos++];
+        }
+
+        private void checkAvailable(int length) throws IOException {
+            if (length < 0 || length > bytes.length - pos) {
+                throw new IOException("unexpected end of snapshot");
+            }
+        }
+    }
+}
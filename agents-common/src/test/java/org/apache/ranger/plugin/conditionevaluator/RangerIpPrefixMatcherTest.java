@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.util.RangerIpPrefixTrie;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RangerIpPrefixMatcherTest {
+    @Test
+    public void testIpv4() {
+        RangerIpPrefixMatcher matcher = createMatcher("10.0.0.0/8", "192.168.1.0/24", "172.16.5.4", "1.2.3.*", "1.3.*", "2.*.*.*");
+
+        for (String ip : new String[] { "10.0.0.0", "10.255.255.255", "192.168.1.17", "172.16.5.4", "1.2.3.4", "1.3.3.4", "2.3.3.4" }) {
+            assertTrue(ip, matcher.isMatched(createRequest(ip)));
+        }
+
+        for (String ip : new String[] { "11.0.0.1", "9.255.255.255", "192.168.2.1", "172.16.5.5", "1.2.4.1", "1.4.3.4", "3.2.3.4" }) {
+            assertFalse(ip, matcher.isMatched(createRequest(ip)));
+        }
+
+        // unlike RangerIpMatcher, invalid addresses don't match
+        for (String ip : new String[] { "1.2.3.123567", "1.2.3..1", "1.2.3.boo", "1.2.3.", "1.2.3.4.5", "10.1.2", "" }) {
+            assertFalse(ip, matcher.isMatched(createRequest(ip)));
+        }
+
+        assertTrue(createMatcher("0.0.0.0/0").isMatched(createRequest("8.8.8.8")));
+        assertFalse(createMatcher("0.0.0.0/0").isMatched(createRequest("2001:db8::1")));
+    }
+
+    @Test
+    public void testIpv6() {
+        RangerIpPrefixMatcher matcher = createMatcher("2001:db8::/32", "fe80::/10", "::1", "a0:b0:c0:*", "A1:*:*");
+
+        for (String ip : new String[] { "2001:db8::1", "2001:DB8:ffff::", "2001:0db8:0:0:0:0:0:1", "fe80::1%eth0", "febf::1", "0:0:0:0:0:0:0:1", "a0:b0:c0:1:2:3:4:5", "a0:b0:c0::", "a1::1" }) {
+            assertTrue(ip, matcher.isMatched(createRequest(ip)));
+        }
+
+        for (String ip : new String[] { "2001:db9::1", "fec0::1", "::2", "::", "a0:b0:c1::", "a2::1" }) {
+            assertFalse(ip, matcher.isMatched(createRequest(ip)));
+        }
+
+        for (String ip : new String[] { "2001:db8:::1", "2001:db8::1::2", "2001:db8:1", ":2001:db8::1", "2001:db8::1:", "2001:db8:12345::", "2001:db8:g::", "1:2:3:4:5:6:7:8:9" }) {
+            assertFalse(ip, matcher.isMatched(createRequest(ip)));
+        }
+
+        // IPv4 address embedded in IPv6 address
+        assertTrue(createMatcher("10.0.0.0/8").isMatched(createRequest("::ffff:10.1.2.3")));
+        assertTrue(createMatcher("::ffff:0:0/96").isMatched(createRequest("::ffff:10.1.2.3")));
+        assertTrue(createMatcher("64:ff9b::/96").isMatched(createRequest("64:ff9b::10.1.2.3")));
+        assertFalse(createMatcher("10.0.0.0/8").isMatched(createRequest("64:ff9b::10.1.2.3")));
+    }
+
+    @Test
+    public void testWildcardsAndInvalidValues() {
+        assertTrue(createMatcher("*").isMatched(createRequest("1.2.3.4")));
+        assertTrue(createMatcher("*.*.*.*").isMatched(createRequest("1.2.3.4")));
+        assertTrue(createMatcher("*:*").isMatched(createRequest("::1")));
+        assertTrue(createMatcher("10.0.0.0/8").isMatched(createRequest(null)));
+
+        // values that are not valid addresses are compared as strings, like in RangerIpMatcher
+        RangerIpPrefixMatcher matcher = createMatcher("1.*.3.4", "10.0.0.0/33", "10.0.0.0/-1", "host1");
+
+        assertTrue(matcher.isMatched(createRequest("1.*.3.4")));
+        assertTrue(matcher.isMatched(createRequest("HOST1")));
+        assertFalse(matcher.isMatched(createRequest("1.1.3.4")));
+        assertFalse(matcher.isMatched(createRequest("10.1.1.1")));
+    }
+
+    @Test
+    public void testAgainstInetAddress() throws Exception {
+        Random random = new Random(12345);
+
+        for (int i = 0; i < 2000; i++) {
+            boolean            isIpv6    = random.nextBoolean();
+            byte[]             prefix    = new byte[isIpv6 ? 16 : 4];
+            byte[]             address   = new byte[prefix.length];
+            int                prefixLen = random.nextInt(prefix.length * 8 + 1);
+            RangerIpPrefixTrie trie      = new RangerIpPrefixTrie();
+
+            random.nextBytes(prefix);
+            random.nextBytes(address);
+
+            // half the addresses share the prefix
+            if (random.nextBoolean()) {
+                for (int bit = 0; bit < prefixLen; bit++) {
+                    setBit(address, bit, getBit(prefix, bit));
+                }
+            }
+
+            String strPrefix  = InetAddress.getByAddress(prefix).getHostAddress() + "/" + prefixLen;
+            String strAddress = InetAddress.getByAddress(address).getHostAddress();
+            int    bit        = 0;
+
+            while (bit < prefixLen && getBit(prefix, bit) == getBit(address, bit)) {
+                bit++;
+            }
+
+            assertTrue(strPrefix, trie.addPrefix(strPrefix));
+            assertEquals(strPrefix + " " + strAddress, bit == prefixLen, trie.isMatched(strAddress));
+        }
+    }
+
+    private static int getBit(byte[] bytes, int bit) {
+        return (bytes[bit / 8] >> (7 - (bit % 8))) & 1;
+    }
+
+    private static void setBit(byte[] bytes, int bit, int value) {
+        int mask = 1 << (7 - (bit % 8));
+
+        bytes[bit / 8] = (byte) (value == 1 ? (bytes[bit / 8] | mask) : (bytes[bit / 8] & ~mask));
+    }
+
+    private static RangerIpPrefixMatcher createMatcher(String... values) {
+        RangerIpPrefixMatcher matcher = new RangerIpPrefixMatcher();
+
+        matcher.setPolicyItemCondition(new RangerPolicyItemCondition("ip-range", Arrays.asList(values)));
+        matcher.init();
+
+        return matcher;
+    }
+
+    private static RangerAccessRequest createRequest(String clientIp) {
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(null, "select", "user1", Collections.emptySet(), null);
+
+        request.setClientIPAddress(clientIp);
+
+        return request;
+    }
+}
@@ -27,12 +27,15 @@
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.hadoop.thirdparty.com.google.common.collect.Lists;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -266,4 +269,40 @@ public void test_end2end_happyPath_12_oClock() {
 			}
 		}
 	}
+
+	@Test
+	public void test_matchWindow_acrossDaylightSavingTimeChanges() {
+		TimeZone defaultTZ = TimeZone.getDefault();
+
+		try {
+			// daylight saving time starts on 2015-03-08 02:00 and ends on 2015-11-01 02:00
+			TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+
+			RangerTimeOfDayMatcher matcher = new RangerTimeOfDayMatcher();
+			matcher.setConditionDef(null);
+			matcher.setPolicyItemCondition(new RangerPolicyItemCondition("time", Arrays.asList("1:30am-2:30am", "9:15AM-5:30PM", "11pm-12:15am")));
+			matcher.init();
+
+			RangerAccessRequestImpl request = new RangerAccessRequestImpl();
+			Random random = new Random(12345);
+			long[][] periods = new long[][] {
+					{ new GregorianCalendar(2015, Calendar.MARCH, 7).getTimeInMillis(), new GregorianCalendar(2015, Calendar.MARCH, 10).getTimeInMillis() },
+					{ new GregorianCalendar(2015, Calendar.OCTOBER, 31).getTimeInMillis(), new GregorianCalendar(2015, Calendar.NOVEMBER, 3).getTimeInMillis() },
+			};
+
+			for (long[] period : periods) {
+				for (long accessTime = period[0]; accessTime < period[1]; accessTime += random.nextInt(120 * 1000)) {
+					Calendar c = new GregorianCalendar();
+					c.setTimeInMillis(accessTime);
+					request.setAccessTime(c.getTime());
+
+					// the match result is reused from earlier evaluations till it might change; it must be same as on evaluating the durations
+					boolean matchExpected = matcher.durationMatched(matcher._durations, c.get(Calendar.HOUR_OF_DAY), c.get(Calendar.MINUTE));
+					Assert.assertEquals(c.getTime().toString(), matchExpected, matcher.isMatched(request));
+				}
+			}
+		} finally {
+			TimeZone.setDefault(defaultTZ);
+		}
+	}
 }
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.contextenricher;
+
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestRangerUserStoreEnricher {
+    @Test
+    public void testDeltasWithoutUserStore() {
+        RangerUserStoreEnricher enricher = new RangerUserStoreEnricher();
+
+        enricher.setRangerUserStore(createDeltas(2L, "user1", "sales"));
+
+        assertNull(enricher.getRangerUserStore());
+
+        RangerUserStore userStore = new RangerUserStore();
+
+        userStore.setUserStoreVersion(1L);
+        userStore.setIsDelta(false);
+        userStore.setUserAttrMapping(Collections.singletonMap("user1", Collections.singletonMap("dept", "eng")));
+
+        enricher.setRangerUserStore(userStore);
+        enricher.setRangerUserStore(createDeltas(2L, "user1", "sales"));
+
+        assertEquals(Long.valueOf(2L), enricher.getUserStoreVersion());
+        assertEquals(Collections.singletonMap("dept", "sales"), enricher.getRangerUserStore().getUserAttrMapping().get("user1"));
+    }
+
+    private static RangerUserStore createDeltas(Long version, String userName, String dept) {
+        RangerUserStore ret = new RangerUserStore();
+
+        ret.setUserStoreVersion(version);
+        ret.setIsDelta(true);
+        ret.setUserAttrMapping(Collections.singletonMap(userName, Collections.singletonMap("dept", dept)));
+        ret.setUserGroupMapping(Collections.emptyMap());
+        ret.setGroupAttrMapping(Collections.emptyMap());
+        ret.setDeletedUsers(Collections.emptySet());
+        ret.setDeletedGroups(Collections.emptySet());
+
+        return ret;
+    }
+}
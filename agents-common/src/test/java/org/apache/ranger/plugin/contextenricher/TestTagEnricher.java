@@ -25,7 +25,10 @@
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher.EnrichedServiceTags;
 import org.apache.ranger.plugin.contextenricher.TestTagEnricher.TagEnricherTestCase.TestData;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.model.RangerTag;
@@ -34,21 +37,28 @@
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher.MatchType;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerBoundedCache;
 import org.apache.ranger.plugin.util.ServiceTags;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class TestTagEnricher {
@@ -94,65 +104,291 @@ public void testTagEnricher_hive() {
         runTestsFromResourceFiles(hiveTestResourceFiles);
     }
 
+    @Test
+    public void testTagEnricher_hive_cachedEvaluators() {
+        String            resourceName = "/contextenricher/test_tagenricher_hive.json";
+        RangerTagEnricher tagEnricher  = runTests(new InputStreamReader(this.getClass().getResourceAsStream(resourceName)), resourceName, 3, null);
+
+        RangerBoundedCache.Stats stats = tagEnricher.getResourceEvaluatorsCacheStats();
+
+        // lookups in the 2nd and 3rd passes are served from the cache
+        assertTrue(stats.toString(), stats.getSize() > 0);
+        assertEquals(stats.toString(), 2 * stats.getMissCount(), stats.getHitCount());
+
+        // cached evaluators are dropped when service-tags are updated
+        ServiceTags serviceTags = tagEnricher.getEnrichedServiceTags().getServiceTags();
+
+        serviceTags.setTagVersion(serviceTags.getTagVersion() != null ? serviceTags.getTagVersion() + 1 : 1L);
+
+        tagEnricher.setServiceTags(serviceTags);
+
+        assertEquals(0, tagEnricher.getResourceEvaluatorsCacheStats().getSize());
+    }
+
+    @Test
+    public void testTagEnricher_hive_offHeapStore() throws Exception {
+        String resourceName = "/contextenricher/test_tagenricher_hive.json";
+        File   storeDir     = Files.createTempDirectory("ranger-tag-store").toFile();
+
+        RangerTagEnricher heapEnricher     = runTests(new InputStreamReader(this.getClass().getResourceAsStream(resourceName)), resourceName, 1, null);
+        List<String>      tagsForAnyAccess = getTags(heapEnricher, heapEnricher.getServiceDef(), resource(), RangerPolicyEngine.ANY_ACCESS);
+
+        assertEquals(5, tagsForAnyAccess.size());
+        assertTrue(tagsForAnyAccess.stream().allMatch(tag -> tag.endsWith(":DESCENDANT")));
+
+        try {
+            for (File dir : new File[] { null, storeDir }) { // direct buffers, memory-mapped files
+                RangerTagEnricher   tagEnricher = runTests(new InputStreamReader(this.getClass().getResourceAsStream(resourceName)), resourceName, 2, createPluginContext(true, dir));
+                EnrichedServiceTags enriched    = tagEnricher.getEnrichedServiceTags();
+
+                assertNotNull(enriched.getTagStore());
+
+                // tags for empty resource and any access: created once, without replacing tags cached for matched resources
+                int tagCacheSize = enriched.getTagStore().getTagCacheStats().getSize();
+
+                assertEquals(tagsForAnyAccess, getTags(tagEnricher, tagEnricher.getServiceDef(), resource(), RangerPolicyEngine.ANY_ACCESS));
+                assertSame(enriched.getTagsForEmptyResourceAndAnyAccess(), enriched.getTagsForEmptyResourceAndAnyAccess());
+                assertEquals(tagCacheSize, enriched.getTagStore().getTagCacheStats().getSize());
+
+                assertEquals(6, enriched.getTagStore().getResourceCount());
+                assertEquals(5, enriched.getServiceTags().getTags().size());
+                assertEquals("PCI", enriched.getServiceTags().getTags().get(5L).getType());
+                assertEquals(Arrays.asList(1L, 4L), enriched.getServiceTags().getResourceToTagIds().get(4L));
+                assertTrue(enriched.getServiceResourceMatchers().get(0) instanceof RangerOffHeapTagStore.StoredResourceMatcher);
+            }
+
+            assertEquals(0, storeDir.list().length); // files of memory-mapped segments are deleted after they are mapped
+        } finally {
+            storeDir.delete();
+        }
+    }
+
+    @Test
+    public void testTagEnricher_hive_offHeapStoreDeltas() {
+        String              resourceName  = "/contextenricher/test_tagenricher_hive.json";
+        TagEnricherTestCase testCase      = gsonBuilder.fromJson(new InputStreamReader(this.getClass().getResourceAsStream(resourceName)), TagEnricherTestCase.class);
+        RangerTagEnricher   heapEnricher  = createTagEnricher(testCase, createPluginContext(false, null));
+        RangerTagEnricher   storeEnricher = createTagEnricher(testCase, createPluginContext(true, null));
+
+        heapEnricher.setServiceTags(createServiceTags(testCase));
+        storeEnricher.setServiceTags(createServiceTags(testCase));
+
+        heapEnricher.setServiceTags(createDeltas(testCase));
+        storeEnricher.setServiceTags(createDeltas(testCase));
+
+        List<Map<String, Object>> resources = Arrays.asList(resource(), resource("database", "finance"), resource("database", "finance", "table", "tax_2010"),
+                                                            resource("database", "finance", "table", "tax_2010", "column", "ssn"), resource("database", "hr"),
+                                                            resource("database", "hr", "table", "employee", "column", "ssn"), resource("database", "hr", "table", "employee", "column", "name"),
+                                                            resource("url", "someurl"));
+
+        for (Map<String, Object> resource : resources) {
+            for (String accessType : new String[] { "", "read" }) {
+                List<String> expected = getTags(heapEnricher, testCase.serviceDef, resource, accessType);
+                List<String> actual   = getTags(storeEnricher, testCase.serviceDef, resource, accessType);
+
+                assertEquals(resource + ", accessType=" + accessType, expected, actual);
+            }
+        }
+
+        assertEquals(getTags(heapEnricher, testCase.serviceDef, resource("database", "hr", "table", "employee", "column", "name"), "read"), Collections.singletonList("PCI:SELF"));
+
+        ServiceTags expected = heapEnricher.getEnrichedServiceTags().getServiceTags();
+        ServiceTags actual   = storeEnricher.getEnrichedServiceTags().getServiceTags();
+
+        assertEquals(Long.valueOf(2L), actual.getTagVersion());
+        assertEquals(expected.getTags(), actual.getTags());
+        assertEquals(expected.getResourceToTagIds(), actual.getResourceToTagIds());
+        assertEquals(getResourceElements(expected.getServiceResources()), getResourceElements(actual.getServiceResources()));
+    }
+
     private void runTestsFromResourceFiles(String[] resourceNames) {
         for(String resourceName : resourceNames) {
             InputStream       inStream = this.getClass().getResourceAsStream(resourceName);
             InputStreamReader reader   = new InputStreamReader(inStream);
 
-            runTests(reader, resourceName);
+            runTests(reader, resourceName, 1, null);
         }
     }
 
-    private void runTests(InputStreamReader reader, String testName) {
+    private RangerTagEnricher runTests(InputStreamReader reader, String testName, int passCount, RangerPluginContext pluginContext) {
         TagEnricherTestCase testCase = gsonBuilder.fromJson(reader, TagEnricherTestCase.class);
 
         assertTrue("invalid input: " + testName, testCase != null && testCase.serviceDef != null && testCase.serviceResources != null && testCase.tests != null);
 
-        ServiceTags serviceTags = new ServiceTags();
-        serviceTags.setServiceName(testCase.serviceName);
-        serviceTags.setTagDefinitions(testCase.tagDefinitions);
-        serviceTags.setTags(testCase.tags);
-        serviceTags.setServiceResources(testCase.serviceResources);
-        serviceTags.setResourceToTagIds(testCase.resourceToTagIds);
+        ServiceTags serviceTags = createServiceTags(testCase);
 
-        RangerTagEnricher tagEnricher = new RangerTagEnricher();
+        RangerTagEnricher tagEnricher = createTagEnricher(testCase, pluginContext);
 
-        tagEnricher.setServiceName(testCase.serviceName);
-        tagEnricher.setServiceDef(testCase.serviceDef);
-        tagEnricher.init();
         tagEnricher.setServiceTags(serviceTags);
 
         List<String> expectedTags = new ArrayList<>();
         List<String> resultTags   = new ArrayList<>();
 
-        for (TestData test : testCase.tests) {
-            RangerAccessRequestImpl request = new RangerAccessRequestImpl(test.resource, test.accessType, "testUser", null, null);
+        for (int pass = 0; pass < passCount; pass++) {
+            for (TestData test : testCase.tests) {
+                RangerAccessRequestImpl request = new RangerAccessRequestImpl(test.resource, test.accessType, "testUser", null, null);
 
-            ((RangerMutableResource)request.getResource()).setServiceDef(testCase.serviceDef);
-            tagEnricher.enrich(request);
+                ((RangerMutableResource)request.getResource()).setServiceDef(testCase.serviceDef);
+                tagEnricher.enrich(request);
 
-            List<RangerTag> expected = test.result;
+                List<RangerTag> expected = test.result;
 
-            Set<RangerTagForEval> result   = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+                Set<RangerTagForEval> result   = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
 
-            expectedTags.clear();
-            if(expected != null) {
-                for (RangerTag tag : expected) {
-                    expectedTags.add(tag.getType());
+                expectedTags.clear();
+                if(expected != null) {
+                    for (RangerTag tag : expected) {
+                        expectedTags.add(tag.getType());
+                    }
+                    Collections.sort(expectedTags);
                 }
-                Collections.sort(expectedTags);
-            }
 
-            resultTags.clear();
-            if(result != null) {
-                for(RangerTagForEval tag : result) {
-                    resultTags.add(tag.getType());
+                resultTags.clear();
+                if(result != null) {
+                    for(RangerTagForEval tag : result) {
+                        resultTags.add(tag.getType());
+                    }
+                    Collections.sort(resultTags);
                 }
-                Collections.sort(resultTags);
+
+                assertEquals(test.name, expectedTags, resultTags);
+            }
+        }
+
+        return tagEnricher;
+    }
+
+    private static RangerTagEnricher createTagEnricher(TagEnricherTestCase testCase, RangerPluginContext pluginContext) {
+        RangerTagEnricher ret = new RangerTagEnricher();
+
+        ret.setServiceName(testCase.serviceName);
+        ret.setServiceDef(testCase.serviceDef);
+
+        if (pluginContext != null) {
+            ret.setPluginContext(pluginContext);
+        }
+
+        ret.init();
+
+        return ret;
+    }
+
+    private static RangerPluginContext createPluginContext(boolean useOffHeapTagStore, File storeDir) {
+        RangerPluginConfig config = new RangerPluginConfig("hive", "cl1_hive", "test-tag-enricher", "cl1", "on-prem", new RangerPolicyEngineOptions());
+
+        config.setBoolean(config.getPropertyPrefix() + ".tag.enricher.offheap.store", useOffHeapTagStore);
+
+        if (storeDir != null) {
+            config.set(config.getPropertyPrefix() + ".tag.enricher.offheap.store.dir", storeDir.getAbsolutePath());
+        }
+
+        return new RangerPluginContext(config);
+    }
+
+    // each call returns new instances, as the enricher updates the service-tags it receives
+    private static ServiceTags createServiceTags(TagEnricherTestCase testCase) {
+        ServiceTags ret = new ServiceTags();
+
+        ret.setServiceName(testCase.serviceName);
+        ret.setTagVersion(1L);
+        ret.setTagDefinitions(new HashMap<>(testCase.tagDefinitions));
+        ret.setTags(new HashMap<>(testCase.tags));
+        ret.setServiceResources(new ArrayList<>());
+        ret.setResourceToTagIds(new HashMap<>(testCase.resourceToTagIds));
+
+        for (RangerServiceResource resource : testCase.serviceResources) {
+            ret.getServiceResources().add(new RangerServiceResource(resource.getGuid(), resource.getServiceName(), resource.getResourceElements(), resource.getResourceSignature()));
+            ret.getServiceResources().get(ret.getServiceResources().size() - 1).setId(resource.getId());
+        }
+
+        return ret;
+    }
+
+    // removes tag 2 and resource 4, updates tags of resource 2, adds resource 7 with a new tag
+    private static ServiceTags createDeltas(TagEnricherTestCase testCase) {
+        ServiceTags                 ret              = new ServiceTags();
+        Map<Long, RangerTag>        tags             = new HashMap<>();
+        List<RangerServiceResource> serviceResources = new ArrayList<>();
+        Map<Long, List<Long>>       resourceToTagIds = new HashMap<>();
+        RangerServiceResource       deleted          = new RangerServiceResource();
+        RangerServiceResource       updated          = new RangerServiceResource(null, testCase.serviceName, testCase.serviceResources.get(1).getResourceElements(), "sig-2");
+        RangerServiceResource       added            = new RangerServiceResource(null, testCase.serviceName, toResourceElements(resource("database", "hr", "table", "employee", "column", "name")), "sig-7");
+
+        deleted.setId(4L);
+        updated.setId(2L);
+        added.setId(7L);
+
+        tags.put(2L, new RangerTag());
+        tags.put(6L, new RangerTag("PCI", null));
+
+        serviceResources.add(deleted);
+        serviceResources.add(updated);
+        serviceResources.add(added);
+
+        resourceToTagIds.put(2L, Arrays.asList(3L, 5L));
+        resourceToTagIds.put(7L, Collections.singletonList(6L));
+
+        ret.setServiceName(testCase.serviceName);
+        ret.setTagVersion(2L);
+        ret.setIsDelta(true);
+        ret.setTagsChangeExtent(ServiceTags.TagsChangeExtent.SERVICE_RESOURCE);
+        ret.setTagDefinitions(new HashMap<>());
+        ret.setTags(tags);
+        ret.setServiceResources(serviceResources);
+        ret.setResourceToTagIds(resourceToTagIds);
+
+        return ret;
+    }
+
+    private static Map<String, Object> resource(String... namesAndValues) {
+        Map<String, Object> ret = new HashMap<>();
+
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            ret.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+
+        return ret;
+    }
+
+    private static Map<String, RangerPolicyResource> toResourceElements(Map<String, Object> resource) {
+        Map<String, RangerPolicyResource> ret = new HashMap<>();
+
+        resource.forEach((k, v) -> ret.put(k, new RangerPolicyResource((String) v)));
+
+        return ret;
+    }
+
+    private static List<String> getTags(RangerTagEnricher tagEnricher, RangerServiceDef serviceDef, Map<String, Object> resource, String accessType) {
+        RangerAccessResourceImpl accessResource = new RangerAccessResourceImpl(resource);
+
+        accessResource.setServiceDef(serviceDef);
+
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(accessResource, accessType, "testUser", null, null);
+
+        tagEnricher.enrich(request);
+
+        List<String>          ret  = new ArrayList<>();
+        Set<RangerTagForEval> tags = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+
+        if (tags != null) {
+            for (RangerTagForEval tag : tags) {
+                ret.add(tag.getType() + (tag.getAttributes() != null && !tag.getAttributes().isEmpty() ? tag.getAttributes().toString() : "") + ":" + tag.getMatchType());
             }
+        }
 
-            assertEquals(test.name, expectedTags, resultTags);
+        Collections.sort(ret);
+
+        return ret;
+    }
+
+    private static Map<Long, Map<String, RangerPolicyResource>> getResourceElements(List<RangerServiceResource> serviceResources) {
+        Map<Long, Map<String, RangerPolicyResource>> ret = new HashMap<>();
+
+        for (RangerServiceResource resource : serviceResources) {
+            ret.put(resource.getId(), resource.getResourceElements());
         }
+
+        return ret;
     }
 
     static class TagEnricherTestCase {
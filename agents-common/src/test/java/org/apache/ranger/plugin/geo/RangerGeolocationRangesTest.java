@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.geo;
+
+import org.apache.ranger.plugin.store.file.GeolocationFileStore;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RangerGeolocationRangesTest {
+    private static final String[] ATTRIBUTE_NAMES = { "COUNTRY_CODE", "COUNTRY_NAME", "CITY" };
+
+    @Test
+    public void testFind() {
+        RangerGeolocationRanges ranges = createRanges();
+
+        assertEquals(3, ranges.getIpv4RangeCount());
+        assertEquals(2, ranges.getIpv6RangeCount());
+        assertEquals(4, ranges.getLocationCount());
+        assertEquals(9, ranges.getDictionarySize());
+
+        verifyRanges(ranges);
+    }
+
+    @Test
+    public void testWriteAndLoad() throws IOException {
+        RangerGeolocationRanges ranges = createRanges();
+        File                    file   = File.createTempFile("geo", ".bin");
+
+        try {
+            try (OutputStream out = new FileOutputStream(file)) {
+                ranges.writeTo(out);
+            }
+
+            RangerGeolocationRanges mapped = RangerGeolocationRanges.load(file, true);
+            RangerGeolocationRanges inHeap = RangerGeolocationRanges.load(file, false);
+
+            assertTrue(mapped.isMemoryMapped());
+            assertFalse(inHeap.isMemoryMapped());
+
+            verifyRanges(mapped);
+            verifyRanges(inHeap);
+            verifyRanges(createStore(file.getAbsolutePath(), GeolocationFileStore.PROP_GEOLOCATION_FILE_FORMAT, GeolocationFileStore.FILE_FORMAT_BINARY).getGeoDatabase().getRanges());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            ranges.writeTo(out);
+
+            verifyRanges(RangerGeolocationRanges.load(new ByteArrayInputStream(out.toByteArray())));
+
+            try {
+                RangerGeolocationRanges.load(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+
+                fail("load() should fail for invalid content");
+            } catch (IOException excp) {
+                // expected
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testCompactStoreMatchesTreeStore() {
+        GeolocationFileStore treeStore    = createStore("/etc/ranger/geo/geo.txt", GeolocationFileStore.PROP_GEOLOCATION_USE_COMPACT_STORE, "false");
+        GeolocationFileStore compactStore = createStore("/etc/ranger/geo/geo.txt", GeolocationFileStore.PROP_GEOLOCATION_USE_COMPACT_STORE, "true");
+
+        assertNull(treeStore.getGeoDatabase().getRanges());
+        assertNotNull(compactStore.getGeoDatabase().getRanges());
+        assertArrayEquals(treeStore.getGeoDatabase().getMetadata().getLocationDataItemNames(), compactStore.getGeoDatabase().getMetadata().getLocationDataItemNames());
+
+        Random random = new Random(12345);
+
+        for (int i = 0; i < 20000; i++) {
+            String                ip          = (i % 2 == 0 ? random.nextInt(256) : (i % 4 == 1 ? 1 : 20)) + "." + (i % 4 == 3 ? 0 : random.nextInt(256)) + "." + random.nextInt(256) + "." + random.nextInt(256);
+            RangerGeolocationData treeData    = treeStore.getGeoLocation(ip);
+            RangerGeolocationData compactData = compactStore.getGeoLocation(ip);
+
+            assertEquals(ip, treeData == null, compactData == null);
+
+            if (treeData != null) {
+                assertArrayEquals(ip, treeData.getLocationData(), compactData.getLocationData());
+            }
+        }
+    }
+
+    @Test
+    public void testCompactStoreIsOptIn() {
+        GeolocationFileStore store = createStore("/etc/ranger/geo/geo.txt", GeolocationFileStore.PROP_GEOLOCATION_FILE_REINIT, "true");
+
+        assertNull(store.getGeoDatabase().getRanges());
+        assertNotNull(store.getGeoLocation("20.0.100.85"));
+    }
+
+    @Test
+    public void testConvertToBinaryFile() throws Exception {
+        File csvFile    = File.createTempFile("geo", ".txt");
+        File binaryFile = File.createTempFile("geo", ".bin");
+
+        try {
+            writeCsv(csvFile, "200.0.0.0,255.255.255.255,FR", "10.0.0.0,10.0.0.255,US", "2001:db8::,2001:db8:ffff:ffff:ffff:ffff:ffff:ffff,IN");
+
+            RangerGeolocationRanges ranges = RangerGeolocationFileConverter.convert(csvFile.getAbsolutePath(), binaryFile, true);
+            GeolocationFileStore    store  = createStore(binaryFile.getAbsolutePath(), GeolocationFileStore.PROP_GEOLOCATION_FILE_FORMAT, GeolocationFileStore.FILE_FORMAT_BINARY);
+
+            assertEquals(2, ranges.getIpv4RangeCount());
+            assertEquals(1, ranges.getIpv6RangeCount());
+            assertEquals("US", store.getGeoLocation("10.0.0.1").getLocationData()[0]);
+            assertEquals("FR", store.getGeoLocation("200.1.2.3").getLocationData()[0]);
+            assertEquals("IN", store.getGeoLocation("2001:db8::1").getLocationData()[0]);
+            assertNull(store.getGeoLocation("10.0.1.1"));
+
+            // overlapping ranges are rejected, leaving the existing binary file as is
+            long binaryFileLength = binaryFile.length();
+
+            writeCsv(csvFile, "10.0.0.0,10.0.0.255,US", "10.0.0.128,10.0.1.255,FR");
+
+            try {
+                RangerGeolocationFileConverter.convert(csvFile.getAbsolutePath(), binaryFile, true);
+
+                fail("expected conversion to fail for overlapping ranges");
+            } catch (IOException excp) {
+                // expected
+            }
+
+            assertEquals(binaryFileLength, binaryFile.length());
+            assertFalse(new File(binaryFile.getAbsolutePath() + ".tmp").exists());
+        } finally {
+            csvFile.delete();
+            binaryFile.delete();
+        }
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        File file = File.createTempFile("geo", ".txt");
+
+        try {
+            writeCsv(file, "10.0.0.0,10.0.0.255,US");
+
+            GeolocationFileStore store = createStore(file.getAbsolutePath(), GeolocationFileStore.PROP_GEOLOCATION_RELOAD_INTERVAL_SECONDS, "1");
+
+            try {
+                assertEquals("US", store.getGeoLocation("10.0.0.1").getLocationData()[0]);
+
+                writeCsv(file, "10.0.0.0,10.0.0.255,FR");
+                file.setLastModified(file.lastModified() + 5000);
+
+                for (int i = 0; i < 50 && "US".equals(store.getGeoLocation("10.0.0.1").getLocationData()[0]); i++) {
+                    Thread.sleep(100);
+                }
+
+                assertEquals("FR", store.getGeoLocation("10.0.0.1").getLocationData()[0]);
+            } finally {
+                store.cleanup();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void verifyRanges(RangerGeolocationRanges ranges) {
+        assertArrayEquals(ATTRIBUTE_NAMES, ranges.getAttributeNames());
+
+        assertLocation(ranges, "10.0.0.0", "US", "United States", "Santa Clara");
+        assertLocation(ranges, "10.0.0.255", "US", "United States", "Santa Clara");
+        assertLocation(ranges, "10.0.1.0", "US", "United States");
+        assertLocation(ranges, "200.1.2.3", "FR", "France", "Paris");
+        assertLocation(ranges, "255.255.255.255", "FR", "France", "Paris");
+        assertLocation(ranges, "::ffff:10.0.0.1", "US", "United States", "Santa Clara");
+        assertLocation(ranges, "2001:db8::1", "IN", "India", "Bengaluru");
+        assertLocation(ranges, "2001:0db8:ffff:ffff:ffff:ffff:ffff:ffff", "IN", "India", "Bengaluru");
+        assertLocation(ranges, "ffff::1", "FR", "France", "Paris");
+        assertLocation(ranges, "fe80::1%eth0", "FR", "France", "Paris");
+
+        for (String ip : new String[] { "9.255.255.255", "10.0.2.0", "199.255.255.255", "2001:db9::", "fd00::", "::1", "10.0.0", "host1", "", null }) {
+            assertEquals(String.valueOf(ip), -1, ranges.findLocation(ip));
+            assertNull(String.valueOf(ip), ranges.find(ip));
+        }
+    }
+
+    private static void assertLocation(RangerGeolocationRanges ranges, String ip, String... expected) {
+        int location = ranges.findLocation(ip);
+
+        assertNotEquals(ip, -1, location);
+        assertArrayEquals(ip, expected, ranges.getLocationData(location));
+        assertArrayEquals(ip, expected, ranges.find(ip).getLocationData());
+        assertEquals(ip, expected[0], ranges.getValue(location, 0));
+    }
+
+    private static RangerGeolocationRanges createRanges() {
+        RangerGeolocationRanges.Builder builder = new RangerGeolocationRanges.Builder(ATTRIBUTE_NAMES);
+
+        // added out of order; values beyond the attributes are ignored
+        assertTrue(builder.addRange("200.0.0.0", "255.255.255.255", new String[] { "FR", "France", "Paris", "extra" }));
+        assertTrue(builder.addRange("10.0.1.0", "10.0.1.255", new String[] { "US", "United States" }));
+        assertTrue(builder.addIpv4Range(0x0a000000L, 0x0a0000ffL, new String[] { "US", "United States", "Santa Clara" }));
+        assertTrue(builder.addRange("fe00::", "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff", new String[] { "FR", "France", "Paris" }));
+        assertTrue(builder.addRange("2001:db8::", "2001:db8:ffff:ffff:ffff:ffff:ffff:ffff", new String[] { "IN", "India", "Bengaluru" }));
+
+        assertFalse(builder.addRange("10.0.3.0", "10.0.2.0", new String[] { "US" }));
+        assertFalse(builder.addRange("10.0.3.0", "10.0.3", new String[] { "US" }));
+        assertFalse(builder.addRange("2001:db9::", "2001:db8::", new String[] { "US" }));
+        assertFalse(builder.addIpv4Range(-1, 10, new String[] { "US" }));
+        assertFalse(builder.addIpv4Range(0, 0x100000000L, new String[] { "US" }));
+
+        return builder.build();
+    }
+
+    private static GeolocationFileStore createStore(String filePath, String optionName, String optionValue) {
+        Map<String, String> context = new HashMap<>();
+
+        context.put(GeolocationFileStore.PROP_GEOLOCATION_FILE_LOCATION, filePath);
+        context.put(optionName, optionValue);
+
+        GeolocationFileStore store = new GeolocationFileStore();
+
+        store.init(context);
+
+        return store;
+    }
+
+    private static void writeCsv(File file, String... lines) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("FROM_IP,TO_IP,COUNTRY_CODE\n");
+
+            for (String line : lines) {
+                writer.write(line);
+                writer.write("\n");
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@
 import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -37,6 +38,8 @@
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 
 public class TestPathResourceTrie {
@@ -68,6 +71,10 @@ public class TestPathResourceTrie {
 																						EVAL_TMPA_B
 																						);
 
+	private static final List<String> RESOURCES = Arrays.asList("/", "/home", "/home/", "/HOME/", "/tmp", "/tmp/", "/tmp/a", "/tmp/ab", "/TMP/AB", "/tmp/a/b",
+	                                                            "/tmp/ac", "/tmp/ac/d", "/tmp/ac/d/e", "/tmp/ac/d/e/f", "/tmpfile", "/tmp.txt", "/tmpa", "/tmpa/b",
+	                                                            "/unmatched", "invalid: does-not-begin-with-sep");
+
 	private final RangerResourceTrie<RangerResourceEvaluator> trie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS);
 
 	@Test
@@ -115,6 +122,132 @@ public void testSelfScope() {
 		verifyEvaluators("invalid: does-not-begin-with-sep", scope);
 	}
 
+	@Test
+	public void testCompactedTrie() {
+		RangerResourceTrie<RangerResourceEvaluator> compactTrie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, true, false, true, null);
+
+		assertTrue("trie should be compacted", compactTrie.isCompacted());
+
+		verifySameEvaluators(trie, compactTrie);
+
+		RangerResourceTrie<RangerResourceEvaluator> copyTrie = new RangerResourceTrie<>(compactTrie);
+
+		assertTrue("copy of a compacted trie should be compacted", copyTrie.isCompacted());
+
+		verifySameEvaluators(trie, copyTrie);
+	}
+
+	@Test
+	public void testCompactedTrieUpdates() {
+		RangerResourceTrie<RangerResourceEvaluator> updatedTrie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, true, false, false, null);
+		RangerResourceTrie<RangerResourceEvaluator> compactTrie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, true, false, true, null);
+		RangerResourceEvaluator                     evalTmpAcX  = getEvaluator("/tmp/ac/x");
+
+		for (RangerResourceTrie<RangerResourceEvaluator> resourceTrie : Arrays.asList(updatedTrie, compactTrie)) {
+			resourceTrie.delete(EVAL_TMP_AB.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), EVAL_TMP_AB);
+			resourceTrie.delete(EVAL_TMPA_B.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), EVAL_TMPA_B);
+			resourceTrie.add(evalTmpAcX.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), evalTmpAcX);
+			resourceTrie.wrapUpUpdate();
+		}
+
+		assertFalse("trie should be expanded on update", compactTrie.isCompacted());
+
+		verifySameEvaluators(updatedTrie, compactTrie);
+
+		compactTrie.compact();
+
+		assertTrue("trie should be compacted", compactTrie.isCompacted());
+
+		verifySameEvaluators(updatedTrie, compactTrie);
+	}
+
+	@Test
+	public void testPathCopiedTrieUpdates() {
+		RangerResourceTrie<RangerResourceEvaluator> baseTrie     = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, false, false, null);
+		RangerResourceTrie<RangerResourceEvaluator> expectedBase = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, false, false, null);
+
+		verifySameEvaluators(expectedBase, baseTrie); // lookups setup nodes of baseTrie, which are then shared with the path-copied trie
+
+		RangerResourceTrie<RangerResourceEvaluator> fullCopy   = new RangerResourceTrie<>(baseTrie);
+		RangerResourceTrie<RangerResourceEvaluator> pathCopy   = new RangerResourceTrie<>(baseTrie, true);
+		RangerResourceEvaluator                     evalTmpAcX = getEvaluator("/tmp/ac/x");
+		RangerResourceEvaluator                     evalTmp_   = getEvaluator("/tmp/*");
+		RangerResourceEvaluator                     evalTmnr   = getEvaluator("/tm", false, false);
+
+		for (RangerResourceTrie<RangerResourceEvaluator> resourceTrie : Arrays.asList(fullCopy, pathCopy)) {
+			resourceTrie.delete(EVAL_TMP_AB.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), EVAL_TMP_AB);
+			resourceTrie.delete(EVAL_TMPnr.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), EVAL_TMPnr);
+			resourceTrie.add(evalTmpAcX.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), evalTmpAcX);
+			resourceTrie.add(evalTmp_.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), evalTmp_);
+			resourceTrie.add(evalTmnr.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), evalTmnr);
+			resourceTrie.wrapUpUpdate();
+		}
+
+		verifySameEvaluators(fullCopy, pathCopy);
+		verifySameEvaluators(expectedBase, baseTrie);
+
+		// copy of a path-copied trie, with updates to wildcard-evaluators of nodes near root
+		RangerResourceTrie<RangerResourceEvaluator> fullCopy2 = new RangerResourceTrie<>(fullCopy);
+		RangerResourceTrie<RangerResourceEvaluator> pathCopy2 = new RangerResourceTrie<>(pathCopy, true);
+
+		for (RangerResourceTrie<RangerResourceEvaluator> resourceTrie : Arrays.asList(fullCopy2, pathCopy2)) {
+			resourceTrie.delete(EVAL_.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), EVAL_);
+			resourceTrie.delete(evalTmp_.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), evalTmp_);
+			resourceTrie.add(EVAL_TMP_AB.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), EVAL_TMP_AB);
+			resourceTrie.wrapUpUpdate();
+		}
+
+		verifySameEvaluators(fullCopy2, pathCopy2);
+		verifySameEvaluators(fullCopy, pathCopy);
+		verifySameEvaluators(expectedBase, baseTrie);
+	}
+
+	@Test
+	public void testEvaluatorsSubset() {
+		List<RangerResourceEvaluator> evaluators = new ArrayList<>(EVALUATORS);
+
+		for (int i = 0; i < 20; i++) { // enough evaluators for the trie and subset-collector to use bitsets
+			evaluators.add(getEvaluator("/tmp/*"));
+			evaluators.add(getEvaluator("/tmp/ac/d" + i));
+		}
+
+		RangerResourceTrie<RangerResourceEvaluator> resourceTrie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, evaluators, true, false, false, null);
+		RangerResourceTrie<RangerResourceEvaluator> compactTrie  = new RangerResourceTrie<>(PATH_RESOURCE_DEF, evaluators, true, false, true, null);
+		Set<RangerResourceEvaluator>                allEvals     = new HashSet<>(evaluators);
+		Set<RangerResourceEvaluator>                someEvals    = new HashSet<>();
+		Set<RangerResourceEvaluator>                fewEvals     = new HashSet<>(Arrays.asList(EVAL_, EVAL_TMP_AB, evaluators.get(evaluators.size() - 1)));
+
+		for (int i = 0; i < evaluators.size(); i += 2) {
+			someEvals.add(evaluators.get(i));
+		}
+
+		for (ResourceElementMatchingScope scope : ResourceElementMatchingScope.values()) {
+			for (String resource : RESOURCES) {
+				for (Set<RangerResourceEvaluator> filter : Arrays.asList(allEvals, someEvals, fewEvals)) {
+					Set<RangerResourceEvaluator> expected = getNonNull(resourceTrie.getEvaluatorsForResource(resource, scope));
+
+					expected.retainAll(filter);
+
+					assertEquals("incorrect evaluators subset for resource " + resource + ", scope " + scope, expected, getNonNull(resourceTrie.getEvaluatorsForResource(resource, scope, filter)));
+					assertEquals("incorrect evaluators subset for resource " + resource + ", scope " + scope, expected, getNonNull(compactTrie.getEvaluatorsForResource(resource, scope, filter)));
+				}
+			}
+		}
+	}
+
+	private static Set<RangerResourceEvaluator> getNonNull(Set<RangerResourceEvaluator> evaluators) {
+		return evaluators == null ? new HashSet<>() : new HashSet<>(evaluators);
+	}
+
+	private void verifySameEvaluators(RangerResourceTrie<RangerResourceEvaluator> expectedTrie, RangerResourceTrie<RangerResourceEvaluator> resourceTrie) {
+		for (ResourceElementMatchingScope scope : ResourceElementMatchingScope.values()) {
+			for (String resource : RESOURCES) {
+				assertEquals("incorrect evaluators for resource " + resource + ", scope " + scope, expectedTrie.getEvaluatorsForResource(resource, scope), resourceTrie.getEvaluatorsForResource(resource, scope));
+				assertEquals("incorrect evaluators count for resource " + resource + ", scope " + scope, expectedTrie.getEvaluatorsCountForResource(resource, scope), resourceTrie.getEvaluatorsCountForResource(resource, scope));
+			}
+		}
+	}
+
 	private void verifyEvaluators(String resource, ResourceElementMatchingScope scope, RangerResourceEvaluator... evaluators) {
 		Set<RangerResourceEvaluator> expected = evaluators.length == 0 ? null : new HashSet<>(Arrays.asList(evaluators));
 		Set<RangerResourceEvaluator> result   = trie.getEvaluatorsForResource(resource, scope);
@@ -171,6 +304,11 @@ public long getId() {
 			return id;
 		}
 
+		@Override
+		public int getOrdinal() {
+			return (int) id;
+		}
+
 		@Override
 		public RangerPolicyResourceMatcher getPolicyResourceMatcher() {
 			return null;
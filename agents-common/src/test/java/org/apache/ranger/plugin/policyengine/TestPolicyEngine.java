@@ -360,6 +360,24 @@ public void testPolicyEngine_owner() {
 
 		runTestsFromResourceFiles(resourceFiles);
 	}
+
+	@Test
+	public void testPolicyEngine_withPrincipalIndex() {
+		String[] resourceFiles = { "/policyengine/test_policyengine_hive.json", "/policyengine/test_policyengine_owner.json",
+		                           "/policyengine/test_policyengine_tag_hdfs.json", "/policyengine/test_policyengine_descendant_tags.json",
+		                           "/policyengine/test_policyengine_tag_hive_mask.json" };
+
+		RangerPolicyEngineOptions options = pluginContext.getConfig().getPolicyEngineOptions();
+
+		options.enablePrincipalIndex = true;
+
+		try {
+			runTestsFromResourceFiles(resourceFiles);
+		} finally {
+			options.enablePrincipalIndex = false;
+		}
+	}
+
 	@Test
 	public void testPolicyEngine_temporary() {
 		String[] resourceFiles = {"/policyengine/test_policyengine_temporary.json"};
@@ -506,6 +524,78 @@ public void testMultipleAccessAuthorization() throws Exception {
 		runTestsFromResourceFiles(resourceFiles);
 	}
 
+	@Test
+	public void testBatchEvaluationInParallel() {
+		InputStream          inStream = this.getClass().getResourceAsStream("/policyengine/test_policyengine_hdfs.json");
+		PolicyEngineTestCase testCase = gsonBuilder.fromJson(new InputStreamReader(inStream), PolicyEngineTestCase.class);
+
+		ServicePolicies servicePolicies = new ServicePolicies();
+		servicePolicies.setPolicyVersion(100L);
+		servicePolicies.setServiceName(testCase.serviceName);
+		servicePolicies.setServiceDef(testCase.serviceDef);
+		servicePolicies.setPolicies(testCase.policies);
+
+		RangerPluginContext       batchPluginContext = new RangerPluginContext(new RangerPluginConfig("hdfs", testCase.serviceName, "hdfs", "cl1", "on-prem", null));
+		RangerPolicyEngineOptions options            = batchPluginContext.getConfig().getPolicyEngineOptions();
+
+		options.batchEvalParallelism = 4;
+		options.batchEvalMinSize     = 10;
+
+		RangerPolicyEngineImpl    policyEngine = new RangerPolicyEngineImpl(servicePolicies, batchPluginContext, null);
+		List<RangerAccessRequest> requests     = new ArrayList<>();
+		List<RangerAccessResult>  expected     = new ArrayList<>();
+		Set<Map<String, Object>>  testContexts = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		for (int i = 0; i < 20; i++) {
+			for (TestData test : testCase.tests) {
+				if (test.result != null) {
+					testContexts.add(test.request.getContext());
+					requests.add(new RangerAccessRequestImpl(test.request)); // shares the context with other requests of the test
+					expected.add(policyEngine.evaluatePolicies(new RangerAccessRequestImpl(test.request), RangerPolicy.POLICY_TYPE_ACCESS, null));
+				}
+			}
+		}
+
+		try {
+			Collection<RangerAccessResult> results = policyEngine.evaluatePolicies(requests, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+			assertEquals("result count mismatched", requests.size(), results.size());
+			assertNotNull("parallel evaluation pool was not created", batchPluginContext.getBatchEvalPool());
+
+			Set<Map<String, Object>> contexts = Collections.newSetFromMap(new IdentityHashMap<>());
+			int                      i        = 0;
+
+			for (RangerAccessResult result : results) {
+				assertSame("result is not in the order of requests - #" + i, requests.get(i), result.getAccessRequest());
+				assertTrue("context is shared with another request - #" + i, contexts.add(requests.get(i).getContext()));
+
+				if (!testContexts.contains(requests.get(i).getContext())) { // copied context must not retain state of earlier evaluations
+					assertSame("request in context mismatched - #" + i, requests.get(i), RangerAccessRequestUtil.getRequestFromContext(requests.get(i).getContext()));
+				}
+
+				assertEquals("isAllowed mismatched! - #" + i, expected.get(i).getIsAllowed(), result.getIsAllowed());
+				assertEquals("isAudited mismatched! - #" + i, expected.get(i).getIsAudited(), result.getIsAudited());
+				assertEquals("policyId mismatched! - #" + i, expected.get(i).getPolicyId(), result.getPolicyId());
+
+				i++;
+			}
+
+			// the same request more than once in a batch can't be given separate contexts; such batch is evaluated serially
+			RangerAccessRequest request = requests.get(0);
+
+			results = policyEngine.evaluatePolicies(Collections.nCopies(options.batchEvalMinSize, request), RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+			assertEquals("result count mismatched", options.batchEvalMinSize, results.size());
+
+			for (RangerAccessResult result : results) {
+				assertSame("result is not for the request", request, result.getAccessRequest());
+				assertEquals("isAllowed mismatched!", expected.get(0).getIsAllowed(), result.getIsAllowed());
+			}
+		} finally {
+			batchPluginContext.cleanup();
+		}
+	}
+
 	private void runTestsFromResourceFiles(String[] resourceNames) {
 		for(String resourceName : resourceNames) {
 			InputStream inStream = this.getClass().getResourceAsStream(resourceName);
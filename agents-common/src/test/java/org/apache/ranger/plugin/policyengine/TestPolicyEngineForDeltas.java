@@ -40,7 +40,9 @@
 import org.apache.ranger.plugin.model.RangerRole;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.policyengine.TestPolicyEngineForDeltas.PolicyEngineTestCase.TestData;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerRequestedResources;
 import org.apache.ranger.plugin.util.RangerRoles;
@@ -57,7 +59,9 @@
 import java.io.OutputStreamWriter;
 import java.lang.reflect.Type;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -175,6 +179,69 @@ public void testPolicyEngine_hdfs_incremental_delete() {
 		runTestsFromResourceFiles(hdfsTestResourceFiles);
 	}
 
+	@Test
+	public void testEvaluatorOrdinalsReusedWithDeltas() throws Exception {
+		RangerServiceDef serviceDef      = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME);
+		ServicePolicies  servicePolicies = new ServicePolicies();
+
+		servicePolicies.setServiceName("hivedev");
+		servicePolicies.setServiceDef(serviceDef);
+		servicePolicies.setPolicyVersion(1L);
+		servicePolicies.setPolicies(Arrays.asList(createPolicy(1L, "db1"), createPolicy(2L, "db2"), createPolicy(3L, "db3")));
+
+		RangerPolicyEngineImpl policyEngine = new RangerPolicyEngineImpl(servicePolicies, pluginContext, null);
+		int                    maxOrdinal   = getMaxEvaluatorOrdinal(policyEngine);
+
+		assertEquals(2, maxOrdinal);
+
+		for (long version = 2; version <= 10; version++) {
+			ServicePolicies deltas = new ServicePolicies();
+
+			deltas.setServiceName("hivedev");
+			deltas.setServiceDef(serviceDef);
+			deltas.setPolicyVersion(version);
+			deltas.setPolicyDeltas(Collections.singletonList(new RangerPolicyDelta(version, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, version, createPolicy(2L, "db2_" + version))));
+
+			policyEngine = (RangerPolicyEngineImpl) RangerPolicyEngineImpl.getPolicyEngine(policyEngine, deltas);
+
+			assertNotNull(policyEngine);
+
+			// the ordinal of the evaluator replaced by an update is reused by the next update
+			assertTrue("version=" + version + ": maxOrdinal=" + getMaxEvaluatorOrdinal(policyEngine), getMaxEvaluatorOrdinal(policyEngine) <= maxOrdinal + 1);
+		}
+	}
+
+	private static int getMaxEvaluatorOrdinal(RangerPolicyEngineImpl policyEngine) {
+		int ret = -1;
+
+		for (RangerPolicyEvaluator evaluator : policyEngine.getPolicyEngine().getPolicyRepository().getPolicyEvaluators()) {
+			for (RangerPolicyEvaluator.RangerPolicyResourceEvaluator resourceEvaluator : evaluator.getResourceEvaluators()) {
+				ret = Math.max(ret, resourceEvaluator.getOrdinal());
+			}
+		}
+
+		return ret;
+	}
+
+	private static RangerPolicy createPolicy(Long id, String database) {
+		RangerPolicy                                   policy    = new RangerPolicy();
+		Map<String, RangerPolicy.RangerPolicyResource> resources = new HashMap<>();
+
+		resources.put("database", new RangerPolicy.RangerPolicyResource(database));
+		resources.put("table", new RangerPolicy.RangerPolicyResource("*"));
+		resources.put("column", new RangerPolicy.RangerPolicyResource("*"));
+
+		policy.setId(id);
+		policy.setName("policy-" + id);
+		policy.setService("hivedev");
+		policy.setServiceType(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME);
+		policy.setPolicyType(RangerPolicy.POLICY_TYPE_ACCESS);
+		policy.setResources(resources);
+		policy.setPolicyItems(Collections.singletonList(new RangerPolicy.RangerPolicyItem(Collections.singletonList(new RangerPolicy.RangerPolicyItemAccess("select")), Collections.singletonList("user1"), null, null, null, null)));
+
+		return policy;
+	}
+
 	private void runTestsFromResourceFiles(String[] resourceNames) {
 		for(String resourceName : resourceNames) {
 			InputStream inStream = this.getClass().getResourceAsStream(resourceName);
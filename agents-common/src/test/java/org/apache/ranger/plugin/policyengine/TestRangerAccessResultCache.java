@@ -0,0 +1,441 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerGdsEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerAccessTypeDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerPolicyConditionDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.model.RangerValiditySchedule;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchingScope;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceMatchingScope;
+import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.ServiceDefUtil;
+import org.apache.ranger.plugin.util.ServiceGdsInfo;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestRangerAccessResultCache {
+    private static final String SERVICE_NAME     = "hivedev";
+    private static final String TAG_SERVICE_NAME = "tagdev";
+    private static final long   DAY_IN_MS        = 24 * 3600 * 1000L;
+
+    private final String pastTime   = format(System.currentTimeMillis() - DAY_IN_MS);
+    private final String futureTime = format(System.currentTimeMillis() + DAY_IN_MS);
+
+    @Test
+    public void testGenerationChangesOnVersionUpdates() throws Exception {
+        RangerPolicyEngineImpl  engine      = createPolicyEngine();
+        RangerAccessResultCache cache       = engine.getAccessResultCache();
+        RangerAuthContext       authContext = engine.getPolicyEngine().getPluginContext().getAuthContext();
+
+        assertNotNull(cache);
+        assertCached(engine, "plain", "user1", true);
+
+        // policy version: deltas applied in place retain the engine, and its cache
+        ServicePolicies deltas = new ServicePolicies();
+
+        deltas.setServiceName(SERVICE_NAME);
+        deltas.setServiceDef(engine.getPolicyEngine().getServiceDef());
+        deltas.setPolicyVersion(2L);
+        deltas.setPolicyDeltas(Collections.singletonList(new RangerPolicyDelta(1L, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, 2L, createPolicy(1L, "plain", "user2", null, null))));
+
+        assertSame(engine, RangerPolicyEngineImpl.getPolicyEngine(engine, deltas));
+        assertEquals(2L, engine.getPolicyVersion());
+        assertInvalidated(engine, "plain", "user1", false);
+        assertCached(engine, "plain", "user2", true);
+
+        // tag version
+        getEnricher(engine, RangerTagEnricher.class).setServiceTags(createServiceTags(2L));
+        assertInvalidated(engine, "plain", "user2", true);
+
+        // roles
+        authContext.setRoles(createRoles(2L));
+        assertInvalidated(engine, "plain", "user2", true);
+
+        // user-store
+        authContext.setUserStore(new RangerUserStore(2L, null, null, null));
+        assertInvalidated(engine, "plain", "user2", true);
+
+        // GDS info
+        ServiceGdsInfo gdsInfo = new ServiceGdsInfo();
+
+        gdsInfo.setServiceName(SERVICE_NAME);
+        gdsInfo.setGdsVersion(2L);
+        gdsInfo.setGdsServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_GDS_NAME));
+
+        getEnricher(engine, RangerGdsEnricher.class).setGdsInfo(gdsInfo);
+        assertInvalidated(engine, "plain", "user2", true);
+
+        // no change in versions: earlier result is retained
+        long invalidationCount = cache.getInvalidationCount();
+        long hitCount          = cache.getHitCount();
+
+        assertTrue(engine.evaluatePolicies(createRequest("plain", "user2"), RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed());
+        assertEquals(hitCount + 1, cache.getHitCount());
+        assertEquals(invalidationCount, cache.getInvalidationCount());
+
+        engine.releaseResources(true);
+    }
+
+    @Test
+    public void testContextSensitiveResultsAreNotCached() throws Exception {
+        RangerPolicyEngineImpl engine = createPolicyEngine();
+
+        // resource policies, tag policies and tag policies with schedules: for resources database=cond, sched, tagcond, tagsched
+        for (String database : new String[] { "cond", "sched", "tagcond", "tagsched" }) {
+            for (String user : new String[] { "user1", "user2" }) {
+                RangerAccessResultCache cache    = engine.getAccessResultCache();
+                long                    hitCount = cache.getHitCount();
+                RangerAccessRequest     request  = createRequest(database, user);
+
+                engine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+                engine.evaluatePolicies(createRequest(database, user), RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+                assertTrue(database + ": " + user, RangerAccessRequestUtil.getIsContextSensitiveEvaluation(request.getContext()));
+                assertEquals(database + ": " + user, hitCount, cache.getHitCount());
+            }
+        }
+
+        assertEquals(0, engine.getAccessResultCache().getSize());
+
+        // results for resources with tags, where tag policies have no conditions or schedules, are cached
+        assertCached(engine, "tagplain", "user1", true);
+        assertCached(engine, "tagplain", "user2", false);
+
+        engine.releaseResources(true);
+    }
+
+    @Test
+    public void testCacheKey() throws Exception {
+        RangerPolicyEngineImpl           engine   = createPolicyEngine();
+        RangerAccessResultCache          cache    = engine.getAccessResultCache();
+        RangerAccessResultCache.CacheKey expected = cache.getCacheKey(createRequest("plain", "user1"), RangerPolicy.POLICY_TYPE_ACCESS);
+
+        assertEquals(expected, cache.getCacheKey(createRequest("plain", "user1"), RangerPolicy.POLICY_TYPE_ACCESS));
+        assertEquals(expected.hashCode(), cache.getCacheKey(createRequest("plain", "user1"), RangerPolicy.POLICY_TYPE_ACCESS).hashCode());
+
+        List<RangerAccessRequestImpl> requests = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            requests.add(createRequest("plain", "user1"));
+        }
+
+        requests.get(0).setUser("user2");
+        requests.get(1).setUserGroups(Collections.singleton("group2"));
+        requests.get(2).setUserRoles(Collections.singleton("role2"));
+        requests.get(3).setAccessType("update");
+        requests.get(4).setResourceMatchingScope(ResourceMatchingScope.SELF_OR_DESCENDANTS);
+        requests.get(5).setResourceElementMatchingScopes(Collections.singletonMap("table", ResourceElementMatchingScope.SELF_OR_PREFIX));
+        requests.set(6, createRequest("plain2", "user1"));
+        requests.get(7).setUserGroups(new HashSet<>(Arrays.asList("group1", "group2")));
+
+        for (RangerAccessRequestImpl request : requests) {
+            assertNotEquals(request.toString(), expected, cache.getCacheKey(request, RangerPolicy.POLICY_TYPE_ACCESS));
+        }
+
+        assertNotEquals(expected, cache.getCacheKey(createRequest("plain", "user1"), RangerPolicy.POLICY_TYPE_DATAMASK));
+
+        // results for any access, and for multiple access-types, are not cached
+        RangerAccessRequestImpl anyAccess = createRequest("plain", "user1");
+
+        anyAccess.setAccessType(RangerPolicyEngine.ANY_ACCESS);
+
+        assertNull(cache.getCacheKey(anyAccess, RangerPolicy.POLICY_TYPE_ACCESS));
+
+        RangerAccessRequestImpl allAccessTypes = createRequest("plain", "user1");
+
+        RangerAccessRequestUtil.setAllRequestedAccessTypes(allAccessTypes.getContext(), new HashSet<>(Arrays.asList("select", "update")));
+
+        assertNull(cache.getCacheKey(allAccessTypes, RangerPolicy.POLICY_TYPE_ACCESS));
+
+        engine.releaseResources(true);
+    }
+
+    @Test
+    public void testResultOfEarlierVersionsIsNotCached() throws Exception {
+        RangerPolicyEngineImpl           engine  = createPolicyEngine();
+        RangerAccessResultCache          cache   = engine.getAccessResultCache();
+        RangerAccessRequestImpl          request = createRequest("plain", "user1");
+        RangerAccessResultCache.CacheKey key     = cache.getCacheKey(request, RangerPolicy.POLICY_TYPE_ACCESS);
+        RangerAccessResult               result  = engine.evaluatePolicies(createRequest("plain", "user1"), RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+        // tags updated while the request was being evaluated
+        getEnricher(engine, RangerTagEnricher.class).setServiceTags(createServiceTags(2L));
+
+        long bypassCount = cache.getBypassCount();
+
+        cache.put(key, result);
+
+        assertEquals(bypassCount + 1, cache.getBypassCount());
+        assertEquals(0, cache.getSize());
+        assertNull(cache.get(cache.getCacheKey(request, RangerPolicy.POLICY_TYPE_ACCESS), request));
+
+        engine.releaseResources(true);
+    }
+
+    @Test
+    public void testEvictionBoundsSize() throws Exception {
+        RangerPolicyEngineImpl                 engine = createPolicyEngine();
+        RangerAccessResultCache                cache  = new RangerAccessResultCache(engine.getPolicyEngine(), 3);
+        List<RangerAccessResultCache.CacheKey> keys   = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            RangerAccessRequestImpl          request = createRequest("plain", "user" + i);
+            RangerAccessResultCache.CacheKey key     = cache.getCacheKey(request, RangerPolicy.POLICY_TYPE_ACCESS);
+
+            cache.put(key, engine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null));
+            keys.add(key);
+
+            // all entries are recently used, hence spared by the first pass of eviction
+            for (RangerAccessResultCache.CacheKey cachedKey : keys) {
+                cache.get(cachedKey, request);
+            }
+
+            assertTrue("size=" + cache.getSize(), cache.getSize() <= 3);
+        }
+
+        assertEquals(3, cache.getSize());
+        assertEquals(7, cache.getEvictionCount());
+
+        engine.releaseResources(true);
+    }
+
+    private static void assertCached(RangerPolicyEngineImpl engine, String database, String user, boolean expectedIsAllowed) throws Exception {
+        RangerAccessResultCache cache    = engine.getAccessResultCache();
+        long                    hitCount = cache.getHitCount();
+
+        assertEquals(expectedIsAllowed, engine.evaluatePolicies(createRequest(database, user), RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed());
+        assertEquals(expectedIsAllowed, engine.evaluatePolicies(createRequest(database, user), RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed());
+        assertEquals(database + ": " + user, hitCount + 1, cache.getHitCount());
+    }
+
+    // evaluation after a version change discards earlier results: the first evaluation is a miss, the next one a hit
+    private static void assertInvalidated(RangerPolicyEngineImpl engine, String database, String user, boolean expectedIsAllowed) throws Exception {
+        RangerAccessResultCache cache             = engine.getAccessResultCache();
+        long                    invalidationCount = cache.getInvalidationCount();
+        long                    missCount         = cache.getMissCount();
+
+        assertCached(engine, database, user, expectedIsAllowed);
+        assertEquals(invalidationCount + 1, cache.getInvalidationCount());
+        assertEquals(missCount + 1, cache.getMissCount());
+        assertEquals(1, cache.getSize());
+    }
+
+    private static <T extends RangerContextEnricher> T getEnricher(RangerPolicyEngineImpl engine, Class<T> enricherClass) {
+        for (RangerContextEnricher enricher : engine.getPolicyEngine().getAllContextEnrichers()) {
+            if (enricherClass.isInstance(enricher)) {
+                return enricherClass.cast(enricher);
+            }
+        }
+
+        fail(enricherClass.getSimpleName() + " not found");
+
+        return null;
+    }
+
+    private static RangerAccessRequestImpl createRequest(String database, String user) throws Exception {
+        Map<String, Object> elements = new HashMap<>();
+
+        elements.put("database", database);
+        elements.put("table", "tbl1");
+
+        RangerAccessResourceImpl resource = new RangerAccessResourceImpl(elements);
+
+        resource.setServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME));
+
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, "select", user, Collections.singleton("group1"), Collections.singleton("role1"));
+
+        request.setClientIPAddress("192.168.1.1");
+
+        return request;
+    }
+
+    private RangerPolicyEngineImpl createPolicyEngine() throws Exception {
+        RangerServiceDef serviceDef    = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME);
+        RangerServiceDef tagServiceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_TAG_NAME);
+
+        serviceDef.setPolicyConditions(Collections.singletonList(new RangerPolicyConditionDef(1L, "ip-range", "org.apache.ranger.plugin.conditionevaluator.RangerIpMatcher", null)));
+        tagServiceDef.setPolicyConditions(Collections.singletonList(new RangerPolicyConditionDef(1L, "ip-range", "org.apache.ranger.plugin.conditionevaluator.RangerIpMatcher", null)));
+        tagServiceDef.setAccessTypes(new ArrayList<>());
+
+        for (RangerAccessTypeDef accessTypeDef : serviceDef.getAccessTypes()) {
+            tagServiceDef.getAccessTypes().add(new RangerAccessTypeDef(accessTypeDef.getItemId(), "hive:" + accessTypeDef.getName(), "hive:" + accessTypeDef.getName(), null, null));
+        }
+
+        ServicePolicies             servicePolicies = new ServicePolicies();
+        ServicePolicies.TagPolicies tagPolicies     = new ServicePolicies.TagPolicies();
+
+        servicePolicies.setServiceName(SERVICE_NAME);
+        servicePolicies.setServiceDef(serviceDef);
+        servicePolicies.setPolicyVersion(1L);
+        servicePolicies.setPolicies(new ArrayList<>(Arrays.asList(createPolicy(1L, "plain", "user1", null, null),
+                                                                  createPolicy(2L, "cond", "user1", "192.168.*", null),
+                                                                  createPolicy(3L, "sched", "user1", null, new RangerValiditySchedule(pastTime, futureTime, null, null)))));
+
+        tagPolicies.setServiceName(TAG_SERVICE_NAME);
+        tagPolicies.setServiceDef(tagServiceDef);
+        tagPolicies.setPolicyVersion(1L);
+        tagPolicies.setPolicies(new ArrayList<>(Arrays.asList(createTagPolicy(11L, "PLAIN", null, null),
+                                                              createTagPolicy(12L, "COND", "192.168.*", null),
+                                                              createTagPolicy(13L, "SCHED", null, new RangerValiditySchedule(pastTime, futureTime, null, null)))));
+
+        servicePolicies.setTagPolicies(tagPolicies);
+
+        ServiceDefUtil.addGdsInfoEnricher(servicePolicies, "org.apache.ranger.plugin.contextenricher.RangerAdminGdsInfoRetriever", "60000");
+
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.enableAccessResultCache = true;
+        options.disableTagRetriever     = true;
+        options.disableGdsInfoRetriever = true;
+
+        RangerPluginConfig config = new RangerPluginConfig("hive", SERVICE_NAME, "test-access-result-cache", "cl1", "on-prem", options);
+
+        config.setBoolean(config.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA, true);
+        config.setBoolean(config.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES, true);
+
+        RangerPolicyEngineImpl ret = new RangerPolicyEngineImpl(servicePolicies, new RangerPluginContext(config), createRoles(1L));
+
+        getEnricher(ret, RangerTagEnricher.class).setServiceTags(createServiceTags(1L));
+
+        return ret;
+    }
+
+    private static RangerRoles createRoles(long version) {
+        RangerRoles ret = new RangerRoles();
+
+        ret.setRoleVersion(version);
+        ret.setRangerRoles(Collections.singleton(new RangerRole("role1", null, null, Collections.singletonList(new RangerRole.RoleMember("user1", false)), null)));
+
+        return ret;
+    }
+
+    // tags PLAIN, COND and SCHED on database=tagplain, tagcond and tagsched respectively
+    private static ServiceTags createServiceTags(long version) {
+        ServiceTags                 ret              = new ServiceTags();
+        Map<Long, RangerTag>        tags             = new HashMap<>();
+        List<RangerServiceResource> serviceResources = new ArrayList<>();
+        Map<Long, List<Long>>       resourceToTagIds = new HashMap<>();
+        String[]                    tagTypes         = { "PLAIN", "COND", "SCHED" };
+
+        for (int i = 0; i < tagTypes.length; i++) {
+            Long                              id       = (long) (i + 1);
+            Map<String, RangerPolicyResource> elements = new HashMap<>();
+
+            elements.put("database", new RangerPolicyResource("tag" + tagTypes[i].toLowerCase()));
+            elements.put("table", new RangerPolicyResource("tbl1"));
+
+            RangerServiceResource resource = new RangerServiceResource(null, SERVICE_NAME, elements);
+
+            resource.setId(id);
+
+            tags.put(id, new RangerTag(tagTypes[i], null));
+            serviceResources.add(resource);
+            resourceToTagIds.put(id, Collections.singletonList(id));
+        }
+
+        ret.setServiceName(SERVICE_NAME);
+        ret.setTagVersion(version);
+        ret.setTagDefinitions(new HashMap<>());
+        ret.setTags(tags);
+        ret.setServiceResources(serviceResources);
+        ret.setResourceToTagIds(resourceToTagIds);
+
+        return ret;
+    }
+
+    private static RangerPolicy createPolicy(Long id, String database, String user, String ipRange, RangerValiditySchedule validitySchedule) {
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+        resources.put("database", new RangerPolicyResource(database));
+        resources.put("table", new RangerPolicyResource("*"));
+
+        RangerPolicy ret = createPolicy(id, SERVICE_NAME, "hive", resources, user, "select", ipRange, validitySchedule);
+
+        ret.setPolicyType(RangerPolicy.POLICY_TYPE_ACCESS);
+
+        return ret;
+    }
+
+    private static RangerPolicy createTagPolicy(Long id, String tagType, String ipRange, RangerValiditySchedule validitySchedule) {
+        return createPolicy(id, TAG_SERVICE_NAME, "tag", Collections.singletonMap("tag", new RangerPolicyResource(tagType)), "user1", "hive:select", ipRange, validitySchedule);
+    }
+
+    private static RangerPolicy createPolicy(Long id, String service, String serviceType, Map<String, RangerPolicyResource> resources, String user, String accessType, String ipRange, RangerValiditySchedule validitySchedule) {
+        RangerPolicy     policy = new RangerPolicy();
+        RangerPolicyItem item   = new RangerPolicyItem();
+
+        item.setUsers(Collections.singletonList(user));
+        item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess(accessType)));
+
+        if (ipRange != null) {
+            item.setConditions(Collections.singletonList(new RangerPolicyItemCondition("ip-range", Collections.singletonList(ipRange))));
+        }
+
+        policy.setId(id);
+        policy.setName("policy-" + id);
+        policy.setService(service);
+        policy.setServiceType(serviceType);
+        policy.setResources(new HashMap<>(resources));
+        policy.setPolicyItems(Collections.singletonList(item));
+
+        if (validitySchedule != null) {
+            policy.setValiditySchedules(Collections.singletonList(validitySchedule));
+        }
+
+        return policy;
+    }
+
+    private static String format(long time) {
+        return new SimpleDateFormat(RangerValiditySchedule.VALIDITY_SCHEDULE_DATE_STRING_SPECIFICATION).format(new Date(time));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestRangerAdaptiveEvalOrder {
+    private static final String[] USERS = { "user1", "user2", "user3", "user4", "user5", "user6" };
+
+    @Test
+    public void testOrderAdaptsWithinGroup() throws Exception {
+        RangerPolicyEngineImpl engine     = createPolicyEngine(3600 * 1000);
+        RangerPolicyRepository repository = engine.getPolicyEngine().getPolicyRepository();
+
+        assertNull(repository.getAdaptiveEvalOrder());
+
+        Map<String, RangerAccessResult> expected = new HashMap<>();
+
+        for (String user : USERS) {
+            expected.put(user, evaluate(engine, user));
+        }
+
+        long evaluatedCount = expected.get("user3").getEvaluatedPoliciesCount();
+
+        // user3 is allowed by the last of the allow policies in the static order
+        for (int i = 0; i < 100; i++) {
+            evaluate(engine, "user3");
+        }
+
+        repository.updateAdaptiveEvalOrder();
+
+        RangerAdaptiveEvalOrder adaptiveEvalOrder = repository.getAdaptiveEvalOrder();
+
+        assertNotNull(adaptiveEvalOrder);
+        assertTrue(repository.toString().contains("adaptiveEvalOrder={"));
+
+        // override policy first and deny policy next, as in the static order; then user3's policy ahead of other allow policies
+        assertEquals(Arrays.asList(5L, 4L, 3L), getPolicyIds(adaptiveEvalOrder.getEvaluators()).subList(0, 3));
+
+        for (String user : USERS) {
+            RangerAccessResult result = evaluate(engine, user);
+
+            assertEquals(user, expected.get(user).getIsAllowed(), result.getIsAllowed());
+            assertEquals(user, expected.get(user).getIsAccessDetermined(), result.getIsAccessDetermined());
+            assertEquals(user, expected.get(user).getPolicyId(), result.getPolicyId());
+            assertEquals(user, expected.get(user).getIsAudited(), result.getIsAudited());
+        }
+
+        assertTrue(evaluate(engine, "user3").getEvaluatedPoliciesCount() < evaluatedCount);
+
+        engine.releaseResources(true);
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        RangerPolicyEngineImpl engine     = createPolicyEngine(0);
+        RangerPolicyRepository repository = engine.getPolicyEngine().getPolicyRepository();
+
+        for (RangerPolicyEvaluator evaluator : repository.getPolicyEvaluators()) {
+            assertNull(evaluator.getEvalStats());
+        }
+
+        evaluate(engine, "user3");
+
+        assertNull(repository.getAdaptiveEvalOrder());
+    }
+
+    private static RangerAccessResult evaluate(RangerPolicyEngine engine, String user) {
+        Map<String, Object> elements = new HashMap<>();
+
+        elements.put("database", "db1");
+        elements.put("table", "tbl1");
+        elements.put("column", "col1");
+
+        RangerAccessRequest request = new RangerAccessRequestImpl(new RangerAccessResourceImpl(elements), "select", user, Collections.emptySet(), null);
+
+        return engine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+    }
+
+    private static List<Long> getPolicyIds(List<RangerPolicyEvaluator> evaluators) {
+        List<Long> ret = new ArrayList<>();
+
+        for (RangerPolicyEvaluator evaluator : evaluators) {
+            ret.add(evaluator.getPolicyId());
+        }
+
+        return ret;
+    }
+
+    private static RangerPolicyEngineImpl createPolicyEngine(int adaptiveEvalOrderIntervalMs) throws Exception {
+        ServicePolicies servicePolicies = new ServicePolicies();
+
+        servicePolicies.setServiceName("hivedev");
+        servicePolicies.setServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME));
+        servicePolicies.setPolicyVersion(1L);
+        servicePolicies.setPolicies(Arrays.asList(createPolicy(1L, "user1", false, RangerPolicy.POLICY_PRIORITY_NORMAL),
+                                                  createPolicy(2L, "user2", false, RangerPolicy.POLICY_PRIORITY_NORMAL),
+                                                  createPolicy(3L, "user3", false, RangerPolicy.POLICY_PRIORITY_NORMAL),
+                                                  createPolicy(4L, "user4", true, RangerPolicy.POLICY_PRIORITY_NORMAL),
+                                                  createPolicy(5L, "user5", false, RangerPolicy.POLICY_PRIORITY_OVERRIDE)));
+
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.adaptiveEvalOrderIntervalMs = adaptiveEvalOrderIntervalMs;
+
+        RangerPluginContext pluginContext = new RangerPluginContext(new RangerPluginConfig("hive", null, "test-adaptive-eval-order", "cl1", "on-prem", options));
+
+        return new RangerPolicyEngineImpl(servicePolicies, pluginContext, null);
+    }
+
+    private static RangerPolicy createPolicy(Long id, String user, boolean isDeny, int priority) {
+        RangerPolicy                      policy    = new RangerPolicy();
+        RangerPolicyItem                  item      = new RangerPolicyItem();
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+        resources.put("database", new RangerPolicyResource("db1"));
+        resources.put("table", new RangerPolicyResource("*"));
+        resources.put("column", new RangerPolicyResource("*"));
+
+        item.setUsers(Collections.singletonList(user));
+        item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("select")));
+
+        policy.setId(id);
+        policy.setName("policy-" + id);
+        policy.setService("hivedev");
+        policy.setServiceType("hive");
+        policy.setPolicyPriority(priority);
+        policy.setResources(resources);
+
+        if (isDeny) {
+            policy.setDenyPolicyItems(Collections.singletonList(item));
+        } else {
+            policy.setPolicyItems(Collections.singletonList(item));
+        }
+
+        return policy;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.conditionevaluator.RangerAbstractConditionEvaluator;
+import org.apache.ranger.plugin.conditionevaluator.RangerConditionEvaluator;
+import org.apache.ranger.plugin.conditionevaluator.RangerConditionEvaluatorRegistry;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerPolicyConditionDef;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestRangerConditionMemoization {
+    private static final String CONDITION_TYPE = "counted";
+
+    @Test
+    public void testConditionEvaluatedOncePerRequest() throws Exception {
+        RangerPolicyEngineImpl           engine   = createPolicyEngine(true);
+        RangerConditionEvaluatorRegistry registry = engine.getPolicyEngine().getPolicyRepository().getConditionEvaluatorRegistry();
+
+        assertNotNull(registry);
+        assertEquals(5, registry.getConditionCount());
+        assertEquals(3, registry.getEvaluatorCount());
+
+        CountedConditionEvaluator.EVALUATIONS.set(0);
+
+        RangerAccessResult result = evaluate(engine, "select");
+
+        assertTrue(result.getIsAllowed());
+        assertEquals(5L, result.getPolicyId());
+        assertEquals(3, CountedConditionEvaluator.EVALUATIONS.get()); // once each for values 'y', 'x' and 'user1'
+        assertEquals(5, registry.getEvaluationCount());
+        assertEquals(2, registry.getSavedEvaluationCount());
+
+        // results are not shared across requests
+        evaluate(engine, "select");
+
+        assertEquals(6, CountedConditionEvaluator.EVALUATIONS.get());
+        assertEquals(4, registry.getSavedEvaluationCount());
+        assertTrue(engine.getPolicyEngine().getPolicyRepository().toString().contains("savedEvaluations=4"));
+
+        engine.releaseResources(true);
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        RangerPolicyEngineImpl engine = createPolicyEngine(false);
+
+        assertNull(engine.getPolicyEngine().getPolicyRepository().getConditionEvaluatorRegistry());
+
+        CountedConditionEvaluator.EVALUATIONS.set(0);
+
+        RangerAccessResult result = evaluate(engine, "select");
+
+        assertTrue(result.getIsAllowed());
+        assertEquals(5L, result.getPolicyId());
+        assertEquals(5, CountedConditionEvaluator.EVALUATIONS.get());
+
+        engine.releaseResources(true);
+    }
+
+    @Test
+    public void testResultsSavedPerAccessType() {
+        RangerConditionEvaluatorRegistry registry  = new RangerConditionEvaluatorRegistry();
+        RangerPolicyItemCondition        condition = new RangerPolicyItemCondition(CONDITION_TYPE, Collections.singletonList("user1"));
+        RangerPolicyConditionDef         condDef   = new RangerPolicyConditionDef(1L, CONDITION_TYPE, CountedConditionEvaluator.class.getName(), null);
+        RangerConditionEvaluator         evaluator = createEvaluator(registry, condition, condDef);
+
+        assertSame(evaluator, registry.getEvaluator(new RangerPolicyItemCondition(CONDITION_TYPE, Collections.singletonList("user1")), condDef, () -> null));
+
+        RangerAccessRequest request = createRequest("select");
+
+        CountedConditionEvaluator.EVALUATIONS.set(0);
+
+        assertTrue(registry.isMatched(evaluator, request));
+        assertTrue(registry.isMatched(evaluator, new RangerAccessRequestWrapper(request, "select")));
+        assertTrue(registry.isMatched(evaluator, new RangerAccessRequestWrapper(request, "update")));
+        assertTrue(registry.isMatched(evaluator, new RangerAccessRequestWrapper(request, "update")));
+
+        assertEquals(2, CountedConditionEvaluator.EVALUATIONS.get());
+        assertEquals(2, registry.getSavedEvaluationCount());
+    }
+
+    @Test
+    public void testResultsNotReusedAcrossEvaluations() throws Exception {
+        RangerPolicyEngineImpl engine  = createPolicyEngine(true);
+        RangerAccessRequest    request = createRequest("select");
+
+        CountedConditionEvaluator.EVALUATIONS.set(0);
+
+        assertTrue(engine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed());
+        assertTrue(engine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed());
+
+        assertEquals(6, CountedConditionEvaluator.EVALUATIONS.get());
+
+        engine.releaseResources(true);
+    }
+
+    @Test
+    public void testResultsClearedOnRequestUpdate() {
+        RangerConditionEvaluatorRegistry registry  = new RangerConditionEvaluatorRegistry();
+        RangerPolicyItemCondition        condition = new RangerPolicyItemCondition(CONDITION_TYPE, Collections.singletonList("user1"));
+        RangerPolicyConditionDef         condDef   = new RangerPolicyConditionDef(1L, CONDITION_TYPE, CountedConditionEvaluator.class.getName(), null);
+        RangerConditionEvaluator         evaluator = createEvaluator(registry, condition, condDef);
+        RangerAccessRequestImpl          request   = (RangerAccessRequestImpl) createRequest("select");
+
+        CountedConditionEvaluator.EVALUATIONS.set(0);
+
+        assertTrue(registry.isMatched(evaluator, request));
+
+        request.setUser("user2");
+
+        assertFalse(registry.isMatched(evaluator, request));
+
+        request.setUser("user1");
+        request.setResource(request.getResource());
+
+        assertTrue(registry.isMatched(evaluator, request));
+        assertEquals(3, CountedConditionEvaluator.EVALUATIONS.get());
+        assertEquals(0, registry.getSavedEvaluationCount());
+    }
+
+    private static RangerConditionEvaluator createEvaluator(RangerConditionEvaluatorRegistry registry, RangerPolicyItemCondition condition, RangerPolicyConditionDef condDef) {
+        return registry.getEvaluator(condition, condDef, () -> {
+            RangerConditionEvaluator ret = new CountedConditionEvaluator();
+
+            ret.setConditionDef(condDef);
+            ret.setPolicyItemCondition(condition);
+            ret.init();
+
+            return ret;
+        });
+    }
+
+    private static RangerAccessResult evaluate(RangerPolicyEngine engine, String accessType) {
+        return engine.evaluatePolicies(createRequest(accessType), RangerPolicy.POLICY_TYPE_ACCESS, null);
+    }
+
+    private static RangerAccessRequest createRequest(String accessType) {
+        Map<String, Object> elements = new HashMap<>();
+
+        elements.put("database", "db1");
+        elements.put("table", "tbl1");
+        elements.put("column", "col1");
+
+        return new RangerAccessRequestImpl(new RangerAccessResourceImpl(elements), accessType, "user1", Collections.emptySet(), null);
+    }
+
+    private static RangerPolicyEngineImpl createPolicyEngine(boolean enableConditionMemoization) throws Exception {
+        RangerServiceDef serviceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME);
+
+        serviceDef.getPolicyConditions().add(new RangerPolicyConditionDef(100L, CONDITION_TYPE, CountedConditionEvaluator.class.getName(), null));
+
+        ServicePolicies servicePolicies = new ServicePolicies();
+
+        servicePolicies.setServiceName("hivedev");
+        servicePolicies.setServiceDef(serviceDef);
+        servicePolicies.setPolicyVersion(1L);
+        servicePolicies.setPolicies(Arrays.asList(createPolicy(1L, "y"), createPolicy(2L, "x"), createPolicy(3L, "x"), createPolicy(4L, "x"), createPolicy(5L, "user1")));
+
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.enableConditionMemoization = enableConditionMemoization;
+
+        RangerPluginContext pluginContext = new RangerPluginContext(new RangerPluginConfig("hive", null, "test-condition-memoization", "cl1", "on-prem", options));
+
+        return new RangerPolicyEngineImpl(servicePolicies, pluginContext, null);
+    }
+
+    // policy allowing user1 when the condition value is the user; policies are evaluated in the order of their names
+    private static RangerPolicy createPolicy(Long id, String conditionValue) {
+        RangerPolicy                      policy    = new RangerPolicy();
+        RangerPolicyItem                  item      = new RangerPolicyItem();
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+        resources.put("database", new RangerPolicyResource("db1"));
+        resources.put("table", new RangerPolicyResource("*"));
+        resources.put("column", new RangerPolicyResource("*"));
+
+        item.setUsers(Collections.singletonList("user1"));
+        item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("select")));
+
+        item.setConditions(Collections.singletonList(new RangerPolicyItemCondition(CONDITION_TYPE, Collections.singletonList(conditionValue))));
+
+        policy.setId(id);
+        policy.setName("policy-" + id);
+        policy.setService("hivedev");
+        policy.setServiceType("hive");
+        policy.setResources(resources);
+        policy.setPolicyItems(Collections.singletonList(item));
+
+        return policy;
+    }
+
+    public static class CountedConditionEvaluator extends RangerAbstractConditionEvaluator {
+        static final AtomicInteger EVALUATIONS = new AtomicInteger();
+
+        @Override
+        public boolean isMatched(RangerAccessRequest request) {
+            EVALUATIONS.incrementAndGet();
+
+            return condition.getValues().contains(request.getUser());
+        }
+    }
+}
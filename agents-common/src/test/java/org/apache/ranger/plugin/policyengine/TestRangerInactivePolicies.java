@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerValiditySchedule;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class TestRangerInactivePolicies {
+    private static final String[] USERS     = { "user1", "user2", "user3", "user4" };
+    private static final long     DAY_IN_MS = 24 * 3600 * 1000L;
+
+    private final long   now             = System.currentTimeMillis();
+    private final String expiredEndTime  = "2020/01/01 00:00:00";
+    private final String futureStartTime = format(now + 2 * DAY_IN_MS);
+    private final String currentEndTime  = format(now + 4 * DAY_IN_MS);
+
+    @Test
+    public void testInactivePoliciesAreExcluded() throws Exception {
+        RangerPolicyEngineImpl engine     = createPolicyEngine(true);
+        RangerPolicyEngineImpl reference  = createPolicyEngine(false);
+        RangerPolicyRepository repository = engine.getPolicyEngine().getPolicyRepository();
+
+        waitForScheduledUpdate(repository); // so that the scheduled update doesn't replace the one below
+
+        long                   nextChange = repository.updateInactivePolicies(now);
+        RangerInactivePolicies inactive   = repository.getInactivePolicies();
+
+        // times as parsed by the evaluators, which use the timezone that was default when their thread first parsed a time
+        long startTime2 = repository.getPolicyEvaluator(2L).getNextApplicabilityChangeTime(now);
+        long endTime3   = repository.getPolicyEvaluator(3L).getNextApplicabilityChangeTime(now) - 1;
+
+        assertTrue(startTime2 > now && endTime3 > startTime2);
+        assertNotNull(inactive);
+        assertEquals(new TreeSet<>(Arrays.asList(1L, 2L)), getPolicyIds(inactive.getEvaluators()));
+        assertEquals(startTime2, inactive.getValidUntil());
+        assertEquals(startTime2, nextChange);
+
+        // policies 1 and 2 are excluded only for access-times in which they are known to be not applicable
+        assertEquals(new TreeSet<>(Arrays.asList(3L, 4L)), getPolicyIds(repository.getPolicyEvaluatorsToEvaluate(createRequest("user1", now), RangerPolicy.POLICY_TYPE_ACCESS)));
+        assertEquals(new TreeSet<>(Arrays.asList(1L, 2L, 3L, 4L)), getPolicyIds(repository.getPolicyEvaluatorsToEvaluate(createRequest("user1", now - 1), RangerPolicy.POLICY_TYPE_ACCESS)));
+        assertEquals(new TreeSet<>(Arrays.asList(1L, 2L, 3L, 4L)), getPolicyIds(repository.getPolicyEvaluatorsToEvaluate(createRequest("user1", startTime2), RangerPolicy.POLICY_TYPE_ACCESS)));
+
+        // policies are not excluded from likely matches, which are used to find ACLs as well
+        assertEquals(new TreeSet<>(Arrays.asList(1L, 2L, 3L, 4L)), getPolicyIds(repository.getLikelyMatchPolicyEvaluators(createRequest("user1", now), RangerPolicy.POLICY_TYPE_ACCESS)));
+
+        for (long accessTime : new long[] { now, now + 1000, startTime2, endTime3 + 1000 }) {
+            for (String user : USERS) {
+                RangerAccessResult expected = reference.evaluatePolicies(createRequest(user, accessTime), RangerPolicy.POLICY_TYPE_ACCESS, null);
+                RangerAccessResult result   = engine.evaluatePolicies(createRequest(user, accessTime), RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+                assertEquals(user + "@" + accessTime, expected.getIsAllowed(), result.getIsAllowed());
+                assertEquals(user + "@" + accessTime, expected.getPolicyId(), result.getPolicyId());
+            }
+        }
+
+        // once policy 2 becomes applicable, only policy 1 is excluded
+        assertEquals(endTime3 + 1, repository.updateInactivePolicies(startTime2));
+        assertEquals(Collections.singleton(1L), getPolicyIds(repository.getInactivePolicies().getEvaluators()));
+        assertEquals(Long.MAX_VALUE, repository.getInactivePolicies().getValidUntil());
+
+        engine.releaseResources(true);
+        reference.releaseResources(true);
+    }
+
+    @Test
+    public void testAccessResultCacheAcrossScheduleBoundary() throws Exception {
+        // only policy 2 has a validity schedule; it is excluded until its start time
+        RangerPolicyEngineImpl engine     = createPolicyEngine(true, true, createPolicy(2L, "user2", new RangerValiditySchedule(futureStartTime, null, null, null)), createPolicy(4L, "user4", null));
+        RangerPolicyRepository repository = engine.getPolicyEngine().getPolicyRepository();
+
+        waitForScheduledUpdate(repository);
+
+        long startTime2 = repository.getPolicyEvaluator(2L).getNextApplicabilityChangeTime(now);
+
+        assertEquals(Collections.singleton(2L), getPolicyIds(repository.getInactivePolicies().getEvaluators()));
+
+        RangerAccessRequest request = createRequest("user2", now);
+
+        assertFalse(engine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed());
+        assertTrue(RangerAccessRequestUtil.getIsContextSensitiveEvaluation(request.getContext()));
+        assertEquals(0, engine.getAccessResultCache().getSize());
+
+        // result while the policy was inactive must not be served after it becomes active
+        assertTrue(engine.evaluatePolicies(createRequest("user2", startTime2), RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed());
+        assertFalse(engine.evaluatePolicies(createRequest("user2", now + 1000), RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed());
+
+        // as without exclusion of inactive policies, results for resources having scheduled policies aren't cached
+        assertTrue(engine.evaluatePolicies(createRequest("user4", now), RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed());
+        assertTrue(engine.evaluatePolicies(createRequest("user4", now), RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed());
+        assertEquals(0, engine.getAccessResultCache().getSize());
+        assertEquals(0, engine.getAccessResultCache().getHitCount());
+
+        engine.releaseResources(true);
+    }
+
+    @Test
+    public void testScheduledUpdate() throws Exception {
+        RangerPolicyEngineImpl engine     = createPolicyEngine(true);
+        RangerPolicyRepository repository = engine.getPolicyEngine().getPolicyRepository();
+
+        waitForScheduledUpdate(repository);
+
+        assertNotNull(repository.getInactivePolicies());
+        assertEquals(new TreeSet<>(Arrays.asList(1L, 2L)), getPolicyIds(repository.getInactivePolicies().getEvaluators()));
+
+        engine.releaseResources(true);
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        RangerPolicyEngineImpl engine     = createPolicyEngine(false);
+        RangerPolicyRepository repository = engine.getPolicyEngine().getPolicyRepository();
+
+        Thread.sleep(200);
+
+        assertNull(repository.getInactivePolicies());
+        assertEquals(new TreeSet<>(Arrays.asList(1L, 2L, 3L, 4L)), getPolicyIds(repository.getPolicyEvaluatorsToEvaluate(createRequest("user1", now), RangerPolicy.POLICY_TYPE_ACCESS)));
+    }
+
+    @Test
+    public void testResourceACLsIncludeInactivePolicies() throws Exception {
+        RangerPolicyEngineImpl engine     = createPolicyEngine(true);
+        RangerPolicyEngineImpl reference  = createPolicyEngine(false);
+        RangerPolicyRepository repository = engine.getPolicyEngine().getPolicyRepository();
+
+        waitForScheduledUpdate(repository);
+
+        assertNotNull(repository.getInactivePolicies());
+
+        RangerResourceACLs acls     = engine.getResourceACLs(createRequest("user1", now));
+        RangerResourceACLs expected = reference.getResourceACLs(createRequest("user1", now));
+
+        // policies having validity schedules are reported as conditional ACLs, even when not applicable at the access-time
+        assertEquals(new TreeSet<>(Arrays.asList(USERS)), new TreeSet<>(acls.getUserACLs().keySet()));
+        assertEquals(expected.getUserACLs().keySet(), acls.getUserACLs().keySet());
+
+        for (String user : USERS) {
+            assertEquals(user, expected.getUserACLs().get(user).get("select").getResult(), acls.getUserACLs().get(user).get("select").getResult());
+        }
+
+        assertEquals((int) RangerPolicyEvaluator.ACCESS_CONDITIONAL, acls.getUserACLs().get("user2").get("select").getResult());
+
+        engine.releaseResources(true);
+        reference.releaseResources(true);
+    }
+
+    private static void waitForScheduledUpdate(RangerPolicyRepository repository) throws InterruptedException {
+        for (int i = 0; i < 50 && repository.getInactivePolicies() == null; i++) {
+            Thread.sleep(100);
+        }
+    }
+
+    private static RangerAccessRequest createRequest(String user, long accessTime) throws Exception {
+        Map<String, Object> elements = new HashMap<>();
+
+        elements.put("database", "db1");
+        elements.put("table", "tbl1");
+
+        RangerAccessResourceImpl resource = new RangerAccessResourceImpl(elements);
+
+        resource.setServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME));
+
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, "select", user, Collections.emptySet(), null);
+
+        request.setAccessTime(new Date(accessTime));
+
+        return request;
+    }
+
+    private static Set<Long> getPolicyIds(Collection<RangerPolicyEvaluator> evaluators) {
+        Set<Long> ret = new TreeSet<>();
+
+        for (RangerPolicyEvaluator evaluator : evaluators) {
+            ret.add(evaluator.getPolicyId());
+        }
+
+        return ret;
+    }
+
+    private RangerPolicyEngineImpl createPolicyEngine(boolean excludeInactivePolicies) throws Exception {
+        return createPolicyEngine(excludeInactivePolicies, false,
+                                  createPolicy(1L, "user1", new RangerValiditySchedule(null, expiredEndTime, null, null)),
+                                  createPolicy(2L, "user2", new RangerValiditySchedule(futureStartTime, null, null, null)),
+                                  createPolicy(3L, "user3", new RangerValiditySchedule(expiredEndTime, currentEndTime, null, null)),
+                                  createPolicy(4L, "user4", null));
+    }
+
+    private RangerPolicyEngineImpl createPolicyEngine(boolean excludeInactivePolicies, boolean enableAccessResultCache, RangerPolicy... policies) throws Exception {
+        ServicePolicies servicePolicies = new ServicePolicies();
+
+        servicePolicies.setServiceName("hivedev");
+        servicePolicies.setServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME));
+        servicePolicies.setPolicyVersion(1L);
+        servicePolicies.setPolicies(Arrays.asList(policies));
+
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.excludeInactivePolicies = excludeInactivePolicies;
+        options.enableAccessResultCache = enableAccessResultCache;
+
+        RangerPluginContext pluginContext = new RangerPluginContext(new RangerPluginConfig("hive", null, "test-inactive-policies", "cl1", "on-prem", options));
+
+        return new RangerPolicyEngineImpl(servicePolicies, pluginContext, null);
+    }
+
+    private static RangerPolicy createPolicy(Long id, String user, RangerValiditySchedule validitySchedule) {
+        RangerPolicy                      policy    = new RangerPolicy();
+        RangerPolicyItem                  item      = new RangerPolicyItem();
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+        resources.put("database", new RangerPolicyResource("db1"));
+        resources.put("table", new RangerPolicyResource("*"));
+
+        item.setUsers(Collections.singletonList(user));
+        item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("select")));
+
+        policy.setId(id);
+        policy.setName("policy-" + id);
+        policy.setService("hivedev");
+        policy.setServiceType("hive");
+        policy.setResources(resources);
+        policy.setPolicyItems(Collections.singletonList(item));
+
+        if (validitySchedule != null) {
+            policy.setValiditySchedules(Collections.singletonList(validitySchedule));
+        }
+
+        return policy;
+    }
+
+    private static String format(long time) {
+        return new SimpleDateFormat(RangerValiditySchedule.VALIDITY_SCHEDULE_DATE_STRING_SPECIFICATION).format(new Date(time));
+    }
+}
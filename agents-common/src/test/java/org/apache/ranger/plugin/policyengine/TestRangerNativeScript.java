@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerRequestExprResolver;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.ScriptEngineUtil;
+import org.junit.Test;
+
+import javax.script.ScriptEngine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestRangerNativeScript {
+    private static final List<String> NATIVE_CONDITIONS = Arrays.asList(
+            "USER.dept == 'ENGG'",
+            "USER['dept'] != 'ENGG'",
+            "USER.dept === \"ENGG\" && USER._name !== 'test-user2'",
+            "USER.state == USER.dept",
+            "HAS_TAG('PII')",
+            "HAS_TAG('PII') && TAG.level == 'high'",
+            "TAG._type == 'PII'",
+            "HAS_ANY_TAG || HAS_NO_TAG",
+            "!HAS_TAG('PCI') && (IS_IN_GROUP('test-group1') || IS_IN_ROLE('test-role1'))",
+            "IS_IN_ANY_GROUP && !IS_NOT_IN_ANY_ROLE",
+            "HAS_USER_ATTR('dept') || HAS_UG_ATTR('site') || HAS_TAG_ATTR('level')",
+            "ctx.isInGroup('test-group2');",
+            "ctx.isAccessedAfter('expiry_date')",
+            "ctx.isAccessedBefore('PII', 'expiry_date')",
+            "IS_ACCESS_TIME_AFTER('2020/01/01') && IS_ACCESS_TIME_BEFORE('2100/01/01 15:00', 'GMT')",
+            "IS_ACCESS_TIME_BETWEEN('2010/01/01', '2020/01/01')",
+            "ctx.getUser() == 'test-user2' || ctx.getCurrentTagType() == 'PII'");
+
+    private static final List<String> SCRIPT_ENGINE_CONDITIONS = Arrays.asList(
+            "USER.dept.startsWith('EN')",
+            "UGNAMES.indexOf('test-group1') != -1",
+            "USER.site > 10",
+            "USER.dept",
+            "ctx.isInGroup(USER.dept)",
+            "var x = USER.dept; x == 'ENGG'",
+            "IS_IN_GROUP('test-group1') ? true : false",
+            "[[TAG.value]].intersects([[USER[TAG._type]]])",
+            "HAS_TAG('PII') & HAS_TAG('PCI')",
+            "USER.dept == 'ENGG",
+            "ctx.unknownFunction('x')");
+
+    @Test
+    public void testCompile() {
+        for (String script : NATIVE_CONDITIONS) {
+            assertNotNull("expected native compilation: " + script, RangerNativeScript.compileCondition(script));
+        }
+
+        for (String script : SCRIPT_ENGINE_CONDITIONS) {
+            assertNull("expected no native compilation: " + script, RangerNativeScript.compileCondition(script));
+        }
+
+        // expressions that don't evaluate to boolean are supported, but not as conditions
+        assertNotNull(RangerNativeScript.compile("USER.dept"));
+        assertNull(RangerNativeScript.compileCondition("USER.dept"));
+    }
+
+    @Test
+    public void testSameResultsAsScriptEngine() {
+        ScriptEngine scriptEngine = ScriptEngineUtil.getThreadScriptEngine("hive");
+
+        assertNotNull(scriptEngine);
+
+        List<RangerAccessRequest> requests = Arrays.asList(createRequest("test-user1", Collections.singleton("test-group1"), Collections.emptySet(), createTag("PII", "high", "2020/01/01")),
+                                                           createRequest("test-user2", new HashSet<>(Arrays.asList("test-group1", "test-group2")), Collections.singleton("test-role1"), createTag("PII", "low", "2100/01/01")),
+                                                           createRequest("test-user3", Collections.emptySet(), Collections.emptySet(), createTag("PCI", "high", null)),
+                                                           createRequest("test-user4", Collections.emptySet(), Collections.emptySet(), null));
+
+        for (RangerAccessRequest request : requests) {
+            for (String script : NATIVE_CONDITIONS) {
+                RangerRequestScriptEvaluator jsEvaluator     = new RangerRequestScriptEvaluator(request, scriptEngine, true);
+                RangerRequestScriptEvaluator nativeEvaluator = new RangerRequestScriptEvaluator(request);
+
+                jsEvaluator.evaluateConditionScript(script);
+                nativeEvaluator.evaluateConditionScript(RangerNativeScript.compileCondition(script));
+
+                assertEquals("script=" + script + ", user=" + request.getUser(), jsEvaluator.getResult(), nativeEvaluator.getResult());
+            }
+        }
+    }
+
+    @Test
+    public void testExpressions() {
+        RangerAccessRequest request = createRequest("test-user2", Collections.singleton("test-group1"), Collections.emptySet(), createTag("PII", "high", null));
+
+        assertEquals("dept = 'ENGG' AND level = 'high' AND state = ''", new RangerRequestExprResolver("dept = '${{USER.dept}}' AND level = '${{TAG.level}}' AND state = '${{USER.state}}'", "hive").resolveExpressions(request));
+        assertEquals("isPII = true AND user = 'test-user2'", new RangerRequestExprResolver("isPII = ${{HAS_TAG('PII')}} AND user = '${{ctx.getUser()}}'", "hive").resolveExpressions(request));
+
+        // mix of native and script engine expressions
+        assertEquals("dept = 'ENGG' AND groups = 'test-group1'", new RangerRequestExprResolver("dept = '${{USER.dept}}' AND groups = '${{UGNAMES.join(',')}}'", "hive").resolveExpressions(request));
+    }
+
+    private static RangerAccessRequest createRequest(String userName, Set<String> userGroups, Set<String> userRoles, RangerTag tag) {
+        Map<String, Object> elements = new HashMap<>();
+
+        elements.put("database", "db1");
+        elements.put("table", "tbl1");
+
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(new RangerAccessResourceImpl(elements), "select", userName, userGroups, userRoles);
+
+        if (tag != null) {
+            RangerTagForEval tagForEval = new RangerTagForEval(tag, RangerPolicyResourceMatcher.MatchType.SELF);
+
+            RangerAccessRequestUtil.setRequestTagsInContext(request.getContext(), Collections.singleton(tagForEval));
+            RangerAccessRequestUtil.setCurrentTagInContext(request.getContext(), tagForEval);
+        }
+
+        Map<String, Map<String, String>> userAttrMapping  = new HashMap<>();
+        Map<String, Map<String, String>> groupAttrMapping = new HashMap<>();
+        RangerUserStore                  userStore        = new RangerUserStore();
+
+        userAttrMapping.put("test-user1", Collections.singletonMap("state", "CA"));
+        userAttrMapping.put("test-user2", Collections.singletonMap("dept", "ENGG"));
+        userAttrMapping.put("test-user3", new HashMap<String, String>() {{ put("dept", "MKTG"); put("state", "MKTG"); }});
+        groupAttrMapping.put("test-group1", Collections.singletonMap("site", "10"));
+
+        userStore.setUserAttrMapping(userAttrMapping);
+        userStore.setGroupAttrMapping(groupAttrMapping);
+
+        RangerAccessRequestUtil.setRequestUserStoreInContext(request.getContext(), userStore);
+
+        return request;
+    }
+
+    private static RangerTag createTag(String type, String level, String expiryDate) {
+        Map<String, String> attributes = new HashMap<>();
+
+        attributes.put("level", level);
+
+        if (expiryDate != null) {
+            attributes.put("expiry_date", expiryDate);
+        }
+
+        return new RangerTag(type, attributes);
+    }
+}
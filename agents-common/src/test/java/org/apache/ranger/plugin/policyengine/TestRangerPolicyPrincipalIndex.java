@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.policyevaluator.RangerDefaultPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerOptimizedPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerPolicyPrincipalIndex {
+	@Test
+	public void testPrincipalFilter() {
+		RangerPolicyEvaluator userPolicy    = new TestPolicyEvaluator(createPolicy(Arrays.asList("user1"), null, null, false));
+		RangerPolicyEvaluator groupPolicy   = new TestPolicyEvaluator(createPolicy(null, Arrays.asList("group1"), null, false));
+		RangerPolicyEvaluator rolePolicy    = new TestPolicyEvaluator(createPolicy(null, null, Arrays.asList("role1"), false));
+		RangerPolicyEvaluator publicPolicy  = new TestPolicyEvaluator(createPolicy(null, Arrays.asList(RangerPolicyEngine.GROUP_PUBLIC), null, false));
+		RangerPolicyEvaluator curUserPolicy = new TestPolicyEvaluator(createPolicy(Arrays.asList(RangerPolicyEngine.USER_CURRENT), null, null, false));
+		RangerPolicyEvaluator ownerPolicy   = new TestPolicyEvaluator(createPolicy(Arrays.asList(RangerPolicyEngine.RESOURCE_OWNER), null, null, false));
+		RangerPolicyEvaluator denyAllElse   = new TestPolicyEvaluator(createPolicy(Arrays.asList("user2"), null, null, true));
+		RangerPolicyEvaluator notIndexed    = new RangerDefaultPolicyEvaluator();
+
+		RangerPolicyPrincipalIndex index = new RangerPolicyPrincipalIndex();
+
+		index.addAll(Arrays.asList(userPolicy, groupPolicy, rolePolicy, publicPolicy, curUserPolicy, ownerPolicy, denyAllElse, notIndexed));
+
+		// policies for all users
+		RangerPolicyPrincipalIndex.PrincipalFilter filter = index.getFilter(createRequest("user3", "group3", null, null));
+
+		assertFalse(filter.isApplicable(userPolicy));
+		assertFalse(filter.isApplicable(groupPolicy));
+		assertFalse(filter.isApplicable(rolePolicy));
+		assertTrue(filter.isApplicable(publicPolicy));
+		assertTrue(filter.isApplicable(curUserPolicy));
+		assertFalse(filter.isApplicable(ownerPolicy));
+		assertTrue(filter.isApplicable(denyAllElse));
+		assertTrue(filter.isApplicable(notIndexed));
+
+		// user, group, role and owner
+		filter = index.getFilter(createRequest("user1", "group1", "role1", "user1"));
+
+		assertTrue(filter.isApplicable(userPolicy));
+		assertTrue(filter.isApplicable(groupPolicy));
+		assertTrue(filter.isApplicable(rolePolicy));
+		assertTrue(filter.isApplicable(ownerPolicy));
+
+		filter = index.getFilter(createRequest("user3", "group1", null, "user1"));
+
+		assertFalse(filter.isApplicable(userPolicy));
+		assertTrue(filter.isApplicable(groupPolicy));
+		assertFalse(filter.isApplicable(rolePolicy));
+		assertFalse(filter.isApplicable(ownerPolicy));
+	}
+
+	private static RangerPolicy createPolicy(List<String> users, List<String> groups, List<String> roles, boolean isDenyAllElse) {
+		RangerPolicy     policy = new RangerPolicy();
+		RangerPolicyItem item   = new RangerPolicyItem();
+
+		item.setUsers(users);
+		item.setGroups(groups);
+		item.setRoles(roles);
+
+		policy.setPolicyItems(Collections.singletonList(item));
+		policy.setIsDenyAllElse(isDenyAllElse);
+
+		return policy;
+	}
+
+	private static RangerAccessRequest createRequest(String user, String group, String role, String owner) {
+		RangerAccessResourceImpl resource = new RangerAccessResourceImpl(Collections.singletonMap("path", "/test"), owner);
+		RangerAccessRequestImpl  request  = new RangerAccessRequestImpl(resource, "read", user, new HashSet<>(Collections.singletonList(group)), null);
+
+		if (role != null) {
+			RangerAccessRequestUtil.setCurrentUserRolesInContext(request.getContext(), Collections.singleton(role));
+		}
+
+		return request;
+	}
+
+	private static class TestPolicyEvaluator extends RangerOptimizedPolicyEvaluator {
+		private final RangerPolicy policy;
+
+		TestPolicyEvaluator(RangerPolicy policy) {
+			this.policy = policy;
+		}
+
+		@Override
+		public RangerPolicy getPolicy() {
+			return policy;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestRangerResourceACLIndex {
+    private static final String[] TEST_FILES = { "/policyengine/test_aclprovider_default.json", "/policyengine/test_aclprovider_hdfs.json",
+                                                 "/policyengine/test_aclprovider_mask_filter.json", "/policyengine/test_aclprovider_resource_hierarchy_tags.json" };
+
+    private static final Gson gson = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z")
+                                                      .registerTypeAdapter(RangerAccessResource.class, (JsonDeserializer<RangerAccessResource>) (json, type, context) -> context.deserialize(json, RangerAccessResourceImpl.class))
+                                                      .create();
+
+    @Test
+    public void testIndexedACLsSameAsComputed() throws Exception {
+        for (String testFile : TEST_FILES) {
+            for (TestPolicyACLs.PolicyACLsTests.TestCase testCase : readTestCases(testFile)) {
+                RangerPolicyEngineImpl engine        = createPolicyEngine(testCase.servicePolicies, false);
+                RangerPolicyEngineImpl indexedEngine = createPolicyEngine(testCase.servicePolicies, true);
+
+                assertNull(engine.getResourceACLIndex());
+                assertNotNull(indexedEngine.getResourceACLIndex());
+
+                for (TestPolicyACLs.PolicyACLsTests.TestCase.OneTest oneTest : testCase.tests) {
+                    RangerResourceACLs expected = engine.getResourceACLs(createRequest(oneTest));
+                    RangerResourceACLs computed = indexedEngine.getResourceACLs(createRequest(oneTest));
+                    RangerResourceACLs indexed  = indexedEngine.getResourceACLs(createRequest(oneTest));
+
+                    assertEquals(testFile + ":" + oneTest.name, expected, computed);
+                    assertEquals(testFile + ":" + oneTest.name, expected, indexed);
+
+                    // callers can update the returned ACLs, without affecting the index
+                    indexed.getUserACLs().clear();
+                    indexed.getGroupACLs().clear();
+
+                    assertEquals(testFile + ":" + oneTest.name, expected, indexedEngine.getResourceACLs(createRequest(oneTest)));
+                }
+
+                assertTrue(testFile, indexedEngine.getResourceACLIndex().getStats().getHitCount() > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testPolicyDeltas() throws Exception {
+        TestPolicyACLs.PolicyACLsTests.TestCase testCase        = readTestCases(TEST_FILES[0]).get(0);
+        ServicePolicies                         servicePolicies = testCase.servicePolicies;
+        RangerPolicyEngineImpl                  engine          = createPolicyEngine(servicePolicies, false);
+        RangerPolicyEngineImpl                  indexedEngine   = createPolicyEngine(servicePolicies, true);
+
+        // both engines evaluate the same requests, as evaluation of policies having macros updates the policy resources
+        for (TestPolicyACLs.PolicyACLsTests.TestCase.OneTest oneTest : testCase.tests) {
+            engine.getResourceACLs(createRequest(oneTest));
+            indexedEngine.getResourceACLs(createRequest(oneTest));
+        }
+
+        int indexSize = indexedEngine.getResourceACLIndex().size();
+
+        // update policy db=finance; table=fin_*; column=* and delete policy db=default; table=table; column=column
+        RangerPolicy updatedPolicy = gson.fromJson(gson.toJson(getPolicy(servicePolicies, 4L)), RangerPolicy.class);
+        RangerPolicy deletedPolicy = gson.fromJson(gson.toJson(getPolicy(servicePolicies, 11L)), RangerPolicy.class);
+
+        updatedPolicy.getPolicyItems().get(0).getUsers().add("new-user");
+
+        for (RangerPolicy policy : Arrays.asList(updatedPolicy, deletedPolicy)) {
+            policy.setServiceType(servicePolicies.getServiceDef().getName());
+            policy.setPolicyType(RangerPolicy.POLICY_TYPE_ACCESS);
+        }
+
+        ServicePolicies deltas = new ServicePolicies();
+
+        deltas.setServiceName(servicePolicies.getServiceName());
+        deltas.setServiceDef(servicePolicies.getServiceDef());
+        deltas.setPolicyVersion(servicePolicies.getPolicyVersion() == null ? 1L : servicePolicies.getPolicyVersion() + 1);
+        deltas.setPolicyDeltas(Arrays.asList(new RangerPolicyDelta(1L, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, deltas.getPolicyVersion(), updatedPolicy),
+                                             new RangerPolicyDelta(2L, RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE, deltas.getPolicyVersion(), deletedPolicy)));
+
+        RangerPolicyEngineImpl updatedEngine = (RangerPolicyEngineImpl) RangerPolicyEngineImpl.getPolicyEngine(indexedEngine, deltas);
+
+        assertNotNull(updatedEngine);
+        assertNotSame(indexedEngine, updatedEngine);
+
+        int retainedSize = updatedEngine.getResourceACLIndex().size();
+
+        assertTrue("retained=" + retainedSize + ", indexSize=" + indexSize, retainedSize > 0 && retainedSize < indexSize);
+
+        // ACLs from the index must be same as computed by an engine without the index, after the deltas are applied
+        RangerPolicyEngineImpl expectedEngine = (RangerPolicyEngineImpl) RangerPolicyEngineImpl.getPolicyEngine(engine, deltas);
+
+        for (TestPolicyACLs.PolicyACLsTests.TestCase.OneTest oneTest : testCase.tests) {
+            assertEquals(oneTest.name, expectedEngine.getResourceACLs(createRequest(oneTest)), updatedEngine.getResourceACLs(createRequest(oneTest)));
+        }
+
+        assertTrue(updatedEngine.getResourceACLIndex().getStats().getHitCount() >= retainedSize);
+    }
+
+    private static List<TestPolicyACLs.PolicyACLsTests.TestCase> readTestCases(String testFile) throws Exception {
+        try (Reader reader = new InputStreamReader(TestRangerResourceACLIndex.class.getResourceAsStream(testFile))) {
+            return gson.fromJson(reader, TestPolicyACLs.PolicyACLsTests.class).testCases;
+        }
+    }
+
+    private static RangerPolicyEngineImpl createPolicyEngine(ServicePolicies servicePolicies, boolean enableResourceACLIndex) {
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.enableResourceACLIndex = enableResourceACLIndex;
+
+        RangerPluginContext pluginContext = new RangerPluginContext(new RangerPluginConfig(servicePolicies.getServiceDef().getName(), null, "test-resource-acl-index", "cl1", "on-prem", options));
+
+        // each engine gets its own copy of policies, to keep engines independent of each other
+        return new RangerPolicyEngineImpl(gson.fromJson(gson.toJson(servicePolicies), ServicePolicies.class), pluginContext, null);
+    }
+
+    private static RangerAccessRequest createRequest(TestPolicyACLs.PolicyACLsTests.TestCase.OneTest oneTest) {
+        RangerAccessRequestImpl ret = new RangerAccessRequestImpl(oneTest.resource, RangerPolicyEngine.ANY_ACCESS, null, null, null);
+
+        ret.setResourceMatchingScope(oneTest.resourceMatchingScope);
+
+        return ret;
+    }
+
+    private static RangerPolicy getPolicy(ServicePolicies servicePolicies, Long policyId) {
+        for (RangerPolicy policy : servicePolicies.getPolicies()) {
+            if (policy.getId().equals(policyId)) {
+                return policy;
+            }
+        }
+
+        throw new IllegalArgumentException("policy id=" + policyId + " not found");
+    }
+}
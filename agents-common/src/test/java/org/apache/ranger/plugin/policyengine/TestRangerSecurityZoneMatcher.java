@@ -75,6 +75,105 @@ public void testZoneMatcher() {
         assertEquals(createSet("", "z3", "z4"), zones);
     }
 
+    @Test
+    public void testZoneMatcherCache() {
+        RangerSecurityZoneMatcher zoneMatcher = new RangerSecurityZoneMatcher(securityZones, serviceDef, pluginContext);
+        String[][]                resources   = { { "database", "db1", "table", "tbl1" }, { "database", "db3", "table", "test_1" }, { "database", "db3", "table", "orders" }, { "database", "db3" } };
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(createSet("z1"), zoneMatcher.getZonesForResourceAndChildren(createResource(resources[0])));
+            assertEquals(createSet("z3"), zoneMatcher.getZonesForResourceAndChildren(createResource(resources[1])));
+            assertNull(zoneMatcher.getZonesForResourceAndChildren(createResource(resources[2])));
+            assertEquals(createSet("", "z3", "z4"), zoneMatcher.getZonesForResourceAndChildren(createResource(resources[3])));
+
+            // lookup with resource as map shares the cache
+            assertEquals(createSet("", "z3", "z4"), zoneMatcher.getZonesForResourceAndChildren(createResource(resources[3]).getAsMap()));
+        }
+
+        assertEquals(11, zoneMatcher.getCacheStats().getHitCount());
+        assertEquals(4, zoneMatcher.getCacheStats().getMissCount());
+
+        Set<String> zones = zoneMatcher.getZonesForResourceAndChildren(createResource(resources[3]));
+
+        assertTrue(zones.contains("z3"));
+        assertFalse(zones.contains("z1"));
+        assertFalse(zones.contains(null));
+
+        try {
+            zones.add("z1");
+
+            fail("cached zone set must not be updatable");
+        } catch (UnsupportedOperationException excp) {
+            // expected
+        }
+
+        // resource with names not in service-def is not cached
+        Map<String, Object> resource = new HashMap<>(createResource(resources[0]).getAsMap());
+
+        resource.put("unknown", "value");
+
+        assertEquals(zoneMatcher.getZonesForResourceAndChildren(resource), zoneMatcher.getZonesForResourceAndChildren(resource));
+        assertEquals(12, zoneMatcher.getCacheStats().getHitCount());
+        assertEquals(4, zoneMatcher.getCacheStats().getMissCount());
+    }
+
+    @Test
+    public void testHasSameZones() {
+        RangerSecurityZoneMatcher zoneMatcher = new RangerSecurityZoneMatcher(securityZones, serviceDef, pluginContext);
+
+        assertTrue(zoneMatcher.hasSameZones(createSecurityZones()));
+
+        Map<String, SecurityZoneInfo> zones = createSecurityZones();
+
+        zones.get("z1").setContainsAssociatedTagService(true);
+
+        assertFalse(zoneMatcher.hasSameZones(zones));
+
+        zones = createSecurityZones();
+
+        zones.remove("z1");
+
+        assertFalse(zoneMatcher.hasSameZones(zones));
+        assertFalse(zoneMatcher.hasSameZones(null));
+        assertTrue(new RangerSecurityZoneMatcher(null, serviceDef, pluginContext).hasSameZones(Collections.emptyMap()));
+
+        zones = createSecurityZones();
+
+        zones.get("z2").setResources(Arrays.asList(new HashMap<String, List<String>>() {{ put("database", Arrays.asList("db2", "db5")); }}));
+
+        assertFalse(zoneMatcher.hasSameZones(zones));
+    }
+
+    @Test
+    public void testManyZones() {
+        Map<String, SecurityZoneInfo> zones = new HashMap<>();
+
+        for (int i = 0; i < 200; i++) {
+            SecurityZoneInfo zone = new SecurityZoneInfo();
+            final String     db   = "db" + (i % 100);
+
+            zone.setZoneName("zone" + i);
+            zone.setResources(Arrays.asList(new HashMap<String, List<String>>() {{ put("database", Arrays.asList(db)); }}));
+
+            zones.put(zone.getZoneName(), zone);
+        }
+
+        RangerSecurityZoneMatcher zoneMatcher = new RangerSecurityZoneMatcher(zones, serviceDef, pluginContext);
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 100; i++) {
+                Set<String> expected = createSet("zone" + i, "zone" + (i + 100));
+                Set<String> actual   = zoneMatcher.getZonesForResourceAndChildren(createResource("database", "db" + i, "table", "tbl1"));
+
+                assertEquals(expected, actual);
+                assertEquals(expected, new HashSet<>(actual));
+                assertEquals(expected.hashCode(), actual.hashCode());
+            }
+        }
+
+        assertEquals(100, zoneMatcher.getCacheStats().getHitCount());
+    }
+
     private Map<String, SecurityZoneInfo> createSecurityZones() {
         HashMap<String, List<String>> db1     = new HashMap<String, List<String>>() {{ put("database", Arrays.asList("db1")); }};
         HashMap<String, List<String>> db2     = new HashMap<String, List<String>>() {{ put("database", Arrays.asList("db2")); }};
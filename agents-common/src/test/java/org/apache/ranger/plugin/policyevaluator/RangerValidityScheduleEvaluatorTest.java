@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyevaluator;
+
+import org.apache.ranger.plugin.model.RangerValidityRecurrence;
+import org.apache.ranger.plugin.model.RangerValidityRecurrence.RecurrenceSchedule;
+import org.apache.ranger.plugin.model.RangerValidityRecurrence.ValidityInterval;
+import org.apache.ranger.plugin.model.RangerValiditySchedule;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RangerValidityScheduleEvaluatorTest {
+    private static final String START_TIME = "2024/01/10 09:00:00";
+    private static final String END_TIME   = "2024/01/20 17:30:00";
+
+    @Test
+    public void testTransitionsOfStartAndEnd() throws Exception {
+        RangerValidityScheduleEvaluator evaluator = new RangerValidityScheduleEvaluator(START_TIME, END_TIME, null, null);
+
+        // times as parsed by the evaluator, which uses the timezone that was default when this thread first parsed a time
+        long startTime = evaluator.getNextTransitionTime(0);
+        long endTime   = evaluator.getNextTransitionTime(startTime) - 1;
+
+        assertEquals(parse(END_TIME) - parse(START_TIME), endTime - startTime);
+        assertFalse(evaluator.isApplicable(startTime - 1));
+        assertEquals(startTime, evaluator.getNextTransitionTime(startTime - 1));
+        assertTrue(evaluator.isApplicable(startTime));
+        assertTrue(evaluator.isApplicable(endTime));
+        assertFalse(evaluator.isApplicable(endTime + 1));
+        assertEquals(Long.MAX_VALUE, evaluator.getNextTransitionTime(endTime + 1));
+
+        // evaluations with earlier access-times, after the window moved to later time, return the same result as before
+        assertTrue(evaluator.isApplicable(startTime + 1000));
+        assertFalse(evaluator.isApplicable(startTime - 1000));
+
+        RangerValidityScheduleEvaluator always = new RangerValidityScheduleEvaluator(null, null, null, null);
+
+        assertTrue(always.isApplicable(startTime));
+        assertEquals(Long.MAX_VALUE, always.getNextTransitionTime(startTime));
+    }
+
+    @Test
+    public void testTransitionsOfRecurrence() throws Exception {
+        // 10:15 to 10:45, every day
+        RangerValidityRecurrence        recurrence = new RangerValidityRecurrence(new RecurrenceSchedule("15", "10", "*", "*", "*", "*"), new ValidityInterval(0, 0, 30));
+        RangerValidityScheduleEvaluator evaluator  = new RangerValidityScheduleEvaluator(START_TIME, END_TIME, null, Collections.singletonList(recurrence));
+
+        assertFalse(evaluator.isApplicable(parse("2024/01/15 10:14:59")));
+        assertEquals(parse("2024/01/15 10:15:00"), evaluator.getNextTransitionTime(parse("2024/01/15 10:14:59")));
+        assertTrue(evaluator.isApplicable(parse("2024/01/15 10:15:00")));
+        assertEquals(parse("2024/01/15 10:16:00"), evaluator.getNextTransitionTime(parse("2024/01/15 10:15:00"))); // recurrences are evaluated once a minute
+        assertTrue(evaluator.isApplicable(parse("2024/01/15 10:45:00")));
+        assertEquals(parse("2024/01/15 10:45:00") + 1, evaluator.getNextTransitionTime(parse("2024/01/15 10:45:00")));
+        assertFalse(evaluator.isApplicable(parse("2024/01/15 10:45:01")));
+    }
+
+    @Test
+    public void testCachedResultsMatchComputedResults() throws Exception {
+        List<RangerValiditySchedule> schedules = Arrays.asList(
+                new RangerValiditySchedule(START_TIME, END_TIME, null, null),
+                new RangerValiditySchedule(START_TIME, END_TIME, "America/Los_Angeles", null),
+                new RangerValiditySchedule(null, END_TIME, "Asia/Kolkata", null),
+                new RangerValiditySchedule(START_TIME, null, null, Collections.singletonList(new RangerValidityRecurrence(new RecurrenceSchedule("0,30", "*", "*", "*", "*", "*"), new ValidityInterval(0, 0, 10)))),
+                new RangerValiditySchedule(START_TIME, END_TIME, null, Collections.singletonList(new RangerValidityRecurrence(new RecurrenceSchedule("0", "9", "*", "2-6", "*", "*"), new ValidityInterval(0, 8, 0)))),
+                new RangerValiditySchedule(null, null, "UTC", Arrays.asList(new RangerValidityRecurrence(new RecurrenceSchedule("15", "22", "1-10", "*", "*", "*"), new ValidityInterval(1, 2, 0)),
+                                                                           new RangerValidityRecurrence(new RecurrenceSchedule("5,45", "3", "*", "1", "*", "*"), new ValidityInterval(0, 0, 1)))));
+        Random random = new Random(12345);
+
+        for (RangerValiditySchedule schedule : schedules) {
+            RangerValidityScheduleEvaluator evaluator  = new RangerValidityScheduleEvaluator(schedule);
+            long                            accessTime = parse("2024/01/08 00:00:00");
+            long                            endTime    = parse("2024/01/23 00:00:00");
+
+            while (accessTime < endTime) {
+                int step = random.nextInt(10);
+
+                // mostly forward, in steps of up to 20 seconds or up to 10 minutes; at times backward
+                if (step == 0) {
+                    accessTime -= random.nextInt(600 * 1000);
+                } else if (step < 5) {
+                    accessTime += random.nextInt(20 * 1000);
+                } else {
+                    accessTime += random.nextInt(600 * 1000);
+                }
+
+                boolean expected = new RangerValidityScheduleEvaluator(schedule).isApplicable(accessTime);
+
+                assertEquals(schedule + ": accessTime=" + accessTime, expected, evaluator.isApplicable(accessTime));
+            }
+        }
+    }
+
+    private static long parse(String time) throws Exception {
+        return new SimpleDateFormat(RangerValiditySchedule.VALIDITY_SCHEDULE_DATE_STRING_SPECIFICATION).parse(time).getTime();
+    }
+}
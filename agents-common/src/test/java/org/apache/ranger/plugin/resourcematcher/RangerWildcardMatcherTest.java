@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.resourcematcher;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RangerWildcardMatcherTest {
+    private static final String[] PATTERNS = {
+            "", "*", "**", "?", "??", "*?", "?*", "a", "abc", "a*", "*a", "*a*", "a*c", "a?c", "a*b*c", "*abc*", "a**c", "ab*ab",
+            "*.txt", "/home/*/data", "/home/**/data?", "/tmp/?*", "ABC*", "*Ä*", "sales_db_*_2024", "*_*_*", "aa*aa", "*aab", "*?b", "a*?", "*?*", "*??c"
+    };
+
+    private static final String[] VALUES = {
+            "", "a", "A", "ab", "abc", "ABC", "abcabc", "ac", "abbc", "aXbYc", "aabab", "abab", "file.txt", "file.TXT", "/home/user/data",
+            "/home/user/more/data1", "/tmp/", "/tmp/x", "abcdef", "xÄy", "xäy", "sales_db_q1_2024", "a_b_c", "aaa", "aaaa", "aaaab", "aab"
+    };
+
+    @Test
+    public void testSameAsFilenameUtils() {
+        for (String pattern : PATTERNS) {
+            RangerWildcardMatcher matcher = new RangerWildcardMatcher(pattern);
+
+            for (String value : VALUES) {
+                assertMatch(matcher, value);
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsFilenameUtilsRandom() {
+        Random random = new Random(20240101L);
+        char[] chars  = { 'a', 'b', 'A', 'B', '/', '*', '?' };
+
+        for (int i = 0; i < 20000; i++) {
+            String                pattern = randomString(random, chars, 8);
+            String                value   = randomString(random, chars, 10).replace('*', 'a').replace('?', 'b');
+            RangerWildcardMatcher matcher = new RangerWildcardMatcher(pattern);
+
+            assertMatch(matcher, value);
+        }
+    }
+
+    @Test
+    public void testNullValues() {
+        assertTrue(RangerWildcardMatcher.wildcardMatch(null, null, false));
+        assertFalse(RangerWildcardMatcher.wildcardMatch(null, "*", false));
+        assertFalse(RangerWildcardMatcher.wildcardMatch("abc", null, true));
+        assertFalse(new RangerWildcardMatcher("*").isMatch(null, false));
+    }
+
+    @Test
+    public void testCharSequence() {
+        RangerWildcardMatcher matcher = new RangerWildcardMatcher("/home/*/data");
+
+        assertTrue(matcher.isMatch(new StringBuilder("/home/user/data"), false));
+        assertFalse(matcher.isMatch(new StringBuilder("/home/user/data/"), false));
+        assertTrue(matcher.isMatch(new StringBuilder("/HOME/user/DATA"), true));
+    }
+
+    private static void assertMatch(RangerWildcardMatcher matcher, String value) {
+        String pattern = matcher.getPattern();
+
+        assertEquals("pattern=" + pattern + ", value=" + value, FilenameUtils.wildcardMatch(value, pattern, IOCase.SENSITIVE), matcher.isMatch(value, false));
+        assertEquals("pattern=" + pattern + ", value=" + value, FilenameUtils.wildcardMatch(value, pattern, IOCase.INSENSITIVE), matcher.isMatch(value, true));
+        assertEquals("pattern=" + pattern + ", value=" + value, FilenameUtils.wildcardMatch(value, pattern, IOCase.INSENSITIVE), RangerWildcardMatcher.wildcardMatch(value, pattern, true));
+    }
+
+    private static String randomString(Random random, char[] chars, int maxLength) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int len = random.nextInt(maxLength + 1); len > 0; len--) {
+            sb.append(chars[random.nextInt(chars.length)]);
+        }
+
+        return sb.toString();
+    }
+}
@@ -22,6 +22,7 @@
 import com.google.gson.*;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerRole;
 import org.apache.ranger.plugin.policyengine.*;
 import org.apache.ranger.plugin.util.*;
 import org.junit.BeforeClass;
@@ -62,6 +63,38 @@ public void testBasePluginHive() {
         runTestsFromResourceFile("/plugin/test_base_plugin_hive.json");
     }
 
+    @Test
+    public void testRoleDeltasWithoutRoles() {
+        RangerPluginConfig pluginConfig = new RangerPluginConfig("hive", "cl1_hive", "hive", "cl1", "on-prem", peOptions);
+        RangerBasePlugin   plugin       = new RangerBasePlugin(pluginConfig);
+        RangerRoles        deltas       = createRoles(2L, true, "role1");
+
+        // deltas are ignored when there are no roles to apply them to
+        plugin.setRoles(deltas);
+
+        assertNull(plugin.getRoles());
+
+        plugin.setRoles(createRoles(1L, false, "role2"));
+        plugin.setRoles(deltas);
+
+        assertEquals(Long.valueOf(2), plugin.getRoles().getRoleVersion());
+        assertEquals(2, plugin.getRoles().getRangerRoles().size());
+    }
+
+    private RangerRoles createRoles(Long roleVersion, boolean isDelta, String... roleNames) {
+        RangerRoles ret = new RangerRoles();
+
+        ret.setRoleVersion(roleVersion);
+        ret.setRangerRoles(new HashSet<>());
+        ret.setIsDelta(isDelta);
+
+        for (String roleName : roleNames) {
+            ret.getRangerRoles().add(new RangerRole(roleName, null, null, Collections.singletonList(new RangerRole.RoleMember("user1", false)), null));
+        }
+
+        return ret;
+    }
+
     private void runTestsFromResourceFile(String resourceFile) {
         InputStream       inStream = this.getClass().getResourceAsStream(resourceFile);
         InputStreamReader reader   = new InputStreamReader(inStream);
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RangerBitSetTest {
+    @Test
+    public void testAddAndGet() {
+        RangerBitSet bitSet = new RangerBitSet(100, 300);
+
+        assertTrue(bitSet.isEmpty());
+        assertTrue(bitSet.add(100));
+        assertTrue(bitSet.add(300));
+        assertFalse("add() of an existing bit should return false", bitSet.add(300));
+
+        assertTrue(bitSet.get(100));
+        assertTrue(bitSet.get(300));
+        assertFalse(bitSet.get(200));
+        assertFalse("get() outside the range should return false", bitSet.get(5000));
+        assertFalse("get() of a negative index should return false", bitSet.get(-1));
+        assertEquals(2, bitSet.cardinality());
+        assertEquals("{100, 300}", bitSet.toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testAddOutOfRange() {
+        new RangerBitSet(100, 300).add(5000);
+    }
+
+    @Test
+    public void testOrAnd() {
+        RangerBitSet a = new RangerBitSet(0, 1000);
+        RangerBitSet b = new RangerBitSet(500, 5000);
+
+        for (int i = 0; i <= 1000; i += 3) {
+            a.add(i);
+        }
+
+        for (int i = 500; i <= 5000; i += 5) {
+            b.add(i);
+        }
+
+        RangerBitSet result = new RangerBitSet(b);
+
+        assertEquals(33, result.orAnd(a, b)); // multiples of 15 in [500, 1000]
+        assertEquals("bits already set should not be counted again", 0, result.orAnd(a, b));
+        assertEquals(33, result.cardinality());
+
+        for (int i = 0; i <= 5000; i++) {
+            assertEquals("incorrect bit " + i, i >= 500 && i <= 1000 && i % 15 == 0, result.get(i));
+        }
+    }
+
+    @Test
+    public void testReset() {
+        RangerBitSet bitSet = new RangerBitSet();
+
+        assertTrue(bitSet.isEmpty());
+        assertFalse(bitSet.get(0));
+
+        bitSet.reset(1000, 2000).add(1500);
+
+        assertTrue(bitSet.get(1500));
+
+        bitSet.reset(0, 100); // smaller range reuses the words, which must be cleared
+
+        assertTrue(bitSet.isEmpty());
+        assertFalse(bitSet.get(1500));
+        assertTrue(bitSet.add(64));
+        assertEquals("{64}", bitSet.toString());
+
+        RangerBitSet a = new RangerBitSet(5000, 6000);
+
+        a.add(5500);
+        a.add(5990);
+
+        assertTrue("reset() to the range of another bitset should clear all bits", bitSet.reset(a).isEmpty());
+        assertFalse(bitSet.get(64));
+        assertEquals(2, bitSet.orAnd(a, a));
+        assertEquals("{5500, 5990}", bitSet.toString());
+    }
+}
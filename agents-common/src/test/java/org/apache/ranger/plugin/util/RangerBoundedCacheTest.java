@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.*;
+
+public class RangerBoundedCacheTest {
+    @Test
+    public void testGetPutRemove() {
+        RangerBoundedCache<String, String> cache = new RangerBoundedCache<>(100);
+
+        assertNull(cache.get("key1"));
+
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+
+        assertEquals("value1", cache.get("key1"));
+        assertEquals("value2", cache.get("key2"));
+
+        cache.put("key1", "value1-updated");
+
+        assertEquals("value1-updated", cache.get("key1"));
+        assertEquals("value2", cache.remove("key2"));
+        assertNull(cache.get("key2"));
+        assertEquals(1, cache.size());
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("key1"));
+
+        RangerBoundedCache.Stats stats = cache.getStats();
+
+        assertEquals(3, stats.getHitCount());
+        assertEquals(3, stats.getMissCount());
+    }
+
+    @Test
+    public void testBoundedSize() {
+        RangerBoundedCache<Integer, Integer> cache = new RangerBoundedCache<>(1000);
+
+        for (int i = 0; i < 100000; i++) {
+            cache.put(i, i);
+        }
+
+        cache.cleanUp();
+
+        assertEquals(1000, cache.size());
+        assertEquals(99000, cache.getStats().getEvictionCount());
+    }
+
+    @Test
+    public void testZeroSize() {
+        RangerBoundedCache<Integer, Integer> cache = new RangerBoundedCache<>(0);
+
+        cache.put(1, 1);
+
+        assertNull(cache.get(1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testFrequentKeysSurviveScan() {
+        RangerBoundedCache<String, Integer> cache = new RangerBoundedCache<>(1000);
+
+        for (int i = 0; i < 500; i++) {
+            cache.put("hot-" + i, i);
+        }
+
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 500; i++) {
+                cache.get("hot-" + i);
+            }
+
+            cache.cleanUp();
+        }
+
+        // scan of keys accessed only once: a LRU cache of this size would evict all hot keys
+        for (int i = 0; i < 100000; i++) {
+            cache.put("scan-" + i, i);
+        }
+
+        cache.cleanUp();
+
+        int hotCount = 0;
+
+        for (int i = 0; i < 500; i++) {
+            if (cache.get("hot-" + i) != null) {
+                hotCount++;
+            }
+        }
+
+        assertTrue("hotCount=" + hotCount, hotCount >= 450);
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final int                                  maximumSize = 1000;
+        final RangerBoundedCache<Integer, Integer> cache       = new RangerBoundedCache<>(maximumSize);
+        final ExecutorService                      executor    = Executors.newFixedThreadPool(16);
+        final List<Future<?>>                      futures     = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < 16; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                    for (int i = 0; i < 100000; i++) {
+                        int     key   = random.nextInt(4 * maximumSize);
+                        Integer value = cache.get(key);
+
+                        if (value == null) {
+                            cache.put(key, key);
+                        } else {
+                            assertEquals(key, value.intValue());
+                        }
+
+                        if (i % 1000 == 0) {
+                            cache.remove(random.nextInt(4 * maximumSize));
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        cache.cleanUp();
+
+        assertTrue("size=" + cache.size(), cache.size() <= maximumSize);
+        assertTrue(cache.getStats().getHitRate() > 0);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.Assert.*;
+
+public class RangerCacheFileUtilTest {
+    private static final String POLICY_FILE = "/policyengine/test_policyengine_hive_mask_filter.json";
+
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheDir = Files.createTempDirectory("ranger-cache-file-util-test").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        File[] files = cacheDir.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+
+        cacheDir.delete();
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        ServicePolicies policies = getServicePolicies();
+        File            plain    = new File(cacheDir, "hive_dev.json");
+        File            gzipped  = new File(cacheDir, "hive_dev_gz.json");
+
+        RangerCacheFileUtil.write(plain, policies, false);
+        RangerCacheFileUtil.write(gzipped, policies, true);
+
+        assertFalse(RangerCacheFileUtil.isCompressed(plain));
+        assertTrue(RangerCacheFileUtil.isCompressed(gzipped));
+        assertTrue(gzipped.length() < plain.length());
+
+        // format is detected when read, irrespective of the configuration used to write the file
+        assertEquals(JsonUtils.objectToJson(policies), JsonUtils.objectToJson(RangerCacheFileUtil.read(plain, ServicePolicies.class)));
+        assertEquals(JsonUtils.objectToJson(policies), JsonUtils.objectToJson(RangerCacheFileUtil.read(gzipped, ServicePolicies.class)));
+
+        assertEquals(2, cacheDir.list().length);
+    }
+
+    @Test
+    public void testOverwrite() throws Exception {
+        ServicePolicies policies  = getServicePolicies();
+        File            cacheFile = new File(cacheDir, "hive_dev.json");
+
+        RangerCacheFileUtil.write(cacheFile, policies, true);
+
+        policies.setPolicyVersion(11L);
+
+        RangerCacheFileUtil.write(cacheFile, policies, false);
+
+        assertFalse(RangerCacheFileUtil.isCompressed(cacheFile));
+        assertEquals(Long.valueOf(11L), RangerCacheFileUtil.read(cacheFile, ServicePolicies.class).getPolicyVersion());
+        assertEquals(1, cacheDir.list().length);
+    }
+
+    @Test
+    public void testFailedWriteRetainsCacheFile() throws Exception {
+        ServicePolicies policies  = getServicePolicies();
+        File            cacheFile = new File(cacheDir, "hive_dev.json");
+
+        RangerCacheFileUtil.write(cacheFile, policies, false);
+
+        long length = cacheFile.length();
+
+        try {
+            RangerCacheFileUtil.write(cacheFile, new FailingObject(), false);
+
+            fail("expected write to fail");
+        } catch (Exception excp) {
+            // expected
+        }
+
+        assertEquals(length, cacheFile.length());
+        assertEquals(policies.getPolicyVersion(), RangerCacheFileUtil.read(cacheFile, ServicePolicies.class).getPolicyVersion());
+        assertEquals(1, cacheDir.list().length);
+    }
+
+    @Test
+    public void testPermissions() throws Exception {
+        if (!Files.getFileStore(cacheDir.toPath()).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            return;
+        }
+
+        ServicePolicies policies  = getServicePolicies();
+        File            cacheFile = new File(cacheDir, "hive_dev.json");
+        File            otherFile = new File(cacheDir, "other.json");
+
+        // new cache file has the default permissions, like other files created in the directory
+        RangerCacheFileUtil.write(cacheFile, policies, false);
+        Files.createFile(otherFile.toPath());
+
+        assertEquals(Files.getPosixFilePermissions(otherFile.toPath()), Files.getPosixFilePermissions(cacheFile.toPath()));
+
+        // replaced cache file retains its permissions
+        Files.setPosixFilePermissions(cacheFile.toPath(), PosixFilePermissions.fromString("rw-r-----"));
+
+        RangerCacheFileUtil.write(cacheFile, policies, true);
+
+        assertEquals(PosixFilePermissions.fromString("rw-r-----"), Files.getPosixFilePermissions(cacheFile.toPath()));
+        assertEquals(2, cacheDir.list().length);
+    }
+
+    private ServicePolicies getServicePolicies() throws Exception {
+        try (Reader reader = new InputStreamReader(this.getClass().getResourceAsStream(POLICY_FILE))) {
+            ServicePolicies ret = JsonUtils.jsonToObject(reader, ServicePolicies.class);
+
+            ret.setPolicyVersion(10L);
+
+            return ret;
+        }
+    }
+
+    public static class FailingObject {
+        public String getName() {
+            return "failing-object";
+        }
+
+        public String getValue() {
+            throw new IllegalStateException("failed to get value");
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.model.RangerRole.RoleMember;
+import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RangerRolesUtilTest {
+    @Test
+    public void testDeltasOfNestedRoles() {
+        // r1 contains r2, which contains r3
+        RangerRoles       roles       = createRoles(1L, createRole("r1", "u1", "g1", "r2"), createRole("r2", "u2", null, "r3"), createRole("r3", "u3", "g3", null));
+        RangerAuthContext authContext = new RangerAuthContext(null, null, roles, null);
+
+        assertEquals(new HashSet<>(Arrays.asList("r1", "r2", "r3")), authContext.getRolesForUserAndGroups("u3", null));
+        assertEquals(new HashSet<>(Arrays.asList("r1", "r2", "r3")), authContext.getRolesForUserAndGroups(null, Collections.singleton("g3")));
+
+        RangerRolesUtil rolesUtil = authContext.getRangerRolesUtil();
+
+        // remove r3 from r2
+        authContext.setRoles(createDeltas(2L, Collections.singletonList(createRole("r2", "u2", null, null)), null));
+
+        assertEquals(2L, authContext.getRoleVersion());
+        assertEquals(Collections.singleton("r3"), authContext.getRolesForUserAndGroups("u3", null));
+        assertEquals(new HashSet<>(Arrays.asList("r1", "r2")), authContext.getRolesForUserAndGroups("u2", null));
+        assertEquals(new HashSet<>(Arrays.asList("u1", "u2")), authContext.getRangerRolesUtil().getRoleToUserMapping().get("r1"));
+        assertEquals(3, authContext.getRangerRolesUtil().getRoles().getRangerRoles().size());
+
+        // earlier instance is not modified by deltas
+        assertEquals(1L, rolesUtil.getRoleVersion());
+        assertEquals(new HashSet<>(Arrays.asList("r1", "r2", "r3")), rolesUtil.getUserRoleMapping().get("u3"));
+
+        // delete r2: r1 now refers to a missing role; then add r2 back, with r3 as member
+        authContext.setRoles(createDeltas(3L, null, Collections.singleton("r2")));
+
+        assertEquals(Collections.singleton("r1"), authContext.getRolesForUserAndGroups("u1", null));
+        assertEquals(Collections.emptySet(), authContext.getRolesForUserAndGroups("u2", null));
+        assertNull(authContext.getRangerRolesUtil().getRoleToUserMapping().get("r2"));
+
+        authContext.setRoles(createDeltas(4L, Collections.singletonList(createRole("r2", "u2", null, "r3")), null));
+
+        assertEquals(new HashSet<>(Arrays.asList("r1", "r2", "r3")), authContext.getRolesForUserAndGroups("u3", null));
+
+        // full roles replace earlier roles
+        authContext.setRoles(createRoles(5L, createRole("r3", "u3", null, null)));
+
+        assertEquals(Collections.singleton("r3"), authContext.getRolesForUserAndGroups("u3", null));
+        assertEquals(Collections.emptySet(), authContext.getRolesForUserAndGroups("u1", null));
+    }
+
+    @Test
+    public void testDeltasMatchFullRebuild() {
+        Random                  random  = new Random(12345);
+        Map<String, RangerRole> current = new HashMap<>();
+
+        for (int i = 0; i < 200; i++) {
+            RangerRole role = createRandomRole(random, "role" + i);
+
+            current.put(role.getName(), role);
+        }
+
+        RangerRolesUtil rolesUtil = new RangerRolesUtil(createRoles(1L, current.values().toArray(new RangerRole[0])));
+
+        for (long version = 2; version < 50; version++) {
+            List<RangerRole> updatedRoles = new ArrayList<>();
+            Set<String>      deletedRoles = new HashSet<>();
+
+            for (int i = random.nextInt(10); i >= 0; i--) {
+                String roleName = "role" + random.nextInt(220); // includes roles yet to be created
+
+                if (random.nextInt(4) == 0) {
+                    deletedRoles.add(roleName);
+                    current.remove(roleName);
+                } else {
+                    RangerRole role = createRandomRole(random, roleName);
+
+                    deletedRoles.remove(roleName);
+                    updatedRoles.removeIf(r -> r.getName().equals(roleName));
+                    updatedRoles.add(role);
+                    current.put(roleName, role);
+                }
+            }
+
+            RangerRolesUtil                expected      = new RangerRolesUtil(createRoles(version, current.values().toArray(new RangerRole[0])));
+            RangerRolesUtil                previous      = rolesUtil;
+            List<Map<String, Set<String>>> previousState = getMappings(previous, true);
+
+            rolesUtil = new RangerRolesUtil(previous, createDeltas(version, updatedRoles, deletedRoles));
+
+            assertEquals(version, rolesUtil.getRoleVersion());
+            assertEquals(new HashSet<>(current.values()), rolesUtil.getRoles().getRangerRoles());
+            assertEquals("version=" + version, getMappings(expected, false), getMappings(rolesUtil, false));
+            assertEquals("version=" + version, previousState, getMappings(previous, false));
+        }
+    }
+
+    private static List<Map<String, Set<String>>> getMappings(RangerRolesUtil rolesUtil, boolean copy) {
+        List<Map<String, Set<String>>> ret = Arrays.asList(rolesUtil.getUserRoleMapping(), rolesUtil.getGroupRoleMapping(), rolesUtil.getRoleRoleMapping(), rolesUtil.getRoleToUserMapping(), rolesUtil.getRoleToGroupMapping());
+
+        if (copy) {
+            for (int i = 0; i < ret.size(); i++) {
+                Map<String, Set<String>> mapping = new HashMap<>();
+
+                ret.get(i).forEach((k, v) -> mapping.put(k, new HashSet<>(v)));
+
+                ret.set(i, mapping);
+            }
+        }
+
+        return ret;
+    }
+
+    private static RangerRole createRandomRole(Random random, String name) {
+        RangerRole role = new RangerRole(name, null, null, new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+
+        for (int i = random.nextInt(3); i > 0; i--) {
+            role.getUsers().add(new RoleMember("user" + random.nextInt(50), false));
+        }
+
+        for (int i = random.nextInt(2); i > 0; i--) {
+            role.getGroups().add(new RoleMember("group" + random.nextInt(20), false));
+        }
+
+        for (int i = random.nextInt(3); i > 0; i--) { // with cycles, and references to missing roles
+            role.getRoles().add(new RoleMember("role" + random.nextInt(220), false));
+        }
+
+        return role;
+    }
+
+    private static RangerRole createRole(String name, String user, String group, String containedRole) {
+        return new RangerRole(name, null, null, toMembers(user), toMembers(group), toMembers(containedRole));
+    }
+
+    private static List<RoleMember> toMembers(String name) {
+        return name != null ? new ArrayList<>(Collections.singletonList(new RoleMember(name, false))) : new ArrayList<>();
+    }
+
+    private static RangerRoles createRoles(long version, RangerRole... roles) {
+        RangerRoles ret = new RangerRoles();
+
+        ret.setRoleVersion(version);
+        ret.setRangerRoles(new HashSet<>(Arrays.asList(roles)));
+
+        return ret;
+    }
+
+    private static RangerRoles createDeltas(long version, List<RangerRole> updatedRoles, Set<String> deletedRoles) {
+        RangerRoles ret = new RangerRoles();
+
+        ret.setRoleVersion(version);
+        ret.setIsDelta(true);
+        ret.setRangerRoles(updatedRoles != null ? new HashSet<>(updatedRoles) : null);
+        ret.setDeletedRoles(deletedRoles);
+
+        return ret;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.model.GroupInfo;
+import org.apache.ranger.plugin.model.UserInfo;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RangerUserStoreUtilTest {
+    @Test
+    public void testApplyDeltas() {
+        Map<String, UserInfo>    users      = new HashMap<>();
+        Map<String, GroupInfo>   groups     = new HashMap<>();
+        Map<String, Set<String>> userGroups = new HashMap<>();
+
+        users.put("user1", new UserInfo("user1", null, createAttrs("dept", "sales", RangerUserStore.CLOUD_IDENTITY_NAME, "id1")));
+        users.put("user2", new UserInfo("user2", null, createAttrs("dept", "eng")));
+        users.put("user3", new UserInfo("user3", null, createAttrs("dept", "eng")));
+        groups.put("group1", new GroupInfo("group1", null, createAttrs("site", "us")));
+        groups.put("group2", new GroupInfo("group2", null, createAttrs("site", "in", RangerUserStore.CLOUD_IDENTITY_NAME, "gid2")));
+        userGroups.put("user1", new HashSet<>(Arrays.asList("group1", "group2")));
+        userGroups.put("user2", new HashSet<>(Collections.singletonList("group1")));
+
+        RangerUserStore previous      = createUserStore(1L, users, groups, userGroups);
+        RangerUserStore previousState = copyOf(previous);
+
+        // user1 updated, user2 deleted, user4 created, group2 deleted, group3 created
+        users.put("user1", new UserInfo("user1", null, createAttrs("dept", "hr")));
+        users.remove("user2");
+        users.put("user4", new UserInfo("user4", null, createAttrs("dept", "eng")));
+        groups.remove("group2");
+        groups.put("group3", new GroupInfo("group3", null, createAttrs("site", "uk")));
+        userGroups.put("user1", new HashSet<>(Collections.singletonList("group3")));
+        userGroups.remove("user2");
+
+        // deltas have the latest entries of the changed users and groups
+        Map<String, Map<String, String>> deltaUserAttrs = new HashMap<>();
+        RangerUserStore                  deltas         = new RangerUserStore();
+
+        deltaUserAttrs.put("user1", createAttrs("dept", "hr"));
+        deltaUserAttrs.put("user4", createAttrs("dept", "eng"));
+
+        deltas.setUserStoreVersion(2L);
+        deltas.setIsDelta(true);
+        deltas.setUserAttrMapping(deltaUserAttrs);
+        deltas.setUserGroupMapping(Collections.singletonMap("user1", new HashSet<>(Collections.singletonList("group3"))));
+        deltas.setGroupAttrMapping(Collections.singletonMap("group3", createAttrs("site", "uk")));
+        deltas.setDeletedUsers(new HashSet<>(Collections.singletonList("user2")));
+        deltas.setDeletedGroups(new HashSet<>(Collections.singletonList("group2")));
+
+        RangerUserStore updated = RangerUserStoreUtil.applyDeltas(previous, deltas);
+
+        assertEquals(Long.valueOf(2), updated.getUserStoreVersion());
+        assertFalse(updated.getIsDelta());
+        assertMappingsEqual("updated", createUserStore(2L, users, groups, userGroups), updated);
+        assertMappingsEqual("previous", previousState, previous);
+    }
+
+    @Test
+    public void testCompactUserStore() {
+        Map<String, UserInfo>    users      = new HashMap<>();
+        Map<String, GroupInfo>   groups     = new HashMap<>();
+        Map<String, Set<String>> userGroups = new HashMap<>();
+
+        users.put("user1", new UserInfo("user1", null, createAttrs("dept", "sales", "location", "us", RangerUserStore.CLOUD_IDENTITY_NAME, "id1")));
+        users.put("user2", new UserInfo("user2", null, createAttrs("dept", "sales", "location", "us")));
+        users.put("user3", new UserInfo("user3", null, createAttrs("dept", "sales", "location", "us")));
+        users.put("user4", new UserInfo("user4", null, createAttrs("location", "us", "dept", new String("eng"))));
+        groups.put("group1", new GroupInfo("group1", null, createAttrs("dept", "eng")));
+        userGroups.put("user1", new HashSet<>(Arrays.asList("group1", "group2")));
+        userGroups.put("user2", new HashSet<>(Arrays.asList("group2", "group1")));
+
+        RangerUserStore           userStore  = createUserStore(1L, users, groups, userGroups);
+        RangerUserStore           expected   = copyOf(userStore);
+        RangerUserStoreDictionary dictionary = new RangerUserStoreDictionary();
+
+        dictionary.compact(userStore);
+
+        assertMappingsEqual("compact", expected, userStore);
+
+        Map<String, Map<String, String>> userAttrs = userStore.getUserAttrMapping();
+        Map<String, String>              attrs1    = userAttrs.get("user1");
+        Map<String, String>              attrs4    = userAttrs.get("user4");
+
+        // identical attributes and group-sets are shared; values are interned
+        assertSame(userAttrs.get("user2"), userAttrs.get("user3"));
+        assertSame(userStore.getUserGroupMapping().get("user1"), userStore.getUserGroupMapping().get("user2"));
+        assertSame(attrs4.get("dept"), userStore.getGroupAttrMapping().get("group1").get("dept"));
+        assertSame(attrs4.get("location"), attrs1.get("location"));
+
+        assertEquals(3, attrs1.size());
+        assertEquals("id1", attrs1.get(RangerUserStore.CLOUD_IDENTITY_NAME));
+        assertTrue(attrs1.containsKey("dept"));
+        assertFalse(attrs1.containsKey("email"));
+        assertNull(attrs1.get("email"));
+        assertNull(attrs1.get(null));
+        assertEquals(createAttrs("dept", "sales", "location", "us", RangerUserStore.CLOUD_IDENTITY_NAME, "id1"), attrs1);
+        assertEquals(createAttrs("dept", "sales", "location", "us", RangerUserStore.CLOUD_IDENTITY_NAME, "id1").hashCode(), attrs1.hashCode());
+        assertEquals("user1", userStore.getUserCloudIdMapping().get("id1"));
+
+        try {
+            attrs1.put("dept", "eng");
+
+            fail("attributes should not be modifiable");
+        } catch (UnsupportedOperationException excp) {
+            // expected
+        }
+
+        // deltas compacted with the same dictionary share the entries of the user-store
+        Map<String, Map<String, String>> deltaUserAttrs = new HashMap<>();
+        RangerUserStore                  deltas         = new RangerUserStore();
+
+        deltaUserAttrs.put("user5", createAttrs("dept", "sales", "location", "us"));
+        deltaUserAttrs.put("user1", createAttrs("dept", "eng", "location", "us"));
+
+        deltas.setUserStoreVersion(2L);
+        deltas.setIsDelta(true);
+        deltas.setUserAttrMapping(deltaUserAttrs);
+        deltas.setUserGroupMapping(Collections.singletonMap("user1", new HashSet<>(Arrays.asList("group1", "group2"))));
+        deltas.setGroupAttrMapping(Collections.emptyMap());
+        deltas.setDeletedUsers(Collections.emptySet());
+        deltas.setDeletedGroups(Collections.emptySet());
+
+        dictionary.compact(deltas);
+
+        RangerUserStore updated = RangerUserStoreUtil.applyDeltas(userStore, deltas);
+
+        assertSame(userAttrs.get("user2"), updated.getUserAttrMapping().get("user5"));
+        assertSame(attrs4, updated.getUserAttrMapping().get("user1"));
+        assertNull(updated.getUserCloudIdMapping().get("id1"));
+        assertSame(attrs1, userStore.getUserAttrMapping().get("user1"));
+    }
+
+    private static Map<String, String> createAttrs(String... namesAndValues) {
+        Map<String, String> ret = new HashMap<>();
+
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            ret.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+
+        return ret;
+    }
+
+    private static RangerUserStore createUserStore(long version, Map<String, UserInfo> users, Map<String, GroupInfo> groups, Map<String, Set<String>> userGroups) {
+        Map<String, Set<String>> userGroupsCopy = new HashMap<>();
+
+        userGroups.forEach((k, v) -> userGroupsCopy.put(k, new HashSet<>(v)));
+
+        return new RangerUserStore(version, new HashSet<>(users.values()), new HashSet<>(groups.values()), userGroupsCopy);
+    }
+
+    private static RangerUserStore copyOf(RangerUserStore userStore) {
+        RangerUserStore ret = new RangerUserStore();
+
+        ret.setUserAttrMapping(copyOf(userStore.getUserAttrMapping()));
+        ret.setGroupAttrMapping(copyOf(userStore.getGroupAttrMapping()));
+        ret.setUserGroupMapping(copyOf(userStore.getUserGroupMapping()));
+        ret.setUserCloudIdMapping(copyOf(userStore.getUserCloudIdMapping()));
+        ret.setGroupCloudIdMapping(copyOf(userStore.getGroupCloudIdMapping()));
+
+        return ret;
+    }
+
+    private static <T> Map<String, T> copyOf(Map<String, T> mapping) {
+        return mapping != null ? new HashMap<>(mapping) : new HashMap<>();
+    }
+
+    private static void assertMappingsEqual(String message, RangerUserStore expected, RangerUserStore actual) {
+        assertEquals(message, copyOf(expected.getUserAttrMapping()), copyOf(actual.getUserAttrMapping()));
+        assertEquals(message, copyOf(expected.getGroupAttrMapping()), copyOf(actual.getGroupAttrMapping()));
+        assertEquals(message, copyOf(expected.getUserGroupMapping()), copyOf(actual.getUserGroupMapping()));
+        assertEquals(message, copyOf(expected.getUserCloudIdMapping()), copyOf(actual.getUserCloudIdMapping()));
+        assertEquals(message, copyOf(expected.getGroupCloudIdMapping()), copyOf(actual.getGroupCloudIdMapping()));
+    }
+}
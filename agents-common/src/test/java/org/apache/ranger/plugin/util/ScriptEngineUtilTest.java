@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerRequestScriptEvaluator;
+import org.junit.Test;
+
+import javax.script.Bindings;
+import javax.script.ScriptEngine;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ScriptEngineUtilTest {
+    private static final String SERVICE_TYPE = "hive";
+
+    @Test
+    public void testEnginePerThread() throws Exception {
+        ScriptEngine engine = ScriptEngineUtil.getThreadScriptEngine(SERVICE_TYPE);
+
+        assertNotNull(engine);
+
+        assertSame(engine, ScriptEngineUtil.getThreadScriptEngine(SERVICE_TYPE));
+
+        AtomicReference<ScriptEngine> otherEngine = new AtomicReference<>();
+        Thread                        thread      = new Thread(() -> otherEngine.set(ScriptEngineUtil.getThreadScriptEngine(SERVICE_TYPE)));
+
+        thread.start();
+        thread.join();
+
+        assertNotNull(otherEngine.get());
+        assertNotSame(engine, otherEngine.get());
+    }
+
+    @Test
+    public void testEvalWithBindings() throws Exception {
+        ScriptEngine threadEngine = ScriptEngineUtil.getThreadScriptEngine(SERVICE_TYPE);
+        ScriptEngine sharedEngine = ScriptEngineUtil.createScriptEngine(SERVICE_TYPE);
+
+        assertNotNull(threadEngine);
+        assertNotNull(sharedEngine);
+
+        // compiled script of the thread engine, and plain evaluation of other engines, must give the same results
+        for (ScriptEngine engine : new ScriptEngine[] { threadEngine, sharedEngine, threadEngine }) {
+            for (int i = 0; i < 3; i++) {
+                Bindings bindings = engine.createBindings();
+
+                bindings.put("x", i);
+
+                assertEquals(String.valueOf(i + 1), String.valueOf(ScriptEngineUtil.eval(engine, "var y = x + 1; y;", bindings)).replace(".0", ""));
+            }
+        }
+    }
+
+    @Test
+    public void testRequestScriptEvaluator() throws Exception {
+        ScriptEngine engine = ScriptEngineUtil.getThreadScriptEngine(SERVICE_TYPE);
+
+        assertNotNull(engine);
+
+        for (String user : new String[] { "user1", "user2", "user1" }) {
+            RangerAccessRequestImpl      request   = new RangerAccessRequestImpl(new RangerAccessResourceImpl(), "select", user, Collections.emptySet(), null);
+            RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(request, engine);
+
+            assertEquals(user.equals("user1"), evaluator.evaluateConditionScript("USER._name == 'user1'"));
+            assertEquals(user, evaluator.evaluateScript("ctx.getUser()"));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+
+import static org.junit.Assert.*;
+
+public class ServicePoliciesSnapshotTest {
+    private static final String[] POLICY_FILES = {
+            "/policyengine/test_policyengine_hdfs_zones.json",
+            "/policyengine/test_policyengine_hive_mask_filter.json",
+            "/policyengine/test_policyengine_policy_with_additional_resources.json",
+            "/policyengine/test_policyengine_conditions.json"
+    };
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        for (String policyFile : POLICY_FILES) {
+            ServicePolicies policies  = getServicePolicies(policyFile);
+            File            cacheFile = saveToCache(policies);
+
+            try {
+                assertTrue(policyFile, ServicePoliciesSnapshot.save(policies, cacheFile));
+
+                ServicePolicies loaded = ServicePoliciesSnapshot.load(cacheFile);
+
+                assertNotNull(policyFile, loaded);
+                assertEquals(policyFile, JsonUtils.objectToJson(policies), JsonUtils.objectToJson(loaded));
+            } finally {
+                delete(cacheFile);
+            }
+        }
+    }
+
+    @Test
+    public void testIgnoreStaleSnapshot() throws Exception {
+        ServicePolicies policies  = getServicePolicies(POLICY_FILES[0]);
+        File            cacheFile = saveToCache(policies);
+
+        try {
+            assertTrue(ServicePoliciesSnapshot.save(policies, cacheFile));
+
+            policies.setPolicyVersion(policies.getPolicyVersion() + 1);
+
+            try (Writer writer = new FileWriter(cacheFile)) {
+                JsonUtils.objectToWriter(writer, policies);
+            }
+
+            assertTrue(cacheFile.setLastModified(cacheFile.lastModified() + 1000));
+            assertNull(ServicePoliciesSnapshot.load(cacheFile));
+        } finally {
+            delete(cacheFile);
+        }
+    }
+
+    @Test
+    public void testIgnoreCorruptSnapshot() throws Exception {
+        ServicePolicies policies  = getServicePolicies(POLICY_FILES[0]);
+        File            cacheFile = saveToCache(policies);
+        File            snapshot  = ServicePoliciesSnapshot.getSnapshotFile(cacheFile);
+
+        try {
+            long lastModified = cacheFile.lastModified();
+
+            // unsupported format version
+            assertTrue(ServicePoliciesSnapshot.save(policies, cacheFile));
+            updateByte(snapshot, 7);
+            assertNull(ServicePoliciesSnapshot.load(cacheFile));
+
+            // payload checksum mismatch
+            assertTrue(ServicePoliciesSnapshot.save(policies, cacheFile));
+            updateByte(snapshot, ServicePoliciesSnapshot.HEADER_LENGTH + 100);
+            assertNull(ServicePoliciesSnapshot.load(cacheFile));
+
+            // truncated file
+            assertTrue(ServicePoliciesSnapshot.save(policies, cacheFile));
+
+            try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+                file.setLength(file.length() - 1);
+            }
+
+            assertNull(ServicePoliciesSnapshot.load(cacheFile));
+
+            // cache file unchanged: snapshot is used
+            assertTrue(ServicePoliciesSnapshot.save(policies, cacheFile));
+            assertEquals(lastModified, cacheFile.lastModified());
+            assertNotNull(ServicePoliciesSnapshot.load(cacheFile));
+        } finally {
+            delete(cacheFile);
+        }
+    }
+
+    private ServicePolicies getServicePolicies(String policyFile) throws Exception {
+        try (Reader reader = new InputStreamReader(this.getClass().getResourceAsStream(policyFile))) {
+            ServicePolicies ret = JsonUtils.jsonToObject(reader, ServicePolicies.class);
+
+            ret.setPolicyVersion(10L);
+
+            if (ret.getSecurityZones() != null) {
+                ServicePolicies.TagPolicies tagPolicies = new ServicePolicies.TagPolicies();
+
+                tagPolicies.setServiceName("tagdev");
+                tagPolicies.setPolicyVersion(5L);
+                tagPolicies.setPolicies(ret.getPolicies());
+
+                ret.setTagPolicies(tagPolicies);
+            }
+
+            return ret;
+        }
+    }
+
+    private static File saveToCache(ServicePolicies policies) throws Exception {
+        File ret = File.createTempFile("ranger-policies-snapshot-test", ".json");
+
+        try (Writer writer = new FileWriter(ret)) {
+            JsonUtils.objectToWriter(writer, policies);
+        }
+
+        return ret;
+    }
+
+    private static void updateByte(File file, long offset) throws Exception {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(offset);
+
+            int value = raf.read();
+
+            raf.seek(offset);
+            raf.write(value ^ 0x01);
+        }
+    }
+
+    private static void delete(File cacheFile) {
+        ServicePoliciesSnapshot.delete(cacheFile);
+
+        cacheFile.delete();
+    }
+}
@@ -77,6 +77,8 @@ public class RangerAdminJersey2RESTClient extends AbstractRangerAdminClient {
 	String _clusterName = null;
 	boolean _supportsPolicyDeltas = false;
 	boolean _supportsTagDeltas = false;
+	boolean _supportsRoleDeltas = false;
+	boolean _supportsUserStoreDeltas = false;
 	String _pluginId = null;
 	int	   _restClientConnTimeOutMs;
 	int	   _restClientReadTimeOutMs;
@@ -119,6 +121,8 @@ public void init(String serviceName, String appId, String configPropertyPrefix,
 		}
 		_supportsPolicyDeltas = config.getBoolean(configPropertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA_DEFAULT);
 		_supportsTagDeltas = config.getBoolean(configPropertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA_DEFAULT);
+		_supportsRoleDeltas = config.getBoolean(configPropertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_ROLE_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_ROLE_DELTA_DEFAULT);
+		_supportsUserStoreDeltas = config.getBoolean(configPropertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_USERSTORE_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_USERSTORE_DELTA_DEFAULT);
 		isRangerCookieEnabled = config.getBoolean(configPropertyPrefix + ".policy.rest.client.cookie.enabled", RangerCommonConstants.POLICY_REST_CLIENT_SESSION_COOKIE_ENABLED);
 		rangerAdminCookieName = config.get(configPropertyPrefix + ".policy.rest.client.session.cookie.name", RangerCommonConstants.DEFAULT_COOKIE_NAME);
 
@@ -299,6 +303,7 @@ public RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, lon
 		queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, _pluginId);
 		queryParams.put(RangerRESTUtils.REST_PARAM_CLUSTER_NAME, _clusterName);
 		queryParams.put(RangerRESTUtils.REST_PARAM_CAPABILITIES, pluginCapabilities);
+		queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_USERSTORE_DELTAS, Boolean.toString(_supportsUserStoreDeltas));
 
 		if (isSecureMode) {
 			if (LOG.isDebugEnabled()) {
@@ -1079,6 +1084,7 @@ private Response getRoleDownloadResponse(final long lastKnownRoleVersion, final
 		queryParams.put(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis));
 		queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, _pluginId);
 		queryParams.put(RangerRESTUtils.REST_PARAM_CLUSTER_NAME, _clusterName);
+		queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_ROLE_DELTAS, Boolean.toString(_supportsRoleDeltas));
 
 		if (isSecureMode()) {
 			if (LOG.isDebugEnabled()) {
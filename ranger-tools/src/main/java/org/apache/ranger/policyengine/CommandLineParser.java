@@ -56,6 +56,8 @@
 
     private boolean isLazyTriePostSetupDisabled = true;
 
+    private boolean isPrincipalIndexEnabled = false;
+
     private String configurationFileName;
     private URL configurationFileURL;
 
@@ -68,7 +70,7 @@ final PerfTestOptions parse(final String[] args) {
         PerfTestOptions ret = null;
         if (parseArguments(args) && validateInputFiles()) {
             // Instantiate a data-object and return
-            ret = new PerfTestOptions(servicePoliciesFileURL, requestFileURLs, statCollectionFileURL, concurrentClientCount, iterationsCount, isTrieLookupPrefixDisabled, isLazyTriePostSetupDisabled, configurationFileURL);
+            ret = new PerfTestOptions(servicePoliciesFileURL, requestFileURLs, statCollectionFileURL, concurrentClientCount, iterationsCount, isTrieLookupPrefixDisabled, isLazyTriePostSetupDisabled, isPrincipalIndexEnabled, configurationFileURL);
         } else {
             showUsage();
         }
@@ -86,6 +88,7 @@ final PerfTestOptions parse(final String[] args) {
             -f configuration-file-name
             -t
             -d
+            -u
 
             If the concurrent-client-count is more than the number of files in the request-file-name-list,
             then reuse the request-file-names in a round-robin way
@@ -108,6 +111,7 @@ final boolean parseArguments(final String[] args) {
         options.addOption("f", "configurations", true, "Configuration File Name");
         options.addOption("t", "trie-prefilter", false, "Enable trie-prefilter");
         options.addOption("d", "trie-lazy-setup", false, "Enable lazy trie-setup");
+        options.addOption("u", "principal-index", false, "Enable principal-index prefilter");
 
 
         org.apache.commons.cli.CommandLineParser commandLineParser = new DefaultParser();
@@ -143,6 +147,10 @@ final boolean parseArguments(final String[] args) {
                 isLazyTriePostSetupDisabled = false;
             }
 
+            if (commandLine.hasOption("u")) {
+                isPrincipalIndexEnabled = true;
+            }
+
             configurationFileName = commandLine.getOptionValue("f");
 
             if (LOG.isDebugEnabled()) {
@@ -150,6 +158,7 @@ final boolean parseArguments(final String[] args) {
                 LOG.debug("concurrentClientCount=" + concurrentClientCount + ", iterationsCount=" + iterationsCount);
                 LOG.debug("isTrieLookupPrefixDisabled=" + isTrieLookupPrefixDisabled);
                 LOG.debug("isLazyTriePostSetupDisabled=" + isLazyTriePostSetupDisabled);
+                LOG.debug("isPrincipalIndexEnabled=" + isPrincipalIndexEnabled);
                 LOG.debug("configurationFileName=" + configurationFileName);
 
             }
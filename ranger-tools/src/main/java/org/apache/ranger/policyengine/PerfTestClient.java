@@ -131,7 +131,7 @@ public void run() {
 		}
 	}
 
-	private static class RequestData {
+	static class RequestData {
 		private String              name;
 		private RangerAccessRequest request;
 		private RangerAccessResult result;
@@ -34,6 +34,7 @@
 import java.io.Reader;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class PerfTestEngine {
 	static final Logger LOG      = LoggerFactory.getLogger(PerfTestEngine.class);
@@ -43,6 +44,8 @@ public class PerfTestEngine {
 	private final URL configFileURL;
 	private RangerPolicyEngine policyEvaluationEngine;
 	private RangerPluginContext rangerPluginContext;
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong evaluatedPoliciesCount = new AtomicLong();
 
 	public PerfTestEngine(final URL servicePoliciesFileURL, RangerPolicyEngineOptions policyEngineOptions, URL configFileURL) {
 		this.servicePoliciesFileURL = servicePoliciesFileURL;
@@ -110,6 +113,12 @@ public RangerAccessResult execute(final RangerAccessRequest request) {
 
 			ret = policyEvaluationEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
 
+			requestCount.incrementAndGet();
+
+			if (ret != null) {
+				evaluatedPoliciesCount.addAndGet(ret.getEvaluatedPoliciesCount());
+			}
+
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("Executed request = {" + request + "}, result={" + ret + "}");
 			}
@@ -124,6 +133,21 @@ public RangerAccessResult execute(final RangerAccessRequest request) {
 		return ret;
 	}
 
+	public long getRequestCount() { return requestCount.get(); }
+
+	public long getEvaluatedPoliciesCount() { return evaluatedPoliciesCount.get(); }
+
+	public double getEvaluatedPoliciesPerRequest() {
+		long count = requestCount.get();
+
+		return count > 0 ? (double) evaluatedPoliciesCount.get() / count : 0;
+	}
+
+	public void clearStatistics() {
+		requestCount.set(0);
+		evaluatedPoliciesCount.set(0);
+	}
+
 	public void cleanUp() {
 		if (policyEvaluationEngine != null) {
 			((RangerPolicyEngineImpl)policyEvaluationEngine).releaseResources(true);
@@ -30,6 +30,7 @@ public class PerfTestOptions {
 	private final URL statCollectionFileURL;
 	private final boolean isTrieLookupPrefixDisabled;
 	private final boolean isOnDemandTriePostSetupDisabled;
+	private final boolean isPrincipalIndexEnabled;
 
 	private final int concurrentClientCount;
 	private final int iterationsCount;
@@ -37,7 +38,7 @@ public class PerfTestOptions {
 	private final boolean isPolicyTrieOptimizedForSpace;
 	private final boolean isTagTrieOptimizedForSpace;
 
-	PerfTestOptions(URL servicePoliciesFileURL, URL[] requestFileURLs, URL statCollectionFileURL, int concurrentClientCount, int iterationsCount, boolean isTrieLookupPrefixDisabled, boolean isOnDemandTriePostSetupDisabled, URL perfConfigurationFileURL) {
+	PerfTestOptions(URL servicePoliciesFileURL, URL[] requestFileURLs, URL statCollectionFileURL, int concurrentClientCount, int iterationsCount, boolean isTrieLookupPrefixDisabled, boolean isOnDemandTriePostSetupDisabled, boolean isPrincipalIndexEnabled, URL perfConfigurationFileURL) {
 		this.servicePoliciesFileURL = servicePoliciesFileURL;
 		this.requestFileURLs = requestFileURLs;
 		this.statCollectionFileURL = statCollectionFileURL;
@@ -45,6 +46,7 @@ public class PerfTestOptions {
 		this.concurrentClientCount = concurrentClientCount;
 		this.isTrieLookupPrefixDisabled = isTrieLookupPrefixDisabled;
 		this.isOnDemandTriePostSetupDisabled = isOnDemandTriePostSetupDisabled;
+		this.isPrincipalIndexEnabled = isPrincipalIndexEnabled;
 		this.perfConfigurationFileURL = perfConfigurationFileURL;
 
 		RangerConfiguration configuration = new PerfTestConfiguration(perfConfigurationFileURL);
@@ -76,6 +78,8 @@ public int getIterationsCount() {
 
 	public boolean getIsOnDemandTriePostSetupDisabled() { return isOnDemandTriePostSetupDisabled; }
 
+	public boolean getIsPrincipalIndexEnabled() { return isPrincipalIndexEnabled; }
+
 	public URL getPerfConfigurationFileURL() {
 		return  this.perfConfigurationFileURL;
 	}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ * Measures the number of policies evaluated, and the time taken, per request - with and without adapting the order of
+ * evaluation of policies to statistics of their evaluations. Policies are generated for one resource, each allowing one
+ * user; most requests are from users allowed by policies at the end of the static order, as requests in a deployment
+ * are often from a few users. The adaptive order is updated in the background between rounds.
+ *
+ * Usage: RangerAdaptiveEvalOrderPerfTester -s <service-policies-file> [-p <policy-count>] [-n <request-count>] [-r <rounds>] [-i <interval-ms>]
+ */
+public class RangerAdaptiveEvalOrderPerfTester {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerAdaptiveEvalOrderPerfTester.class);
+
+    private static final String DATABASE = "db1";
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+
+        options.addOption("h", "help", false, "show help.");
+        options.addOption("s", "service-policies", true, "Policies File Name, for the service-def");
+        options.addOption("p", "policy-count", true, "Number of policies to generate");
+        options.addOption("n", "request-count", true, "Number of requests evaluated in each round");
+        options.addOption("r", "rounds", true, "Number of rounds");
+        options.addOption("i", "interval-ms", true, "Interval between updates of the adaptive order, in milliseconds");
+
+        final CommandLine commandLine;
+
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException excp) {
+            LOG.error("Error parsing command line arguments", excp);
+
+            new HelpFormatter().printHelp("RangerAdaptiveEvalOrderPerfTester", options);
+
+            return;
+        }
+
+        if (commandLine.hasOption("h") || !commandLine.hasOption("s")) {
+            new HelpFormatter().printHelp("RangerAdaptiveEvalOrderPerfTester", options);
+
+            return;
+        }
+
+        ServicePolicies           servicePolicies = createServicePolicies(commandLine.getOptionValue("s"), Integer.parseInt(commandLine.getOptionValue("p", "200")));
+        int                       requestCount    = Integer.parseInt(commandLine.getOptionValue("n", "200000"));
+        int                       rounds          = Integer.parseInt(commandLine.getOptionValue("r", "5"));
+        int                       intervalMs      = Integer.parseInt(commandLine.getOptionValue("i", "100"));
+        List<RangerAccessRequest> requests        = createRequests(servicePolicies.getPolicies().size(), requestCount);
+        RangerPolicyEngine        staticEngine    = createPolicyEngine(servicePolicies, 0);
+        RangerPolicyEngine        adaptiveEngine  = createPolicyEngine(servicePolicies, intervalMs);
+
+        System.out.println(String.format("policies=%d, requests=%d, rounds=%d, interval=%d ms", servicePolicies.getPolicies().size(), requestCount, rounds, intervalMs));
+
+        for (int round = 0; round < rounds; round++) {
+            long[] staticStats   = evaluate(staticEngine, requests);
+            long[] adaptiveStats = evaluate(adaptiveEngine, requests);
+
+            System.out.println(String.format("round=%d, static: policies/request=%.1f, ns/request=%d; adaptive: policies/request=%.1f, ns/request=%d", round + 1,
+                                             (double) staticStats[0] / requestCount, staticStats[1] / requestCount,
+                                             (double) adaptiveStats[0] / requestCount, adaptiveStats[1] / requestCount));
+
+            Thread.sleep(intervalMs * 2L); // let the adaptive order be updated with statistics of this round
+        }
+    }
+
+    // returns the number of policies evaluated and the time taken, in nanoseconds
+    private static long[] evaluate(RangerPolicyEngine policyEngine, List<RangerAccessRequest> requests) {
+        long evaluatedCount = 0;
+        long startTime      = System.nanoTime();
+
+        for (RangerAccessRequest request : requests) {
+            RangerAccessResult result = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+            evaluatedCount += result.getEvaluatedPoliciesCount();
+        }
+
+        return new long[] { evaluatedCount, System.nanoTime() - startTime };
+    }
+
+    private static ServicePolicies createServicePolicies(String servicePoliciesFile, int policyCount) throws Exception {
+        ServicePolicies    servicePolicies;
+        List<RangerPolicy> policies = new ArrayList<>(policyCount);
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(servicePoliciesFile), StandardCharsets.UTF_8)) {
+            servicePolicies = JsonUtils.jsonToObject(reader, ServicePolicies.class);
+        }
+
+        for (int i = 0; i < policyCount; i++) {
+            RangerPolicy                      policy    = new RangerPolicy();
+            RangerPolicyItem                  item      = new RangerPolicyItem();
+            Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+            resources.put("database", new RangerPolicyResource(DATABASE));
+            resources.put("table", new RangerPolicyResource("*"));
+            resources.put("column", new RangerPolicyResource("*"));
+
+            item.setUsers(Collections.singletonList(getUser(i)));
+            item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("select")));
+
+            policy.setId((long) i + 1);
+            policy.setName(String.format("policy_%06d", i)); // static order of policies having same evalOrder is by name
+            policy.setService(servicePolicies.getServiceName());
+            policy.setServiceType(servicePolicies.getServiceDef().getName());
+            policy.setResources(resources);
+            policy.setPolicyItems(Collections.singletonList(item));
+
+            policies.add(policy);
+        }
+
+        servicePolicies.setPolicies(policies);
+
+        return servicePolicies;
+    }
+
+    // 90% of requests are from users of the last 10 policies; others from users of any policy
+    private static List<RangerAccessRequest> createRequests(int policyCount, int requestCount) {
+        List<RangerAccessRequest> ret    = new ArrayList<>(requestCount);
+        Random                    random = new Random(42);
+
+        for (int i = 0; i < requestCount; i++) {
+            int                 policyIdx = random.nextInt(10) < 9 ? policyCount - 1 - random.nextInt(Math.min(10, policyCount)) : random.nextInt(policyCount);
+            Map<String, Object> elements  = new HashMap<>();
+
+            elements.put("database", DATABASE);
+            elements.put("table", "tbl1");
+            elements.put("column", "col1");
+
+            ret.add(new RangerAccessRequestImpl(new RangerAccessResourceImpl(elements), "select", getUser(policyIdx), Collections.emptySet(), null));
+        }
+
+        return ret;
+    }
+
+    private static String getUser(int policyIdx) {
+        return "user_" + policyIdx;
+    }
+
+    private static RangerPolicyEngine createPolicyEngine(ServicePolicies servicePolicies, int adaptiveEvalOrderIntervalMs) {
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.disablePolicyRefresher      = true;
+        options.disableTagRetriever         = true;
+        options.disableUserStoreRetriever   = true;
+        options.disableGdsInfoRetriever     = true;
+        options.cacheAuditResults           = false;
+        options.adaptiveEvalOrderIntervalMs = adaptiveEvalOrderIntervalMs;
+
+        RangerPluginContext pluginContext = new RangerPluginContext(new RangerPluginConfig(servicePolicies.getServiceDef().getName(), servicePolicies.getServiceName(), "perf-test", null, null, options));
+
+        return new RangerPolicyEngineImpl(servicePolicies, pluginContext, null);
+    }
+}
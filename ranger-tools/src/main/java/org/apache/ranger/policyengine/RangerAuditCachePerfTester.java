@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.ranger.plugin.policyengine.CacheMap;
+import org.apache.ranger.plugin.util.RangerBoundedCache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Compares the throughput and hit rate of the policy engine's audit result cache implementations under concurrent
+ * access: synchronized CacheMap (LRU, used earlier) and RangerBoundedCache (W-TinyLFU). Each thread looks up resources
+ * picked with a Zipf distribution - a few resources are accessed very often, most rarely - and adds missing ones to the
+ * cache, as the policy engine does.
+ *
+ * Usage: RangerAuditCachePerfTester [thread-count] [cache-size] [resource-count] [duration-seconds]
+ */
+public class RangerAuditCachePerfTester {
+    private static final int    DEFAULT_THREAD_COUNT     = 32;
+    private static final int    DEFAULT_CACHE_SIZE       = 64 * 1024;
+    private static final int    DEFAULT_RESOURCE_COUNT   = 1000 * 1000;
+    private static final int    DEFAULT_DURATION_SECONDS = 10;
+    private static final int    SAMPLE_COUNT             = 1 << 22;
+    private static final double ZIPF_EXPONENT            = 0.9;
+
+    public static void main(String[] args) throws Exception {
+        int threadCount     = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_THREAD_COUNT;
+        int cacheSize       = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CACHE_SIZE;
+        int resourceCount   = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_RESOURCE_COUNT;
+        int durationSeconds = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_DURATION_SECONDS;
+
+        String[] resources = new String[resourceCount];
+
+        for (int i = 0; i < resourceCount; i++) {
+            resources[i] = "db" + (i % 100) + "/tbl" + (i / 100 % 1000) + "/col" + i;
+        }
+
+        int[] samples = getZipfSamples(resourceCount);
+
+        System.out.println(String.format("threads=%d, cache-size=%d, resources=%d, duration=%ds", threadCount, cacheSize, resourceCount, durationSeconds));
+
+        for (int round = 0; round < 2; round++) { // first round warms up the JIT
+            boolean isWarmup = round == 0;
+            int     duration = isWarmup ? Math.max(1, durationSeconds / 5) : durationSeconds;
+
+            final Map<String, Boolean>                synchronizedCacheMap = Collections.synchronizedMap(new CacheMap<>(cacheSize));
+            final RangerBoundedCache<String, Boolean> boundedCache         = new RangerBoundedCache<>(cacheSize);
+
+            Result lru     = run(threadCount, duration, resources, samples, synchronizedCacheMap::get, synchronizedCacheMap::put);
+            Result tinyLfu = run(threadCount, duration, resources, samples, boundedCache::get, boundedCache::put);
+
+            if (!isWarmup) {
+                System.out.println(String.format("synchronized CacheMap: %,.0f ops/s, hit-rate=%.2f%%", lru.getOpsPerSecond(), lru.getHitRate() * 100));
+                System.out.println(String.format("RangerBoundedCache:    %,.0f ops/s, hit-rate=%.2f%%", tinyLfu.getOpsPerSecond(), tinyLfu.getHitRate() * 100));
+                System.out.println(String.format("speedup=%.1fx", tinyLfu.getOpsPerSecond() / lru.getOpsPerSecond()));
+                System.out.println(boundedCache.getStats());
+            }
+        }
+    }
+
+    private static Result run(int threadCount, int durationSeconds, String[] resources, int[] samples, Getter getter, Putter putter) throws Exception {
+        final AtomicBoolean  isStopped  = new AtomicBoolean(false);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch endLatch   = new CountDownLatch(threadCount);
+        final LongAdder      opCount    = new LongAdder();
+        final LongAdder      hitCount   = new LongAdder();
+
+        for (int t = 0; t < threadCount; t++) {
+            final Random random = new Random(t);
+            final int    offset = random.nextInt(samples.length);
+            final int    stride = random.nextInt(samples.length) | 1; // odd stride visits all samples; a different order in each thread
+
+            Thread thread = new Thread(() -> {
+                long ops  = 0;
+                long hits = 0;
+
+                try {
+                    startLatch.await();
+
+                    for (int i = 0; !isStopped.get(); i++) {
+                        String resource = resources[samples[(offset + i * stride) & (samples.length - 1)]];
+
+                        if (getter.get(resource) != null) {
+                            hits++;
+                        } else {
+                            putter.put(resource, Boolean.TRUE);
+                        }
+
+                        ops++;
+                    }
+                } catch (InterruptedException excp) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    opCount.add(ops);
+                    hitCount.add(hits);
+                    endLatch.countDown();
+                }
+            });
+
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long startTime = System.nanoTime();
+
+        startLatch.countDown();
+        Thread.sleep(durationSeconds * 1000L);
+        isStopped.set(true);
+        endLatch.await();
+
+        return new Result(opCount.sum(), hitCount.sum(), System.nanoTime() - startTime);
+    }
+
+    private static int[] getZipfSamples(int resourceCount) {
+        double[] cumulative = new double[resourceCount];
+        double   sum        = 0;
+
+        for (int i = 0; i < resourceCount; i++) {
+            sum          += 1.0 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cumulative[i] = sum;
+        }
+
+        Random random = new Random(42);
+        int[]  ret    = new int[SAMPLE_COUNT];
+
+        for (int i = 0; i < ret.length; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+
+            ret[i] = Math.min(index >= 0 ? index : -index - 1, resourceCount - 1);
+        }
+
+        // spread popular resources across the key space, instead of keeping them at the lowest indexes
+        int[] permutation = new int[resourceCount];
+
+        for (int i = 0; i < resourceCount; i++) {
+            permutation[i] = i;
+        }
+
+        for (int i = resourceCount - 1; i > 0; i--) {
+            int j   = random.nextInt(i + 1);
+            int tmp = permutation[i];
+
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = permutation[ret[i]];
+        }
+
+        return ret;
+    }
+
+    private interface Getter {
+        Boolean get(String key);
+    }
+
+    private interface Putter {
+        void put(String key, Boolean value);
+    }
+
+    private static class Result {
+        private final long opCount;
+        private final long hitCount;
+        private final long elapsedNanos;
+
+        Result(long opCount, long hitCount, long elapsedNanos) {
+            this.opCount      = opCount;
+            this.hitCount     = hitCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        double getOpsPerSecond() {
+            return opCount * 1e9 / elapsedNanos;
+        }
+
+        double getHitRate() {
+            return opCount == 0 ? 0 : (double) hitCount / opCount;
+        }
+    }
+}
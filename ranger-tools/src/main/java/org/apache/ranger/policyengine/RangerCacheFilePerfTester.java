@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.apache.ranger.plugin.util.RangerCacheFileUtil;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.ServiceGdsInfo;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/*
+ * Measures the disk footprint of plugin cache files, and the time taken to save and load them, in JSON and in gzip
+ * compressed JSON (plugin configuration <plugin-prefix>.policy.cache.compress=true) formats. Cache files of policies,
+ * tags, roles, user-store and GDS info can be given; each can be in either format.
+ *
+ * Usage: RangerCacheFilePerfTester [-p <policies-file>] [-t <tags-file>] [-r <roles-file>] [-u <userstore-file>] [-g <gdsinfo-file>] [-i <iterations>]
+ */
+public class RangerCacheFilePerfTester {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerCacheFilePerfTester.class);
+
+    private static final int WARMUP_ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+
+        options.addOption("h", "help", false, "show help.");
+        options.addOption("p", "policies", true, "Policies cache File Name");
+        options.addOption("t", "tags", true, "Tags cache File Name");
+        options.addOption("r", "roles", true, "Roles cache File Name");
+        options.addOption("u", "userstore", true, "User-store cache File Name");
+        options.addOption("g", "gdsinfo", true, "GDS info cache File Name");
+        options.addOption("i", "iterations", true, "Number of times to load each cache file");
+
+        final CommandLine commandLine;
+
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException excp) {
+            LOG.error("Error parsing command line arguments", excp);
+
+            new HelpFormatter().printHelp("RangerCacheFilePerfTester", options);
+
+            return;
+        }
+
+        if (commandLine.hasOption("h") || commandLine.getOptions().length == 0) {
+            new HelpFormatter().printHelp("RangerCacheFilePerfTester", options);
+
+            return;
+        }
+
+        int  iterations = Integer.parseInt(commandLine.getOptionValue("i", "10"));
+        File tmpDir     = Files.createTempDirectory("ranger-cache-perf").toFile();
+
+        try {
+            if (commandLine.hasOption("p")) {
+                run("policies", new File(commandLine.getOptionValue("p")), ServicePolicies.class, JsonUtils.getMapper(), tmpDir, iterations);
+            }
+
+            if (commandLine.hasOption("t")) {
+                run("tags", new File(commandLine.getOptionValue("t")), ServiceTags.class, JsonUtils.getMapper(), tmpDir, iterations);
+            }
+
+            if (commandLine.hasOption("r")) {
+                run("roles", new File(commandLine.getOptionValue("r")), RangerRoles.class, JsonUtils.getMapper(), tmpDir, iterations);
+            }
+
+            if (commandLine.hasOption("u")) {
+                run("userstore", new File(commandLine.getOptionValue("u")), RangerUserStore.class, JsonUtils.getMapper(), tmpDir, iterations);
+            }
+
+            if (commandLine.hasOption("g")) {
+                run("gdsinfo", new File(commandLine.getOptionValue("g")), ServiceGdsInfo.class, JsonUtilsV2.getMapper(), tmpDir, iterations);
+            }
+        } finally {
+            File[] files = tmpDir.listFiles();
+
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+
+            tmpDir.delete();
+        }
+    }
+
+    private static <T> void run(String cacheType, File inputFile, Class<T> clz, ObjectMapper mapper, File tmpDir, int iterations) throws Exception {
+        T    obj      = RangerCacheFileUtil.read(inputFile, clz, mapper);
+        long jsonSize = 0;
+
+        for (boolean isCompressed : new boolean[] { false, true }) {
+            File cacheFile = new File(tmpDir, cacheType + (isCompressed ? ".json.gz" : ".json"));
+
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                RangerCacheFileUtil.write(cacheFile, obj, isCompressed, mapper);
+                RangerCacheFileUtil.read(cacheFile, clz, mapper);
+            }
+
+            long startTime = System.nanoTime();
+
+            for (int i = 0; i < iterations; i++) {
+                RangerCacheFileUtil.write(cacheFile, obj, isCompressed, mapper);
+            }
+
+            long saveTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+
+            for (int i = 0; i < iterations; i++) {
+                RangerCacheFileUtil.read(cacheFile, clz, mapper);
+            }
+
+            long loadTime = System.nanoTime() - startTime;
+            long size     = cacheFile.length();
+
+            if (!isCompressed) {
+                jsonSize = size;
+            }
+
+            System.out.println(String.format("cache=%s, format=%s, size=%d bytes (%.1f%%), save=%.2f ms, load=%.2f ms",
+                                             cacheType, isCompressed ? "gzip" : "json", size, size * 100.0 / jsonSize, saveTime / 1e6 / iterations, loadTime / 1e6 / iterations));
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.conditionevaluator.RangerConditionEvaluatorRegistry;
+import org.apache.ranger.plugin.conditionevaluator.RangerIpMatcher;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerPolicyConditionDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Measures the time taken per request, and the number of condition evaluations saved - with and without sharing
+ * evaluators of identical conditions and saving their results per request. Policies are generated for one resource,
+ * each allowing group 'public' with an ip-range condition; conditions of all policies use one of a few distinct sets of
+ * IP addresses, none of which match the requests - so that conditions of all policies are evaluated for each request.
+ *
+ * Usage: RangerConditionMemoizationPerfTester -s <service-policies-file> [-p <policy-count>] [-d <distinct-condition-count>] [-n <request-count>] [-r <rounds>]
+ */
+public class RangerConditionMemoizationPerfTester {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerConditionMemoizationPerfTester.class);
+
+    private static final String DATABASE       = "db1";
+    private static final String CONDITION_TYPE = "ip-range";
+    private static final int    IPS_PER_VALUE  = 20;
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+
+        options.addOption("h", "help", false, "show help.");
+        options.addOption("s", "service-policies", true, "Policies File Name, for the service-def");
+        options.addOption("p", "policy-count", true, "Number of policies to generate");
+        options.addOption("d", "distinct-conditions", true, "Number of distinct conditions among the generated policies");
+        options.addOption("n", "request-count", true, "Number of requests evaluated in each round");
+        options.addOption("r", "rounds", true, "Number of rounds");
+
+        final CommandLine commandLine;
+
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException excp) {
+            LOG.error("Error parsing command line arguments", excp);
+
+            new HelpFormatter().printHelp("RangerConditionMemoizationPerfTester", options);
+
+            return;
+        }
+
+        if (commandLine.hasOption("h") || !commandLine.hasOption("s")) {
+            new HelpFormatter().printHelp("RangerConditionMemoizationPerfTester", options);
+
+            return;
+        }
+
+        int                       policyCount        = Integer.parseInt(commandLine.getOptionValue("p", "200"));
+        int                       distinctConditions = Integer.parseInt(commandLine.getOptionValue("d", "5"));
+        int                       requestCount       = Integer.parseInt(commandLine.getOptionValue("n", "20000"));
+        int                       rounds             = Integer.parseInt(commandLine.getOptionValue("r", "5"));
+        ServicePolicies           servicePolicies    = createServicePolicies(commandLine.getOptionValue("s"), policyCount, distinctConditions);
+        List<RangerAccessRequest> requests           = createRequests(requestCount);
+        RangerPolicyEngineImpl    plainEngine        = createPolicyEngine(servicePolicies, false);
+        RangerPolicyEngineImpl    memoizingEngine    = createPolicyEngine(servicePolicies, true);
+
+        System.out.println(String.format("policies=%d, distinct conditions=%d, requests=%d, rounds=%d", policyCount, distinctConditions, requestCount, rounds));
+
+        for (int round = 0; round < rounds; round++) {
+            long plainTime     = evaluate(plainEngine, requests);
+            long memoizingTime = evaluate(memoizingEngine, requests);
+
+            System.out.println(String.format("round=%d, without memoization: ns/request=%d; with memoization: ns/request=%d", round + 1, plainTime / requestCount, memoizingTime / requestCount));
+        }
+
+        RangerConditionEvaluatorRegistry registry = memoizingEngine.getPolicyEngine().getPolicyRepository().getConditionEvaluatorRegistry();
+
+        System.out.println(registry);
+    }
+
+    // returns the time taken, in nanoseconds
+    private static long evaluate(RangerPolicyEngine policyEngine, List<RangerAccessRequest> requests) {
+        long startTime = System.nanoTime();
+
+        for (RangerAccessRequest request : requests) {
+            // evaluate a copy of the request, as results of conditions saved in the context of a request are reused in subsequent evaluations
+            RangerAccessRequestImpl copy = new RangerAccessRequestImpl(request.getResource(), request.getAccessType(), request.getUser(), request.getUserGroups(), null);
+
+            copy.setClientIPAddress(request.getClientIPAddress());
+
+            policyEngine.evaluatePolicies(copy, RangerPolicy.POLICY_TYPE_ACCESS, null);
+        }
+
+        return System.nanoTime() - startTime;
+    }
+
+    private static ServicePolicies createServicePolicies(String servicePoliciesFile, int policyCount, int distinctConditions) throws Exception {
+        ServicePolicies    servicePolicies;
+        List<RangerPolicy> policies = new ArrayList<>(policyCount);
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(servicePoliciesFile), StandardCharsets.UTF_8)) {
+            servicePolicies = JsonUtils.jsonToObject(reader, ServicePolicies.class);
+        }
+
+        servicePolicies.getServiceDef().getPolicyConditions().add(new RangerPolicyConditionDef(100L, CONDITION_TYPE, RangerIpMatcher.class.getName(), null));
+
+        for (int i = 0; i < policyCount; i++) {
+            RangerPolicy                      policy    = new RangerPolicy();
+            RangerPolicyItem                  item      = new RangerPolicyItem();
+            Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+            resources.put("database", new RangerPolicyResource(DATABASE));
+            resources.put("table", new RangerPolicyResource("*"));
+            resources.put("column", new RangerPolicyResource("*"));
+
+            item.setGroups(Collections.singletonList("public"));
+            item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("select")));
+            item.setConditions(Collections.singletonList(new RangerPolicyItemCondition(CONDITION_TYPE, getIpAddresses(i % distinctConditions))));
+
+            policy.setId((long) i + 1);
+            policy.setName(String.format("policy_%06d", i));
+            policy.setService(servicePolicies.getServiceName());
+            policy.setServiceType(servicePolicies.getServiceDef().getName());
+            policy.setResources(resources);
+            policy.setPolicyItems(Collections.singletonList(item));
+
+            policies.add(policy);
+        }
+
+        servicePolicies.setPolicies(policies);
+
+        return servicePolicies;
+    }
+
+    private static List<String> getIpAddresses(int conditionIdx) {
+        List<String> ret = new ArrayList<>(IPS_PER_VALUE);
+
+        for (int i = 0; i < IPS_PER_VALUE; i++) {
+            ret.add("10." + conditionIdx + "." + i + ".*");
+        }
+
+        return ret;
+    }
+
+    private static List<RangerAccessRequest> createRequests(int requestCount) {
+        List<RangerAccessRequest> ret = new ArrayList<>(requestCount);
+
+        for (int i = 0; i < requestCount; i++) {
+            Map<String, Object> elements = new HashMap<>();
+
+            elements.put("database", DATABASE);
+            elements.put("table", "tbl1");
+            elements.put("column", "col1");
+
+            RangerAccessRequestImpl request = new RangerAccessRequestImpl(new RangerAccessResourceImpl(elements), "select", "user_" + (i % 100), Collections.emptySet(), null);
+
+            request.setClientIPAddress("192.168." + (i % 256) + ".1");
+
+            ret.add(request);
+        }
+
+        return ret;
+    }
+
+    private static RangerPolicyEngineImpl createPolicyEngine(ServicePolicies servicePolicies, boolean enableConditionMemoization) {
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.disablePolicyRefresher     = true;
+        options.disableTagRetriever        = true;
+        options.disableUserStoreRetriever  = true;
+        options.disableGdsInfoRetriever    = true;
+        options.cacheAuditResults          = false;
+        options.enableConditionMemoization = enableConditionMemoization;
+
+        RangerPluginContext pluginContext = new RangerPluginContext(new RangerPluginConfig(servicePolicies.getServiceDef().getName(), servicePolicies.getServiceName(), "perf-test", null, null, options));
+
+        return new RangerPolicyEngineImpl(servicePolicies, pluginContext, null);
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.plugin.geo.RangerGeolocationData;
+import org.apache.ranger.plugin.geo.RangerGeolocationDatabase;
+import org.apache.ranger.plugin.geo.RangerGeolocationRanges;
+import org.apache.ranger.plugin.store.file.GeolocationFileStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ * Compares the heap used by, and the lookup time of, the geolocation database stored as a binary search tree of
+ * RangerGeolocationData and as RangerGeolocationRanges - in heap, and memory-mapped from a binary file. Uses generated
+ * IPv4 ranges, or ranges in the given geolocation CSV file. Binary files of geolocation data to be used by plugins are
+ * created with RangerGeolocationFileConverter.
+ *
+ * Usage: RangerGeolocationPerfTester [-n <range-count>] [-l <lookup-count>] [-f <csv-file>] [-o <binary-file>]
+ */
+public class RangerGeolocationPerfTester {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerGeolocationPerfTester.class);
+
+    private static final String[] COUNTRIES = { "US", "CA", "BR", "IN", "NG", "AU", "UK", "FR", "DE", "JP", "CN", "ZA" };
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+
+        options.addOption("h", "help", false, "show help.");
+        options.addOption("n", "range-count", true, "Number of IPv4 ranges to generate");
+        options.addOption("l", "lookup-count", true, "Number of lookups");
+        options.addOption("f", "file", true, "Geolocation CSV file to use, instead of generated ranges");
+        options.addOption("o", "output", true, "Binary file to write the database to");
+
+        final CommandLine commandLine;
+
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException excp) {
+            LOG.error("Error parsing command line arguments", excp);
+
+            new HelpFormatter().printHelp("RangerGeolocationPerfTester", options);
+
+            return;
+        }
+
+        if (commandLine.hasOption("h")) {
+            new HelpFormatter().printHelp("RangerGeolocationPerfTester", options);
+
+            return;
+        }
+
+        int    rangeCount  = Integer.parseInt(commandLine.getOptionValue("n", "500000"));
+        int    lookupCount = Integer.parseInt(commandLine.getOptionValue("l", "1000000"));
+        String csvFile     = commandLine.getOptionValue("f");
+        File   binaryFile  = commandLine.hasOption("o") ? new File(commandLine.getOptionValue("o")) : File.createTempFile("geo", ".bin");
+
+        if (csvFile == null) {
+            csvFile = File.createTempFile("geo", ".csv").getAbsolutePath();
+
+            writeCsv(new File(csvFile), rangeCount);
+        }
+
+        List<String> addresses = createAddresses(lookupCount);
+
+        long                      usedHeap    = getUsedHeap();
+        RangerGeolocationDatabase treeDb      = load(csvFile, false);
+        long                      treeHeap    = getUsedHeap() - usedHeap;
+        RangerGeolocationDatabase compactDb   = load(csvFile, true);
+        long                      compactHeap = getUsedHeap() - usedHeap - treeHeap;
+
+        try (OutputStream out = new FileOutputStream(binaryFile)) {
+            compactDb.getRanges().writeTo(out);
+        }
+
+        usedHeap = getUsedHeap();
+
+        RangerGeolocationRanges mappedRanges = RangerGeolocationRanges.load(binaryFile, true);
+        long                    mappedHeap   = getUsedHeap() - usedHeap;
+
+        System.out.println(String.format("ranges=%d, lookups=%d, binaryFile=%s (%d bytes)", compactDb.getRanges().getIpv4RangeCount() + compactDb.getRanges().getIpv6RangeCount(), lookupCount, binaryFile, binaryFile.length()));
+        System.out.println(String.format("    binary-search-tree: heap=%d KB", treeHeap / 1024));
+        System.out.println(String.format("    compact-in-heap:    heap=%d KB, %s", compactHeap / 1024, compactDb.getRanges()));
+        System.out.println(String.format("    compact-mmap:       heap=%d KB", mappedHeap / 1024));
+
+        for (int round = 0; round < 3; round++) {
+            long treeTime    = lookup(treeDb, addresses);
+            long compactTime = lookup(compactDb.getRanges(), addresses);
+            long mappedTime  = lookup(mappedRanges, addresses);
+
+            System.out.println(String.format("    round=%d, ns/lookup: binary-search-tree=%d, compact-in-heap=%d, compact-mmap=%d", round + 1, treeTime / lookupCount, compactTime / lookupCount, mappedTime / lookupCount));
+        }
+
+        if (!commandLine.hasOption("o")) {
+            binaryFile.delete();
+        }
+
+        if (!commandLine.hasOption("f")) {
+            new File(csvFile).delete();
+        }
+    }
+
+    private static RangerGeolocationDatabase load(String csvFile, boolean useCompactStore) {
+        Map<String, String>  context = new HashMap<>();
+        GeolocationFileStore store   = new GeolocationFileStore();
+
+        context.put(GeolocationFileStore.PROP_GEOLOCATION_FILE_LOCATION, csvFile);
+        context.put(GeolocationFileStore.PROP_GEOLOCATION_USE_COMPACT_STORE, Boolean.toString(useCompactStore));
+
+        store.init(context);
+
+        return store.getGeoDatabase();
+    }
+
+    // returns the time taken, in nanoseconds
+    private static long lookup(RangerGeolocationDatabase database, List<String> addresses) {
+        long startTime  = System.nanoTime();
+        int  foundCount = 0;
+
+        for (String address : addresses) {
+            RangerGeolocationData data = database.find(address);
+
+            if (data != null) {
+                foundCount++;
+            }
+        }
+
+        LOG.debug("found {} of {} addresses", foundCount, addresses.size());
+
+        return System.nanoTime() - startTime;
+    }
+
+    private static long lookup(RangerGeolocationRanges ranges, List<String> addresses) {
+        long startTime  = System.nanoTime();
+        int  foundCount = 0;
+
+        for (String address : addresses) {
+            int location = ranges.findLocation(address);
+
+            if (location != -1 && ranges.getValue(location, 0) != null) {
+                foundCount++;
+            }
+        }
+
+        LOG.debug("found {} of {} addresses", foundCount, addresses.size());
+
+        return System.nanoTime() - startTime;
+    }
+
+    // writes contiguous ranges, each with one of a few thousand locations, in random order
+    private static void writeCsv(File file, int rangeCount) throws Exception {
+        long         rangeSize = (1L << 32) / rangeCount;
+        List<String> lines     = new ArrayList<>(rangeCount);
+        Random       random    = new Random(12345);
+
+        for (int i = 0; i < rangeCount; i++) {
+            long   from    = i * rangeSize;
+            String country = COUNTRIES[random.nextInt(COUNTRIES.length)];
+
+            lines.add(toIpv4(from) + "," + toIpv4(from + rangeSize - 1) + "," + country + "," + country + "_state_" + random.nextInt(20) + "," + country + "_city_" + random.nextInt(200));
+        }
+
+        Collections.shuffle(lines, random);
+
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.println("FROM_IP,TO_IP,COUNTRY_CODE,STATE,CITY");
+
+            for (String line : lines) {
+                writer.println(line);
+            }
+        }
+    }
+
+    private static List<String> createAddresses(int count) {
+        List<String> ret    = new ArrayList<>(count);
+        Random       random = new Random(54321);
+
+        for (int i = 0; i < count; i++) {
+            ret.add(toIpv4(random.nextInt() & 0xffffffffL));
+        }
+
+        return ret;
+    }
+
+    private static String toIpv4(long ip) {
+        return ((ip >>> 24) & 0xff) + "." + ((ip >>> 16) & 0xff) + "." + ((ip >>> 8) & 0xff) + "." + (ip & 0xff);
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
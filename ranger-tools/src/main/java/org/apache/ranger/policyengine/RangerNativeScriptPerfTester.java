@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerNativeScript;
+import org.apache.ranger.plugin.policyengine.RangerRequestScriptEvaluator;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.ScriptEngineUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.ScriptEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Measures the time taken to evaluate common condition scripts natively, and with the script engine used for policy
+ * conditions - Nashorn, when available in the JVM, or GraalJS, when its libraries are in the classpath. Each script is
+ * evaluated once for each of the generated requests, in every round.
+ *
+ * Usage: RangerNativeScriptPerfTester [-n <request-count>] [-r <rounds>] [-c <condition-script>]
+ */
+public class RangerNativeScriptPerfTester {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerNativeScriptPerfTester.class);
+
+    private static final String       SERVICE_TYPE = "hive";
+    private static final List<String> SCRIPTS      = Arrays.asList("USER.dept == 'dept_1'",
+                                                                   "HAS_TAG('PII')",
+                                                                   "TAG.level == 'high'",
+                                                                   "IS_IN_GROUP('group_1') && !HAS_TAG('PCI')",
+                                                                   "ctx.isAccessedAfter('expiry_date')",
+                                                                   "IS_ACCESS_TIME_BETWEEN('2010/01/01', '2100/01/01')");
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+
+        options.addOption("h", "help", false, "show help.");
+        options.addOption("n", "request-count", true, "Number of requests evaluated in each round");
+        options.addOption("r", "rounds", true, "Number of rounds");
+        options.addOption("c", "condition", true, "Condition script to evaluate, instead of the built-in scripts");
+
+        final CommandLine commandLine;
+
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException excp) {
+            LOG.error("Error parsing command line arguments", excp);
+
+            new HelpFormatter().printHelp("RangerNativeScriptPerfTester", options);
+
+            return;
+        }
+
+        if (commandLine.hasOption("h")) {
+            new HelpFormatter().printHelp("RangerNativeScriptPerfTester", options);
+
+            return;
+        }
+
+        int                       requestCount = Integer.parseInt(commandLine.getOptionValue("n", "10000"));
+        int                       rounds       = Integer.parseInt(commandLine.getOptionValue("r", "3"));
+        List<String>              scripts      = commandLine.hasOption("c") ? Collections.singletonList(commandLine.getOptionValue("c")) : SCRIPTS;
+        List<RangerAccessRequest> requests     = createRequests(requestCount);
+        ScriptEngine              scriptEngine = ScriptEngineUtil.getThreadScriptEngine(SERVICE_TYPE);
+
+        System.out.println(String.format("requests=%d, rounds=%d, scriptEngine=%s", requestCount, rounds, scriptEngine != null ? scriptEngine.getFactory().getEngineName() : null));
+
+        for (String script : scripts) {
+            RangerNativeScript nativeScript = RangerNativeScript.compileCondition(script);
+
+            System.out.println(String.format("script: %s", script));
+
+            if (nativeScript == null) {
+                System.out.println("    not supported in native evaluation");
+            }
+
+            for (int round = 0; round < rounds; round++) {
+                long nativeTime = nativeScript != null ? evaluate(nativeScript, requests) : -1;
+                long engineTime = scriptEngine != null ? evaluate(scriptEngine, script, requests) : -1;
+
+                System.out.println(String.format("    round=%d, native: ns/eval=%d; script engine: ns/eval=%d", round + 1, nativeTime / requestCount, engineTime / requestCount));
+            }
+        }
+    }
+
+    // returns the time taken, in nanoseconds
+    private static long evaluate(RangerNativeScript script, List<RangerAccessRequest> requests) {
+        long startTime = System.nanoTime();
+
+        for (RangerAccessRequest request : requests) {
+            new RangerRequestScriptEvaluator(request).evaluateConditionScript(script);
+        }
+
+        return System.nanoTime() - startTime;
+    }
+
+    // evaluates as RangerScriptConditionEvaluator does; returns the time taken, in nanoseconds
+    private static long evaluate(ScriptEngine scriptEngine, String script, List<RangerAccessRequest> requests) {
+        boolean enableJsonCtx = RangerRequestScriptEvaluator.needsJsonCtxEnabled(script);
+        long    startTime     = System.nanoTime();
+
+        for (RangerAccessRequest request : requests) {
+            new RangerRequestScriptEvaluator(request, scriptEngine, enableJsonCtx).evaluateConditionScript(script);
+        }
+
+        return System.nanoTime() - startTime;
+    }
+
+    private static List<RangerAccessRequest> createRequests(int requestCount) {
+        List<RangerAccessRequest>        ret             = new ArrayList<>(requestCount);
+        Map<String, Map<String, String>> userAttrMapping = new HashMap<>();
+        RangerUserStore                  userStore       = new RangerUserStore();
+
+        for (int i = 0; i < 100; i++) {
+            userAttrMapping.put("user_" + i, Collections.singletonMap("dept", "dept_" + (i % 10)));
+        }
+
+        userStore.setUserAttrMapping(userAttrMapping);
+        userStore.setGroupAttrMapping(Collections.emptyMap());
+
+        for (int i = 0; i < requestCount; i++) {
+            Map<String, Object> elements = new HashMap<>();
+
+            elements.put("database", "db1");
+            elements.put("table", "tbl1");
+            elements.put("column", "col1");
+
+            RangerAccessRequestImpl request = new RangerAccessRequestImpl(new RangerAccessResourceImpl(elements), "select", "user_" + (i % 100), Collections.singleton("group_" + (i % 5)), Collections.emptySet());
+            Map<String, String>     attrs   = new HashMap<>();
+
+            attrs.put("level", (i % 2) == 0 ? "high" : "low");
+            attrs.put("expiry_date", (i % 3) == 0 ? "2020/01/01" : "2100/01/01");
+
+            RangerTagForEval tag = new RangerTagForEval(new RangerTag((i % 4) == 0 ? "PCI" : "PII", attrs), RangerPolicyResourceMatcher.MatchType.SELF);
+
+            RangerAccessRequestUtil.setRequestTagsInContext(request.getContext(), Collections.singleton(tag));
+            RangerAccessRequestUtil.setCurrentTagInContext(request.getContext(), tag);
+            RangerAccessRequestUtil.setRequestUserStoreInContext(request.getContext(), userStore);
+
+            ret.add(request);
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServicePoliciesSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Measures the time taken to load policies from the plugin's policy cache and to build the policy engine, as on plugin
+ * start, with the policies read from the JSON cache file or from its binary snapshot (option -x). Run the tool once to
+ * create the cache file and the snapshot, and then in a new JVM for each load - to measure the start of a plugin.
+ *
+ * Usage:
+ *   create cache: RangerPolicyCacheWarmStartPerfTester -s <service-policies-file> -n <policy-count> -c <cache-file>
+ *   load cache:   RangerPolicyCacheWarmStartPerfTester -c <cache-file> [-i <iterations>] [-x]
+ */
+public class RangerPolicyCacheWarmStartPerfTester {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerPolicyCacheWarmStartPerfTester.class);
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+
+        options.addOption("h", "help", false, "show help.");
+        options.addOption("s", "service-policies", true, "Policies File Name, to create the cache file from");
+        options.addOption("n", "policy-count", true, "Number of policies to create in the cache file");
+        options.addOption("c", "cache-file", true, "Policy cache File Name");
+        options.addOption("i", "iterations", true, "Number of times to load the cache and build the policy engine");
+        options.addOption("x", "snapshot", false, "Load policies from the binary snapshot of the cache file");
+
+        final CommandLine commandLine;
+
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException excp) {
+            LOG.error("Error parsing command line arguments", excp);
+
+            new HelpFormatter().printHelp("RangerPolicyCacheWarmStartPerfTester", options);
+
+            return;
+        }
+
+        if (commandLine.hasOption("h") || !commandLine.hasOption("c")) {
+            new HelpFormatter().printHelp("RangerPolicyCacheWarmStartPerfTester", options);
+
+            return;
+        }
+
+        File cacheFile = new File(commandLine.getOptionValue("c"));
+
+        if (commandLine.hasOption("s")) {
+            createCache(commandLine.getOptionValue("s"), Integer.parseInt(commandLine.getOptionValue("n", "10000")), cacheFile);
+        } else {
+            loadCache(cacheFile, Integer.parseInt(commandLine.getOptionValue("i", "1")), commandLine.hasOption("x"));
+        }
+    }
+
+    private static void createCache(String servicePoliciesFile, int policyCount, File cacheFile) throws Exception {
+        ServicePolicies    servicePolicies = readServicePolicies(servicePoliciesFile);
+        List<RangerPolicy> templates       = servicePolicies.getPolicies();
+        List<RangerPolicy> policies        = new ArrayList<>(policyCount);
+
+        for (int i = 0; i < policyCount; i++) {
+            RangerPolicy                      policy    = JsonUtils.jsonToObject(JsonUtils.objectToJson(templates.get(i % templates.size())), RangerPolicy.class);
+            Map<String, RangerPolicyResource> resources = new LinkedHashMap<>();
+
+            for (Map.Entry<String, RangerPolicyResource> entry : policy.getResources().entrySet()) {
+                List<String> values = new ArrayList<>();
+
+                for (String value : entry.getValue().getValues()) {
+                    values.add(value + "_" + i);
+                }
+
+                resources.put(entry.getKey(), new RangerPolicyResource(values, entry.getValue().getIsExcludes(), entry.getValue().getIsRecursive()));
+            }
+
+            policy.setId((long) i + 1);
+            policy.setName(policy.getName() + "_" + i);
+            policy.setServiceType(servicePolicies.getServiceDef().getName());
+            policy.setResources(resources);
+
+            policies.add(policy);
+        }
+
+        servicePolicies.setPolicies(policies);
+        servicePolicies.setPolicyVersion(1L);
+
+        try (Writer writer = new FileWriter(cacheFile)) {
+            JsonUtils.objectToWriter(writer, servicePolicies);
+        }
+
+        ServicePoliciesSnapshot.save(servicePolicies, cacheFile);
+
+        System.out.println(String.format("policies=%d, cache-file-size=%d, snapshot-file-size=%d", policyCount, cacheFile.length(), ServicePoliciesSnapshot.getSnapshotFile(cacheFile).length()));
+    }
+
+    private static void loadCache(File cacheFile, int iterations, boolean isSnapshot) throws Exception {
+        RangerPluginContext pluginContext = null;
+
+        for (int i = 0; i < iterations; i++) {
+            long            startTime = System.nanoTime();
+            ServicePolicies servicePolicies;
+
+            if (isSnapshot) {
+                servicePolicies = ServicePoliciesSnapshot.load(cacheFile);
+
+                if (servicePolicies == null) {
+                    throw new IllegalStateException("failed to load snapshot of " + cacheFile);
+                }
+            } else {
+                servicePolicies = readServicePolicies(cacheFile.getPath());
+            }
+
+            long loadTime = System.nanoTime() - startTime;
+
+            if (pluginContext == null) {
+                pluginContext = createPluginContext(servicePolicies);
+            }
+
+            startTime = System.nanoTime();
+
+            RangerPolicyEngineImpl policyEngine = new RangerPolicyEngineImpl(servicePolicies, pluginContext, null);
+
+            long buildTime = System.nanoTime() - startTime;
+
+            System.out.println(String.format("iteration=%d, snapshot=%s, policies=%d, load=%.1f ms, engine-build=%.1f ms, total=%.1f ms",
+                                             i + 1, isSnapshot, servicePolicies.getPolicies().size(), loadTime / 1e6, buildTime / 1e6, (loadTime + buildTime) / 1e6));
+
+            policyEngine.releaseResources(true);
+        }
+    }
+
+    private static RangerPluginContext createPluginContext(ServicePolicies servicePolicies) {
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.disablePolicyRefresher    = true;
+        options.disableTagRetriever       = true;
+        options.disableUserStoreRetriever = true;
+        options.disableGdsInfoRetriever   = true;
+
+        return new RangerPluginContext(new RangerPluginConfig(servicePolicies.getServiceDef().getName(), servicePolicies.getServiceName(), "perf-test", null, null, options));
+    }
+
+    private static ServicePolicies readServicePolicies(String fileName) throws Exception {
+        try (Reader reader = new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8)) {
+            return JsonUtils.jsonToObject(reader, ServicePolicies.class);
+        }
+    }
+}
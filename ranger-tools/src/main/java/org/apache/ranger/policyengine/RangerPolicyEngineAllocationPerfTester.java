@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/*
+ * Measures the bytes allocated, and the time taken, by RangerPolicyEngine.evaluatePolicies() per request - for policies
+ * generated from the policies in a service-policies file. Requests are created before each batch is evaluated, so the
+ * bytes reported are those allocated by the policy engine alone; this is the same metric as gc.alloc.rate.norm of JMH,
+ * read from the allocation counter of the evaluating thread. Rounds before the last few warm up the JIT.
+ *
+ * Usage: RangerPolicyEngineAllocationPerfTester -s <service-policies-file> [-p <policy-count>] [-n <request-count>] [-r <rounds>]
+ */
+public class RangerPolicyEngineAllocationPerfTester {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerPolicyEngineAllocationPerfTester.class);
+
+    private static final int BATCH_SIZE = 10000;
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+
+        options.addOption("h", "help", false, "show help.");
+        options.addOption("s", "service-policies", true, "Policies File Name");
+        options.addOption("p", "policy-count", true, "Number of policies to generate from the policies in the file");
+        options.addOption("n", "request-count", true, "Number of requests evaluated in each round");
+        options.addOption("r", "rounds", true, "Number of rounds");
+
+        final CommandLine commandLine;
+
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException excp) {
+            LOG.error("Error parsing command line arguments", excp);
+
+            new HelpFormatter().printHelp("RangerPolicyEngineAllocationPerfTester", options);
+
+            return;
+        }
+
+        if (commandLine.hasOption("h") || !commandLine.hasOption("s")) {
+            new HelpFormatter().printHelp("RangerPolicyEngineAllocationPerfTester", options);
+
+            return;
+        }
+
+        ServicePolicies    servicePolicies = createServicePolicies(commandLine.getOptionValue("s"), Integer.parseInt(commandLine.getOptionValue("p", "1000")));
+        int                requestCount    = Integer.parseInt(commandLine.getOptionValue("n", "1000000"));
+        int                rounds          = Integer.parseInt(commandLine.getOptionValue("r", "5"));
+        RangerPolicyEngine policyEngine    = createPolicyEngine(servicePolicies);
+        ThreadMXBean       threadMXBean    = ManagementFactory.getThreadMXBean();
+
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("this JVM doesn't support measuring bytes allocated by a thread");
+        }
+
+        System.out.println(String.format("policies=%d, requests=%d, rounds=%d", servicePolicies.getPolicies().size(), requestCount, rounds));
+
+        RequestGenerator generator = new RequestGenerator(servicePolicies);
+
+        for (int round = 0; round < rounds; round++) {
+            long allocatedBytes = 0;
+            long elapsedTime    = 0;
+
+            for (int evaluated = 0; evaluated < requestCount; evaluated += BATCH_SIZE) {
+                List<RangerAccessRequest> requests = generator.getRequests(Math.min(BATCH_SIZE, requestCount - evaluated));
+
+                long bytesBefore = getThreadAllocatedBytes(threadMXBean);
+                long startTime   = System.nanoTime();
+
+                for (RangerAccessRequest request : requests) {
+                    policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+                }
+
+                elapsedTime    += System.nanoTime() - startTime;
+                allocatedBytes += getThreadAllocatedBytes(threadMXBean) - bytesBefore;
+            }
+
+            System.out.println(String.format("round=%d, bytes/request=%d, ns/request=%d", round + 1, allocatedBytes / requestCount, elapsedTime / requestCount));
+        }
+    }
+
+    private static long getThreadAllocatedBytes(ThreadMXBean threadMXBean) {
+        return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static ServicePolicies createServicePolicies(String servicePoliciesFile, int policyCount) throws Exception {
+        ServicePolicies    servicePolicies;
+        List<RangerPolicy> policies = new ArrayList<>(policyCount);
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(servicePoliciesFile), StandardCharsets.UTF_8)) {
+            servicePolicies = JsonUtils.jsonToObject(reader, ServicePolicies.class);
+        }
+
+        List<RangerPolicy> templates = servicePolicies.getPolicies();
+
+        for (int i = 0; i < policyCount; i++) {
+            RangerPolicy                      policy    = JsonUtils.jsonToObject(JsonUtils.objectToJson(templates.get(i % templates.size())), RangerPolicy.class);
+            Map<String, RangerPolicyResource> resources = new LinkedHashMap<>();
+
+            for (Map.Entry<String, RangerPolicyResource> entry : policy.getResources().entrySet()) {
+                List<String> values = new ArrayList<>();
+
+                for (String value : entry.getValue().getValues()) {
+                    values.add("p" + i + "_" + value); // prefix, unlike a suffix, keeps wildcard values distinct in the resource trie
+                }
+
+                resources.put(entry.getKey(), new RangerPolicyResource(values, entry.getValue().getIsExcludes(), entry.getValue().getIsRecursive()));
+            }
+
+            policy.setId((long) i + 1);
+            policy.setName(policy.getName() + "_" + i);
+            policy.setResources(resources);
+
+            policies.add(policy);
+        }
+
+        servicePolicies.setPolicies(policies);
+
+        return servicePolicies;
+    }
+
+    private static RangerPolicyEngine createPolicyEngine(ServicePolicies servicePolicies) {
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.disablePolicyRefresher    = true;
+        options.disableTagRetriever       = true;
+        options.disableUserStoreRetriever = true;
+        options.disableGdsInfoRetriever   = true;
+        options.cacheAuditResults         = false;
+
+        RangerPluginContext pluginContext = new RangerPluginContext(new RangerPluginConfig(servicePolicies.getServiceDef().getName(), servicePolicies.getServiceName(), "perf-test", null, null, options));
+
+        return new RangerPolicyEngineImpl(servicePolicies, pluginContext, null);
+    }
+
+    // requests for resources of the policies - with wildcards replaced by a fixed name, by users and accesses in policy items
+    private static class RequestGenerator {
+        private final List<Map<String, Object>> resources   = new ArrayList<>();
+        private final List<String>              users       = new ArrayList<>();
+        private final List<String>              accessTypes = new ArrayList<>();
+        private final Set<String>               userGroups  = Collections.singleton("public");
+        private final Random                    random      = new Random(42);
+
+        RequestGenerator(ServicePolicies servicePolicies) {
+            Set<String> users       = new TreeSet<>();
+            Set<String> accessTypes = new TreeSet<>();
+
+            for (RangerPolicy policy : servicePolicies.getPolicies()) {
+                Map<String, Object> elements = new HashMap<>();
+
+                for (Map.Entry<String, RangerPolicyResource> entry : policy.getResources().entrySet()) {
+                    List<String> values = entry.getValue().getValues();
+
+                    if (values != null && !values.isEmpty()) {
+                        elements.put(entry.getKey(), values.get(0).replace('*', 'x').replace('?', 'x'));
+                    }
+                }
+
+                resources.add(elements);
+
+                for (RangerPolicyItem policyItem : policy.getPolicyItems()) {
+                    users.addAll(policyItem.getUsers());
+
+                    for (RangerPolicyItemAccess access : policyItem.getAccesses()) {
+                        accessTypes.add(access.getType());
+                    }
+                }
+            }
+
+            if (users.isEmpty()) {
+                users.add("user1");
+            }
+
+            if (accessTypes.isEmpty()) {
+                accessTypes.add(RangerPolicyEngine.ANY_ACCESS);
+            }
+
+            this.users.addAll(users);
+            this.accessTypes.addAll(accessTypes);
+        }
+
+        List<RangerAccessRequest> getRequests(int count) {
+            List<RangerAccessRequest> ret = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                RangerAccessResourceImpl resource = new RangerAccessResourceImpl(new HashMap<>(resources.get(random.nextInt(resources.size()))));
+                String                   user     = users.get(random.nextInt(users.size()));
+                String                   access   = accessTypes.get(random.nextInt(accessTypes.size()));
+
+                ret.add(new RangerAccessRequestImpl(resource, access, user, userGroups, null));
+            }
+
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Measures the latency of access evaluation by reader threads, while a writer thread continuously updates policies with
+ * policy-deltas. Run it with and without -x to compare publishing of engine snapshots with in-place updates of the engine
+ * under its read-write lock.
+ *
+ * Usage: RangerPolicyEngineSwapStressTester -s <service-policies-file> -r <requests-file> [-c <reader-threads>] [-d <duration-seconds>] [-i <update-interval-ms>] [-x]
+ */
+public class RangerPolicyEngineSwapStressTester {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerPolicyEngineSwapStressTester.class);
+
+    private static final Gson GSON;
+
+    static {
+        GsonBuilder builder = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z");
+
+        GSON = builder.registerTypeAdapter(RangerAccessRequest.class, new RangerAccessRequestDeserializer(builder))
+                      .registerTypeAdapter(RangerAccessResource.class, new RangerResourceDeserializer(builder))
+                      .create();
+    }
+
+    private final ServicePolicies           servicePolicies;
+    private final List<RangerAccessRequest> requests;
+    private final int                       readerCount;
+    private final long                      durationMs;
+    private final long                      updateIntervalMs;
+    private final boolean                   isEngineSnapshotsEnabled;
+    private final AtomicBoolean             isStopped = new AtomicBoolean(false);
+
+    public RangerPolicyEngineSwapStressTester(ServicePolicies servicePolicies, List<RangerAccessRequest> requests, int readerCount, long durationMs, long updateIntervalMs, boolean isEngineSnapshotsEnabled) {
+        this.servicePolicies          = servicePolicies;
+        this.requests                 = requests;
+        this.readerCount              = readerCount;
+        this.durationMs               = durationMs;
+        this.updateIntervalMs         = updateIntervalMs;
+        this.isEngineSnapshotsEnabled = isEngineSnapshotsEnabled;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+
+        options.addOption("h", "help", false, "show help.");
+        options.addOption("s", "service-policies", true, "Policies File Name");
+        options.addOption("r", "requests", true, "Request Definition File Name");
+        options.addOption("c", "readers", true, "Number of reader threads");
+        options.addOption("d", "duration", true, "Duration of the test, in seconds");
+        options.addOption("i", "update-interval", true, "Interval between policy updates, in milliseconds");
+        options.addOption("x", "engine-snapshots", false, "Enable engine snapshots");
+
+        final CommandLine commandLine;
+
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException excp) {
+            LOG.error("Error parsing command line arguments", excp);
+
+            new HelpFormatter().printHelp("RangerPolicyEngineSwapStressTester", options);
+
+            return;
+        }
+
+        if (commandLine.hasOption("h") || !commandLine.hasOption("s") || !commandLine.hasOption("r")) {
+            new HelpFormatter().printHelp("RangerPolicyEngineSwapStressTester", options);
+
+            return;
+        }
+
+        ServicePolicies           servicePolicies  = readServicePolicies(commandLine.getOptionValue("s"));
+        List<RangerAccessRequest> requests         = readRequests(commandLine.getOptionValue("r"));
+        int                       readerCount      = Integer.parseInt(commandLine.getOptionValue("c", "4"));
+        long                      durationMs       = Long.parseLong(commandLine.getOptionValue("d", "30")) * 1000;
+        long                      updateIntervalMs = Long.parseLong(commandLine.getOptionValue("i", "10"));
+
+        new RangerPolicyEngineSwapStressTester(servicePolicies, requests, readerCount, durationMs, updateIntervalMs, commandLine.hasOption("x")).run();
+    }
+
+    public void run() throws InterruptedException {
+        RangerBasePlugin    plugin    = createPlugin();
+        LatencyHistogram[]  latencies = new LatencyHistogram[readerCount];
+        List<Thread>        readers   = new ArrayList<>();
+        long[]              updates   = new long[1];
+
+        for (int i = 0; i < readerCount; i++) {
+            final LatencyHistogram histogram = new LatencyHistogram();
+            final int              offset    = i;
+
+            latencies[i] = histogram;
+
+            readers.add(new Thread(() -> {
+                for (int idx = offset; !isStopped.get(); idx++) {
+                    RangerAccessRequest request   = requests.get(idx % requests.size());
+                    long                startTime = System.nanoTime();
+
+                    plugin.isAccessAllowed(request, null);
+
+                    histogram.record(System.nanoTime() - startTime);
+                }
+            }, "reader-" + i));
+        }
+
+        Thread writer = new Thread(() -> {
+            List<RangerPolicy> policies      = servicePolicies.getPolicies();
+            long               policyVersion = servicePolicies.getPolicyVersion() != null ? servicePolicies.getPolicyVersion() : 0L;
+
+            for (int idx = 0; !isStopped.get() && !policies.isEmpty(); idx++) {
+                plugin.setPolicies(createPolicyUpdateDelta(policies.get(idx % policies.size()), ++policyVersion));
+
+                updates[0]++;
+
+                try {
+                    Thread.sleep(updateIntervalMs);
+                } catch (InterruptedException excp) {
+                    break;
+                }
+            }
+        }, "writer");
+
+        readers.forEach(Thread::start);
+        writer.start();
+
+        Thread.sleep(durationMs);
+
+        isStopped.set(true);
+
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        writer.join();
+
+        LatencyHistogram total = new LatencyHistogram();
+
+        for (LatencyHistogram histogram : latencies) {
+            total.add(histogram);
+        }
+
+        System.out.println(String.format("engine-snapshots=%s, readers=%d, policy-updates=%d, requests=%d, throughput=%.0f/s, latency(us): p50=%.1f, p99=%.1f, p99.9=%.1f, max=%.1f",
+                                         isEngineSnapshotsEnabled, readerCount, updates[0], total.count, total.count * 1000.0 / durationMs,
+                                         total.getPercentile(50) / 1000.0, total.getPercentile(99) / 1000.0, total.getPercentile(99.9) / 1000.0, total.max / 1000.0));
+
+        plugin.cleanup();
+    }
+
+    private RangerBasePlugin createPlugin() {
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.disablePolicyRefresher    = true;
+        options.disableTagRetriever       = true;
+        options.disableUserStoreRetriever = true;
+        options.disableGdsInfoRetriever   = true;
+        options.enableEngineSnapshots     = isEngineSnapshotsEnabled;
+
+        String             serviceType  = servicePolicies.getServiceDef().getName();
+        RangerPluginConfig pluginConfig = new RangerPluginConfig(serviceType, servicePolicies.getServiceName(), "perf-test", null, null, options);
+
+        pluginConfig.setBoolean(pluginConfig.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA, true);
+        pluginConfig.setBoolean(pluginConfig.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES, !isEngineSnapshotsEnabled);
+
+        for (RangerPolicy policy : servicePolicies.getPolicies()) {
+            policy.setServiceType(serviceType);
+        }
+
+        return new RangerBasePlugin(pluginConfig, servicePolicies, null, null);
+    }
+
+    private ServicePolicies createPolicyUpdateDelta(RangerPolicy policy, long policyVersion) {
+        RangerPolicy updatedPolicy = GSON.fromJson(GSON.toJson(policy), RangerPolicy.class);
+
+        updatedPolicy.setVersion(policyVersion);
+
+        ServicePolicies ret = new ServicePolicies();
+
+        ret.setServiceName(servicePolicies.getServiceName());
+        ret.setServiceId(servicePolicies.getServiceId());
+        ret.setServiceDef(servicePolicies.getServiceDef());
+        ret.setPolicyVersion(policyVersion);
+        ret.setPolicyDeltas(Collections.singletonList(new RangerPolicyDelta(policyVersion, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, policyVersion, updatedPolicy)));
+
+        return ret;
+    }
+
+    private static ServicePolicies readServicePolicies(String fileName) throws Exception {
+        try (Reader reader = new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, ServicePolicies.class);
+        }
+    }
+
+    private static List<RangerAccessRequest> readRequests(String fileName) throws Exception {
+        try (Reader reader = new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8)) {
+            List<PerfTestClient.RequestData> requestData = GSON.fromJson(reader, new TypeToken<List<PerfTestClient.RequestData>>() {}.getType());
+            List<RangerAccessRequest>        ret         = new ArrayList<>(requestData.size());
+
+            for (PerfTestClient.RequestData data : requestData) {
+                ret.add(data.getRequest());
+            }
+
+            return ret;
+        }
+    }
+
+    /*
+     * Latency histogram with 8 buckets for each power of 2 nanoseconds, to report percentiles within 12.5% of actual values.
+     * Each reader thread updates its own histogram.
+     */
+    static class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 3;
+
+        private final long[] counts = new long[64 << SUB_BUCKET_BITS];
+        private       long   count;
+        private       long   max;
+
+        void record(long nanos) {
+            counts[getBucket(Math.max(nanos, 1))]++;
+            count++;
+
+            if (nanos > max) {
+                max = nanos;
+            }
+        }
+
+        void add(LatencyHistogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+
+            count += other.count;
+            max    = Math.max(max, other.max);
+        }
+
+        long getPercentile(double percentile) {
+            long threshold  = (long) Math.ceil(count * percentile / 100);
+            long cumulative = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+
+                if (cumulative >= threshold && cumulative > 0) {
+                    return Math.min(getBucketUpperBound(i), max);
+                }
+            }
+
+            return max;
+        }
+
+        private static int getBucket(long value) {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+
+            if (exponent < SUB_BUCKET_BITS) {
+                return (int) value;
+            }
+
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+
+            return (exponent << SUB_BUCKET_BITS) + subBucket;
+        }
+
+        private static long getBucketUpperBound(int bucket) {
+            int exponent  = bucket >>> SUB_BUCKET_BITS;
+            int subBucket = bucket & ((1 << SUB_BUCKET_BITS) - 1);
+
+            if (exponent < SUB_BUCKET_BITS) {
+                return bucket;
+            }
+
+            return ((long) ((1 << SUB_BUCKET_BITS) + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+    }
+}
@@ -65,6 +65,7 @@ public static void main(String[] args) {
             policyEngineOptions.optimizeTrieForRetrieval = perfTestOptions.getIsOnDemandTriePostSetupDisabled();
             policyEngineOptions.optimizeTagTrieForSpace = perfTestOptions.getIsTagTrieOptimizedForSpace();
             policyEngineOptions.optimizeTrieForSpace = perfTestOptions.getIsPolicyTrieOptimizedForSpace();
+            policyEngineOptions.enablePrincipalIndex = perfTestOptions.getIsPrincipalIndexEnabled();
 
             URL configurationFileURL = perfTestOptions.getPerfConfigurationFileURL();
 
@@ -101,6 +102,7 @@ public static void main(String[] args) {
             LOG.error("Warmed up!");
 
             PerfDataRecorder.clearStatistics();
+            perfTestEngine.clearStatistics();
 
             int clientsCount = perfTestOptions.getConcurrentClientCount();
             List<PerfTestClient> perfTestClients = new ArrayList<PerfTestClient>(clientsCount);
@@ -164,6 +166,9 @@ public static void main(String[] args) {
 
             LOG.info("After performance-run end: Memory stats: max-available=:" + runtime.maxMemory() + "; in-use=" + (totalMemory-freeMemory) + "; free=" + freeMemory);
 
+            LOG.info("Policies evaluated: requests=" + perfTestEngine.getRequestCount() + "; evaluated-policies=" + perfTestEngine.getEvaluatedPoliciesCount() +
+                     "; per-request=" + String.format("%.2f", perfTestEngine.getEvaluatedPoliciesPerRequest()) + "; principal-index=" + policyEngineOptions.enablePrincipalIndex);
+
             perfTestEngine.cleanUp();
 
             PerfDataRecorder.printStatistics();
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.policyengine.RangerResourceACLIndex;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Measures the time taken by RangerPolicyEngine.getResourceACLs() for resources of the given number of policies -
+ * generated from the policies in a service-policies file, with and without the resource ACL index. Lookups in the
+ * first pass over the resources populate the index; later passes are served from the index. Then one policy is
+ * updated with a delta, to measure lookups in the new engine, which retains index entries not affected by the delta.
+ *
+ * Usage: RangerResourceACLIndexPerfTester -s <service-policies-file> [-n <policy-count>] [-i <passes>] [-m <max-memory-mb>]
+ */
+public class RangerResourceACLIndexPerfTester {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerResourceACLIndexPerfTester.class);
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+
+        options.addOption("h", "help", false, "show help.");
+        options.addOption("s", "service-policies", true, "Policies File Name");
+        options.addOption("n", "policy-count", true, "Number of policies to generate from the policies in the file");
+        options.addOption("i", "passes", true, "Number of passes over the resources of all policies");
+        options.addOption("m", "max-memory-mb", true, "Maximum memory used by the resource ACL index, in MB");
+
+        final CommandLine commandLine;
+
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException excp) {
+            LOG.error("Error parsing command line arguments", excp);
+
+            new HelpFormatter().printHelp("RangerResourceACLIndexPerfTester", options);
+
+            return;
+        }
+
+        if (commandLine.hasOption("h") || !commandLine.hasOption("s")) {
+            new HelpFormatter().printHelp("RangerResourceACLIndexPerfTester", options);
+
+            return;
+        }
+
+        ServicePolicies                servicePolicies = createServicePolicies(commandLine.getOptionValue("s"), Integer.parseInt(commandLine.getOptionValue("n", "1000")));
+        int                            passes          = Integer.parseInt(commandLine.getOptionValue("i", "5"));
+        int                            maxMemoryMB     = Integer.parseInt(commandLine.getOptionValue("m", Integer.toString(RangerResourceACLIndex.DEFAULT_MAX_MEMORY_MB)));
+        List<RangerAccessResourceImpl> resources       = getResources(servicePolicies);
+        RangerPolicyEngineImpl         engine          = createPolicyEngine(servicePolicies, false, maxMemoryMB);
+        RangerPolicyEngineImpl         indexedEngine   = createPolicyEngine(servicePolicies, true, maxMemoryMB);
+
+        System.out.println(String.format("policies=%d, resources=%d, passes=%d, max-memory=%d MB", servicePolicies.getPolicies().size(), resources.size(), passes, maxMemoryMB));
+
+        for (int i = 0; i < passes; i++) {
+            long timeNoIndex = getResourceACLs(engine, resources);
+            long timeIndex   = getResourceACLs(indexedEngine, resources);
+
+            System.out.println(String.format("pass=%d, no-index=%.1f ms, index=%.1f ms, speedup=%.1fx", i + 1, timeNoIndex / 1e6, timeIndex / 1e6, (double) timeNoIndex / timeIndex));
+        }
+
+        System.out.println(indexedEngine.getResourceACLIndex());
+
+        ServicePolicies        deltas        = createDeltas(servicePolicies);
+        RangerPolicyEngineImpl updatedEngine = (RangerPolicyEngineImpl) RangerPolicyEngineImpl.getPolicyEngine(indexedEngine, deltas);
+
+        if (updatedEngine == null) {
+            throw new IllegalStateException("failed to apply policy deltas");
+        }
+
+        int  retainedCount = updatedEngine.getResourceACLIndex().size();
+        long timeDelta     = getResourceACLs(updatedEngine, resources);
+
+        System.out.println(String.format("after delta: retained-entries=%d, index=%.1f ms", retainedCount, timeDelta / 1e6));
+        System.out.println(updatedEngine.getResourceACLIndex());
+    }
+
+    private static long getResourceACLs(RangerPolicyEngine policyEngine, List<RangerAccessResourceImpl> resources) {
+        long startTime = System.nanoTime();
+
+        for (RangerAccessResourceImpl resource : resources) {
+            policyEngine.getResourceACLs(new RangerAccessRequestImpl(resource, RangerPolicyEngine.ANY_ACCESS, null, null, null));
+        }
+
+        return System.nanoTime() - startTime;
+    }
+
+    private static ServicePolicies createServicePolicies(String servicePoliciesFile, int policyCount) throws Exception {
+        ServicePolicies    servicePolicies;
+        List<RangerPolicy> policies = new ArrayList<>(policyCount);
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(servicePoliciesFile), StandardCharsets.UTF_8)) {
+            servicePolicies = JsonUtils.jsonToObject(reader, ServicePolicies.class);
+        }
+
+        List<RangerPolicy> templates = servicePolicies.getPolicies();
+
+        for (int i = 0; i < policyCount; i++) {
+            RangerPolicy                      policy    = JsonUtils.jsonToObject(JsonUtils.objectToJson(templates.get(i % templates.size())), RangerPolicy.class);
+            Map<String, RangerPolicyResource> resources = new LinkedHashMap<>();
+
+            for (Map.Entry<String, RangerPolicyResource> entry : policy.getResources().entrySet()) {
+                List<String> values = new ArrayList<>();
+
+                for (String value : entry.getValue().getValues()) {
+                    values.add(value + "_" + i);
+                }
+
+                resources.put(entry.getKey(), new RangerPolicyResource(values, entry.getValue().getIsExcludes(), entry.getValue().getIsRecursive()));
+            }
+
+            policy.setId((long) i + 1);
+            policy.setName(policy.getName() + "_" + i);
+            policy.setServiceType(servicePolicies.getServiceDef().getName());
+            policy.setResources(resources);
+
+            policies.add(policy);
+        }
+
+        servicePolicies.setPolicies(policies);
+        servicePolicies.setPolicyVersion(1L);
+
+        return servicePolicies;
+    }
+
+    // resource of each policy, with wildcards replaced by a fixed name
+    private static List<RangerAccessResourceImpl> getResources(ServicePolicies servicePolicies) {
+        List<RangerAccessResourceImpl> ret = new ArrayList<>();
+
+        for (RangerPolicy policy : servicePolicies.getPolicies()) {
+            Map<String, Object> elements = new HashMap<>();
+
+            for (Map.Entry<String, RangerPolicyResource> entry : policy.getResources().entrySet()) {
+                List<String> values = entry.getValue().getValues();
+
+                if (values != null && !values.isEmpty()) {
+                    elements.put(entry.getKey(), values.get(0).replace('*', 'x').replace('?', 'x'));
+                }
+            }
+
+            ret.add(new RangerAccessResourceImpl(elements));
+        }
+
+        Collections.shuffle(ret);
+
+        return ret;
+    }
+
+    private static ServicePolicies createDeltas(ServicePolicies servicePolicies) {
+        RangerPolicy policy = JsonUtils.jsonToObject(JsonUtils.objectToJson(servicePolicies.getPolicies().get(0)), RangerPolicy.class);
+
+        if (policy.getPolicyType() == null) {
+            policy.setPolicyType(RangerPolicy.POLICY_TYPE_ACCESS);
+        }
+
+        policy.setDescription("updated by " + RangerResourceACLIndexPerfTester.class.getSimpleName());
+
+        ServicePolicies ret = new ServicePolicies();
+
+        ret.setServiceName(servicePolicies.getServiceName());
+        ret.setServiceDef(servicePolicies.getServiceDef());
+        ret.setPolicyVersion(servicePolicies.getPolicyVersion() + 1);
+        ret.setPolicyDeltas(Collections.singletonList(new RangerPolicyDelta(1L, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, ret.getPolicyVersion(), policy)));
+
+        return ret;
+    }
+
+    private static RangerPolicyEngineImpl createPolicyEngine(ServicePolicies servicePolicies, boolean enableResourceACLIndex, int maxMemoryMB) {
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.disablePolicyRefresher      = true;
+        options.disableTagRetriever         = true;
+        options.disableUserStoreRetriever   = true;
+        options.disableGdsInfoRetriever     = true;
+        options.enableResourceACLIndex      = enableResourceACLIndex;
+        options.resourceACLIndexMaxMemoryMB = maxMemoryMB;
+
+        RangerPluginContext pluginContext = new RangerPluginContext(new RangerPluginConfig(servicePolicies.getServiceDef().getName(), servicePolicies.getServiceName(), "perf-test", null, null, options));
+
+        return new RangerPolicyEngineImpl(servicePolicies, pluginContext, null);
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchingScope;
+import org.apache.ranger.plugin.policyengine.RangerResourceTrie;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.policyresourcematcher.RangerResourceEvaluator;
+import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/*
+ * Compares the time taken, and memory allocated, to apply a delta of policy changes to a copy of a resource trie, using
+ * a full copy of the trie (the default) and a path-copy that shares unchanged nodes with the original trie (policy engine
+ * option enable.trie.path.copying). Lookups on both updated tries are verified to return the same evaluators.
+ *
+ * Usage: RangerResourceTrieDeltaPerfTester [resource-count] [delta-size] [iterations]
+ */
+public class RangerResourceTrieDeltaPerfTester {
+    private static final int DEFAULT_RESOURCE_COUNT = 100000;
+    private static final int DEFAULT_DELTA_SIZE     = 10;
+    private static final int DEFAULT_ITERATIONS     = 50;
+    private static final int WARMUP_ITERATIONS      = 10;
+
+    private static final RangerResourceDef PATH_RESOURCE_DEF = getPathResourceDef();
+
+    private static long nextId = 1;
+
+    public static void main(String[] args) {
+        int resourceCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RESOURCE_COUNT;
+        int deltaSize     = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DELTA_SIZE;
+        int iterations    = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ITERATIONS;
+
+        List<PathEvaluator> evaluators = new ArrayList<>(resourceCount);
+
+        for (int i = 0; i < resourceCount; i++) {
+            evaluators.add(new PathEvaluator(getPath(i), true));
+        }
+
+        RangerResourceTrie<PathEvaluator> trie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, evaluators, false, false, null);
+
+        for (int i = 0; i < resourceCount; i += 10) { // setup nodes along the lookup paths, as in a trie serving requests
+            trie.getEvaluatorsForResource(getPath(i) + "/file", ResourceElementMatchingScope.SELF);
+        }
+
+        verify(trie, evaluators, deltaSize);
+
+        run(trie, evaluators, deltaSize, WARMUP_ITERATIONS, false);
+        run(trie, evaluators, deltaSize, WARMUP_ITERATIONS, true);
+
+        long[] fullCopy = run(trie, evaluators, deltaSize, iterations, false);
+        long[] pathCopy = run(trie, evaluators, deltaSize, iterations, true);
+
+        System.out.println(String.format("resources=%d, delta-size=%d, iterations=%d", resourceCount, deltaSize, iterations));
+        System.out.println(String.format("full-copy: %.3f ms/delta, %.1f KB allocated/delta", fullCopy[0] / 1e6 / iterations, fullCopy[1] / 1024.0 / iterations));
+        System.out.println(String.format("path-copy: %.3f ms/delta, %.1f KB allocated/delta", pathCopy[0] / 1e6 / iterations, pathCopy[1] / 1024.0 / iterations));
+        System.out.println(String.format("speedup=%.1fx, allocation-reduction=%.1fx", (double) fullCopy[0] / pathCopy[0], (double) fullCopy[1] / pathCopy[1]));
+    }
+
+    private static long[] run(RangerResourceTrie<PathEvaluator> trie, List<PathEvaluator> evaluators, int deltaSize, int iterations, boolean isPathCopy) {
+        ThreadMXBean threadMXBean   = ManagementFactory.getThreadMXBean();
+        long         threadId       = Thread.currentThread().getId();
+        long         elapsedTime    = 0;
+        long         allocatedBytes = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            List<PathEvaluator> deletes = getDeletes(evaluators, deltaSize, i);
+            List<PathEvaluator> adds    = getAdds(evaluators.size(), deltaSize, i);
+
+            long startBytes = getThreadAllocatedBytes(threadMXBean, threadId);
+            long startTime  = System.nanoTime();
+
+            applyDelta(new RangerResourceTrie<>(trie, isPathCopy), deletes, adds);
+
+            elapsedTime    += System.nanoTime() - startTime;
+            allocatedBytes += getThreadAllocatedBytes(threadMXBean, threadId) - startBytes;
+        }
+
+        return new long[] { elapsedTime, allocatedBytes };
+    }
+
+    private static RangerResourceTrie<PathEvaluator> applyDelta(RangerResourceTrie<PathEvaluator> trie, List<PathEvaluator> deletes, List<PathEvaluator> adds) {
+        for (PathEvaluator evaluator : deletes) {
+            trie.delete(evaluator.policyResource, evaluator);
+        }
+
+        for (PathEvaluator evaluator : adds) {
+            trie.add(evaluator.policyResource, evaluator);
+        }
+
+        trie.wrapUpUpdate();
+
+        return trie;
+    }
+
+    private static void verify(RangerResourceTrie<PathEvaluator> trie, List<PathEvaluator> evaluators, int deltaSize) {
+        List<PathEvaluator>               deletes  = getDeletes(evaluators, deltaSize, 0);
+        List<PathEvaluator>               adds     = getAdds(evaluators.size(), deltaSize, 0);
+        RangerResourceTrie<PathEvaluator> fullCopy = applyDelta(new RangerResourceTrie<>(trie), deletes, adds);
+        RangerResourceTrie<PathEvaluator> pathCopy = applyDelta(new RangerResourceTrie<>(trie, true), deletes, adds);
+        List<String>                      paths    = new ArrayList<>();
+
+        for (PathEvaluator evaluator : deletes) {
+            paths.add(evaluator.path + "/file");
+        }
+
+        for (PathEvaluator evaluator : adds) {
+            paths.add(evaluator.path + "/file");
+        }
+
+        paths.add(getPath(evaluators.size() / 2) + "/file");
+
+        for (String path : paths) {
+            if (!Objects.equals(fullCopy.getEvaluatorsForResource(path), pathCopy.getEvaluatorsForResource(path))) {
+                throw new IllegalStateException("result mismatch: path=" + path + ", full-copy=" + fullCopy.getEvaluatorsForResource(path) + ", path-copy=" + pathCopy.getEvaluatorsForResource(path));
+            }
+        }
+    }
+
+    private static List<PathEvaluator> getDeletes(List<PathEvaluator> evaluators, int deltaSize, int iteration) {
+        List<PathEvaluator> ret = new ArrayList<>(deltaSize);
+
+        for (int i = 0; i < deltaSize; i++) {
+            ret.add(evaluators.get((int) (((long) iteration * deltaSize + i) * 7919 % evaluators.size())));
+        }
+
+        return ret;
+    }
+
+    private static List<PathEvaluator> getAdds(int resourceCount, int deltaSize, int iteration) {
+        List<PathEvaluator> ret = new ArrayList<>(deltaSize);
+
+        for (int i = 0; i < deltaSize; i++) {
+            ret.add(new PathEvaluator(getPath(resourceCount + iteration * deltaSize + i), i % 2 == 0));
+        }
+
+        return ret;
+    }
+
+    private static String getPath(int index) {
+        return "/data/db" + (index % 100) + "/tbl" + (index / 100 % 1000) + "/part" + index;
+    }
+
+    private static long getThreadAllocatedBytes(ThreadMXBean threadMXBean, long threadId) {
+        return threadMXBean instanceof com.sun.management.ThreadMXBean ? ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(threadId) : 0;
+    }
+
+    private static RangerResourceDef getPathResourceDef() {
+        RangerResourceDef   ret            = new RangerResourceDef();
+        Map<String, String> matcherOptions = new HashMap<>();
+
+        matcherOptions.put("wildCard", "true");
+        matcherOptions.put("ignoreCase", "true");
+        matcherOptions.put("pathSeparatorChar", "/");
+
+        ret.setItemId(1L);
+        ret.setName("path");
+        ret.setType("path");
+        ret.setLevel(10);
+        ret.setParent("");
+        ret.setMatcher(RangerPathResourceMatcher.class.getName());
+        ret.setMatcherOptions(matcherOptions);
+
+        return ret;
+    }
+
+    private static class PathEvaluator implements RangerResourceEvaluator {
+        private final long                  id;
+        private final String                path;
+        private final RangerPolicyResource  policyResource;
+        private final RangerResourceMatcher resourceMatcher;
+
+        PathEvaluator(String path, boolean isRecursive) {
+            this.id              = nextId++;
+            this.path            = path;
+            this.policyResource  = new RangerPolicyResource(path, false, isRecursive);
+            this.resourceMatcher = new RangerPathResourceMatcher();
+
+            resourceMatcher.setResourceDef(PATH_RESOURCE_DEF);
+            resourceMatcher.setPolicyResource(policyResource);
+            resourceMatcher.init();
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public RangerPolicyResourceMatcher getPolicyResourceMatcher() {
+            return null;
+        }
+
+        @Override
+        public Map<String, RangerPolicyResource> getPolicyResource() {
+            return Collections.singletonMap(PATH_RESOURCE_DEF.getName(), policyResource);
+        }
+
+        @Override
+        public RangerResourceMatcher getResourceMatcher(String resourceName) {
+            return resourceMatcher;
+        }
+
+        @Override
+        public boolean isAncestorOf(RangerServiceDef.RangerResourceDef resourceDef) {
+            return false;
+        }
+
+        @Override
+        public boolean isLeaf(String resourceName) {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "id=" + id + ", path=" + path;
+        }
+    }
+}
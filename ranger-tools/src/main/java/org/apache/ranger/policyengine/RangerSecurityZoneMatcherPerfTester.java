@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.policyengine.RangerSecurityZoneMatcher;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServicePolicies.SecurityZoneInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ * Measures the time taken to find security zones of resources, with and without caching zones of resources in
+ * RangerSecurityZoneMatcher. Zones are generated for databases of the service-def in the given service-policies
+ * file, each zone having a few databases and tables; resources looked up are picked randomly from a smaller set, as
+ * the same resources are accessed repeatedly.
+ *
+ * Usage: RangerSecurityZoneMatcherPerfTester -s <service-policies-file> [-z <zone-count>] [-r <resource-count>] [-n <lookup-count>]
+ */
+public class RangerSecurityZoneMatcherPerfTester {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerSecurityZoneMatcherPerfTester.class);
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+
+        options.addOption("h", "help", false, "show help.");
+        options.addOption("s", "service-policies", true, "Policies File Name, for the service-def");
+        options.addOption("z", "zone-count", true, "Number of security zones");
+        options.addOption("r", "resource-count", true, "Number of distinct resources looked up");
+        options.addOption("n", "lookup-count", true, "Number of lookups");
+
+        final CommandLine commandLine;
+
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException excp) {
+            LOG.error("Error parsing command line arguments", excp);
+
+            new HelpFormatter().printHelp("RangerSecurityZoneMatcherPerfTester", options);
+
+            return;
+        }
+
+        if (commandLine.hasOption("h") || !commandLine.hasOption("s")) {
+            new HelpFormatter().printHelp("RangerSecurityZoneMatcherPerfTester", options);
+
+            return;
+        }
+
+        RangerServiceDef               serviceDef    = readServicePolicies(commandLine.getOptionValue("s")).getServiceDef();
+        int                            zoneCount     = Integer.parseInt(commandLine.getOptionValue("z", "300"));
+        int                            resourceCount = Integer.parseInt(commandLine.getOptionValue("r", "5000"));
+        int                            lookupCount   = Integer.parseInt(commandLine.getOptionValue("n", "1000000"));
+        Map<String, SecurityZoneInfo>  zones         = createSecurityZones(zoneCount);
+        List<RangerAccessResourceImpl> resources     = createResources(serviceDef, zoneCount, resourceCount);
+
+        RangerSecurityZoneMatcher noCacheMatcher = new RangerSecurityZoneMatcher(zones, serviceDef, createPluginContext(serviceDef, 0));
+        RangerSecurityZoneMatcher cacheMatcher   = new RangerSecurityZoneMatcher(zones, serviceDef, createPluginContext(serviceDef, RangerSecurityZoneMatcher.DEFAULT_CACHE_SIZE));
+
+        System.out.println(String.format("zones=%d, resources=%d, lookups=%d", zoneCount, resourceCount, lookupCount));
+
+        for (int round = 0; round < 2; round++) { // first round warms up the JIT
+            long timeNoCache = lookup(noCacheMatcher, resources, lookupCount);
+            long timeCache   = lookup(cacheMatcher, resources, lookupCount);
+
+            if (round > 0) {
+                System.out.println(String.format("no-cache=%.1f ms, cache=%.1f ms, speedup=%.1fx", timeNoCache / 1e6, timeCache / 1e6, (double) timeNoCache / timeCache));
+                System.out.println(cacheMatcher.getCacheStats());
+            }
+        }
+    }
+
+    private static long lookup(RangerSecurityZoneMatcher zoneMatcher, List<RangerAccessResourceImpl> resources, int lookupCount) {
+        Random random    = new Random(42);
+        long   startTime = System.nanoTime();
+
+        for (int i = 0; i < lookupCount; i++) {
+            zoneMatcher.getZonesForResourceAndChildren(resources.get(random.nextInt(resources.size())));
+        }
+
+        return System.nanoTime() - startTime;
+    }
+
+    private static Map<String, SecurityZoneInfo> createSecurityZones(int zoneCount) {
+        Map<String, SecurityZoneInfo> ret = new HashMap<>();
+
+        for (int i = 0; i < zoneCount; i++) {
+            SecurityZoneInfo              zone      = new SecurityZoneInfo();
+            HashMap<String, List<String>> databases = new HashMap<>();
+            HashMap<String, List<String>> tables    = new HashMap<>();
+
+            databases.put("database", Arrays.asList("db_" + i, "db_" + i + "_*"));
+            tables.put("database", Collections.singletonList("shared_db"));
+            tables.put("table", Collections.singletonList("tbl_" + i + "_*"));
+
+            zone.setZoneName("zone_" + i);
+            zone.setResources(Arrays.asList(databases, tables));
+
+            ret.put(zone.getZoneName(), zone);
+        }
+
+        return ret;
+    }
+
+    private static List<RangerAccessResourceImpl> createResources(RangerServiceDef serviceDef, int zoneCount, int resourceCount) {
+        List<RangerAccessResourceImpl> ret    = new ArrayList<>(resourceCount);
+        Random                         random = new Random(7);
+
+        for (int i = 0; i < resourceCount; i++) {
+            int                      zone     = random.nextInt(zoneCount * 2); // about half of the resources aren't in any zone
+            RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+            resource.setServiceDef(serviceDef);
+
+            if (i % 2 == 0) {
+                resource.setValue("database", "db_" + zone + "_" + i);
+            } else {
+                resource.setValue("database", "shared_db");
+            }
+
+            resource.setValue("table", "tbl_" + zone + "_" + i);
+            resource.setValue("column", "col_" + i);
+
+            ret.add(resource);
+        }
+
+        return ret;
+    }
+
+    private static RangerPluginContext createPluginContext(RangerServiceDef serviceDef, int zoneMatcherCacheSize) {
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.disablePolicyRefresher    = true;
+        options.disableTagRetriever       = true;
+        options.disableUserStoreRetriever = true;
+        options.disableGdsInfoRetriever   = true;
+        options.zoneMatcherCacheSize      = zoneMatcherCacheSize;
+
+        return new RangerPluginContext(new RangerPluginConfig(serviceDef.getName(), null, "perf-test", null, null, options));
+    }
+
+    private static ServicePolicies readServicePolicies(String fileName) throws Exception {
+        try (Reader reader = new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8)) {
+            return JsonUtils.jsonToObject(reader, ServicePolicies.class);
+        }
+    }
+}
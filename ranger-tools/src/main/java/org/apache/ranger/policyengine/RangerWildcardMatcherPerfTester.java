@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.apache.ranger.plugin.resourcematcher.RangerWildcardMatcher;
+
+/*
+ * Compares the time taken to match resource values with wildcard policy values using FilenameUtils.wildcardMatch(),
+ * which splits the pattern on every call, and using RangerWildcardMatcher compiled once per policy value.
+ *
+ * Usage: RangerWildcardMatcherPerfTester [iterations]
+ */
+public class RangerWildcardMatcherPerfTester {
+    private static final int DEFAULT_ITERATIONS = 200000;
+    private static final int WARMUP_ITERATIONS  = 20000;
+
+    private static final String[] PATTERNS = {
+            "sales_db_*", "*_staging", "fin*_2024_q?", "*.txt", "/data/*/warehouse/*.orc", "/user/*/tmp/*", "tbl_??_*_archive", "*cust*addr*"
+    };
+
+    private static final String[] VALUES = {
+            "sales_db_emea", "SALES_DB_APAC", "marketing_staging", "fin_report_2024_q3", "notes.txt", "/data/hive/warehouse/part-0001.orc",
+            "/user/alice/tmp/job_01", "tbl_01_orders_archive", "dim_customer_address", "no_match_at_all_for_this_value"
+    };
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+
+        RangerWildcardMatcher[] matchers = new RangerWildcardMatcher[PATTERNS.length];
+
+        for (int i = 0; i < PATTERNS.length; i++) {
+            matchers[i] = new RangerWildcardMatcher(PATTERNS[i]);
+        }
+
+        for (IOCase ioCase : new IOCase[] { IOCase.SENSITIVE, IOCase.INSENSITIVE }) {
+            boolean ignoreCase = !ioCase.isCaseSensitive();
+
+            verify(matchers, ioCase);
+
+            runFilenameUtils(WARMUP_ITERATIONS, ioCase);
+            runCompiled(matchers, WARMUP_ITERATIONS, ignoreCase);
+
+            long startTime  = System.nanoTime();
+            long matchCount = runFilenameUtils(iterations, ioCase);
+            long timeOld    = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            matchCount += runCompiled(matchers, iterations, ignoreCase);
+
+            long timeNew = System.nanoTime() - startTime;
+            long opCount = (long) iterations * PATTERNS.length * VALUES.length;
+
+            System.out.println(String.format("%-11s: FilenameUtils.wildcardMatch=%.1f ns/match, RangerWildcardMatcher=%.1f ns/match, speedup=%.2fx (matches=%d)",
+                                             ioCase, (double) timeOld / opCount, (double) timeNew / opCount, (double) timeOld / timeNew, matchCount));
+        }
+    }
+
+    private static long runFilenameUtils(int iterations, IOCase ioCase) {
+        long ret = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            for (String pattern : PATTERNS) {
+                for (String value : VALUES) {
+                    if (FilenameUtils.wildcardMatch(value, pattern, ioCase)) {
+                        ret++;
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static long runCompiled(RangerWildcardMatcher[] matchers, int iterations, boolean ignoreCase) {
+        long ret = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            for (RangerWildcardMatcher matcher : matchers) {
+                for (String value : VALUES) {
+                    if (matcher.isMatch(value, ignoreCase)) {
+                        ret++;
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static void verify(RangerWildcardMatcher[] matchers, IOCase ioCase) {
+        for (RangerWildcardMatcher matcher : matchers) {
+            for (String value : VALUES) {
+                boolean expected = FilenameUtils.wildcardMatch(value, matcher.getPattern(), ioCase);
+
+                if (matcher.isMatch(value, !ioCase.isCaseSensitive()) != expected) {
+                    throw new IllegalStateException("result mismatch: pattern=" + matcher.getPattern() + ", value=" + value + ", ioCase=" + ioCase + ", expected=" + expected);
+                }
+            }
+        }
+    }
+}
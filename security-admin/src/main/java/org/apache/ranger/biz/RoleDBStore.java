@@ -365,15 +365,20 @@ public List<String> getRoleNames(SearchFilter filter) throws Exception {
 
     @Override
     public RangerRoles getRoles(String serviceName, Long lastKnownRoleVersion) throws Exception {
+        return getRoles(serviceName, lastKnownRoleVersion, false);
+    }
+
+    @Override
+    public RangerRoles getRoles(String serviceName, Long lastKnownRoleVersion, boolean isDeltaRequested) throws Exception {
         RangerRoles ret                   = null;
         Long        rangerRoleVersionInDB = getRoleVersion(serviceName);
 
         if (LOG.isDebugEnabled()) {
-            LOG.debug("==> RoleDBStore.getRoles() lastKnownRoleVersion= " + lastKnownRoleVersion + " rangerRoleVersionInDB= " + rangerRoleVersionInDB);
+            LOG.debug("==> RoleDBStore.getRoles() lastKnownRoleVersion= " + lastKnownRoleVersion + " rangerRoleVersionInDB= " + rangerRoleVersionInDB + " isDeltaRequested= " + isDeltaRequested);
         }
 
         if (rangerRoleVersionInDB != null) {
-            ret = RangerRoleCache.getInstance().getLatestRangerRoleOrCached(serviceName, this, lastKnownRoleVersion, rangerRoleVersionInDB);
+            ret = RangerRoleCache.getInstance().getLatestRangerRoleOrCached(serviceName, this, lastKnownRoleVersion, rangerRoleVersionInDB, isDeltaRequested);
         }
 
         if (LOG.isDebugEnabled()) {
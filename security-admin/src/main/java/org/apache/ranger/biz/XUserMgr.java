@@ -2742,18 +2742,22 @@ public Map<String, Set<String>> getUserGroups() {
 	}
 
 	public RangerUserStore getRangerUserStoreIfUpdated(Long lastKnownUserStoreVersion) throws Exception {
+		return getRangerUserStoreIfUpdated(lastKnownUserStoreVersion, false);
+	}
+
+	public RangerUserStore getRangerUserStoreIfUpdated(Long lastKnownUserStoreVersion, boolean isDeltaRequested) throws Exception {
 		if (logger.isDebugEnabled()) {
-			logger.debug("==> XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion=" + lastKnownUserStoreVersion + ")");
+			logger.debug("==> XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion=" + lastKnownUserStoreVersion + ", isDeltaRequested=" + isDeltaRequested + ")");
 		}
 
-		RangerUserStore ret = RangerUserStoreCache.getInstance().getLatestRangerUserStoreOrCached(this);
+		RangerUserStore ret = RangerUserStoreCache.getInstance().getLatestRangerUserStoreOrCached(this, lastKnownUserStoreVersion, isDeltaRequested);
 
 		if (ret != null && Objects.equals(ret.getUserStoreVersion(), lastKnownUserStoreVersion)) {
 			ret = null;
 		}
 
 		if (logger.isDebugEnabled()) {
-			logger.debug("<== XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion=" + lastKnownUserStoreVersion + "): ret=" + ret);
+			logger.debug("<== XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion=" + lastKnownUserStoreVersion + ", isDeltaRequested=" + isDeltaRequested + "): ret=" + ret);
 		}
 
 		return ret;
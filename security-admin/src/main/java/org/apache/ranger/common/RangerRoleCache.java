@@ -23,13 +23,17 @@
 import org.apache.ranger.biz.RoleDBStore;
 import org.apache.ranger.plugin.model.RangerRole;
 
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.SearchFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
@@ -38,13 +42,15 @@ public class RangerRoleCache {
 	private static final Logger LOG = LoggerFactory.getLogger(RangerRoleCache.class);
 
 	private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+	private static final int MAX_ROLE_DELTA_VERSIONS  = 10;
 
 	private static volatile RangerRoleCache sInstance = null;
 
-	private final int           waitTimeInSeconds;
-	private final ReentrantLock lock = new ReentrantLock();
-
-	RangerRoleCacheWrapper roleCacheWrapper = null;
+	private final int                    waitTimeInSeconds;
+	private final boolean                supportsRoleDeltas;
+	private final int                    maxRoleDeltaVersions;
+	private final ReentrantLock          lock             = new ReentrantLock();
+	private final RangerRoleCacheWrapper roleCacheWrapper = new RangerRoleCacheWrapper(); // roles are not specific to a service, hence are cached once for all services
 
 	public static RangerRoleCache getInstance() {
 		if (sInstance == null) {
@@ -58,17 +64,34 @@ public static RangerRoleCache getInstance() {
 	}
 
 	private RangerRoleCache() {
-		RangerAdminConfig config = RangerAdminConfig.getInstance();
+		this(RangerAdminConfig.getInstance());
+	}
+
+	private RangerRoleCache(RangerAdminConfig config) {
+		this(config.getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE),
+		     config.getBoolean("ranger.admin" + RangerCommonConstants.RANGER_ADMIN_SUFFIX_ROLE_DELTA, RangerCommonConstants.RANGER_ADMIN_SUFFIX_ROLE_DELTA_DEFAULT),
+		     config.getInt("ranger.admin.role.deltas.max.versions", MAX_ROLE_DELTA_VERSIONS));
+	}
 
-		waitTimeInSeconds = config.getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+	RangerRoleCache(int waitTimeInSeconds, boolean supportsRoleDeltas, int maxRoleDeltaVersions) { // for tests
+		this.waitTimeInSeconds    = waitTimeInSeconds;
+		this.supportsRoleDeltas   = supportsRoleDeltas;
+		this.maxRoleDeltaVersions = maxRoleDeltaVersions;
 	}
 
 	public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rangerRoleVersionInDB) throws Exception {
+		return getLatestRangerRoleOrCached(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB, false);
+	}
+
+	/*
+	 * when isDeltaRequested is true, returns only the roles changed since lastKnownRoleVersion - if the deltas since
+	 * this version are available in the cache
+	 */
+	public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rangerRoleVersionInDB, boolean isDeltaRequested) throws Exception {
 		final RangerRoles ret;
 
 		if (lastKnownRoleVersion == null || !lastKnownRoleVersion.equals(rangerRoleVersionInDB)) {
-			roleCacheWrapper = new RangerRoleCacheWrapper();
-			ret              = roleCacheWrapper.getLatestRangerRoles(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB);
+			ret = roleCacheWrapper.getLatestRangerRoles(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB, isDeltaRequested && supportsRoleDeltas);
 		} else {
 			ret = null;
 		}
@@ -77,12 +100,14 @@ public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore r
 	}
 
 	private class RangerRoleCacheWrapper {
-		RangerRoles roles;
-		Long        rolesVersion;
+		RangerRoles                  roles;
+		Long                         rolesVersion;
+		final LinkedList<RoleDeltas> roleDeltas; // of recent versions, oldest first
 
 		RangerRoleCacheWrapper() {
 			this.roles        = null;
 			this.rolesVersion = -1L;
+			this.roleDeltas   = new LinkedList<>();
 		}
 
 		public RangerRoles getRoles() {
@@ -93,45 +118,56 @@ public Long getRolesVersion() {
 			return this.rolesVersion;
 		}
 
-		public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rolesVersionInDB) throws Exception {
+		public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rolesVersionInDB, boolean isDeltaRequested) throws Exception {
 			RangerRoles ret	       = null;
 			boolean     lockResult = false;
 
 			if (LOG.isDebugEnabled()) {
-				LOG.debug("==> RangerRoleCache.getLatestRangerRoles(ServiceName= " + serviceName + " lastKnownRoleVersion= " + lastKnownRoleVersion + " rolesVersionInDB= " + rolesVersionInDB + ")");
+				LOG.debug("==> RangerRoleCache.getLatestRangerRoles(ServiceName= " + serviceName + " lastKnownRoleVersion= " + lastKnownRoleVersion + " rolesVersionInDB= " + rolesVersionInDB + " isDeltaRequested= " + isDeltaRequested + ")");
 			}
 
 			try {
 				lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
 
 				if (lockResult) {
-					// We are getting all the Roles to be downloaded for now. Should do downloades for each service based on what roles are there in the policies.
-					final long            startTimeMs  = System.currentTimeMillis();
-					SearchFilter          searchFilter = null;
-					final Set<RangerRole> rolesInDB    = new HashSet<>(roleDBStore.getRoles(searchFilter));
-					final long            dbLoadTimeMs = System.currentTimeMillis() - startTimeMs;
-					Date                  updateTime   = new Date();
-
-					if (rolesInDB != null) {
-						if (LOG.isDebugEnabled()) {
-							LOG.debug("loading Roles from database and it took:" + TimeUnit.MILLISECONDS.toSeconds(dbLoadTimeMs) + " seconds");
+					if (roles == null || rolesVersionInDB == null || rolesVersion == null || rolesVersionInDB > rolesVersion) { // cached roles could be more recent than rolesVersionInDB, read before the update of the cache
+						// We are getting all the Roles to be downloaded for now. Should do downloades for each service based on what roles are there in the policies.
+						final long            startTimeMs  = System.currentTimeMillis();
+						SearchFilter          searchFilter = null;
+						final Set<RangerRole> rolesInDB    = new HashSet<>(roleDBStore.getRoles(searchFilter));
+						final long            dbLoadTimeMs = System.currentTimeMillis() - startTimeMs;
+						Date                  updateTime   = new Date();
+
+						if (rolesInDB != null) {
+							if (LOG.isDebugEnabled()) {
+								LOG.debug("loading Roles from database and it took:" + TimeUnit.MILLISECONDS.toSeconds(dbLoadTimeMs) + " seconds");
+							}
+
+							RangerRoles latestRoles = new RangerRoles();
+
+							latestRoles.setRangerRoles(rolesInDB);
+							latestRoles.setRoleUpdateTime(updateTime);
+							latestRoles.setRoleVersion(rolesVersionInDB);
+
+							updateRoleDeltas(latestRoles);
+
+							rolesVersion = rolesVersionInDB;
+							roles        = latestRoles;
+						} else {
+							LOG.error("Could not get Ranger Roles from database ...");
 						}
-						ret = new RangerRoles();
+					}
 
-						ret.setRangerRoles(rolesInDB);
-						ret.setRoleUpdateTime(updateTime);
-						ret.setRoleVersion(rolesVersionInDB);
+					ret = isDeltaRequested ? getRoleDeltas(lastKnownRoleVersion) : null;
 
-						rolesVersion = rolesVersionInDB;
-						roles = ret;
-					} else {
-						LOG.error("Could not get Ranger Roles from database ...");
+					if (ret == null) {
+						ret = copyOf(getRoles());
 					}
 				} else {
 					if (LOG.isDebugEnabled()) {
 						LOG.debug("Could not get lock in [" + waitTimeInSeconds + "] seconds, returning cached RangerRoles");
 					}
-					ret = getRoles();
+					ret = copyOf(getRoles());
 				}
 			} catch (InterruptedException exception) {
 				LOG.error("RangerRoleCache.getLatestRangerRoles:lock got interrupted..", exception);
@@ -147,6 +183,108 @@ public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBSt
 
 			return ret;
 		}
+
+		// computes changes from the cached roles to the given roles, once for all plugins
+		private void updateRoleDeltas(RangerRoles latestRoles) {
+			if (!supportsRoleDeltas || roles == null || rolesVersion == null || rolesVersion < 0 || latestRoles.getRoleVersion() == null) {
+				roleDeltas.clear();
+
+				return;
+			}
+
+			Map<String, RangerRole> oldRoles     = new HashMap<>();
+			Set<RangerRole>         updatedRoles = new HashSet<>();
+
+			for (RangerRole role : roles.getRangerRoles()) {
+				oldRoles.put(role.getName(), role);
+			}
+
+			for (RangerRole role : latestRoles.getRangerRoles()) {
+				RangerRole oldRole = oldRoles.remove(role.getName());
+
+				if (oldRole == null || !oldRole.equals(role)) {
+					updatedRoles.add(role);
+				}
+			}
+
+			roleDeltas.add(new RoleDeltas(rolesVersion, updatedRoles, new HashSet<>(oldRoles.keySet())));
+
+			while (roleDeltas.size() > maxRoleDeltaVersions) {
+				roleDeltas.removeFirst();
+			}
+		}
+
+		// returns null if deltas since the given version are not available, or are not smaller than the roles
+		private RangerRoles getRoleDeltas(Long lastKnownRoleVersion) {
+			int fromIndex = -1;
+
+			for (int i = 0; i < roleDeltas.size(); i++) {
+				if (roleDeltas.get(i).fromVersion.equals(lastKnownRoleVersion)) {
+					fromIndex = i;
+
+					break;
+				}
+			}
+
+			if (fromIndex == -1) {
+				return null;
+			}
+
+			Map<String, RangerRole> updatedRoles = new HashMap<>();
+			Set<String>             deletedRoles = new HashSet<>();
+
+			for (RoleDeltas deltas : roleDeltas.subList(fromIndex, roleDeltas.size())) {
+				for (String roleName : deltas.deletedRoles) {
+					updatedRoles.remove(roleName);
+					deletedRoles.add(roleName);
+				}
+
+				for (RangerRole role : deltas.updatedRoles) {
+					deletedRoles.remove(role.getName());
+					updatedRoles.put(role.getName(), role);
+				}
+			}
+
+			if (updatedRoles.size() + deletedRoles.size() >= roles.getRangerRoles().size()) {
+				return null;
+			}
+
+			RangerRoles ret = new RangerRoles();
+
+			ret.setRoleVersion(roles.getRoleVersion());
+			ret.setRoleUpdateTime(roles.getRoleUpdateTime());
+			ret.setRangerRoles(new HashSet<>(updatedRoles.values()));
+			ret.setDeletedRoles(deletedRoles);
+			ret.setIsDelta(true);
+
+			return ret;
+		}
+
+		// callers update serviceName in the returned object, hence the cached instance is not returned
+		private RangerRoles copyOf(RangerRoles roles) {
+			RangerRoles ret = null;
+
+			if (roles != null) {
+				ret = new RangerRoles();
+
+				ret.setRoleVersion(roles.getRoleVersion());
+				ret.setRoleUpdateTime(roles.getRoleUpdateTime());
+				ret.setRangerRoles(roles.getRangerRoles());
+			}
+
+			return ret;
+		}
 	}
-}
 
+	private static class RoleDeltas {
+		final Long            fromVersion;
+		final Set<RangerRole> updatedRoles;
+		final Set<String>     deletedRoles;
+
+		RoleDeltas(Long fromVersion, Set<RangerRole> updatedRoles, Set<String> deletedRoles) {
+			this.fromVersion  = fromVersion;
+			this.updatedRoles = updatedRoles;
+			this.deletedRoles = deletedRoles;
+		}
+	}
+}
@@ -23,6 +23,7 @@
 import org.apache.ranger.biz.XUserMgr;
 import org.apache.ranger.plugin.model.GroupInfo;
 import org.apache.ranger.plugin.model.UserInfo;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,14 +35,18 @@
 public class RangerUserStoreCache {
 	private static final Logger LOG = LoggerFactory.getLogger(RangerUserStoreCache.class);
 
-	private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+	private static final int MAX_WAIT_TIME_FOR_UPDATE      = 10;
+	private static final int MAX_USERSTORE_DELTA_VERSIONS = 10;
 
 	public static volatile RangerUserStoreCache 	sInstance = null;
 
-	private final int             waitTimeInSeconds;
-	private final boolean         dedupStrings;
-	private final ReentrantLock   lock = new ReentrantLock();
-	private       RangerUserStore rangerUserStore;
+	private final int                          waitTimeInSeconds;
+	private final boolean                      dedupStrings;
+	private final boolean                      supportsUserStoreDeltas;
+	private final int                          maxUserStoreDeltaVersions;
+	private final ReentrantLock                lock = new ReentrantLock();
+	private final LinkedList<UserStoreChanges> userStoreChanges = new LinkedList<>(); // of recent versions, oldest first
+	private       RangerUserStore              rangerUserStore;
 
 	public static RangerUserStoreCache getInstance() {
 		if (sInstance == null) {
@@ -55,11 +60,22 @@ public static RangerUserStoreCache getInstance() {
 	}
 
 	private RangerUserStoreCache() {
-		RangerAdminConfig config = RangerAdminConfig.getInstance();
+		this(RangerAdminConfig.getInstance());
+	}
+
+	private RangerUserStoreCache(RangerAdminConfig config) {
+		this(config.getInt("ranger.admin.userstore.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE),
+		     config.getBoolean("ranger.admin.userstore.dedup.strings", Boolean.TRUE),
+		     config.getBoolean("ranger.admin" + RangerCommonConstants.RANGER_ADMIN_SUFFIX_USERSTORE_DELTA, RangerCommonConstants.RANGER_ADMIN_SUFFIX_USERSTORE_DELTA_DEFAULT),
+		     config.getInt("ranger.admin.userstore.deltas.max.versions", MAX_USERSTORE_DELTA_VERSIONS));
+	}
 
-		this.waitTimeInSeconds = config.getInt("ranger.admin.userstore.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
-		this.dedupStrings      = config.getBoolean("ranger.admin.userstore.dedup.strings", Boolean.TRUE);
-		this.rangerUserStore   = new RangerUserStore();
+	RangerUserStoreCache(int waitTimeInSeconds, boolean dedupStrings, boolean supportsUserStoreDeltas, int maxUserStoreDeltaVersions) { // for tests
+		this.waitTimeInSeconds         = waitTimeInSeconds;
+		this.dedupStrings              = dedupStrings;
+		this.rangerUserStore           = new RangerUserStore();
+		this.supportsUserStoreDeltas   = supportsUserStoreDeltas;
+		this.maxUserStoreDeltaVersions = maxUserStoreDeltaVersions;
 	}
 
 	public RangerUserStore getRangerUserStore() {
@@ -67,8 +83,16 @@ public RangerUserStore getRangerUserStore() {
 	}
 
 	public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) throws Exception {
+		return getLatestRangerUserStoreOrCached(xUserMgr, null, false);
+	}
+
+	/*
+	 * when isDeltaRequested is true, returns only the users and groups changed since lastKnownUserStoreVersion - if
+	 * the changes since this version are available in the cache
+	 */
+	public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr, Long lastKnownUserStoreVersion, boolean isDeltaRequested) throws Exception {
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("==> RangerUserStoreCache.getLatestRangerUserStoreOrCached()");
+			LOG.debug("==> RangerUserStoreCache.getLatestRangerUserStoreOrCached(lastKnownUserStoreVersion=" + lastKnownUserStoreVersion + ", isDeltaRequested=" + isDeltaRequested + ")");
 		}
 
 		RangerUserStore ret        = null;
@@ -101,10 +125,16 @@ public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) throw
 						rangerUserStore.dedupStrings();
 					}
 
+					updateUserStoreChanges(rangerUserStore);
+
 					this.rangerUserStore = rangerUserStore;
 
 					LOG.info("RangerUserStoreCache refreshed from version " + cachedUserStoreVersion + " to " + dbUserStoreVersion + ": users=" + rangerUsersInDB.size() + ", groups=" + rangerGroupsInDB.size() + ", userGroupMappings=" + userGroups.size());
 				}
+
+				if (isDeltaRequested && supportsUserStoreDeltas) {
+					ret = getUserStoreDeltas(lastKnownUserStoreVersion);
+				}
 			} else {
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("Could not get lock in [" + waitTimeInSeconds + "] seconds, returning cached RangerUserStore");
@@ -113,7 +143,9 @@ public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) throw
 		} catch (InterruptedException exception) {
 			LOG.error("RangerUserStoreCache.getLatestRangerUserStoreOrCached:lock got interrupted..", exception);
 		} finally {
-			ret = rangerUserStore;
+			if (ret == null) {
+				ret = rangerUserStore;
+			}
 
 			if (lockResult) {
 				lock.unlock();
@@ -121,10 +153,144 @@ public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) throw
 		}
 
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("<== RangerUserStoreCache.getLatestRangerUserStoreOrCached(): ret=" + ret);
+			LOG.debug("<== RangerUserStoreCache.getLatestRangerUserStoreOrCached(lastKnownUserStoreVersion=" + lastKnownUserStoreVersion + ", isDeltaRequested=" + isDeltaRequested + "): ret=" + ret);
 		}
 
 		return ret;
 	}
-}
 
+	// records names of users and groups changed from the cached userstore to the given userstore, once for all plugins
+	private void updateUserStoreChanges(RangerUserStore latestUserStore) {
+		Long cachedUserStoreVersion = rangerUserStore.getUserStoreVersion();
+
+		if (!supportsUserStoreDeltas || cachedUserStoreVersion == null || cachedUserStoreVersion < 0 || latestUserStore.getUserStoreVersion() == null) {
+			userStoreChanges.clear();
+
+			return;
+		}
+
+		Set<String> changedUsers  = new HashSet<>();
+		Set<String> changedGroups = new HashSet<>();
+
+		addChangedNames(rangerUserStore.getUserAttrMapping(), latestUserStore.getUserAttrMapping(), changedUsers);
+		addChangedNames(rangerUserStore.getUserGroupMapping(), latestUserStore.getUserGroupMapping(), changedUsers);
+		addChangedNames(rangerUserStore.getGroupAttrMapping(), latestUserStore.getGroupAttrMapping(), changedGroups);
+
+		userStoreChanges.add(new UserStoreChanges(cachedUserStoreVersion, changedUsers, changedGroups));
+
+		while (userStoreChanges.size() > maxUserStoreDeltaVersions) {
+			userStoreChanges.removeFirst();
+		}
+	}
+
+	// returns null if changes since the given version are not available, or are not fewer than the users and groups
+	private RangerUserStore getUserStoreDeltas(Long lastKnownUserStoreVersion) {
+		int fromIndex = -1;
+
+		for (int i = 0; i < userStoreChanges.size(); i++) {
+			if (userStoreChanges.get(i).fromVersion.equals(lastKnownUserStoreVersion)) {
+				fromIndex = i;
+
+				break;
+			}
+		}
+
+		if (fromIndex == -1) {
+			return null;
+		}
+
+		Set<String> changedUsers  = new HashSet<>();
+		Set<String> changedGroups = new HashSet<>();
+
+		for (UserStoreChanges changes : userStoreChanges.subList(fromIndex, userStoreChanges.size())) {
+			changedUsers.addAll(changes.users);
+			changedGroups.addAll(changes.groups);
+		}
+
+		Map<String, Map<String, String>> userAttrs  = nonNull(rangerUserStore.getUserAttrMapping());
+		Map<String, Set<String>>         userGroups = nonNull(rangerUserStore.getUserGroupMapping());
+		Map<String, Map<String, String>> groupAttrs = nonNull(rangerUserStore.getGroupAttrMapping());
+		Set<String>                      allUsers   = new HashSet<>(userAttrs.keySet());
+
+		allUsers.addAll(userGroups.keySet());
+
+		if (changedUsers.size() + changedGroups.size() >= allUsers.size() + groupAttrs.size()) {
+			return null;
+		}
+
+		// deltas have the latest entries of the changed users and groups
+		Map<String, Map<String, String>> deltaUserAttrs  = new HashMap<>();
+		Map<String, Set<String>>         deltaUserGroups = new HashMap<>();
+		Map<String, Map<String, String>> deltaGroupAttrs = new HashMap<>();
+		Set<String>                      deletedUsers    = new HashSet<>();
+		Set<String>                      deletedGroups   = new HashSet<>();
+
+		for (String userName : changedUsers) {
+			if (allUsers.contains(userName)) {
+				if (userAttrs.containsKey(userName)) {
+					deltaUserAttrs.put(userName, userAttrs.get(userName));
+				}
+
+				if (userGroups.containsKey(userName)) {
+					deltaUserGroups.put(userName, userGroups.get(userName));
+				}
+			} else {
+				deletedUsers.add(userName);
+			}
+		}
+
+		for (String groupName : changedGroups) {
+			if (groupAttrs.containsKey(groupName)) {
+				deltaGroupAttrs.put(groupName, groupAttrs.get(groupName));
+			} else {
+				deletedGroups.add(groupName);
+			}
+		}
+
+		RangerUserStore ret = new RangerUserStore();
+
+		ret.setUserStoreVersion(rangerUserStore.getUserStoreVersion());
+		ret.setUserStoreUpdateTime(rangerUserStore.getUserStoreUpdateTime());
+		ret.setUserAttrMapping(deltaUserAttrs);
+		ret.setUserGroupMapping(deltaUserGroups);
+		ret.setGroupAttrMapping(deltaGroupAttrs);
+		ret.setDeletedUsers(deletedUsers);
+		ret.setDeletedGroups(deletedGroups);
+		ret.setIsDelta(true);
+
+		return ret;
+	}
+
+	private static <T> void addChangedNames(Map<String, T> oldMapping, Map<String, T> newMapping, Set<String> changedNames) {
+		oldMapping = nonNull(oldMapping);
+		newMapping = nonNull(newMapping);
+
+		for (Map.Entry<String, T> entry : newMapping.entrySet()) {
+			if (!oldMapping.containsKey(entry.getKey()) || !Objects.equals(oldMapping.get(entry.getKey()), entry.getValue())) {
+				changedNames.add(entry.getKey());
+			}
+		}
+
+		for (String name : oldMapping.keySet()) {
+			if (!newMapping.containsKey(name)) {
+				changedNames.add(name);
+			}
+		}
+	}
+
+	private static <T> Map<String, T> nonNull(Map<String, T> mapping) {
+		return mapping != null ? mapping : Collections.emptyMap();
+	}
+
+	private static class UserStoreChanges {
+		final Long        fromVersion;
+		final Set<String> users;
+		final Set<String> groups;
+
+		UserStoreChanges(Long fromVersion, Set<String> users, Set<String> groups) {
+			this.fromVersion = fromVersion;
+			this.users       = users;
+			this.groups      = groups;
+		}
+	}
+}
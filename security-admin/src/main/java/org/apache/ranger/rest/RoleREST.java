@@ -948,6 +948,7 @@ public RangerRoles getRangerRolesIfUpdated(
             @QueryParam("pluginId") String pluginId,
             @DefaultValue("") @QueryParam("clusterName") String clusterName,
             @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities,
+            @DefaultValue("false") @QueryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_ROLE_DELTAS) Boolean supportsRoleDeltas,
             @Context HttpServletRequest request) throws Exception {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RoleREST.getRangerRolesIfUpdated("
@@ -972,7 +973,7 @@ public RangerRoles getRangerRolesIfUpdated(
         }
         if (isValid) {
             try {
-                RangerRoles roles = roleStore.getRoles(serviceName, lastKnownRoleVersion);
+                RangerRoles roles = roleStore.getRoles(serviceName, lastKnownRoleVersion, supportsRoleDeltas);
                 if (roles == null) {
                     downloadedVersion = lastKnownRoleVersion;
                     httpCode = HttpServletResponse.SC_NOT_MODIFIED;
@@ -1015,6 +1016,7 @@ public RangerRoles getSecureRangerRolesIfUpdated(
             @QueryParam("pluginId") String pluginId,
             @DefaultValue("") @QueryParam("clusterName") String clusterName,
             @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities,
+            @DefaultValue("false") @QueryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_ROLE_DELTAS) Boolean supportsRoleDeltas,
             @Context HttpServletRequest request) throws Exception {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RoleREST.getSecureRangerRolesIfUpdated("
@@ -1066,7 +1068,7 @@ public RangerRoles getSecureRangerRolesIfUpdated(
                 }
 
                 if (isAllowed) {
-                    RangerRoles roles = roleStore.getRoles(serviceName, lastKnownRoleVersion);
+                    RangerRoles roles = roleStore.getRoles(serviceName, lastKnownRoleVersion, supportsRoleDeltas);
                     if (roles == null) {
                         downloadedVersion = lastKnownRoleVersion;
                         httpCode = HttpServletResponse.SC_NOT_MODIFIED;
@@ -1432,6 +1432,7 @@ public RangerUserStore getRangerUserStoreIfUpdated(@PathParam("serviceName") Str
                                                        @QueryParam("pluginId") String pluginId,
                                                        @DefaultValue("") @QueryParam("clusterName") String clusterName,
                                                        @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities,
+                                                       @DefaultValue("false") @QueryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_USERSTORE_DELTAS) Boolean supportsUserStoreDeltas,
                                                        @Context HttpServletRequest request) throws Exception {
         if (logger.isDebugEnabled()) {
             logger.debug("==> XUserREST.getRangerUserStoreIfUpdated(serviceName={}, lastKnownUserStoreVersion={}, lastActivationTime={})", serviceName, lastKnownUserStoreVersion, lastActivationTime);
@@ -1461,7 +1462,7 @@ public RangerUserStore getRangerUserStoreIfUpdated(@PathParam("serviceName") Str
 
                 if (xService != null) {
 
-                    RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion);
+                    RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion, supportsUserStoreDeltas);
 
                     if (rangerUserStore == null) {
                         downloadedVersion = lastKnownUserStoreVersion;
@@ -1506,6 +1507,7 @@ public RangerUserStore getSecureRangerUserStoreIfUpdated(@PathParam("serviceName
 															 @QueryParam("pluginId") String pluginId,
 															 @DefaultValue("") @QueryParam("clusterName") String clusterName,
 															 @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities,
+															 @DefaultValue("false") @QueryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_USERSTORE_DELTAS) Boolean supportsUserStoreDeltas,
 															 @Context HttpServletRequest request) throws Exception {
 		if (logger.isDebugEnabled()) {
 			logger.debug("==> XUserREST.getSecureRangerUserStoreIfUpdated("
@@ -1544,7 +1546,7 @@ public RangerUserStore getSecureRangerUserStoreIfUpdated(@PathParam("serviceName
 				}
 
 				if (isAllowed) {
-					RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion);
+					RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion, supportsUserStoreDeltas);
 					if (rangerUserStore == null) {
 						downloadedVersion = lastKnownUserStoreVersion;
 						httpCode = HttpServletResponse.SC_NOT_MODIFIED;
@@ -276,10 +276,10 @@ private RangerRolesUtil initGetRolesUtil() {
 
                 if (lastKnownVersion == null || !lastKnownVersion.equals(currentVersion)) {
                     try {
-                        RangerRoles roles = RangerRoleCache.getInstance().getLatestRangerRoleOrCached(SERVICE_NAME_FOR_ROLES, rolesStore, lastKnownVersion, currentVersion);
+                        RangerRoles roles = RangerRoleCache.getInstance().getLatestRangerRoleOrCached(SERVICE_NAME_FOR_ROLES, rolesStore, lastKnownVersion, currentVersion, true);
 
                         if (roles != null) {
-                            this.rolesUtil = ret = new RangerRolesUtil(roles);
+                            this.rolesUtil = ret = (roles.getIsDelta() && ret != null) ? new RangerRolesUtil(ret, roles) : new RangerRolesUtil(roles);
                         }
                     } catch (Exception excp) {
                         LOG.warn("failed to get roles from store", excp);
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.ranger.biz.RoleDBStore;
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.model.RangerRole.RoleMember;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerRolesUtil;
+import org.apache.ranger.plugin.util.SearchFilter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerRoleCache {
+    private static final String SERVICE1 = "svc1";
+    private static final String SERVICE2 = "svc2";
+
+    @Test
+    public void testDeltasAreChainedAcrossVersions() throws Exception {
+        RangerRoleCache cache    = new RangerRoleCache(10, true, 10);
+        TestRoleStore   store    = new TestRoleStore(role("r1", "u1"), role("r2", "u2"), role("r3", "u3"), role("r4", "u4"));
+        RangerRoles     version1 = getRoles(cache, store, SERVICE1, null, 1L);
+
+        assertFalse(version1.getIsDelta());
+        assertEquals(4, version1.getRangerRoles().size());
+
+        store.update(role("r1", "u1", "u11"));
+        getRoles(cache, store, SERVICE1, 1L, 2L);
+
+        store.delete("r2");
+        getRoles(cache, store, SERVICE1, 2L, 3L);
+
+        RangerRoles deltas = getRoles(cache, store, SERVICE1, 1L, 3L);
+
+        assertTrue(deltas.getIsDelta());
+        assertEquals(Long.valueOf(3), deltas.getRoleVersion());
+        assertEquals(names("r1"), names(deltas.getRangerRoles()));
+        assertEquals(names("r2"), deltas.getDeletedRoles());
+        assertEquals(store.getAllRoles(), RangerRolesUtil.applyDeltas(version1, deltas).getRangerRoles());
+
+        deltas = getRoles(cache, store, SERVICE1, 2L, 3L);
+
+        assertTrue(deltas.getIsDelta());
+        assertTrue(deltas.getRangerRoles().isEmpty());
+        assertEquals(names("r2"), deltas.getDeletedRoles());
+
+        assertNull(getRoles(cache, store, SERVICE1, 3L, 3L));
+    }
+
+    @Test
+    public void testDeleteFollowedByRecreate() throws Exception {
+        RangerRoleCache cache = new RangerRoleCache(10, true, 10);
+        TestRoleStore   store = new TestRoleStore(role("r1", "u1"), role("r2", "u2"), role("r3", "u3"), role("r4", "u4"));
+
+        getRoles(cache, store, SERVICE1, null, 1L);
+
+        store.delete("r2");
+        getRoles(cache, store, SERVICE1, 1L, 2L);
+
+        store.update(role("r2", "u22"));
+        getRoles(cache, store, SERVICE1, 2L, 3L);
+
+        for (Long lastKnownVersion : Arrays.asList(1L, 2L)) {
+            RangerRoles deltas = getRoles(cache, store, SERVICE1, lastKnownVersion, 3L);
+
+            assertTrue(deltas.getIsDelta());
+            assertEquals(names("r2"), names(deltas.getRangerRoles()));
+            assertEquals(Collections.singleton(role("r2", "u22")), deltas.getRangerRoles());
+            assertTrue(deltas.getDeletedRoles().isEmpty());
+        }
+    }
+
+    @Test
+    public void testVersionOutsideDeltaWindow() throws Exception {
+        RangerRoleCache cache = new RangerRoleCache(10, true, 2);
+        TestRoleStore   store = new TestRoleStore(role("r1", "u1"), role("r2", "u2"), role("r3", "u3"), role("r4", "u4"));
+
+        getRoles(cache, store, SERVICE1, null, 1L);
+
+        for (long version = 2; version <= 4; version++) {
+            store.update(role("r1", "u" + version));
+            getRoles(cache, store, SERVICE1, version - 1, version);
+        }
+
+        // deltas of only the last 2 versions are retained
+        RangerRoles roles = getRoles(cache, store, SERVICE1, 1L, 4L);
+
+        assertFalse(roles.getIsDelta());
+        assertEquals(store.getAllRoles(), roles.getRangerRoles());
+
+        assertTrue(getRoles(cache, store, SERVICE1, 2L, 4L).getIsDelta());
+        assertTrue(getRoles(cache, store, SERVICE1, 3L, 4L).getIsDelta());
+
+        // unknown versions - like of roles from a different Ranger admin - get all roles
+        for (Long lastKnownVersion : Arrays.asList(-1L, 0L, 5L)) {
+            roles = getRoles(cache, store, SERVICE1, lastKnownVersion, 4L);
+
+            assertFalse(roles.getIsDelta());
+            assertEquals(store.getAllRoles(), roles.getRangerRoles());
+        }
+    }
+
+    @Test
+    public void testAllRolesWhenDeltasAreNotSmaller() throws Exception {
+        RangerRoleCache cache = new RangerRoleCache(10, true, 10);
+        TestRoleStore   store = new TestRoleStore(role("r1", "u1"), role("r2", "u2"));
+
+        getRoles(cache, store, SERVICE1, null, 1L);
+
+        store.update(role("r1", "u11"));
+        store.delete("r2");
+        getRoles(cache, store, SERVICE1, 1L, 2L);
+
+        RangerRoles roles = getRoles(cache, store, SERVICE1, 1L, 2L);
+
+        assertFalse(roles.getIsDelta());
+        assertNull(roles.getDeletedRoles());
+        assertEquals(store.getAllRoles(), roles.getRangerRoles());
+    }
+
+    @Test
+    public void testRolesAreCachedOnceForAllServices() throws Exception {
+        RangerRoleCache cache = new RangerRoleCache(10, true, 10);
+        TestRoleStore   store = new TestRoleStore(role("r1", "u1"), role("r2", "u2"), role("r3", "u3"));
+
+        getRoles(cache, store, SERVICE1, null, 1L);
+
+        store.update(role("r1", "u11"));
+        getRoles(cache, store, SERVICE1, 1L, 2L);
+
+        // a plugin of another service gets deltas computed when roles were downloaded for the first service, without reading roles from database again
+        int         loadCount = store.loadCount;
+        RangerRoles deltas    = getRoles(cache, store, SERVICE2, 1L, 2L);
+
+        assertTrue(deltas.getIsDelta());
+        assertEquals(names("r1"), names(deltas.getRangerRoles()));
+        assertEquals(loadCount, store.loadCount);
+    }
+
+    @Test
+    public void testAllRolesWhenDeltasAreNotSupported() throws Exception {
+        RangerRoleCache cache = new RangerRoleCache(10, false, 10);
+        TestRoleStore   store = new TestRoleStore(role("r1", "u1"), role("r2", "u2"), role("r3", "u3"));
+
+        getRoles(cache, store, SERVICE1, null, 1L);
+
+        store.update(role("r1", "u11"));
+
+        RangerRoles roles = getRoles(cache, store, SERVICE1, 1L, 2L);
+
+        assertFalse(roles.getIsDelta());
+        assertEquals(store.getAllRoles(), roles.getRangerRoles());
+    }
+
+    private static RangerRoles getRoles(RangerRoleCache cache, TestRoleStore store, String serviceName, Long lastKnownVersion, Long versionInDB) throws Exception {
+        return cache.getLatestRangerRoleOrCached(serviceName, store, lastKnownVersion, versionInDB, true);
+    }
+
+    private static RangerRole role(String name, String... users) {
+        List<RoleMember> members = new ArrayList<>();
+
+        for (String user : users) {
+            members.add(new RoleMember(user, false));
+        }
+
+        return new RangerRole(name, null, null, members, null);
+    }
+
+    private static Set<String> names(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    private static Set<String> names(Set<RangerRole> roles) {
+        Set<String> ret = new HashSet<>();
+
+        for (RangerRole role : roles) {
+            ret.add(role.getName());
+        }
+
+        return ret;
+    }
+
+    private static class TestRoleStore extends RoleDBStore {
+        private final List<RangerRole> roles = new ArrayList<>();
+        private       int              loadCount;
+
+        TestRoleStore(RangerRole... roles) {
+            this.roles.addAll(Arrays.asList(roles));
+        }
+
+        @Override
+        public List<RangerRole> getRoles(SearchFilter filter) {
+            loadCount++;
+
+            return new ArrayList<>(roles);
+        }
+
+        Set<RangerRole> getAllRoles() {
+            return new HashSet<>(roles);
+        }
+
+        void update(RangerRole role) {
+            delete(role.getName());
+
+            roles.add(role);
+        }
+
+        void delete(String name) {
+            roles.removeIf(role -> role.getName().equals(name));
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.ranger.biz.XUserMgr;
+import org.apache.ranger.plugin.model.GroupInfo;
+import org.apache.ranger.plugin.model.UserInfo;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.RangerUserStoreUtil;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerUserStoreCache {
+    @Test
+    public void testDeltasMatchFullUserStore() throws Exception {
+        RangerUserStoreCache       cache      = new RangerUserStoreCache(10, true, true, 5);
+        TestUserMgr                userMgr    = new TestUserMgr();
+        Random                     random     = new Random(12345);
+        Map<Long, RangerUserStore> userStores = new HashMap<>(); // as in plugins, by version
+
+        for (int i = 0; i < 300; i++) {
+            userMgr.updateUser(random, "user" + i);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            userMgr.updateGroup(random, "group" + i);
+        }
+
+        userStores.put(1L, getUserStore(cache, userMgr, -1L));
+
+        int deltaCount = 0;
+
+        for (long version = 2; version < 50; version++) {
+            for (int i = random.nextInt(10); i >= 0; i--) {
+                String userName = "user" + random.nextInt(320); // includes users yet to be created
+
+                if (random.nextInt(4) == 0) {
+                    userMgr.deleteUser(userName);
+                } else {
+                    userMgr.updateUser(random, userName);
+                }
+            }
+
+            for (int i = random.nextInt(3); i >= 0; i--) {
+                String groupName = "group" + random.nextInt(55);
+
+                if (random.nextInt(4) == 0) {
+                    userMgr.groups.remove(groupName);
+                } else {
+                    userMgr.updateGroup(random, groupName);
+                }
+            }
+
+            userMgr.version = version;
+
+            RangerUserStore expected = userMgr.getUserStore();
+
+            // plugins at the previous version, and at versions within and outside the retained deltas
+            for (long lastKnownVersion = Math.max(1, version - 7); lastKnownVersion < version; lastKnownVersion++) {
+                RangerUserStore previous = userStores.get(lastKnownVersion);
+                RangerUserStore ret      = getUserStore(cache, userMgr, lastKnownVersion);
+                RangerUserStore updated  = ret.getIsDelta() ? RangerUserStoreUtil.applyDeltas(previous, ret) : ret;
+
+                assertEquals(Long.valueOf(version), updated.getUserStoreVersion());
+                assertMappingsEqual("version=" + version + ", lastKnownVersion=" + lastKnownVersion, expected, updated);
+                assertEquals(version - lastKnownVersion <= 5, ret.getIsDelta());
+
+                if (ret.getIsDelta()) {
+                    deltaCount++;
+                }
+            }
+
+            userStores.put(version, expected);
+        }
+
+        assertTrue(deltaCount > 0);
+    }
+
+    @Test
+    public void testDeleteFollowedByRecreate() throws Exception {
+        RangerUserStoreCache cache   = new RangerUserStoreCache(10, true, true, 10);
+        TestUserMgr          userMgr = new TestUserMgr();
+
+        userMgr.users.put("user1", new UserInfo("user1", null, createAttrs("dept", "sales")));
+        userMgr.users.put("user2", new UserInfo("user2", null, createAttrs("dept", "eng")));
+        userMgr.users.put("user3", new UserInfo("user3", null, createAttrs("dept", "eng")));
+        userMgr.users.put("user4", new UserInfo("user4", null, createAttrs("dept", "hr")));
+        userMgr.users.put("user5", new UserInfo("user5", null, createAttrs("dept", "hr")));
+        userMgr.groups.put("group1", new GroupInfo("group1", null, createAttrs("site", "us")));
+        userMgr.userGroups.put("user1", new HashSet<>(Collections.singletonList("group1")));
+
+        RangerUserStore version1 = getUserStore(cache, userMgr, -1L);
+
+        userMgr.version = 2L;
+        userMgr.deleteUser("user1");
+        userMgr.groups.remove("group1");
+
+        RangerUserStore deltas = getUserStore(cache, userMgr, 1L);
+
+        assertTrue(deltas.getIsDelta());
+        assertEquals(Collections.singleton("user1"), deltas.getDeletedUsers());
+        assertEquals(Collections.singleton("group1"), deltas.getDeletedGroups());
+
+        userMgr.version = 3L;
+        userMgr.users.put("user1", new UserInfo("user1", null, createAttrs("dept", "hr")));
+        userMgr.groups.put("group1", new GroupInfo("group1", null, createAttrs("site", "in")));
+
+        deltas = getUserStore(cache, userMgr, 1L);
+
+        assertTrue(deltas.getIsDelta());
+        assertTrue(deltas.getDeletedUsers().isEmpty());
+        assertTrue(deltas.getDeletedGroups().isEmpty());
+        assertEquals(createAttrs("dept", "hr"), deltas.getUserAttrMapping().get("user1"));
+        assertEquals(createAttrs("site", "in"), deltas.getGroupAttrMapping().get("group1"));
+        assertMappingsEqual("version=3", userMgr.getUserStore(), RangerUserStoreUtil.applyDeltas(version1, deltas));
+    }
+
+    @Test
+    public void testFullUserStoreWhenDeltasAreNotFewer() throws Exception {
+        RangerUserStoreCache cache   = new RangerUserStoreCache(10, true, true, 10);
+        TestUserMgr          userMgr = new TestUserMgr();
+
+        userMgr.users.put("user1", new UserInfo("user1", null, createAttrs("dept", "sales")));
+        userMgr.groups.put("group1", new GroupInfo("group1", null, createAttrs("site", "us")));
+
+        getUserStore(cache, userMgr, -1L);
+
+        userMgr.version = 2L;
+        userMgr.users.put("user1", new UserInfo("user1", null, createAttrs("dept", "eng")));
+        userMgr.groups.put("group1", new GroupInfo("group1", null, createAttrs("site", "in")));
+
+        RangerUserStore ret = getUserStore(cache, userMgr, 1L);
+
+        assertFalse(ret.getIsDelta());
+        assertSame(cache.getRangerUserStore(), ret);
+        assertMappingsEqual("version=2", userMgr.getUserStore(), ret);
+    }
+
+    @Test
+    public void testFullUserStoreWhenDeltasAreNotSupported() throws Exception {
+        RangerUserStoreCache cache   = new RangerUserStoreCache(10, true, false, 10);
+        TestUserMgr          userMgr = new TestUserMgr();
+
+        for (int i = 0; i < 10; i++) {
+            userMgr.users.put("user" + i, new UserInfo("user" + i, null, createAttrs("dept", "sales")));
+        }
+
+        getUserStore(cache, userMgr, -1L);
+
+        userMgr.version = 2L;
+        userMgr.users.put("user1", new UserInfo("user1", null, createAttrs("dept", "eng")));
+
+        RangerUserStore ret = getUserStore(cache, userMgr, 1L);
+
+        assertFalse(ret.getIsDelta());
+        assertSame(cache.getRangerUserStore(), ret);
+        assertMappingsEqual("version=2", userMgr.getUserStore(), ret);
+    }
+
+    private static RangerUserStore getUserStore(RangerUserStoreCache cache, TestUserMgr userMgr, Long lastKnownVersion) throws Exception {
+        return cache.getLatestRangerUserStoreOrCached(userMgr, lastKnownVersion, true);
+    }
+
+    private static Map<String, String> createAttrs(String... namesAndValues) {
+        Map<String, String> ret = new HashMap<>();
+
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            ret.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+
+        return ret;
+    }
+
+    // no attributes at times
+    private static Map<String, String> createRandomAttrs(Random random, String name) {
+        Map<String, String> ret = new HashMap<>();
+
+        for (int i = random.nextInt(4); i > 0; i--) {
+            ret.put("attr" + random.nextInt(5), "value" + random.nextInt(10));
+        }
+
+        if (random.nextInt(3) == 0) {
+            ret.put(RangerUserStore.CLOUD_IDENTITY_NAME, name + "-id" + random.nextInt(2));
+        }
+
+        return ret;
+    }
+
+    private static <T> Map<String, T> copyOf(Map<String, T> mapping) {
+        return mapping != null ? new HashMap<>(mapping) : new HashMap<>();
+    }
+
+    private static void assertMappingsEqual(String message, RangerUserStore expected, RangerUserStore actual) {
+        assertEquals(message, copyOf(expected.getUserAttrMapping()), copyOf(actual.getUserAttrMapping()));
+        assertEquals(message, copyOf(expected.getGroupAttrMapping()), copyOf(actual.getGroupAttrMapping()));
+        assertEquals(message, copyOf(expected.getUserGroupMapping()), copyOf(actual.getUserGroupMapping()));
+        assertEquals(message, copyOf(expected.getUserCloudIdMapping()), copyOf(actual.getUserCloudIdMapping()));
+        assertEquals(message, copyOf(expected.getGroupCloudIdMapping()), copyOf(actual.getGroupCloudIdMapping()));
+    }
+
+    // users and groups in the database
+    private static class TestUserMgr extends XUserMgr {
+        private final Map<String, UserInfo>    users      = new HashMap<>();
+        private final Map<String, GroupInfo>   groups     = new HashMap<>();
+        private final Map<String, Set<String>> userGroups = new HashMap<>();
+        private       Long                     version    = 1L;
+
+        @Override
+        public Long getUserStoreVersion() {
+            return version;
+        }
+
+        @Override
+        public Set<UserInfo> getUsers() {
+            return new HashSet<>(users.values());
+        }
+
+        @Override
+        public Set<GroupInfo> getGroups() {
+            return new HashSet<>(groups.values());
+        }
+
+        @Override
+        public Map<String, Set<String>> getUserGroups() {
+            Map<String, Set<String>> ret = new HashMap<>();
+
+            userGroups.forEach((k, v) -> ret.put(k, new HashSet<>(v)));
+
+            return ret;
+        }
+
+        RangerUserStore getUserStore() {
+            return new RangerUserStore(version, getUsers(), getGroups(), getUserGroups());
+        }
+
+        void updateUser(Random random, String userName) {
+            users.put(userName, new UserInfo(userName, null, createRandomAttrs(random, userName)));
+
+            if (random.nextInt(3) > 0) {
+                Set<String> groupNames = new HashSet<>();
+
+                for (int i = random.nextInt(3); i >= 0; i--) {
+                    groupNames.add("group" + random.nextInt(55));
+                }
+
+                userGroups.put(userName, groupNames);
+            } else {
+                userGroups.remove(userName);
+            }
+        }
+
+        void updateGroup(Random random, String groupName) {
+            groups.put(groupName, new GroupInfo(groupName, null, createRandomAttrs(random, groupName)));
+        }
+
+        void deleteUser(String userName) {
+            users.remove(userName);
+            userGroups.remove(userName);
+        }
+    }
+}
@@ -447,13 +447,13 @@ public void test16GetRangerRolesIfUpdated() {
         Mockito.when(serviceUtil.isValidService(Mockito.anyString(),Mockito.any(HttpServletRequest.class))).
                 thenReturn(true);
         try {
-            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong())).thenReturn(rangerRoles);
+            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong(), Mockito.anyBoolean())).thenReturn(rangerRoles);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         try {
             returnedRangeRoles = roleRest.getRangerRolesIfUpdated(serviceName,
-                    -1l, 0l, pluginId, clusterName, pluginCapabilities,
+                    -1l, 0l, pluginId, clusterName, pluginCapabilities, false,
                     Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -473,7 +473,7 @@ public void test17GetSecureRangerRolesIfUpdated(){
         Mockito.when(serviceUtil.isValidService(Mockito.anyString(),Mockito.any(HttpServletRequest.class))).
                 thenReturn(true);
         try {
-            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong())).thenReturn(rangerRoles);
+            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong(), Mockito.anyBoolean())).thenReturn(rangerRoles);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -481,7 +481,7 @@ public void test17GetSecureRangerRolesIfUpdated(){
         Mockito.when(bizUtil.isAdmin()).thenReturn(true);
         try {
             returnedRangeRoles = roleRest.getSecureRangerRolesIfUpdated(serviceName,
-                    -1l, 0l, pluginId, clusterName, pluginCapabilities,
+                    -1l, 0l, pluginId, clusterName, pluginCapabilities, false,
                     Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -724,7 +724,7 @@ public void test16bGetRangerRolesIfUpdated() {
         }
         try {
             roleRest.getRangerRolesIfUpdated(serviceName, -1l, 0l, pluginId, clusterName,
-                    pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+                    pluginCapabilities, false, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -739,13 +739,13 @@ public void test16cGetRangerRolesIfUpdated() {
         Mockito.when(serviceUtil.isValidService(Mockito.anyString(),Mockito.any(HttpServletRequest.class))).
                 thenReturn(true);
         try {
-            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong())).thenReturn(null);
+            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong(), Mockito.anyBoolean())).thenReturn(null);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         try {
             roleRest.getRangerRolesIfUpdated(serviceName, -1l, 0l, pluginId, clusterName,
-                    pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+                    pluginCapabilities, false, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -761,7 +761,7 @@ public void test17bGetSecureRangerRolesIfUpdated(){
         Mockito.when(serviceUtil.isValidService(eq(null),Mockito.any(HttpServletRequest.class))).
                 thenThrow(new Exception());
         try {
-            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong())).thenReturn(rangerRoles);
+            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong(), Mockito.anyBoolean())).thenReturn(rangerRoles);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -769,7 +769,7 @@ public void test17bGetSecureRangerRolesIfUpdated(){
         Mockito.when(bizUtil.isAdmin()).thenReturn(true);
         try {
             roleRest.getSecureRangerRolesIfUpdated(serviceName, -1l, 0l, pluginId,
-                    clusterName, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+                    clusterName, pluginCapabilities, false, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -787,7 +787,7 @@ public void test17cGetSecureRangerRolesIfUpdated(){
         Mockito.when(bizUtil.isAdmin()).thenReturn(true);
         try {
             roleRest.getSecureRangerRolesIfUpdated(serviceName, -1l, 0l, pluginId,
-                    clusterName, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+                    clusterName, pluginCapabilities, false, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -803,7 +803,7 @@ public void test17dGetSecureRangerRolesIfUpdated(){
         Mockito.when(serviceUtil.isValidService(Mockito.anyString(), Mockito.any(HttpServletRequest.class))).
                 thenReturn(true);
         try {
-            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong())).thenReturn(null);
+            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong(), Mockito.anyBoolean())).thenReturn(null);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -811,7 +811,7 @@ public void test17dGetSecureRangerRolesIfUpdated(){
         Mockito.when(bizUtil.isAdmin()).thenReturn(true);
         try {
             roleRest.getSecureRangerRolesIfUpdated(serviceName, -1l, 0l, pluginId,
-                    clusterName, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+                    clusterName, pluginCapabilities, false, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }